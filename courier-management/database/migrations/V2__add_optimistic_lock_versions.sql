@@ -0,0 +1,6 @@
+-- Optimistic locking version columns
+-- Version: 2.0
+-- Date: 2026-10-18
+
+ALTER TABLE assignments ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE couriers ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,38 @@
+-- Performance metric rollup tables
+-- Version: 3.0
+-- Date: 2026-10-18
+
+-- Hourly and daily aggregates per courier and metric type
+CREATE TABLE IF NOT EXISTS performance_metric_rollups (
+    id BIGSERIAL PRIMARY KEY,
+    granularity VARCHAR(10) NOT NULL,
+    courier_id VARCHAR(36) NOT NULL,
+    metric_type VARCHAR(50) NOT NULL,
+    metric_date DATE NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    sample_count BIGINT NOT NULL DEFAULT 0,
+    value_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    min_value DOUBLE PRECISION,
+    max_value DOUBLE PRECISION,
+    first_value DOUBLE PRECISION,
+    last_value DOUBLE PRECISION,
+    target_count BIGINT NOT NULL DEFAULT 0,
+    target_met_count BIGINT NOT NULL DEFAULT 0,
+    sketch BYTEA,
+    compacted BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP,
+    CONSTRAINT uk_performance_metric_rollup_bucket
+        UNIQUE (granularity, courier_id, metric_type, metric_date, bucket_start)
+);
+
+CREATE INDEX IF NOT EXISTS idx_performance_metric_rollup_date
+    ON performance_metric_rollups (metric_date, metric_type);
+
+CREATE INDEX IF NOT EXISTS idx_performance_metric_rollup_courier_date
+    ON performance_metric_rollups (courier_id, metric_date);
+
+-- Hourly rollups waiting for compaction
+CREATE INDEX IF NOT EXISTS idx_performance_metric_rollup_pending
+    ON performance_metric_rollups (bucket_start)
+    WHERE granularity = 'HOURLY' AND compacted = FALSE;
@@ -0,0 +1,8 @@
+-- Package weight and dimensions on assignment tasks, used for vehicle capacity planning
+-- Version: 4.0
+-- Date: 2026-10-18
+
+ALTER TABLE assignment_tasks ADD COLUMN IF NOT EXISTS package_weight_kg DOUBLE PRECISION;
+ALTER TABLE assignment_tasks ADD COLUMN IF NOT EXISTS package_length_cm DOUBLE PRECISION;
+ALTER TABLE assignment_tasks ADD COLUMN IF NOT EXISTS package_width_cm DOUBLE PRECISION;
+ALTER TABLE assignment_tasks ADD COLUMN IF NOT EXISTS package_height_cm DOUBLE PRECISION;
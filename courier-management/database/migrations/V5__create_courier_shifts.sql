@@ -0,0 +1,20 @@
+-- Courier shifts, used for availability filtering at dispatch time
+-- Version: 5.0
+-- Date: 2026-10-18
+
+CREATE TABLE IF NOT EXISTS courier_shifts (
+    id BIGSERIAL PRIMARY KEY,
+    courier_id VARCHAR(36) NOT NULL,
+    zone VARCHAR(50),
+    start_time TIMESTAMP NOT NULL,
+    end_time TIMESTAMP NOT NULL,
+    created_at TIMESTAMP,
+    updated_at TIMESTAMP,
+    CONSTRAINT ck_courier_shift_times CHECK (end_time > start_time)
+);
+
+CREATE INDEX IF NOT EXISTS idx_courier_shift_courier_start
+    ON courier_shifts (courier_id, start_time);
+
+CREATE INDEX IF NOT EXISTS idx_courier_shift_end
+    ON courier_shifts (end_time);
@@ -0,0 +1,5 @@
+-- Optimistic locking version column for assignment tasks
+-- Version: 6.0
+-- Date: 2026-10-19
+
+ALTER TABLE assignment_tasks ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
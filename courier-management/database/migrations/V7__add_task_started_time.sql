@@ -0,0 +1,6 @@
+-- Actual start time of assignment tasks
+-- Version: 7.0
+-- Date: 2026-10-19
+
+-- Until now starting a task overwrote scheduled_time; keep the schedule and record the start separately
+ALTER TABLE assignment_tasks ADD COLUMN IF NOT EXISTS started_time TIMESTAMP;
@@ -0,0 +1,8 @@
+-- Business courier IDs, the ones used in the API
+-- Version: 8.0
+-- Date: 2026-10-19
+
+ALTER TABLE couriers ADD COLUMN IF NOT EXISTS courier_id VARCHAR(36);
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_courier_courier_id
+    ON couriers (courier_id);
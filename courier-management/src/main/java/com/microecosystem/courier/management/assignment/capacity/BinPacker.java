@@ -0,0 +1,330 @@
+package com.gogidix.courier.management.assignment.capacity;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Two-dimensional (weight and volume) bin packing of items into identical vehicle loads.
+ * Items are placed first-fit in decreasing order of their larger capacity share, after which a
+ * local improvement pass tries to empty the lightest loads by swapping and relocating their
+ * items into the remaining ones. The initial packing runs in O(n * loads); improvement is
+ * bounded by a time budget, so a few thousand items stay well below a second.
+ */
+public final class BinPacker {
+
+    /**
+     * Load index given to items that exceed the vehicle capacity on their own.
+     */
+    public static final int OVERSIZED = -1;
+
+    private static final double EPSILON = 1e-9;
+
+    private final double maxWeight;
+    private final double maxVolume;
+    private final double[] weights;
+    private final double[] volumes;
+    private final double[] sizes;
+    private long deadline;
+
+    private final List<List<Integer>> loads = new ArrayList<>();
+    private double[] loadWeights = new double[16];
+    private double[] loadVolumes = new double[16];
+
+    private BinPacker(double[] weights, double[] volumes, double maxWeight, double maxVolume) {
+        this.weights = weights;
+        this.volumes = volumes;
+        this.maxWeight = maxWeight;
+        this.maxVolume = maxVolume;
+        this.sizes = new double[weights.length];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = Math.max(weights[i] / maxWeight, volumes[i] / maxVolume);
+        }
+    }
+
+    /**
+     * Packs items into as few capacity-feasible loads as the heuristic finds.
+     *
+     * @param weights the item weights
+     * @param volumes the item volumes, index-aligned with the weights
+     * @param maxWeight the weight capacity of one load
+     * @param maxVolume the volume capacity of one load
+     * @param improvementPasses the maximum number of load elimination passes
+     * @param improvementBudget time allowed for load elimination on top of the initial packing
+     * @return the packing
+     */
+    public static Packing pack(double[] weights, double[] volumes, double maxWeight, double maxVolume,
+                               int improvementPasses, Duration improvementBudget) {
+        if (weights.length != volumes.length) {
+            throw new IllegalArgumentException("Weights and volumes must have the same length");
+        }
+        if (maxWeight <= 0 || maxVolume <= 0) {
+            throw new IllegalArgumentException("Capacities must be positive");
+        }
+        BinPacker packer = new BinPacker(weights, volumes, maxWeight, maxVolume);
+        int[] oversized = packer.firstFitDecreasing();
+        packer.deadline = System.nanoTime() + improvementBudget.toNanos();
+        int lowerBound = packer.lowerBound();
+        for (int pass = 0; pass < improvementPasses && packer.loads.size() > lowerBound; pass++) {
+            if (!packer.eliminateLoads() || System.nanoTime() - packer.deadline > 0) {
+                break;
+            }
+        }
+        return packer.toPacking(oversized, lowerBound);
+    }
+
+    private int[] firstFitDecreasing() {
+        Integer[] order = new Integer[weights.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(this::size).reversed());
+
+        List<Integer> oversized = new ArrayList<>();
+        for (int item : order) {
+            if (weights[item] > maxWeight + EPSILON || volumes[item] > maxVolume + EPSILON) {
+                oversized.add(item);
+            } else {
+                int target = firstFit(item, -1, null);
+                if (target < 0) {
+                    openLoad(item);
+                } else {
+                    add(target, item);
+                }
+            }
+        }
+        return oversized.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Tries to empty loads, lightest first. Items of the candidate load are first swapped for
+     * the smallest item of a fuller load that still leaves both within capacity, which gathers
+     * the free space in the candidate; then each remaining item is moved into the first other
+     * load with room. A load whose items cannot all be moved keeps them, though its swaps may
+     * free enough room for a lighter load in the next pass. Every swap moves size from a lighter
+     * to a fuller load, so passes cannot cycle.
+     *
+     * @return true if any item was swapped or any load eliminated
+     */
+    private boolean eliminateLoads() {
+        Integer[] candidates = new Integer[loads.size()];
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = i;
+        }
+        Arrays.sort(candidates, Comparator.comparingDouble(this::loadSize));
+
+        boolean[] eliminated = new boolean[loads.size()];
+        boolean changed = false;
+        boolean anyEliminated = false;
+        for (int load : candidates) {
+            if (System.nanoTime() - deadline > 0) {
+                break;
+            }
+            changed |= swapForSmallerItems(load, eliminated);
+            if (relocateAll(load, eliminated)) {
+                eliminated[load] = true;
+                anyEliminated = true;
+            }
+        }
+        if (anyEliminated) {
+            compact(eliminated);
+        }
+        return changed || anyEliminated;
+    }
+
+    private boolean swapForSmallerItems(int load, boolean[] eliminated) {
+        List<Integer> items = new ArrayList<>(loads.get(load));
+        items.sort(Comparator.comparingDouble(this::size).reversed());
+        boolean swapped = false;
+        for (int item : items) {
+            int bestLoad = -1;
+            int bestItem = -1;
+            for (int other = 0; other < loads.size(); other++) {
+                if (other == load || eliminated[other] || loadSize(other) < loadSize(load)) {
+                    continue;
+                }
+                for (int smaller : loads.get(other)) {
+                    if (size(smaller) < size(item) && (bestItem < 0 || size(smaller) < size(bestItem))
+                            && fitsAfterSwap(other, smaller, item) && fitsAfterSwap(load, item, smaller)) {
+                        bestLoad = other;
+                        bestItem = smaller;
+                    }
+                }
+            }
+            if (bestItem >= 0) {
+                remove(bestLoad, bestItem);
+                remove(load, item);
+                add(bestLoad, item);
+                add(load, bestItem);
+                swapped = true;
+            }
+        }
+        return swapped;
+    }
+
+    private boolean relocateAll(int load, boolean[] eliminated) {
+        List<Integer> items = new ArrayList<>(loads.get(load));
+        items.sort(Comparator.comparingDouble(this::size).reversed());
+        List<int[]> moves = new ArrayList<>(items.size());
+        for (int item : items) {
+            int target = firstFit(item, load, eliminated);
+            if (target < 0) {
+                for (int[] move : moves) {
+                    remove(move[1], move[0]);
+                    add(load, move[0]);
+                }
+                return false;
+            }
+            remove(load, item);
+            add(target, item);
+            moves.add(new int[]{item, target});
+        }
+        return true;
+    }
+
+    private boolean fitsAfterSwap(int load, int outgoing, int incoming) {
+        return loadWeights[load] - weights[outgoing] + weights[incoming] <= maxWeight + EPSILON
+                && loadVolumes[load] - volumes[outgoing] + volumes[incoming] <= maxVolume + EPSILON;
+    }
+
+    private int firstFit(int item, int excludedLoad, boolean[] eliminated) {
+        for (int load = 0; load < loads.size(); load++) {
+            if (load == excludedLoad || (eliminated != null && eliminated[load])) {
+                continue;
+            }
+            if (loadWeights[load] + weights[item] <= maxWeight + EPSILON
+                    && loadVolumes[load] + volumes[item] <= maxVolume + EPSILON) {
+                return load;
+            }
+        }
+        return -1;
+    }
+
+    private void openLoad(int item) {
+        int load = loads.size();
+        if (load == loadWeights.length) {
+            loadWeights = Arrays.copyOf(loadWeights, load * 2);
+            loadVolumes = Arrays.copyOf(loadVolumes, load * 2);
+        }
+        loads.add(new ArrayList<>());
+        add(load, item);
+    }
+
+    private void add(int load, int item) {
+        loads.get(load).add(item);
+        loadWeights[load] += weights[item];
+        loadVolumes[load] += volumes[item];
+    }
+
+    private void remove(int load, int item) {
+        loads.get(load).remove(Integer.valueOf(item));
+        loadWeights[load] -= weights[item];
+        loadVolumes[load] -= volumes[item];
+    }
+
+    private void compact(boolean[] eliminated) {
+        int kept = 0;
+        for (int load = 0; load < eliminated.length; load++) {
+            if (!eliminated[load]) {
+                loads.set(kept, loads.get(load));
+                loadWeights[kept] = loadWeights[load];
+                loadVolumes[kept] = loadVolumes[load];
+                kept++;
+            }
+        }
+        loads.subList(kept, loads.size()).clear();
+    }
+
+    private double size(int item) {
+        return sizes[item];
+    }
+
+    private double loadSize(int load) {
+        return Math.max(loadWeights[load] / maxWeight, loadVolumes[load] / maxVolume);
+    }
+
+    // No packing can use fewer loads than the total weight or volume divided by the capacity
+    private int lowerBound() {
+        double totalWeight = 0;
+        double totalVolume = 0;
+        for (List<Integer> load : loads) {
+            for (int item : load) {
+                totalWeight += weights[item];
+                totalVolume += volumes[item];
+            }
+        }
+        double bound = Math.max(totalWeight / maxWeight, totalVolume / maxVolume);
+        return (int) Math.ceil(bound - EPSILON);
+    }
+
+    private Packing toPacking(int[] oversized, int lowerBound) {
+        int[] loadOf = new int[weights.length];
+        Arrays.fill(loadOf, OVERSIZED);
+        for (int load = 0; load < loads.size(); load++) {
+            for (int item : loads.get(load)) {
+                loadOf[item] = load;
+            }
+        }
+        return new Packing(loadOf, loads.size(), Arrays.copyOf(loadWeights, loads.size()),
+                Arrays.copyOf(loadVolumes, loads.size()), oversized, lowerBound);
+    }
+
+    /**
+     * Result of a packing run.
+     */
+    public static final class Packing {
+
+        private final int[] loadOf;
+        private final int loadCount;
+        private final double[] loadWeights;
+        private final double[] loadVolumes;
+        private final int[] oversized;
+        private final int lowerBound;
+
+        private Packing(int[] loadOf, int loadCount, double[] loadWeights, double[] loadVolumes,
+                        int[] oversized, int lowerBound) {
+            this.loadOf = loadOf;
+            this.loadCount = loadCount;
+            this.loadWeights = loadWeights;
+            this.loadVolumes = loadVolumes;
+            this.oversized = oversized;
+            this.lowerBound = lowerBound;
+        }
+
+        /**
+         * @param item the item index
+         * @return the load the item was placed in, or {@link #OVERSIZED}
+         */
+        public int getLoad(int item) {
+            return loadOf[item];
+        }
+
+        public int getLoadCount() {
+            return loadCount;
+        }
+
+        public double getLoadWeight(int load) {
+            return loadWeights[load];
+        }
+
+        public double getLoadVolume(int load) {
+            return loadVolumes[load];
+        }
+
+        /**
+         * @return indexes of the items that do not fit in an empty vehicle
+         */
+        public int[] getOversized() {
+            return oversized.clone();
+        }
+
+        /**
+         * @return the fewest loads any packing of the placed items could use
+         */
+        public int getLowerBound() {
+            return lowerBound;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.gogidix.courier.management.assignment.capacity;
+
+import com.gogidix.courier.management.assignment.model.AssignmentTask;
+import com.gogidix.courier.management.assignment.model.TaskType;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.function.Function;
+
+/**
+ * Reads the package weight and volume of tasks and orders. A task without the measurement has
+ * an unknown load rather than none, so it cannot be packed as if it were empty.
+ */
+public final class PackageMeasures {
+
+    private PackageMeasures() {
+    }
+
+    /**
+     * Gets the weight an order puts on a vehicle.
+     *
+     * @param tasks the order's tasks
+     * @return the weight in kilograms, or empty if the order's packages were not weighed
+     */
+    public static OptionalDouble orderWeightKg(List<AssignmentTask> tasks) {
+        return orderLoad(tasks, AssignmentTask::getPackageWeightKg);
+    }
+
+    /**
+     * Gets the volume an order takes up in a vehicle.
+     *
+     * @param tasks the order's tasks
+     * @return the volume in litres, or empty if the order's packages were not measured
+     */
+    public static OptionalDouble orderVolumeLitres(List<AssignmentTask> tasks) {
+        return orderLoad(tasks, PackageMeasures::measuredVolumeLitres);
+    }
+
+    /**
+     * The pickup and delivery tasks of an order describe the same parcels, so an order's load is
+     * the largest per-type total of its package handling tasks rather than the sum over all tasks.
+     * Only types whose tasks are all measured count; an order without package handling tasks
+     * carries nothing.
+     */
+    private static OptionalDouble orderLoad(List<AssignmentTask> tasks, Function<AssignmentTask, Double> measure) {
+        Map<TaskType, Double> totals = new EnumMap<>(TaskType.class);
+        boolean handlesPackages = false;
+        for (AssignmentTask task : tasks) {
+            if (task.getTaskType() == null || !task.getTaskType().isPackageHandlingTask()) {
+                continue;
+            }
+            handlesPackages = true;
+            Double value = measure.apply(task);
+            if (value == null) {
+                totals.put(task.getTaskType(), Double.NaN);
+            } else {
+                totals.merge(task.getTaskType(), value, Double::sum);
+            }
+        }
+        if (!handlesPackages) {
+            return OptionalDouble.of(0.0);
+        }
+        return totals.values().stream().mapToDouble(Double::doubleValue).filter(total -> !Double.isNaN(total)).max();
+    }
+
+    private static Double measuredVolumeLitres(AssignmentTask task) {
+        if (task.getPackageLengthCm() == null || task.getPackageWidthCm() == null
+                || task.getPackageHeightCm() == null) {
+            return null;
+        }
+        return task.getPackageLengthCm() * task.getPackageWidthCm() * task.getPackageHeightCm() / 1000.0;
+    }
+}
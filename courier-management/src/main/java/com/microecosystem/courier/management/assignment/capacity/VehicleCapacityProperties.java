@@ -0,0 +1,88 @@
+package com.gogidix.courier.management.assignment.capacity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Load capacities per courier vehicle type, bound from {@code assignment.capacity}.
+ */
+@Component
+@ConfigurationProperties(prefix = "assignment.capacity")
+@Data
+public class VehicleCapacityProperties {
+
+    /**
+     * Vehicle type used when a courier has none recorded or an unknown one.
+     */
+    private String defaultVehicleType = "CAR";
+
+    /**
+     * Upper bound on load elimination passes after the first-fit-decreasing packing.
+     */
+    private int improvementPasses = 5;
+
+    /**
+     * Time allowed for load elimination on top of the initial packing.
+     */
+    private long improvementTimeBudgetMs = 300;
+
+    private Map<String, VehicleCapacity> vehicles = new LinkedHashMap<>();
+
+    /**
+     * Resolves the capacity of a vehicle type, ignoring case and falling back to the default type.
+     *
+     * @param vehicleType the vehicle type, may be null
+     * @return the capacity
+     * @throws IllegalStateException if neither the type nor the default type is configured
+     */
+    public VehicleCapacity forVehicleType(String vehicleType) {
+        VehicleCapacity capacity = vehicleType != null ? find(vehicleType) : null;
+        if (capacity == null) {
+            capacity = find(defaultVehicleType);
+        }
+        if (capacity == null) {
+            throw new IllegalStateException("No capacity configured for vehicle type " + vehicleType
+                    + " or default vehicle type " + defaultVehicleType);
+        }
+        return capacity;
+    }
+
+    /**
+     * Resolves the configured name of a vehicle type, falling back to the default type.
+     *
+     * @param vehicleType the vehicle type, may be null
+     * @return the vehicle type the capacity applies to
+     */
+    public String resolveVehicleType(String vehicleType) {
+        return vehicleType != null && find(vehicleType) != null
+                ? vehicleType.toUpperCase(Locale.ROOT)
+                : defaultVehicleType;
+    }
+
+    private VehicleCapacity find(String vehicleType) {
+        String key = vehicleType.toUpperCase(Locale.ROOT);
+        for (Map.Entry<String, VehicleCapacity> entry : vehicles.entrySet()) {
+            if (entry.getKey().toUpperCase(Locale.ROOT).equals(key)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class VehicleCapacity {
+
+        private double maxWeightKg;
+
+        private double maxVolumeLitres;
+    }
+}
@@ -0,0 +1,77 @@
+package com.gogidix.courier.management.assignment.clustering;
+
+/**
+ * Integer geohashes: the bit-interleaved form of the familiar base-32 geohash, kept as a long so
+ * tasks can be bucketed without string handling. Nearby points share a prefix, and sorting by
+ * hash walks the map in Z-order.
+ */
+public final class Geohash {
+
+    /**
+     * Bits per base-32 geohash character.
+     */
+    public static final int BITS_PER_CHARACTER = 5;
+
+    private static final int MAX_BITS = 60;
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private Geohash() {
+    }
+
+    /**
+     * Encodes a coordinate to the integer geohash of the given length.
+     *
+     * @param latitude the latitude
+     * @param longitude the longitude
+     * @param characters the geohash length in base-32 characters, between 1 and 12
+     * @return the hash; equal hashes share a geohash cell
+     */
+    public static long encode(double latitude, double longitude, int characters) {
+        int bits = characters * BITS_PER_CHARACTER;
+        if (bits <= 0 || bits > MAX_BITS) {
+            throw new IllegalArgumentException("Geohash length must be between 1 and 12 characters");
+        }
+        double minLatitude = -90;
+        double maxLatitude = 90;
+        double minLongitude = -180;
+        double maxLongitude = 180;
+        long hash = 0;
+        for (int bit = 0; bit < bits; bit++) {
+            hash <<= 1;
+            if (bit % 2 == 0) {
+                double mid = (minLongitude + maxLongitude) / 2;
+                if (longitude >= mid) {
+                    hash |= 1;
+                    minLongitude = mid;
+                } else {
+                    maxLongitude = mid;
+                }
+            } else {
+                double mid = (minLatitude + maxLatitude) / 2;
+                if (latitude >= mid) {
+                    hash |= 1;
+                    minLatitude = mid;
+                } else {
+                    maxLatitude = mid;
+                }
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Formats an integer geohash as the familiar base-32 string.
+     *
+     * @param hash the hash returned by {@link #encode(double, double, int)}
+     * @param characters the geohash length the hash was encoded with
+     * @return the base-32 geohash
+     */
+    public static String toBase32(long hash, int characters) {
+        char[] chars = new char[characters];
+        for (int i = characters - 1; i >= 0; i--) {
+            chars[i] = BASE32[(int) (hash & 31)];
+            hash >>>= BITS_PER_CHARACTER;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,480 @@
+package com.gogidix.courier.management.assignment.clustering;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Capacity-constrained k-means over task locations. Tasks are first bucketed by geohash so the
+ * expensive centroid scans run per bucket rather than per task; each iteration then hands tasks
+ * out bucket by bucket, most constrained bucket first, to the nearest cluster that still has
+ * room for their weight, volume and working minutes, and moves every centroid to the mean of
+ * its tasks. The number of clusters starts from the total load so clusters come out balanced
+ * near capacity, and grows only when a task fits nowhere.
+ */
+public final class TaskClusterer {
+
+    /**
+     * Cluster index given to tasks that exceed a limit on their own.
+     */
+    public static final int OVERSIZED = -1;
+
+    // Clusters are sized for this fraction of capacity to leave room for balancing
+    private static final double TARGET_FILL = 0.9;
+
+    private static final long SEED = 42L;
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double[] weights;
+    private final double[] volumes;
+    private final double[] minutes;
+    private final Limits limits;
+    private final double longitudeScale;
+
+    private int[] bucketStart;
+    private int[] bucketMembers;
+    private double[] bucketX;
+    private double[] bucketY;
+
+    private int clusterCount;
+    private double[] centroidX;
+    private double[] centroidY;
+    private double[] clusterWeights;
+    private double[] clusterVolumes;
+    private double[] clusterMinutes;
+
+    private TaskClusterer(double[] latitudes, double[] longitudes, double[] weights, double[] volumes,
+                          double[] minutes, Limits limits) {
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.weights = weights;
+        this.volumes = volumes;
+        this.minutes = minutes;
+        this.limits = limits;
+        double meanLatitude = Arrays.stream(latitudes).average().orElse(0.0);
+        // Equirectangular projection: good enough to compare distances within a depot's area
+        this.longitudeScale = Math.cos(Math.toRadians(meanLatitude));
+    }
+
+    /**
+     * Partitions tasks into compact clusters that each fit one courier.
+     *
+     * @param latitudes the task latitudes
+     * @param longitudes the task longitudes
+     * @param weights the task package weights
+     * @param volumes the task package volumes
+     * @param minutes the working minutes each task adds to a shift
+     * @param limits the per-cluster limits
+     * @param geohashPrecision the geohash length used to pre-bucket tasks
+     * @param maxIterations the maximum number of assignment and centroid update rounds
+     * @return the clustering
+     */
+    public static Clustering cluster(double[] latitudes, double[] longitudes, double[] weights, double[] volumes,
+                                     double[] minutes, Limits limits, int geohashPrecision, int maxIterations) {
+        int n = latitudes.length;
+        if (longitudes.length != n || weights.length != n || volumes.length != n || minutes.length != n) {
+            throw new IllegalArgumentException("Task attributes must all have the same length");
+        }
+        TaskClusterer clusterer = new TaskClusterer(latitudes, longitudes, weights, volumes, minutes, limits);
+        int[] clusterOf = new int[n];
+        Arrays.fill(clusterOf, OVERSIZED);
+        clusterer.bucket(geohashPrecision, clusterOf);
+        clusterer.seedCentroids();
+
+        int iterations = 0;
+        boolean changed = true;
+        while (changed && iterations < Math.max(1, maxIterations)) {
+            changed = clusterer.assign(clusterOf);
+            clusterer.updateCentroids(clusterOf);
+            iterations++;
+        }
+        return clusterer.toClustering(clusterOf, iterations);
+    }
+
+    private void bucket(int geohashPrecision, int[] clusterOf) {
+        int n = latitudes.length;
+        Map<Long, Integer> bucketsByHash = new HashMap<>();
+        int[] bucketOf = new int[n];
+        int[] counts = new int[Math.max(16, n)];
+        for (int task = 0; task < n; task++) {
+            if (weights[task] > limits.maxWeight || volumes[task] > limits.maxVolume
+                    || minutes[task] > limits.maxMinutes) {
+                bucketOf[task] = -1;
+                continue;
+            }
+            // Placed tasks start unassigned; only oversized ones keep OVERSIZED for good
+            clusterOf[task] = Integer.MIN_VALUE;
+            long hash = Geohash.encode(latitudes[task], longitudes[task], geohashPrecision);
+            int bucket = bucketsByHash.computeIfAbsent(hash, key -> bucketsByHash.size());
+            bucketOf[task] = bucket;
+            counts[bucket]++;
+        }
+
+        int buckets = bucketsByHash.size();
+        bucketStart = new int[buckets + 1];
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            bucketStart[bucket + 1] = bucketStart[bucket] + counts[bucket];
+        }
+        bucketMembers = new int[bucketStart[buckets]];
+        int[] next = Arrays.copyOf(bucketStart, buckets);
+        bucketX = new double[buckets];
+        bucketY = new double[buckets];
+        for (int task = 0; task < n; task++) {
+            int bucket = bucketOf[task];
+            if (bucket >= 0) {
+                bucketMembers[next[bucket]++] = task;
+                bucketX[bucket] += x(task);
+                bucketY[bucket] += y(task);
+            }
+        }
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            int size = bucketStart[bucket + 1] - bucketStart[bucket];
+            bucketX[bucket] /= size;
+            bucketY[bucket] /= size;
+        }
+    }
+
+    // k-means++ over buckets, weighting each by its share of the capacity
+    private void seedCentroids() {
+        int buckets = bucketX.length;
+        double[] bucketShare = new double[buckets];
+        double totalWeight = 0;
+        double totalVolume = 0;
+        double totalMinutes = 0;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            for (int i = bucketStart[bucket]; i < bucketStart[bucket + 1]; i++) {
+                int task = bucketMembers[i];
+                bucketShare[bucket] += share(task);
+                totalWeight += weights[task];
+                totalVolume += volumes[task];
+                totalMinutes += minutes[task];
+            }
+        }
+        double load = Math.max(totalWeight / limits.maxWeight,
+                Math.max(totalVolume / limits.maxVolume, totalMinutes / limits.maxMinutes));
+        int k = buckets == 0 ? 0 : (int) Math.min(buckets, Math.max(1, Math.ceil(load / TARGET_FILL)));
+        ensureClusterCapacity(k);
+        if (k == 0) {
+            return;
+        }
+
+        Random random = new Random(SEED);
+        double[] nearest = new double[buckets];
+        Arrays.fill(nearest, Double.MAX_VALUE);
+        int first = pick(bucketShare, null, random);
+        addCentroid(bucketX[first], bucketY[first]);
+        while (clusterCount < k) {
+            int last = clusterCount - 1;
+            for (int bucket = 0; bucket < buckets; bucket++) {
+                nearest[bucket] = Math.min(nearest[bucket],
+                        distance(bucketX[bucket], bucketY[bucket], centroidX[last], centroidY[last]));
+            }
+            int chosen = pick(bucketShare, nearest, random);
+            addCentroid(bucketX[chosen], bucketY[chosen]);
+        }
+    }
+
+    private int pick(double[] shares, double[] distances, Random random) {
+        double total = 0;
+        for (int i = 0; i < shares.length; i++) {
+            total += shares[i] * (distances != null ? distances[i] : 1.0) + 1e-12;
+        }
+        double target = random.nextDouble() * total;
+        for (int i = 0; i < shares.length; i++) {
+            target -= shares[i] * (distances != null ? distances[i] : 1.0) + 1e-12;
+            if (target <= 0) {
+                return i;
+            }
+        }
+        return shares.length - 1;
+    }
+
+    /**
+     * Hands every task to the nearest cluster with room, buckets with the largest gap between
+     * their nearest and second-nearest cluster first, since they lose most by being pushed out.
+     *
+     * @return true if any task changed cluster
+     */
+    private boolean assign(int[] clusterOf) {
+        int buckets = bucketX.length;
+        double[] regret = new double[buckets];
+        int[] nearestCluster = new int[buckets];
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            double best = Double.MAX_VALUE;
+            double second = Double.MAX_VALUE;
+            int bestCluster = 0;
+            for (int cluster = 0; cluster < clusterCount; cluster++) {
+                double d = distance(bucketX[bucket], bucketY[bucket], centroidX[cluster], centroidY[cluster]);
+                if (d < best) {
+                    second = best;
+                    best = d;
+                    bestCluster = cluster;
+                } else if (d < second) {
+                    second = d;
+                }
+            }
+            nearestCluster[bucket] = bestCluster;
+            regret[bucket] = second == Double.MAX_VALUE ? 0 : second - best;
+        }
+        Integer[] order = new Integer[buckets];
+        for (int i = 0; i < buckets; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(regret[b], regret[a]));
+
+        Arrays.fill(clusterWeights, 0, clusterCount, 0);
+        Arrays.fill(clusterVolumes, 0, clusterCount, 0);
+        Arrays.fill(clusterMinutes, 0, clusterCount, 0);
+        boolean changed = false;
+        for (int bucket : order) {
+            int[] fallback = null;
+            for (int i = bucketStart[bucket]; i < bucketStart[bucket + 1]; i++) {
+                int task = bucketMembers[i];
+                int cluster = nearestCluster[bucket];
+                if (!fits(cluster, task)) {
+                    if (fallback == null) {
+                        fallback = clustersByDistance(bucketX[bucket], bucketY[bucket]);
+                    }
+                    cluster = firstFitting(fallback, task);
+                    if (cluster < 0) {
+                        cluster = addCentroid(x(task), y(task));
+                    }
+                }
+                clusterWeights[cluster] += weights[task];
+                clusterVolumes[cluster] += volumes[task];
+                clusterMinutes[cluster] += minutes[task];
+                if (clusterOf[task] != cluster) {
+                    clusterOf[task] = cluster;
+                    changed = true;
+                }
+            }
+        }
+        return changed;
+    }
+
+    private void updateCentroids(int[] clusterOf) {
+        double[] sumX = new double[clusterCount];
+        double[] sumY = new double[clusterCount];
+        int[] counts = new int[clusterCount];
+        for (int task = 0; task < clusterOf.length; task++) {
+            int cluster = clusterOf[task];
+            if (cluster >= 0) {
+                sumX[cluster] += x(task);
+                sumY[cluster] += y(task);
+                counts[cluster]++;
+            }
+        }
+
+        // Drop clusters that ended up empty and renumber the rest
+        int[] renumbered = new int[clusterCount];
+        int kept = 0;
+        for (int cluster = 0; cluster < clusterCount; cluster++) {
+            if (counts[cluster] == 0) {
+                renumbered[cluster] = -1;
+                continue;
+            }
+            renumbered[cluster] = kept;
+            centroidX[kept] = sumX[cluster] / counts[cluster];
+            centroidY[kept] = sumY[cluster] / counts[cluster];
+            clusterWeights[kept] = clusterWeights[cluster];
+            clusterVolumes[kept] = clusterVolumes[cluster];
+            clusterMinutes[kept] = clusterMinutes[cluster];
+            kept++;
+        }
+        if (kept != clusterCount) {
+            for (int task = 0; task < clusterOf.length; task++) {
+                if (clusterOf[task] >= 0) {
+                    clusterOf[task] = renumbered[clusterOf[task]];
+                }
+            }
+            clusterCount = kept;
+        }
+    }
+
+    private int[] clustersByDistance(double x, double y) {
+        // Non-negative float bits sort like the floats, so one primitive sort orders the clusters
+        long[] keys = new long[clusterCount];
+        for (int cluster = 0; cluster < clusterCount; cluster++) {
+            float d = (float) distance(x, y, centroidX[cluster], centroidY[cluster]);
+            keys[cluster] = ((long) Float.floatToIntBits(d) << 32) | cluster;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[clusterCount];
+        for (int i = 0; i < keys.length; i++) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+    private int firstFitting(int[] clusters, int task) {
+        for (int cluster : clusters) {
+            if (cluster < clusterCount && fits(cluster, task)) {
+                return cluster;
+            }
+        }
+        // Clusters opened since the order was computed are not in it yet
+        for (int cluster = clusters.length; cluster < clusterCount; cluster++) {
+            if (fits(cluster, task)) {
+                return cluster;
+            }
+        }
+        return -1;
+    }
+
+    private boolean fits(int cluster, int task) {
+        return clusterWeights[cluster] + weights[task] <= limits.maxWeight
+                && clusterVolumes[cluster] + volumes[task] <= limits.maxVolume
+                && clusterMinutes[cluster] + minutes[task] <= limits.maxMinutes;
+    }
+
+    private int addCentroid(double x, double y) {
+        ensureClusterCapacity(clusterCount + 1);
+        int cluster = clusterCount++;
+        centroidX[cluster] = x;
+        centroidY[cluster] = y;
+        clusterWeights[cluster] = 0;
+        clusterVolumes[cluster] = 0;
+        clusterMinutes[cluster] = 0;
+        return cluster;
+    }
+
+    private void ensureClusterCapacity(int capacity) {
+        if (centroidX == null) {
+            int initial = Math.max(16, capacity);
+            centroidX = new double[initial];
+            centroidY = new double[initial];
+            clusterWeights = new double[initial];
+            clusterVolumes = new double[initial];
+            clusterMinutes = new double[initial];
+        } else if (capacity > centroidX.length) {
+            int grown = Math.max(capacity, centroidX.length * 2);
+            centroidX = Arrays.copyOf(centroidX, grown);
+            centroidY = Arrays.copyOf(centroidY, grown);
+            clusterWeights = Arrays.copyOf(clusterWeights, grown);
+            clusterVolumes = Arrays.copyOf(clusterVolumes, grown);
+            clusterMinutes = Arrays.copyOf(clusterMinutes, grown);
+        }
+    }
+
+    private double share(int task) {
+        return Math.max(weights[task] / limits.maxWeight,
+                Math.max(volumes[task] / limits.maxVolume, minutes[task] / limits.maxMinutes));
+    }
+
+    private double x(int task) {
+        return longitudes[task] * longitudeScale;
+    }
+
+    private double y(int task) {
+        return latitudes[task];
+    }
+
+    private static double distance(double x1, double y1, double x2, double y2) {
+        double dx = x1 - x2;
+        double dy = y1 - y2;
+        return dx * dx + dy * dy;
+    }
+
+    private Clustering toClustering(int[] clusterOf, int iterations) {
+        double[] latitudesOut = new double[clusterCount];
+        double[] longitudesOut = new double[clusterCount];
+        for (int cluster = 0; cluster < clusterCount; cluster++) {
+            latitudesOut[cluster] = centroidY[cluster];
+            longitudesOut[cluster] = longitudeScale > 0 ? centroidX[cluster] / longitudeScale : centroidX[cluster];
+        }
+        return new Clustering(clusterOf, clusterCount, latitudesOut, longitudesOut,
+                Arrays.copyOf(clusterWeights, clusterCount), Arrays.copyOf(clusterVolumes, clusterCount),
+                Arrays.copyOf(clusterMinutes, clusterCount), bucketX.length, iterations);
+    }
+
+    /**
+     * Per-cluster limits, typically one courier's vehicle capacity and shift length.
+     */
+    public static final class Limits {
+
+        private final double maxWeight;
+        private final double maxVolume;
+        private final double maxMinutes;
+
+        public Limits(double maxWeight, double maxVolume, double maxMinutes) {
+            if (maxWeight <= 0 || maxVolume <= 0 || maxMinutes <= 0) {
+                throw new IllegalArgumentException("Cluster limits must be positive");
+            }
+            this.maxWeight = maxWeight;
+            this.maxVolume = maxVolume;
+            this.maxMinutes = maxMinutes;
+        }
+    }
+
+    /**
+     * Result of a clustering run.
+     */
+    public static final class Clustering {
+
+        private final int[] clusterOf;
+        private final int clusterCount;
+        private final double[] centroidLatitudes;
+        private final double[] centroidLongitudes;
+        private final double[] weights;
+        private final double[] volumes;
+        private final double[] minutes;
+        private final int bucketCount;
+        private final int iterations;
+
+        private Clustering(int[] clusterOf, int clusterCount, double[] centroidLatitudes,
+                           double[] centroidLongitudes, double[] weights, double[] volumes, double[] minutes,
+                           int bucketCount, int iterations) {
+            this.clusterOf = clusterOf;
+            this.clusterCount = clusterCount;
+            this.centroidLatitudes = centroidLatitudes;
+            this.centroidLongitudes = centroidLongitudes;
+            this.weights = weights;
+            this.volumes = volumes;
+            this.minutes = minutes;
+            this.bucketCount = bucketCount;
+            this.iterations = iterations;
+        }
+
+        /**
+         * @param task the task index
+         * @return the task's cluster, or {@link #OVERSIZED}
+         */
+        public int getCluster(int task) {
+            return clusterOf[task];
+        }
+
+        public int getClusterCount() {
+            return clusterCount;
+        }
+
+        public double getCentroidLatitude(int cluster) {
+            return centroidLatitudes[cluster];
+        }
+
+        public double getCentroidLongitude(int cluster) {
+            return centroidLongitudes[cluster];
+        }
+
+        public double getWeight(int cluster) {
+            return weights[cluster];
+        }
+
+        public double getVolume(int cluster) {
+            return volumes[cluster];
+        }
+
+        public double getMinutes(int cluster) {
+            return minutes[cluster];
+        }
+
+        public int getBucketCount() {
+            return bucketCount;
+        }
+
+        public int getIterations() {
+            return iterations;
+        }
+    }
+}
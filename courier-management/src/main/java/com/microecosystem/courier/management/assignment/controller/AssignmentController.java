@@ -1,5 +1,7 @@
 package com.gogidix.courier.management.assignment.controller;
 
+import com.gogidix.courier.management.assignment.dto.BulkStatusTransitionRequest;
+import com.gogidix.courier.management.assignment.dto.BulkStatusTransitionResult;
 import com.gogidix.courier.management.assignment.model.Assignment;
 import com.gogidix.courier.management.assignment.model.AssignmentStatus;
 import com.gogidix.courier.management.assignment.service.AssignmentService;
@@ -94,7 +96,8 @@ public class AssignmentController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Assignment updated successfully"),
             @ApiResponse(responseCode = "400", description = "Invalid input data"),
-            @ApiResponse(responseCode = "404", description = "Assignment not found")
+            @ApiResponse(responseCode = "404", description = "Assignment not found"),
+            @ApiResponse(responseCode = "409", description = "Assignment changed since the version sent")
     })
     @PutMapping("/{id}")
     public ResponseEntity<Assignment> updateAssignment(
@@ -253,6 +256,21 @@ public class AssignmentController {
         return ResponseEntity.ok(updatedAssignment);
     }
 
+    @Operation(summary = "Update the status of many assignments at once")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Per-assignment transition results"),
+            @ApiResponse(responseCode = "400", description = "Invalid input data")
+    })
+    @PostMapping("/bulk/status")
+    public ResponseEntity<List<BulkStatusTransitionResult>> transitionAssignments(
+            @Valid @RequestBody BulkStatusTransitionRequest request) {
+        log.info("Transitioning {} assignments to {}", request.getAssignmentIds().size(), request.getTargetStatus());
+        
+        List<BulkStatusTransitionResult> results = assignmentService.transitionAssignments(
+                request.getAssignmentIds(), request.getTargetStatus(), request.getReason());
+        return ResponseEntity.ok(results);
+    }
+
     @Operation(summary = "Get assignments by courier")
     @GetMapping("/courier/{courierId}")
     public ResponseEntity<Page<Assignment>> getAssignmentsByCourier(
@@ -1,8 +1,21 @@
 package com.gogidix.courier.management.assignment.controller;
 
+import com.gogidix.courier.management.assignment.dto.CapacityPlan;
+import com.gogidix.courier.management.assignment.dto.CapacityPlanRequest;
+import com.gogidix.courier.management.assignment.dto.ReoptimisationResult;
+import com.gogidix.courier.management.assignment.dto.RoutePlanRequest;
+import com.gogidix.courier.management.assignment.dto.RoutePlanResult;
+import com.gogidix.courier.management.assignment.dto.TaskClusterPlan;
+import com.gogidix.courier.management.assignment.dto.TaskClusterRequest;
+import com.gogidix.courier.management.assignment.event.CourierRouteNotifier;
+import com.gogidix.courier.management.assignment.event.ReoptimisationTrigger;
 import com.gogidix.courier.management.assignment.model.Assignment;
 import com.gogidix.courier.management.assignment.model.AssignmentTask;
 import com.gogidix.courier.management.assignment.service.AssignmentService;
+import com.gogidix.courier.management.assignment.service.CapacityPlanningService;
+import com.gogidix.courier.management.assignment.service.RouteReoptimisationService;
+import com.gogidix.courier.management.assignment.service.RoutePlanningService;
+import com.gogidix.courier.management.assignment.service.TaskClusteringService;
 import com.gogidix.courier.management.assignment.service.TaskSequencingService;
 import com.gogidix.courier.management.exception.ResourceNotFoundException;
 import io.swagger.v3.oas.annotations.Operation;
@@ -10,12 +23,17 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
@@ -33,6 +51,11 @@ public class TaskSequencingController {
 
     private final TaskSequencingService taskSequencingService;
     private final AssignmentService assignmentService;
+    private final RoutePlanningService routePlanningService;
+    private final CapacityPlanningService capacityPlanningService;
+    private final TaskClusteringService taskClusteringService;
+    private final RouteReoptimisationService routeReoptimisationService;
+    private final CourierRouteNotifier courierRouteNotifier;
 
     @Operation(summary = "Determine optimal sequence for tasks in an assignment")
     @ApiResponses(value = {
@@ -176,4 +199,108 @@ public class TaskSequencingController {
         
         return ResponseEntity.ok(result);
     }
+
+    @Operation(summary = "Plan the routes of many assignments in parallel",
+            description = "Streams a 'route' event per assignment as soon as it is planned and a final "
+                    + "'complete' event once all new sequences have been stored")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Route plans streamed as server-sent events"),
+            @ApiResponse(responseCode = "400", description = "Invalid input data")
+    })
+    @PostMapping(value = "/assignments/plan", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter planRoutes(@Valid @RequestBody RoutePlanRequest request) {
+        log.info("Planning routes for {} assignments", request.getAssignmentIds().size());
+        
+        Duration timeBudget = request.getTimeBudgetMs() != null ? Duration.ofMillis(request.getTimeBudgetMs()) : null;
+        // Generous upper bound: every route planned one after another at a one-minute budget
+        SseEmitter emitter = new SseEmitter(request.getAssignmentIds().size() * 60_000L + 30_000L);
+        
+        routePlanningService.planRoutes(request.getAssignmentIds(), timeBudget,
+                        result -> sendEvent(emitter, "route", result))
+                .whenComplete((results, error) -> {
+                    if (error != null) {
+                        log.error("Batch route planning failed", error);
+                        emitter.completeWithError(error);
+                        return;
+                    }
+                    Map<String, Object> summary = new HashMap<>();
+                    summary.put("planned", results.stream().filter(RoutePlanResult::isSuccess).count());
+                    summary.put("failed", results.stream().filter(result -> !result.isSuccess()).count());
+                    summary.put("budgetExceeded", results.stream().filter(RoutePlanResult::isBudgetExceeded).count());
+                    sendEvent(emitter, "complete", summary);
+                    emitter.complete();
+                });
+        return emitter;
+    }
+
+    @Operation(summary = "Pack pending assignments into vehicle loads",
+            description = "Groups assignments into loads within the weight and volume capacity of the "
+                    + "courier's vehicle and returns the planned task order of each load")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Loads planned successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid input data"),
+            @ApiResponse(responseCode = "404", description = "Courier not found")
+    })
+    @PostMapping("/capacity-plan")
+    public ResponseEntity<CapacityPlan> planLoads(@Valid @RequestBody CapacityPlanRequest request) {
+        log.info("Packing {} assignments into vehicle loads", request.getAssignmentIds().size());
+        
+        CapacityPlan plan = capacityPlanningService.planLoads(request.getAssignmentIds(),
+                request.getCourierId(), request.getVehicleType());
+        return ResponseEntity.ok(plan);
+    }
+
+    @Operation(summary = "Cluster pending tasks into delivery zones",
+            description = "Partitions pending tasks into compact zones that each fit one courier's vehicle "
+                    + "and shift, and returns the planned task order of each zone")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Tasks clustered successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid input data")
+    })
+    @PostMapping("/clusters")
+    public ResponseEntity<TaskClusterPlan> clusterPendingTasks(@Valid @RequestBody TaskClusterRequest request) {
+        log.info("Clustering pending tasks for vehicle type: {}", request.getVehicleType());
+        
+        return ResponseEntity.ok(taskClusteringService.clusterPendingTasks(request));
+    }
+
+    @Operation(summary = "Re-optimise the remaining route of an in-progress assignment",
+            description = "Improves the order of the remaining stops from the courier's current position "
+                    + "and stores it only if it saves more than the configured threshold")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Route re-optimised, see 'applied' for whether it changed"),
+            @ApiResponse(responseCode = "404", description = "Assignment not found")
+    })
+    @PostMapping("/assignments/{assignmentId}/reoptimise")
+    public ResponseEntity<ReoptimisationResult> reoptimiseRoute(
+            @Parameter(description = "Assignment ID", required = true)
+            @PathVariable String assignmentId) {
+        log.info("Re-optimising route for assignment: {}", assignmentId);
+        
+        return ResponseEntity.ok(routeReoptimisationService.reoptimise(assignmentId, ReoptimisationTrigger.MANUAL));
+    }
+
+    @Operation(summary = "Stream route updates to a courier",
+            description = "Sends a 'route' event with the new stop order whenever one of the courier's "
+                    + "in-progress routes is re-optimised")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Route updates streamed as server-sent events")
+    })
+    @GetMapping(value = "/couriers/{courierId}/route-updates", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRouteUpdates(
+            @Parameter(description = "Courier ID", required = true)
+            @PathVariable String courierId) {
+        log.info("Opening route update stream for courier: {}", courierId);
+        
+        return courierRouteNotifier.subscribe(courierId);
+    }
+
+    private void sendEvent(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; planning and persistence carry on regardless
+            log.debug("Could not send {} event: {}", name, e.getMessage());
+        }
+    }
 } 
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.gogidix.courier.management.assignment.model.TaskStatus;
 import com.gogidix.courier.management.assignment.model.TaskType;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -84,6 +85,18 @@ public class AssignmentTaskDTO {
     @Size(max = 255, message = "Reference code must be less than 255 characters")
     private String referenceCode;
     
+    @PositiveOrZero(message = "Package weight cannot be negative")
+    private Double packageWeightKg;
+    
+    @PositiveOrZero(message = "Package length cannot be negative")
+    private Double packageLengthCm;
+    
+    @PositiveOrZero(message = "Package width cannot be negative")
+    private Double packageWidthCm;
+    
+    @PositiveOrZero(message = "Package height cannot be negative")
+    private Double packageHeightCm;
+    
     private LocalDateTime createdAt;
     
     private LocalDateTime updatedAt;
@@ -0,0 +1,32 @@
+package com.gogidix.courier.management.assignment.dto;
+
+import com.gogidix.courier.management.assignment.model.AssignmentStatus;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request to move many assignments to the same status at once.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusTransitionRequest {
+
+    @NotEmpty(message = "At least one assignment ID is required")
+    @Size(max = 500, message = "At most 500 assignments can be transitioned at once")
+    private List<String> assignmentIds;
+
+    @NotNull(message = "Target status is required")
+    private AssignmentStatus targetStatus;
+
+    @Size(max = 500, message = "Reason must be less than 500 characters")
+    private String reason;
+}
@@ -0,0 +1,25 @@
+package com.gogidix.courier.management.assignment.dto;
+
+import com.gogidix.courier.management.assignment.model.AssignmentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a single assignment within a bulk status transition.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStatusTransitionResult {
+
+    private String assignmentId;
+
+    private boolean success;
+
+    private AssignmentStatus status;
+
+    private String error;
+}
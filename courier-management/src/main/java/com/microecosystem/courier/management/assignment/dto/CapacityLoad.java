@@ -0,0 +1,38 @@
+package com.gogidix.courier.management.assignment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A single capacity-feasible vehicle load and the route through its tasks.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CapacityLoad {
+
+    private List<String> assignmentIds;
+
+    /**
+     * IDs of the load's tasks in their planned order.
+     */
+    private List<String> taskIds;
+
+    private double weightKg;
+
+    private double volumeLitres;
+
+    /**
+     * Fraction of the vehicle's weight or volume capacity in use, whichever is higher.
+     */
+    private double utilisation;
+
+    private double distanceKm;
+
+    private int travelTimeMinutes;
+}
@@ -0,0 +1,48 @@
+package com.gogidix.courier.management.assignment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of packing pending assignments into vehicle loads.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CapacityPlan {
+
+    private String vehicleType;
+
+    private double maxWeightKg;
+
+    private double maxVolumeLitres;
+
+    private List<CapacityLoad> loads;
+
+    /**
+     * Fewest loads any packing could use, for judging the heuristic's result.
+     */
+    private int minimumLoads;
+
+    /**
+     * Assignments whose packages exceed the vehicle capacity on their own.
+     */
+    private List<String> oversizedAssignmentIds;
+
+    /**
+     * Requested assignments that do not exist or have no remaining tasks.
+     */
+    private List<String> skippedAssignmentIds;
+
+    /**
+     * Assignments left out because their package weight or dimensions are not known.
+     */
+    private List<String> unmeasuredAssignmentIds;
+
+    private long planningTimeMs;
+}
@@ -0,0 +1,34 @@
+package com.gogidix.courier.management.assignment.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request to pack a depot's pending assignments into capacity-feasible vehicle loads.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CapacityPlanRequest {
+
+    @NotEmpty(message = "At least one assignment ID is required")
+    @Size(max = 10000, message = "At most 10000 assignments can be packed at once")
+    private List<String> assignmentIds;
+
+    /**
+     * Courier whose vehicle type determines the capacity; takes precedence over the vehicle type.
+     */
+    private String courierId;
+
+    /**
+     * Vehicle type to plan for when no courier is given; the configured default applies when absent.
+     */
+    private String vehicleType;
+}
@@ -0,0 +1,42 @@
+package com.gogidix.courier.management.assignment.dto;
+
+import com.gogidix.courier.management.assignment.event.ReoptimisationTrigger;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of re-optimising the remaining route of an in-progress assignment.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReoptimisationResult {
+
+    private String assignmentId;
+
+    private ReoptimisationTrigger trigger;
+
+    /**
+     * Whether the new order was stored; false when the improvement was below the threshold.
+     */
+    private boolean applied;
+
+    private double distanceBeforeKm;
+
+    private double distanceAfterKm;
+
+    /**
+     * IDs of the routed tasks in their resulting order.
+     */
+    private List<String> taskIds;
+
+    /**
+     * Why the new order was not applied, if it was not.
+     */
+    private String reason;
+}
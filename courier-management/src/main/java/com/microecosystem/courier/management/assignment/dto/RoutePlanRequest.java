@@ -0,0 +1,33 @@
+package com.gogidix.courier.management.assignment.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request to plan the routes of many assignments at once, e.g. at shift start.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoutePlanRequest {
+
+    @NotEmpty(message = "At least one assignment ID is required")
+    @Size(max = 1000, message = "At most 1000 assignments can be planned at once")
+    private List<String> assignmentIds;
+
+    /**
+     * Time budget per assignment in milliseconds; the configured default applies when absent.
+     */
+    @Min(value = 1, message = "Time budget must be at least 1 ms")
+    @Max(value = 60000, message = "Time budget must be at most 60000 ms")
+    private Long timeBudgetMs;
+}
@@ -0,0 +1,40 @@
+package com.gogidix.courier.management.assignment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of planning a single assignment's route within a batch.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoutePlanResult {
+
+    private String assignmentId;
+
+    private boolean success;
+
+    /**
+     * IDs of the routed tasks in their planned order.
+     */
+    private List<String> taskIds;
+
+    private double distanceKm;
+
+    private int travelTimeMinutes;
+
+    /**
+     * Whether the time budget ran out and part of the route kept its previous order.
+     */
+    private boolean budgetExceeded;
+
+    private long planningTimeMs;
+
+    private String error;
+}
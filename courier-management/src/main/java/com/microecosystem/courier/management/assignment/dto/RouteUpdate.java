@@ -0,0 +1,39 @@
+package com.gogidix.courier.management.assignment.dto;
+
+import com.gogidix.courier.management.assignment.model.AssignmentTask;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of adding a task to, or removing a task from, an assignment's active route.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteUpdate {
+
+    /**
+     * The active tasks in their new visiting order.
+     */
+    private List<AssignmentTask> sequence;
+
+    /**
+     * Index of the inserted task within the sequence, or -1 for removals and full re-optimisations.
+     */
+    private int position;
+
+    /**
+     * Change in route distance caused by the incremental edit, in kilometers.
+     */
+    private double distanceDeltaKm;
+
+    /**
+     * Whether accumulated drift triggered a full re-optimisation of the route.
+     */
+    private boolean reoptimised;
+}
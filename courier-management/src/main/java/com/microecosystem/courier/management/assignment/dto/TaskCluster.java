@@ -0,0 +1,45 @@
+package com.gogidix.courier.management.assignment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A compact group of pending tasks sized for one courier's vehicle and shift.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskCluster {
+
+    private double centroidLatitude;
+
+    private double centroidLongitude;
+
+    private List<String> assignmentIds;
+
+    /**
+     * IDs of the cluster's tasks in their planned order.
+     */
+    private List<String> taskIds;
+
+    private double weightKg;
+
+    private double volumeLitres;
+
+    private double distanceKm;
+
+    /**
+     * Planned travel plus on-site minutes for the whole route.
+     */
+    private int workMinutes;
+
+    /**
+     * Whether the sequenced route turned out longer than the shift.
+     */
+    private boolean exceedsShift;
+}
@@ -0,0 +1,40 @@
+package com.gogidix.courier.management.assignment.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of clustering pending tasks into delivery zones.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskClusterPlan {
+
+    private String vehicleType;
+
+    private int shiftMinutes;
+
+    private int taskCount;
+
+    private int assignmentCount;
+
+    private List<TaskCluster> clusters;
+
+    /**
+     * Assignments too heavy, bulky or long for a single courier.
+     */
+    private List<String> oversizedAssignmentIds;
+
+    /**
+     * Assignments left out because their package weight or dimensions are not known.
+     */
+    private List<String> unmeasuredAssignmentIds;
+
+    private long planningTimeMs;
+}
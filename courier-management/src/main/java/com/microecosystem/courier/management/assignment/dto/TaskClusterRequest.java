@@ -0,0 +1,46 @@
+package com.gogidix.courier.management.assignment.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Request to partition the pending tasks of a depot's area into delivery zones.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TaskClusterRequest {
+
+    /**
+     * Vehicle type whose capacity bounds each cluster; the configured default applies when absent.
+     */
+    private String vehicleType;
+
+    /**
+     * Shift length in minutes; the configured default applies when absent.
+     */
+    @Min(value = 30, message = "Shift must be at least 30 minutes")
+    @Max(value = 1440, message = "Shift must be at most 1440 minutes")
+    private Integer shiftMinutes;
+
+    /**
+     * Bounding box of the area to cluster.
+     */
+    @NotNull(message = "Minimum latitude is required")
+    private Double minLatitude;
+
+    @NotNull(message = "Maximum latitude is required")
+    private Double maxLatitude;
+
+    @NotNull(message = "Minimum longitude is required")
+    private Double minLongitude;
+
+    @NotNull(message = "Maximum longitude is required")
+    private Double maxLongitude;
+}
@@ -0,0 +1,78 @@
+package com.gogidix.courier.management.assignment.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes re-optimised routes to couriers over server-sent event streams. A courier's app keeps
+ * a stream open and receives a 'route' event with the new stop order whenever one of its
+ * in-progress routes is resequenced; reconnecting after a timeout is up to the client.
+ */
+@Component
+@Slf4j
+public class CourierRouteNotifier {
+
+    private final Map<String, Set<SseEmitter>> streams = new ConcurrentHashMap<>();
+
+    @Value("${assignment.reoptimisation.route-stream-timeout-ms:1800000}")
+    private long streamTimeoutMs = 1800000;
+
+    /**
+     * Opens a route update stream for a courier.
+     *
+     * @param courierId the courier ID
+     * @return the stream
+     */
+    public SseEmitter subscribe(String courierId) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        streams.computeIfAbsent(courierId, id -> ConcurrentHashMap.newKeySet()).add(emitter);
+        emitter.onCompletion(() -> unsubscribe(courierId, emitter));
+        emitter.onTimeout(() -> unsubscribe(courierId, emitter));
+        emitter.onError(error -> unsubscribe(courierId, emitter));
+        return emitter;
+    }
+
+    @EventListener
+    public void onRouteResequenced(RouteResequencedEvent event) {
+        Set<SseEmitter> emitters = event.getCourierId() != null ? streams.get(event.getCourierId()) : null;
+        if (emitters == null) {
+            log.debug("No open route stream for courier {} of assignment {}", event.getCourierId(),
+                    event.getAssignmentId());
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            try {
+                emitter.send(SseEmitter.event().name("route").data(event, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                // The app went away; it reads the stored order when it reconnects
+                log.debug("Could not push route of assignment {}: {}", event.getAssignmentId(), e.getMessage());
+                unsubscribe(event.getCourierId(), emitter);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of couriers with an open stream.
+     *
+     * @return the courier count
+     */
+    public int subscriberCount() {
+        return streams.size();
+    }
+
+    private void unsubscribe(String courierId, SseEmitter emitter) {
+        streams.computeIfPresent(courierId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
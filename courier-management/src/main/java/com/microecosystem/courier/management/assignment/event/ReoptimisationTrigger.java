@@ -0,0 +1,18 @@
+package com.gogidix.courier.management.assignment.event;
+
+/**
+ * Reasons an in-progress route is re-optimised.
+ */
+public enum ReoptimisationTrigger {
+    TASK_CANCELLED,
+    
+    TASK_COMPLETED,
+    
+    URGENT_PICKUP,
+    
+    POSITION_DRIFT,
+    
+    TRAFFIC_UPDATE,
+    
+    MANUAL
+}
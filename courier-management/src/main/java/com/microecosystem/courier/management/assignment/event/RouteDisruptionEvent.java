@@ -0,0 +1,26 @@
+package com.gogidix.courier.management.assignment.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published when something happens to an assignment that may make its remaining route stale.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class RouteDisruptionEvent {
+
+    /**
+     * ID of the affected assignment.
+     */
+    private final String assignmentId;
+
+    /**
+     * ID of the courier working on the assignment, or null if none is assigned.
+     */
+    private final String courierId;
+
+    private final ReoptimisationTrigger trigger;
+}
@@ -0,0 +1,36 @@
+package com.gogidix.courier.management.assignment.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Published after an in-progress route has been re-optimised and its new order stored.
+ * {@link CourierRouteNotifier} pushes it to the courier's open route stream.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class RouteResequencedEvent {
+
+    /**
+     * ID of the assignment.
+     */
+    private final String assignmentId;
+
+    /**
+     * ID of the courier driving the route.
+     */
+    private final String courierId;
+
+    /**
+     * IDs of the remaining tasks in their new order.
+     */
+    private final List<String> taskIds;
+
+    private final ReoptimisationTrigger trigger;
+
+    private final double distanceSavedKm;
+}
@@ -58,6 +58,10 @@ public class AssignmentTaskMapper {
                 .timeWindowStart(task.getTimeWindowStart())
                 .timeWindowEnd(task.getTimeWindowEnd())
                 .referenceCode(task.getReferenceCode())
+                .packageWeightKg(task.getPackageWeightKg())
+                .packageLengthCm(task.getPackageLengthCm())
+                .packageWidthCm(task.getPackageWidthCm())
+                .packageHeightCm(task.getPackageHeightCm())
                 .createdAt(task.getCreatedAt())
                 .updatedAt(task.getUpdatedAt())
                 .build();
@@ -110,6 +114,10 @@ public class AssignmentTaskMapper {
         task.setTimeWindowStart(dto.getTimeWindowStart());
         task.setTimeWindowEnd(dto.getTimeWindowEnd());
         task.setReferenceCode(dto.getReferenceCode());
+        task.setPackageWeightKg(dto.getPackageWeightKg());
+        task.setPackageLengthCm(dto.getPackageLengthCm());
+        task.setPackageWidthCm(dto.getPackageWidthCm());
+        task.setPackageHeightCm(dto.getPackageHeightCm());
         
         return task;
     }
@@ -80,6 +80,9 @@ public class AssignmentTask extends BaseEntity {
     @Column(name = "scheduled_time")
     private LocalDateTime scheduledTime;
 
+    @Column(name = "started_time")
+    private LocalDateTime startedTime;
+
     @Column(name = "completed_time")
     private LocalDateTime completedTime;
 
@@ -115,6 +118,18 @@ public class AssignmentTask extends BaseEntity {
     @Column(name = "reference_code")
     private String referenceCode;
 
+    @Column(name = "package_weight_kg")
+    private Double packageWeightKg;
+
+    @Column(name = "package_length_cm")
+    private Double packageLengthCm;
+
+    @Column(name = "package_width_cm")
+    private Double packageWidthCm;
+
+    @Column(name = "package_height_cm")
+    private Double packageHeightCm;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -123,6 +138,10 @@ public class AssignmentTask extends BaseEntity {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     /**
      * Update the status of the task
      * 
@@ -134,8 +153,9 @@ public class AssignmentTask extends BaseEntity {
         
         if (newStatus == TaskStatus.COMPLETED) {
             this.completedTime = LocalDateTime.now();
-            if (this.scheduledTime != null) {
-                this.actualDurationMinutes = calculateDurationInMinutes(this.scheduledTime, this.completedTime);
+            LocalDateTime startedAt = this.startedTime != null ? this.startedTime : this.scheduledTime;
+            if (startedAt != null) {
+                this.actualDurationMinutes = calculateDurationInMinutes(startedAt, this.completedTime);
             }
         }
         
@@ -308,7 +328,7 @@ public class AssignmentTask extends BaseEntity {
      * @param startedAt the timestamp when task was started
      */
     public void setStartedAt(LocalDateTime startedAt) {
-        this.scheduledTime = startedAt;
+        this.startedTime = startedAt;
     }
     
     /**
@@ -330,12 +350,12 @@ public class AssignmentTask extends BaseEntity {
     }
     
     /**
-     * Gets the scheduled time for backward compatibility
+     * Gets the started timestamp for backward compatibility
      * 
-     * @return the scheduled time
+     * @return the time work on the task actually started, or null if it never started
      */
     public LocalDateTime getStartedAt() {
-        return scheduledTime;
+        return startedTime;
     }
     
     /**
@@ -11,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,6 +29,14 @@ public interface AssignmentRepository extends JpaRepository<Assignment, String>
      */
     Optional<Assignment> findByAssignmentId(String assignmentId);
 
+    /**
+     * Find assignments by their assignment IDs.
+     * 
+     * @param assignmentIds the assignment IDs
+     * @return the assignments found
+     */
+    List<Assignment> findByAssignmentIdIn(Collection<String> assignmentIds);
+
     /**
      * Find all assignments for a specific courier.
      * 
@@ -81,6 +90,15 @@ public interface AssignmentRepository extends JpaRepository<Assignment, String>
      */
     Page<Assignment> findByCourierAndStatus(Courier courier, AssignmentStatus status, Pageable pageable);
 
+    /**
+     * Find all assignments for a courier, by the courier's entity ID, with a specific status.
+     * 
+     * @param courierId the courier entity ID
+     * @param status the status
+     * @return a list of assignments
+     */
+    List<Assignment> findByCourier_IdAndStatus(String courierId, AssignmentStatus status);
+
     /**
      * Find all assignments that are scheduled to start within a specific time range.
      * 
@@ -12,6 +12,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -46,6 +47,14 @@ public interface AssignmentTaskRepository extends JpaRepository<AssignmentTask,
         return findByAssignmentOrderBySequenceAsc(assignment);
     }
 
+    /**
+     * Find all tasks for several assignments in one query, ordered by sequence.
+     * 
+     * @param assignments the assignments
+     * @return a list of tasks ordered by sequence
+     */
+    List<AssignmentTask> findByAssignmentInOrderBySequenceAsc(Collection<Assignment> assignments);
+
     /**
      * Find all tasks for a specific assignment with pagination.
      * 
@@ -185,6 +194,30 @@ public interface AssignmentTaskRepository extends JpaRepository<AssignmentTask,
      */
     long deleteByStatus(TaskStatus status);
     
+    /**
+     * Find tasks completed within a time range, grouped by assignment in completion order.
+     * 
+     * @param from the exclusive start of the range
+     * @param to the inclusive end of the range
+     * @return a list of completed tasks
+     */
+    @Query("SELECT t FROM AssignmentTask t WHERE t.status = 'COMPLETED' AND t.completedTime > :from AND t.completedTime <= :to ORDER BY t.assignment.id ASC, t.completedTime ASC")
+    List<AssignmentTask> findCompletedBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Find tasks with a status inside a bounding box, a page at a time.
+     * 
+     * @param status the status
+     * @param minLatitude the southern edge
+     * @param maxLatitude the northern edge
+     * @param minLongitude the western edge
+     * @param maxLongitude the eastern edge
+     * @param pageable the page to read
+     * @return the matching tasks
+     */
+    List<AssignmentTask> findByStatusAndLatitudeBetweenAndLongitudeBetween(TaskStatus status,
+            Double minLatitude, Double maxLatitude, Double minLongitude, Double maxLongitude, Pageable pageable);
+
     /**
      * Find the maximum sequence number for a specific assignment.
      * 
@@ -0,0 +1,62 @@
+package com.gogidix.courier.management.assignment.sequencing;
+
+import com.gogidix.courier.management.assignment.model.AssignmentTask;
+import com.gogidix.courier.management.assignment.model.TaskType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the deliveries of an assignment behind its pickups when tasks of several assignments
+ * share a route. The sequencer orders stops by distance alone, so routes mixing orders need this
+ * applied before they are handed out.
+ */
+public final class PickupPrecedence {
+
+    private PickupPrecedence() {
+    }
+
+    /**
+     * Moves each delivery that comes before one of its assignment's pickups to directly after
+     * the last of them. All other tasks keep their relative order.
+     *
+     * @param route the tasks in their planned order
+     * @return the tasks in an order where no delivery precedes a pickup of its assignment
+     */
+    public static List<AssignmentTask> enforce(List<AssignmentTask> route) {
+        Map<String, Integer> pickupsLeft = new HashMap<>();
+        for (AssignmentTask task : route) {
+            if (task.getTaskType() == TaskType.PICKUP && assignmentKey(task) != null) {
+                pickupsLeft.merge(assignmentKey(task), 1, Integer::sum);
+            }
+        }
+
+        List<AssignmentTask> ordered = new ArrayList<>(route.size());
+        Map<String, List<AssignmentTask>> held = new HashMap<>();
+        for (AssignmentTask task : route) {
+            String key = assignmentKey(task);
+            if (task.getTaskType() == TaskType.DELIVERY && pickupsLeft.getOrDefault(key, 0) > 0) {
+                held.computeIfAbsent(key, k -> new ArrayList<>()).add(task);
+                continue;
+            }
+            ordered.add(task);
+            if (task.getTaskType() == TaskType.PICKUP && key != null
+                    && pickupsLeft.merge(key, -1, Integer::sum) == 0 && held.containsKey(key)) {
+                ordered.addAll(held.remove(key));
+            }
+        }
+        return ordered;
+    }
+
+    /**
+     * Gets the key tasks of the same assignment share.
+     *
+     * @param task the task
+     * @return the assignment's entity ID, or null if the task has none
+     */
+    static String assignmentKey(AssignmentTask task) {
+        return task.getAssignment() != null ? task.getAssignment().getId() : null;
+    }
+}
@@ -0,0 +1,316 @@
+package com.gogidix.courier.management.assignment.sequencing;
+
+import com.gogidix.courier.management.assignment.model.AssignmentTask;
+import com.gogidix.courier.management.assignment.model.TaskType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Time-bounded local search over the remaining stops of a route, starting from the courier's
+ * current position. Applies first-improvement 2-opt (segment reversal) and or-opt (moving a run
+ * of up to three stops) moves to the open path, and only accepts a shorter order when it does
+ * not make more stops miss their time windows and does not route a delivery before a pickup of
+ * the same assignment. Leading stops can be pinned, e.g. the ones the courier is already
+ * working on.
+ */
+public final class RouteImprover {
+
+    private static final int MAX_SEGMENT = 3;
+    private static final double EPSILON = 1e-9;
+
+    private final int size;
+    private final double[][] distances;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double[] windowOpen;
+    private final double[] windowClose;
+    private final double[] serviceSeconds;
+    // Per node, the assignment group of a pickup or delivery, or -1
+    private final int[] pickupGroup;
+    private final int[] deliveryGroup;
+    private final int[] pickupsPerGroup;
+    private final int pinned;
+    private final LocalDateTime startTime;
+    private final TravelSpeeds speeds;
+    private final long deadline;
+
+    private RouteImprover(double originLatitude, double originLongitude, List<AssignmentTask> route, int pinned,
+                          LocalDateTime startTime, TravelSpeeds speeds, Duration timeBudget) {
+        this.size = route.size();
+        this.pinned = Math.min(pinned, size);
+        this.startTime = startTime;
+        this.speeds = speeds;
+        this.deadline = System.nanoTime() + timeBudget.toNanos();
+        // Node 0 is the courier's position, node i + 1 is route stop i
+        this.latitudes = new double[size + 1];
+        this.longitudes = new double[size + 1];
+        this.windowOpen = new double[size + 1];
+        this.windowClose = new double[size + 1];
+        this.serviceSeconds = new double[size + 1];
+        this.pickupGroup = new int[size + 1];
+        this.deliveryGroup = new int[size + 1];
+        pickupGroup[0] = -1;
+        deliveryGroup[0] = -1;
+        Map<String, Integer> groups = new HashMap<>();
+        latitudes[0] = originLatitude;
+        longitudes[0] = originLongitude;
+        for (int i = 0; i < size; i++) {
+            AssignmentTask task = route.get(i);
+            latitudes[i + 1] = task.getLatitude() != null ? task.getLatitude() : Double.NaN;
+            longitudes[i + 1] = task.getLongitude() != null ? task.getLongitude() : Double.NaN;
+            windowOpen[i + 1] = toSeconds(task.getStartTimeWindow(), Double.NEGATIVE_INFINITY);
+            windowClose[i + 1] = toSeconds(task.getEndTimeWindow(), Double.POSITIVE_INFINITY);
+            Integer minutes = task.getEstimatedDuration();
+            serviceSeconds[i + 1] = minutes != null ? minutes * 60.0 : 0.0;
+            String key = PickupPrecedence.assignmentKey(task);
+            int group = key != null ? groups.computeIfAbsent(key, k -> groups.size()) : -1;
+            pickupGroup[i + 1] = task.getTaskType() == TaskType.PICKUP ? group : -1;
+            deliveryGroup[i + 1] = task.getTaskType() == TaskType.DELIVERY ? group : -1;
+        }
+        this.pickupsPerGroup = new int[groups.size()];
+        for (int node = 1; node <= size; node++) {
+            if (pickupGroup[node] >= 0) {
+                pickupsPerGroup[pickupGroup[node]]++;
+            }
+        }
+        this.distances = new double[size + 1][size + 1];
+        for (int a = 0; a <= size; a++) {
+            for (int b = a + 1; b <= size; b++) {
+                double km = RouteSchedule.distanceKm(latitudes[a], longitudes[a], latitudes[b], longitudes[b]);
+                distances[a][b] = km;
+                distances[b][a] = km;
+            }
+        }
+    }
+
+    /**
+     * Improves the order of a route's remaining stops.
+     *
+     * @param originLatitude the courier's latitude
+     * @param originLongitude the courier's longitude
+     * @param route the remaining stops in their planned order
+     * @param pinned the number of leading stops that must keep their place
+     * @param startTime the time the courier leaves the current position
+     * @param speeds the travel speeds to assume
+     * @param timeBudget the time allowed for the search
+     * @return the best order found, never worse than the planned one
+     */
+    public static Result improve(double originLatitude, double originLongitude, List<AssignmentTask> route,
+                                 int pinned, LocalDateTime startTime, TravelSpeeds speeds, Duration timeBudget) {
+        RouteImprover improver = new RouteImprover(originLatitude, originLongitude, route, pinned,
+                startTime, speeds, timeBudget);
+        int[] order = new int[route.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i + 1;
+        }
+        double before = improver.length(order);
+        int lateBefore = improver.lateStops(order);
+        boolean budgetExceeded = improver.search(order, lateBefore, improver.precedenceViolations(order));
+
+        List<AssignmentTask> improved = new ArrayList<>(order.length);
+        for (int node : order) {
+            improved.add(route.get(node - 1));
+        }
+        return new Result(improved, before, improver.length(order), lateBefore, improver.lateStops(order),
+                budgetExceeded);
+    }
+
+    /**
+     * Runs improving moves until none is left or the budget runs out.
+     *
+     * @return true if the search stopped because of the time budget
+     */
+    private boolean search(int[] order, int late, int violations) {
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int i = pinned; i < size && !improved; i++) {
+                if (System.nanoTime() - deadline > 0) {
+                    return true;
+                }
+                improved = twoOpt(order, i, late, violations) || orOpt(order, i, late, violations);
+            }
+        }
+        return false;
+    }
+
+    private boolean acceptable(int[] order, int late, int violations) {
+        return precedenceViolations(order) <= violations && lateStops(order) <= late;
+    }
+
+    // Reverses order[i..j] when that shortens the path
+    private boolean twoOpt(int[] order, int i, int late, int violations) {
+        int before = i == 0 ? 0 : order[i - 1];
+        for (int j = i + 1; j < size; j++) {
+            double removed = distances[before][order[i]] + (j + 1 < size ? distances[order[j]][order[j + 1]] : 0.0);
+            double added = distances[before][order[j]] + (j + 1 < size ? distances[order[i]][order[j + 1]] : 0.0);
+            if (added < removed - EPSILON) {
+                reverse(order, i, j);
+                if (acceptable(order, late, violations)) {
+                    return true;
+                }
+                reverse(order, i, j);
+            }
+        }
+        return false;
+    }
+
+    // Moves the run order[i..i+length-1] to a later or earlier gap when that shortens the path
+    private boolean orOpt(int[] order, int i, int late, int violations) {
+        for (int length = 1; length <= MAX_SEGMENT && i + length <= size; length++) {
+            int last = i + length - 1;
+            int before = i == 0 ? 0 : order[i - 1];
+            int after = last + 1 < size ? order[last + 1] : -1;
+            double removal = distances[before][order[i]] + (after >= 0 ? distances[order[last]][after] : 0.0)
+                    - (after >= 0 ? distances[before][after] : 0.0);
+            for (int gap = pinned; gap <= size; gap++) {
+                // The gap sits in front of order[gap]; gaps touching the run leave it in place
+                if (gap >= i && gap <= last + 1) {
+                    continue;
+                }
+                int left = gap == 0 ? 0 : order[gap - 1];
+                int right = gap < size ? order[gap] : -1;
+                for (boolean reversed : new boolean[]{false, true}) {
+                    int first = reversed ? order[last] : order[i];
+                    int end = reversed ? order[i] : order[last];
+                    double insertion = distances[left][first] + (right >= 0 ? distances[end][right] : 0.0)
+                            - (right >= 0 ? distances[left][right] : 0.0);
+                    if (insertion < removal - EPSILON) {
+                        int[] candidate = move(order, i, length, gap, reversed);
+                        if (acceptable(candidate, late, violations)) {
+                            System.arraycopy(candidate, 0, order, 0, size);
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private int[] move(int[] order, int start, int length, int gap, boolean reversed) {
+        int[] result = new int[size];
+        int out = 0;
+        for (int position = 0; position <= size; position++) {
+            if (position == gap) {
+                for (int k = 0; k < length; k++) {
+                    result[out++] = order[reversed ? start + length - 1 - k : start + k];
+                }
+            }
+            if (position < size && (position < start || position >= start + length)) {
+                result[out++] = order[position];
+            }
+        }
+        return result;
+    }
+
+    private static void reverse(int[] order, int from, int to) {
+        while (from < to) {
+            int swap = order[from];
+            order[from++] = order[to];
+            order[to--] = swap;
+        }
+    }
+
+    private double length(int[] order) {
+        double total = 0.0;
+        int previous = 0;
+        for (int node : order) {
+            total += distances[previous][node];
+            previous = node;
+        }
+        return total;
+    }
+
+    // Counts deliveries visited while a pickup of the same assignment is still ahead
+    private int precedenceViolations(int[] order) {
+        if (pickupsPerGroup.length == 0) {
+            return 0;
+        }
+        int[] pickupsLeft = pickupsPerGroup.clone();
+        int violations = 0;
+        for (int node : order) {
+            if (deliveryGroup[node] >= 0 && pickupsLeft[deliveryGroup[node]] > 0) {
+                violations++;
+            }
+            if (pickupGroup[node] >= 0) {
+                pickupsLeft[pickupGroup[node]]--;
+            }
+        }
+        return violations;
+    }
+
+    // Counts stops reached after their window closes, travelling from the courier's position
+    private int lateStops(int[] order) {
+        int late = 0;
+        double time = 0.0;
+        int previous = 0;
+        for (int node : order) {
+            double km = distances[previous][node];
+            time += speeds.travelMinutes(latitudes[previous], longitudes[previous],
+                    startTime.plusSeconds((long) time), km) * 60.0;
+            if (time > windowClose[node]) {
+                late++;
+            }
+            time = Math.max(time, windowOpen[node]) + serviceSeconds[node];
+            previous = node;
+        }
+        return late;
+    }
+
+    private double toSeconds(LocalDateTime time, double fallback) {
+        return time != null ? Duration.between(startTime, time).getSeconds() : fallback;
+    }
+
+    /**
+     * Outcome of a local search run.
+     */
+    public static final class Result {
+
+        private final List<AssignmentTask> sequence;
+        private final double distanceBeforeKm;
+        private final double distanceAfterKm;
+        private final int lateStopsBefore;
+        private final int lateStopsAfter;
+        private final boolean budgetExceeded;
+
+        private Result(List<AssignmentTask> sequence, double distanceBeforeKm, double distanceAfterKm,
+                       int lateStopsBefore, int lateStopsAfter, boolean budgetExceeded) {
+            this.sequence = sequence;
+            this.distanceBeforeKm = distanceBeforeKm;
+            this.distanceAfterKm = distanceAfterKm;
+            this.lateStopsBefore = lateStopsBefore;
+            this.lateStopsAfter = lateStopsAfter;
+            this.budgetExceeded = budgetExceeded;
+        }
+
+        public List<AssignmentTask> getSequence() {
+            return sequence;
+        }
+
+        public double getDistanceBeforeKm() {
+            return distanceBeforeKm;
+        }
+
+        public double getDistanceAfterKm() {
+            return distanceAfterKm;
+        }
+
+        public int getLateStopsBefore() {
+            return lateStopsBefore;
+        }
+
+        public int getLateStopsAfter() {
+            return lateStopsAfter;
+        }
+
+        public boolean isBudgetExceeded() {
+            return budgetExceeded;
+        }
+    }
+}
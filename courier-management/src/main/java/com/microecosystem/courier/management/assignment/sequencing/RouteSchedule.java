@@ -0,0 +1,297 @@
+package com.gogidix.courier.management.assignment.sequencing;
+
+import com.gogidix.courier.management.assignment.model.AssignmentTask;
+import com.gogidix.courier.management.util.Location;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Timing snapshot of an ordered route used for incremental resequencing.
+ *
+ * <p>Arrival times are computed forwards (prefix) and the latest arrival that keeps the rest of
+ * the route within its time windows is computed backwards (suffix). With both cached, checking
+ * whether a task can be inserted between two stops is constant time, so finding the cheapest
+ * feasible insertion point is a single O(n) pass. Times are seconds relative to the route start
+ * and travel legs are rounded up to whole minutes, matching
+ * {@code TaskSequencingService#canCompleteWithinTimeWindows}. Each leg's speed is looked up for
+ * its origin and departure time.</p>
+ */
+public final class RouteSchedule {
+
+    private final int size;
+    private final LocalDateTime startTime;
+    private final TravelSpeeds speeds;
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double[] windowOpen;
+    private final double[] windowClose;
+    private final double[] serviceSeconds;
+
+    // legKm[i] is the distance from stop i to stop i + 1
+    private final double[] legKm;
+    private final double[] arrival;
+    private final double[] departure;
+    // latestArrival[i] is the latest arrival at stop i that keeps stops i..n-1 within their windows
+    private final double[] latestArrival;
+    private final boolean feasible;
+    private final double totalDistanceKm;
+
+    private RouteSchedule(List<AssignmentTask> tasks, LocalDateTime startTime, TravelSpeeds speeds) {
+        this.size = tasks.size();
+        this.startTime = startTime;
+        this.speeds = speeds;
+        this.latitudes = new double[size];
+        this.longitudes = new double[size];
+        this.windowOpen = new double[size];
+        this.windowClose = new double[size];
+        this.serviceSeconds = new double[size];
+        this.legKm = new double[Math.max(size - 1, 0)];
+        this.arrival = new double[size];
+        this.departure = new double[size];
+        this.latestArrival = new double[size];
+
+        for (int i = 0; i < size; i++) {
+            AssignmentTask task = tasks.get(i);
+            latitudes[i] = task.getLatitude() != null ? task.getLatitude() : Double.NaN;
+            longitudes[i] = task.getLongitude() != null ? task.getLongitude() : Double.NaN;
+            windowOpen[i] = toSeconds(task.getStartTimeWindow(), Double.NEGATIVE_INFINITY);
+            windowClose[i] = toSeconds(task.getEndTimeWindow(), Double.POSITIVE_INFINITY);
+            serviceSeconds[i] = serviceSeconds(task);
+        }
+
+        double distance = 0.0;
+        boolean withinWindows = true;
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                legKm[i - 1] = distanceKm(latitudes[i - 1], longitudes[i - 1], latitudes[i], longitudes[i]);
+                distance += legKm[i - 1];
+                arrival[i] = departure[i - 1] + travelSeconds(i - 1, departure[i - 1], legKm[i - 1]);
+            }
+            withinWindows &= arrival[i] <= windowClose[i];
+            departure[i] = Math.max(arrival[i], windowOpen[i]) + serviceSeconds[i];
+        }
+        for (int i = size - 1; i >= 0; i--) {
+            if (i == size - 1) {
+                latestArrival[i] = windowClose[i];
+                continue;
+            }
+            double latestStart = latestArrival[i + 1] - travelSeconds(i, departure[i], legKm[i]) - serviceSeconds[i];
+            latestArrival[i] = windowOpen[i] > latestStart
+                    ? Double.NEGATIVE_INFINITY
+                    : Math.min(windowClose[i], latestStart);
+        }
+        this.feasible = withinWindows;
+        this.totalDistanceKm = distance;
+    }
+
+    /**
+     * Builds the schedule for a route.
+     *
+     * @param tasks the tasks in visiting order
+     * @param startTime the time the first task is reached
+     * @param speeds the travel speeds to assume
+     * @return the schedule
+     */
+    public static RouteSchedule of(List<AssignmentTask> tasks, LocalDateTime startTime, TravelSpeeds speeds) {
+        return new RouteSchedule(tasks, startTime, speeds);
+    }
+
+    /**
+     * Builds the schedule for a route travelled at a constant speed.
+     *
+     * @param tasks the tasks in visiting order
+     * @param startTime the time the first task is reached
+     * @param speedKmPerHour the average travel speed
+     * @return the schedule
+     */
+    public static RouteSchedule of(List<AssignmentTask> tasks, LocalDateTime startTime, double speedKmPerHour) {
+        return new RouteSchedule(tasks, startTime, TravelSpeeds.constant(speedKmPerHour));
+    }
+
+    /**
+     * Finds the position where inserting the task adds the least distance without pushing the
+     * task or any later stop outside its time window. Stops that were already late are not held
+     * against a position. When no position is feasible the cheapest position is returned with
+     * {@link Insertion#isWithinTimeWindows()} set to false.
+     *
+     * @param task the task to insert
+     * @param fromPosition the first position the task may take, e.g. to keep it behind stops
+     *                     the courier is already working on
+     * @return the chosen insertion
+     */
+    public Insertion findCheapestInsertion(AssignmentTask task, int fromPosition) {
+        if (fromPosition < 0 || fromPosition > size) {
+            throw new IndexOutOfBoundsException("Route position " + fromPosition + " out of range for size " + size);
+        }
+        double latitude = task.getLatitude() != null ? task.getLatitude() : Double.NaN;
+        double longitude = task.getLongitude() != null ? task.getLongitude() : Double.NaN;
+        double open = toSeconds(task.getStartTimeWindow(), Double.NEGATIVE_INFINITY);
+        double close = toSeconds(task.getEndTimeWindow(), Double.POSITIVE_INFINITY);
+        double service = serviceSeconds(task);
+
+        int bestFeasible = -1;
+        double bestFeasibleDelta = Double.POSITIVE_INFINITY;
+        int bestAny = fromPosition;
+        double bestAnyDelta = Double.POSITIVE_INFINITY;
+
+        for (int position = fromPosition; position <= size; position++) {
+            int previous = position - 1;
+            int next = position < size ? position : -1;
+
+            double fromPrevious = previous >= 0
+                    ? distanceKm(latitudes[previous], longitudes[previous], latitude, longitude) : 0.0;
+            double toNext = next >= 0
+                    ? distanceKm(latitude, longitude, latitudes[next], longitudes[next]) : 0.0;
+            double replaced = previous >= 0 && next >= 0 ? legKm[previous] : 0.0;
+            double delta = fromPrevious + toNext - replaced;
+
+            if (delta < bestAnyDelta) {
+                bestAny = position;
+                bestAnyDelta = delta;
+            }
+            if (delta >= bestFeasibleDelta) {
+                continue;
+            }
+
+            double arrivalAtTask = previous >= 0
+                    ? departure[previous] + travelSeconds(previous, departure[previous], fromPrevious) : 0.0;
+            if (arrivalAtTask > close) {
+                continue;
+            }
+            if (next >= 0) {
+                double departureFromTask = Math.max(arrivalAtTask, open) + service;
+                double arrivalAtNext = departureFromTask
+                        + travelSeconds(latitude, longitude, departureFromTask, toNext);
+                boolean suffixWasFeasible = arrival[next] <= latestArrival[next];
+                if (suffixWasFeasible && arrivalAtNext > latestArrival[next]) {
+                    continue;
+                }
+            }
+            bestFeasible = position;
+            bestFeasibleDelta = delta;
+        }
+
+        if (bestFeasible >= 0) {
+            return new Insertion(bestFeasible, bestFeasibleDelta, true);
+        }
+        return new Insertion(bestAny, bestAnyDelta, false);
+    }
+
+    /**
+     * Returns the change in route distance when the stop at the given index is removed and its
+     * neighbours are joined directly.
+     *
+     * @param index the index of the stop to remove
+     * @return the distance change in kilometers (zero or negative for metric distances)
+     */
+    public double removalDeltaKm(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Route index " + index + " out of range for size " + size);
+        }
+        double before = index > 0 ? legKm[index - 1] : 0.0;
+        double after = index < size - 1 ? legKm[index] : 0.0;
+        double joined = index > 0 && index < size - 1
+                ? distanceKm(latitudes[index - 1], longitudes[index - 1], latitudes[index + 1], longitudes[index + 1])
+                : 0.0;
+        return joined - before - after;
+    }
+
+    /**
+     * Gets the estimated arrival time at a stop.
+     *
+     * @param index the stop index
+     * @return the arrival time
+     */
+    public LocalDateTime getArrivalTime(int index) {
+        return startTime.plusSeconds((long) arrival[index]);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isFeasible() {
+        return feasible;
+    }
+
+    public double getTotalDistanceKm() {
+        return totalDistanceKm;
+    }
+
+    private double travelSeconds(int from, double departureSeconds, double km) {
+        return travelSeconds(latitudes[from], longitudes[from], departureSeconds, km);
+    }
+
+    private double travelSeconds(double latitude, double longitude, double departureSeconds, double km) {
+        if (km <= 0) {
+            return 0.0;
+        }
+        LocalDateTime departure = startTime.plusSeconds((long) departureSeconds);
+        return speeds.travelMinutes(latitude, longitude, departure, km) * 60.0;
+    }
+
+    private double toSeconds(LocalDateTime time, double fallback) {
+        return time != null ? Duration.between(startTime, time).getSeconds() : fallback;
+    }
+
+    private static double serviceSeconds(AssignmentTask task) {
+        return task.getEstimatedDuration() != null ? task.getEstimatedDuration() * 60.0 : 0.0;
+    }
+
+    /**
+     * Great-circle distance between two points. Legs with a missing (NaN) coordinate count as
+     * zero distance, as in the full sequencer's estimates.
+     *
+     * @param lat1 latitude of the first point
+     * @param lon1 longitude of the first point
+     * @param lat2 latitude of the second point
+     * @param lon2 longitude of the second point
+     * @return the distance in kilometres
+     */
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        if (Double.isNaN(lat1) || Double.isNaN(lon1) || Double.isNaN(lat2) || Double.isNaN(lon2)) {
+            return 0.0;
+        }
+        return Location.distanceKm(lat1, lon1, lat2, lon2);
+    }
+
+    /**
+     * Result of an insertion search.
+     */
+    public static final class Insertion {
+
+        private final int position;
+        private final double distanceDeltaKm;
+        private final boolean withinTimeWindows;
+
+        Insertion(int position, double distanceDeltaKm, boolean withinTimeWindows) {
+            this.position = position;
+            this.distanceDeltaKm = distanceDeltaKm;
+            this.withinTimeWindows = withinTimeWindows;
+        }
+
+        /**
+         * @return the index the task should occupy in the route
+         */
+        public int getPosition() {
+            return position;
+        }
+
+        /**
+         * @return the distance the insertion adds to the route, in kilometers
+         */
+        public double getDistanceDeltaKm() {
+            return distanceDeltaKm;
+        }
+
+        /**
+         * @return whether the insertion keeps every stop within its time window
+         */
+        public boolean isWithinTimeWindows() {
+            return withinTimeWindows;
+        }
+    }
+}
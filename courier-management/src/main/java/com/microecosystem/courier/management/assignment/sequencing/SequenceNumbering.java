@@ -0,0 +1,58 @@
+package com.gogidix.courier.management.assignment.sequencing;
+
+import com.gogidix.courier.management.assignment.model.AssignmentTask;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Maps a route order back onto an assignment's task sequence numbers.
+ */
+public final class SequenceNumbering {
+
+    private SequenceNumbering() {
+    }
+
+    /**
+     * Checks whether a task is still part of the route, i.e. it is not in a terminal status.
+     *
+     * @param task the task
+     * @return true if the task should be routed
+     */
+    public static boolean isRouted(AssignmentTask task) {
+        return task.getStatus() != null && !task.getStatus().isTerminal();
+    }
+
+    /**
+     * Renumbers an assignment's tasks so the routed tasks follow the given order. Tasks that are
+     * no longer routed keep their place; routed tasks fill the remaining places in route order,
+     * and any extra routed tasks (e.g. a newly inserted one) are appended.
+     *
+     * @param tasks all tasks of the assignment in their current order
+     * @param route the routed tasks in their new order
+     * @return the tasks whose sequence number changed
+     */
+    public static List<AssignmentTask> renumber(List<AssignmentTask> tasks, List<AssignmentTask> route) {
+        Iterator<AssignmentTask> routed = route.iterator();
+        List<AssignmentTask> ordered = new ArrayList<>(tasks.size() + 1);
+        for (AssignmentTask task : tasks) {
+            if (!isRouted(task)) {
+                ordered.add(task);
+            } else if (routed.hasNext()) {
+                ordered.add(routed.next());
+            }
+        }
+        routed.forEachRemaining(ordered::add);
+
+        List<AssignmentTask> changed = new ArrayList<>();
+        for (int i = 0; i < ordered.size(); i++) {
+            AssignmentTask task = ordered.get(i);
+            if (task.getSequence() == null || task.getSequence() != i + 1) {
+                task.setSequence(i + 1);
+                changed.add(task);
+            }
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,264 @@
+package com.gogidix.courier.management.assignment.sequencing;
+
+import com.gogidix.courier.management.assignment.model.AssignmentTask;
+import com.gogidix.courier.management.assignment.repository.AssignmentTaskRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Travel speeds learned from completed assignments, per zone and hour of the week.
+ *
+ * <p>Each leg between two consecutively completed tasks of an assignment yields a speed sample
+ * for the zone (a lat/lon grid cell) it started in and the hour of the week it started at.
+ * Samples are folded into a running mean per bucket that turns into an exponentially weighted
+ * average once a bucket has seen enough samples, so profiles follow changing conditions.
+ * A zone costs two float arrays of 168 entries and lookups are O(1). Buckets without enough
+ * samples fall back to the fleet-wide profile for that hour, then to the configured default.</p>
+ *
+ * <p>Profiles are rebuilt from the last {@code lookback-days} at startup and then refreshed
+ * incrementally from tasks completed since the previous refresh. Refreshes learn into private
+ * state and then publish an immutable snapshot, so lookups never see a half-applied sample.</p>
+ */
+@Component
+@Slf4j
+public class TravelSpeedProfiles implements TravelSpeeds {
+
+    static final int HOURS_PER_WEEK = 168;
+
+    private static final Duration MAX_LEG_DURATION = Duration.ofHours(3);
+    private static final double MIN_LEG_KM = 0.2;
+    private static final double MIN_SPEED_KM_PER_HOUR = 1.0;
+    private static final double MAX_SPEED_KM_PER_HOUR = 130.0;
+
+    private final AssignmentTaskRepository taskRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final double cellSizeDegrees;
+    private final double defaultKmPerHour;
+    private final int minSamples;
+    private final int maxSampleWeight;
+    private final int lookbackDays;
+
+    // Learning state, only touched by refreshes
+    private final Map<Long, Profile> zones = new HashMap<>();
+    private final Profile fleet = new Profile();
+    private final Set<Long> changedZones = new HashSet<>();
+    private LocalDateTime watermark;
+
+    private volatile Snapshot snapshot = new Snapshot(Collections.emptyMap(), new Profile());
+
+    public TravelSpeedProfiles(AssignmentTaskRepository taskRepository,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${assignment.speed-profile.cell-size-degrees:0.05}") double cellSizeDegrees,
+                               @Value("${assignment.speed-profile.default-speed-kmh:30}") double defaultKmPerHour,
+                               @Value("${assignment.speed-profile.min-samples:5}") int minSamples,
+                               @Value("${assignment.speed-profile.max-sample-weight:50}") int maxSampleWeight,
+                               @Value("${assignment.speed-profile.lookback-days:28}") int lookbackDays) {
+        if (cellSizeDegrees <= 0 || defaultKmPerHour <= 0) {
+            throw new IllegalArgumentException("Cell size and default speed must be positive");
+        }
+        this.taskRepository = taskRepository;
+        this.eventPublisher = eventPublisher;
+        this.cellSizeDegrees = cellSizeDegrees;
+        this.defaultKmPerHour = defaultKmPerHour;
+        this.minSamples = Math.max(1, minSamples);
+        this.maxSampleWeight = Math.max(this.minSamples, maxSampleWeight);
+        this.lookbackDays = lookbackDays;
+    }
+
+    @Override
+    public double kmPerHour(double latitude, double longitude, LocalDateTime departure) {
+        int hour = hourOfWeek(departure);
+        Snapshot current = snapshot;
+        Profile zone = current.zones.get(cellKey(latitude, longitude));
+        if (zone != null && zone.weights[hour] >= minSamples) {
+            return zone.speeds[hour];
+        }
+        if (current.fleet.weights[hour] >= minSamples) {
+            return current.fleet.speeds[hour];
+        }
+        return defaultKmPerHour;
+    }
+
+    /**
+     * Learns from tasks completed since the previous refresh and, if anything was learned,
+     * publishes a {@link TravelSpeedsUpdatedEvent} so active routes can be re-planned.
+     */
+    @Scheduled(fixedDelayString = "${assignment.speed-profile.refresh-interval-ms:900000}",
+            initialDelayString = "${assignment.speed-profile.initial-delay-ms:30000}")
+    public synchronized void refresh() {
+        int learned = refresh(LocalDateTime.now());
+        if (learned > 0) {
+            eventPublisher.publishEvent(new TravelSpeedsUpdatedEvent(learned));
+        }
+    }
+
+    /**
+     * Learns from tasks completed up to the given time.
+     *
+     * @param until the end of the period to learn from
+     * @return the number of legs learned
+     */
+    public synchronized int refresh(LocalDateTime until) {
+        long startedAt = System.nanoTime();
+        LocalDateTime from = watermark != null ? watermark : until.minusDays(lookbackDays);
+        int learned = 0;
+        // One day per read keeps the initial backfill bounded
+        while (from.isBefore(until)) {
+            LocalDateTime to = from.plusDays(1).isBefore(until) ? from.plusDays(1) : until;
+            // Reach back far enough to find the task each leg started from
+            List<AssignmentTask> tasks = taskRepository.findCompletedBetween(from.minus(MAX_LEG_DURATION), to);
+            learned += learn(tasks, from);
+            from = to;
+        }
+        watermark = until;
+        if (learned > 0) {
+            publish();
+        }
+        log.debug("Learned {} travel legs into {} speed zones in {} ms", learned, zones.size(),
+                (System.nanoTime() - startedAt) / 1_000_000);
+        return learned;
+    }
+
+    /**
+     * Gets the number of zones with at least one sample.
+     *
+     * @return the zone count
+     */
+    public int zoneCount() {
+        return snapshot.zones.size();
+    }
+
+    // Copy-on-write: only the zones that learned something are copied again
+    private void publish() {
+        Map<Long, Profile> published = new HashMap<>(snapshot.zones);
+        for (Long key : changedZones) {
+            published.put(key, zones.get(key).copy());
+        }
+        changedZones.clear();
+        snapshot = new Snapshot(Collections.unmodifiableMap(published), fleet.copy());
+    }
+
+    private int learn(List<AssignmentTask> tasks, LocalDateTime since) {
+        int learned = 0;
+        AssignmentTask previous = null;
+        for (AssignmentTask task : tasks) {
+            if (previous != null && sameAssignment(previous, task) && task.getCompletedTime().isAfter(since)
+                    && learnLeg(previous, task)) {
+                learned++;
+            }
+            previous = task;
+        }
+        return learned;
+    }
+
+    private boolean learnLeg(AssignmentTask from, AssignmentTask to) {
+        if (from.getLatitude() == null || from.getLongitude() == null
+                || to.getLatitude() == null || to.getLongitude() == null) {
+            return false;
+        }
+        // The driver leaves a stop once it is completed
+        LocalDateTime departure = from.getCompletedTime();
+        LocalDateTime arrival = arrivalTime(to, departure);
+        if (!arrival.isAfter(departure)) {
+            return false;
+        }
+        Duration travel = Duration.between(departure, arrival);
+        double km = RouteSchedule.distanceKm(from.getLatitude(), from.getLongitude(), to.getLatitude(), to.getLongitude());
+        if (travel.compareTo(MAX_LEG_DURATION) > 0 || km < MIN_LEG_KM) {
+            return false;
+        }
+        double speed = km / (travel.toMillis() / 3_600_000.0);
+        if (speed < MIN_SPEED_KM_PER_HOUR || speed > MAX_SPEED_KM_PER_HOUR) {
+            return false;
+        }
+
+        int hour = hourOfWeek(departure);
+        long key = cellKey(from.getLatitude(), from.getLongitude());
+        zones.computeIfAbsent(key, k -> new Profile()).add(hour, (float) speed, maxSampleWeight);
+        changedZones.add(key);
+        fleet.add(hour, (float) speed, maxSampleWeight);
+        return true;
+    }
+
+    // Work starts on arrival; a task started before the previous stop was left (or never started)
+    // says nothing about the leg, so back out the expected service time instead
+    private LocalDateTime arrivalTime(AssignmentTask task, LocalDateTime departure) {
+        LocalDateTime startedAt = task.getStartedAt();
+        if (startedAt != null && startedAt.isAfter(departure) && !startedAt.isAfter(task.getCompletedTime())) {
+            return startedAt;
+        }
+        int serviceMinutes = task.getEstimatedDuration() != null ? task.getEstimatedDuration() : 0;
+        return task.getCompletedTime().minusMinutes(serviceMinutes);
+    }
+
+    private boolean sameAssignment(AssignmentTask a, AssignmentTask b) {
+        return a.getAssignment() != null && b.getAssignment() != null
+                && a.getAssignment().getId() != null
+                && a.getAssignment().getId().equals(b.getAssignment().getId());
+    }
+
+    private long cellKey(double latitude, double longitude) {
+        long x = (long) Math.floor(longitude / cellSizeDegrees);
+        long y = (long) Math.floor(latitude / cellSizeDegrees);
+        return (y << 32) | (x & 0xffffffffL);
+    }
+
+    static int hourOfWeek(LocalDateTime time) {
+        return (time.getDayOfWeek().getValue() - 1) * 24 + time.getHour();
+    }
+
+    /**
+     * Speed per hour of the week with the effective number of samples behind each value.
+     * Published copies are never written again.
+     */
+    private static final class Profile {
+
+        private final float[] speeds;
+        private final float[] weights;
+
+        private Profile() {
+            this(new float[HOURS_PER_WEEK], new float[HOURS_PER_WEEK]);
+        }
+
+        private Profile(float[] speeds, float[] weights) {
+            this.speeds = speeds;
+            this.weights = weights;
+        }
+
+        private void add(int hour, float speed, int maxWeight) {
+            float weight = Math.min(weights[hour] + 1, maxWeight);
+            speeds[hour] += (speed - speeds[hour]) / weight;
+            weights[hour] = weight;
+        }
+
+        private Profile copy() {
+            return new Profile(speeds.clone(), weights.clone());
+        }
+    }
+
+    /**
+     * The profiles lookups read, replaced as a whole after each refresh.
+     */
+    private static final class Snapshot {
+
+        private final Map<Long, Profile> zones;
+        private final Profile fleet;
+
+        private Snapshot(Map<Long, Profile> zones, Profile fleet) {
+            this.zones = zones;
+            this.fleet = fleet;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.gogidix.courier.management.assignment.sequencing;
+
+import java.time.LocalDateTime;
+
+/**
+ * Source of expected travel speeds for converting route distances into travel times.
+ */
+@FunctionalInterface
+public interface TravelSpeeds {
+
+    /**
+     * Gets the expected speed for a leg starting at the given point and time.
+     *
+     * @param latitude latitude of the leg's origin
+     * @param longitude longitude of the leg's origin
+     * @param departure departure time of the leg
+     * @return the expected speed in km/h, always positive
+     */
+    double kmPerHour(double latitude, double longitude, LocalDateTime departure);
+
+    /**
+     * Gets the travel time for a leg, rounded up to whole minutes.
+     *
+     * @param latitude latitude of the leg's origin
+     * @param longitude longitude of the leg's origin
+     * @param departure departure time of the leg
+     * @param distanceKm length of the leg
+     * @return the travel time in minutes
+     */
+    default int travelMinutes(double latitude, double longitude, LocalDateTime departure, double distanceKm) {
+        if (distanceKm <= 0) {
+            return 0;
+        }
+        return (int) Math.ceil(distanceKm / kmPerHour(latitude, longitude, departure) * 60);
+    }
+
+    /**
+     * Speeds that do not vary by place or time.
+     *
+     * @param kmPerHour the speed in km/h
+     * @return the speeds
+     */
+    static TravelSpeeds constant(double kmPerHour) {
+        return (latitude, longitude, departure) -> kmPerHour;
+    }
+}
@@ -0,0 +1,16 @@
+package com.gogidix.courier.management.assignment.sequencing;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published after a speed profile refresh has learned from newly completed legs.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class TravelSpeedsUpdatedEvent {
+
+    private final int legsLearned;
+}
@@ -1,5 +1,6 @@
 package com.gogidix.courier.management.assignment.service;
 
+import com.gogidix.courier.management.assignment.dto.BulkStatusTransitionResult;
 import com.gogidix.courier.management.assignment.model.Assignment;
 import com.gogidix.courier.management.assignment.model.AssignmentStatus;
 import com.gogidix.courier.management.courier.model.Courier;
@@ -142,6 +143,17 @@ public interface AssignmentService {
      */
     Assignment updateAssignmentStatus(String assignmentId, AssignmentStatus status);
 
+    /**
+     * Moves many assignments to the same status. Each assignment is transitioned in its own
+     * transaction, so a failure on one does not roll back the others.
+     *
+     * @param assignmentIds the assignment IDs
+     * @param targetStatus the status to move to
+     * @param reason the reason, used for cancellations and rejections
+     * @return one result per assignment ID, in request order
+     */
+    List<BulkStatusTransitionResult> transitionAssignments(List<String> assignmentIds, AssignmentStatus targetStatus, String reason);
+
     /**
      * Gets all assignments for a courier.
      *
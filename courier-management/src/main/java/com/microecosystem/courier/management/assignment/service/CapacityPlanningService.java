@@ -0,0 +1,26 @@
+package com.gogidix.courier.management.assignment.service;
+
+import com.gogidix.courier.management.assignment.dto.CapacityPlan;
+
+import java.util.List;
+
+/**
+ * Service interface for packing pending assignments into vehicle loads that respect the
+ * weight and volume capacity of a courier's vehicle.
+ */
+public interface CapacityPlanningService {
+
+    /**
+     * Packs the remaining tasks of the given assignments into as few capacity-feasible loads as
+     * possible and sequences the tasks of each load. Tasks of one assignment always share a load,
+     * so pickups and deliveries of an order stay together, and each pickup is visited before the
+     * deliveries of its order. Assignments whose packages were not weighed and measured are
+     * reported instead of packed.
+     *
+     * @param assignmentIds the assignment IDs to pack
+     * @param courierId the courier whose vehicle to plan for, or null
+     * @param vehicleType the vehicle type to plan for when no courier is given, or null for the default
+     * @return the plan
+     */
+    CapacityPlan planLoads(List<String> assignmentIds, String courierId, String vehicleType);
+}
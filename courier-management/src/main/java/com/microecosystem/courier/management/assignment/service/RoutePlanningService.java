@@ -0,0 +1,26 @@
+package com.gogidix.courier.management.assignment.service;
+
+import com.gogidix.courier.management.assignment.dto.RoutePlanResult;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Service interface for planning the routes of many assignments in one batch.
+ */
+public interface RoutePlanningService {
+
+    /**
+     * Sequences the remaining tasks of each assignment in parallel and stores all new sequence
+     * numbers in a single batched write once every route is planned.
+     *
+     * @param assignmentIds the assignment IDs to plan
+     * @param timeBudget the time budget per assignment, or null for the configured default
+     * @param listener receives each result as soon as its route is planned; called from planner threads
+     * @return a future completing with all results, in request order, after they have been persisted
+     */
+    CompletableFuture<List<RoutePlanResult>> planRoutes(List<String> assignmentIds, Duration timeBudget,
+                                                        Consumer<RoutePlanResult> listener);
+}
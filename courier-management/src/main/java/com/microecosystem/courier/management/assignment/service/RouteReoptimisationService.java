@@ -0,0 +1,32 @@
+package com.gogidix.courier.management.assignment.service;
+
+import com.gogidix.courier.management.assignment.dto.ReoptimisationResult;
+import com.gogidix.courier.management.assignment.event.ReoptimisationTrigger;
+import com.gogidix.courier.management.exception.ResourceNotFoundException;
+
+/**
+ * Service interface for re-optimising the remaining routes of in-progress assignments while
+ * couriers are out on them.
+ */
+public interface RouteReoptimisationService {
+
+    /**
+     * Schedules a re-optimisation. Requests for the same assignment are debounced, so a burst
+     * of events results in a single run once the route has been quiet for a moment.
+     *
+     * @param assignmentId the assignment ID
+     * @param trigger what prompted the request
+     */
+    void requestReoptimisation(String assignmentId, ReoptimisationTrigger trigger);
+
+    /**
+     * Re-optimises the remaining route from the courier's current position right away and
+     * stores the new order if it saves enough distance.
+     *
+     * @param assignmentId the assignment ID
+     * @param trigger what prompted the run
+     * @return the result
+     * @throws ResourceNotFoundException if the assignment is not found
+     */
+    ReoptimisationResult reoptimise(String assignmentId, ReoptimisationTrigger trigger);
+}
@@ -0,0 +1,20 @@
+package com.gogidix.courier.management.assignment.service;
+
+import com.gogidix.courier.management.assignment.dto.TaskClusterPlan;
+import com.gogidix.courier.management.assignment.dto.TaskClusterRequest;
+
+/**
+ * Service interface for grouping pending tasks into delivery zones ahead of dispatch.
+ */
+public interface TaskClusteringService {
+
+    /**
+     * Partitions the pending tasks inside an area into compact clusters that each fit one courier's
+     * vehicle capacity and shift length, and sequences the tasks of every cluster. The pending tasks
+     * of an assignment are clustered as one unit, so an order's pickup and delivery stay together.
+     *
+     * @param request the vehicle, shift and area to cluster for
+     * @return the clusters with their planned routes
+     */
+    TaskClusterPlan clusterPendingTasks(TaskClusterRequest request);
+}
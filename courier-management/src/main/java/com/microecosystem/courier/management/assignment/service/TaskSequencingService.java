@@ -1,5 +1,6 @@
 package com.gogidix.courier.management.assignment.service;
 
+import com.gogidix.courier.management.assignment.dto.RouteUpdate;
 import com.gogidix.courier.management.assignment.model.Assignment;
 import com.gogidix.courier.management.assignment.model.AssignmentTask;
 
@@ -28,6 +29,16 @@ public interface TaskSequencingService {
      */
     List<AssignmentTask> determineOptimalSequence(List<AssignmentTask> tasks);
 
+    /**
+     * Determines the optimal sequence for a list of tasks within a time budget. When the budget
+     * runs out, the tasks not yet placed are appended in their current order.
+     *
+     * @param tasks the list of tasks to sequence
+     * @param timeBudget the maximum time to spend, or null for no limit
+     * @return the list of tasks in optimal sequence
+     */
+    List<AssignmentTask> determineOptimalSequence(List<AssignmentTask> tasks, java.time.Duration timeBudget);
+
     /**
      * Applies a determined sequence to tasks in an assignment.
      *
@@ -70,4 +81,29 @@ public interface TaskSequencingService {
      * @return true if all tasks can be completed within their time windows, false otherwise
      */
     boolean canCompleteWithinTimeWindows(List<AssignmentTask> tasks, java.time.LocalDateTime startTime);
+
+    /**
+     * Inserts a task into an active route at its cheapest position that keeps the route within
+     * its time windows. The route is re-optimised from scratch instead once the incremental
+     * changes since the last full optimisation exceed the configured drift threshold.
+     *
+     * @param assignment the assignment the route belongs to
+     * @param taskSequence the active tasks in their current order
+     * @param task the task to insert
+     * @param startTime the time the first task in the route is reached
+     * @return the updated route
+     */
+    RouteUpdate insertTask(Assignment assignment, List<AssignmentTask> taskSequence, AssignmentTask task,
+                           java.time.LocalDateTime startTime);
+
+    /**
+     * Removes a task from an active route by joining its neighbours directly. The route is
+     * re-optimised from scratch instead once the configured drift threshold is exceeded.
+     *
+     * @param assignment the assignment the route belongs to
+     * @param taskSequence the active tasks in their current order
+     * @param task the task to remove
+     * @return the updated route
+     */
+    RouteUpdate removeTask(Assignment assignment, List<AssignmentTask> taskSequence, AssignmentTask task);
 } 
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.gogidix.courier.management.assignment.service.impl;
 
+import com.gogidix.courier.management.assignment.dto.BulkStatusTransitionResult;
 import com.gogidix.courier.management.assignment.model.Assignment;
 import com.gogidix.courier.management.assignment.model.AssignmentStatus;
 import com.gogidix.courier.management.assignment.repository.AssignmentRepository;
@@ -9,30 +10,56 @@ import com.gogidix.courier.management.courier.model.Courier;
 import com.gogidix.courier.management.courier.model.CourierStatus;
 import com.gogidix.courier.management.courier.repository.CourierRepository;
 import com.gogidix.courier.management.exception.BusinessException;
+import com.gogidix.courier.management.exception.ConflictException;
 import com.gogidix.courier.management.exception.ResourceNotFoundException;
-import lombok.RequiredArgsConstructor;
+import com.gogidix.courier.management.util.StripedLock;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 /**
  * Implementation of the AssignmentService interface.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class AssignmentServiceImpl implements AssignmentService {
 
+    private static final int COURIER_LOCK_STRIPES = 64;
+
     private final AssignmentRepository assignmentRepository;
     private final CourierRepository courierRepository;
     private final AssignmentValidator assignmentValidator;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransactionTemplate;
+
+    // Serialises transitions that change the same courier
+    private final StripedLock courierLocks = new StripedLock(COURIER_LOCK_STRIPES);
+
+    public AssignmentServiceImpl(AssignmentRepository assignmentRepository,
+                                 CourierRepository courierRepository,
+                                 AssignmentValidator assignmentValidator,
+                                 TransactionTemplate transactionTemplate) {
+        this.assignmentRepository = assignmentRepository;
+        this.courierRepository = courierRepository;
+        this.assignmentValidator = assignmentValidator;
+        this.transactionTemplate = transactionTemplate;
+        this.newTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager(), transactionTemplate);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
 
     @Override
     @Transactional
@@ -61,14 +88,27 @@ public class AssignmentServiceImpl implements AssignmentService {
         log.info("Updating assignment with ID: {}", assignment.getId());
         
         // Ensure the assignment exists
-        if (!assignmentRepository.existsById(assignment.getId())) {
-            throw new ResourceNotFoundException("Assignment not found with ID: " + assignment.getId());
+        Assignment stored = assignmentRepository.findById(assignment.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("Assignment not found with ID: " + assignment.getId()));
+        
+        // A body without a version overwrites the stored assignment; one with a version must still match it
+        if (assignment.getVersion() == null) {
+            assignment.setVersion(stored.getVersion());
+        } else if (!assignment.getVersion().equals(stored.getVersion())) {
+            throw new ConflictException("Assignment " + assignment.getId() + " has changed since version "
+                    + assignment.getVersion() + ", reload it and retry");
         }
         
         // Validate the assignment
         assignmentValidator.validateForUpdate(assignment);
         
-        return assignmentRepository.save(assignment);
+        try {
+            // Flushed here so a concurrent update is reported as a conflict, not a failed commit
+            return assignmentRepository.saveAndFlush(assignment);
+        } catch (OptimisticLockingFailureException e) {
+            throw new ConflictException("Assignment " + assignment.getId()
+                    + " was modified concurrently, reload it and retry", e);
+        }
     }
 
     @Override
@@ -104,29 +144,31 @@ public class AssignmentServiceImpl implements AssignmentService {
     }
 
     @Override
-    @Transactional
     public Assignment assignToCourier(String assignmentId, String courierId) {
         log.info("Assigning assignment {} to courier {}", assignmentId, courierId);
         
-        Assignment assignment = getAssignmentByIdOrThrow(assignmentId);
-        Courier courier = getCourierByIdOrThrow(courierId);
-        
-        // Check if assignment is in a state that can be assigned
-        if (assignment.getStatus() != AssignmentStatus.CREATED && 
-            assignment.getStatus() != AssignmentStatus.REJECTED) {
-            throw new BusinessException("Assignment cannot be assigned in current state: " + assignment.getStatus());
-        }
-        
-        // Check if courier is available
-        if (!courier.getStatus().canAcceptAssignments()) {
-            throw new BusinessException("Courier is not available. Current status: " + courier.getStatus());
-        }
-        
-        assignment.setCourier(courier);
-        assignment.setStatus(AssignmentStatus.ASSIGNED);
-        assignment.setAssignedAt(LocalDateTime.now());
-        
-        return assignmentRepository.save(assignment);
+        String courierKey = getCourierByIdOrThrow(courierId).getId();
+        return inCourierTransaction(courierKey, () -> {
+            Assignment assignment = getAssignmentByIdOrThrow(assignmentId);
+            Courier courier = getCourierByIdOrThrow(courierId);
+            
+            // Check if assignment is in a state that can be assigned
+            if (assignment.getStatus() != AssignmentStatus.CREATED && 
+                assignment.getStatus() != AssignmentStatus.REJECTED) {
+                throw new BusinessException("Assignment cannot be assigned in current state: " + assignment.getStatus());
+            }
+            
+            // Check if courier is available
+            if (!courier.getStatus().canAcceptAssignments()) {
+                throw new BusinessException("Courier is not available. Current status: " + courier.getStatus());
+            }
+            
+            assignment.setCourier(courier);
+            assignment.setStatus(AssignmentStatus.ASSIGNED);
+            assignment.setAssignedAt(LocalDateTime.now());
+            
+            return assignmentRepository.save(assignment);
+        });
     }
 
     @Override
@@ -147,86 +189,95 @@ public class AssignmentServiceImpl implements AssignmentService {
     }
 
     @Override
-    @Transactional
     public Assignment startAssignment(String assignmentId) {
         log.info("Starting assignment {}", assignmentId);
         
-        Assignment assignment = getAssignmentByIdOrThrow(assignmentId);
-        
-        // Check if assignment is in a state that can be started
-        if (assignment.getStatus() != AssignmentStatus.ACCEPTED) {
-            throw new BusinessException("Assignment cannot be started in current state: " + assignment.getStatus());
-        }
-        
-        assignment.setStatus(AssignmentStatus.IN_PROGRESS);
-        assignment.setActualStartTime(LocalDateTime.now());
-        
-        // Update courier status
-        Courier courier = assignment.getCourier();
-        if (courier != null) {
-            courier.setStatus(CourierStatus.BUSY);
-            courierRepository.save(courier);
-        }
-        
-        return assignmentRepository.save(assignment);
+        String courierKey = getCourierKey(assignmentId);
+        return inCourierTransaction(courierKey, () -> {
+            Assignment assignment = getAssignmentByIdOrThrow(assignmentId);
+            ensureCourierUnchanged(assignment, courierKey);
+            
+            // Check if assignment is in a state that can be started
+            if (assignment.getStatus() != AssignmentStatus.ACCEPTED) {
+                throw new BusinessException("Assignment cannot be started in current state: " + assignment.getStatus());
+            }
+            
+            assignment.setStatus(AssignmentStatus.IN_PROGRESS);
+            assignment.setActualStartTime(LocalDateTime.now());
+            
+            // Update courier status
+            Courier courier = assignment.getCourier();
+            if (courier != null) {
+                courier.setStatus(CourierStatus.BUSY);
+                courierRepository.save(courier);
+            }
+            
+            return assignmentRepository.save(assignment);
+        });
     }
 
     @Override
-    @Transactional
     public Assignment completeAssignment(String assignmentId) {
         log.info("Completing assignment {}", assignmentId);
         
-        Assignment assignment = getAssignmentByIdOrThrow(assignmentId);
-        
-        // Check if assignment is in a state that can be completed
-        if (assignment.getStatus() != AssignmentStatus.IN_PROGRESS) {
-            throw new BusinessException("Assignment cannot be completed in current state: " + assignment.getStatus());
-        }
-        
-        assignment.setStatus(AssignmentStatus.COMPLETED);
-        assignment.setActualEndTime(LocalDateTime.now());
-        
-        // Update courier status
-        Courier courier = assignment.getCourier();
-        if (courier != null) {
-            courier.setStatus(CourierStatus.AVAILABLE);
-            courierRepository.save(courier);
-        }
-        
-        return assignmentRepository.save(assignment);
+        String courierKey = getCourierKey(assignmentId);
+        return inCourierTransaction(courierKey, () -> {
+            Assignment assignment = getAssignmentByIdOrThrow(assignmentId);
+            ensureCourierUnchanged(assignment, courierKey);
+            
+            // Check if assignment is in a state that can be completed
+            if (assignment.getStatus() != AssignmentStatus.IN_PROGRESS) {
+                throw new BusinessException("Assignment cannot be completed in current state: " + assignment.getStatus());
+            }
+            
+            assignment.setStatus(AssignmentStatus.COMPLETED);
+            assignment.setActualEndTime(LocalDateTime.now());
+            
+            // Update courier status
+            Courier courier = assignment.getCourier();
+            if (courier != null) {
+                courier.setStatus(CourierStatus.AVAILABLE);
+                courierRepository.save(courier);
+            }
+            
+            return assignmentRepository.save(assignment);
+        });
     }
 
     @Override
-    @Transactional
     public Assignment cancelAssignment(String assignmentId, String reason) {
         log.info("Cancelling assignment {} with reason: {}", assignmentId, reason);
         
-        Assignment assignment = getAssignmentByIdOrThrow(assignmentId);
-        
-        // Check if assignment is in a state that can be cancelled
-        if (assignment.getStatus() == AssignmentStatus.COMPLETED || 
-            assignment.getStatus() == AssignmentStatus.CANCELLED ||
-            assignment.getStatus() == AssignmentStatus.FAILED) {
-            throw new BusinessException("Assignment cannot be cancelled in current state: " + assignment.getStatus());
-        }
-        
-        assignment.setStatus(AssignmentStatus.CANCELLED);
-        assignment.setNotes(assignment.getNotes() != null 
-            ? assignment.getNotes() + "\nCancellation reason: " + reason 
-            : "Cancellation reason: " + reason);
-        assignment.setActualEndTime(LocalDateTime.now());
-        
-        // Update courier status if the assignment was actively being worked on
-        Courier courier = assignment.getCourier();
-        if (courier != null && 
-            (assignment.getStatus() == AssignmentStatus.ASSIGNED || 
-             assignment.getStatus() == AssignmentStatus.ACCEPTED || 
-             assignment.getStatus() == AssignmentStatus.IN_PROGRESS)) {
-            courier.setStatus(CourierStatus.AVAILABLE);
-            courierRepository.save(courier);
-        }
-        
-        return assignmentRepository.save(assignment);
+        String courierKey = getCourierKey(assignmentId);
+        return inCourierTransaction(courierKey, () -> {
+            Assignment assignment = getAssignmentByIdOrThrow(assignmentId);
+            ensureCourierUnchanged(assignment, courierKey);
+            
+            // Check if assignment is in a state that can be cancelled
+            if (assignment.getStatus() == AssignmentStatus.COMPLETED || 
+                assignment.getStatus() == AssignmentStatus.CANCELLED ||
+                assignment.getStatus() == AssignmentStatus.FAILED) {
+                throw new BusinessException("Assignment cannot be cancelled in current state: " + assignment.getStatus());
+            }
+            
+            assignment.setStatus(AssignmentStatus.CANCELLED);
+            assignment.setNotes(assignment.getNotes() != null 
+                ? assignment.getNotes() + "\nCancellation reason: " + reason 
+                : "Cancellation reason: " + reason);
+            assignment.setActualEndTime(LocalDateTime.now());
+            
+            // Update courier status if the assignment was actively being worked on
+            Courier courier = assignment.getCourier();
+            if (courier != null && 
+                (assignment.getStatus() == AssignmentStatus.ASSIGNED || 
+                 assignment.getStatus() == AssignmentStatus.ACCEPTED || 
+                 assignment.getStatus() == AssignmentStatus.IN_PROGRESS)) {
+                courier.setStatus(CourierStatus.AVAILABLE);
+                courierRepository.save(courier);
+            }
+            
+            return assignmentRepository.save(assignment);
+        });
     }
 
     @Override
@@ -283,6 +334,32 @@ public class AssignmentServiceImpl implements AssignmentService {
         return assignmentRepository.save(assignment);
     }
 
+    @Override
+    public List<BulkStatusTransitionResult> transitionAssignments(List<String> assignmentIds, AssignmentStatus targetStatus, String reason) {
+        log.info("Transitioning {} assignments to {}", assignmentIds.size(), targetStatus);
+        
+        String effectiveReason = reason != null ? reason : "No reason provided";
+        List<BulkStatusTransitionResult> results = new ArrayList<>(assignmentIds.size());
+        for (String assignmentId : assignmentIds) {
+            try {
+                Assignment assignment = applyTransition(assignmentId, targetStatus, effectiveReason);
+                results.add(BulkStatusTransitionResult.builder()
+                        .assignmentId(assignmentId)
+                        .success(true)
+                        .status(assignment.getStatus())
+                        .build());
+            } catch (BusinessException | ResourceNotFoundException e) {
+                log.warn("Failed to transition assignment {} to {}: {}", assignmentId, targetStatus, e.getMessage());
+                results.add(BulkStatusTransitionResult.builder()
+                        .assignmentId(assignmentId)
+                        .success(false)
+                        .error(e.getMessage())
+                        .build());
+            }
+        }
+        return results;
+    }
+
     @Override
     public Page<Assignment> getAssignmentsByCourier(String courierId, Pageable pageable) {
         Courier courier = getCourierByIdOrThrow(courierId);
@@ -324,6 +401,92 @@ public class AssignmentServiceImpl implements AssignmentService {
         return "AS-" + datePart + "-" + uuidPart;
     }
 
+    /**
+     * Applies a single bulk transition using the same rules as the individual endpoints.
+     * Transitions that change the courier take the courier lock; the rest run in their own transaction.
+     *
+     * @param assignmentId the assignment ID
+     * @param targetStatus the target status
+     * @param reason the reason for cancellations and rejections
+     * @return the updated assignment
+     */
+    private Assignment applyTransition(String assignmentId, AssignmentStatus targetStatus, String reason) {
+        switch (targetStatus) {
+            case IN_PROGRESS:
+                return startAssignment(assignmentId);
+            case COMPLETED:
+                return completeAssignment(assignmentId);
+            case CANCELLED:
+                return cancelAssignment(assignmentId, reason);
+            case ACCEPTED:
+                return inTransaction(() -> acceptAssignment(assignmentId));
+            case REJECTED:
+                return inTransaction(() -> rejectAssignment(assignmentId, reason));
+            default:
+                return inTransaction(() -> updateAssignmentStatus(assignmentId, targetStatus));
+        }
+    }
+
+    /**
+     * Runs a transition in a new transaction while holding the lock stripe of the courier.
+     * The transaction is always a new one, suspending any caller transaction, so it has
+     * committed before the lock is released and the next transition for the same courier reads
+     * committed state. Version checks catch any remaining conflicting writes.
+     *
+     * @param courierKey the courier entity ID, or null if no courier is involved
+     * @param transition the transition to run
+     * @return the updated assignment
+     * @throws BusinessException if a concurrent update won the race
+     */
+    private Assignment inCourierTransaction(String courierKey, Supplier<Assignment> transition) {
+        return courierLocks.callWithLocks(Collections.singletonList(courierKey),
+                () -> inTransaction(newTransactionTemplate, transition));
+    }
+
+    /**
+     * Runs a transition in a transaction, reporting optimistic locking conflicts as business errors.
+     *
+     * @param transition the transition to run
+     * @return the updated assignment
+     * @throws BusinessException if a concurrent update won the race
+     */
+    private Assignment inTransaction(Supplier<Assignment> transition) {
+        return inTransaction(transactionTemplate, transition);
+    }
+
+    private Assignment inTransaction(TransactionTemplate template, Supplier<Assignment> transition) {
+        try {
+            return template.execute(status -> transition.get());
+        } catch (OptimisticLockingFailureException e) {
+            throw new BusinessException("Assignment or courier was modified concurrently, please retry", e);
+        }
+    }
+
+    /**
+     * Gets the entity ID of the courier currently holding an assignment.
+     *
+     * @param assignmentId the assignment ID
+     * @return the courier entity ID, or null if unassigned
+     */
+    private String getCourierKey(String assignmentId) {
+        Courier courier = getAssignmentByIdOrThrow(assignmentId).getCourier();
+        return courier != null ? courier.getId() : null;
+    }
+
+    /**
+     * Ensures the assignment still belongs to the courier whose lock is held.
+     *
+     * @param assignment the assignment re-read under the lock
+     * @param courierKey the locked courier entity ID
+     * @throws BusinessException if the assignment was reassigned in the meantime
+     */
+    private void ensureCourierUnchanged(Assignment assignment, String courierKey) {
+        String currentKey = assignment.getCourier() != null ? assignment.getCourier().getId() : null;
+        if (!Objects.equals(currentKey, courierKey)) {
+            throw new BusinessException("Assignment was reassigned concurrently, please retry: " + assignment.getAssignmentId());
+        }
+    }
+
     /**
      * Validates a status transition.
      *
@@ -1,16 +1,25 @@
 package com.gogidix.courier.management.assignment.service.impl;
 
+import com.gogidix.courier.management.assignment.dto.RouteUpdate;
+import com.gogidix.courier.management.assignment.event.ReoptimisationTrigger;
+import com.gogidix.courier.management.assignment.event.RouteDisruptionEvent;
 import com.gogidix.courier.management.assignment.model.Assignment;
+import com.gogidix.courier.management.assignment.model.AssignmentPriority;
+import com.gogidix.courier.management.assignment.model.AssignmentStatus;
 import com.gogidix.courier.management.assignment.model.AssignmentTask;
 import com.gogidix.courier.management.assignment.model.TaskStatus;
 import com.gogidix.courier.management.assignment.model.TaskType;
 import com.gogidix.courier.management.assignment.repository.AssignmentRepository;
 import com.gogidix.courier.management.assignment.repository.AssignmentTaskRepository;
+import com.gogidix.courier.management.assignment.sequencing.SequenceNumbering;
 import com.gogidix.courier.management.assignment.service.AssignmentTaskService;
+import com.gogidix.courier.management.assignment.service.TaskSequencingService;
 import com.gogidix.courier.management.exception.BusinessException;
 import com.gogidix.courier.management.exception.ResourceNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -34,6 +43,11 @@ public class AssignmentTaskServiceImpl implements AssignmentTaskService {
 
     private final AssignmentTaskRepository taskRepository;
     private final AssignmentRepository assignmentRepository;
+    private final TaskSequencingService taskSequencingService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${assignment.reoptimisation.urgent-window-minutes:60}")
+    private long urgentWindowMinutes = 60;
 
     @Override
     @Transactional
@@ -51,13 +65,6 @@ public class AssignmentTaskServiceImpl implements AssignmentTaskService {
         // Set the assignment
         task.setAssignment(assignment);
         
-        // Set sequence number if not provided
-        if (task.getSequence() == null) {
-            // Find the highest existing sequence number and add 1
-            Integer maxSequence = taskRepository.findMaxSequenceNumberByAssignment(assignment);
-            task.setSequence(maxSequence != null ? maxSequence + 1 : 1);
-        }
-        
         // Validate time windows if provided
         if (task.getStartTimeWindow() != null && task.getEndTimeWindow() != null) {
             if (task.getStartTimeWindow().isAfter(task.getEndTimeWindow())) {
@@ -65,6 +72,15 @@ public class AssignmentTaskServiceImpl implements AssignmentTaskService {
             }
         }
         
+        // Insert into the route at the cheapest feasible position if no sequence was provided
+        if (task.getSequence() == null) {
+            insertIntoRoute(assignment, task);
+        }
+        
+        if (isUrgentPickup(assignment, task)) {
+            publishDisruption(assignment, ReoptimisationTrigger.URGENT_PICKUP);
+        }
+        
         return taskRepository.save(task);
     }
 
@@ -83,6 +99,10 @@ public class AssignmentTaskServiceImpl implements AssignmentTaskService {
         existingTask.setStartTimeWindow(task.getStartTimeWindow());
         existingTask.setEndTimeWindow(task.getEndTimeWindow());
         existingTask.setEstimatedDuration(task.getEstimatedDuration());
+        existingTask.setPackageWeightKg(task.getPackageWeightKg());
+        existingTask.setPackageLengthCm(task.getPackageLengthCm());
+        existingTask.setPackageWidthCm(task.getPackageWidthCm());
+        existingTask.setPackageHeightCm(task.getPackageHeightCm());
         // Additional data is handled through getAdditionalData() method
         
         // Don't update status, sequence number, or timestamps here
@@ -146,6 +166,7 @@ public class AssignmentTaskServiceImpl implements AssignmentTaskService {
                 break;
             case COMPLETED:
                 task.setCompletedTime(LocalDateTime.now());
+                publishDisruption(task.getAssignment(), ReoptimisationTrigger.TASK_COMPLETED);
                 break;
             case FAILED:
                 task.setFailedAt(LocalDateTime.now());
@@ -154,6 +175,12 @@ public class AssignmentTaskServiceImpl implements AssignmentTaskService {
                 // No timestamp updates for other statuses
         }
         
+        // Cancelled and failed tasks drop out of the remaining route
+        if (status == TaskStatus.CANCELLED || status == TaskStatus.FAILED) {
+            removeFromRoute(task, false);
+            publishDisruption(task.getAssignment(), ReoptimisationTrigger.TASK_CANCELLED);
+        }
+        
         return taskRepository.save(task);
     }
 
@@ -171,10 +198,13 @@ public class AssignmentTaskServiceImpl implements AssignmentTaskService {
         
         task.setStatus(TaskStatus.COMPLETED);
         task.setCompletedTime(LocalDateTime.now());
+        // The courier moves on to the next stop
+        publishDisruption(task.getAssignment(), ReoptimisationTrigger.TASK_COMPLETED);
         
-        // Calculate actual duration if scheduled time exists
-        if (task.getScheduledTime() != null) {
-            int actualMinutes = (int) java.time.Duration.between(task.getScheduledTime(), task.getCompletedTime()).toMinutes();
+        // Calculate actual duration from the start, or the scheduled time if the task was never started
+        LocalDateTime startedAt = task.getStartedAt() != null ? task.getStartedAt() : task.getScheduledTime();
+        if (startedAt != null) {
+            int actualMinutes = (int) java.time.Duration.between(startedAt, task.getCompletedTime()).toMinutes();
             task.setActualDurationMinutes(actualMinutes);
         }
         
@@ -200,6 +230,8 @@ public class AssignmentTaskServiceImpl implements AssignmentTaskService {
         task.setNotes(task.getNotes() != null 
             ? task.getNotes() + "\nFailure reason: " + reason 
             : "Failure reason: " + reason);
+        removeFromRoute(task, false);
+        publishDisruption(task.getAssignment(), ReoptimisationTrigger.TASK_CANCELLED);
         
         return taskRepository.save(task);
     }
@@ -219,8 +251,9 @@ public class AssignmentTaskServiceImpl implements AssignmentTaskService {
             
             taskRepository.deleteById(taskId);
             
-            // Resequence remaining tasks in the assignment
-            resequenceTasksAfterDeletion(task.getAssignment());
+            // Join the deleted task's neighbours and close the gap in the sequence
+            removeFromRoute(task, true);
+            publishDisruption(task.getAssignment(), ReoptimisationTrigger.TASK_CANCELLED);
             
             return true;
         }
@@ -278,18 +311,96 @@ public class AssignmentTaskServiceImpl implements AssignmentTaskService {
     }
     
     /**
-     * Resequences tasks after a task is deleted to maintain sequential order.
+     * Inserts a new task into the assignment's remaining route and shifts the tasks after it.
      * 
-     * @param assignment the assignment containing tasks to resequence
+     * @param assignment the assignment the task is added to
+     * @param task the new task
      */
-    private void resequenceTasksAfterDeletion(Assignment assignment) {
+    private void insertIntoRoute(Assignment assignment, AssignmentTask task) {
         List<AssignmentTask> tasks = taskRepository.findByAssignmentOrderBySequenceNumberAsc(assignment);
+        List<AssignmentTask> route = tasks.stream()
+                .filter(SequenceNumbering::isRouted)
+                .collect(Collectors.toList());
         
-        for (int i = 0; i < tasks.size(); i++) {
-            AssignmentTask task = tasks.get(i);
-            task.setSequence(i + 1);
-            taskRepository.save(task);
+        RouteUpdate update = taskSequencingService.insertTask(assignment, route, task, LocalDateTime.now());
+        applyRoute(tasks, update.getSequence());
+    }
+    
+    /**
+     * Removes a task that was cancelled, failed or deleted from the assignment's remaining route.
+     * 
+     * @param task the task leaving the route
+     * @param deleted whether the task has been deleted, in which case later tasks move up
+     */
+    private void removeFromRoute(AssignmentTask task, boolean deleted) {
+        Assignment assignment = task.getAssignment();
+        List<AssignmentTask> tasks = new ArrayList<>(taskRepository.findByAssignmentOrderBySequenceNumberAsc(assignment));
+        // A cancelled or failed task already carries its new status but was routed until now
+        boolean wasRouted = !deleted || SequenceNumbering.isRouted(task);
+        List<AssignmentTask> route = tasks.stream()
+                .filter(t -> isSameTask(t, task) ? wasRouted : SequenceNumbering.isRouted(t))
+                .collect(Collectors.toList());
+        
+        RouteUpdate update = taskSequencingService.removeTask(assignment, route, task);
+        if (deleted) {
+            tasks.removeIf(t -> isSameTask(t, task));
+        }
+        applyRoute(tasks, update.getSequence());
+    }
+    
+    /**
+     * Renumbers an assignment's tasks so the routed tasks follow the given order, saving only
+     * the tasks whose sequence number changes.
+     * 
+     * @param tasks all tasks of the assignment in their current order
+     * @param route the routed tasks in their new order
+     */
+    private void applyRoute(List<AssignmentTask> tasks, List<AssignmentTask> route) {
+        // New tasks are saved by the caller
+        List<AssignmentTask> changed = SequenceNumbering.renumber(tasks, route).stream()
+                .filter(task -> task.getId() != null)
+                .collect(Collectors.toList());
+        if (!changed.isEmpty()) {
+            taskRepository.saveAll(changed);
+        }
+    }
+    
+    /**
+     * Checks whether a new task is a pickup that should not wait for the rest of the route,
+     * either because its assignment is urgent or because its time window closes soon.
+     * 
+     * @param assignment the assignment the task is added to
+     * @param task the new task
+     * @return true if the task is an urgent pickup
+     */
+    private boolean isUrgentPickup(Assignment assignment, AssignmentTask task) {
+        if (task.getTaskType() != TaskType.PICKUP) {
+            return false;
         }
+        AssignmentPriority priority = assignment.getPriority();
+        if (priority != null && !priority.isLowerThan(AssignmentPriority.URGENT)) {
+            return true;
+        }
+        return task.getEndTimeWindow() != null
+                && task.getEndTimeWindow().isBefore(LocalDateTime.now().plusMinutes(urgentWindowMinutes));
+    }
+    
+    /**
+     * Announces that an in-progress route changed underneath its courier, so it can be
+     * re-optimised once the current transaction commits.
+     * 
+     * @param assignment the affected assignment
+     * @param trigger what changed
+     */
+    private void publishDisruption(Assignment assignment, ReoptimisationTrigger trigger) {
+        if (assignment != null && assignment.getStatus() == AssignmentStatus.IN_PROGRESS) {
+            String courierId = assignment.getCourier() != null ? assignment.getCourier().getId() : null;
+            eventPublisher.publishEvent(new RouteDisruptionEvent(assignment.getAssignmentId(), courierId, trigger));
+        }
+    }
+    
+    private boolean isSameTask(AssignmentTask candidate, AssignmentTask task) {
+        return candidate == task || (task.getId() != null && task.getId().equals(candidate.getId()));
     }
 
     /**
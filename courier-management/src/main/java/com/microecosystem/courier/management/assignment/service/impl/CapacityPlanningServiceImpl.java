@@ -0,0 +1,158 @@
+package com.gogidix.courier.management.assignment.service.impl;
+
+import com.gogidix.courier.management.assignment.capacity.BinPacker;
+import com.gogidix.courier.management.assignment.capacity.PackageMeasures;
+import com.gogidix.courier.management.assignment.capacity.VehicleCapacityProperties;
+import com.gogidix.courier.management.assignment.dto.CapacityLoad;
+import com.gogidix.courier.management.assignment.dto.CapacityPlan;
+import com.gogidix.courier.management.assignment.model.Assignment;
+import com.gogidix.courier.management.assignment.model.AssignmentTask;
+import com.gogidix.courier.management.assignment.repository.AssignmentRepository;
+import com.gogidix.courier.management.assignment.repository.AssignmentTaskRepository;
+import com.gogidix.courier.management.assignment.sequencing.PickupPrecedence;
+import com.gogidix.courier.management.assignment.sequencing.SequenceNumbering;
+import com.gogidix.courier.management.assignment.service.CapacityPlanningService;
+import com.gogidix.courier.management.assignment.service.TaskSequencingService;
+import com.gogidix.courier.management.courier.model.Courier;
+import com.gogidix.courier.management.courier.repository.CourierRepository;
+import com.gogidix.courier.management.exception.ResourceNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of the CapacityPlanningService interface. Each assignment is one packing item
+ * whose load is derived from its tasks' packages; the loads found by {@link BinPacker} are then
+ * handed to the task sequencer, and pickups are kept ahead of their deliveries.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CapacityPlanningServiceImpl implements CapacityPlanningService {
+
+    private final AssignmentRepository assignmentRepository;
+    private final AssignmentTaskRepository taskRepository;
+    private final CourierRepository courierRepository;
+    private final TaskSequencingService taskSequencingService;
+    private final VehicleCapacityProperties capacityProperties;
+
+    @Override
+    @Transactional(readOnly = true)
+    public CapacityPlan planLoads(List<String> assignmentIds, String courierId, String vehicleType) {
+        long start = System.nanoTime();
+        if (courierId != null) {
+            Courier courier = courierRepository.findByCourierId(courierId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Courier not found with ID: " + courierId));
+            vehicleType = courier.getVehicleType();
+        }
+        String resolvedType = capacityProperties.resolveVehicleType(vehicleType);
+        VehicleCapacityProperties.VehicleCapacity capacity = capacityProperties.forVehicleType(vehicleType);
+
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(assignmentIds));
+        Map<String, List<AssignmentTask>> tasksByAssignment = loadRoutedTasks(ids);
+        List<String> items = new ArrayList<>();
+        List<Double> itemWeights = new ArrayList<>();
+        List<Double> itemVolumes = new ArrayList<>();
+        List<String> skipped = new ArrayList<>();
+        List<String> unmeasured = new ArrayList<>();
+        for (String assignmentId : ids) {
+            List<AssignmentTask> tasks = tasksByAssignment.get(assignmentId);
+            if (tasks == null || tasks.isEmpty()) {
+                skipped.add(assignmentId);
+                continue;
+            }
+            OptionalDouble weight = PackageMeasures.orderWeightKg(tasks);
+            OptionalDouble volume = PackageMeasures.orderVolumeLitres(tasks);
+            if (weight.isEmpty() || volume.isEmpty()) {
+                unmeasured.add(assignmentId);
+                continue;
+            }
+            items.add(assignmentId);
+            itemWeights.add(weight.getAsDouble());
+            itemVolumes.add(volume.getAsDouble());
+        }
+
+        double[] weights = itemWeights.stream().mapToDouble(Double::doubleValue).toArray();
+        double[] volumes = itemVolumes.stream().mapToDouble(Double::doubleValue).toArray();
+        BinPacker.Packing packing = BinPacker.pack(weights, volumes, capacity.getMaxWeightKg(),
+                capacity.getMaxVolumeLitres(), capacityProperties.getImprovementPasses(),
+                Duration.ofMillis(capacityProperties.getImprovementTimeBudgetMs()));
+
+        List<List<String>> loadAssignments = new ArrayList<>(packing.getLoadCount());
+        for (int load = 0; load < packing.getLoadCount(); load++) {
+            loadAssignments.add(new ArrayList<>());
+        }
+        List<String> oversized = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            int load = packing.getLoad(i);
+            if (load == BinPacker.OVERSIZED) {
+                oversized.add(items.get(i));
+            } else {
+                loadAssignments.get(load).add(items.get(i));
+            }
+        }
+
+        List<CapacityLoad> loads = new ArrayList<>(packing.getLoadCount());
+        for (int load = 0; load < packing.getLoadCount(); load++) {
+            List<AssignmentTask> tasks = new ArrayList<>();
+            for (String assignmentId : loadAssignments.get(load)) {
+                tasks.addAll(tasksByAssignment.get(assignmentId));
+            }
+            List<AssignmentTask> sequence = PickupPrecedence.enforce(taskSequencingService.determineOptimalSequence(tasks));
+            double weight = packing.getLoadWeight(load);
+            double volume = packing.getLoadVolume(load);
+            loads.add(CapacityLoad.builder()
+                    .assignmentIds(loadAssignments.get(load))
+                    .taskIds(sequence.stream().map(AssignmentTask::getId).collect(Collectors.toList()))
+                    .weightKg(weight)
+                    .volumeLitres(volume)
+                    .utilisation(Math.max(weight / capacity.getMaxWeightKg(), volume / capacity.getMaxVolumeLitres()))
+                    .distanceKm(taskSequencingService.estimateDistance(sequence))
+                    .travelTimeMinutes(taskSequencingService.estimateTravelTime(sequence))
+                    .build());
+        }
+
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        log.info("Packed {} assignments into {} {} loads (lower bound {}, {} unmeasured) in {} ms",
+                items.size(), loads.size(), resolvedType, packing.getLowerBound(), unmeasured.size(), elapsedMs);
+        return CapacityPlan.builder()
+                .vehicleType(resolvedType)
+                .maxWeightKg(capacity.getMaxWeightKg())
+                .maxVolumeLitres(capacity.getMaxVolumeLitres())
+                .loads(loads)
+                .minimumLoads(packing.getLowerBound())
+                .oversizedAssignmentIds(oversized)
+                .skippedAssignmentIds(skipped)
+                .unmeasuredAssignmentIds(unmeasured)
+                .planningTimeMs(elapsedMs)
+                .build();
+    }
+
+    private Map<String, List<AssignmentTask>> loadRoutedTasks(List<String> assignmentIds) {
+        List<Assignment> assignments = assignmentRepository.findByAssignmentIdIn(assignmentIds);
+        Map<String, String> assignmentIdsByEntityId = new HashMap<>();
+        Map<String, List<AssignmentTask>> tasksByAssignment = new HashMap<>();
+        for (Assignment assignment : assignments) {
+            assignmentIdsByEntityId.put(assignment.getId(), assignment.getAssignmentId());
+            tasksByAssignment.put(assignment.getAssignmentId(), new ArrayList<>());
+        }
+        if (!assignments.isEmpty()) {
+            for (AssignmentTask task : taskRepository.findByAssignmentInOrderBySequenceAsc(assignments)) {
+                if (SequenceNumbering.isRouted(task)) {
+                    tasksByAssignment.get(assignmentIdsByEntityId.get(task.getAssignment().getId())).add(task);
+                }
+            }
+        }
+        return tasksByAssignment;
+    }
+}
@@ -1,14 +1,19 @@
 package com.gogidix.courier.management.assignment.service.impl;
 
+import com.gogidix.courier.management.assignment.dto.RouteUpdate;
 import com.gogidix.courier.management.assignment.model.Assignment;
 import com.gogidix.courier.management.assignment.model.AssignmentTask;
 import com.gogidix.courier.management.assignment.model.Location;
 import com.gogidix.courier.management.assignment.model.TaskStatus;
 import com.gogidix.courier.management.assignment.repository.AssignmentTaskRepository;
+import com.gogidix.courier.management.assignment.sequencing.RouteSchedule;
+import com.gogidix.courier.management.assignment.sequencing.TravelSpeeds;
 import com.gogidix.courier.management.assignment.service.TaskSequencingService;
 import com.gogidix.courier.management.exception.BusinessException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,7 +24,10 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
 /**
@@ -33,13 +41,31 @@ import java.util.stream.Collectors;
 public class NearestNeighborTaskSequencingServiceImpl implements TaskSequencingService {
 
     private final AssignmentTaskRepository taskRepository;
+
+    // Learned per zone and hour of the week; see TravelSpeedProfiles
+    private final TravelSpeeds travelSpeeds;
     
-    private static final double AVERAGE_SPEED_KM_PER_HOUR = 30.0; // Average urban travel speed
     private static final double EARTH_RADIUS_KM = 6371.0; // Earth radius in kilometers
     
     // Average service time in minutes per task
     private static final int AVERAGE_SERVICE_TIME_MINUTES = 10;
 
+    @Value("${assignment.sequencing.drift-threshold:0.15}")
+    private double driftThreshold = 0.15;
+
+    @Value("${assignment.sequencing.max-incremental-changes:25}")
+    private int maxIncrementalChanges = 25;
+
+    @Value("${assignment.sequencing.drift-idle-ms:43200000}")
+    private long driftIdleMs = 43_200_000L;
+
+    @Value("${assignment.sequencing.max-tracked-routes:10000}")
+    private int maxTrackedRoutes = 10_000;
+
+    // Incremental edits per assignment since its route was last fully optimised. Losing an entry
+    // only means the current route becomes the new baseline, so idle routes are simply dropped.
+    private final ConcurrentMap<String, RouteDrift> routeDrift = new ConcurrentHashMap<>();
+
     @Override
     public List<AssignmentTask> determineOptimalSequence(Assignment assignment) {
         if (assignment == null) {
@@ -56,11 +82,17 @@ public class NearestNeighborTaskSequencingServiceImpl implements TaskSequencingS
 
     @Override
     public List<AssignmentTask> determineOptimalSequence(List<AssignmentTask> tasks) {
+        return determineOptimalSequence(tasks, null);
+    }
+
+    @Override
+    public List<AssignmentTask> determineOptimalSequence(List<AssignmentTask> tasks, Duration timeBudget) {
         if (tasks == null || tasks.isEmpty()) {
             return new ArrayList<>();
         }
 
         log.info("Determining optimal sequence for {} tasks", tasks.size());
+        long deadline = timeBudget != null ? System.nanoTime() + timeBudget.toNanos() : 0L;
 
         // Create a copy of the task list to avoid modifying the original
         List<AssignmentTask> remainingTasks = new ArrayList<>(tasks);
@@ -77,6 +109,11 @@ public class NearestNeighborTaskSequencingServiceImpl implements TaskSequencingS
 
         // Continue finding the nearest unvisited task
         while (!remainingTasks.isEmpty()) {
+            if (timeBudget != null && System.nanoTime() - deadline > 0) {
+                log.warn("Sequencing time budget exhausted, keeping current order for {} tasks", remainingTasks.size());
+                orderedTasks.addAll(remainingTasks);
+                break;
+            }
             final AssignmentTask finalCurrentTask = currentTask;
             
             // Find the nearest task considering time windows
@@ -112,6 +149,7 @@ public class NearestNeighborTaskSequencingServiceImpl implements TaskSequencingS
             AssignmentTask task = taskSequence.get(i);
             task.setSequenceNumber(i + 1);
         }
+        resetDrift(assignment, taskSequence);
 
         return assignment;
     }
@@ -157,26 +195,31 @@ public class NearestNeighborTaskSequencingServiceImpl implements TaskSequencingS
             return 0;
         }
 
-        double totalDistanceKm = 0.0;
+        int travelTimeMinutes = 0;
+        LocalDateTime currentTime = LocalDateTime.now();
 
-        // Calculate total distance between sequential tasks
+        // Convert each leg to time using the expected speed where and when it starts
         for (int i = 0; i < tasks.size() - 1; i++) {
             AssignmentTask currentTask = tasks.get(i);
             AssignmentTask nextTask = tasks.get(i + 1);
+            if (currentTask.getEstimatedDuration() != null) {
+                currentTime = currentTime.plusMinutes(currentTask.getEstimatedDuration());
+            }
 
             if (currentTask.getLocation() != null && nextTask.getLocation() != null) {
-                totalDistanceKm += calculateHaversineDistance(
+                double distanceKm = calculateHaversineDistance(
                         currentTask.getLocation().getLatitude(),
                         currentTask.getLocation().getLongitude(),
                         nextTask.getLocation().getLatitude(),
                         nextTask.getLocation().getLongitude()
                 );
+                int legMinutes = travelSpeeds.travelMinutes(currentTask.getLocation().getLatitude(),
+                        currentTask.getLocation().getLongitude(), currentTime, distanceKm);
+                travelTimeMinutes += legMinutes;
+                currentTime = currentTime.plusMinutes(legMinutes);
             }
         }
 
-        // Convert distance to time in minutes using average speed
-        int travelTimeMinutes = (int) Math.ceil((totalDistanceKm / AVERAGE_SPEED_KM_PER_HOUR) * 60);
-
         // Add the estimated duration for each task
         int taskDurationMinutes = tasks.stream()
                 .mapToInt(task -> task.getEstimatedDuration() != null ? task.getEstimatedDuration() : 0)
@@ -232,7 +275,8 @@ public class NearestNeighborTaskSequencingServiceImpl implements TaskSequencingS
                             task.getLocation().getLatitude(),
                             task.getLocation().getLongitude()
                     );
-                    travelTimeMinutes = (int) Math.ceil((distanceKm / AVERAGE_SPEED_KM_PER_HOUR) * 60);
+                    travelTimeMinutes = travelSpeeds.travelMinutes(previousTask.getLocation().getLatitude(),
+                            previousTask.getLocation().getLongitude(), currentTime, distanceKm);
                 }
                 
                 // Add travel time to current time
@@ -257,6 +301,155 @@ public class NearestNeighborTaskSequencingServiceImpl implements TaskSequencingS
         return true;
     }
 
+    @Override
+    public RouteUpdate insertTask(Assignment assignment, List<AssignmentTask> taskSequence, AssignmentTask task,
+                                  LocalDateTime startTime) {
+        if (assignment == null || task == null) {
+            throw new BusinessException("Assignment and task cannot be null");
+        }
+
+        RouteSchedule schedule = RouteSchedule.of(taskSequence, startTime, travelSpeeds);
+        // Stops already being worked on stay at the head of the route
+        int fromPosition = 0;
+        while (fromPosition < taskSequence.size()
+                && taskSequence.get(fromPosition).getStatus() == TaskStatus.IN_PROGRESS) {
+            fromPosition++;
+        }
+        RouteSchedule.Insertion insertion = schedule.findCheapestInsertion(task, fromPosition);
+
+        List<AssignmentTask> sequence = new ArrayList<>(taskSequence);
+        sequence.add(insertion.getPosition(), task);
+
+        // A late route that could have stayed on time is worth a full pass straight away
+        boolean windowsBroken = schedule.isFeasible() && !insertion.isWithinTimeWindows();
+        if (recordDrift(assignment, schedule, insertion.getDistanceDeltaKm()) || windowsBroken) {
+            return reoptimise(assignment, sequence, insertion.getDistanceDeltaKm());
+        }
+
+        log.debug("Inserted task into assignment {} at position {} (+{} km)",
+                assignment.getId(), insertion.getPosition(), insertion.getDistanceDeltaKm());
+        return RouteUpdate.builder()
+                .sequence(sequence)
+                .position(insertion.getPosition())
+                .distanceDeltaKm(insertion.getDistanceDeltaKm())
+                .reoptimised(false)
+                .build();
+    }
+
+    @Override
+    public RouteUpdate removeTask(Assignment assignment, List<AssignmentTask> taskSequence, AssignmentTask task) {
+        if (assignment == null || task == null) {
+            throw new BusinessException("Assignment and task cannot be null");
+        }
+
+        int index = indexOf(taskSequence, task);
+        if (index < 0) {
+            return RouteUpdate.builder()
+                    .sequence(new ArrayList<>(taskSequence))
+                    .position(-1)
+                    .build();
+        }
+
+        RouteSchedule schedule = RouteSchedule.of(taskSequence, LocalDateTime.now(), travelSpeeds);
+        double delta = schedule.removalDeltaKm(index);
+
+        List<AssignmentTask> sequence = new ArrayList<>(taskSequence);
+        sequence.remove(index);
+        if (sequence.isEmpty()) {
+            routeDrift.remove(assignment.getId());
+        } else if (recordDrift(assignment, schedule, delta)) {
+            return reoptimise(assignment, sequence, delta);
+        }
+
+        return RouteUpdate.builder()
+                .sequence(sequence)
+                .position(-1)
+                .distanceDeltaKm(delta)
+                .reoptimised(false)
+                .build();
+    }
+
+    /**
+     * Adds an incremental edit to the assignment's drift.
+     *
+     * @param assignment the assignment
+     * @param schedule the route schedule before the edit
+     * @param distanceDeltaKm the distance change caused by the edit
+     * @return true if the route should be re-optimised from scratch
+     */
+    private boolean recordDrift(Assignment assignment, RouteSchedule schedule, double distanceDeltaKm) {
+        // Without a baseline (e.g. after a restart) the current route becomes the baseline
+        RouteDrift drift = routeDrift.computeIfAbsent(assignment.getId(),
+                id -> new RouteDrift(schedule.getTotalDistanceKm()));
+        if (routeDrift.size() > maxTrackedRoutes) {
+            evictLeastRecentlyEdited();
+        }
+        synchronized (drift) {
+            drift.touchedAtMillis = System.currentTimeMillis();
+            drift.changes++;
+            drift.distanceKm += Math.abs(distanceDeltaKm);
+            // Floor the baseline so edits to a one-stop route do not trigger a full pass every time
+            double allowedKm = driftThreshold * Math.max(drift.baselineKm, 1.0);
+            return drift.changes >= maxIncrementalChanges || drift.distanceKm > allowedKm;
+        }
+    }
+
+    private RouteUpdate reoptimise(Assignment assignment, List<AssignmentTask> tasks, double distanceDeltaKm) {
+        log.info("Route drift for assignment {} exceeded threshold, re-optimising {} tasks",
+                assignment.getId(), tasks.size());
+        List<AssignmentTask> sequence = determineOptimalSequence(tasks);
+        resetDrift(assignment, sequence);
+        return RouteUpdate.builder()
+                .sequence(sequence)
+                .position(-1)
+                .distanceDeltaKm(distanceDeltaKm)
+                .reoptimised(true)
+                .build();
+    }
+
+    private void resetDrift(Assignment assignment, List<AssignmentTask> sequence) {
+        if (assignment.getId() != null) {
+            routeDrift.put(assignment.getId(), new RouteDrift(estimateDistance(sequence)));
+        }
+    }
+
+    /**
+     * Drops the drift of routes that have not been edited for a while, such as those of
+     * completed or cancelled assignments.
+     */
+    @Scheduled(fixedDelayString = "${assignment.sequencing.drift-sweep-interval-ms:600000}")
+    public void evictIdleRouteDrift() {
+        long cutoff = System.currentTimeMillis() - driftIdleMs;
+        int before = routeDrift.size();
+        routeDrift.values().removeIf(drift -> drift.touchedAtMillis < cutoff);
+        log.debug("Evicted {} idle route drift entries", before - routeDrift.size());
+    }
+
+    /**
+     * Trims the drift map back to its bound by dropping the least recently edited routes.
+     */
+    private void evictLeastRecentlyEdited() {
+        List<Map.Entry<String, RouteDrift>> entries = new ArrayList<>(routeDrift.entrySet());
+        int excess = entries.size() - maxTrackedRoutes;
+        if (excess <= 0) {
+            return;
+        }
+        entries.sort(Comparator.comparingLong(entry -> entry.getValue().touchedAtMillis));
+        for (int i = 0; i < excess; i++) {
+            routeDrift.remove(entries.get(i).getKey(), entries.get(i).getValue());
+        }
+    }
+
+    private int indexOf(List<AssignmentTask> tasks, AssignmentTask task) {
+        for (int i = 0; i < tasks.size(); i++) {
+            AssignmentTask candidate = tasks.get(i);
+            if (candidate == task || (task.getId() != null && task.getId().equals(candidate.getId()))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     /**
      * Finds the nearest task from a list of tasks, considering time window constraints.
      *
@@ -294,7 +487,8 @@ public class NearestNeighborTaskSequencingServiceImpl implements TaskSequencingS
                                     task.getLocation().getLatitude(),
                                     task.getLocation().getLongitude()
                             );
-                            travelTimeMinutes = (int) Math.ceil((distanceKm / AVERAGE_SPEED_KM_PER_HOUR) * 60);
+                            travelTimeMinutes = travelSpeeds.travelMinutes(currentTask.getLocation().getLatitude(),
+                                    currentTask.getLocation().getLongitude(), finalCurrentTime, distanceKm);
                         }
                         
                         // Calculate arrival time at this task
@@ -374,4 +568,19 @@ public class NearestNeighborTaskSequencingServiceImpl implements TaskSequencingS
 
         return EARTH_RADIUS_KM * c;
     }
+
+    /**
+     * Incremental edits applied to a route since its last full optimisation.
+     */
+    private static final class RouteDrift {
+
+        private final double baselineKm;
+        private int changes;
+        private double distanceKm;
+        private volatile long touchedAtMillis = System.currentTimeMillis();
+
+        private RouteDrift(double baselineKm) {
+            this.baselineKm = baselineKm;
+        }
+    }
 } 
\ No newline at end of file
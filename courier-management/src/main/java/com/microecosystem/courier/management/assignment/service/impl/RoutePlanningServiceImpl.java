@@ -0,0 +1,246 @@
+package com.gogidix.courier.management.assignment.service.impl;
+
+import com.gogidix.courier.management.assignment.dto.RoutePlanResult;
+import com.gogidix.courier.management.assignment.model.Assignment;
+import com.gogidix.courier.management.assignment.model.AssignmentTask;
+import com.gogidix.courier.management.assignment.repository.AssignmentRepository;
+import com.gogidix.courier.management.assignment.repository.AssignmentTaskRepository;
+import com.gogidix.courier.management.assignment.sequencing.SequenceNumbering;
+import com.gogidix.courier.management.assignment.service.RoutePlanningService;
+import com.gogidix.courier.management.assignment.service.TaskSequencingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of the RoutePlanningService interface. Tasks are loaded in one query up front,
+ * each assignment is sequenced on the dedicated route planning pool, and the resulting sequence
+ * numbers are written back in one transaction. Assignments whose tasks changed while they were
+ * being planned are not written; their results are marked as failed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RoutePlanningServiceImpl implements RoutePlanningService {
+
+    private static final int MAX_PERSIST_ATTEMPTS = 3;
+    private static final String CONFLICT_ERROR = "Tasks changed while the route was being planned; it was not stored";
+
+    private final AssignmentRepository assignmentRepository;
+    private final AssignmentTaskRepository taskRepository;
+    private final TaskSequencingService taskSequencingService;
+    private final TransactionTemplate transactionTemplate;
+    private final ForkJoinPool routePlanningPool;
+
+    @Value("${assignment.planning.time-budget-ms:2000}")
+    private long defaultTimeBudgetMs = 2000;
+
+    @Override
+    public CompletableFuture<List<RoutePlanResult>> planRoutes(List<String> assignmentIds, Duration timeBudget,
+                                                               Consumer<RoutePlanResult> listener) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(assignmentIds));
+        Duration budget = timeBudget != null ? timeBudget : Duration.ofMillis(defaultTimeBudgetMs);
+        log.info("Planning routes for {} assignments on {} threads", ids.size(), routePlanningPool.getParallelism());
+
+        // Workers only see detached tasks, so nothing lazy is touched outside a transaction
+        Map<String, List<AssignmentTask>> tasksByAssignment = loadTasks(ids);
+
+        List<CompletableFuture<PlannedRoute>> futures = new ArrayList<>(ids.size());
+        for (String assignmentId : ids) {
+            List<AssignmentTask> tasks = tasksByAssignment.get(assignmentId);
+            futures.add(CompletableFuture
+                    .supplyAsync(() -> plan(assignmentId, tasks, budget), routePlanningPool)
+                    .whenComplete((planned, error) -> {
+                        if (planned != null) {
+                            notify(listener, planned.result);
+                        }
+                    }));
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(done -> {
+                    List<PlannedRoute> planned = futures.stream()
+                            .map(CompletableFuture::join)
+                            .collect(Collectors.toList());
+                    persist(planned);
+                    return planned.stream().map(route -> route.result).collect(Collectors.toList());
+                });
+    }
+
+    private Map<String, List<AssignmentTask>> loadTasks(List<String> assignmentIds) {
+        return transactionTemplate.execute(status -> {
+            List<Assignment> assignments = assignmentRepository.findByAssignmentIdIn(assignmentIds);
+            Map<String, String> assignmentIdsByEntityId = new HashMap<>();
+            Map<String, List<AssignmentTask>> tasksByAssignment = new HashMap<>();
+            for (Assignment assignment : assignments) {
+                assignmentIdsByEntityId.put(assignment.getId(), assignment.getAssignmentId());
+                tasksByAssignment.put(assignment.getAssignmentId(), new ArrayList<>());
+            }
+            if (!assignments.isEmpty()) {
+                for (AssignmentTask task : taskRepository.findByAssignmentInOrderBySequenceAsc(assignments)) {
+                    tasksByAssignment.get(assignmentIdsByEntityId.get(task.getAssignment().getId())).add(task);
+                }
+            }
+            return tasksByAssignment;
+        });
+    }
+
+    private PlannedRoute plan(String assignmentId, List<AssignmentTask> tasks, Duration budget) {
+        if (tasks == null) {
+            return PlannedRoute.failed(assignmentId, "Assignment not found with assignmentId: " + assignmentId);
+        }
+        try {
+            long start = System.nanoTime();
+            List<AssignmentTask> route = tasks.stream()
+                    .filter(SequenceNumbering::isRouted)
+                    .collect(Collectors.toList());
+            List<AssignmentTask> sequence = taskSequencingService.determineOptimalSequence(route, budget);
+            long elapsedNanos = System.nanoTime() - start;
+
+            RoutePlanResult result = RoutePlanResult.builder()
+                    .assignmentId(assignmentId)
+                    .success(true)
+                    .taskIds(sequence.stream().map(AssignmentTask::getId).collect(Collectors.toList()))
+                    .distanceKm(taskSequencingService.estimateDistance(sequence))
+                    .travelTimeMinutes(taskSequencingService.estimateTravelTime(sequence))
+                    .budgetExceeded(elapsedNanos > budget.toNanos())
+                    .planningTimeMs(Duration.ofNanos(elapsedNanos).toMillis())
+                    .build();
+            return new PlannedRoute(result, tasks, sequence);
+        } catch (RuntimeException e) {
+            log.warn("Failed to plan route for assignment {}: {}", assignmentId, e.getMessage());
+            return PlannedRoute.failed(assignmentId, e.getMessage());
+        }
+    }
+
+    private void persist(List<PlannedRoute> planned) {
+        List<PlannedRoute> routes = new ArrayList<>();
+        for (PlannedRoute route : planned) {
+            if (route.result.isSuccess() && !route.tasks.isEmpty()) {
+                // Snapshot versions first: renumbering changes the detached copies
+                route.versions = versionsOf(route.tasks);
+                for (AssignmentTask task : SequenceNumbering.renumber(route.tasks, route.sequence)) {
+                    route.sequences.put(task.getId(), task.getSequence());
+                }
+                routes.add(route);
+            }
+        }
+        if (routes.isEmpty()) {
+            return;
+        }
+
+        // A task written between the version check and the flush fails the whole batch; the
+        // next attempt sees its new version and leaves that assignment out
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Integer stored = transactionTemplate.execute(status -> storeSequences(routes));
+                log.info("Stored {} resequenced tasks across {} assignments", stored, routes.size());
+                return;
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt == MAX_PERSIST_ATTEMPTS) {
+                    log.warn("Giving up storing {} planned routes after repeated concurrent task updates", routes.size());
+                    routes.forEach(PlannedRoute::markConflict);
+                    return;
+                }
+                log.debug("Concurrent task update while storing planned routes, retrying", e);
+            }
+        }
+    }
+
+    /**
+     * Writes the planned sequence numbers of every route whose tasks are unchanged since they
+     * were loaded. One read and one flush for the whole batch; updates go out as JDBC batches.
+     *
+     * @param routes the successfully planned routes
+     * @return the number of tasks written
+     */
+    private int storeSequences(List<PlannedRoute> routes) {
+        List<Assignment> assignments = routes.stream()
+                .map(route -> route.tasks.get(0).getAssignment())
+                .collect(Collectors.toList());
+        Map<String, Map<String, AssignmentTask>> currentByAssignment = new HashMap<>();
+        for (AssignmentTask task : taskRepository.findByAssignmentInOrderBySequenceAsc(assignments)) {
+            currentByAssignment.computeIfAbsent(task.getAssignment().getId(), id -> new HashMap<>())
+                    .put(task.getId(), task);
+        }
+
+        List<AssignmentTask> changed = new ArrayList<>();
+        for (PlannedRoute route : routes) {
+            Map<String, AssignmentTask> current = currentByAssignment.getOrDefault(
+                    route.tasks.get(0).getAssignment().getId(), Map.of());
+            if (!route.versions.equals(versionsOf(current.values()))) {
+                log.info("Tasks of assignment {} changed during planning, not storing its route",
+                        route.result.getAssignmentId());
+                route.markConflict();
+                continue;
+            }
+            route.sequences.forEach((taskId, sequence) -> {
+                AssignmentTask task = current.get(taskId);
+                task.setSequence(sequence);
+                changed.add(task);
+            });
+        }
+        taskRepository.saveAll(changed);
+        return changed.size();
+    }
+
+    private static Map<String, Long> versionsOf(Collection<AssignmentTask> tasks) {
+        Map<String, Long> versions = new HashMap<>();
+        for (AssignmentTask task : tasks) {
+            versions.put(task.getId(), task.getVersion());
+        }
+        return versions;
+    }
+
+    private void notify(Consumer<RoutePlanResult> listener, RoutePlanResult result) {
+        try {
+            listener.accept(result);
+        } catch (RuntimeException e) {
+            log.debug("Route plan listener failed for assignment {}", result.getAssignmentId(), e);
+        }
+    }
+
+    private static final class PlannedRoute {
+
+        private final RoutePlanResult result;
+        private final List<AssignmentTask> tasks;
+        private final List<AssignmentTask> sequence;
+        private final Map<String, Integer> sequences = new HashMap<>();
+        private Map<String, Long> versions;
+
+        private PlannedRoute(RoutePlanResult result, List<AssignmentTask> tasks, List<AssignmentTask> sequence) {
+            this.result = result;
+            this.tasks = tasks;
+            this.sequence = sequence;
+        }
+
+        private static PlannedRoute failed(String assignmentId, String error) {
+            RoutePlanResult result = RoutePlanResult.builder()
+                    .assignmentId(assignmentId)
+                    .success(false)
+                    .error(error)
+                    .build();
+            return new PlannedRoute(result, List.of(), List.of());
+        }
+
+        private void markConflict() {
+            result.setSuccess(false);
+            result.setError(CONFLICT_ERROR);
+        }
+    }
+}
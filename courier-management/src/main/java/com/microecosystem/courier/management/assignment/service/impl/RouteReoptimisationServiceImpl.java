@@ -0,0 +1,466 @@
+package com.gogidix.courier.management.assignment.service.impl;
+
+import com.gogidix.courier.management.assignment.dto.ReoptimisationResult;
+import com.gogidix.courier.management.assignment.event.ReoptimisationTrigger;
+import com.gogidix.courier.management.assignment.event.RouteDisruptionEvent;
+import com.gogidix.courier.management.assignment.event.RouteResequencedEvent;
+import com.gogidix.courier.management.assignment.model.Assignment;
+import com.gogidix.courier.management.assignment.model.AssignmentStatus;
+import com.gogidix.courier.management.assignment.model.AssignmentTask;
+import com.gogidix.courier.management.assignment.model.TaskStatus;
+import com.gogidix.courier.management.assignment.repository.AssignmentRepository;
+import com.gogidix.courier.management.assignment.repository.AssignmentTaskRepository;
+import com.gogidix.courier.management.assignment.sequencing.RouteImprover;
+import com.gogidix.courier.management.assignment.sequencing.RouteSchedule;
+import com.gogidix.courier.management.assignment.sequencing.SequenceNumbering;
+import com.gogidix.courier.management.assignment.sequencing.TravelSpeeds;
+import com.gogidix.courier.management.assignment.sequencing.TravelSpeedsUpdatedEvent;
+import com.gogidix.courier.management.assignment.service.RouteReoptimisationService;
+import com.gogidix.courier.management.courier.index.CourierPositionChangedEvent;
+import com.gogidix.courier.management.courier.model.Courier;
+import com.gogidix.courier.management.exception.ResourceNotFoundException;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of the RouteReoptimisationService interface. Disruptions are debounced per
+ * assignment on a single timer thread; each run is a short, time-bounded local search on the
+ * shared route planning pool, so thousands of live routes need no thread of their own. Courier
+ * drift is detected from position updates against a small in-memory snapshot of each route's
+ * next stop.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RouteReoptimisationServiceImpl implements RouteReoptimisationService {
+
+    private final AssignmentRepository assignmentRepository;
+    private final AssignmentTaskRepository taskRepository;
+    private final TravelSpeeds travelSpeeds;
+    private final TransactionTemplate transactionTemplate;
+    private final ForkJoinPool routePlanningPool;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ScheduledThreadPoolExecutor timer = createTimer();
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+    private final Map<String, RouteHead> routeHeads = new ConcurrentHashMap<>();
+
+    @Value("${assignment.reoptimisation.debounce-ms:5000}")
+    private long debounceMs = 5000;
+
+    @Value("${assignment.reoptimisation.max-wait-ms:30000}")
+    private long maxWaitMs = 30000;
+
+    @Value("${assignment.reoptimisation.time-budget-ms:200}")
+    private long timeBudgetMs = 200;
+
+    @Value("${assignment.reoptimisation.min-improvement-ratio:0.05}")
+    private double minImprovementRatio = 0.05;
+
+    @Value("${assignment.reoptimisation.min-improvement-km:0.3}")
+    private double minImprovementKm = 0.3;
+
+    @Value("${assignment.reoptimisation.drift-km:0.5}")
+    private double driftKm = 0.5;
+
+    @Value("${assignment.reoptimisation.idle-recheck-ms:300000}")
+    private long idleRecheckMs = 300000;
+
+    @Override
+    public void requestReoptimisation(String assignmentId, ReoptimisationTrigger trigger) {
+        pending.compute(assignmentId, (id, existing) -> {
+            long now = System.nanoTime();
+            long firstRequest = now;
+            if (existing != null) {
+                existing.timer.cancel(false);
+                firstRequest = existing.firstRequestNanos;
+            }
+            // Each request pushes the run back, but never past the maximum wait since the first one
+            long waitedMs = TimeUnit.NANOSECONDS.toMillis(now - firstRequest);
+            long delayMs = Math.max(0, Math.min(debounceMs, maxWaitMs - waitedMs));
+            ScheduledFuture<?> scheduled = timer.schedule(() -> dispatch(id), delayMs, TimeUnit.MILLISECONDS);
+            return new Pending(firstRequest, trigger, scheduled);
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onRouteDisruption(RouteDisruptionEvent event) {
+        if (event.getTrigger() == ReoptimisationTrigger.TASK_COMPLETED) {
+            holdRouteHead(event.getCourierId(), event.getAssignmentId());
+        }
+        requestReoptimisation(event.getAssignmentId(), event.getTrigger());
+    }
+
+    @EventListener
+    public void onTravelSpeedsUpdated(TravelSpeedsUpdatedEvent event) {
+        List<String> assignmentIds = transactionTemplate.execute(status ->
+                assignmentRepository.findByStatus(AssignmentStatus.IN_PROGRESS).stream()
+                        .map(Assignment::getAssignmentId)
+                        .collect(Collectors.toList()));
+        log.info("Travel speeds updated from {} legs, re-checking {} in-progress routes",
+                event.getLegsLearned(), assignmentIds.size());
+        for (String assignmentId : assignmentIds) {
+            requestReoptimisation(assignmentId, ReoptimisationTrigger.TRAFFIC_UPDATE);
+        }
+    }
+
+    @EventListener
+    public void onCourierPositionChanged(CourierPositionChangedEvent event) {
+        String courierId = event.getCourierId();
+        RouteHead head = routeHeads.get(courierId);
+        if (head == null || (head.isIdle() && System.nanoTime() - head.recheckAtNanos > 0)) {
+            // The idle marker doubles as an in-flight guard, so one position burst causes one lookup
+            RouteHead marker = RouteHead.idle(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(idleRecheckMs));
+            boolean claimed = head == null
+                    ? routeHeads.putIfAbsent(courierId, marker) == null
+                    : routeHeads.replace(courierId, head, marker);
+            if (claimed) {
+                routePlanningPool.execute(() -> lookUpRoute(courierId));
+            }
+            return;
+        }
+        if (head.isIdle()) {
+            return;
+        }
+        double km = RouteSchedule.distanceKm(event.getLatitude(), event.getLongitude(),
+                head.nextLatitude, head.nextLongitude);
+        if (km > head.closestKm + driftKm) {
+            // Reset the reference so continued drift does not keep re-arming the debounce
+            head.closestKm = km;
+            requestReoptimisation(head.assignmentId, ReoptimisationTrigger.POSITION_DRIFT);
+        } else if (km < head.closestKm) {
+            head.closestKm = km;
+        }
+    }
+
+    @Override
+    public ReoptimisationResult reoptimise(String assignmentId, ReoptimisationTrigger trigger) {
+        RouteSnapshot snapshot = transactionTemplate.execute(status -> {
+            Assignment assignment = assignmentRepository.findByAssignmentId(assignmentId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Assignment not found with assignmentId: " + assignmentId));
+            return RouteSnapshot.of(assignment, taskRepository.findByAssignmentInOrderBySequenceAsc(List.of(assignment)));
+        });
+
+        if (snapshot.status != AssignmentStatus.IN_PROGRESS) {
+            forgetRouteHead(snapshot.courierId, assignmentId);
+            return skipped(assignmentId, trigger, snapshot.route, 0.0, "Assignment is " + snapshot.status);
+        }
+
+        // Stops the courier has already started keep their place at the head of the route
+        int pinned = 0;
+        for (int i = 0; i < snapshot.route.size(); i++) {
+            if (snapshot.route.get(i).getStatus() != TaskStatus.PENDING) {
+                pinned = i + 1;
+            }
+        }
+        double originLatitude = snapshot.courierLatitude;
+        double originLongitude = snapshot.courierLongitude;
+        if (Double.isNaN(originLatitude) || Double.isNaN(originLongitude)) {
+            // Without a position the route is improved from its first stop onwards
+            pinned = Math.max(pinned, 1);
+            if (!snapshot.route.isEmpty()) {
+                AssignmentTask first = snapshot.route.get(0);
+                originLatitude = first.getLatitude() != null ? first.getLatitude() : Double.NaN;
+                originLongitude = first.getLongitude() != null ? first.getLongitude() : Double.NaN;
+            }
+        }
+        if (snapshot.route.size() - pinned < 2) {
+            updateRouteHead(snapshot.courierId, assignmentId, snapshot.route, snapshot);
+            return skipped(assignmentId, trigger, snapshot.route, 0.0, "Nothing left to reorder");
+        }
+
+        RouteImprover.Result result = RouteImprover.improve(originLatitude, originLongitude, snapshot.route, pinned,
+                LocalDateTime.now(), travelSpeeds, Duration.ofMillis(timeBudgetMs));
+        double savedKm = result.getDistanceBeforeKm() - result.getDistanceAfterKm();
+        if (savedKm < minImprovementKm || savedKm < result.getDistanceBeforeKm() * minImprovementRatio) {
+            updateRouteHead(snapshot.courierId, assignmentId, snapshot.route, snapshot);
+            log.debug("Route of assignment {} saves only {} km after {}, keeping it", assignmentId, savedKm, trigger);
+            return skipped(assignmentId, trigger, snapshot.route, result.getDistanceBeforeKm(),
+                    "Improvement below threshold");
+        }
+
+        if (!persist(snapshot, result.getSequence())) {
+            return skipped(assignmentId, trigger, snapshot.route, result.getDistanceBeforeKm(),
+                    "Route changed while it was being re-optimised");
+        }
+        updateRouteHead(snapshot.courierId, assignmentId, result.getSequence(), snapshot);
+
+        List<String> taskIds = taskIds(result.getSequence());
+        log.info("Re-optimised route of assignment {} after {}: {} km -> {} km{}", assignmentId, trigger,
+                result.getDistanceBeforeKm(), result.getDistanceAfterKm(),
+                result.isBudgetExceeded() ? " (time budget reached)" : "");
+        eventPublisher.publishEvent(new RouteResequencedEvent(assignmentId, snapshot.courierId, taskIds, trigger,
+                savedKm));
+        return ReoptimisationResult.builder()
+                .assignmentId(assignmentId)
+                .trigger(trigger)
+                .applied(true)
+                .distanceBeforeKm(result.getDistanceBeforeKm())
+                .distanceAfterKm(result.getDistanceAfterKm())
+                .taskIds(taskIds)
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private void dispatch(String assignmentId) {
+        Pending request = pending.remove(assignmentId);
+        if (request == null) {
+            return;
+        }
+        routePlanningPool.execute(() -> {
+            if (!running.add(assignmentId)) {
+                // A run for this route is still going; look again once it has settled
+                requestReoptimisation(assignmentId, request.trigger);
+                return;
+            }
+            try {
+                reoptimise(assignmentId, request.trigger);
+            } catch (RuntimeException e) {
+                log.warn("Failed to re-optimise route of assignment {}: {}", assignmentId, e.getMessage());
+            } finally {
+                running.remove(assignmentId);
+            }
+        });
+    }
+
+    /**
+     * Stores the new order, unless any task of the route was changed by someone else since it
+     * was read. A task written between the version check and the flush fails the store too.
+     *
+     * @return true if the new order was stored
+     */
+    private boolean persist(RouteSnapshot snapshot, List<AssignmentTask> sequence) {
+        try {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                Assignment assignment = assignmentRepository.findByAssignmentId(snapshot.assignmentId).orElse(null);
+                if (assignment == null || assignment.getStatus() != AssignmentStatus.IN_PROGRESS) {
+                    return false;
+                }
+                List<AssignmentTask> tasks = taskRepository.findByAssignmentInOrderBySequenceAsc(List.of(assignment));
+                if (!versionsOf(tasks).equals(snapshot.versions)) {
+                    return false;
+                }
+                Map<String, AssignmentTask> managed = tasks.stream()
+                        .collect(Collectors.toMap(AssignmentTask::getId, Function.identity()));
+                List<AssignmentTask> reordered = sequence.stream()
+                        .map(task -> managed.get(task.getId()))
+                        .collect(Collectors.toList());
+                List<AssignmentTask> changed = SequenceNumbering.renumber(tasks, reordered);
+                if (!changed.isEmpty()) {
+                    taskRepository.saveAll(changed);
+                }
+                return true;
+            }));
+        } catch (OptimisticLockingFailureException e) {
+            log.debug("Concurrent task update while storing route of assignment {}", snapshot.assignmentId, e);
+            return false;
+        }
+    }
+
+    private void lookUpRoute(String courierId) {
+        try {
+            List<String> assignmentIds = transactionTemplate.execute(status ->
+                    assignmentRepository.findByCourier_IdAndStatus(courierId, AssignmentStatus.IN_PROGRESS).stream()
+                            .map(Assignment::getAssignmentId)
+                            .collect(Collectors.toList()));
+            // The run records the route's next stop, which arms drift detection for the courier
+            for (String assignmentId : assignmentIds) {
+                requestReoptimisation(assignmentId, ReoptimisationTrigger.POSITION_DRIFT);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to look up the route of courier {}: {}", courierId, e.getMessage());
+        }
+    }
+
+    private void updateRouteHead(String courierId, String assignmentId, List<AssignmentTask> route,
+                                 RouteSnapshot snapshot) {
+        if (courierId == null) {
+            return;
+        }
+        AssignmentTask next = route.stream()
+                .filter(task -> task.getLatitude() != null && task.getLongitude() != null)
+                .findFirst()
+                .orElse(null);
+        if (next == null) {
+            forgetRouteHead(courierId, assignmentId);
+            return;
+        }
+        double closestKm = Double.isNaN(snapshot.courierLatitude) || Double.isNaN(snapshot.courierLongitude)
+                ? Double.MAX_VALUE
+                : RouteSchedule.distanceKm(snapshot.courierLatitude, snapshot.courierLongitude,
+                        next.getLatitude(), next.getLongitude());
+        routeHeads.put(courierId, new RouteHead(assignmentId, next.getLatitude(), next.getLongitude(), closestKm));
+    }
+
+    /**
+     * The courier is leaving a completed stop, so distance from it says nothing about drift. Drift
+     * detection pauses until the run the completion triggers records the new next stop.
+     */
+    private void holdRouteHead(String courierId, String assignmentId) {
+        if (courierId == null) {
+            return;
+        }
+        RouteHead marker = RouteHead.idle(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs + idleRecheckMs));
+        routeHeads.computeIfPresent(courierId, (id, head) -> assignmentId.equals(head.assignmentId) ? marker : head);
+    }
+
+    private void forgetRouteHead(String courierId, String assignmentId) {
+        if (courierId == null) {
+            return;
+        }
+        RouteHead head = routeHeads.get(courierId);
+        if (head != null && assignmentId.equals(head.assignmentId)) {
+            routeHeads.remove(courierId, head);
+        }
+    }
+
+    private static ReoptimisationResult skipped(String assignmentId, ReoptimisationTrigger trigger,
+                                                List<AssignmentTask> route, double distanceKm, String reason) {
+        return ReoptimisationResult.builder()
+                .assignmentId(assignmentId)
+                .trigger(trigger)
+                .applied(false)
+                .distanceBeforeKm(distanceKm)
+                .distanceAfterKm(distanceKm)
+                .taskIds(taskIds(route))
+                .reason(reason)
+                .build();
+    }
+
+    private static List<String> taskIds(List<AssignmentTask> tasks) {
+        return tasks.stream().map(AssignmentTask::getId).collect(Collectors.toList());
+    }
+
+    private static Map<String, Long> versionsOf(List<AssignmentTask> tasks) {
+        Map<String, Long> versions = new HashMap<>();
+        for (AssignmentTask task : tasks) {
+            versions.put(task.getId(), task.getVersion());
+        }
+        return versions;
+    }
+
+    private static ScheduledThreadPoolExecutor createTimer() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "route-reoptimisation-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Debouncing cancels most timers; drop them right away instead of at their deadline
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    private static final class Pending {
+
+        private final long firstRequestNanos;
+        private final ReoptimisationTrigger trigger;
+        private final ScheduledFuture<?> timer;
+
+        private Pending(long firstRequestNanos, ReoptimisationTrigger trigger, ScheduledFuture<?> timer) {
+            this.firstRequestNanos = firstRequestNanos;
+            this.trigger = trigger;
+            this.timer = timer;
+        }
+    }
+
+    /**
+     * Where a courier's route goes next, or a marker that the courier has no route right now.
+     */
+    private static final class RouteHead {
+
+        private final String assignmentId;
+        private final double nextLatitude;
+        private final double nextLongitude;
+        private final long recheckAtNanos;
+        private volatile double closestKm;
+
+        private RouteHead(String assignmentId, double nextLatitude, double nextLongitude, double closestKm) {
+            this(assignmentId, nextLatitude, nextLongitude, closestKm, 0L);
+        }
+
+        private RouteHead(String assignmentId, double nextLatitude, double nextLongitude, double closestKm,
+                          long recheckAtNanos) {
+            this.assignmentId = assignmentId;
+            this.nextLatitude = nextLatitude;
+            this.nextLongitude = nextLongitude;
+            this.closestKm = closestKm;
+            this.recheckAtNanos = recheckAtNanos;
+        }
+
+        private static RouteHead idle(long recheckAtNanos) {
+            return new RouteHead(null, Double.NaN, Double.NaN, Double.MAX_VALUE, recheckAtNanos);
+        }
+
+        private boolean isIdle() {
+            return assignmentId == null;
+        }
+    }
+
+    /**
+     * Detached copy of an assignment's remaining route and its courier's position, with the
+     * versions of all its tasks as they were read.
+     */
+    private static final class RouteSnapshot {
+
+        private final String assignmentId;
+        private final AssignmentStatus status;
+        private final String courierId;
+        private final double courierLatitude;
+        private final double courierLongitude;
+        private final List<AssignmentTask> route;
+        private final Map<String, Long> versions;
+
+        private RouteSnapshot(String assignmentId, AssignmentStatus status, String courierId,
+                              double courierLatitude, double courierLongitude, List<AssignmentTask> route,
+                              Map<String, Long> versions) {
+            this.assignmentId = assignmentId;
+            this.status = status;
+            this.courierId = courierId;
+            this.courierLatitude = courierLatitude;
+            this.courierLongitude = courierLongitude;
+            this.route = route;
+            this.versions = versions;
+        }
+
+        private static RouteSnapshot of(Assignment assignment, List<AssignmentTask> tasks) {
+            Courier courier = assignment.getCourier();
+            double latitude = courier != null && courier.getCurrentLatitude() != null
+                    ? courier.getCurrentLatitude() : Double.NaN;
+            double longitude = courier != null && courier.getCurrentLongitude() != null
+                    ? courier.getCurrentLongitude() : Double.NaN;
+            List<AssignmentTask> route = tasks.stream()
+                    .filter(SequenceNumbering::isRouted)
+                    .collect(Collectors.toList());
+            return new RouteSnapshot(assignment.getAssignmentId(), assignment.getStatus(),
+                    courier != null ? courier.getId() : null, latitude, longitude, route, versionsOf(tasks));
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.gogidix.courier.management.assignment.service.impl;
+
+import com.gogidix.courier.management.assignment.capacity.PackageMeasures;
+import com.gogidix.courier.management.assignment.capacity.VehicleCapacityProperties;
+import com.gogidix.courier.management.assignment.clustering.TaskClusterer;
+import com.gogidix.courier.management.assignment.dto.TaskCluster;
+import com.gogidix.courier.management.assignment.dto.TaskClusterPlan;
+import com.gogidix.courier.management.assignment.dto.TaskClusterRequest;
+import com.gogidix.courier.management.assignment.model.AssignmentTask;
+import com.gogidix.courier.management.assignment.model.TaskStatus;
+import com.gogidix.courier.management.assignment.repository.AssignmentTaskRepository;
+import com.gogidix.courier.management.assignment.sequencing.PickupPrecedence;
+import com.gogidix.courier.management.assignment.service.TaskClusteringService;
+import com.gogidix.courier.management.assignment.service.TaskSequencingService;
+import com.gogidix.courier.management.exception.BusinessException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of the TaskClusteringService interface. Pending tasks inside the requested area
+ * are read page by page and grouped by assignment; each assignment is one item for
+ * {@link TaskClusterer}, weighted by its order load, and the clusters are sequenced in parallel
+ * on the route planning pool.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TaskClusteringServiceImpl implements TaskClusteringService {
+
+    private final AssignmentTaskRepository taskRepository;
+    private final TaskSequencingService taskSequencingService;
+    private final VehicleCapacityProperties capacityProperties;
+    private final TransactionTemplate transactionTemplate;
+    private final ForkJoinPool routePlanningPool;
+
+    @Value("${assignment.clustering.geohash-precision:6}")
+    private int geohashPrecision = 6;
+
+    @Value("${assignment.clustering.max-iterations:10}")
+    private int maxIterations = 10;
+
+    @Value("${assignment.clustering.shift-minutes:480}")
+    private int defaultShiftMinutes = 480;
+
+    @Value("${assignment.clustering.default-service-minutes:5}")
+    private int defaultServiceMinutes = 5;
+
+    @Value("${assignment.clustering.stop-travel-minutes:6}")
+    private int stopTravelMinutes = 6;
+
+    @Value("${assignment.clustering.page-size:5000}")
+    private int pageSize = 5000;
+
+    @Value("${assignment.clustering.max-tasks:100000}")
+    private int maxTasks = 100000;
+
+    @Value("${assignment.planning.time-budget-ms:2000}")
+    private long timeBudgetMs = 2000;
+
+    @Override
+    public TaskClusterPlan clusterPendingTasks(TaskClusterRequest request) {
+        long start = System.nanoTime();
+        String vehicleType = capacityProperties.resolveVehicleType(request.getVehicleType());
+        VehicleCapacityProperties.VehicleCapacity capacity = capacityProperties.forVehicleType(request.getVehicleType());
+        int shiftMinutes = request.getShiftMinutes() != null ? request.getShiftMinutes() : defaultShiftMinutes;
+
+        // Assignments are resolved inside the transaction, the tasks' assignments being lazy
+        List<Order> orders = transactionTemplate.execute(status -> groupByAssignment(loadPendingTasks(request)));
+        List<Order> units = new ArrayList<>(orders.size());
+        List<String> unmeasured = new ArrayList<>();
+        List<Double> unitWeights = new ArrayList<>();
+        List<Double> unitVolumes = new ArrayList<>();
+        for (Order order : orders) {
+            OptionalDouble weight = PackageMeasures.orderWeightKg(order.tasks);
+            OptionalDouble volume = PackageMeasures.orderVolumeLitres(order.tasks);
+            if (weight.isEmpty() || volume.isEmpty()) {
+                unmeasured.add(order.assignmentId);
+                continue;
+            }
+            units.add(order);
+            unitWeights.add(weight.getAsDouble());
+            unitVolumes.add(volume.getAsDouble());
+        }
+
+        int n = units.size();
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        double[] minutes = new double[n];
+        int taskCount = 0;
+        for (int i = 0; i < n; i++) {
+            List<AssignmentTask> tasks = units.get(i).tasks;
+            for (AssignmentTask task : tasks) {
+                latitudes[i] += task.getLatitude() / tasks.size();
+                longitudes[i] += task.getLongitude() / tasks.size();
+                // Time on site plus an allowance for the drive to the stop within a compact zone
+                minutes[i] += serviceMinutes(task) + stopTravelMinutes;
+            }
+            taskCount += tasks.size();
+        }
+        double[] weights = unitWeights.stream().mapToDouble(Double::doubleValue).toArray();
+        double[] volumes = unitVolumes.stream().mapToDouble(Double::doubleValue).toArray();
+        TaskClusterer.Clustering clustering = TaskClusterer.cluster(latitudes, longitudes, weights, volumes, minutes,
+                new TaskClusterer.Limits(capacity.getMaxWeightKg(), capacity.getMaxVolumeLitres(), shiftMinutes),
+                geohashPrecision, maxIterations);
+
+        List<List<Order>> members = new ArrayList<>(clustering.getClusterCount());
+        for (int cluster = 0; cluster < clustering.getClusterCount(); cluster++) {
+            members.add(new ArrayList<>());
+        }
+        List<String> oversized = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            int cluster = clustering.getCluster(i);
+            if (cluster == TaskClusterer.OVERSIZED) {
+                oversized.add(units.get(i).assignmentId);
+            } else {
+                members.get(cluster).add(units.get(i));
+            }
+        }
+
+        Duration budget = Duration.ofMillis(timeBudgetMs);
+        List<CompletableFuture<TaskCluster>> futures = new ArrayList<>(members.size());
+        for (int cluster = 0; cluster < members.size(); cluster++) {
+            int index = cluster;
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> sequence(clustering, index, members.get(index), budget, shiftMinutes), routePlanningPool));
+        }
+        List<TaskCluster> clusters = futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        log.info("Clustered {} pending tasks of {} assignments from {} geohash buckets into {} {} zones in {} iterations, {} ms",
+                taskCount, n, clustering.getBucketCount(), clusters.size(), vehicleType, clustering.getIterations(), elapsedMs);
+        return TaskClusterPlan.builder()
+                .vehicleType(vehicleType)
+                .shiftMinutes(shiftMinutes)
+                .taskCount(taskCount)
+                .assignmentCount(n)
+                .clusters(clusters)
+                .oversizedAssignmentIds(oversized)
+                .unmeasuredAssignmentIds(unmeasured)
+                .planningTimeMs(elapsedMs)
+                .build();
+    }
+
+    // Reads the area page by page, refusing areas with more pending tasks than one run should hold
+    private List<AssignmentTask> loadPendingTasks(TaskClusterRequest request) {
+        if (request.getMinLatitude() == null || request.getMaxLatitude() == null
+                || request.getMinLongitude() == null || request.getMaxLongitude() == null) {
+            throw new BusinessException("All four bounding box edges must be given");
+        }
+        List<AssignmentTask> tasks = new ArrayList<>();
+        for (int page = 0; ; page++) {
+            List<AssignmentTask> batch = taskRepository.findByStatusAndLatitudeBetweenAndLongitudeBetween(
+                    TaskStatus.PENDING, request.getMinLatitude(), request.getMaxLatitude(),
+                    request.getMinLongitude(), request.getMaxLongitude(), PageRequest.of(page, pageSize, Sort.by("id")));
+            tasks.addAll(batch);
+            if (tasks.size() > maxTasks) {
+                throw new BusinessException("More than " + maxTasks + " pending tasks in the area; use a smaller bounding box");
+            }
+            if (batch.size() < pageSize) {
+                return tasks;
+            }
+        }
+    }
+
+    private List<Order> groupByAssignment(List<AssignmentTask> tasks) {
+        Map<String, Order> orders = new LinkedHashMap<>();
+        for (AssignmentTask task : tasks) {
+            // A task without an assignment is an order of its own
+            String assignmentId = task.getAssignment() != null ? task.getAssignment().getAssignmentId() : task.getId();
+            orders.computeIfAbsent(assignmentId, Order::new).tasks.add(task);
+        }
+        return new ArrayList<>(orders.values());
+    }
+
+    private TaskCluster sequence(TaskClusterer.Clustering clustering, int cluster, List<Order> orders,
+                                 Duration budget, int shiftMinutes) {
+        List<AssignmentTask> tasks = orders.stream().flatMap(order -> order.tasks.stream()).collect(Collectors.toList());
+        List<AssignmentTask> sequence = PickupPrecedence.enforce(taskSequencingService.determineOptimalSequence(tasks, budget));
+        // The travel estimate already counts known on-site durations; add the default for the rest
+        int unknownDurations = (int) sequence.stream().filter(task -> task.getEstimatedDurationMinutes() == null).count();
+        int workMinutes = taskSequencingService.estimateTravelTime(sequence) + unknownDurations * defaultServiceMinutes;
+        return TaskCluster.builder()
+                .centroidLatitude(clustering.getCentroidLatitude(cluster))
+                .centroidLongitude(clustering.getCentroidLongitude(cluster))
+                .assignmentIds(orders.stream().map(order -> order.assignmentId).collect(Collectors.toList()))
+                .taskIds(sequence.stream().map(AssignmentTask::getId).collect(Collectors.toList()))
+                .weightKg(clustering.getWeight(cluster))
+                .volumeLitres(clustering.getVolume(cluster))
+                .distanceKm(taskSequencingService.estimateDistance(sequence))
+                .workMinutes(workMinutes)
+                .exceedsShift(workMinutes > shiftMinutes)
+                .build();
+    }
+
+    private int serviceMinutes(AssignmentTask task) {
+        return task.getEstimatedDurationMinutes() != null ? task.getEstimatedDurationMinutes() : defaultServiceMinutes;
+    }
+
+    /**
+     * The pending tasks of one assignment, clustered as a single unit.
+     */
+    private static final class Order {
+
+        private final String assignmentId;
+        private final List<AssignmentTask> tasks = new ArrayList<>();
+
+        private Order(String assignmentId) {
+            this.assignmentId = assignmentId;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.gogidix.courier.management.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dedicated pool for batch route planning, kept apart from the common pool so a large depot
+ * cannot starve other parallel work.
+ */
+@Configuration
+public class RoutePlanningConfig {
+
+    @Bean(destroyMethod = "shutdownNow")
+    public ForkJoinPool routePlanningPool(@Value("${assignment.planning.parallelism:0}") int parallelism) {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("route-planner-" + thread.getPoolIndex());
+            return thread;
+        };
+        // FIFO mode suits independent per-assignment tasks; the pool never grows past its parallelism
+        return new ForkJoinPool(threads, threadFactory, null, true,
+                threads, threads, 1, pool -> true, 60, TimeUnit.SECONDS);
+    }
+}
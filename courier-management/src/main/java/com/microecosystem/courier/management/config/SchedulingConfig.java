@@ -0,0 +1,12 @@
+package com.gogidix.courier.management.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables scheduled background jobs such as the courier spatial index resync.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,472 @@
+package com.gogidix.courier.management.courier.availability;
+
+import com.gogidix.courier.management.courier.model.Courier;
+import com.gogidix.courier.management.courier.model.CourierShift;
+import com.gogidix.courier.management.courier.model.CourierStatus;
+import com.gogidix.courier.management.courier.repository.CourierRepository;
+import com.gogidix.courier.management.courier.repository.CourierShiftRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * In-memory index of which couriers can take work when, where and with what vehicle.
+ * Every courier gets a dense ordinal; each day is split into 15-minute slots holding a bitset
+ * of the couriers on shift in that slot, overall and per zone, and vehicle types and
+ * eligibility are bitsets over the same ordinals. "Who can take a job between 14:00 and 16:00
+ * in zone Z with a van" is then one bitwise AND per slot. The index is kept current by
+ * {@link CourierShiftListener} and the courier entity listener, and periodically resynchronised
+ * from the database.
+ */
+@Component
+@Slf4j
+public class CourierAvailabilityIndex {
+
+    /**
+     * Length of one availability slot.
+     */
+    public static final int SLOT_MINUTES = 15;
+
+    /**
+     * Number of availability slots in a day.
+     */
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+
+    private final CourierRepository courierRepository;
+    private final CourierShiftRepository shiftRepository;
+    private final StampedLock lock = new StampedLock();
+
+    private final Map<String, CourierEntry> couriers = new HashMap<>();
+    private final List<String> courierIdsByOrdinal = new ArrayList<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private final BitSet eligible = new BitSet();
+    private final Map<String, BitSet> vehicles = new HashMap<>();
+    private final TreeMap<LocalDate, DaySlots> days = new TreeMap<>();
+    private Clock clock = Clock.systemDefaultZone();
+
+    public CourierAvailabilityIndex(CourierRepository courierRepository, CourierShiftRepository shiftRepository) {
+        this.courierRepository = courierRepository;
+        this.shiftRepository = shiftRepository;
+    }
+
+    /**
+     * Applies a courier's status, active flag and vehicle type to the index. Couriers can take
+     * work unless they are inactive or marked unavailable; being offline or busy right now does
+     * not rule out a later slot.
+     *
+     * @param courierId the courier ID
+     * @param active whether the courier is active
+     * @param status the courier status
+     * @param vehicleType the vehicle type, or null if unknown
+     */
+    public void updateCourier(String courierId, boolean active, CourierStatus status, String vehicleType) {
+        long stamp = lock.writeLock();
+        try {
+            CourierEntry entry = entry(courierId);
+            applyCourier(entry, active, status, vehicleType);
+            entry.updatedAtNanos = System.nanoTime();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes a courier and all their shifts from the index.
+     *
+     * @param courierId the courier ID
+     */
+    public void removeCourier(String courierId) {
+        long stamp = lock.writeLock();
+        try {
+            CourierEntry entry = couriers.remove(courierId);
+            if (entry != null) {
+                release(entry);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Adds or replaces a shift.
+     *
+     * @param shiftId the shift ID
+     * @param courierId the courier ID
+     * @param zone the shift's zone, or null if the courier may work anywhere
+     * @param startTime the shift start
+     * @param endTime the shift end
+     */
+    public void updateShift(Long shiftId, String courierId, String zone, LocalDateTime startTime, LocalDateTime endTime) {
+        long stamp = lock.writeLock();
+        try {
+            CourierEntry entry = entry(courierId);
+            Shift shift = new Shift(normalise(zone), startTime, endTime);
+            Shift previous = entry.shifts.put(shiftId, shift);
+            Set<LocalDate> affected = new HashSet<>();
+            addDays(affected, shift);
+            addDays(affected, previous);
+            refreshDays(entry, affected);
+            entry.updatedAtNanos = System.nanoTime();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes a shift.
+     *
+     * @param shiftId the shift ID
+     * @param courierId the courier ID
+     */
+    public void removeShift(Long shiftId, String courierId) {
+        long stamp = lock.writeLock();
+        try {
+            CourierEntry entry = couriers.get(courierId);
+            Shift previous = entry != null ? entry.shifts.remove(shiftId) : null;
+            if (previous != null) {
+                Set<LocalDate> affected = new HashSet<>();
+                addDays(affected, previous);
+                refreshDays(entry, affected);
+                entry.updatedAtNanos = System.nanoTime();
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Finds couriers who are eligible and on shift for the whole of a time range.
+     *
+     * @param from the start of the range
+     * @param to the end of the range, after the start
+     * @param zone the zone the job is in, or null for any zone
+     * @param vehicleType the required vehicle type, or null for any vehicle
+     * @return the courier IDs
+     */
+    public List<String> findAvailable(LocalDateTime from, LocalDateTime to, String zone, String vehicleType) {
+        if (!to.isAfter(from)) {
+            throw new IllegalArgumentException("End of the time range must be after its start");
+        }
+        String zoneKey = normalise(zone);
+        long stamp = lock.readLock();
+        try {
+            BitSet result = (BitSet) eligible.clone();
+            if (vehicleType != null) {
+                BitSet withVehicle = vehicles.get(normalise(vehicleType));
+                if (withVehicle == null) {
+                    return List.of();
+                }
+                result.and(withVehicle);
+            }
+            BitSet scratch = new BitSet();
+            LocalDateTime slotStart = floorToSlot(from);
+            while (slotStart.isBefore(to) && !result.isEmpty()) {
+                DaySlots day = days.get(slotStart.toLocalDate());
+                if (day == null) {
+                    return List.of();
+                }
+                day.restrict(result, zoneKey, slotOf(slotStart), scratch);
+                slotStart = slotStart.plusMinutes(SLOT_MINUTES);
+            }
+
+            List<String> courierIds = new ArrayList<>(result.cardinality());
+            for (int ordinal = result.nextSetBit(0); ordinal >= 0; ordinal = result.nextSetBit(ordinal + 1)) {
+                courierIds.add(courierIdsByOrdinal.get(ordinal));
+            }
+            return courierIds;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Gets the number of indexed couriers.
+     *
+     * @return the courier count
+     */
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return couriers.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Reloads couriers and current and future shifts from the database and drops past days.
+     * Couriers updated in memory after the reload started keep their newer state.
+     */
+    @Scheduled(fixedDelayString = "${courier.availability.resync-interval-ms:300000}",
+            initialDelayString = "${courier.availability.initial-delay-ms:0}")
+    public void resync() {
+        long startedAt = System.nanoTime();
+        LocalDate today = LocalDate.now(clock);
+        List<Courier> loadedCouriers = courierRepository.findAll();
+        List<CourierShift> loadedShifts = shiftRepository.findEndingAfter(today.atStartOfDay());
+
+        Map<String, Map<Long, Shift>> shiftsByCourier = new HashMap<>();
+        for (CourierShift shift : loadedShifts) {
+            shiftsByCourier.computeIfAbsent(shift.getCourier().getCourierId(), id -> new HashMap<>())
+                    .put(shift.getId(), new Shift(normalise(shift.getZone()), shift.getStartTime(), shift.getEndTime()));
+        }
+
+        Set<String> present = new HashSet<>();
+        long stamp = lock.writeLock();
+        try {
+            for (Courier courier : loadedCouriers) {
+                if (courier.getCourierId() == null) {
+                    continue;
+                }
+                present.add(courier.getCourierId());
+                CourierEntry entry = entry(courier.getCourierId());
+                if (entry.updatedAtNanos < startedAt) {
+                    applyCourier(entry, Boolean.TRUE.equals(courier.getIsActive()), courier.getStatus(),
+                            courier.getVehicleType());
+                    entry.shifts.clear();
+                    entry.shifts.putAll(shiftsByCourier.getOrDefault(courier.getCourierId(), Map.of()));
+                }
+            }
+            Iterator<Map.Entry<String, CourierEntry>> iterator = couriers.entrySet().iterator();
+            while (iterator.hasNext()) {
+                CourierEntry entry = iterator.next().getValue();
+                if (!present.contains(entry.courierId) && entry.updatedAtNanos < startedAt) {
+                    iterator.remove();
+                    release(entry);
+                }
+            }
+            rebuildDays(today);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        log.info("Resynchronised courier availability index with {} couriers and {} shifts",
+                present.size(), loadedShifts.size());
+    }
+
+    private CourierEntry entry(String courierId) {
+        CourierEntry entry = couriers.get(courierId);
+        if (entry == null) {
+            int ordinal;
+            if (freeOrdinals.isEmpty()) {
+                ordinal = courierIdsByOrdinal.size();
+                courierIdsByOrdinal.add(courierId);
+            } else {
+                ordinal = freeOrdinals.pop();
+                courierIdsByOrdinal.set(ordinal, courierId);
+            }
+            entry = new CourierEntry(courierId, ordinal);
+            couriers.put(courierId, entry);
+        }
+        return entry;
+    }
+
+    private void applyCourier(CourierEntry entry, boolean active, CourierStatus status, String vehicleType) {
+        eligible.set(entry.ordinal, active && status != null && status != CourierStatus.UNAVAILABLE);
+        String vehicle = normalise(vehicleType);
+        if (entry.vehicleType != null && !entry.vehicleType.equals(vehicle)) {
+            clearVehicle(entry);
+        }
+        if (vehicle != null) {
+            vehicles.computeIfAbsent(vehicle, key -> new BitSet()).set(entry.ordinal);
+        }
+        entry.vehicleType = vehicle;
+    }
+
+    private void clearVehicle(CourierEntry entry) {
+        BitSet withVehicle = vehicles.get(entry.vehicleType);
+        if (withVehicle != null) {
+            withVehicle.clear(entry.ordinal);
+            if (withVehicle.isEmpty()) {
+                vehicles.remove(entry.vehicleType);
+            }
+        }
+        entry.vehicleType = null;
+    }
+
+    private void release(CourierEntry entry) {
+        eligible.clear(entry.ordinal);
+        if (entry.vehicleType != null) {
+            clearVehicle(entry);
+        }
+        for (DaySlots day : days.values()) {
+            day.clear(entry.ordinal);
+        }
+        courierIdsByOrdinal.set(entry.ordinal, null);
+        freeOrdinals.push(entry.ordinal);
+    }
+
+    // Recomputes a courier's bits on the given days from all their shifts
+    private void refreshDays(CourierEntry entry, Set<LocalDate> affected) {
+        LocalDate today = LocalDate.now(clock);
+        for (LocalDate date : affected) {
+            DaySlots day = days.get(date);
+            if (day != null) {
+                day.clear(entry.ordinal);
+            }
+        }
+        for (Shift shift : entry.shifts.values()) {
+            markShift(entry.ordinal, shift, affected, today);
+        }
+    }
+
+    private void rebuildDays(LocalDate today) {
+        days.clear();
+        for (CourierEntry entry : couriers.values()) {
+            for (Shift shift : entry.shifts.values()) {
+                markShift(entry.ordinal, shift, null, today);
+            }
+        }
+    }
+
+    // Sets the shift's slots on each of its days from today on, restricted to the given days if any
+    private void markShift(int ordinal, Shift shift, Set<LocalDate> only, LocalDate today) {
+        LocalDateTime slotStart = floorToSlot(shift.startTime);
+        while (slotStart.isBefore(shift.endTime)) {
+            LocalDate date = slotStart.toLocalDate();
+            LocalDateTime dayEnd = date.plusDays(1).atStartOfDay();
+            LocalDateTime end = shift.endTime.isBefore(dayEnd) ? shift.endTime : dayEnd;
+            if (!date.isBefore(today) && (only == null || only.contains(date))) {
+                int fromSlot = slotOf(slotStart);
+                // A partly covered last slot does not count; the courier is not there for all of it
+                int toSlot = end.equals(dayEnd) ? SLOTS_PER_DAY : slotOf(end);
+                days.computeIfAbsent(date, key -> new DaySlots()).set(ordinal, shift.zone, fromSlot, toSlot);
+            }
+            slotStart = dayEnd;
+        }
+    }
+
+    private static void addDays(Set<LocalDate> days, Shift shift) {
+        if (shift == null) {
+            return;
+        }
+        for (LocalDate date = shift.startTime.toLocalDate(); date.atStartOfDay().isBefore(shift.endTime);
+                date = date.plusDays(1)) {
+            days.add(date);
+        }
+    }
+
+    private static LocalDateTime floorToSlot(LocalDateTime time) {
+        LocalDateTime minute = time.truncatedTo(ChronoUnit.MINUTES);
+        return minute.minusMinutes(minute.getMinute() % SLOT_MINUTES);
+    }
+
+    private static int slotOf(LocalDateTime time) {
+        return (time.getHour() * 60 + time.getMinute()) / SLOT_MINUTES;
+    }
+
+    private static String normalise(String value) {
+        return value != null && !value.isBlank() ? value.trim().toUpperCase(Locale.ROOT) : null;
+    }
+
+    private static final class CourierEntry {
+
+        private final String courierId;
+        private final int ordinal;
+        private final Map<Long, Shift> shifts = new HashMap<>();
+        private String vehicleType;
+        private long updatedAtNanos = Long.MIN_VALUE;
+
+        private CourierEntry(String courierId, int ordinal) {
+            this.courierId = courierId;
+            this.ordinal = ordinal;
+        }
+    }
+
+    private static final class Shift {
+
+        private final String zone;
+        private final LocalDateTime startTime;
+        private final LocalDateTime endTime;
+
+        private Shift(String zone, LocalDateTime startTime, LocalDateTime endTime) {
+            this.zone = zone;
+            this.startTime = startTime;
+            this.endTime = endTime;
+        }
+    }
+
+    /**
+     * The couriers on shift in each slot of one day: all of them, those tied to each zone,
+     * and those who may work in any zone.
+     */
+    private static final class DaySlots {
+
+        private final BitSet[] all = new BitSet[SLOTS_PER_DAY];
+        private final BitSet[] unzoned = new BitSet[SLOTS_PER_DAY];
+        private final Map<String, BitSet[]> zones = new HashMap<>();
+
+        private void set(int ordinal, String zone, int fromSlot, int toSlot) {
+            BitSet[] zoned = zone != null ? zones.computeIfAbsent(zone, key -> new BitSet[SLOTS_PER_DAY]) : unzoned;
+            for (int slot = fromSlot; slot < toSlot; slot++) {
+                slot(all, slot).set(ordinal);
+                slot(zoned, slot).set(ordinal);
+            }
+        }
+
+        private void clear(int ordinal) {
+            clear(all, ordinal);
+            clear(unzoned, ordinal);
+            for (BitSet[] zoned : zones.values()) {
+                clear(zoned, ordinal);
+            }
+        }
+
+        // Narrows the candidates to couriers on shift in the slot, in the zone if one is given
+        private void restrict(BitSet candidates, String zone, int slot, BitSet scratch) {
+            if (zone == null) {
+                and(candidates, all[slot]);
+                return;
+            }
+            BitSet[] zoned = zones.get(zone);
+            scratch.clear();
+            if (zoned != null && zoned[slot] != null) {
+                scratch.or(zoned[slot]);
+            }
+            if (unzoned[slot] != null) {
+                scratch.or(unzoned[slot]);
+            }
+            candidates.and(scratch);
+        }
+
+        private static void and(BitSet candidates, BitSet slot) {
+            if (slot == null) {
+                candidates.clear();
+            } else {
+                candidates.and(slot);
+            }
+        }
+
+        private static void clear(BitSet[] slots, int ordinal) {
+            for (BitSet slot : slots) {
+                if (slot != null) {
+                    slot.clear(ordinal);
+                }
+            }
+        }
+
+        private static BitSet slot(BitSet[] slots, int slot) {
+            if (slots[slot] == null) {
+                slots[slot] = new BitSet();
+            }
+            return slots[slot];
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.gogidix.courier.management.courier.availability;
+
+import com.gogidix.courier.management.courier.model.Courier;
+import com.gogidix.courier.management.courier.model.CourierShift;
+import com.gogidix.courier.management.courier.model.CourierStatus;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * JPA entity listener that mirrors shift changes into the {@link CourierAvailabilityIndex}
+ * once the surrounding transaction commits.
+ */
+@Component
+public class CourierShiftListener {
+
+    // Resolved lazily: the index depends on the repositories, which depend on the entity manager
+    private final ObjectProvider<CourierAvailabilityIndex> availabilityIndex;
+
+    public CourierShiftListener(ObjectProvider<CourierAvailabilityIndex> availabilityIndex) {
+        this.availabilityIndex = availabilityIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(CourierShift shift) {
+        Courier courier = shift.getCourier();
+        if (shift.getId() == null || courier == null || courier.getCourierId() == null) {
+            return;
+        }
+        // Capture the state now; the entities may change again before commit
+        Long shiftId = shift.getId();
+        String courierId = courier.getCourierId();
+        boolean active = Boolean.TRUE.equals(courier.getIsActive());
+        CourierStatus status = courier.getStatus();
+        String vehicleType = courier.getVehicleType();
+        String zone = shift.getZone();
+        LocalDateTime startTime = shift.getStartTime();
+        LocalDateTime endTime = shift.getEndTime();
+        afterCommit(index -> {
+            index.updateCourier(courierId, active, status, vehicleType);
+            index.updateShift(shiftId, courierId, zone, startTime, endTime);
+        });
+    }
+
+    @PostRemove
+    public void onRemove(CourierShift shift) {
+        Courier courier = shift.getCourier();
+        if (shift.getId() != null && courier != null && courier.getCourierId() != null) {
+            Long shiftId = shift.getId();
+            String courierId = courier.getCourierId();
+            afterCommit(index -> index.removeShift(shiftId, courierId));
+        }
+    }
+
+    private void afterCommit(Consumer<CourierAvailabilityIndex> change) {
+        CourierAvailabilityIndex index = availabilityIndex.getIfAvailable();
+        if (index == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.accept(index);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.accept(index);
+            }
+        });
+    }
+}
@@ -0,0 +1,50 @@
+package com.gogidix.courier.management.courier.controller;
+
+import com.gogidix.courier.management.courier.model.CourierStatus;
+import com.gogidix.courier.management.courier.service.CourierLocatorService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST controller for finding couriers by their live position.
+ */
+@RestController
+@RequestMapping("/api/couriers")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Courier Locator", description = "APIs for finding couriers near a location")
+public class CourierLocatorController {
+
+    private final CourierLocatorService locatorService;
+
+    @Operation(summary = "Find couriers near a location",
+            description = "Returns active couriers with the status (available by default) within the radius, nearest first")
+    @GetMapping("/nearby")
+    public ResponseEntity<List<String>> findCouriersNear(
+            @Parameter(description = "Latitude", required = true)
+            @RequestParam double latitude,
+            @Parameter(description = "Longitude", required = true)
+            @RequestParam double longitude,
+            @Parameter(description = "Radius in kilometers")
+            @RequestParam(defaultValue = "5") double radiusKm,
+            @Parameter(description = "Courier status")
+            @RequestParam(defaultValue = "AVAILABLE") CourierStatus status,
+            @Parameter(description = "Maximum number of couriers")
+            @RequestParam(defaultValue = "20") int limit) {
+        log.info("Finding {} couriers within {} km of ({}, {})", status, radiusKm, latitude, longitude);
+        if (status == CourierStatus.AVAILABLE) {
+            return ResponseEntity.ok(locatorService.findAvailableCouriersNear(latitude, longitude, radiusKm, limit));
+        }
+        return ResponseEntity.ok(locatorService.findCouriersNear(latitude, longitude, radiusKm, status, limit));
+    }
+}
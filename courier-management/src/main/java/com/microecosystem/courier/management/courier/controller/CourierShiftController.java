@@ -0,0 +1,105 @@
+package com.gogidix.courier.management.courier.controller;
+
+import com.gogidix.courier.management.courier.dto.CourierShiftDTO;
+import com.gogidix.courier.management.courier.service.CourierShiftService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.validation.Valid;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * REST controller for courier shifts and availability.
+ */
+@RestController
+@RequestMapping("/api/couriers")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Courier Shifts", description = "APIs for courier shifts and availability")
+public class CourierShiftController {
+
+    private final CourierShiftService shiftService;
+
+    @Operation(summary = "Schedule a shift for a courier")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Shift scheduled successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid or overlapping shift"),
+            @ApiResponse(responseCode = "404", description = "Courier not found")
+    })
+    @PostMapping("/{courierId}/shifts")
+    public ResponseEntity<CourierShiftDTO> createShift(
+            @Parameter(description = "Courier ID", required = true)
+            @PathVariable String courierId,
+            @Valid @RequestBody CourierShiftDTO shift) {
+        log.info("Scheduling shift for courier: {}", courierId);
+        return ResponseEntity.status(HttpStatus.CREATED).body(shiftService.createShift(courierId, shift));
+    }
+
+    @Operation(summary = "Update a shift")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Shift updated successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid or overlapping shift"),
+            @ApiResponse(responseCode = "404", description = "Shift not found")
+    })
+    @PutMapping("/shifts/{shiftId}")
+    public ResponseEntity<CourierShiftDTO> updateShift(
+            @Parameter(description = "Shift ID", required = true)
+            @PathVariable Long shiftId,
+            @Valid @RequestBody CourierShiftDTO shift) {
+        log.info("Updating shift: {}", shiftId);
+        return ResponseEntity.ok(shiftService.updateShift(shiftId, shift));
+    }
+
+    @Operation(summary = "Delete a shift")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Shift deleted successfully"),
+            @ApiResponse(responseCode = "404", description = "Shift not found")
+    })
+    @DeleteMapping("/shifts/{shiftId}")
+    public ResponseEntity<Void> deleteShift(
+            @Parameter(description = "Shift ID", required = true)
+            @PathVariable Long shiftId) {
+        log.info("Deleting shift: {}", shiftId);
+        shiftService.deleteShift(shiftId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "Get a courier's shifts within a time range")
+    @GetMapping("/{courierId}/shifts")
+    public ResponseEntity<List<CourierShiftDTO>> getShifts(
+            @Parameter(description = "Courier ID", required = true)
+            @PathVariable String courierId,
+            @Parameter(description = "Start of the range", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "End of the range", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.info("Retrieving shifts for courier {} between {} and {}", courierId, from, to);
+        return ResponseEntity.ok(shiftService.getShifts(courierId, from, to));
+    }
+
+    @Operation(summary = "Find couriers available for a job",
+            description = "Returns couriers on shift for the whole time range, in the zone and with the vehicle type if given")
+    @GetMapping("/availability")
+    public ResponseEntity<List<String>> findAvailableCouriers(
+            @Parameter(description = "Start of the job", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "End of the job", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Zone of the job")
+            @RequestParam(required = false) String zone,
+            @Parameter(description = "Required vehicle type")
+            @RequestParam(required = false) String vehicleType) {
+        log.info("Finding couriers available between {} and {} in zone {} with vehicle {}", from, to, zone, vehicleType);
+        return ResponseEntity.ok(shiftService.findAvailableCouriers(from, to, zone, vehicleType));
+    }
+}
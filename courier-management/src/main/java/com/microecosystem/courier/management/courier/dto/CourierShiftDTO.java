@@ -0,0 +1,36 @@
+package com.gogidix.courier.management.courier.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object for courier shifts.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourierShiftDTO {
+
+    private Long id;
+
+    private String courierId;
+
+    /**
+     * Zone the courier works in during the shift; any zone when absent.
+     */
+    @Size(max = 50, message = "Zone must be at most 50 characters")
+    private String zone;
+
+    @NotNull(message = "Start time is required")
+    private LocalDateTime startTime;
+
+    @NotNull(message = "End time is required")
+    private LocalDateTime endTime;
+}
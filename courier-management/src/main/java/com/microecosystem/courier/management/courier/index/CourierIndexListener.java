@@ -0,0 +1,97 @@
+package com.gogidix.courier.management.courier.index;
+
+import com.gogidix.courier.management.courier.availability.CourierAvailabilityIndex;
+import com.gogidix.courier.management.courier.model.Courier;
+import com.gogidix.courier.management.courier.model.CourierStatus;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA entity listener that mirrors courier location and status changes into the
+ * {@link CourierSpatialIndex} and {@link CourierAvailabilityIndex} and announces new positions
+ * as {@link CourierPositionChangedEvent}s. Changes made inside a transaction are applied after
+ * commit, so rolled-back updates never reach the indexes or listeners.
+ */
+@Component
+public class CourierIndexListener {
+
+    // Resolved lazily: the indexes depend on the repositories, which depend on the entity manager
+    private final ObjectProvider<CourierSpatialIndex> spatialIndex;
+    private final ObjectProvider<CourierAvailabilityIndex> availabilityIndex;
+    private final ObjectProvider<ApplicationEventPublisher> eventPublisher;
+
+    public CourierIndexListener(ObjectProvider<CourierSpatialIndex> spatialIndex,
+                                ObjectProvider<CourierAvailabilityIndex> availabilityIndex,
+                                ObjectProvider<ApplicationEventPublisher> eventPublisher) {
+        this.spatialIndex = spatialIndex;
+        this.availabilityIndex = availabilityIndex;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Courier courier) {
+        String courierId = courier.getId();
+        if (courierId == null) {
+            return;
+        }
+        // Capture the state now; the entity may change again before commit
+        boolean active = Boolean.TRUE.equals(courier.getIsActive());
+        CourierStatus status = courier.getStatus();
+        String vehicleType = courier.getVehicleType();
+        boolean indexable = active
+                && courier.getCurrentLatitude() != null
+                && courier.getCurrentLongitude() != null;
+        double latitude = indexable ? courier.getCurrentLatitude() : 0.0;
+        double longitude = indexable ? courier.getCurrentLongitude() : 0.0;
+        // The availability index is keyed by business ID, the spatial index by entity ID
+        String businessId = courier.getCourierId();
+        afterCommit(() -> {
+            if (businessId != null) {
+                availabilityIndex.ifAvailable(index -> index.updateCourier(businessId, active, status, vehicleType));
+            }
+            if (!indexable) {
+                spatialIndex.ifAvailable(index -> index.remove(courierId));
+                return;
+            }
+            spatialIndex.ifAvailable(index -> {
+                index.update(courierId, latitude, longitude, status);
+                eventPublisher.ifAvailable(publisher ->
+                        publisher.publishEvent(new CourierPositionChangedEvent(courierId, latitude, longitude)));
+            });
+        });
+    }
+
+    @PostRemove
+    public void onRemove(Courier courier) {
+        String courierId = courier.getId();
+        String businessId = courier.getCourierId();
+        if (courierId != null) {
+            afterCommit(() -> {
+                spatialIndex.ifAvailable(index -> index.remove(courierId));
+                if (businessId != null) {
+                    availabilityIndex.ifAvailable(index -> index.removeCourier(businessId));
+                }
+            });
+        }
+    }
+
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,23 @@
+package com.gogidix.courier.management.courier.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published after a courier's stored position has changed and been committed.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class CourierPositionChangedEvent {
+
+    /**
+     * Entity ID of the courier.
+     */
+    private final String courierId;
+
+    private final double latitude;
+
+    private final double longitude;
+}
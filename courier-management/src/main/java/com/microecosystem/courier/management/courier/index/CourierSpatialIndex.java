@@ -0,0 +1,491 @@
+package com.gogidix.courier.management.courier.index;
+
+import com.gogidix.courier.management.courier.model.Courier;
+import com.gogidix.courier.management.courier.model.CourierStatus;
+import com.gogidix.courier.management.courier.repository.CourierRepository;
+import com.gogidix.courier.management.util.Location;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * In-memory moving-object index of live courier positions.
+ * Couriers are bucketed into a uniform latitude/longitude grid so that radius and
+ * nearest-neighbour lookups only touch the cells around the query point instead of
+ * running a PostGIS distance query per dispatch decision. Only active couriers with a
+ * known position are indexed, matching {@link CourierRepository#findAvailableCouriersNearLocation}.
+ * The index is kept current by {@link CourierIndexListener} and periodically resynchronised
+ * from the database to recover from missed updates. Removals leave a timestamped tombstone so
+ * that a resync reading the database before the removal cannot bring the courier back.
+ */
+@Component
+@Slf4j
+public class CourierSpatialIndex {
+
+    private static final double KM_PER_DEGREE = Math.PI * Location.EARTH_RADIUS_KM / 180.0;
+    private static final double MIN_COS_LATITUDE = 0.01;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int INITIAL_CELL_CAPACITY = 4;
+    private static final byte FREE_SLOT = -1;
+
+    private final CourierRepository courierRepository;
+    private final double cellSizeDegrees;
+    private final StampedLock lock = new StampedLock();
+
+    // Slot storage, one entry per indexed courier
+    private final Map<String, Integer> slotsByCourierId = new HashMap<>();
+    private final Map<String, Long> removedAtNanos = new HashMap<>();
+    private String[] courierIds = new String[INITIAL_CAPACITY];
+    private double[] latitudes = new double[INITIAL_CAPACITY];
+    private double[] longitudes = new double[INITIAL_CAPACITY];
+    private byte[] statuses = new byte[INITIAL_CAPACITY];
+    private long[] cellKeys = new long[INITIAL_CAPACITY];
+    private int[] positionsInCell = new int[INITIAL_CAPACITY];
+    private long[] updatedAtNanos = new long[INITIAL_CAPACITY];
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeSlotCount;
+    private int slotCount;
+
+    // Grid cells, each holding the slots located inside it
+    private final LongIntHashMap cellsByKey = new LongIntHashMap(INITIAL_CAPACITY);
+    private int[][] cellMembers = new int[INITIAL_CAPACITY][];
+    private int[] cellSizes = new int[INITIAL_CAPACITY];
+    private int cellCount;
+    private int minCellX = Integer.MAX_VALUE;
+    private int maxCellX = Integer.MIN_VALUE;
+    private int minCellY = Integer.MAX_VALUE;
+    private int maxCellY = Integer.MIN_VALUE;
+    private volatile boolean loaded;
+
+    public CourierSpatialIndex(CourierRepository courierRepository,
+                               @Value("${courier.index.cell-size-degrees:0.01}") double cellSizeDegrees) {
+        if (cellSizeDegrees <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        this.courierRepository = courierRepository;
+        this.cellSizeDegrees = cellSizeDegrees;
+        Arrays.fill(statuses, FREE_SLOT);
+    }
+
+    /**
+     * Applies the current state of a courier to the index.
+     * Inactive couriers and couriers without a position are removed.
+     *
+     * @param courier the courier
+     */
+    public void update(Courier courier) {
+        if (courier == null || courier.getId() == null) {
+            return;
+        }
+        if (!isIndexable(courier)) {
+            remove(courier.getId());
+            return;
+        }
+        update(courier.getId(), courier.getCurrentLatitude(), courier.getCurrentLongitude(), courier.getStatus());
+    }
+
+    /**
+     * Inserts or moves a courier.
+     *
+     * @param courierId the courier ID
+     * @param latitude the latitude
+     * @param longitude the longitude
+     * @param status the courier status
+     */
+    public void update(String courierId, double latitude, double longitude, CourierStatus status) {
+        long stamp = lock.writeLock();
+        try {
+            removedAtNanos.remove(courierId);
+            upsert(courierId, latitude, longitude, status, System.nanoTime());
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes a courier from the index.
+     *
+     * @param courierId the courier ID
+     */
+    public void remove(String courierId) {
+        long stamp = lock.writeLock();
+        try {
+            removedAtNanos.put(courierId, System.nanoTime());
+            Integer slot = slotsByCourierId.remove(courierId);
+            if (slot != null) {
+                releaseSlot(slot);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Finds indexed couriers within a radius, nearest first. At most {@code result.capacity()}
+     * couriers are returned. Does not allocate.
+     *
+     * @param latitude the query latitude
+     * @param longitude the query longitude
+     * @param radiusKm the search radius in kilometers
+     * @param status the status to match, or null for any status
+     * @param result the buffer receiving the matches
+     * @return the number of matches written to the buffer
+     */
+    public int findWithinRadius(double latitude, double longitude, double radiusKm,
+                                CourierStatus status, NearbyCouriers result) {
+        result.reset(result.capacity());
+        if (radiusKm < 0) {
+            return 0;
+        }
+        double latitudeSpan = radiusKm / KM_PER_DEGREE;
+        double longitudeSpan = radiusKm / (KM_PER_DEGREE * cosLatitude(latitude));
+
+        long stamp = lock.readLock();
+        try {
+            int fromX = Math.max(cellX(longitude - longitudeSpan), minCellX);
+            int toX = Math.min(cellX(longitude + longitudeSpan), maxCellX);
+            int fromY = Math.max(cellY(latitude - latitudeSpan), minCellY);
+            int toY = Math.min(cellY(latitude + latitudeSpan), maxCellY);
+            for (int y = fromY; y <= toY; y++) {
+                for (int x = fromX; x <= toX; x++) {
+                    scanCell(x, y, latitude, longitude, radiusKm, status, result);
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return result.size();
+    }
+
+    /**
+     * Finds the k nearest indexed couriers, searching outward ring by ring from the
+     * query cell. Does not allocate.
+     *
+     * @param latitude the query latitude
+     * @param longitude the query longitude
+     * @param k the number of couriers wanted (capped at {@code result.capacity()})
+     * @param maxRadiusKm the maximum search radius in kilometers
+     * @param status the status to match, or null for any status
+     * @param result the buffer receiving the matches
+     * @return the number of matches written to the buffer
+     */
+    public int findNearest(double latitude, double longitude, int k, double maxRadiusKm,
+                           CourierStatus status, NearbyCouriers result) {
+        result.reset(k);
+        if (k <= 0 || maxRadiusKm < 0) {
+            return 0;
+        }
+        // Narrowest cell edge at this latitude; every cell in ring r+1 is at least r edges away
+        double cellEdgeKm = cellSizeDegrees * KM_PER_DEGREE * cosLatitude(latitude);
+
+        long stamp = lock.readLock();
+        try {
+            if (cellCount == 0) {
+                return 0;
+            }
+            int centerX = cellX(longitude);
+            int centerY = cellY(latitude);
+            int maxRing = Math.max(
+                    Math.max(Math.abs(centerX - minCellX), Math.abs(maxCellX - centerX)),
+                    Math.max(Math.abs(centerY - minCellY), Math.abs(maxCellY - centerY)));
+            maxRing = (int) Math.min(maxRing, Math.ceil(maxRadiusKm / cellEdgeKm) + 1);
+
+            for (int ring = 0; ring <= maxRing; ring++) {
+                scanRing(centerX, centerY, ring, latitude, longitude, maxRadiusKm, status, result);
+                if (result.isFull() && result.worstDistanceKm() <= ring * cellEdgeKm) {
+                    break;
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return result.size();
+    }
+
+    /**
+     * Finds available couriers near a location.
+     * Index-backed equivalent of {@link CourierRepository#findAvailableCouriersNearLocation}.
+     *
+     * @param latitude the latitude
+     * @param longitude the longitude
+     * @param radiusKm the radius in kilometers
+     * @param maxResults the maximum number of couriers to return
+     * @return the courier IDs, nearest first
+     */
+    public List<String> findAvailableCourierIdsNearLocation(double latitude, double longitude,
+                                                           double radiusKm, int maxResults) {
+        return findCourierIdsNearLocation(latitude, longitude, radiusKm, CourierStatus.AVAILABLE, maxResults);
+    }
+
+    /**
+     * Finds active couriers with a status near a location.
+     * Index-backed equivalent of {@link CourierRepository#findActiveCouriersNearLocationWithStatus}.
+     *
+     * @param latitude the latitude
+     * @param longitude the longitude
+     * @param radiusKm the radius in kilometers
+     * @param status the status to match, or null for any status
+     * @param maxResults the maximum number of couriers to return
+     * @return the courier IDs, nearest first
+     */
+    public List<String> findCourierIdsNearLocation(double latitude, double longitude, double radiusKm,
+                                                   CourierStatus status, int maxResults) {
+        NearbyCouriers result = new NearbyCouriers(Math.max(1, maxResults));
+        findWithinRadius(latitude, longitude, radiusKm, status, result);
+        return result.toCourierIds();
+    }
+
+    /**
+     * Whether the index has been loaded from the database at least once. Until then it only
+     * holds couriers saved since startup and lookups should go to the database.
+     *
+     * @return true once the first resync has finished
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Gets the number of indexed couriers.
+     *
+     * @return the courier count
+     */
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return slotsByCourierId.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Reloads the index from the database. Couriers updated or removed in memory after the
+     * reload started are left untouched so that a slow read cannot overwrite newer positions
+     * or re-add removed couriers.
+     */
+    @Scheduled(fixedDelayString = "${courier.index.resync-interval-ms:300000}",
+            initialDelayString = "${courier.index.initial-delay-ms:0}")
+    public void resync() {
+        long startedAt = System.nanoTime();
+        List<Courier> couriers = courierRepository.findAll();
+        Set<String> indexable = new HashSet<>();
+
+        long stamp = lock.writeLock();
+        try {
+            for (Courier courier : couriers) {
+                if (courier.getId() == null || !isIndexable(courier)) {
+                    continue;
+                }
+                Long removedAt = removedAtNanos.get(courier.getId());
+                if (removedAt != null && removedAt >= startedAt) {
+                    continue;
+                }
+                indexable.add(courier.getId());
+                Integer slot = slotsByCourierId.get(courier.getId());
+                if (slot == null || updatedAtNanos[slot] < startedAt) {
+                    upsert(courier.getId(), courier.getCurrentLatitude(), courier.getCurrentLongitude(),
+                            courier.getStatus(), startedAt);
+                }
+            }
+            // Drop couriers that are gone or no longer indexable, unless updated since the reload began
+            slotsByCourierId.entrySet().removeIf(entry -> {
+                int slot = entry.getValue();
+                if (indexable.contains(entry.getKey()) || updatedAtNanos[slot] >= startedAt) {
+                    return false;
+                }
+                releaseSlot(slot);
+                return true;
+            });
+            rebuildCells();
+            // Removals committed before the read began are reflected in the snapshot
+            removedAtNanos.values().removeIf(removedAt -> removedAt < startedAt);
+            loaded = true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        log.info("Resynchronised courier spatial index with {} couriers", indexable.size());
+    }
+
+    private static boolean isIndexable(Courier courier) {
+        return Boolean.TRUE.equals(courier.getIsActive())
+                && courier.getCurrentLatitude() != null
+                && courier.getCurrentLongitude() != null;
+    }
+
+    private void upsert(String courierId, double latitude, double longitude, CourierStatus status, long updatedAt) {
+        Integer existing = slotsByCourierId.get(courierId);
+        int slot;
+        if (existing == null) {
+            slot = acquireSlot();
+            slotsByCourierId.put(courierId, slot);
+            courierIds[slot] = courierId;
+        } else {
+            slot = existing;
+        }
+        long cellKey = cellKey(cellX(longitude), cellY(latitude));
+        if (existing == null) {
+            addToCell(slot, cellKey);
+        } else if (cellKeys[slot] != cellKey) {
+            removeFromCell(slot);
+            addToCell(slot, cellKey);
+        }
+        latitudes[slot] = latitude;
+        longitudes[slot] = longitude;
+        statuses[slot] = (byte) (status != null ? status : CourierStatus.OFFLINE).ordinal();
+        updatedAtNanos[slot] = updatedAt;
+    }
+
+    private int acquireSlot() {
+        if (freeSlotCount > 0) {
+            return freeSlots[--freeSlotCount];
+        }
+        if (slotCount == courierIds.length) {
+            growSlots();
+        }
+        return slotCount++;
+    }
+
+    private void releaseSlot(int slot) {
+        removeFromCell(slot);
+        courierIds[slot] = null;
+        statuses[slot] = FREE_SLOT;
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    private void growSlots() {
+        int capacity = courierIds.length << 1;
+        courierIds = Arrays.copyOf(courierIds, capacity);
+        latitudes = Arrays.copyOf(latitudes, capacity);
+        longitudes = Arrays.copyOf(longitudes, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        Arrays.fill(statuses, slotCount, capacity, FREE_SLOT);
+        cellKeys = Arrays.copyOf(cellKeys, capacity);
+        positionsInCell = Arrays.copyOf(positionsInCell, capacity);
+        updatedAtNanos = Arrays.copyOf(updatedAtNanos, capacity);
+        freeSlots = Arrays.copyOf(freeSlots, capacity);
+    }
+
+    private void addToCell(int slot, long cellKey) {
+        int cell = cellsByKey.get(cellKey);
+        if (cell == LongIntHashMap.MISSING) {
+            if (cellCount == cellMembers.length) {
+                cellMembers = Arrays.copyOf(cellMembers, cellCount << 1);
+                cellSizes = Arrays.copyOf(cellSizes, cellCount << 1);
+            }
+            cell = cellCount++;
+            cellMembers[cell] = new int[INITIAL_CELL_CAPACITY];
+            cellSizes[cell] = 0;
+            cellsByKey.put(cellKey, cell);
+            extendBounds(cellKey);
+        }
+        int[] members = cellMembers[cell];
+        int size = cellSizes[cell];
+        if (size == members.length) {
+            members = Arrays.copyOf(members, size << 1);
+            cellMembers[cell] = members;
+        }
+        members[size] = slot;
+        cellSizes[cell] = size + 1;
+        cellKeys[slot] = cellKey;
+        positionsInCell[slot] = size;
+    }
+
+    private void removeFromCell(int slot) {
+        int cell = cellsByKey.get(cellKeys[slot]);
+        int[] members = cellMembers[cell];
+        int last = --cellSizes[cell];
+        int position = positionsInCell[slot];
+        // Swap the last member into the vacated position
+        int moved = members[last];
+        members[position] = moved;
+        positionsInCell[moved] = position;
+    }
+
+    /**
+     * Rebuilds the cell table from live slots, dropping cells that have become empty.
+     */
+    private void rebuildCells() {
+        cellsByKey.clear();
+        cellCount = 0;
+        minCellX = Integer.MAX_VALUE;
+        maxCellX = Integer.MIN_VALUE;
+        minCellY = Integer.MAX_VALUE;
+        maxCellY = Integer.MIN_VALUE;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (statuses[slot] != FREE_SLOT) {
+                addToCell(slot, cellKey(cellX(longitudes[slot]), cellY(latitudes[slot])));
+            }
+        }
+    }
+
+    private void extendBounds(long cellKey) {
+        int x = (int) cellKey;
+        int y = (int) (cellKey >> 32);
+        minCellX = Math.min(minCellX, x);
+        maxCellX = Math.max(maxCellX, x);
+        minCellY = Math.min(minCellY, y);
+        maxCellY = Math.max(maxCellY, y);
+    }
+
+    private void scanRing(int centerX, int centerY, int ring, double latitude, double longitude,
+                          double radiusKm, CourierStatus status, NearbyCouriers result) {
+        if (ring == 0) {
+            scanCell(centerX, centerY, latitude, longitude, radiusKm, status, result);
+            return;
+        }
+        for (int x = centerX - ring; x <= centerX + ring; x++) {
+            scanCell(x, centerY - ring, latitude, longitude, radiusKm, status, result);
+            scanCell(x, centerY + ring, latitude, longitude, radiusKm, status, result);
+        }
+        for (int y = centerY - ring + 1; y <= centerY + ring - 1; y++) {
+            scanCell(centerX - ring, y, latitude, longitude, radiusKm, status, result);
+            scanCell(centerX + ring, y, latitude, longitude, radiusKm, status, result);
+        }
+    }
+
+    private void scanCell(int x, int y, double latitude, double longitude, double radiusKm,
+                          CourierStatus status, NearbyCouriers result) {
+        int cell = cellsByKey.get(cellKey(x, y));
+        if (cell == LongIntHashMap.MISSING) {
+            return;
+        }
+        int[] members = cellMembers[cell];
+        int size = cellSizes[cell];
+        for (int i = 0; i < size; i++) {
+            int slot = members[i];
+            if (status != null && statuses[slot] != status.ordinal()) {
+                continue;
+            }
+            double distance = Location.distanceKm(latitude, longitude, latitudes[slot], longitudes[slot]);
+            if (distance <= radiusKm) {
+                result.offer(courierIds[slot], distance);
+            }
+        }
+    }
+
+    private int cellX(double longitude) {
+        return (int) Math.floor(longitude / cellSizeDegrees);
+    }
+
+    private int cellY(double latitude) {
+        return (int) Math.floor(latitude / cellSizeDegrees);
+    }
+
+    private static long cellKey(int x, int y) {
+        return ((long) y << 32) | (x & 0xffffffffL);
+    }
+
+    private static double cosLatitude(double latitude) {
+        return Math.max(MIN_COS_LATITUDE, Math.cos(Math.toRadians(Math.abs(latitude))));
+    }
+}
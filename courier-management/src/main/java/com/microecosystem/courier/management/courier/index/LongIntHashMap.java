@@ -0,0 +1,109 @@
+package com.gogidix.courier.management.courier.index;
+
+import java.util.Arrays;
+
+/**
+ * Minimal open-addressing map from primitive long keys to primitive int values.
+ * Used by the spatial index to resolve grid cell keys without boxing on the query path.
+ * Not thread-safe; callers guard access with their own lock.
+ */
+final class LongIntHashMap {
+
+    static final int MISSING = -1;
+
+    private static final long EMPTY_KEY = Long.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Gets the value mapped to a key.
+     *
+     * @param key the key (must not be {@link Long#MIN_VALUE})
+     * @return the value, or {@link #MISSING} if the key is absent
+     */
+    int get(long key) {
+        int index = indexOf(key);
+        while (true) {
+            long current = keys[index];
+            if (current == EMPTY_KEY) {
+                return MISSING;
+            }
+            if (current == key) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Maps a key to a value, replacing any existing mapping.
+     *
+     * @param key the key (must not be {@link Long#MIN_VALUE})
+     * @param value the value
+     */
+    void put(long key, int value) {
+        if (size + 1 > keys.length * LOAD_FACTOR) {
+            rehash(keys.length << 1);
+        }
+        int index = indexOf(key);
+        while (true) {
+            long current = keys[index];
+            if (current == EMPTY_KEY) {
+                keys[index] = key;
+                values[index] = value;
+                size++;
+                return;
+            }
+            if (current == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+    }
+
+    /**
+     * Removes all mappings.
+     */
+    void clear() {
+        Arrays.fill(keys, EMPTY_KEY);
+        size = 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int indexOf(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY_KEY);
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_KEY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.gogidix.courier.management.courier.index;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reusable, fixed-capacity result buffer for {@link CourierSpatialIndex} queries.
+ * Results are kept sorted by ascending distance. A caller that holds on to one
+ * instance (for example per dispatcher thread) can run queries without allocating.
+ */
+public final class NearbyCouriers {
+
+    private final String[] courierIds;
+    private final double[] distancesKm;
+    private int size;
+    private int limit;
+
+    /**
+     * Creates a result buffer.
+     *
+     * @param capacity the maximum number of couriers a single query can return
+     */
+    public NearbyCouriers(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.courierIds = new String[capacity];
+        this.distancesKm = new double[capacity];
+        this.limit = capacity;
+    }
+
+    /**
+     * Gets the number of couriers in the buffer.
+     *
+     * @return the result count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the maximum number of results this buffer can hold.
+     *
+     * @return the capacity
+     */
+    public int capacity() {
+        return courierIds.length;
+    }
+
+    /**
+     * Gets the courier ID at a position, nearest first.
+     *
+     * @param index the position
+     * @return the courier ID
+     */
+    public String courierId(int index) {
+        checkIndex(index);
+        return courierIds[index];
+    }
+
+    /**
+     * Gets the distance of the courier at a position.
+     *
+     * @param index the position
+     * @return the distance in kilometers
+     */
+    public double distanceKm(int index) {
+        checkIndex(index);
+        return distancesKm[index];
+    }
+
+    /**
+     * Copies the courier IDs into a new list. Allocates; intended for API boundaries.
+     *
+     * @return the courier IDs, nearest first
+     */
+    public List<String> toCourierIds() {
+        List<String> ids = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ids.add(courierIds[i]);
+        }
+        return ids;
+    }
+
+    void reset(int maxResults) {
+        for (int i = 0; i < size; i++) {
+            courierIds[i] = null;
+        }
+        size = 0;
+        limit = Math.min(Math.max(maxResults, 0), courierIds.length);
+    }
+
+    boolean isFull() {
+        return size == limit;
+    }
+
+    double worstDistanceKm() {
+        return size == 0 ? Double.POSITIVE_INFINITY : distancesKm[size - 1];
+    }
+
+    /**
+     * Offers a candidate, keeping only the nearest {@code limit} entries in sorted order.
+     */
+    void offer(String courierId, double distanceKm) {
+        if (limit == 0 || (size == limit && distanceKm >= distancesKm[size - 1])) {
+            return;
+        }
+        int i = size < limit ? size++ : size - 1;
+        while (i > 0 && distancesKm[i - 1] > distanceKm) {
+            courierIds[i] = courierIds[i - 1];
+            distancesKm[i] = distancesKm[i - 1];
+            i--;
+        }
+        courierIds[i] = courierId;
+        distancesKm[i] = distanceKm;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.gogidix.courier.management.courier.model;
 
+import com.gogidix.courier.management.courier.index.CourierIndexListener;
 import com.gogidix.courier.management.util.BaseEntity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
@@ -15,12 +16,16 @@ import lombok.NoArgsConstructor;
  */
 @Entity
 @Table(name = "couriers")
+@EntityListeners(CourierIndexListener.class)
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class Courier extends BaseEntity {
 
+    @Column(name = "courier_id", unique = true, length = 36)
+    private String courierId;
+
     @NotBlank(message = "First name is required")
     @Size(min = 2, max = 50, message = "First name must be between 2 and 50 characters")
     @Column(name = "first_name", nullable = false, length = 50)
@@ -62,6 +67,10 @@ public class Courier extends BaseEntity {
     @Column(name = "is_active")
     private Boolean isActive = true;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // Helper methods
     public String getFullName() {
         return firstName + " " + lastName;
@@ -0,0 +1,57 @@
+package com.gogidix.courier.management.courier.model;
+
+import com.gogidix.courier.management.courier.availability.CourierShiftListener;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A period a courier is scheduled to work, optionally restricted to one delivery zone.
+ */
+@Entity
+@Table(name = "courier_shifts",
+        indexes = {
+                @Index(name = "idx_courier_shift_courier_start", columnList = "courier_id, start_time"),
+                @Index(name = "idx_courier_shift_end", columnList = "end_time")
+        })
+@EntityListeners(CourierShiftListener.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourierShift {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "courier_id", nullable = false)
+    private Courier courier;
+
+    /**
+     * Zone the courier works in during the shift, or null if not tied to a zone.
+     */
+    @Column(length = 50)
+    private String zone;
+
+    @Column(name = "start_time", nullable = false)
+    private LocalDateTime startTime;
+
+    @Column(name = "end_time", nullable = false)
+    private LocalDateTime endTime;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
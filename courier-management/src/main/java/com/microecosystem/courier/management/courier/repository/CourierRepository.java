@@ -61,6 +61,7 @@ public interface CourierRepository extends JpaRepository<Courier, Long> {
 
     /**
      * Find couriers near a specific location.
+     * Used by {@code CourierLocatorService} until the {@code CourierSpatialIndex} is loaded.
      *
      * @param latitude the latitude
      * @param longitude the longitude
@@ -70,7 +71,9 @@ public interface CourierRepository extends JpaRepository<Courier, Long> {
     @Query(value = "SELECT c.* FROM couriers c " +
             "WHERE ST_DWithin(ST_MakePoint(c.current_longitude, c.current_latitude)::geography, " +
             "ST_MakePoint(:longitude, :latitude)::geography, :radiusInKm * 1000) " +
-            "AND c.active = true AND c.status = 'AVAILABLE'", nativeQuery = true)
+            "AND c.active = true AND c.status = 'AVAILABLE' " +
+            "ORDER BY ST_Distance(ST_MakePoint(c.current_longitude, c.current_latitude)::geography, " +
+            "ST_MakePoint(:longitude, :latitude)::geography)", nativeQuery = true)
     List<Courier> findAvailableCouriersNearLocation(
             @Param("latitude") double latitude,
             @Param("longitude") double longitude,
@@ -78,6 +81,7 @@ public interface CourierRepository extends JpaRepository<Courier, Long> {
 
     /**
      * Find active couriers with a specific status near a location.
+     * Used by {@code CourierLocatorService} until the {@code CourierSpatialIndex} is loaded.
      *
      * @param latitude the latitude
      * @param longitude the longitude
@@ -88,7 +92,9 @@ public interface CourierRepository extends JpaRepository<Courier, Long> {
     @Query(value = "SELECT c.* FROM couriers c " +
             "WHERE ST_DWithin(ST_MakePoint(c.current_longitude, c.current_latitude)::geography, " +
             "ST_MakePoint(:longitude, :latitude)::geography, :radiusInKm * 1000) " +
-            "AND c.active = true AND c.status = :status", nativeQuery = true)
+            "AND c.active = true AND c.status = :status " +
+            "ORDER BY ST_Distance(ST_MakePoint(c.current_longitude, c.current_latitude)::geography, " +
+            "ST_MakePoint(:longitude, :latitude)::geography)", nativeQuery = true)
     List<Courier> findActiveCouriersNearLocationWithStatus(
             @Param("latitude") double latitude,
             @Param("longitude") double longitude,
@@ -0,0 +1,39 @@
+package com.gogidix.courier.management.courier.repository;
+
+import com.gogidix.courier.management.courier.model.CourierShift;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for CourierShift entity operations.
+ */
+@Repository
+public interface CourierShiftRepository extends JpaRepository<CourierShift, Long> {
+
+    /**
+     * Find all shifts that end after a point in time, with their couriers.
+     *
+     * @param time the point in time
+     * @return the shifts
+     */
+    @Query("SELECT s FROM CourierShift s JOIN FETCH s.courier WHERE s.endTime > :time")
+    List<CourierShift> findEndingAfter(@Param("time") LocalDateTime time);
+
+    /**
+     * Find a courier's shifts that overlap a time range, in start order.
+     *
+     * @param courierId the courier entity ID
+     * @param from the start of the range
+     * @param to the end of the range
+     * @return the shifts
+     */
+    @Query("SELECT s FROM CourierShift s WHERE s.courier.id = :courierId AND s.startTime < :to AND s.endTime > :from ORDER BY s.startTime")
+    List<CourierShift> findOverlapping(@Param("courierId") String courierId,
+                                       @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to);
+}
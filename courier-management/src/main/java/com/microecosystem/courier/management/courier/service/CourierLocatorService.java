@@ -0,0 +1,34 @@
+package com.gogidix.courier.management.courier.service;
+
+import com.gogidix.courier.management.courier.model.CourierStatus;
+
+import java.util.List;
+
+/**
+ * Service interface for finding couriers by their live position.
+ */
+public interface CourierLocatorService {
+
+    /**
+     * Finds available couriers near a location.
+     *
+     * @param latitude the latitude
+     * @param longitude the longitude
+     * @param radiusKm the radius in kilometers
+     * @param maxResults the maximum number of couriers to return
+     * @return the courier IDs, nearest first
+     */
+    List<String> findAvailableCouriersNear(double latitude, double longitude, double radiusKm, int maxResults);
+
+    /**
+     * Finds active couriers with a status near a location.
+     *
+     * @param latitude the latitude
+     * @param longitude the longitude
+     * @param radiusKm the radius in kilometers
+     * @param status the status
+     * @param maxResults the maximum number of couriers to return
+     * @return the courier IDs, nearest first
+     */
+    List<String> findCouriersNear(double latitude, double longitude, double radiusKm, CourierStatus status, int maxResults);
+}
@@ -0,0 +1,58 @@
+package com.gogidix.courier.management.courier.service;
+
+import com.gogidix.courier.management.courier.dto.CourierShiftDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Service interface for courier shifts and availability lookups.
+ */
+public interface CourierShiftService {
+
+    /**
+     * Schedules a shift for a courier.
+     *
+     * @param courierId the courier ID
+     * @param shift the shift to schedule
+     * @return the scheduled shift
+     */
+    CourierShiftDTO createShift(String courierId, CourierShiftDTO shift);
+
+    /**
+     * Changes the zone or times of a shift.
+     *
+     * @param shiftId the shift ID
+     * @param shift the new shift details
+     * @return the updated shift
+     */
+    CourierShiftDTO updateShift(Long shiftId, CourierShiftDTO shift);
+
+    /**
+     * Deletes a shift.
+     *
+     * @param shiftId the shift ID
+     */
+    void deleteShift(Long shiftId);
+
+    /**
+     * Gets a courier's shifts that overlap a time range.
+     *
+     * @param courierId the courier ID
+     * @param from the start of the range
+     * @param to the end of the range
+     * @return the shifts in start order
+     */
+    List<CourierShiftDTO> getShifts(String courierId, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Finds couriers who are on shift for the whole of a time range and not marked unavailable.
+     *
+     * @param from the start of the job
+     * @param to the end of the job
+     * @param zone the zone the job is in, or null for any zone
+     * @param vehicleType the required vehicle type, or null for any vehicle
+     * @return the courier IDs
+     */
+    List<String> findAvailableCouriers(LocalDateTime from, LocalDateTime to, String zone, String vehicleType);
+}
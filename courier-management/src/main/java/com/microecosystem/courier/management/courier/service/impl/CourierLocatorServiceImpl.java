@@ -0,0 +1,54 @@
+package com.gogidix.courier.management.courier.service.impl;
+
+import com.gogidix.courier.management.courier.index.CourierSpatialIndex;
+import com.gogidix.courier.management.courier.model.Courier;
+import com.gogidix.courier.management.courier.model.CourierStatus;
+import com.gogidix.courier.management.courier.repository.CourierRepository;
+import com.gogidix.courier.management.courier.service.CourierLocatorService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of the CourierLocatorService interface. Lookups are answered from the
+ * {@link CourierSpatialIndex}; the PostGIS queries are only used until the index has been
+ * loaded after startup.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CourierLocatorServiceImpl implements CourierLocatorService {
+
+    private final CourierSpatialIndex spatialIndex;
+    private final CourierRepository courierRepository;
+
+    @Override
+    public List<String> findAvailableCouriersNear(double latitude, double longitude, double radiusKm, int maxResults) {
+        if (spatialIndex.isLoaded()) {
+            return spatialIndex.findAvailableCourierIdsNearLocation(latitude, longitude, radiusKm, maxResults);
+        }
+        log.debug("Courier index not loaded yet, querying the database");
+        return toIds(courierRepository.findAvailableCouriersNearLocation(latitude, longitude, radiusKm), maxResults);
+    }
+
+    @Override
+    public List<String> findCouriersNear(double latitude, double longitude, double radiusKm,
+                                         CourierStatus status, int maxResults) {
+        if (spatialIndex.isLoaded()) {
+            return spatialIndex.findCourierIdsNearLocation(latitude, longitude, radiusKm, status, maxResults);
+        }
+        log.debug("Courier index not loaded yet, querying the database");
+        return toIds(courierRepository.findActiveCouriersNearLocationWithStatus(
+                latitude, longitude, radiusKm, status.name()), maxResults);
+    }
+
+    private static List<String> toIds(List<Courier> couriers, int maxResults) {
+        return couriers.stream()
+                .map(Courier::getId)
+                .limit(Math.max(1, maxResults))
+                .collect(Collectors.toList());
+    }
+}
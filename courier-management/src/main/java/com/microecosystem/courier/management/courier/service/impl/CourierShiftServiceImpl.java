@@ -0,0 +1,118 @@
+package com.gogidix.courier.management.courier.service.impl;
+
+import com.gogidix.courier.management.courier.availability.CourierAvailabilityIndex;
+import com.gogidix.courier.management.courier.dto.CourierShiftDTO;
+import com.gogidix.courier.management.courier.model.Courier;
+import com.gogidix.courier.management.courier.model.CourierShift;
+import com.gogidix.courier.management.courier.repository.CourierRepository;
+import com.gogidix.courier.management.courier.repository.CourierShiftRepository;
+import com.gogidix.courier.management.courier.service.CourierShiftService;
+import com.gogidix.courier.management.exception.BusinessException;
+import com.gogidix.courier.management.exception.ResourceNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of the CourierShiftService interface. Availability queries are answered from
+ * the {@link CourierAvailabilityIndex} without touching the database.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CourierShiftServiceImpl implements CourierShiftService {
+
+    private final CourierShiftRepository shiftRepository;
+    private final CourierRepository courierRepository;
+    private final CourierAvailabilityIndex availabilityIndex;
+
+    @Override
+    @Transactional
+    public CourierShiftDTO createShift(String courierId, CourierShiftDTO shift) {
+        log.info("Scheduling shift for courier {} from {} to {}", courierId, shift.getStartTime(), shift.getEndTime());
+        validateTimes(shift.getStartTime(), shift.getEndTime());
+        Courier courier = courierRepository.findByCourierId(courierId)
+                .orElseThrow(() -> new ResourceNotFoundException("Courier not found with courierId: " + courierId));
+        requireNoOverlap(courier.getId(), null, shift);
+
+        CourierShift created = shiftRepository.save(CourierShift.builder()
+                .courier(courier)
+                .zone(shift.getZone())
+                .startTime(shift.getStartTime())
+                .endTime(shift.getEndTime())
+                .build());
+        return toDto(created);
+    }
+
+    @Override
+    @Transactional
+    public CourierShiftDTO updateShift(Long shiftId, CourierShiftDTO shift) {
+        log.info("Updating shift {}", shiftId);
+        validateTimes(shift.getStartTime(), shift.getEndTime());
+        CourierShift existing = getShiftOrThrow(shiftId);
+        requireNoOverlap(existing.getCourier().getId(), shiftId, shift);
+
+        existing.setZone(shift.getZone());
+        existing.setStartTime(shift.getStartTime());
+        existing.setEndTime(shift.getEndTime());
+        return toDto(shiftRepository.save(existing));
+    }
+
+    @Override
+    @Transactional
+    public void deleteShift(Long shiftId) {
+        log.info("Deleting shift {}", shiftId);
+        shiftRepository.delete(getShiftOrThrow(shiftId));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<CourierShiftDTO> getShifts(String courierId, LocalDateTime from, LocalDateTime to) {
+        validateTimes(from, to);
+        Courier courier = courierRepository.findByCourierId(courierId)
+                .orElseThrow(() -> new ResourceNotFoundException("Courier not found with courierId: " + courierId));
+        return shiftRepository.findOverlapping(courier.getId(), from, to).stream()
+                .map(this::toDto)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<String> findAvailableCouriers(LocalDateTime from, LocalDateTime to, String zone, String vehicleType) {
+        validateTimes(from, to);
+        return availabilityIndex.findAvailable(from, to, zone, vehicleType);
+    }
+
+    private CourierShift getShiftOrThrow(Long shiftId) {
+        return shiftRepository.findById(shiftId)
+                .orElseThrow(() -> new ResourceNotFoundException("Shift not found with ID: " + shiftId));
+    }
+
+    private void requireNoOverlap(String courierId, Long shiftId, CourierShiftDTO shift) {
+        boolean overlaps = shiftRepository.findOverlapping(courierId, shift.getStartTime(), shift.getEndTime()).stream()
+                .anyMatch(other -> !other.getId().equals(shiftId));
+        if (overlaps) {
+            throw new BusinessException("Shift overlaps another shift of the courier");
+        }
+    }
+
+    private static void validateTimes(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || !to.isAfter(from)) {
+            throw new BusinessException("End time must be after start time");
+        }
+    }
+
+    private CourierShiftDTO toDto(CourierShift shift) {
+        return CourierShiftDTO.builder()
+                .id(shift.getId())
+                .courierId(shift.getCourier().getCourierId())
+                .zone(shift.getZone())
+                .startTime(shift.getStartTime())
+                .endTime(shift.getEndTime())
+                .build();
+    }
+}
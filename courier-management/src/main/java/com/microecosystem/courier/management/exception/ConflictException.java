@@ -0,0 +1,30 @@
+package com.gogidix.courier.management.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when an update was based on a version of a resource that has since changed.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class ConflictException extends RuntimeException {
+
+    /**
+     * Creates a new conflict exception with the specified message.
+     *
+     * @param message the detail message
+     */
+    public ConflictException(String message) {
+        super(message);
+    }
+
+    /**
+     * Creates a new conflict exception with the specified message and cause.
+     *
+     * @param message the detail message
+     * @param cause the cause
+     */
+    public ConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
\ No newline at end of file
@@ -1,6 +1,10 @@
 package com.gogidix.courier.management.performance.controller;
 
+import com.gogidix.courier.management.exception.ResourceNotFoundException;
+import com.gogidix.courier.management.performance.dto.LeaderboardDTO;
+import com.gogidix.courier.management.performance.dto.LeaderboardEntryDTO;
 import com.gogidix.courier.management.performance.dto.PerformanceMetricDTO;
+import com.gogidix.courier.management.performance.leaderboard.LeaderboardWindow;
 import com.gogidix.courier.management.performance.model.MetricType;
 import com.gogidix.courier.management.performance.service.PerformanceMetricsService;
 import org.slf4j.Logger;
@@ -252,4 +256,60 @@ public class PerformanceMetricsController {
         Map<String, Object> report = metricsService.generatePerformanceReport(courierId, startDate, endDate);
         return ResponseEntity.ok(report);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Rebuild the metric rollups for a date range from the raw metrics.
+     *
+     * @param startDate the start date (inclusive)
+     * @param endDate the end date (inclusive)
+     * @return the number of metrics rolled up
+     */
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<Map<String, Long>> rebuildRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        logger.info("REST request to rebuild performance rollups from {} to {}", startDate, endDate);
+        long rolledUp = metricsService.rebuildRollups(startDate, endDate);
+        return ResponseEntity.ok(Map.of("metricsRolledUp", rolledUp));
+    }
+
+    /**
+     * Get the best performers for a metric. Served from in-memory leaderboards.
+     *
+     * @param metricType the type of metric
+     * @param window the sliding window to rank over
+     * @param region the region geohash, or all couriers if omitted
+     * @param limit the maximum number of entries
+     * @return the leaderboard
+     */
+    @GetMapping("/leaderboards/{metricType}")
+    public ResponseEntity<LeaderboardDTO> getLeaderboard(
+            @PathVariable MetricType metricType,
+            @RequestParam(defaultValue = "DAY") LeaderboardWindow window,
+            @RequestParam(required = false) String region,
+            @RequestParam(defaultValue = "10") int limit) {
+        logger.info("REST request to get {} leaderboard for metric type: {}, region: {}", window, metricType, region);
+        return ResponseEntity.ok(metricsService.getLeaderboard(metricType, window, region, limit));
+    }
+
+    /**
+     * Get a courier's rank for a metric. Served from in-memory leaderboards.
+     *
+     * @param metricType the type of metric
+     * @param courierId the ID of the courier
+     * @param window the sliding window to rank over
+     * @param region the region geohash, or all couriers if omitted
+     * @return the courier's leaderboard entry
+     */
+    @GetMapping("/leaderboards/{metricType}/courier/{courierId}")
+    public ResponseEntity<LeaderboardEntryDTO> getLeaderboardEntry(
+            @PathVariable MetricType metricType,
+            @PathVariable String courierId,
+            @RequestParam(defaultValue = "DAY") LeaderboardWindow window,
+            @RequestParam(required = false) String region) {
+        logger.info("REST request to get {} leaderboard rank of courier: {} for metric type: {}", window, courierId, metricType);
+        LeaderboardEntryDTO entry = metricsService.getLeaderboardEntry(courierId, metricType, window, region)
+                .orElseThrow(() -> new ResourceNotFoundException("Courier " + courierId + " is not ranked for " + metricType));
+        return ResponseEntity.ok(entry);
+    }
+}
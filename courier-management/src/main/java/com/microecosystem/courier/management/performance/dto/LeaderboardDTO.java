@@ -0,0 +1,36 @@
+package com.gogidix.courier.management.performance.dto;
+
+import com.gogidix.courier.management.performance.leaderboard.LeaderboardWindow;
+import com.gogidix.courier.management.performance.model.MetricType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * The best performers for one metric, window and region.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardDTO {
+
+    private MetricType metricType;
+
+    private LeaderboardWindow window;
+
+    /**
+     * Geohash of the region, or null for all couriers.
+     */
+    private String region;
+
+    /**
+     * Number of couriers ranked on the board.
+     */
+    private int rankedCouriers;
+
+    private List<LeaderboardEntryDTO> entries;
+}
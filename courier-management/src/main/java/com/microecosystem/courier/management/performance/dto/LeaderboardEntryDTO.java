@@ -0,0 +1,30 @@
+package com.gogidix.courier.management.performance.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A courier's position on a leaderboard.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardEntryDTO {
+
+    /**
+     * 1-based rank; 1 is the best performer.
+     */
+    private int rank;
+
+    private String courierId;
+
+    private String courierName;
+
+    /**
+     * Average metric value over the window.
+     */
+    private double score;
+}
@@ -0,0 +1,44 @@
+package com.gogidix.courier.management.performance.dto;
+
+import com.gogidix.courier.management.performance.model.MetricType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Aggregated statistics for one metric type over a date range, computed from rollups.
+ * Percentiles are estimates within one percent of the true value.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricSummaryDTO {
+
+    private MetricType metricType;
+
+    private long count;
+
+    private double sum;
+
+    private Double average;
+
+    private Double min;
+
+    private Double max;
+
+    private Double p50;
+
+    private Double p90;
+
+    private Double p95;
+
+    private Double firstValue;
+
+    private Double lastValue;
+
+    private long targetCount;
+
+    private long targetMetCount;
+}
@@ -0,0 +1,43 @@
+package com.gogidix.courier.management.performance.event;
+
+import com.gogidix.courier.management.performance.model.MetricType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDate;
+
+/**
+ * Published when a performance metric value is recorded or withdrawn. An updated metric is
+ * published as the withdrawal of its old value followed by the recording of its new one.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class PerformanceMetricChangedEvent {
+
+    /**
+     * Entity ID of the courier.
+     */
+    private final String courierId;
+
+    private final String courierName;
+
+    private final MetricType metricType;
+
+    private final LocalDate date;
+
+    private final double value;
+
+    /**
+     * Whether the value was removed rather than added.
+     */
+    private final boolean withdrawn;
+
+    /**
+     * The courier's position when the value was recorded, or null if unknown.
+     */
+    private final Double latitude;
+
+    private final Double longitude;
+}
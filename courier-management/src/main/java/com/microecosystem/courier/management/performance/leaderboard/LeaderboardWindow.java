@@ -0,0 +1,31 @@
+package com.gogidix.courier.management.performance.leaderboard;
+
+/**
+ * Sliding windows a leaderboard can rank over, ending with the current day.
+ */
+public enum LeaderboardWindow {
+    /**
+     * Metrics dated today.
+     */
+    DAY(1),
+
+    /**
+     * Metrics dated within the last seven days, including today.
+     */
+    WEEK(7);
+
+    private final int days;
+
+    LeaderboardWindow(int days) {
+        this.days = days;
+    }
+
+    /**
+     * Gets the number of days the window covers.
+     *
+     * @return the window length in days
+     */
+    public int getDays() {
+        return days;
+    }
+}
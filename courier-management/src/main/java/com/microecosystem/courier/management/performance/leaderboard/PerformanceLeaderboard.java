@@ -0,0 +1,383 @@
+package com.gogidix.courier.management.performance.leaderboard;
+
+import com.gogidix.courier.management.assignment.clustering.Geohash;
+import com.gogidix.courier.management.courier.model.Courier;
+import com.gogidix.courier.management.performance.dto.LeaderboardEntryDTO;
+import com.gogidix.courier.management.performance.event.PerformanceMetricChangedEvent;
+import com.gogidix.courier.management.performance.model.MetricType;
+import com.gogidix.courier.management.performance.model.PerformanceMetric;
+import com.gogidix.courier.management.performance.repository.PerformanceMetricRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory courier leaderboards per metric type, sliding window and region, kept up to date
+ * as metrics are written. A courier's score is the average of their metric values within the
+ * window; regions are geohash cells of the courier's position when they last recorded a metric.
+ * Each board is a {@link RankedBoard}, so reads never touch the database. The boards are loaded
+ * once from the last week of metrics at startup and re-ranked when the day rolls over.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PerformanceLeaderboard {
+
+    private static final int SLOTS = LeaderboardWindow.WEEK.getDays();
+
+    private final PerformanceMetricRepository metricRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, CourierState> couriers = new HashMap<>();
+    private final Map<BoardKey, RankedBoard> boards = new HashMap<>();
+    private volatile LocalDate today;
+    private Clock clock = Clock.systemDefaultZone();
+
+    @Value("${performance.leaderboard.region-geohash-precision:4}")
+    private int regionPrecision = 4;
+
+    /**
+     * Loads the metrics of the longest window so the boards are complete from the start.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        LocalDate now = LocalDate.now(clock);
+        List<PerformanceMetricChangedEvent> recorded = transactionTemplate.execute(status ->
+                metricRepository.findByDateBetween(now.minusDays(SLOTS - 1), now).stream()
+                        .filter(metric -> metric.getValue() != null)
+                        .map(PerformanceLeaderboard::toEvent)
+                        .collect(Collectors.toList()));
+        lock.writeLock().lock();
+        try {
+            recorded.forEach(this::apply);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Loaded {} performance metrics into leaderboards for {} couriers", recorded.size(), couriers.size());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMetricChanged(PerformanceMetricChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            apply(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the best performers on a board.
+     *
+     * @param metricType the metric type
+     * @param window the window
+     * @param region the region geohash, or null for all couriers
+     * @param limit the maximum number of entries
+     * @return the entries in rank order
+     */
+    public List<LeaderboardEntryDTO> top(MetricType metricType, LeaderboardWindow window, String region, int limit) {
+        rollOverIfNeeded();
+        lock.readLock().lock();
+        try {
+            RankedBoard board = boards.get(new BoardKey(region, metricType, window));
+            if (board == null) {
+                return List.of();
+            }
+            List<LeaderboardEntryDTO> entries = new ArrayList<>();
+            int rank = 1;
+            for (Map.Entry<String, Double> entry : board.range(1, limit)) {
+                entries.add(toEntry(rank++, entry.getKey(), entry.getValue(), metricType));
+            }
+            return entries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets a courier's position on a board.
+     *
+     * @param courierId the courier entity ID
+     * @param metricType the metric type
+     * @param window the window
+     * @param region the region geohash, or null for all couriers
+     * @return the entry, or empty if the courier has no metrics in the window and region
+     */
+    public Optional<LeaderboardEntryDTO> entry(String courierId, MetricType metricType, LeaderboardWindow window,
+                                               String region) {
+        rollOverIfNeeded();
+        lock.readLock().lock();
+        try {
+            RankedBoard board = boards.get(new BoardKey(region, metricType, window));
+            int rank = board != null ? board.rank(courierId) : 0;
+            if (rank == 0) {
+                return Optional.empty();
+            }
+            return Optional.of(toEntry(rank, courierId, board.score(courierId), metricType));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the number of couriers ranked on a board.
+     *
+     * @param metricType the metric type
+     * @param window the window
+     * @param region the region geohash, or null for all couriers
+     * @return the number of ranked couriers
+     */
+    public int size(MetricType metricType, LeaderboardWindow window, String region) {
+        rollOverIfNeeded();
+        lock.readLock().lock();
+        try {
+            RankedBoard board = boards.get(new BoardKey(region, metricType, window));
+            return board != null ? board.size() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the region a position falls in.
+     *
+     * @param latitude the latitude
+     * @param longitude the longitude
+     * @return the region geohash
+     */
+    public String regionOf(double latitude, double longitude) {
+        return Geohash.toBase32(Geohash.encode(latitude, longitude, regionPrecision), regionPrecision);
+    }
+
+    public int getRegionPrecision() {
+        return regionPrecision;
+    }
+
+    // Callers hold the write lock
+    private void apply(PerformanceMetricChangedEvent event) {
+        LocalDate now = currentDay();
+        long day = event.getDate().toEpochDay();
+        if (day > now.toEpochDay() || day <= now.toEpochDay() - SLOTS) {
+            return;
+        }
+        CourierState state = couriers.computeIfAbsent(event.getCourierId(), id -> new CourierState());
+        if (event.getCourierName() != null) {
+            state.name = event.getCourierName();
+        }
+        DailyScores scores = state.scores.computeIfAbsent(event.getMetricType(), type -> new DailyScores());
+        scores.add(day, event.getValue(), event.isWithdrawn() ? -1 : 1);
+
+        if (!event.isWithdrawn() && event.getLatitude() != null && event.getLongitude() != null) {
+            String region = regionOf(event.getLatitude(), event.getLongitude());
+            if (!region.equals(state.region)) {
+                // The courier moves to the new region's boards with all their metrics
+                if (state.region != null) {
+                    for (MetricType type : state.scores.keySet()) {
+                        for (LeaderboardWindow window : LeaderboardWindow.values()) {
+                            removeFrom(new BoardKey(state.region, type, window), event.getCourierId());
+                        }
+                    }
+                }
+                state.region = region;
+                for (MetricType type : state.scores.keySet()) {
+                    rank(event.getCourierId(), state, type, now);
+                }
+                return;
+            }
+        }
+        rank(event.getCourierId(), state, event.getMetricType(), now);
+    }
+
+    private void rank(String courierId, CourierState state, MetricType metricType, LocalDate now) {
+        DailyScores scores = state.scores.get(metricType);
+        for (LeaderboardWindow window : LeaderboardWindow.values()) {
+            double average = scores.average(now.toEpochDay(), window.getDays());
+            BoardKey global = new BoardKey(null, metricType, window);
+            BoardKey regional = state.region != null ? new BoardKey(state.region, metricType, window) : null;
+            if (Double.isNaN(average)) {
+                removeFrom(global, courierId);
+                removeFrom(regional, courierId);
+            } else {
+                // Boards rank the highest score first, so lower-is-better metrics are negated
+                double score = metricType.isLowerBetter() ? -average : average;
+                boards.computeIfAbsent(global, key -> new RankedBoard()).put(courierId, score);
+                if (regional != null) {
+                    boards.computeIfAbsent(regional, key -> new RankedBoard()).put(courierId, score);
+                }
+            }
+        }
+    }
+
+    private void removeFrom(BoardKey key, String courierId) {
+        if (key == null) {
+            return;
+        }
+        RankedBoard board = boards.get(key);
+        if (board != null && board.remove(courierId) && board.size() == 0) {
+            boards.remove(key);
+        }
+    }
+
+    private void rollOverIfNeeded() {
+        if (!LocalDate.now(clock).equals(today)) {
+            lock.writeLock().lock();
+            try {
+                currentDay();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Re-ranks every courier when the windows have moved on; callers hold the write lock
+    private LocalDate currentDay() {
+        LocalDate now = LocalDate.now(clock);
+        if (now.equals(today)) {
+            return now;
+        }
+        boolean firstDay = today == null;
+        today = now;
+        if (firstDay) {
+            return now;
+        }
+        boards.clear();
+        Iterator<Map.Entry<String, CourierState>> iterator = couriers.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, CourierState> courier = iterator.next();
+            courier.getValue().scores.values().removeIf(scores -> scores.isEmpty(now.toEpochDay()));
+            if (courier.getValue().scores.isEmpty()) {
+                iterator.remove();
+                continue;
+            }
+            for (MetricType type : courier.getValue().scores.keySet()) {
+                rank(courier.getKey(), courier.getValue(), type, now);
+            }
+        }
+        log.info("Leaderboards rolled over to {}: {} couriers ranked", now, couriers.size());
+        return now;
+    }
+
+    private LeaderboardEntryDTO toEntry(int rank, String courierId, double score, MetricType metricType) {
+        CourierState state = couriers.get(courierId);
+        return LeaderboardEntryDTO.builder()
+                .rank(rank)
+                .courierId(courierId)
+                .courierName(state != null ? state.name : null)
+                .score(metricType.isLowerBetter() ? -score : score)
+                .build();
+    }
+
+    private static PerformanceMetricChangedEvent toEvent(PerformanceMetric metric) {
+        Courier courier = metric.getCourier();
+        return new PerformanceMetricChangedEvent(courier.getId(), courier.getFullName(), metric.getMetricType(),
+                metric.getDate(), metric.getValue(), false, courier.getCurrentLatitude(), courier.getCurrentLongitude());
+    }
+
+    private static final class CourierState {
+
+        private final Map<MetricType, DailyScores> scores = new EnumMap<>(MetricType.class);
+        private String name;
+        private String region;
+    }
+
+    /**
+     * Per-day sums and counts of one courier's metric over the longest window, in a ring of
+     * day slots.
+     */
+    private static final class DailyScores {
+
+        private final long[] days = new long[SLOTS];
+        private final double[] sums = new double[SLOTS];
+        private final int[] counts = new int[SLOTS];
+
+        private DailyScores() {
+            Arrays.fill(days, Long.MIN_VALUE);
+        }
+
+        private void add(long day, double value, int sign) {
+            int slot = (int) Math.floorMod(day, (long) SLOTS);
+            if (days[slot] != day) {
+                if (sign < 0) {
+                    return;
+                }
+                // The slot held a day that has left every window
+                days[slot] = day;
+                sums[slot] = 0.0;
+                counts[slot] = 0;
+            }
+            sums[slot] += sign * value;
+            counts[slot] += sign;
+            if (counts[slot] <= 0) {
+                sums[slot] = 0.0;
+                counts[slot] = 0;
+            }
+        }
+
+        private double average(long today, int windowDays) {
+            double sum = 0.0;
+            int count = 0;
+            for (int slot = 0; slot < SLOTS; slot++) {
+                if (days[slot] <= today && days[slot] > today - windowDays) {
+                    sum += sums[slot];
+                    count += counts[slot];
+                }
+            }
+            return count > 0 ? sum / count : Double.NaN;
+        }
+
+        private boolean isEmpty(long today) {
+            return Double.isNaN(average(today, SLOTS));
+        }
+    }
+
+    private static final class BoardKey {
+
+        private final String region;
+        private final MetricType metricType;
+        private final LeaderboardWindow window;
+
+        private BoardKey(String region, MetricType metricType, LeaderboardWindow window) {
+            this.region = region;
+            this.metricType = metricType;
+            this.window = window;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BoardKey)) {
+                return false;
+            }
+            BoardKey other = (BoardKey) o;
+            return Objects.equals(region, other.region) && metricType == other.metricType && window == other.window;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(region, metricType, window);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.gogidix.courier.management.performance.leaderboard;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Indexable skip list of couriers ordered by score, highest first, with ties broken by courier
+ * ID. Every forward link records how many entries it skips, so updates, removals and the rank
+ * of any courier take O(log n), and the top N are read in O(N). Not thread-safe.
+ */
+final class RankedBoard {
+
+    private static final int MAX_LEVEL = 24;
+
+    private final Node head = new Node(null, 0.0, MAX_LEVEL);
+    private final Map<String, Node> nodes = new HashMap<>();
+    private int level = 1;
+
+    /**
+     * Sets a courier's score, inserting the courier if it is not ranked yet.
+     *
+     * @param courierId the courier ID
+     * @param score the score; higher ranks first
+     */
+    void put(String courierId, double score) {
+        Node existing = nodes.get(courierId);
+        if (existing != null) {
+            if (existing.score == score) {
+                return;
+            }
+            unlink(existing);
+        }
+        nodes.put(courierId, insert(courierId, score));
+    }
+
+    /**
+     * Removes a courier from the board.
+     *
+     * @param courierId the courier ID
+     * @return true if the courier was ranked
+     */
+    boolean remove(String courierId) {
+        Node node = nodes.remove(courierId);
+        if (node == null) {
+            return false;
+        }
+        unlink(node);
+        return true;
+    }
+
+    /**
+     * Gets a courier's 1-based rank.
+     *
+     * @param courierId the courier ID
+     * @return the rank, or 0 if the courier is not ranked
+     */
+    int rank(String courierId) {
+        Node target = nodes.get(courierId);
+        if (target == null) {
+            return 0;
+        }
+        int rank = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && (x.next[i] == target || precedes(x.next[i], target.score, target.courierId))) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+            if (x == target) {
+                return rank;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Gets a courier's score.
+     *
+     * @param courierId the courier ID
+     * @return the score, or NaN if the courier is not ranked
+     */
+    double score(String courierId) {
+        Node node = nodes.get(courierId);
+        return node != null ? node.score : Double.NaN;
+    }
+
+    /**
+     * Lists entries by rank.
+     *
+     * @param fromRank the first rank to return, 1-based
+     * @param limit the maximum number of entries
+     * @return courier IDs and scores in rank order
+     */
+    List<Map.Entry<String, Double>> range(int fromRank, int limit) {
+        List<Map.Entry<String, Double>> entries = new ArrayList<>(Math.max(0, Math.min(limit, nodes.size())));
+        Node x = nodeAt(fromRank);
+        while (x != null && entries.size() < limit) {
+            entries.add(Map.entry(x.courierId, x.score));
+            x = x.next[0];
+        }
+        return entries;
+    }
+
+    int size() {
+        return nodes.size();
+    }
+
+    private Node nodeAt(int rank) {
+        if (rank < 1 || rank > nodes.size()) {
+            return null;
+        }
+        int traversed = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] <= rank) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+            if (traversed == rank) {
+                return x;
+            }
+        }
+        return null;
+    }
+
+    private Node insert(String courierId, double score) {
+        Node[] update = new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && precedes(x.next[i], score, courierId)) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        int nodeLevel = randomLevel();
+        if (nodeLevel > level) {
+            for (int i = level; i < nodeLevel; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                // Links on new levels skip the entries already on the board
+                head.span[i] = nodes.size();
+            }
+            level = nodeLevel;
+        }
+
+        Node node = new Node(courierId, score, nodeLevel);
+        for (int i = 0; i < nodeLevel; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = rank[0] - rank[i] + 1;
+        }
+        for (int i = nodeLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+        return node;
+    }
+
+    private void unlink(Node node) {
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && precedes(x.next[i], node.score, node.courierId)) {
+                x = x.next[i];
+            }
+            if (x.next[i] == node) {
+                x.span[i] += node.span[i] - 1;
+                x.next[i] = node.next[i];
+            } else {
+                x.span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            head.span[level - 1] = 0;
+            level--;
+        }
+    }
+
+    // Whether a node sorts before the given score and courier ID
+    private static boolean precedes(Node node, double score, String courierId) {
+        return node.score > score || (node.score == score && node.courierId.compareTo(courierId) < 0);
+    }
+
+    private static int randomLevel() {
+        int nodeLevel = 1;
+        while (nodeLevel < MAX_LEVEL && ThreadLocalRandom.current().nextInt(4) == 0) {
+            nodeLevel++;
+        }
+        return nodeLevel;
+    }
+
+    private static final class Node {
+
+        private final String courierId;
+        private final double score;
+        private final Node[] next;
+        private final int[] span;
+
+        private Node(String courierId, double score, int level) {
+            this.courierId = courierId;
+            this.score = score;
+            this.next = new Node[level];
+            this.span = new int[level];
+        }
+    }
+}
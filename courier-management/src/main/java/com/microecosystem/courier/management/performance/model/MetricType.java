@@ -73,4 +73,25 @@ public enum MetricType {
      * Custom metric defined for specific use cases.
      */
     CUSTOM;
+    
+    /**
+     * Checks whether a lower value of this metric means better performance, e.g. delivery
+     * times and complaint counts.
+     * 
+     * @return true if lower values rank higher
+     */
+    public boolean isLowerBetter() {
+        switch (this) {
+            case AVERAGE_DELIVERY_TIME:
+            case ASSIGNMENT_ACCEPTANCE_TIME:
+            case DISTANCE_PER_DELIVERY:
+            case COMPLAINT_COUNT:
+            case IDLE_TIME_PERCENTAGE:
+            case AVERAGE_PICKUP_TIME:
+            case AVERAGE_DROPOFF_TIME:
+                return true;
+            default:
+                return false;
+        }
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,169 @@
+package com.gogidix.courier.management.performance.model;
+
+import com.gogidix.courier.management.courier.model.Courier;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Pre-aggregated performance metrics for one courier, metric type and time bucket.
+ * Hourly rollups are updated as metrics are recorded; a scheduled job folds closed hours
+ * into the daily rollup of the same metric date and flags them as compacted.
+ * Reports read daily rollups plus hourly rollups that are not yet compacted.
+ */
+@Entity
+@Table(name = "performance_metric_rollups",
+        uniqueConstraints = @UniqueConstraint(name = "uk_performance_metric_rollup_bucket",
+                columnNames = {"granularity", "courier_id", "metric_type", "metric_date", "bucket_start"}),
+        indexes = {
+                @Index(name = "idx_performance_metric_rollup_date", columnList = "metric_date, metric_type"),
+                @Index(name = "idx_performance_metric_rollup_courier_date", columnList = "courier_id, metric_date")
+        })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PerformanceMetricRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 10)
+    @Enumerated(EnumType.STRING)
+    private RollupGranularity granularity;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "courier_id", nullable = false)
+    private Courier courier;
+
+    @Column(name = "metric_type", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private MetricType metricType;
+
+    @Column(name = "metric_date", nullable = false)
+    private LocalDate metricDate;
+
+    /**
+     * Start of the recording hour for hourly rollups, start of the metric date for daily ones.
+     */
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "sample_count", nullable = false)
+    @Builder.Default
+    private Long sampleCount = 0L;
+
+    @Column(name = "value_sum", nullable = false)
+    @Builder.Default
+    private Double valueSum = 0.0;
+
+    @Column(name = "min_value")
+    private Double minValue;
+
+    @Column(name = "max_value")
+    private Double maxValue;
+
+    @Column(name = "first_value")
+    private Double firstValue;
+
+    @Column(name = "last_value")
+    private Double lastValue;
+
+    @Column(name = "target_count", nullable = false)
+    @Builder.Default
+    private Long targetCount = 0L;
+
+    @Column(name = "target_met_count", nullable = false)
+    @Builder.Default
+    private Long targetMetCount = 0L;
+
+    @Column(name = "sketch")
+    private byte[] sketch;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Boolean compacted = false;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    /**
+     * Adds a recorded metric to this rollup.
+     *
+     * @param metric the metric
+     */
+    public void record(PerformanceMetric metric) {
+        double value = metric.getValue();
+        QuantileSketch valueSketch = QuantileSketch.fromBytes(sketch);
+        valueSketch.add(value);
+        sketch = valueSketch.toBytes();
+
+        if (sampleCount == 0) {
+            firstValue = value;
+        }
+        lastValue = value;
+        sampleCount++;
+        valueSum += value;
+        minValue = minValue == null ? value : Math.min(minValue, value);
+        maxValue = maxValue == null ? value : Math.max(maxValue, value);
+        if (metric.getTargetValue() != null) {
+            targetCount++;
+            if (Boolean.TRUE.equals(metric.getIsTargetMet())) {
+                targetMetCount++;
+            }
+        }
+    }
+
+    /**
+     * Empties this rollup so that it can be rebuilt.
+     */
+    public void reset() {
+        sampleCount = 0L;
+        valueSum = 0.0;
+        minValue = null;
+        maxValue = null;
+        firstValue = null;
+        lastValue = null;
+        targetCount = 0L;
+        targetMetCount = 0L;
+        sketch = null;
+    }
+
+    /**
+     * Merges a later rollup into this one.
+     *
+     * @param other the rollup to merge, covering values recorded after this one
+     */
+    public void merge(PerformanceMetricRollup other) {
+        if (other.getSampleCount() == 0) {
+            return;
+        }
+        QuantileSketch valueSketch = QuantileSketch.fromBytes(sketch);
+        valueSketch.merge(QuantileSketch.fromBytes(other.getSketch()));
+        sketch = valueSketch.toBytes();
+
+        if (sampleCount == 0) {
+            firstValue = other.getFirstValue();
+        }
+        lastValue = other.getLastValue();
+        sampleCount += other.getSampleCount();
+        valueSum += other.getValueSum();
+        minValue = minValue == null ? other.getMinValue() : Math.min(minValue, other.getMinValue());
+        maxValue = maxValue == null ? other.getMaxValue() : Math.max(maxValue, other.getMaxValue());
+        targetCount += other.getTargetCount();
+        targetMetCount += other.getTargetMetCount();
+    }
+}
@@ -0,0 +1,194 @@
+package com.gogidix.courier.management.performance.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Mergeable quantile sketch with bounded relative error, stored with each metric rollup.
+ * Values are counted in logarithmically sized bins, so any quantile is returned within
+ * {@link #RELATIVE_ACCURACY} of the true value and two sketches merge by adding bin counts.
+ * This lets hourly rollups fold into daily ones and daily ones into report ranges without
+ * keeping the raw values.
+ */
+public class QuantileSketch {
+
+    /**
+     * Maximum relative error of a returned quantile.
+     */
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final double MIN_INDEXABLE_VALUE = 1e-9;
+    private static final int MAX_BINS_PER_SIDE = 2048;
+    private static final byte FORMAT_VERSION = 1;
+
+    // Bin index -> count, for positive values and for magnitudes of negative values
+    private final TreeMap<Integer, Long> positiveBins = new TreeMap<>();
+    private final TreeMap<Integer, Long> negativeBins = new TreeMap<>();
+    private long zeroCount;
+    private long count;
+
+    /**
+     * Adds a value to the sketch.
+     *
+     * @param value the value
+     */
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (Math.abs(value) < MIN_INDEXABLE_VALUE) {
+            zeroCount++;
+        } else if (value > 0) {
+            addToBin(positiveBins, index(value), 1);
+        } else {
+            addToBin(negativeBins, index(-value), 1);
+        }
+        count++;
+    }
+
+    /**
+     * Merges another sketch into this one.
+     *
+     * @param other the sketch to merge
+     */
+    public void merge(QuantileSketch other) {
+        other.positiveBins.forEach((index, binCount) -> addToBin(positiveBins, index, binCount));
+        other.negativeBins.forEach((index, binCount) -> addToBin(negativeBins, index, binCount));
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    /**
+     * Gets the number of values in the sketch.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Estimates a quantile.
+     *
+     * @param quantile the quantile between 0 and 1
+     * @return the estimated value, or null if the sketch is empty
+     */
+    public Double getQuantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1");
+        }
+        if (count == 0) {
+            return null;
+        }
+        long rank = (long) Math.floor(quantile * (count - 1));
+        long seen = 0;
+        // Negative values ascend as their magnitude bins descend
+        for (Map.Entry<Integer, Long> bin : negativeBins.descendingMap().entrySet()) {
+            seen += bin.getValue();
+            if (seen > rank) {
+                return -value(bin.getKey());
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) {
+            return 0.0;
+        }
+        for (Map.Entry<Integer, Long> bin : positiveBins.entrySet()) {
+            seen += bin.getValue();
+            if (seen > rank) {
+                return value(bin.getKey());
+            }
+        }
+        return value(positiveBins.lastKey());
+    }
+
+    /**
+     * Serialises the sketch for storage.
+     *
+     * @return the encoded sketch
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + 12 * (positiveBins.size() + negativeBins.size()));
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(zeroCount);
+            writeBins(out, positiveBins);
+            writeBins(out, negativeBins);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Restores a sketch from its stored form.
+     *
+     * @param data the encoded sketch, may be null or empty
+     * @return the sketch
+     */
+    public static QuantileSketch fromBytes(byte[] data) {
+        QuantileSketch sketch = new QuantileSketch();
+        if (data == null || data.length == 0) {
+            return sketch;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported sketch format version: " + version);
+            }
+            sketch.zeroCount = in.readLong();
+            sketch.count = sketch.zeroCount;
+            sketch.count += readBins(in, sketch.positiveBins);
+            sketch.count += readBins(in, sketch.negativeBins);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sketch;
+    }
+
+    private static int index(double magnitude) {
+        return (int) Math.ceil(Math.log(Math.max(magnitude, MIN_INDEXABLE_VALUE)) / LOG_GAMMA);
+    }
+
+    private static double value(int index) {
+        // Midpoint of the bin (gamma^(i-1), gamma^i] in relative terms
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+
+    private static void addToBin(TreeMap<Integer, Long> bins, int index, long binCount) {
+        bins.merge(index, binCount, Long::sum);
+        if (bins.size() > MAX_BINS_PER_SIDE) {
+            // Fold the smallest-magnitude bin into its neighbour; only the extreme low tail loses accuracy
+            Map.Entry<Integer, Long> lowest = bins.pollFirstEntry();
+            bins.merge(bins.firstKey(), lowest.getValue(), Long::sum);
+        }
+    }
+
+    private static void writeBins(DataOutputStream out, TreeMap<Integer, Long> bins) throws IOException {
+        out.writeInt(bins.size());
+        for (Map.Entry<Integer, Long> bin : bins.entrySet()) {
+            out.writeInt(bin.getKey());
+            out.writeLong(bin.getValue());
+        }
+    }
+
+    private static long readBins(DataInputStream in, TreeMap<Integer, Long> bins) throws IOException {
+        int size = in.readInt();
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            int index = in.readInt();
+            long binCount = in.readLong();
+            bins.put(index, binCount);
+            total += binCount;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,16 @@
+package com.gogidix.courier.management.performance.model;
+
+/**
+ * Time granularity of a performance metric rollup.
+ */
+public enum RollupGranularity {
+    /**
+     * Metrics recorded during one clock hour, maintained as metrics are recorded.
+     */
+    HOURLY,
+
+    /**
+     * All metrics for one metric date, built by compacting hourly rollups.
+     */
+    DAILY;
+}
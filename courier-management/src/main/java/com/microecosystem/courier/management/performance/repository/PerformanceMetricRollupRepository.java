@@ -0,0 +1,191 @@
+package com.gogidix.courier.management.performance.repository;
+
+import com.gogidix.courier.management.courier.model.Courier;
+import com.gogidix.courier.management.performance.model.MetricType;
+import com.gogidix.courier.management.performance.model.PerformanceMetricRollup;
+import com.gogidix.courier.management.performance.model.RollupGranularity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for pre-aggregated performance metric rollups.
+ * "Live" rollups are daily rollups plus hourly rollups not yet folded into a daily one;
+ * together they count every recorded metric exactly once.
+ */
+@Repository
+public interface PerformanceMetricRollupRepository extends JpaRepository<PerformanceMetricRollup, Long> {
+
+    /**
+     * Totals of a metric type across a set of rollups.
+     */
+    interface MetricTotals {
+        MetricType getMetricType();
+
+        Long getSampleCount();
+
+        Double getValueSum();
+    }
+
+    /**
+     * Create an empty rollup bucket unless it already exists. Safe under concurrent inserts.
+     *
+     * @param granularity the granularity name
+     * @param courierId the courier entity ID
+     * @param metricType the metric type name
+     * @param metricDate the metric date
+     * @param bucketStart the bucket start
+     */
+    @Modifying
+    @Query(value = "INSERT INTO performance_metric_rollups " +
+            "(granularity, courier_id, metric_type, metric_date, bucket_start, sample_count, value_sum, " +
+            "target_count, target_met_count, compacted, created_at, updated_at) " +
+            "VALUES (:granularity, :courierId, :metricType, :metricDate, :bucketStart, 0, 0, 0, 0, false, now(), now()) " +
+            "ON CONFLICT (granularity, courier_id, metric_type, metric_date, bucket_start) DO NOTHING",
+            nativeQuery = true)
+    void insertIfAbsent(
+            @Param("granularity") String granularity,
+            @Param("courierId") String courierId,
+            @Param("metricType") String metricType,
+            @Param("metricDate") LocalDate metricDate,
+            @Param("bucketStart") LocalDateTime bucketStart);
+
+    /**
+     * Find a rollup bucket and lock it for update.
+     *
+     * @param granularity the granularity
+     * @param courier the courier
+     * @param metricType the metric type
+     * @param metricDate the metric date
+     * @param bucketStart the bucket start
+     * @return an Optional containing the locked rollup if found
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM PerformanceMetricRollup r WHERE r.granularity = :granularity AND r.courier = :courier " +
+            "AND r.metricType = :metricType AND r.metricDate = :metricDate AND r.bucketStart = :bucketStart")
+    Optional<PerformanceMetricRollup> findBucketForUpdate(
+            @Param("granularity") RollupGranularity granularity,
+            @Param("courier") Courier courier,
+            @Param("metricType") MetricType metricType,
+            @Param("metricDate") LocalDate metricDate,
+            @Param("bucketStart") LocalDateTime bucketStart);
+
+    /**
+     * Find live rollups for a courier and date range, in recording order.
+     *
+     * @param courier the courier
+     * @param startDate the start date (inclusive)
+     * @param endDate the end date (inclusive)
+     * @param daily the daily granularity
+     * @return the live rollups ordered by metric date, daily before hourly, then bucket start
+     */
+    @Query("SELECT r FROM PerformanceMetricRollup r WHERE r.courier = :courier " +
+            "AND r.metricDate BETWEEN :startDate AND :endDate AND (r.granularity = :daily OR r.compacted = false) " +
+            "ORDER BY r.metricDate, CASE WHEN r.granularity = :daily THEN 0 ELSE 1 END, r.bucketStart")
+    List<PerformanceMetricRollup> findLiveByCourierAndDateBetween(
+            @Param("courier") Courier courier,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("daily") RollupGranularity daily);
+
+    /**
+     * Sum live rollups per metric type across all couriers.
+     *
+     * @param startDate the start date (inclusive)
+     * @param endDate the end date (inclusive)
+     * @param daily the daily granularity
+     * @return totals per metric type
+     */
+    @Query("SELECT r.metricType AS metricType, SUM(r.sampleCount) AS sampleCount, SUM(r.valueSum) AS valueSum " +
+            "FROM PerformanceMetricRollup r WHERE r.metricDate BETWEEN :startDate AND :endDate " +
+            "AND (r.granularity = :daily OR r.compacted = false) GROUP BY r.metricType")
+    List<MetricTotals> sumLiveByMetricType(
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("daily") RollupGranularity daily);
+
+    /**
+     * Sum live rollups per metric type for one courier.
+     *
+     * @param courier the courier
+     * @param startDate the start date (inclusive)
+     * @param endDate the end date (inclusive)
+     * @param daily the daily granularity
+     * @return totals per metric type
+     */
+    @Query("SELECT r.metricType AS metricType, SUM(r.sampleCount) AS sampleCount, SUM(r.valueSum) AS valueSum " +
+            "FROM PerformanceMetricRollup r WHERE r.courier = :courier AND r.metricDate BETWEEN :startDate AND :endDate " +
+            "AND (r.granularity = :daily OR r.compacted = false) GROUP BY r.metricType")
+    List<MetricTotals> sumLiveByMetricTypeForCourier(
+            @Param("courier") Courier courier,
+            @Param("startDate") LocalDate startDate,
+            @Param("endDate") LocalDate endDate,
+            @Param("daily") RollupGranularity daily);
+
+    /**
+     * Find hourly rollups of closed hours that still need folding into daily rollups.
+     *
+     * @param hourly the hourly granularity
+     * @param cutoff the start of the current hour
+     * @param pageable the batch size
+     * @return the IDs of rollups to compact, oldest first
+     */
+    @Query("SELECT r.id FROM PerformanceMetricRollup r WHERE r.granularity = :hourly AND r.compacted = false " +
+            "AND r.bucketStart < :cutoff ORDER BY r.bucketStart")
+    List<Long> findIdsToCompact(
+            @Param("hourly") RollupGranularity hourly,
+            @Param("cutoff") LocalDateTime cutoff,
+            Pageable pageable);
+
+    /**
+     * Find a rollup by ID and lock it for update.
+     *
+     * @param id the rollup ID
+     * @return an Optional containing the locked rollup if found
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM PerformanceMetricRollup r WHERE r.id = :id")
+    Optional<PerformanceMetricRollup> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Delete compacted hourly rollups older than the retention window.
+     *
+     * @param hourly the hourly granularity
+     * @param cutoff rollups with an earlier bucket start are deleted
+     * @return the number of rollups deleted
+     */
+    @Modifying
+    @Query("DELETE FROM PerformanceMetricRollup r WHERE r.granularity = :hourly AND r.compacted = true " +
+            "AND r.bucketStart < :cutoff")
+    int deleteCompactedBefore(
+            @Param("hourly") RollupGranularity hourly,
+            @Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Delete the rollups of one granularity for a courier, metric type and metric date.
+     *
+     * @param granularity the granularity
+     * @param courier the courier
+     * @param metricType the metric type
+     * @param metricDate the metric date
+     * @return the number of rollups deleted
+     */
+    @Modifying
+    @Query("DELETE FROM PerformanceMetricRollup r WHERE r.granularity = :granularity AND r.courier = :courier " +
+            "AND r.metricType = :metricType AND r.metricDate = :metricDate")
+    int deleteByGranularityAndCourierAndMetricTypeAndMetricDate(
+            @Param("granularity") RollupGranularity granularity,
+            @Param("courier") Courier courier,
+            @Param("metricType") MetricType metricType,
+            @Param("metricDate") LocalDate metricDate);
+}
@@ -1,6 +1,9 @@
 package com.gogidix.courier.management.performance.service;
 
+import com.gogidix.courier.management.performance.dto.LeaderboardDTO;
+import com.gogidix.courier.management.performance.dto.LeaderboardEntryDTO;
 import com.gogidix.courier.management.performance.dto.PerformanceMetricDTO;
+import com.gogidix.courier.management.performance.leaderboard.LeaderboardWindow;
 import com.gogidix.courier.management.performance.model.MetricType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -128,6 +131,10 @@ public interface PerformanceMetricsService {
 
     /**
      * Generate a performance report for a courier.
+     * The report is computed from metric rollups; the "metrics" entry holds a
+     * {@link com.gogidix.courier.management.performance.dto.MetricSummaryDTO} per metric type.
+     * Trends compare the first and last value by metric date as before, but metrics sharing a
+     * date are now ordered by when they were recorded rather than by database row order.
      *
      * @param courierId the ID of the courier
      * @param startDate the start date (inclusive)
@@ -135,4 +142,36 @@ public interface PerformanceMetricsService {
      * @return a map containing report data
      */
     Map<String, Object> generatePerformanceReport(String courierId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Rebuild the metric rollups for a date range from the raw metrics.
+     *
+     * @param startDate the start date (inclusive)
+     * @param endDate the end date (inclusive)
+     * @return the number of metrics rolled up
+     */
+    long rebuildRollups(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Get the best performers for a metric from the in-memory leaderboards.
+     *
+     * @param metricType the type of metric
+     * @param window the sliding window to rank over
+     * @param region the region geohash, or null for all couriers
+     * @param limit the maximum number of entries
+     * @return the leaderboard
+     */
+    LeaderboardDTO getLeaderboard(MetricType metricType, LeaderboardWindow window, String region, int limit);
+
+    /**
+     * Get a courier's rank for a metric from the in-memory leaderboards.
+     *
+     * @param courierId the ID of the courier
+     * @param metricType the type of metric
+     * @param window the sliding window to rank over
+     * @param region the region geohash, or null for all couriers
+     * @return the courier's entry, or empty if the courier is not ranked
+     */
+    Optional<LeaderboardEntryDTO> getLeaderboardEntry(
+            String courierId, MetricType metricType, LeaderboardWindow window, String region);
 } 
\ No newline at end of file
@@ -0,0 +1,77 @@
+package com.gogidix.courier.management.performance.service;
+
+import com.gogidix.courier.management.courier.model.Courier;
+import com.gogidix.courier.management.performance.dto.MetricSummaryDTO;
+import com.gogidix.courier.management.performance.model.MetricType;
+import com.gogidix.courier.management.performance.model.PerformanceMetric;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Service maintaining and querying pre-aggregated performance metric rollups.
+ */
+public interface PerformanceRollupService {
+
+    /**
+     * Add a newly recorded metric to the hourly rollup of the current hour.
+     * Must run in the transaction that saves the metric.
+     *
+     * @param metric the saved metric
+     */
+    void recordMetric(PerformanceMetric metric);
+
+    /**
+     * Rebuild the rollups of one courier, metric type and date from the raw metrics,
+     * after a metric was changed or deleted.
+     *
+     * @param courier the courier
+     * @param metricType the metric type
+     * @param date the metric date
+     */
+    void rebuildDay(Courier courier, MetricType metricType, LocalDate date);
+
+    /**
+     * Rebuild the rollups of every courier and metric type with metrics in a date range from
+     * the raw metrics, one courier, metric type and day per transaction.
+     *
+     * @param startDate the start date (inclusive)
+     * @param endDate the end date (inclusive)
+     * @return the number of metrics rolled up
+     */
+    long rebuildRollups(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Fold hourly rollups of closed hours into daily rollups and purge old compacted hourly rollups.
+     */
+    void compactHourlyRollups();
+
+    /**
+     * Calculate average metric values across all couriers.
+     *
+     * @param startDate the start date (inclusive)
+     * @param endDate the end date (inclusive)
+     * @return a map of metric types to their average values
+     */
+    Map<MetricType, Double> calculateAverages(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Calculate average metric values for a courier.
+     *
+     * @param courier the courier
+     * @param startDate the start date (inclusive)
+     * @param endDate the end date (inclusive)
+     * @return a map of metric types to their average values
+     */
+    Map<MetricType, Double> calculateAverages(Courier courier, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Summarise a courier's metrics per metric type.
+     *
+     * @param courier the courier
+     * @param startDate the start date (inclusive)
+     * @param endDate the end date (inclusive)
+     * @return a map of metric types to their summaries
+     */
+    Map<MetricType, MetricSummaryDTO> summarizeByMetricType(Courier courier, LocalDate startDate, LocalDate endDate);
+}
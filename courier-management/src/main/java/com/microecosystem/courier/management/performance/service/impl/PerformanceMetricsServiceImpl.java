@@ -4,14 +4,22 @@ import com.gogidix.courier.management.courier.model.Courier;
 import com.gogidix.courier.management.courier.repository.CourierRepository;
 import com.gogidix.courier.management.exception.BusinessException;
 import com.gogidix.courier.management.exception.ResourceNotFoundException;
+import com.gogidix.courier.management.performance.dto.LeaderboardDTO;
+import com.gogidix.courier.management.performance.dto.LeaderboardEntryDTO;
+import com.gogidix.courier.management.performance.dto.MetricSummaryDTO;
 import com.gogidix.courier.management.performance.dto.PerformanceMetricDTO;
+import com.gogidix.courier.management.performance.event.PerformanceMetricChangedEvent;
+import com.gogidix.courier.management.performance.leaderboard.LeaderboardWindow;
+import com.gogidix.courier.management.performance.leaderboard.PerformanceLeaderboard;
 import com.gogidix.courier.management.performance.mapper.PerformanceMetricMapper;
 import com.gogidix.courier.management.performance.model.MetricType;
 import com.gogidix.courier.management.performance.model.PerformanceMetric;
 import com.gogidix.courier.management.performance.repository.PerformanceMetricRepository;
 import com.gogidix.courier.management.performance.service.PerformanceMetricsService;
+import com.gogidix.courier.management.performance.service.PerformanceRollupService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -36,6 +44,9 @@ public class PerformanceMetricsServiceImpl implements PerformanceMetricsService
     private final PerformanceMetricRepository metricRepository;
     private final CourierRepository courierRepository;
     private final PerformanceMetricMapper metricMapper;
+    private final PerformanceRollupService rollupService;
+    private final PerformanceLeaderboard leaderboard;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -55,6 +66,9 @@ public class PerformanceMetricsServiceImpl implements PerformanceMetricsService
         }
         
         PerformanceMetric savedMetric = metricRepository.save(metric);
+        rollupService.recordMetric(savedMetric);
+        publishChange(savedMetric.getCourier(), savedMetric.getMetricType(), savedMetric.getDate(),
+                savedMetric.getValue(), false);
         return metricMapper.toDto(savedMetric);
     }
 
@@ -66,6 +80,12 @@ public class PerformanceMetricsServiceImpl implements PerformanceMetricsService
         PerformanceMetric existingMetric = metricRepository.findByMetricId(metricId)
                 .orElseThrow(() -> new ResourceNotFoundException("Performance metric not found with ID: " + metricId));
         
+        // Remember the rollup bucket the metric was counted in
+        Courier previousCourier = existingMetric.getCourier();
+        MetricType previousType = existingMetric.getMetricType();
+        LocalDate previousDate = existingMetric.getDate();
+        Double previousValue = existingMetric.getValue();
+        
         // Update fields from DTO
         existingMetric.setMetricType(metricDTO.getMetricType());
         existingMetric.setDate(metricDTO.getDate());
@@ -85,7 +105,20 @@ public class PerformanceMetricsServiceImpl implements PerformanceMetricsService
             existingMetric.setCourier(courier);
         }
         
-        PerformanceMetric updatedMetric = metricRepository.save(existingMetric);
+        PerformanceMetric updatedMetric = metricRepository.saveAndFlush(existingMetric);
+        
+        // Rebuild the affected rollups from the raw metrics
+        rollupService.rebuildDay(previousCourier, previousType, previousDate);
+        if (previousCourier != updatedMetric.getCourier()
+                || previousType != updatedMetric.getMetricType()
+                || !previousDate.equals(updatedMetric.getDate())) {
+            rollupService.rebuildDay(updatedMetric.getCourier(), updatedMetric.getMetricType(), updatedMetric.getDate());
+        }
+        
+        // Move the metric's value on the leaderboards
+        publishChange(previousCourier, previousType, previousDate, previousValue, true);
+        publishChange(updatedMetric.getCourier(), updatedMetric.getMetricType(), updatedMetric.getDate(),
+                updatedMetric.getValue(), false);
         return metricMapper.toDto(updatedMetric);
     }
 
@@ -102,6 +135,9 @@ public class PerformanceMetricsServiceImpl implements PerformanceMetricsService
         return metricRepository.findByMetricId(metricId)
                 .map(metric -> {
                     metricRepository.delete(metric);
+                    metricRepository.flush();
+                    rollupService.rebuildDay(metric.getCourier(), metric.getMetricType(), metric.getDate());
+                    publishChange(metric.getCourier(), metric.getMetricType(), metric.getDate(), metric.getValue(), true);
                     return true;
                 })
                 .orElse(false);
@@ -180,16 +216,7 @@ public class PerformanceMetricsServiceImpl implements PerformanceMetricsService
         
         validateDateRange(startDate, endDate);
         
-        Map<MetricType, Double> averages = new HashMap<>();
-        
-        for (MetricType metricType : MetricType.values()) {
-            Double average = metricRepository.calculateAverageForMetricType(metricType, startDate, endDate);
-            if (average != null) {
-                averages.put(metricType, average);
-            }
-        }
-        
-        return averages;
+        return rollupService.calculateAverages(startDate, endDate);
     }
 
     @Override
@@ -201,17 +228,8 @@ public class PerformanceMetricsServiceImpl implements PerformanceMetricsService
         validateDateRange(startDate, endDate);
         
         Courier courier = getCourierById(courierId);
-        Map<MetricType, Double> averages = new HashMap<>();
-        
-        for (MetricType metricType : MetricType.values()) {
-            Double average = metricRepository.calculateAverageForCourierAndMetricType(
-                    courier, metricType, startDate, endDate);
-            if (average != null) {
-                averages.put(metricType, average);
-            }
-        }
         
-        return averages;
+        return rollupService.calculateAverages(courier, startDate, endDate);
     }
 
     @Override
@@ -282,83 +300,46 @@ public class PerformanceMetricsServiceImpl implements PerformanceMetricsService
         report.put("courierName", courier.getFirstName() + " " + courier.getLastName());
         report.put("reportPeriod", Map.of("startDate", startDate, "endDate", endDate));
         
-        // Get all metrics for the courier in the date range
-        List<PerformanceMetric> metrics = metricRepository.findByCourierAndDateBetween(courier, startDate, endDate);
-        
-        // Group metrics by type
-        Map<MetricType, List<PerformanceMetric>> metricsByType = metrics.stream()
-                .collect(Collectors.groupingBy(PerformanceMetric::getMetricType));
+        // Summarise each metric type from the pre-aggregated rollups
+        Map<MetricType, MetricSummaryDTO> summaries = rollupService.summarizeByMetricType(courier, startDate, endDate);
         
         // Calculate averages and add to report
         Map<MetricType, Double> averages = new HashMap<>();
         Map<MetricType, Boolean> targetAchievement = new HashMap<>();
         Map<MetricType, Double> trends = new HashMap<>();
+        long totalMetrics = 0;
         
-        for (MetricType type : metricsByType.keySet()) {
-            List<PerformanceMetric> typeMetrics = metricsByType.get(type);
+        for (MetricSummaryDTO summary : summaries.values()) {
+            MetricType type = summary.getMetricType();
+            totalMetrics += summary.getCount();
             
-            // Calculate average
-            double average = typeMetrics.stream()
-                    .mapToDouble(PerformanceMetric::getValue)
-                    .average()
-                    .orElse(0.0);
-            averages.put(type, average);
+            if (summary.getAverage() != null) {
+                averages.put(type, summary.getAverage());
+            }
             
             // Calculate target achievement rate
-            long metricsWithTarget = typeMetrics.stream()
-                    .filter(m -> m.getTargetValue() != null)
-                    .count();
-            
-            if (metricsWithTarget > 0) {
-                long targetsAchieved = typeMetrics.stream()
-                        .filter(m -> m.getIsTargetMet() != null && m.getIsTargetMet())
-                        .count();
-                
-                targetAchievement.put(type, (double) targetsAchieved / metricsWithTarget >= 0.5);
+            if (summary.getTargetCount() > 0) {
+                targetAchievement.put(type, (double) summary.getTargetMetCount() / summary.getTargetCount() >= 0.5);
             }
             
-            // Calculate overall trend
-            if (typeMetrics.size() >= 2) {
-                typeMetrics.sort(Comparator.comparing(PerformanceMetric::getDate));
-                PerformanceMetric first = typeMetrics.get(0);
-                PerformanceMetric last = typeMetrics.get(typeMetrics.size() - 1);
-                
-                if (first.getValue() != 0) {
-                    double trendPercentage = ((last.getValue() - first.getValue()) / 
-                            Math.abs(first.getValue())) * 100;
-                    trends.put(type, trendPercentage);
-                }
+            // Calculate overall trend from the first and last values by metric date, ties in recording order
+            if (summary.getCount() >= 2 && summary.getFirstValue() != null && summary.getFirstValue() != 0) {
+                double trendPercentage = ((summary.getLastValue() - summary.getFirstValue()) / 
+                        Math.abs(summary.getFirstValue())) * 100;
+                trends.put(type, trendPercentage);
             }
         }
         
         // Add calculated data to report
-        report.put("metrics", metricsByType.entrySet().stream()
-                .collect(Collectors.toMap(
-                        entry -> entry.getKey(),
-                        entry -> entry.getValue().stream()
-                                .map(metricMapper::toDto)
-                                .collect(Collectors.toList())
-                )));
-        report.put("averages", averages.entrySet().stream()
-                .collect(Collectors.toMap(
-                        entry -> entry.getKey(),
-                        Map.Entry::getValue
-                )));
-        report.put("targetAchievement", targetAchievement.entrySet().stream()
-                .collect(Collectors.toMap(
-                        entry -> entry.getKey(),
-                        Map.Entry::getValue
-                )));
-        report.put("trends", trends.entrySet().stream()
-                .collect(Collectors.toMap(
-                        entry -> entry.getKey(),
-                        Map.Entry::getValue
-                )));
+        report.put("metrics", summaries);
+        report.put("averages", averages);
+        report.put("targetAchievement", targetAchievement);
+        report.put("trends", trends);
         
         // Add summary statistics
         report.put("summary", Map.of(
-                "totalMetrics", metrics.size(),
-                "uniqueMetricTypes", metricsByType.size(),
+                "totalMetrics", totalMetrics,
+                "uniqueMetricTypes", summaries.size(),
                 "overallPerformance", targetAchievement.values().stream().filter(v -> v).count() >= 
                         targetAchievement.size() / 2.0 ? "Good" : "Needs Improvement"
         ));
@@ -366,6 +347,70 @@ public class PerformanceMetricsServiceImpl implements PerformanceMetricsService
         return report;
     }
     
+    @Override
+    public long rebuildRollups(LocalDate startDate, LocalDate endDate) {
+        log.info("Rebuilding performance rollups for date range: {} to {}", startDate, endDate);
+        
+        validateDateRange(startDate, endDate);
+        
+        return rollupService.rebuildRollups(startDate, endDate);
+    }
+    
+    @Override
+    public LeaderboardDTO getLeaderboard(MetricType metricType, LeaderboardWindow window, String region, int limit) {
+        validateRegion(region);
+        if (limit <= 0) {
+            throw new BusinessException("Limit must be positive");
+        }
+        
+        return LeaderboardDTO.builder()
+                .metricType(metricType)
+                .window(window)
+                .region(region)
+                .rankedCouriers(leaderboard.size(metricType, window, region))
+                .entries(leaderboard.top(metricType, window, region, limit))
+                .build();
+    }
+    
+    @Override
+    public Optional<LeaderboardEntryDTO> getLeaderboardEntry(
+            String courierId, MetricType metricType, LeaderboardWindow window, String region) {
+        validateRegion(region);
+        
+        return leaderboard.entry(courierId, metricType, window, region);
+    }
+    
+    /**
+     * Publishes a metric value being recorded or withdrawn, for the leaderboards to pick up
+     * once the transaction commits.
+     *
+     * @param courier the courier the value belongs to
+     * @param metricType the metric type
+     * @param date the metric date
+     * @param value the metric value
+     * @param withdrawn whether the value was removed
+     */
+    private void publishChange(Courier courier, MetricType metricType, LocalDate date, Double value, boolean withdrawn) {
+        if (value == null) {
+            return;
+        }
+        eventPublisher.publishEvent(new PerformanceMetricChangedEvent(courier.getId(), courier.getFullName(),
+                metricType, date, value, withdrawn, courier.getCurrentLatitude(), courier.getCurrentLongitude()));
+    }
+    
+    /**
+     * Validates that a region is a geohash of the leaderboard's region precision.
+     *
+     * @param region the region, or null for all couriers
+     * @throws BusinessException if the region is not a valid geohash of that length
+     */
+    private void validateRegion(String region) {
+        if (region != null && (region.length() != leaderboard.getRegionPrecision()
+                || !region.matches("[0-9b-hjkmnp-z]+"))) {
+            throw new BusinessException("Region must be a geohash of " + leaderboard.getRegionPrecision() + " characters");
+        }
+    }
+    
     /**
      * Gets a courier by ID or throws an exception if not found.
      *
@@ -0,0 +1,253 @@
+package com.gogidix.courier.management.performance.service.impl;
+
+import com.gogidix.courier.management.courier.model.Courier;
+import com.gogidix.courier.management.performance.dto.MetricSummaryDTO;
+import com.gogidix.courier.management.performance.model.MetricType;
+import com.gogidix.courier.management.performance.model.PerformanceMetric;
+import com.gogidix.courier.management.performance.model.PerformanceMetricRollup;
+import com.gogidix.courier.management.performance.model.QuantileSketch;
+import com.gogidix.courier.management.performance.model.RollupGranularity;
+import com.gogidix.courier.management.performance.repository.PerformanceMetricRepository;
+import com.gogidix.courier.management.performance.repository.PerformanceMetricRollupRepository;
+import com.gogidix.courier.management.performance.repository.PerformanceMetricRollupRepository.MetricTotals;
+import com.gogidix.courier.management.performance.service.PerformanceRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of the PerformanceRollupService interface.
+ * Every write to the rollups of a courier, metric type and date first locks that day's daily
+ * rollup row, so recording, compaction and rebuilds of the same day run one at a time and
+ * always take their locks in the same order.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PerformanceRollupServiceImpl implements PerformanceRollupService {
+
+    private final PerformanceMetricRollupRepository rollupRepository;
+    private final PerformanceMetricRepository metricRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${performance.rollup.compaction-batch-size:500}")
+    private int compactionBatchSize = 500;
+
+    @Value("${performance.rollup.hourly-retention-days:7}")
+    private int hourlyRetentionDays = 7;
+
+    @Override
+    @Transactional
+    public void recordMetric(PerformanceMetric metric) {
+        LocalDateTime bucketStart = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        lockDay(metric.getCourier(), metric.getMetricType(), metric.getDate());
+        PerformanceMetricRollup rollup = lockBucket(RollupGranularity.HOURLY, metric.getCourier(),
+                metric.getMetricType(), metric.getDate(), bucketStart);
+        rollup.record(metric);
+        rollupRepository.save(rollup);
+    }
+
+    @Override
+    @Transactional
+    public void rebuildDay(Courier courier, MetricType metricType, LocalDate date) {
+        log.debug("Rebuilding rollups for courier {} metric {} on {}", courier.getId(), metricType, date);
+
+        // Holding the daily row keeps concurrent recordMetric calls out until the rebuild commits;
+        // metrics they committed before the lock was taken are read back below
+        PerformanceMetricRollup daily = lockDay(courier, metricType, date);
+        rollupRepository.deleteByGranularityAndCourierAndMetricTypeAndMetricDate(
+                RollupGranularity.HOURLY, courier, metricType, date);
+        List<PerformanceMetric> metrics = metricRepository.findByCourierAndMetricTypeAndDateBetween(
+                courier, metricType, date, date);
+        metrics.sort(Comparator.comparing(PerformanceMetric::getId));
+
+        daily.reset();
+        metrics.forEach(daily::record);
+        rollupRepository.save(daily);
+    }
+
+    @Override
+    public long rebuildRollups(LocalDate startDate, LocalDate endDate) {
+        log.info("Rebuilding performance rollups for date range: {} to {}", startDate, endDate);
+
+        long total = 0;
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            total += rebuildAllForDate(day);
+        }
+        return total;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${performance.rollup.compaction-interval-ms:900000}",
+            initialDelayString = "${performance.rollup.compaction-initial-delay-ms:60000}")
+    public void compactHourlyRollups() {
+        LocalDateTime cutoff = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+
+        int compacted = 0;
+        List<Long> batch;
+        do {
+            batch = rollupRepository.findIdsToCompact(
+                    RollupGranularity.HOURLY, cutoff, PageRequest.of(0, compactionBatchSize));
+            List<Long> ids = batch;
+            Integer count = transactionTemplate.execute(status -> compactBatch(ids));
+            compacted += count != null ? count : 0;
+        } while (batch.size() == compactionBatchSize);
+
+        LocalDateTime retentionCutoff = cutoff.minusDays(hourlyRetentionDays);
+        Integer purged = transactionTemplate.execute(status ->
+                rollupRepository.deleteCompactedBefore(RollupGranularity.HOURLY, retentionCutoff));
+
+        log.info("Compacted {} hourly performance rollups, purged {}", compacted, purged);
+    }
+
+    @Override
+    public Map<MetricType, Double> calculateAverages(LocalDate startDate, LocalDate endDate) {
+        return toAverages(rollupRepository.sumLiveByMetricType(startDate, endDate, RollupGranularity.DAILY));
+    }
+
+    @Override
+    public Map<MetricType, Double> calculateAverages(Courier courier, LocalDate startDate, LocalDate endDate) {
+        return toAverages(rollupRepository.sumLiveByMetricTypeForCourier(
+                courier, startDate, endDate, RollupGranularity.DAILY));
+    }
+
+    @Override
+    public Map<MetricType, MetricSummaryDTO> summarizeByMetricType(Courier courier, LocalDate startDate, LocalDate endDate) {
+        List<PerformanceMetricRollup> rollups = rollupRepository.findLiveByCourierAndDateBetween(
+                courier, startDate, endDate, RollupGranularity.DAILY);
+
+        // Rollups arrive in recording order, so merging keeps first and last values meaningful
+        Map<MetricType, PerformanceMetricRollup> merged = new EnumMap<>(MetricType.class);
+        for (PerformanceMetricRollup rollup : rollups) {
+            if (rollup.getSampleCount() == 0) {
+                continue;
+            }
+            merged.computeIfAbsent(rollup.getMetricType(), type -> new PerformanceMetricRollup())
+                    .merge(rollup);
+        }
+
+        Map<MetricType, MetricSummaryDTO> summaries = new EnumMap<>(MetricType.class);
+        merged.forEach((type, rollup) -> summaries.put(type, toSummary(type, rollup)));
+        return summaries;
+    }
+
+    /**
+     * Folds a batch of hourly rollups into their daily rollups.
+     *
+     * @param ids the hourly rollup IDs
+     * @return the number of rollups compacted
+     */
+    private int compactBatch(List<Long> ids) {
+        int compacted = 0;
+        for (Long id : ids) {
+            PerformanceMetricRollup unlocked = rollupRepository.findById(id).orElse(null);
+            if (unlocked == null) {
+                continue;
+            }
+            PerformanceMetricRollup daily = lockDay(unlocked.getCourier(), unlocked.getMetricType(), unlocked.getMetricDate());
+            PerformanceMetricRollup hourly = rollupRepository.findByIdForUpdate(id).orElse(null);
+            if (hourly == null || Boolean.TRUE.equals(hourly.getCompacted())) {
+                continue;
+            }
+            daily.merge(hourly);
+            hourly.setCompacted(true);
+            rollupRepository.save(daily);
+            rollupRepository.save(hourly);
+            compacted++;
+        }
+        return compacted;
+    }
+
+    /**
+     * Rebuilds the daily rollups of every courier and metric type with metrics on one date, each
+     * in its own transaction so that only one day lock is held at a time.
+     *
+     * @param date the metric date
+     * @return the number of metrics rolled up
+     */
+    private long rebuildAllForDate(LocalDate date) {
+        List<PerformanceMetric> metrics = metricRepository.findByDateBetween(date, date);
+
+        Map<String, Map<MetricType, Courier>> couriersByIdAndType = new HashMap<>();
+        for (PerformanceMetric metric : metrics) {
+            couriersByIdAndType.computeIfAbsent(metric.getCourier().getId(), id -> new EnumMap<>(MetricType.class))
+                    .putIfAbsent(metric.getMetricType(), metric.getCourier());
+        }
+        couriersByIdAndType.values().forEach(byType -> byType.forEach((metricType, courier) ->
+                transactionTemplate.executeWithoutResult(status -> rebuildDay(courier, metricType, date))));
+        return metrics.size();
+    }
+
+    /**
+     * Gets the daily rollup of a courier, metric type and date, creating it if needed, locked for
+     * the rest of the transaction.
+     */
+    private PerformanceMetricRollup lockDay(Courier courier, MetricType metricType, LocalDate date) {
+        return lockBucket(RollupGranularity.DAILY, courier, metricType, date, date.atStartOfDay());
+    }
+
+    /**
+     * Gets a rollup bucket, creating it if needed, locked for the rest of the transaction.
+     */
+    private PerformanceMetricRollup lockBucket(RollupGranularity granularity, Courier courier,
+                                               MetricType metricType, LocalDate date, LocalDateTime bucketStart) {
+        rollupRepository.insertIfAbsent(granularity.name(), courier.getId(), metricType.name(), date, bucketStart);
+        return rollupRepository.findBucketForUpdate(granularity, courier, metricType, date, bucketStart)
+                .orElseThrow(() -> new IllegalStateException("Rollup bucket missing after insert: "
+                        + granularity + " " + metricType + " " + bucketStart));
+    }
+
+    private static Map<MetricType, Double> toAverages(List<MetricTotals> totals) {
+        Map<MetricType, Double> averages = new HashMap<>();
+        for (MetricTotals total : totals) {
+            if (total.getSampleCount() != null && total.getSampleCount() > 0) {
+                averages.put(total.getMetricType(), total.getValueSum() / total.getSampleCount());
+            }
+        }
+        return averages;
+    }
+
+    private static MetricSummaryDTO toSummary(MetricType type, PerformanceMetricRollup rollup) {
+        QuantileSketch sketch = QuantileSketch.fromBytes(rollup.getSketch());
+        long count = rollup.getSampleCount();
+        return MetricSummaryDTO.builder()
+                .metricType(type)
+                .count(count)
+                .sum(rollup.getValueSum())
+                .average(count > 0 ? rollup.getValueSum() / count : null)
+                .min(rollup.getMinValue())
+                .max(rollup.getMaxValue())
+                .p50(clamp(sketch.getQuantile(0.5), rollup))
+                .p90(clamp(sketch.getQuantile(0.9), rollup))
+                .p95(clamp(sketch.getQuantile(0.95), rollup))
+                .firstValue(rollup.getFirstValue())
+                .lastValue(rollup.getLastValue())
+                .targetCount(rollup.getTargetCount())
+                .targetMetCount(rollup.getTargetMetCount())
+                .build();
+    }
+
+    /**
+     * Keeps a sketch estimate inside the exact min/max bounds.
+     */
+    private static Double clamp(Double estimate, PerformanceMetricRollup rollup) {
+        if (estimate == null || rollup.getMinValue() == null) {
+            return estimate;
+        }
+        return Math.max(rollup.getMinValue(), Math.min(rollup.getMaxValue(), estimate));
+    }
+}
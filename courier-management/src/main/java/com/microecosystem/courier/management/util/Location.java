@@ -19,6 +19,9 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class Location {
 
+    /** Earth's mean radius in kilometers */
+    public static final double EARTH_RADIUS_KM = 6371.0;
+
     @NotNull(message = "Latitude is required")
     @DecimalMin(value = "-90.0", message = "Latitude must be at least -90.0")
     @DecimalMax(value = "90.0", message = "Latitude must be at most 90.0")
@@ -41,18 +44,29 @@ public class Location {
             return Double.MAX_VALUE;
         }
 
-        final double R = 6371; // Earth's radius in kilometers
+        return distanceKm(this.latitude, this.longitude, other.latitude, other.longitude);
+    }
 
-        double latDistance = Math.toRadians(other.latitude - this.latitude);
-        double lonDistance = Math.toRadians(other.longitude - this.longitude);
+    /**
+     * Calculates the great-circle distance between two points using Haversine formula.
+     * 
+     * @param lat1 latitude of the first point
+     * @param lon1 longitude of the first point
+     * @param lat2 latitude of the second point
+     * @param lon2 longitude of the second point
+     * @return distance in kilometers
+     */
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
         
         double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(this.latitude)) * Math.cos(Math.toRadians(other.latitude))
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
                 * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
         
         double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
         
-        return R * c;
+        return EARTH_RADIUS_KM * c;
     }
 
     /**
@@ -0,0 +1,79 @@
+package com.gogidix.courier.management.util;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Fixed pool of locks selected by key hash, so that work on the same key is serialised
+ * without keeping a lock object per key. Multi-key acquisition always takes stripes in
+ * ascending order, which rules out deadlocks between callers locking overlapping keys.
+ */
+public class StripedLock {
+
+    private final ReentrantLock[] stripes;
+
+    /**
+     * Creates a striped lock.
+     *
+     * @param stripeCount the number of stripes, rounded up to a power of two
+     */
+    public StripedLock(int stripeCount) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Stripe count must be positive");
+        }
+        int size = 1;
+        while (size < stripeCount) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Runs an action while holding the stripes of all given keys. Null keys are ignored.
+     *
+     * @param keys the keys to lock
+     * @param action the action to run
+     * @param <T> the result type
+     * @return the action result
+     */
+    public <T> T callWithLocks(Collection<String> keys, Supplier<T> action) {
+        int[] indexes = keys.stream()
+                .filter(key -> key != null)
+                .mapToInt(this::stripeIndex)
+                .sorted()
+                .distinct()
+                .toArray();
+        int acquired = 0;
+        try {
+            for (int index : indexes) {
+                stripes[index].lock();
+                acquired++;
+            }
+            return action.get();
+        } finally {
+            for (int i = acquired - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of stripes.
+     *
+     * @return the stripe count
+     */
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    private int stripeIndex(String key) {
+        int hash = key.hashCode();
+        // Spread high bits so keys sharing a suffix do not pile onto one stripe
+        hash ^= (hash >>> 16);
+        return hash & (stripes.length - 1);
+    }
+}
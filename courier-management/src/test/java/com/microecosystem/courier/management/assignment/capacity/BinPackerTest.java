@@ -0,0 +1,95 @@
+package com.gogidix.courier.management.assignment.capacity;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinPackerTest {
+
+    private static final Duration BUDGET = Duration.ofMillis(300);
+
+    @Test
+    void pack_ShouldRespectWeightAndVolume() {
+        // Heavy-but-small and light-but-bulky items pair up well
+        double[] weights = {80, 80, 10, 10};
+        double[] volumes = {10, 10, 90, 90};
+
+        BinPacker.Packing packing = BinPacker.pack(weights, volumes, 100, 100, 5, BUDGET);
+
+        assertEquals(2, packing.getLoadCount());
+        assertNotEquals(packing.getLoad(2), packing.getLoad(3));
+        assertNotEquals(packing.getLoad(0), packing.getLoad(1));
+        assertFeasible(packing, weights, volumes, 100, 100);
+    }
+
+    @Test
+    void pack_ShouldReportOversizedItems() {
+        double[] weights = {20, 120, 30};
+        double[] volumes = {20, 10, 30};
+
+        BinPacker.Packing packing = BinPacker.pack(weights, volumes, 100, 100, 5, BUDGET);
+
+        assertArrayEquals(new int[]{1}, packing.getOversized());
+        assertEquals(BinPacker.OVERSIZED, packing.getLoad(1));
+        assertEquals(1, packing.getLoadCount());
+        assertEquals(50, packing.getLoadWeight(0), 1e-9);
+    }
+
+    @Test
+    void pack_ImprovementShouldEliminateLightLoads() {
+        // First-fit-decreasing gives {63, 27}, {47, 26, 18}, {18}; swapping the 27 and an 18
+        // between the first two loads makes room for the stray 18
+        double[] weights = {47, 18, 18, 26, 63, 27};
+        double[] volumes = {1, 1, 1, 1, 1, 1};
+
+        BinPacker.Packing unimproved = BinPacker.pack(weights, volumes, 100, 100, 0, BUDGET);
+        BinPacker.Packing improved = BinPacker.pack(weights, volumes, 100, 100, 5, BUDGET);
+
+        assertEquals(3, unimproved.getLoadCount());
+        assertEquals(2, improved.getLoadCount());
+        assertEquals(2, improved.getLowerBound());
+        assertFeasible(improved, weights, volumes, 100, 100);
+    }
+
+    @Test
+    void pack_ThousandsOfItems_ShouldFinishWellUnderASecond() {
+        Random random = new Random(42);
+        int n = 5000;
+        double[] weights = new double[n];
+        double[] volumes = new double[n];
+        for (int i = 0; i < n; i++) {
+            weights[i] = 0.5 + random.nextDouble() * 20;
+            volumes[i] = 1 + random.nextDouble() * 60;
+        }
+
+        BinPacker.Packing packing = assertTimeoutPreemptively(Duration.ofSeconds(1),
+                () -> BinPacker.pack(weights, volumes, 200, 500, 5, BUDGET));
+
+        assertFeasible(packing, weights, volumes, 200, 500);
+        // First-fit-decreasing stays within a few percent of the bound on random instances
+        assertTrue(packing.getLoadCount() <= Math.ceil(packing.getLowerBound() * 1.1),
+                packing.getLoadCount() + " loads for a lower bound of " + packing.getLowerBound());
+    }
+
+    private void assertFeasible(BinPacker.Packing packing, double[] weights, double[] volumes,
+                                double maxWeight, double maxVolume) {
+        double[] loadWeights = new double[packing.getLoadCount()];
+        double[] loadVolumes = new double[packing.getLoadCount()];
+        for (int i = 0; i < weights.length; i++) {
+            int load = packing.getLoad(i);
+            if (load != BinPacker.OVERSIZED) {
+                loadWeights[load] += weights[i];
+                loadVolumes[load] += volumes[i];
+            }
+        }
+        for (int load = 0; load < packing.getLoadCount(); load++) {
+            assertTrue(loadWeights[load] <= maxWeight + 1e-6, "load " + load + " overweight");
+            assertTrue(loadVolumes[load] <= maxVolume + 1e-6, "load " + load + " overfull");
+            assertEquals(loadWeights[load], packing.getLoadWeight(load), 1e-6);
+            assertEquals(loadVolumes[load], packing.getLoadVolume(load), 1e-6);
+        }
+    }
+}
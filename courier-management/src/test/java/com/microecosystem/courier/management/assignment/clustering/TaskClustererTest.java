@@ -0,0 +1,110 @@
+package com.gogidix.courier.management.assignment.clustering;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TaskClustererTest {
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+    @Test
+    void geohash_ShouldMatchBase32Encoding() {
+        long expected = 0;
+        for (char c : "u4pru".toCharArray()) {
+            expected = (expected << Geohash.BITS_PER_CHARACTER) | BASE32.indexOf(c);
+        }
+
+        assertEquals(expected, Geohash.encode(57.64911, 10.40744, 5));
+    }
+
+    @Test
+    void cluster_ShouldSeparateDistantNeighbourhoods() {
+        // Two groups of 20 stops about 10 km apart; one courier can take 25 stops
+        int n = 40;
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        Random random = new Random(7);
+        for (int i = 0; i < n; i++) {
+            double base = i < 20 ? 0.0 : 0.1;
+            latitudes[i] = 51.50 + random.nextDouble() * 0.01;
+            longitudes[i] = base + random.nextDouble() * 0.01;
+        }
+
+        TaskClusterer.Clustering clustering = TaskClusterer.cluster(latitudes, longitudes,
+                filled(n, 1), filled(n, 1), filled(n, 10), new TaskClusterer.Limits(100, 100, 250), 6, 10);
+
+        assertEquals(2, clustering.getClusterCount());
+        for (int i = 1; i < n; i++) {
+            assertEquals(i < 20, clustering.getCluster(i) == clustering.getCluster(0));
+        }
+    }
+
+    @Test
+    void cluster_ShouldReportTasksExceedingLimits() {
+        double[] latitudes = {51.5, 51.5, 51.5};
+        double[] longitudes = {0.0, 0.001, 0.002};
+        double[] weights = {5, 50, 5};
+
+        TaskClusterer.Clustering clustering = TaskClusterer.cluster(latitudes, longitudes,
+                weights, filled(3, 1), filled(3, 10), new TaskClusterer.Limits(20, 100, 480), 6, 10);
+
+        assertEquals(TaskClusterer.OVERSIZED, clustering.getCluster(1));
+        assertEquals(1, clustering.getClusterCount());
+        assertEquals(10, clustering.getWeight(0), 1e-9);
+    }
+
+    @Test
+    void cluster_FiftyThousandTasks_ShouldStayWithinLimitsInSeconds() {
+        int n = 50_000;
+        Random random = new Random(42);
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        double[] weights = new double[n];
+        double[] minutes = new double[n];
+        for (int i = 0; i < n; i++) {
+            // A city of roughly 30 x 30 km with a denser centre
+            double spread = random.nextBoolean() ? 0.05 : 0.15;
+            latitudes[i] = 51.5 + random.nextGaussian() * spread;
+            longitudes[i] = -0.1 + random.nextGaussian() * spread;
+            weights[i] = 0.5 + random.nextDouble() * 4;
+            minutes[i] = 8 + random.nextInt(5);
+        }
+        TaskClusterer.Limits limits = new TaskClusterer.Limits(200, 500, 480);
+
+        TaskClusterer.Clustering clustering = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> TaskClusterer.cluster(latitudes, longitudes, weights, filled(n, 2), minutes, limits, 6, 10));
+
+        double[] clusterWeights = new double[clustering.getClusterCount()];
+        double[] clusterMinutes = new double[clustering.getClusterCount()];
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; i < n; i++) {
+            int cluster = clustering.getCluster(i);
+            assertTrue(cluster >= 0);
+            clusterWeights[cluster] += weights[i];
+            clusterMinutes[cluster] += minutes[i];
+            used.add(cluster);
+        }
+        assertEquals(clustering.getClusterCount(), used.size());
+        for (int cluster = 0; cluster < clustering.getClusterCount(); cluster++) {
+            assertTrue(clusterWeights[cluster] <= 200 + 1e-6);
+            assertTrue(clusterMinutes[cluster] <= 480 + 1e-6);
+        }
+        // Shift length is the binding limit here: roughly 500 minutes of work per 48 stops
+        double totalMinutes = Arrays.stream(minutes).sum();
+        assertTrue(clustering.getClusterCount() <= Math.ceil(totalMinutes / 480 * 1.3),
+                clustering.getClusterCount() + " clusters");
+    }
+
+    private static double[] filled(int n, double value) {
+        double[] values = new double[n];
+        Arrays.fill(values, value);
+        return values;
+    }
+}
@@ -0,0 +1,82 @@
+package com.gogidix.courier.management.assignment.sequencing;
+
+import com.gogidix.courier.management.assignment.model.Assignment;
+import com.gogidix.courier.management.assignment.model.AssignmentTask;
+import com.gogidix.courier.management.assignment.model.TaskStatus;
+import com.gogidix.courier.management.assignment.model.TaskType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RouteImproverTest {
+
+    private static final TravelSpeeds SPEEDS = TravelSpeeds.constant(30.0);
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+    @Test
+    void improve_ShouldUntangleRouteButKeepPinnedStops() {
+        // Stops along a line of longitude, roughly 1.1 km apart, visited out of order
+        List<AssignmentTask> route = List.of(task("pinned", 0.05), task("b", 0.02), task("a", 0.01),
+                task("d", 0.04), task("c", 0.03));
+
+        RouteImprover.Result result = RouteImprover.improve(0.0, 0.0, route, 1, START, SPEEDS, Duration.ofSeconds(1));
+
+        assertEquals(List.of("pinned", "d", "c", "b", "a"), ids(result.getSequence()));
+        assertTrue(result.getDistanceAfterKm() < result.getDistanceBeforeKm());
+        assertFalse(result.isBudgetExceeded());
+    }
+
+    @Test
+    void improve_ShouldNotMakeStopsLate() {
+        // The far stop must come first to be reached in time; only the rest may be reordered
+        AssignmentTask urgent = task("urgent", 0.04);
+        urgent.setEndTimeWindow(START.plusMinutes(10));
+        List<AssignmentTask> route = List.of(urgent, task("a", 0.01), task("b", 0.02));
+
+        RouteImprover.Result result = RouteImprover.improve(0.0, 0.0, route, 0, START, SPEEDS, Duration.ofSeconds(1));
+
+        assertEquals(List.of("urgent", "b", "a"), ids(result.getSequence()));
+        assertEquals(0, result.getLateStopsAfter());
+        assertTrue(result.getDistanceAfterKm() < result.getDistanceBeforeKm());
+    }
+
+    @Test
+    void improve_ShouldNotRouteADeliveryBeforeItsPickup() {
+        // Delivering on the way out would save distance but the parcel has not been collected yet
+        Assignment assignment = new Assignment();
+        assignment.setId("entity-1");
+        AssignmentTask pickup = task("pickup", 0.04);
+        pickup.setTaskType(TaskType.PICKUP);
+        pickup.setAssignment(assignment);
+        AssignmentTask delivery = task("delivery", 0.01);
+        delivery.setAssignment(assignment);
+        List<AssignmentTask> route = List.of(task("a", 0.03), pickup, delivery, task("b", 0.02));
+
+        RouteImprover.Result result = RouteImprover.improve(0.0, 0.0, route, 0, START, SPEEDS, Duration.ofSeconds(1));
+
+        List<String> order = ids(result.getSequence());
+        assertTrue(order.indexOf("pickup") < order.indexOf("delivery"), order::toString);
+        assertTrue(result.getDistanceAfterKm() < result.getDistanceBeforeKm());
+    }
+
+    private static AssignmentTask task(String id, double longitude) {
+        AssignmentTask task = AssignmentTask.builder()
+                .taskType(TaskType.DELIVERY)
+                .status(TaskStatus.PENDING)
+                .latitude(0.0)
+                .longitude(longitude)
+                .estimatedDurationMinutes(5)
+                .build();
+        task.setId(id);
+        return task;
+    }
+
+    private static List<String> ids(List<AssignmentTask> tasks) {
+        return tasks.stream().map(AssignmentTask::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,140 @@
+package com.gogidix.courier.management.assignment.sequencing;
+
+import com.gogidix.courier.management.assignment.model.Assignment;
+import com.gogidix.courier.management.assignment.model.AssignmentTask;
+import com.gogidix.courier.management.assignment.model.TaskStatus;
+import com.gogidix.courier.management.assignment.model.TaskType;
+import com.gogidix.courier.management.assignment.repository.AssignmentTaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class TravelSpeedProfilesTest {
+
+    // 2024-01-01 is a Monday
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final double LEG_DEGREES = 0.01;
+
+    @Mock
+    private AssignmentTaskRepository taskRepository;
+
+    private TravelSpeedProfiles profiles;
+    private final List<AssignmentTask> completed = new ArrayList<>();
+    private int legCount;
+
+    @BeforeEach
+    void setUp() {
+        profiles = new TravelSpeedProfiles(taskRepository, event -> { }, 0.05, 30.0, 5, 50, 28);
+        when(taskRepository.findCompletedBetween(any(), any())).thenAnswer(invocation -> {
+            LocalDateTime from = invocation.getArgument(0);
+            LocalDateTime to = invocation.getArgument(1);
+            return completed.stream()
+                    .filter(task -> task.getCompletedTime().isAfter(from) && !task.getCompletedTime().isAfter(to))
+                    .sorted(Comparator.comparing((AssignmentTask task) -> task.getAssignment().getId())
+                            .thenComparing(AssignmentTask::getCompletedTime))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @Test
+    void kmPerHour_ShouldReflectLearnedRushHourSpeeds() {
+        for (int i = 0; i < 6; i++) {
+            addLeg(0.0, MONDAY.plusHours(8).plusMinutes(i * 5), 10.0);
+            addLeg(0.0, MONDAY.plusHours(14).plusMinutes(i * 5), 40.0);
+        }
+
+        assertEquals(12, profiles.refresh(MONDAY.plusDays(1)));
+
+        assertEquals(10.0, profiles.kmPerHour(0.001, 0.001, MONDAY.plusHours(8).plusMinutes(30)), 0.2);
+        assertEquals(40.0, profiles.kmPerHour(0.001, 0.001, MONDAY.plusHours(14)), 0.8);
+        // Unknown zone uses the fleet profile for the hour, unknown hour the default
+        assertEquals(10.0, profiles.kmPerHour(10.0, 10.0, MONDAY.plusHours(8)), 0.2);
+        assertEquals(30.0, profiles.kmPerHour(0.001, 0.001, MONDAY.plusDays(1).plusHours(8)));
+        // The learned speed feeds straight into leg times
+        assertEquals(12, profiles.travelMinutes(0.001, 0.001, MONDAY.plusHours(8), 2.0));
+    }
+
+    @Test
+    void kmPerHour_TooFewSamples_ShouldFallBackToDefault() {
+        for (int i = 0; i < 4; i++) {
+            addLeg(0.0, MONDAY.plusHours(8).plusMinutes(i * 5), 10.0);
+        }
+
+        profiles.refresh(MONDAY.plusDays(1));
+
+        assertEquals(30.0, profiles.kmPerHour(0.001, 0.001, MONDAY.plusHours(8)));
+    }
+
+    @Test
+    void refresh_ShouldOnlyLearnLegsCompletedSinceLastRefresh() {
+        for (int i = 0; i < 5; i++) {
+            addLeg(0.0, MONDAY.plusHours(8).plusMinutes(i * 5), 10.0);
+        }
+        assertEquals(5, profiles.refresh(MONDAY.plusDays(1)));
+
+        for (int i = 0; i < 5; i++) {
+            addLeg(0.0, MONDAY.plusDays(1).plusHours(8).plusMinutes(i * 5), 20.0);
+        }
+        assertEquals(5, profiles.refresh(MONDAY.plusDays(2)));
+        assertEquals(0, profiles.refresh(MONDAY.plusDays(2).plusHours(1)));
+
+        assertEquals(10.0, profiles.kmPerHour(0.001, 0.001, MONDAY.plusHours(8)), 0.2);
+        assertEquals(20.0, profiles.kmPerHour(0.001, 0.001, MONDAY.plusDays(1).plusHours(8)), 0.4);
+        assertEquals(1, profiles.zoneCount());
+    }
+
+    @Test
+    void refresh_ShouldIgnoreScheduledTimesAndStartsBeforeTheDeparture() {
+        for (int i = 0; i < 6; i++) {
+            // Scheduled a minute after the departure and started while still at the previous stop
+            AssignmentTask destination = addLeg(0.0, MONDAY.plusHours(8).plusMinutes(i * 5), 10.0);
+            destination.setScheduledTime(MONDAY.plusHours(8).plusMinutes(i * 5 + 1));
+            destination.setStartedAt(MONDAY.plusHours(7));
+        }
+
+        assertEquals(6, profiles.refresh(MONDAY.plusDays(1)));
+
+        // Learned from the completion less the expected service time
+        assertEquals(10.0, profiles.kmPerHour(0.001, 0.001, MONDAY.plusHours(8)), 0.2);
+    }
+
+    // One assignment per leg: a task completed at the origin, then one started at the destination
+    private AssignmentTask addLeg(double latitude, LocalDateTime departure, double kmPerHour) {
+        Assignment assignment = new Assignment();
+        assignment.setId("assignment-" + legCount++);
+        double km = RouteSchedule.distanceKm(latitude, 0.0, latitude, LEG_DEGREES);
+        LocalDateTime arrival = departure.plusSeconds(Math.round(km / kmPerHour * 3600));
+
+        AssignmentTask destination = task(assignment, latitude, LEG_DEGREES, arrival, arrival.plusMinutes(5));
+        completed.add(task(assignment, latitude, 0.0, null, departure));
+        completed.add(destination);
+        return destination;
+    }
+
+    private AssignmentTask task(Assignment assignment, double latitude, double longitude,
+                                LocalDateTime startedAt, LocalDateTime completedAt) {
+        return AssignmentTask.builder()
+                .assignment(assignment)
+                .taskType(TaskType.DELIVERY)
+                .status(TaskStatus.COMPLETED)
+                .latitude(latitude)
+                .longitude(longitude)
+                .startedTime(startedAt)
+                .completedTime(completedAt)
+                .estimatedDurationMinutes(5)
+                .build();
+    }
+}
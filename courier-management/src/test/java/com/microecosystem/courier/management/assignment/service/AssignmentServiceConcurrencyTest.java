@@ -0,0 +1,329 @@
+package com.gogidix.courier.management.assignment.service;
+
+import com.gogidix.courier.management.assignment.dto.BulkStatusTransitionResult;
+import com.gogidix.courier.management.assignment.model.Assignment;
+import com.gogidix.courier.management.assignment.model.AssignmentStatus;
+import com.gogidix.courier.management.assignment.repository.AssignmentRepository;
+import com.gogidix.courier.management.assignment.service.impl.AssignmentServiceImpl;
+import com.gogidix.courier.management.assignment.validation.AssignmentValidator;
+import com.gogidix.courier.management.courier.model.Courier;
+import com.gogidix.courier.management.courier.model.CourierStatus;
+import com.gogidix.courier.management.courier.repository.CourierRepository;
+import com.gogidix.courier.management.exception.BusinessException;
+import com.gogidix.courier.management.exception.ConflictException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+
+/**
+ * Contention stress test for assignment state transitions. The repositories are backed by an
+ * in-memory store that enforces optimistic version checks the way the database does.
+ */
+@ExtendWith(MockitoExtension.class)
+public class AssignmentServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Mock
+    private AssignmentRepository assignmentRepository;
+
+    @Mock
+    private CourierRepository courierRepository;
+
+    @Mock
+    private AssignmentValidator assignmentValidator;
+
+    private final Map<String, Assignment> assignments = new ConcurrentHashMap<>();
+    private final Map<String, Courier> couriers = new ConcurrentHashMap<>();
+
+    private final NoOpTransactionManager transactionManager = new NoOpTransactionManager();
+    private AssignmentServiceImpl assignmentService;
+
+    @BeforeEach
+    void setUp() {
+        assignmentService = new AssignmentServiceImpl(assignmentRepository, courierRepository,
+                assignmentValidator, new TransactionTemplate(transactionManager));
+
+        lenient().when(assignmentRepository.findByAssignmentId(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(readAssignment(invocation.getArgument(0))));
+        lenient().when(assignmentRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(readAssignment(invocation.getArgument(0))));
+        lenient().when(assignmentRepository.save(any(Assignment.class)))
+                .thenAnswer(invocation -> writeAssignment(invocation.getArgument(0)));
+        lenient().when(assignmentRepository.saveAndFlush(any(Assignment.class)))
+                .thenAnswer(invocation -> writeAssignment(invocation.getArgument(0)));
+        lenient().when(courierRepository.findByCourierId(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(readCourier(invocation.getArgument(0))));
+        lenient().when(courierRepository.save(any(Courier.class)))
+                .thenAnswer(invocation -> writeCourier(invocation.getArgument(0)));
+    }
+
+    @Test
+    void assignToCourier_ConcurrentDispatchers_ShouldAssignEachAssignmentExactlyOnce() throws Exception {
+        int courierCount = 8;
+        int assignmentCount = 200;
+        int dispatchersPerAssignment = 4;
+        for (int c = 0; c < courierCount; c++) {
+            createCourier("courier-" + c);
+        }
+        for (int a = 0; a < assignmentCount; a++) {
+            createAssignment("AS-" + a, AssignmentStatus.CREATED, null);
+        }
+
+        Map<String, AtomicInteger> successes = new ConcurrentHashMap<>();
+        List<Runnable> attempts = new ArrayList<>();
+        for (int a = 0; a < assignmentCount; a++) {
+            String assignmentId = "AS-" + a;
+            successes.put(assignmentId, new AtomicInteger());
+            for (int d = 0; d < dispatchersPerAssignment; d++) {
+                String courierId = "courier-" + ((a + d) % courierCount);
+                attempts.add(() -> {
+                    try {
+                        assignmentService.assignToCourier(assignmentId, courierId);
+                        successes.get(assignmentId).incrementAndGet();
+                    } catch (BusinessException expected) {
+                        // Lost the race to another dispatcher
+                    }
+                });
+            }
+        }
+        runConcurrently(attempts);
+
+        for (int a = 0; a < assignmentCount; a++) {
+            Assignment stored = assignments.get("AS-" + a);
+            assertEquals(1, successes.get("AS-" + a).get(), "Assignment AS-" + a + " assigned more than once");
+            assertEquals(AssignmentStatus.ASSIGNED, stored.getStatus());
+            assertEquals(1L, stored.getVersion());
+        }
+    }
+
+    @Test
+    void startAssignment_ShouldRunInANewTransactionSoItCommitsBeforeTheCourierLockIsReleased() {
+        createCourier("courier-1");
+        createAssignment("AS-1", AssignmentStatus.ACCEPTED, "courier-1");
+
+        assignmentService.startAssignment("AS-1");
+
+        assertEquals(TransactionDefinition.PROPAGATION_REQUIRES_NEW,
+                transactionManager.getDefinitions().get(0).getPropagationBehavior());
+    }
+
+    @Test
+    void updateAssignment_WithoutAVersion_ShouldOverwriteTheStoredAssignment() {
+        createAssignment("AS-1", AssignmentStatus.CREATED, null);
+        assignments.get("AS-1").setVersion(3L);
+
+        Assignment updated = assignmentService.updateAssignment(update("AS-1", null, "Leave at the door"));
+
+        assertEquals("Leave at the door", updated.getNotes());
+        assertEquals(4L, updated.getVersion());
+    }
+
+    @Test
+    void updateAssignment_WithAStaleVersion_ShouldReportAConflict() {
+        createAssignment("AS-1", AssignmentStatus.CREATED, null);
+        assignments.get("AS-1").setVersion(3L);
+
+        assertThrows(ConflictException.class,
+                () -> assignmentService.updateAssignment(update("AS-1", 2L, "Leave at the door")));
+        assertNull(assignments.get("AS-1").getNotes());
+    }
+
+    @Test
+    void startAndComplete_ConcurrentOnSameCourier_ShouldNotLoseCourierUpdates() throws Exception {
+        int assignmentCount = 300;
+        createCourier("courier-1");
+        for (int a = 0; a < assignmentCount; a++) {
+            createAssignment("AS-" + a, AssignmentStatus.ACCEPTED, "courier-1");
+        }
+
+        AtomicInteger failures = new AtomicInteger();
+        List<Runnable> workers = new ArrayList<>();
+        for (int a = 0; a < assignmentCount; a++) {
+            String assignmentId = "AS-" + a;
+            workers.add(() -> {
+                try {
+                    assignmentService.startAssignment(assignmentId);
+                    assignmentService.completeAssignment(assignmentId);
+                } catch (BusinessException e) {
+                    failures.incrementAndGet();
+                }
+            });
+        }
+        runConcurrently(workers);
+
+        assertEquals(0, failures.get());
+        for (int a = 0; a < assignmentCount; a++) {
+            Assignment stored = assignments.get("AS-" + a);
+            assertEquals(AssignmentStatus.COMPLETED, stored.getStatus());
+            assertEquals(2L, stored.getVersion());
+        }
+        // Every start and complete saved the courier exactly once
+        Courier courier = couriers.get("courier-1");
+        assertEquals(2L * assignmentCount, courier.getVersion());
+        assertEquals(CourierStatus.AVAILABLE, courier.getStatus());
+    }
+
+    @Test
+    void transitionAssignments_ShouldReportPerAssignmentOutcome() {
+        createCourier("courier-1");
+        createAssignment("AS-1", AssignmentStatus.ACCEPTED, "courier-1");
+        createAssignment("AS-2", AssignmentStatus.CREATED, null);
+
+        List<BulkStatusTransitionResult> results = assignmentService.transitionAssignments(
+                List.of("AS-1", "AS-2", "AS-missing"), AssignmentStatus.IN_PROGRESS, null);
+
+        assertEquals(3, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(AssignmentStatus.IN_PROGRESS, results.get(0).getStatus());
+        assertFalse(results.get(1).isSuccess());
+        assertFalse(results.get(2).isSuccess());
+        assertEquals(CourierStatus.BUSY, couriers.get("courier-1").getStatus());
+        assertEquals(AssignmentStatus.CREATED, assignments.get("AS-2").getStatus());
+    }
+
+    private void runConcurrently(List<Runnable> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (Runnable task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void createCourier(String id) {
+        Courier courier = Courier.builder()
+                .status(CourierStatus.AVAILABLE)
+                .isActive(true)
+                .version(0L)
+                .build();
+        courier.setId(id);
+        couriers.put(id, courier);
+    }
+
+    private void createAssignment(String assignmentId, AssignmentStatus status, String courierId) {
+        Assignment assignment = Assignment.builder()
+                .assignmentId(assignmentId)
+                .status(status)
+                .courier(courierId != null ? couriers.get(courierId) : null)
+                .version(0L)
+                .build();
+        assignment.setId(assignmentId);
+        assignments.put(assignmentId, assignment);
+    }
+
+    // A full update body as the API receives it
+    private static Assignment update(String id, Long version, String notes) {
+        Assignment assignment = Assignment.builder()
+                .assignmentId(id)
+                .status(AssignmentStatus.CREATED)
+                .notes(notes)
+                .version(version)
+                .build();
+        assignment.setId(id);
+        return assignment;
+    }
+
+    // Reads return detached copies, like a fresh persistence context
+
+    private Assignment readAssignment(String assignmentId) {
+        Assignment stored = assignments.get(assignmentId);
+        if (stored == null) {
+            return null;
+        }
+        synchronized (stored) {
+            Assignment copy = Assignment.builder()
+                    .assignmentId(stored.getAssignmentId())
+                    .status(stored.getStatus())
+                    .courier(stored.getCourier() != null ? readCourier(stored.getCourier().getId()) : null)
+                    .assignedAt(stored.getAssignedAt())
+                    .actualStartTime(stored.getActualStartTime())
+                    .actualEndTime(stored.getActualEndTime())
+                    .notes(stored.getNotes())
+                    .version(stored.getVersion())
+                    .build();
+            copy.setId(stored.getId());
+            return copy;
+        }
+    }
+
+    private Courier readCourier(String courierId) {
+        Courier stored = couriers.get(courierId);
+        if (stored == null) {
+            return null;
+        }
+        synchronized (stored) {
+            Courier copy = Courier.builder()
+                    .status(stored.getStatus())
+                    .isActive(stored.getIsActive())
+                    .version(stored.getVersion())
+                    .build();
+            copy.setId(stored.getId());
+            return copy;
+        }
+    }
+
+    // Writes enforce the optimistic version check and bump the version
+
+    private Assignment writeAssignment(Assignment assignment) {
+        Assignment stored = assignments.get(assignment.getId());
+        synchronized (stored) {
+            if (!stored.getVersion().equals(assignment.getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(Assignment.class, assignment.getId());
+            }
+            stored.setStatus(assignment.getStatus());
+            stored.setCourier(assignment.getCourier());
+            stored.setAssignedAt(assignment.getAssignedAt());
+            stored.setActualStartTime(assignment.getActualStartTime());
+            stored.setActualEndTime(assignment.getActualEndTime());
+            stored.setNotes(assignment.getNotes());
+            stored.setVersion(stored.getVersion() + 1);
+        }
+        return readAssignment(assignment.getId());
+    }
+
+    private Courier writeCourier(Courier courier) {
+        Courier stored = couriers.get(courier.getId());
+        synchronized (stored) {
+            if (!stored.getVersion().equals(courier.getVersion())) {
+                throw new ObjectOptimisticLockingFailureException(Courier.class, courier.getId());
+            }
+            stored.setStatus(courier.getStatus());
+            stored.setVersion(stored.getVersion() + 1);
+        }
+        return readCourier(courier.getId());
+    }
+}
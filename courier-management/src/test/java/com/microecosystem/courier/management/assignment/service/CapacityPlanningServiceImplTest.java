@@ -0,0 +1,177 @@
+package com.gogidix.courier.management.assignment.service;
+
+import com.gogidix.courier.management.assignment.capacity.VehicleCapacityProperties;
+import com.gogidix.courier.management.assignment.dto.CapacityLoad;
+import com.gogidix.courier.management.assignment.dto.CapacityPlan;
+import com.gogidix.courier.management.assignment.model.Assignment;
+import com.gogidix.courier.management.assignment.model.AssignmentTask;
+import com.gogidix.courier.management.assignment.model.TaskStatus;
+import com.gogidix.courier.management.assignment.model.TaskType;
+import com.gogidix.courier.management.assignment.repository.AssignmentRepository;
+import com.gogidix.courier.management.assignment.repository.AssignmentTaskRepository;
+import com.gogidix.courier.management.assignment.sequencing.TravelSpeeds;
+import com.gogidix.courier.management.assignment.service.impl.CapacityPlanningServiceImpl;
+import com.gogidix.courier.management.assignment.service.impl.NearestNeighborTaskSequencingServiceImpl;
+import com.gogidix.courier.management.courier.model.Courier;
+import com.gogidix.courier.management.courier.repository.CourierRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CapacityPlanningServiceImplTest {
+
+    @Mock
+    private AssignmentRepository assignmentRepository;
+
+    @Mock
+    private AssignmentTaskRepository taskRepository;
+
+    @Mock
+    private CourierRepository courierRepository;
+
+    private CapacityPlanningServiceImpl planningService;
+    private final List<Assignment> assignments = new ArrayList<>();
+    private final List<AssignmentTask> tasks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        VehicleCapacityProperties properties = new VehicleCapacityProperties();
+        properties.getVehicles().put("BICYCLE", new VehicleCapacityProperties.VehicleCapacity(15, 60));
+        properties.getVehicles().put("CAR", new VehicleCapacityProperties.VehicleCapacity(200, 500));
+        planningService = new CapacityPlanningServiceImpl(assignmentRepository, taskRepository, courierRepository,
+                new NearestNeighborTaskSequencingServiceImpl(taskRepository, TravelSpeeds.constant(30.0)), properties);
+
+        when(assignmentRepository.findByAssignmentIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> ids = invocation.getArgument(0);
+            return assignments.stream().filter(a -> ids.contains(a.getAssignmentId())).collect(Collectors.toList());
+        });
+        when(taskRepository.findByAssignmentInOrderBySequenceAsc(anyCollection())).thenAnswer(invocation -> {
+            Collection<Assignment> loaded = invocation.getArgument(0);
+            return tasks.stream().filter(t -> loaded.contains(t.getAssignment())).collect(Collectors.toList());
+        });
+    }
+
+    @Test
+    void planLoads_ShouldKeepOrdersTogetherWithinCourierVehicleCapacity() {
+        // Six 6 kg orders, each a pickup and delivery of the same parcel
+        for (int i = 0; i < 6; i++) {
+            order("AS-" + i, 6.0, i * 0.01);
+        }
+        Courier courier = new Courier();
+        courier.setVehicleType("bicycle");
+        when(courierRepository.findByCourierId("C-1")).thenReturn(Optional.of(courier));
+
+        CapacityPlan plan = planningService.planLoads(
+                List.of("AS-0", "AS-1", "AS-2", "AS-3", "AS-4", "AS-5", "AS-missing"), "C-1", null);
+
+        assertEquals("BICYCLE", plan.getVehicleType());
+        assertEquals(3, plan.getLoads().size());
+        assertEquals(3, plan.getMinimumLoads());
+        assertEquals(List.of("AS-missing"), plan.getSkippedAssignmentIds());
+        Set<String> planned = new HashSet<>();
+        for (CapacityLoad load : plan.getLoads()) {
+            assertEquals(12.0, load.getWeightKg(), 1e-9);
+            assertEquals(0.8, load.getUtilisation(), 1e-9);
+            assertEquals(4, load.getTaskIds().size());
+            for (String assignmentId : load.getAssignmentIds()) {
+                assertTrue(load.getTaskIds().containsAll(List.of(assignmentId + "-P", assignmentId + "-D")));
+            }
+            planned.addAll(load.getTaskIds());
+        }
+        assertEquals(12, planned.size());
+    }
+
+    @Test
+    void planLoads_ShouldReportOrdersTooLargeForTheVehicle() {
+        order("AS-0", 5.0, 0.0);
+        order("AS-1", 40.0, 0.01);
+
+        CapacityPlan plan = planningService.planLoads(List.of("AS-0", "AS-1"), null, "BICYCLE");
+
+        assertEquals(List.of("AS-1"), plan.getOversizedAssignmentIds());
+        assertEquals(1, plan.getLoads().size());
+        assertEquals(List.of("AS-0"), plan.getLoads().get(0).getAssignmentIds());
+    }
+
+    @Test
+    void planLoads_ShouldVisitEachPickupBeforeItsDelivery() {
+        // Each delivery lies next to the previous order's pickup, so distance alone visits it first
+        for (int i = 0; i < 3; i++) {
+            order("AS-" + i, 2.0, i * 0.1, -0.099);
+        }
+
+        CapacityPlan plan = planningService.planLoads(List.of("AS-0", "AS-1", "AS-2"), null, "CAR");
+
+        assertEquals(1, plan.getLoads().size());
+        List<String> route = plan.getLoads().get(0).getTaskIds();
+        assertEquals(6, route.size());
+        for (int i = 0; i < 3; i++) {
+            assertTrue(route.indexOf("AS-" + i + "-P") < route.indexOf("AS-" + i + "-D"), route::toString);
+        }
+    }
+
+    @Test
+    void planLoads_ShouldReportOrdersWithUnknownPackagesInsteadOfPackingThemAsEmpty() {
+        order("AS-0", 5.0, 0.0);
+        order("AS-1", 5.0, 0.01);
+        tasks.stream().filter(task -> task.getId().startsWith("AS-1"))
+                .forEach(task -> task.setPackageWeightKg(null));
+        order("AS-2", 5.0, 0.02);
+        // The delivery was never measured, but the pickup of the same parcel was
+        tasks.get(tasks.size() - 1).setPackageHeightCm(null);
+
+        CapacityPlan plan = planningService.planLoads(List.of("AS-0", "AS-1", "AS-2"), null, "BICYCLE");
+
+        assertEquals(List.of("AS-1"), plan.getUnmeasuredAssignmentIds());
+        assertEquals(1, plan.getLoads().size());
+        assertEquals(List.of("AS-0", "AS-2"), plan.getLoads().get(0).getAssignmentIds());
+        assertEquals(10.0, plan.getLoads().get(0).getWeightKg(), 1e-9);
+    }
+
+    private void order(String assignmentId, double weightKg, double longitude) {
+        order(assignmentId, weightKg, longitude, 0.005);
+    }
+
+    private void order(String assignmentId, double weightKg, double longitude, double deliveryOffset) {
+        Assignment assignment = new Assignment();
+        assignment.setId("entity-" + assignmentId);
+        assignment.setAssignmentId(assignmentId);
+        assignments.add(assignment);
+        tasks.add(task(assignment, assignmentId + "-P", TaskType.PICKUP, 1, weightKg, longitude));
+        tasks.add(task(assignment, assignmentId + "-D", TaskType.DELIVERY, 2, weightKg, longitude + deliveryOffset));
+    }
+
+    private AssignmentTask task(Assignment assignment, String id, TaskType type, int sequence,
+                                double weightKg, double longitude) {
+        AssignmentTask task = AssignmentTask.builder()
+                .assignment(assignment)
+                .taskType(type)
+                .status(TaskStatus.PENDING)
+                .sequence(sequence)
+                .latitude(0.0)
+                .longitude(longitude)
+                .estimatedDurationMinutes(5)
+                .packageWeightKg(weightKg)
+                .packageLengthCm(30.0)
+                .packageWidthCm(20.0)
+                .packageHeightCm(10.0)
+                .build();
+        task.setId(id);
+        return task;
+    }
+}
@@ -0,0 +1,162 @@
+package com.gogidix.courier.management.assignment.service;
+
+import com.gogidix.courier.management.assignment.dto.RouteUpdate;
+import com.gogidix.courier.management.assignment.model.Assignment;
+import com.gogidix.courier.management.assignment.model.AssignmentTask;
+import com.gogidix.courier.management.assignment.model.TaskStatus;
+import com.gogidix.courier.management.assignment.model.TaskType;
+import com.gogidix.courier.management.assignment.repository.AssignmentTaskRepository;
+import com.gogidix.courier.management.assignment.sequencing.RouteSchedule;
+import com.gogidix.courier.management.assignment.sequencing.TravelSpeeds;
+import com.gogidix.courier.management.assignment.service.impl.NearestNeighborTaskSequencingServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+public class IncrementalTaskSequencingTest {
+
+    private static final double SPEED_KM_PER_HOUR = 30.0;
+
+    @Mock
+    private AssignmentTaskRepository taskRepository;
+
+    private NearestNeighborTaskSequencingServiceImpl sequencingService;
+    private Assignment assignment;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        sequencingService = new NearestNeighborTaskSequencingServiceImpl(taskRepository, TravelSpeeds.constant(SPEED_KM_PER_HOUR));
+        assignment = new Assignment();
+        assignment.setId("assignment-1");
+        start = LocalDateTime.of(2024, 1, 1, 9, 0);
+    }
+
+    @Test
+    void findCheapestInsertion_ShouldPickPositionBetweenNeighbours() {
+        // Stops along a line of longitude, roughly 1.1 km apart
+        List<AssignmentTask> route = List.of(task("a", 0.00), task("b", 0.01), task("c", 0.02), task("d", 0.03));
+
+        RouteSchedule.Insertion insertion = RouteSchedule.of(route, start, SPEED_KM_PER_HOUR)
+                .findCheapestInsertion(task("x", 0.015), 0);
+
+        assertEquals(2, insertion.getPosition());
+        assertTrue(insertion.isWithinTimeWindows());
+        assertEquals(0.0, insertion.getDistanceDeltaKm(), 1e-6);
+    }
+
+    @Test
+    void findCheapestInsertion_ShouldSkipPositionsThatBreakLaterTimeWindows() {
+        AssignmentTask tight = task("c", 0.02);
+        tight.setEstimatedDuration(0);
+        List<AssignmentTask> route = List.of(task("a", 0.00), task("b", 0.01), tight);
+        // c is reached just in time, so nothing with a 30 minute stop may go in front of it
+        RouteSchedule schedule = RouteSchedule.of(route, start, SPEED_KM_PER_HOUR);
+        tight.setEndTimeWindow(schedule.getArrivalTime(2));
+        schedule = RouteSchedule.of(route, start, SPEED_KM_PER_HOUR);
+        AssignmentTask slow = task("x", 0.015);
+        slow.setEstimatedDuration(30);
+
+        RouteSchedule.Insertion insertion = schedule.findCheapestInsertion(slow, 0);
+
+        assertTrue(schedule.isFeasible());
+        assertEquals(3, insertion.getPosition());
+        assertTrue(insertion.isWithinTimeWindows());
+    }
+
+    @Test
+    void removalDeltaKm_ShouldJoinNeighbours() {
+        List<AssignmentTask> route = List.of(task("a", 0.00), task("b", 0.05), task("c", 0.01));
+        RouteSchedule schedule = RouteSchedule.of(route, start, SPEED_KM_PER_HOUR);
+
+        double delta = schedule.removalDeltaKm(1);
+
+        double expected = distance(0.00, 0.01) - distance(0.00, 0.05) - distance(0.05, 0.01);
+        assertEquals(expected, delta, 1e-6);
+    }
+
+    @Test
+    void insertTask_ShouldKeepInProgressStopsAtTheHead() {
+        AssignmentTask current = task("a", 0.03);
+        current.setStatus(TaskStatus.IN_PROGRESS);
+        List<AssignmentTask> route = List.of(current, task("b", 0.02), task("c", 0.01));
+
+        RouteUpdate update = sequencingService.insertTask(assignment, route, task("x", 0.031), start);
+
+        assertFalse(update.isReoptimised());
+        assertEquals(1, update.getPosition());
+        assertSame(current, update.getSequence().get(0));
+        assertEquals(4, update.getSequence().size());
+    }
+
+    @Test
+    void insertTask_ShouldReoptimiseOnceDriftExceedsThreshold() {
+        List<AssignmentTask> route = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            route.add(task("t" + i, i * 0.001));
+        }
+
+        // Small detours accumulate until the change budget is used up
+        int inserted = 0;
+        RouteUpdate update;
+        do {
+            update = sequencingService.insertTask(assignment, route, task("x" + inserted, inserted * 0.0005), start);
+            route = new ArrayList<>(update.getSequence());
+            inserted++;
+        } while (!update.isReoptimised() && inserted < 100);
+
+        assertTrue(update.isReoptimised());
+        assertEquals(200 + inserted, update.getSequence().size());
+        assertEquals(-1, update.getPosition());
+
+        // Drift was reset by the full pass, so the next change is incremental again
+        RouteUpdate next = sequencingService.removeTask(assignment, route, route.get(10));
+        assertFalse(next.isReoptimised());
+        assertEquals(route.size() - 1, next.getSequence().size());
+    }
+
+    @Test
+    void routeDrift_ShouldStayBoundedAndForgetIdleRoutes() {
+        ReflectionTestUtils.setField(sequencingService, "maxTrackedRoutes", 2);
+        Map<?, ?> drift = (Map<?, ?>) ReflectionTestUtils.getField(sequencingService, "routeDrift");
+        for (int a = 0; a < 5; a++) {
+            Assignment other = new Assignment();
+            other.setId("assignment-" + a);
+            sequencingService.insertTask(other, List.of(task("a", 0.00), task("b", 0.01)), task("x", 0.005), start);
+        }
+        assertEquals(2, drift.size());
+
+        ReflectionTestUtils.setField(sequencingService, "driftIdleMs", -1L);
+        sequencingService.evictIdleRouteDrift();
+        assertTrue(drift.isEmpty());
+    }
+
+    private AssignmentTask task(String id, double longitude) {
+        AssignmentTask task = AssignmentTask.builder()
+                .assignment(assignment)
+                .taskType(TaskType.DELIVERY)
+                .status(TaskStatus.PENDING)
+                .latitude(0.0)
+                .longitude(longitude)
+                .estimatedDurationMinutes(5)
+                .build();
+        task.setId(id);
+        return task;
+    }
+
+    private double distance(double lon1, double lon2) {
+        return RouteSchedule.of(List.of(task("p", lon1), task("q", lon2)), start, SPEED_KM_PER_HOUR)
+                .getTotalDistanceKm();
+    }
+}
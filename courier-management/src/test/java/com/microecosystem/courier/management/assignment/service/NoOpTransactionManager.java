@@ -0,0 +1,36 @@
+package com.gogidix.courier.management.assignment.service;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Transaction manager for service tests that run against mocked repositories. It does nothing
+ * but remember the transaction definitions it was asked for.
+ */
+class NoOpTransactionManager implements PlatformTransactionManager {
+
+    private final List<TransactionDefinition> definitions = new CopyOnWriteArrayList<>();
+
+    @Override
+    public TransactionStatus getTransaction(TransactionDefinition definition) {
+        definitions.add(definition != null ? definition : TransactionDefinition.withDefaults());
+        return new SimpleTransactionStatus();
+    }
+
+    @Override
+    public void commit(TransactionStatus status) {
+    }
+
+    @Override
+    public void rollback(TransactionStatus status) {
+    }
+
+    List<TransactionDefinition> getDefinitions() {
+        return definitions;
+    }
+}
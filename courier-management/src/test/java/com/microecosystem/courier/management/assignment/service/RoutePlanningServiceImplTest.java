@@ -0,0 +1,173 @@
+package com.gogidix.courier.management.assignment.service;
+
+import com.gogidix.courier.management.assignment.dto.RoutePlanResult;
+import com.gogidix.courier.management.assignment.model.Assignment;
+import com.gogidix.courier.management.assignment.model.AssignmentTask;
+import com.gogidix.courier.management.assignment.model.TaskStatus;
+import com.gogidix.courier.management.assignment.model.TaskType;
+import com.gogidix.courier.management.assignment.repository.AssignmentRepository;
+import com.gogidix.courier.management.assignment.repository.AssignmentTaskRepository;
+import com.gogidix.courier.management.assignment.sequencing.TravelSpeeds;
+import com.gogidix.courier.management.assignment.service.impl.NearestNeighborTaskSequencingServiceImpl;
+import com.gogidix.courier.management.assignment.service.impl.RoutePlanningServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RoutePlanningServiceImplTest {
+
+    @Mock
+    private AssignmentRepository assignmentRepository;
+
+    @Mock
+    private AssignmentTaskRepository taskRepository;
+
+    private ForkJoinPool pool;
+    private RoutePlanningServiceImpl planningService;
+    private final List<Assignment> assignments = new ArrayList<>();
+    private final List<AssignmentTask> tasks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(4);
+        planningService = new RoutePlanningServiceImpl(assignmentRepository, taskRepository,
+                new NearestNeighborTaskSequencingServiceImpl(taskRepository, TravelSpeeds.constant(30.0)),
+                new TransactionTemplate(new NoOpTransactionManager()), pool);
+
+        // Three assignments whose tasks are stored in a scrambled order along a line
+        for (int a = 0; a < 3; a++) {
+            Assignment assignment = new Assignment();
+            assignment.setId("entity-" + a);
+            assignment.setAssignmentId("AS-" + a);
+            assignments.add(assignment);
+            for (int t = 0; t < 20; t++) {
+                tasks.add(task(assignment, a + "-" + t, t + 1, (t * 7 % 20) * 0.01));
+            }
+        }
+        when(assignmentRepository.findByAssignmentIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> ids = invocation.getArgument(0);
+            return assignments.stream().filter(a -> ids.contains(a.getAssignmentId())).collect(Collectors.toList());
+        });
+        when(taskRepository.findByAssignmentInOrderBySequenceAsc(anyCollection())).thenAnswer(invocation -> {
+            Collection<Assignment> loaded = invocation.getArgument(0);
+            return tasks.stream().filter(t -> loaded.contains(t.getAssignment())).collect(Collectors.toList());
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pool.shutdownNow();
+        pool.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void planRoutes_ShouldStreamEachResultAndPersistInOneBatch() {
+        Map<String, RoutePlanResult> streamed = new ConcurrentHashMap<>();
+
+        List<RoutePlanResult> results = planningService.planRoutes(
+                List.of("AS-0", "AS-1", "AS-missing", "AS-2"), null,
+                result -> streamed.put(result.getAssignmentId(), result)).join();
+
+        assertEquals(List.of("AS-0", "AS-1", "AS-missing", "AS-2"),
+                results.stream().map(RoutePlanResult::getAssignmentId).collect(Collectors.toList()));
+        assertEquals(4, streamed.size());
+        assertFalse(streamed.get("AS-missing").isSuccess());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(20, results.get(0).getTaskIds().size());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<AssignmentTask>> saved = ArgumentCaptor.forClass(List.class);
+        verify(taskRepository, times(1)).saveAll(saved.capture());
+        assertFalse(saved.getValue().isEmpty());
+        // The persisted sequence numbers follow the planned order
+        for (RoutePlanResult result : results) {
+            if (!result.isSuccess()) {
+                continue;
+            }
+            for (int i = 0; i < result.getTaskIds().size(); i++) {
+                String taskId = result.getTaskIds().get(i);
+                AssignmentTask task = tasks.stream().filter(t -> t.getId().equals(taskId)).findFirst().orElseThrow();
+                assertEquals(i + 1, task.getSequence());
+            }
+        }
+    }
+
+    @Test
+    void planRoutes_ShouldNotStoreRoutesWhoseTasksChangedWhilePlanning() {
+        // A driver completes a stop of AS-1 after its tasks were loaded for planning
+        AssignmentTask completed = tasks.stream().filter(t -> t.getId().equals("1-3")).findFirst().orElseThrow();
+        completed.setVersion(0L);
+        when(taskRepository.findByAssignmentInOrderBySequenceAsc(anyCollection()))
+                .thenAnswer(invocation -> tasksOf(invocation.getArgument(0)))
+                .thenAnswer(invocation -> {
+                    completed.setVersion(1L);
+                    return tasksOf(invocation.getArgument(0));
+                });
+
+        List<RoutePlanResult> results = planningService.planRoutes(List.of("AS-1", "AS-2"), null, result -> { }).join();
+
+        assertFalse(results.get(0).isSuccess());
+        assertNotNull(results.get(0).getError());
+        assertTrue(results.get(1).isSuccess());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<AssignmentTask>> saved = ArgumentCaptor.forClass(List.class);
+        verify(taskRepository).saveAll(saved.capture());
+        assertFalse(saved.getValue().isEmpty());
+        assertTrue(saved.getValue().stream().allMatch(t -> t.getAssignment().getAssignmentId().equals("AS-2")));
+    }
+
+    private List<AssignmentTask> tasksOf(Collection<Assignment> loaded) {
+        return tasks.stream().filter(t -> loaded.contains(t.getAssignment())).collect(Collectors.toList());
+    }
+
+    @Test
+    void planRoutes_ExhaustedBudget_ShouldKeepRemainingTasksInCurrentOrder() {
+        List<RoutePlanResult> results = planningService.planRoutes(
+                List.of("AS-0"), Duration.ofNanos(1), result -> { }).join();
+
+        RoutePlanResult result = results.get(0);
+        assertTrue(result.isSuccess());
+        assertTrue(result.isBudgetExceeded());
+        // Only the first stop was chosen before the budget ran out
+        List<String> expectedTail = tasks.subList(0, 20).stream()
+                .map(AssignmentTask::getId)
+                .filter(id -> !id.equals(result.getTaskIds().get(0)))
+                .collect(Collectors.toList());
+        assertEquals(expectedTail, result.getTaskIds().subList(1, 20));
+    }
+
+    private AssignmentTask task(Assignment assignment, String id, int sequence, double longitude) {
+        AssignmentTask task = AssignmentTask.builder()
+                .assignment(assignment)
+                .taskType(TaskType.DELIVERY)
+                .status(TaskStatus.PENDING)
+                .sequence(sequence)
+                .latitude(0.0)
+                .longitude(longitude)
+                .estimatedDurationMinutes(5)
+                .build();
+        task.setId(id);
+        return task;
+    }
+}
@@ -0,0 +1,201 @@
+package com.gogidix.courier.management.assignment.service;
+
+import com.gogidix.courier.management.assignment.dto.ReoptimisationResult;
+import com.gogidix.courier.management.assignment.event.ReoptimisationTrigger;
+import com.gogidix.courier.management.assignment.event.RouteDisruptionEvent;
+import com.gogidix.courier.management.assignment.event.RouteResequencedEvent;
+import com.gogidix.courier.management.assignment.model.Assignment;
+import com.gogidix.courier.management.assignment.model.AssignmentStatus;
+import com.gogidix.courier.management.assignment.model.AssignmentTask;
+import com.gogidix.courier.management.assignment.model.TaskStatus;
+import com.gogidix.courier.management.assignment.model.TaskType;
+import com.gogidix.courier.management.assignment.repository.AssignmentRepository;
+import com.gogidix.courier.management.assignment.repository.AssignmentTaskRepository;
+import com.gogidix.courier.management.assignment.sequencing.TravelSpeeds;
+import com.gogidix.courier.management.assignment.service.impl.RouteReoptimisationServiceImpl;
+import com.gogidix.courier.management.courier.index.CourierPositionChangedEvent;
+import com.gogidix.courier.management.courier.model.Courier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class RouteReoptimisationServiceImplTest {
+
+    @Mock
+    private AssignmentRepository assignmentRepository;
+
+    @Mock
+    private AssignmentTaskRepository taskRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ForkJoinPool pool;
+    private RouteReoptimisationServiceImpl reoptimisationService;
+    private Assignment assignment;
+    private final List<AssignmentTask> tasks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        pool = new ForkJoinPool(2);
+        reoptimisationService = new RouteReoptimisationServiceImpl(assignmentRepository, taskRepository,
+                TravelSpeeds.constant(30.0), new TransactionTemplate(new NoOpTransactionManager()), pool,
+                eventPublisher);
+
+        Courier courier = new Courier();
+        courier.setId("courier-1");
+        courier.setCurrentLatitude(0.0);
+        courier.setCurrentLongitude(0.0);
+        assignment = new Assignment();
+        assignment.setId("entity-1");
+        assignment.setAssignmentId("AS-1");
+        assignment.setStatus(AssignmentStatus.IN_PROGRESS);
+        assignment.setCourier(courier);
+
+        when(assignmentRepository.findByAssignmentId("AS-1")).thenReturn(Optional.of(assignment));
+        lenient().when(taskRepository.findByAssignmentInOrderBySequenceAsc(anyCollection()))
+                .thenAnswer(invocation -> new ArrayList<>(tasks));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        reoptimisationService.shutdown();
+        pool.shutdownNow();
+        pool.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void reoptimise_ShouldStoreAndAnnounceShorterRoute() {
+        // Stops roughly 1.1 km apart along a line, zig-zagging away from the courier
+        addTasks(0.03, 0.01, 0.04, 0.02);
+
+        ReoptimisationResult result = reoptimisationService.reoptimise("AS-1", ReoptimisationTrigger.TASK_CANCELLED);
+
+        assertTrue(result.isApplied());
+        assertEquals(List.of("t1", "t3", "t0", "t2"), result.getTaskIds());
+        assertTrue(result.getDistanceAfterKm() < result.getDistanceBeforeKm());
+        for (int i = 0; i < result.getTaskIds().size(); i++) {
+            assertEquals(i + 1, task(result.getTaskIds().get(i)).getSequence());
+        }
+        verify(taskRepository).saveAll(any());
+        ArgumentCaptor<RouteResequencedEvent> event = ArgumentCaptor.forClass(RouteResequencedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals("AS-1", event.getValue().getAssignmentId());
+        assertEquals("courier-1", event.getValue().getCourierId());
+        assertEquals(result.getTaskIds(), event.getValue().getTaskIds());
+    }
+
+    @Test
+    void reoptimise_ShouldKeepRouteWhenImprovementIsBelowThreshold() {
+        // Swapping the two close stops saves about 100 m, below the 300 m default
+        addTasks(0.01, 0.02, 0.0305, 0.03, 0.04);
+
+        ReoptimisationResult result = reoptimisationService.reoptimise("AS-1", ReoptimisationTrigger.POSITION_DRIFT);
+
+        assertFalse(result.isApplied());
+        assertEquals(List.of("t0", "t1", "t2", "t3", "t4"), result.getTaskIds());
+        verify(taskRepository, never()).saveAll(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void reoptimise_ShouldNotStoreRouteWhenATaskChangedWhileItWasImproved() {
+        addTasks(0.03, 0.01, 0.04, 0.02);
+        tasks.forEach(task -> task.setVersion(0L));
+        // The courier updates a stop's notes after the route was read; the stop list is unchanged
+        when(taskRepository.findByAssignmentInOrderBySequenceAsc(anyCollection()))
+                .thenAnswer(invocation -> new ArrayList<>(tasks))
+                .thenAnswer(invocation -> {
+                    task("t2").setVersion(1L);
+                    return new ArrayList<>(tasks);
+                });
+
+        ReoptimisationResult result = reoptimisationService.reoptimise("AS-1", ReoptimisationTrigger.TASK_CANCELLED);
+
+        assertFalse(result.isApplied());
+        assertEquals(List.of("t0", "t1", "t2", "t3"), result.getTaskIds());
+        verify(taskRepository, never()).saveAll(any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void reoptimise_ShouldNotAnnounceRouteWhoseStoreLostARace() {
+        addTasks(0.03, 0.01, 0.04, 0.02);
+        when(taskRepository.saveAll(any())).thenThrow(new OptimisticLockingFailureException("Task was updated"));
+
+        ReoptimisationResult result = reoptimisationService.reoptimise("AS-1", ReoptimisationTrigger.TASK_CANCELLED);
+
+        assertFalse(result.isApplied());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void requestReoptimisation_ShouldCoalesceBurstIntoOneRun() throws InterruptedException {
+        ReflectionTestUtils.setField(reoptimisationService, "debounceMs", 100L);
+        assignment.setStatus(AssignmentStatus.COMPLETED);
+
+        for (int i = 0; i < 5; i++) {
+            reoptimisationService.requestReoptimisation("AS-1", ReoptimisationTrigger.TASK_CANCELLED);
+        }
+
+        verify(assignmentRepository, timeout(2000)).findByAssignmentId("AS-1");
+        Thread.sleep(300);
+        verify(assignmentRepository, times(1)).findByAssignmentId("AS-1");
+    }
+
+    @Test
+    void onCourierPositionChanged_AfterAStopIsCompleted_ShouldNotReportDriftFromIt() {
+        ReflectionTestUtils.setField(reoptimisationService, "debounceMs", 60_000L);
+        RouteReoptimisationServiceImpl service = spy(reoptimisationService);
+        addTasks(0.01, 0.02);
+        // Records the first stop as the one the courier is heading for
+        service.reoptimise("AS-1", ReoptimisationTrigger.MANUAL);
+
+        // The courier reaches it, completes it and drives on past it
+        service.onRouteDisruption(new RouteDisruptionEvent("AS-1", "courier-1", ReoptimisationTrigger.TASK_COMPLETED));
+        service.onCourierPositionChanged(new CourierPositionChangedEvent("courier-1", 0.0, 0.03));
+
+        verify(service).requestReoptimisation("AS-1", ReoptimisationTrigger.TASK_COMPLETED);
+        verify(service, never()).requestReoptimisation("AS-1", ReoptimisationTrigger.POSITION_DRIFT);
+    }
+
+    private void addTasks(double... longitudes) {
+        for (int i = 0; i < longitudes.length; i++) {
+            AssignmentTask task = AssignmentTask.builder()
+                    .assignment(assignment)
+                    .taskType(TaskType.DELIVERY)
+                    .status(TaskStatus.PENDING)
+                    .sequence(i + 1)
+                    .latitude(0.0)
+                    .longitude(longitudes[i])
+                    .estimatedDurationMinutes(5)
+                    .build();
+            task.setId("t" + i);
+            tasks.add(task);
+        }
+    }
+
+    private AssignmentTask task(String id) {
+        return tasks.stream().filter(t -> t.getId().equals(id)).findFirst().orElseThrow();
+    }
+}
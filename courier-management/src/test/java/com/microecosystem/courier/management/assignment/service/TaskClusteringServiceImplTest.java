@@ -0,0 +1,145 @@
+package com.gogidix.courier.management.assignment.service;
+
+import com.gogidix.courier.management.assignment.capacity.VehicleCapacityProperties;
+import com.gogidix.courier.management.assignment.dto.TaskCluster;
+import com.gogidix.courier.management.assignment.dto.TaskClusterPlan;
+import com.gogidix.courier.management.assignment.dto.TaskClusterRequest;
+import com.gogidix.courier.management.assignment.model.Assignment;
+import com.gogidix.courier.management.assignment.model.AssignmentTask;
+import com.gogidix.courier.management.assignment.model.TaskStatus;
+import com.gogidix.courier.management.assignment.model.TaskType;
+import com.gogidix.courier.management.assignment.repository.AssignmentTaskRepository;
+import com.gogidix.courier.management.assignment.sequencing.TravelSpeeds;
+import com.gogidix.courier.management.assignment.service.impl.NearestNeighborTaskSequencingServiceImpl;
+import com.gogidix.courier.management.assignment.service.impl.TaskClusteringServiceImpl;
+import com.gogidix.courier.management.exception.BusinessException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class TaskClusteringServiceImplTest {
+
+    @Mock
+    private AssignmentTaskRepository taskRepository;
+
+    private ForkJoinPool pool;
+    private TaskClusteringServiceImpl clusteringService;
+    private final List<AssignmentTask> tasks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        VehicleCapacityProperties properties = new VehicleCapacityProperties();
+        properties.getVehicles().put("BICYCLE", new VehicleCapacityProperties.VehicleCapacity(15, 60));
+        pool = new ForkJoinPool(2);
+        clusteringService = new TaskClusteringServiceImpl(taskRepository,
+                new NearestNeighborTaskSequencingServiceImpl(taskRepository, TravelSpeeds.constant(30.0)),
+                properties, new TransactionTemplate(new NoOpTransactionManager()), pool);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pool.shutdownNow();
+        pool.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void clusterPendingTasks_ShouldKeepEachOrderInOneClusterWeightedOnce() {
+        // Six 6 kg orders, each a pickup and delivery of the same parcel, read three tasks a page
+        for (int i = 0; i < 6; i++) {
+            order("AS-" + i, 6.0, i * 0.002);
+        }
+        order("AS-unmeasured", null, 0.003);
+        ReflectionTestUtils.setField(clusteringService, "pageSize", 3);
+        when(taskRepository.findByStatusAndLatitudeBetweenAndLongitudeBetween(eq(TaskStatus.PENDING),
+                anyDouble(), anyDouble(), anyDouble(), anyDouble(), any(Pageable.class))).thenAnswer(invocation -> {
+            Pageable page = invocation.getArgument(5);
+            return tasks.stream().skip(page.getOffset()).limit(page.getPageSize()).collect(Collectors.toList());
+        });
+
+        TaskClusterPlan plan = clusteringService.clusterPendingTasks(request("BICYCLE"));
+
+        assertEquals(12, plan.getTaskCount());
+        assertEquals(6, plan.getAssignmentCount());
+        assertEquals(List.of("AS-unmeasured"), plan.getUnmeasuredAssignmentIds());
+        assertTrue(plan.getOversizedAssignmentIds().isEmpty());
+        Set<String> clustered = new HashSet<>();
+        for (TaskCluster cluster : plan.getClusters()) {
+            // Counting the pickup and the delivery would put at most one order in a cluster
+            assertEquals(12.0, cluster.getWeightKg(), 1e-9);
+            assertEquals(2, cluster.getAssignmentIds().size());
+            for (String assignmentId : cluster.getAssignmentIds()) {
+                List<String> route = cluster.getTaskIds();
+                assertTrue(route.indexOf(assignmentId + "-P") >= 0);
+                assertTrue(route.indexOf(assignmentId + "-P") < route.indexOf(assignmentId + "-D"), route::toString);
+            }
+            clustered.addAll(cluster.getTaskIds());
+        }
+        assertEquals(12, clustered.size());
+    }
+
+    @Test
+    void clusterPendingTasks_WithoutABoundingBox_ShouldNotReadEveryPendingTask() {
+        TaskClusterRequest request = request("BICYCLE");
+        request.setMaxLongitude(null);
+
+        assertThrows(BusinessException.class, () -> clusteringService.clusterPendingTasks(request));
+        verifyNoInteractions(taskRepository);
+    }
+
+    private static TaskClusterRequest request(String vehicleType) {
+        return TaskClusterRequest.builder()
+                .vehicleType(vehicleType)
+                .minLatitude(-1.0)
+                .maxLatitude(1.0)
+                .minLongitude(-1.0)
+                .maxLongitude(1.0)
+                .build();
+    }
+
+    private void order(String assignmentId, Double weightKg, double longitude) {
+        Assignment assignment = new Assignment();
+        assignment.setId("entity-" + assignmentId);
+        assignment.setAssignmentId(assignmentId);
+        tasks.add(task(assignment, assignmentId + "-P", TaskType.PICKUP, weightKg, longitude));
+        tasks.add(task(assignment, assignmentId + "-D", TaskType.DELIVERY, weightKg, longitude + 0.001));
+    }
+
+    private AssignmentTask task(Assignment assignment, String id, TaskType type, Double weightKg, double longitude) {
+        AssignmentTask task = AssignmentTask.builder()
+                .assignment(assignment)
+                .taskType(type)
+                .status(TaskStatus.PENDING)
+                .latitude(0.0)
+                .longitude(longitude)
+                .estimatedDurationMinutes(5)
+                .packageWeightKg(weightKg)
+                .packageLengthCm(30.0)
+                .packageWidthCm(20.0)
+                .packageHeightCm(10.0)
+                .build();
+        task.setId(id);
+        return task;
+    }
+}
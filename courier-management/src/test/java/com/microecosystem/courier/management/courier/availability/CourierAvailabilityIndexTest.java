@@ -0,0 +1,114 @@
+package com.gogidix.courier.management.courier.availability;
+
+import com.gogidix.courier.management.courier.model.Courier;
+import com.gogidix.courier.management.courier.model.CourierShift;
+import com.gogidix.courier.management.courier.model.CourierStatus;
+import com.gogidix.courier.management.courier.repository.CourierRepository;
+import com.gogidix.courier.management.courier.repository.CourierShiftRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CourierAvailabilityIndexTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 3, 4, 0, 0);
+
+    @Mock
+    private CourierRepository courierRepository;
+
+    @Mock
+    private CourierShiftRepository shiftRepository;
+
+    private CourierAvailabilityIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new CourierAvailabilityIndex(courierRepository, shiftRepository);
+        ReflectionTestUtils.setField(index, "clock", Clock.fixed(DAY.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+    }
+
+    @Test
+    void findAvailable_ShouldRequireShiftZoneAndVehicleForWholeWindow() {
+        index.updateCourier("van-z", true, CourierStatus.OFFLINE, "van");
+        index.updateShift(1L, "van-z", "Z", at(13, 0), at(17, 0));
+        index.updateCourier("van-short", true, CourierStatus.AVAILABLE, "VAN");
+        index.updateShift(2L, "van-short", "Z", at(13, 0), at(15, 50));
+        index.updateCourier("van-y", true, CourierStatus.AVAILABLE, "VAN");
+        index.updateShift(3L, "van-y", "Y", at(8, 0), at(18, 0));
+        index.updateCourier("van-anywhere", true, CourierStatus.BUSY, "VAN");
+        index.updateShift(4L, "van-anywhere", null, at(14, 0), at(16, 0));
+        index.updateCourier("bike-z", true, CourierStatus.AVAILABLE, "BIKE");
+        index.updateShift(5L, "bike-z", "Z", at(8, 0), at(18, 0));
+
+        assertEquals(List.of("van-z", "van-anywhere"), index.findAvailable(at(14, 0), at(16, 0), "z", "VAN"));
+        // A job starting part-way through a slot needs the whole slot
+        assertEquals(List.of("van-z", "van-short", "van-y", "van-anywhere"),
+                index.findAvailable(at(14, 5), at(15, 40), null, "VAN"));
+        assertEquals(List.of("bike-z"), index.findAvailable(at(8, 0), at(9, 0), "Z", null));
+        assertTrue(index.findAvailable(at(14, 0), at(16, 0), "Z", "TRUCK").isEmpty());
+        assertTrue(index.findAvailable(at(14, 0).plusDays(1), at(16, 0).plusDays(1), null, null).isEmpty());
+    }
+
+    @Test
+    void updates_ShouldMoveShiftsAndRespectStatus() {
+        index.updateCourier("c1", true, CourierStatus.AVAILABLE, "VAN");
+        index.updateShift(1L, "c1", "Z", at(9, 0), at(12, 0));
+        // An overnight shift spans two days
+        index.updateCourier("c2", true, CourierStatus.AVAILABLE, "VAN");
+        index.updateShift(2L, "c2", "Z", at(22, 0), at(22, 0).plusHours(6));
+
+        index.updateShift(1L, "c1", "Z", at(13, 0), at(16, 0));
+        assertTrue(index.findAvailable(at(9, 0), at(10, 0), null, null).isEmpty());
+        assertEquals(List.of("c1"), index.findAvailable(at(14, 0), at(15, 0), null, null));
+        assertEquals(List.of("c2"), index.findAvailable(at(23, 0), at(23, 0).plusHours(2), "Z", "VAN"));
+
+        index.updateCourier("c1", true, CourierStatus.UNAVAILABLE, "VAN");
+        assertTrue(index.findAvailable(at(14, 0), at(15, 0), null, null).isEmpty());
+        index.updateCourier("c1", true, CourierStatus.AVAILABLE, "BIKE");
+        assertEquals(List.of("c1"), index.findAvailable(at(14, 0), at(15, 0), null, "BIKE"));
+
+        index.removeShift(1L, "c1");
+        assertTrue(index.findAvailable(at(14, 0), at(15, 0), null, null).isEmpty());
+        index.removeCourier("c2");
+        assertTrue(index.findAvailable(at(23, 0), at(23, 30), null, null).isEmpty());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void resync_ShouldLoadCouriersAndShifts() {
+        Courier courier = new Courier();
+        courier.setId("entity-1");
+        courier.setCourierId("c1");
+        courier.setStatus(CourierStatus.AVAILABLE);
+        courier.setVehicleType("Van");
+        CourierShift shift = CourierShift.builder()
+                .id(7L).courier(courier).zone("Z").startTime(at(9, 0)).endTime(at(17, 0)).build();
+        when(courierRepository.findAll()).thenReturn(List.of(courier));
+        when(shiftRepository.findEndingAfter(any())).thenReturn(List.of(shift));
+        // Deleted from the database before the resync started
+        index.updateCourier("gone", true, CourierStatus.AVAILABLE, "VAN");
+        index.updateShift(99L, "gone", null, at(9, 0), at(17, 0));
+
+        index.resync();
+
+        assertEquals(List.of("c1"), index.findAvailable(at(10, 0), at(11, 0), "Z", "VAN"));
+        assertEquals(1, index.size());
+    }
+
+    private static LocalDateTime at(int hour, int minute) {
+        return DAY.withHour(hour).withMinute(minute);
+    }
+}
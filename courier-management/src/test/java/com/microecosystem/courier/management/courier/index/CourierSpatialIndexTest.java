@@ -0,0 +1,158 @@
+package com.gogidix.courier.management.courier.index;
+
+import com.gogidix.courier.management.courier.model.Courier;
+import com.gogidix.courier.management.courier.model.CourierStatus;
+import com.gogidix.courier.management.courier.repository.CourierRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CourierSpatialIndexTest {
+
+    @Mock
+    private CourierRepository courierRepository;
+
+    private CourierSpatialIndex index;
+    private NearbyCouriers result;
+
+    @BeforeEach
+    void setUp() {
+        index = new CourierSpatialIndex(courierRepository, 0.01);
+        result = new NearbyCouriers(10);
+    }
+
+    @Test
+    void findWithinRadius_ShouldReturnMatchingCouriersNearestFirst() {
+        index.update("c1", 40.7128, -74.0060, CourierStatus.AVAILABLE); // Manhattan
+        index.update("c2", 40.7200, -74.0000, CourierStatus.AVAILABLE); // ~1 km away
+        index.update("c3", 40.7130, -74.0050, CourierStatus.BUSY);
+        index.update("c4", 40.6782, -73.9442, CourierStatus.AVAILABLE); // Brooklyn, ~6.5 km
+
+        int found = index.findWithinRadius(40.7128, -74.0060, 2.0, CourierStatus.AVAILABLE, result);
+
+        assertEquals(2, found);
+        assertEquals("c1", result.courierId(0));
+        assertEquals("c2", result.courierId(1));
+        assertTrue(result.distanceKm(0) <= result.distanceKm(1));
+
+        index.findWithinRadius(40.7128, -74.0060, 2.0, null, result);
+        assertEquals(List.of("c1", "c3", "c2"), result.toCourierIds());
+    }
+
+    @Test
+    void findNearest_ShouldMatchBruteForce() {
+        Random random = new Random(42);
+        double[][] positions = new double[2000][2];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i][0] = 51.3 + random.nextDouble() * 0.4;
+            positions[i][1] = -0.4 + random.nextDouble() * 0.6;
+            index.update("c" + i, positions[i][0], positions[i][1],
+                    i % 3 == 0 ? CourierStatus.BUSY : CourierStatus.AVAILABLE);
+        }
+
+        double queryLat = 51.5;
+        double queryLon = -0.12;
+        int found = index.findNearest(queryLat, queryLon, 5, 50.0, CourierStatus.AVAILABLE, result);
+        assertEquals(5, found);
+
+        // Brute-force the distances of all available couriers
+        double[] distances = new double[positions.length];
+        int count = 0;
+        for (int i = 0; i < positions.length; i++) {
+            if (i % 3 != 0) {
+                distances[count++] = haversine(queryLat, queryLon, positions[i][0], positions[i][1]);
+            }
+        }
+        Arrays.sort(distances, 0, count);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(distances[i], result.distanceKm(i), 1e-9);
+        }
+    }
+
+    @Test
+    void findNearest_ShouldRespectMaxRadius() {
+        index.update("c1", 40.7128, -74.0060, CourierStatus.AVAILABLE);
+        index.update("c2", 40.6782, -73.9442, CourierStatus.AVAILABLE);
+
+        assertEquals(1, index.findNearest(40.7128, -74.0060, 5, 1.0, null, result));
+        assertEquals("c1", result.courierId(0));
+        assertEquals(2, index.findNearest(40.7128, -74.0060, 5, 10.0, null, result));
+    }
+
+    @Test
+    void update_ShouldMoveAndRemoveCouriers() {
+        index.update("c1", 40.7128, -74.0060, CourierStatus.AVAILABLE);
+        index.update("c1", 40.6782, -73.9442, CourierStatus.AVAILABLE);
+
+        assertEquals(0, index.findWithinRadius(40.7128, -74.0060, 1.0, null, result));
+        assertEquals(1, index.findWithinRadius(40.6782, -73.9442, 1.0, null, result));
+
+        index.update(courier("c1", 40.6782, -73.9442, false));
+        assertEquals(0, index.size());
+        assertEquals(0, index.findWithinRadius(40.6782, -73.9442, 1.0, null, result));
+    }
+
+    @Test
+    void resync_ShouldLoadActiveCouriersAndDropMissingOnes() {
+        index.update("stale", 40.7128, -74.0060, CourierStatus.AVAILABLE);
+        Courier active = courier("c1", 40.7128, -74.0060, true);
+        Courier inactive = courier("c2", 40.7130, -74.0050, false);
+        when(courierRepository.findAll()).thenReturn(List.of(active, inactive));
+
+        index.resync();
+
+        assertEquals(1, index.size());
+        assertEquals(List.of("c1"), index.findAvailableCourierIdsNearLocation(40.7128, -74.0060, 1.0, 10));
+        verify(courierRepository).findAll();
+    }
+
+    @Test
+    void resync_ShouldNotReAddCouriersRemovedWhileReading() {
+        Courier removed = courier("c1", 40.7128, -74.0060, true);
+        Courier kept = courier("c2", 40.7130, -74.0050, true);
+        // The courier goes offline after the snapshot was read but before the resync applies it
+        when(courierRepository.findAll()).thenAnswer(invocation -> {
+            index.remove("c1");
+            return List.of(removed, kept);
+        });
+
+        index.resync();
+
+        assertEquals(List.of("c2"), index.findAvailableCourierIdsNearLocation(40.7128, -74.0060, 1.0, 10));
+
+        // Once the removal predates the read, the database is trusted again
+        when(courierRepository.findAll()).thenReturn(List.of(removed, kept));
+        index.resync();
+        assertEquals(2, index.size());
+    }
+
+    private static Courier courier(String id, double latitude, double longitude, boolean active) {
+        Courier courier = Courier.builder()
+                .status(CourierStatus.AVAILABLE)
+                .currentLatitude(latitude)
+                .currentLongitude(longitude)
+                .isActive(active)
+                .build();
+        courier.setId(id);
+        return courier;
+    }
+
+    private static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        return 6371.0 * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
@@ -0,0 +1,55 @@
+package com.gogidix.courier.management.courier.service;
+
+import com.gogidix.courier.management.courier.index.CourierSpatialIndex;
+import com.gogidix.courier.management.courier.model.Courier;
+import com.gogidix.courier.management.courier.model.CourierStatus;
+import com.gogidix.courier.management.courier.repository.CourierRepository;
+import com.gogidix.courier.management.courier.service.impl.CourierLocatorServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CourierLocatorServiceImplTest {
+
+    @Mock
+    private CourierRepository courierRepository;
+
+    private CourierSpatialIndex spatialIndex;
+    private CourierLocatorService locatorService;
+
+    @BeforeEach
+    void setUp() {
+        spatialIndex = new CourierSpatialIndex(courierRepository, 0.01);
+        locatorService = new CourierLocatorServiceImpl(spatialIndex, courierRepository);
+    }
+
+    @Test
+    void findAvailableCouriersNear_ShouldQueryTheDatabaseUntilTheIndexIsLoaded() {
+        Courier courier = Courier.builder().build();
+        courier.setId("c1");
+        when(courierRepository.findAvailableCouriersNearLocation(40.7128, -74.0060, 2.0)).thenReturn(List.of(courier));
+
+        assertEquals(List.of("c1"), locatorService.findAvailableCouriersNear(40.7128, -74.0060, 2.0, 10));
+    }
+
+    @Test
+    void findCouriersNear_ShouldUseTheIndexOnceLoaded() {
+        when(courierRepository.findAll()).thenReturn(List.of());
+        spatialIndex.resync();
+        spatialIndex.update("c1", 40.7128, -74.0060, CourierStatus.BUSY);
+        spatialIndex.update("c2", 40.7130, -74.0050, CourierStatus.AVAILABLE);
+
+        assertEquals(List.of("c1"), locatorService.findCouriersNear(40.7128, -74.0060, 2.0, CourierStatus.BUSY, 10));
+        assertEquals(List.of("c2"), locatorService.findAvailableCouriersNear(40.7128, -74.0060, 2.0, 10));
+        verify(courierRepository, never()).findAvailableCouriersNearLocation(anyDouble(), anyDouble(), anyDouble());
+    }
+}
@@ -0,0 +1,107 @@
+package com.gogidix.courier.management.performance.leaderboard;
+
+import com.gogidix.courier.management.performance.dto.LeaderboardEntryDTO;
+import com.gogidix.courier.management.performance.event.PerformanceMetricChangedEvent;
+import com.gogidix.courier.management.performance.model.MetricType;
+import com.gogidix.courier.management.performance.repository.PerformanceMetricRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PerformanceLeaderboardTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 6);
+
+    @Mock
+    private PerformanceMetricRepository metricRepository;
+
+    private PerformanceLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        leaderboard = new PerformanceLeaderboard(metricRepository, new TransactionTemplate());
+        setDate(TODAY);
+    }
+
+    @Test
+    void top_ShouldRankLowerIsBetterMetricsAscendingPerRegion() {
+        record("a", MetricType.AVERAGE_DELIVERY_TIME, TODAY, 20.0, 0.0, 0.0);
+        record("b", MetricType.AVERAGE_DELIVERY_TIME, TODAY, 30.0, 0.0, 0.0);
+        record("c", MetricType.AVERAGE_DELIVERY_TIME, TODAY, 10.0, 10.0, 10.0);
+        String region = leaderboard.regionOf(0.0, 0.0);
+
+        assertEquals(List.of("c", "a", "b"), ids(MetricType.AVERAGE_DELIVERY_TIME, LeaderboardWindow.DAY, null));
+        assertEquals(List.of("a", "b"), ids(MetricType.AVERAGE_DELIVERY_TIME, LeaderboardWindow.DAY, region));
+
+        LeaderboardEntryDTO entry = leaderboard.entry("b", MetricType.AVERAGE_DELIVERY_TIME,
+                LeaderboardWindow.DAY, null).orElseThrow();
+        assertEquals(3, entry.getRank());
+        assertEquals(30.0, entry.getScore(), 1e-9);
+        assertEquals("Courier b", entry.getCourierName());
+    }
+
+    @Test
+    void windows_ShouldSlideWithTheDateAndFollowWithdrawals() {
+        record("a", MetricType.ON_TIME_DELIVERY_RATE, TODAY.minusDays(1), 90.0, 0.0, 0.0);
+        record("b", MetricType.ON_TIME_DELIVERY_RATE, TODAY, 90.0, 0.0, 0.0);
+        record("b", MetricType.ON_TIME_DELIVERY_RATE, TODAY, 100.0, 0.0, 0.0);
+
+        assertEquals(List.of("b"), ids(MetricType.ON_TIME_DELIVERY_RATE, LeaderboardWindow.DAY, null));
+        assertEquals(List.of("b", "a"), ids(MetricType.ON_TIME_DELIVERY_RATE, LeaderboardWindow.WEEK, null));
+
+        leaderboard.onMetricChanged(new PerformanceMetricChangedEvent("b", null, MetricType.ON_TIME_DELIVERY_RATE,
+                TODAY, 100.0, true, null, null));
+        // Equal averages rank by courier ID
+        assertEquals(List.of("a", "b"), ids(MetricType.ON_TIME_DELIVERY_RATE, LeaderboardWindow.WEEK, null));
+
+        // Six days on, a's metric has left the week but b's is still in it
+        setDate(TODAY.plusDays(6));
+        assertEquals(List.of(), ids(MetricType.ON_TIME_DELIVERY_RATE, LeaderboardWindow.DAY, null));
+        assertEquals(List.of("b"), ids(MetricType.ON_TIME_DELIVERY_RATE, LeaderboardWindow.WEEK, null));
+        assertEquals(1, leaderboard.size(MetricType.ON_TIME_DELIVERY_RATE, LeaderboardWindow.WEEK, null));
+    }
+
+    @Test
+    void record_ShouldMoveCourierToNewRegionWithAllMetrics() {
+        record("a", MetricType.CUSTOMER_RATING, TODAY, 4.5, 0.0, 0.0);
+        record("a", MetricType.DELIVERIES_PER_DAY, TODAY, 30.0, 10.0, 10.0);
+        String oldRegion = leaderboard.regionOf(0.0, 0.0);
+        String newRegion = leaderboard.regionOf(10.0, 10.0);
+
+        assertTrue(leaderboard.entry("a", MetricType.CUSTOMER_RATING, LeaderboardWindow.DAY, oldRegion).isEmpty());
+        assertEquals(1, leaderboard.entry("a", MetricType.CUSTOMER_RATING, LeaderboardWindow.DAY, newRegion)
+                .orElseThrow().getRank());
+        assertEquals(1, leaderboard.entry("a", MetricType.CUSTOMER_RATING, LeaderboardWindow.DAY, null)
+                .orElseThrow().getRank());
+    }
+
+    private void record(String courierId, MetricType type, LocalDate date, double value,
+                        double latitude, double longitude) {
+        leaderboard.onMetricChanged(new PerformanceMetricChangedEvent(courierId, "Courier " + courierId, type,
+                date, value, false, latitude, longitude));
+    }
+
+    private List<String> ids(MetricType type, LeaderboardWindow window, String region) {
+        return leaderboard.top(type, window, region, 10).stream()
+                .map(LeaderboardEntryDTO::getCourierId)
+                .collect(Collectors.toList());
+    }
+
+    private void setDate(LocalDate date) {
+        ReflectionTestUtils.setField(leaderboard, "clock",
+                Clock.fixed(date.atStartOfDay(ZoneOffset.UTC).plusHours(12).toInstant(), ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,47 @@
+package com.gogidix.courier.management.performance.leaderboard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RankedBoardTest {
+
+    @Test
+    void rankAndRange_ShouldMatchFullSortAfterRandomUpdates() {
+        RankedBoard board = new RankedBoard();
+        Map<String, Double> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 20_000; i++) {
+            String courierId = "courier-" + random.nextInt(2_000);
+            if (random.nextInt(5) == 0) {
+                assertEquals(expected.remove(courierId) != null, board.remove(courierId));
+            } else {
+                // Few distinct scores, so ties are broken by courier ID
+                double score = random.nextInt(50);
+                board.put(courierId, score);
+                expected.put(courierId, score);
+            }
+        }
+
+        List<String> sorted = new ArrayList<>(expected.keySet());
+        sorted.sort(Comparator.<String>comparingDouble(expected::get).reversed().thenComparing(Comparator.naturalOrder()));
+        assertEquals(sorted.size(), board.size());
+        for (int rank = 1; rank <= sorted.size(); rank++) {
+            assertEquals(rank, board.rank(sorted.get(rank - 1)));
+        }
+        List<Map.Entry<String, Double>> page = board.range(101, 50);
+        assertEquals(50, page.size());
+        for (int i = 0; i < page.size(); i++) {
+            assertEquals(sorted.get(100 + i), page.get(i).getKey());
+        }
+        assertEquals(0, board.rank("unknown"));
+    }
+}
@@ -2,18 +2,24 @@ package com.microecosystem.courier.management.performance.service;
 
 import com.microecosystem.courier.management.courier.model.Courier;
 import com.microecosystem.courier.management.courier.repository.CourierRepository;
+import com.microecosystem.courier.management.performance.dto.MetricSummaryDTO;
 import com.microecosystem.courier.management.performance.dto.PerformanceMetricDTO;
+import com.microecosystem.courier.management.performance.event.PerformanceMetricChangedEvent;
+import com.microecosystem.courier.management.performance.leaderboard.PerformanceLeaderboard;
 import com.microecosystem.courier.management.performance.mapper.PerformanceMetricMapper;
 import com.microecosystem.courier.management.performance.model.MetricType;
 import com.microecosystem.courier.management.performance.model.PerformanceMetric;
 import com.microecosystem.courier.management.performance.repository.PerformanceMetricRepository;
+import com.microecosystem.courier.management.performance.service.PerformanceRollupService;
 import com.microecosystem.courier.management.performance.service.impl.PerformanceMetricsServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -39,6 +45,15 @@ class PerformanceMetricsServiceImplTest {
     @Mock
     private PerformanceMetricMapper metricMapper;
 
+    @Mock
+    private PerformanceRollupService rollupService;
+
+    @Mock
+    private PerformanceLeaderboard leaderboard;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private PerformanceMetricsServiceImpl metricsService;
 
@@ -104,13 +119,18 @@ class PerformanceMetricsServiceImplTest {
         assertEquals(metricDTO.getCourierId(), result.getCourierId());
         assertEquals(metricDTO.getMetricType(), result.getMetricType());
         verify(metricRepository, times(1)).save(any(PerformanceMetric.class));
+        verify(rollupService, times(1)).recordMetric(metric);
+        ArgumentCaptor<PerformanceMetricChangedEvent> event = ArgumentCaptor.forClass(PerformanceMetricChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(85.5, event.getValue().getValue());
+        assertFalse(event.getValue().isWithdrawn());
     }
 
     @Test
     void updateMetric() {
         // Arrange
         when(metricRepository.findByMetricId(anyString())).thenReturn(Optional.of(metric));
-        when(metricRepository.save(any(PerformanceMetric.class))).thenReturn(metric);
+        when(metricRepository.saveAndFlush(any(PerformanceMetric.class))).thenReturn(metric);
         when(metricMapper.toDto(any(PerformanceMetric.class))).thenReturn(metricDTO);
 
         // Act
@@ -119,7 +139,13 @@ class PerformanceMetricsServiceImplTest {
         // Assert
         assertNotNull(result);
         assertEquals(metricDTO.getMetricId(), result.getMetricId());
-        verify(metricRepository, times(1)).save(any(PerformanceMetric.class));
+        verify(metricRepository, times(1)).saveAndFlush(any(PerformanceMetric.class));
+        verify(rollupService).rebuildDay(any(Courier.class), any(MetricType.class), any(LocalDate.class));
+        // The old value is withdrawn from the leaderboard before the new one is recorded
+        ArgumentCaptor<PerformanceMetricChangedEvent> events = ArgumentCaptor.forClass(PerformanceMetricChangedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertTrue(events.getAllValues().get(0).isWithdrawn());
+        assertFalse(events.getAllValues().get(1).isWithdrawn());
     }
 
     @Test
@@ -148,6 +174,9 @@ class PerformanceMetricsServiceImplTest {
         // Assert
         assertTrue(result);
         verify(metricRepository, times(1)).delete(any(PerformanceMetric.class));
+        ArgumentCaptor<PerformanceMetricChangedEvent> event = ArgumentCaptor.forClass(PerformanceMetricChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertTrue(event.getValue().isWithdrawn());
     }
 
     @Test
@@ -256,9 +285,8 @@ class PerformanceMetricsServiceImplTest {
         LocalDate endDate = testDate;
         Double averageValue = 85.5;
         
-        when(metricRepository.calculateAverageForMetricType(
-                any(MetricType.class), any(LocalDate.class), any(LocalDate.class)))
-                .thenReturn(averageValue);
+        when(rollupService.calculateAverages(any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(Map.of(MetricType.ON_TIME_DELIVERY_RATE, averageValue));
 
         // Act
         Map<MetricType, Double> result = metricsService.calculateAverageMetrics(startDate, endDate);
@@ -277,9 +305,8 @@ class PerformanceMetricsServiceImplTest {
         Double averageValue = 85.5;
         
         when(courierRepository.findById(anyLong())).thenReturn(Optional.of(courier));
-        when(metricRepository.calculateAverageForCourierAndMetricType(
-                any(Courier.class), any(MetricType.class), any(LocalDate.class), any(LocalDate.class)))
-                .thenReturn(averageValue);
+        when(rollupService.calculateAverages(any(Courier.class), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(Map.of(MetricType.ON_TIME_DELIVERY_RATE, averageValue));
 
         // Act
         Map<MetricType, Double> result = metricsService.calculateAverageMetricsForCourier(
@@ -318,19 +345,24 @@ class PerformanceMetricsServiceImplTest {
     @Test
     void generatePerformanceReport() {
         // Arrange
-        List<PerformanceMetric> metrics = Arrays.asList(
-                createMetricWithValue(80.0, testDate.minusDays(2)),
-                createMetricWithValue(85.0, testDate.minusDays(1)),
-                createMetricWithValue(90.0, testDate)
-        );
+        MetricSummaryDTO summary = MetricSummaryDTO.builder()
+                .metricType(MetricType.ON_TIME_DELIVERY_RATE)
+                .count(3)
+                .sum(255.0)
+                .average(85.0)
+                .min(80.0)
+                .max(90.0)
+                .firstValue(80.0)
+                .lastValue(90.0)
+                .targetCount(3)
+                .targetMetCount(1)
+                .build();
         LocalDate startDate = testDate.minusDays(7);
         LocalDate endDate = testDate;
         
         when(courierRepository.findById(anyLong())).thenReturn(Optional.of(courier));
-        when(metricRepository.findByCourierAndDateBetween(
-                any(Courier.class), any(LocalDate.class), any(LocalDate.class)))
-                .thenReturn(metrics);
-        when(metricMapper.toDto(any(PerformanceMetric.class))).thenReturn(metricDTO);
+        when(rollupService.summarizeByMetricType(any(Courier.class), any(LocalDate.class), any(LocalDate.class)))
+                .thenReturn(Map.of(MetricType.ON_TIME_DELIVERY_RATE, summary));
 
         // Act
         Map<String, Object> result = metricsService.generatePerformanceReport(courierId, startDate, endDate);
@@ -340,6 +372,9 @@ class PerformanceMetricsServiceImplTest {
         assertTrue(result.containsKey("courierId"));
         assertTrue(result.containsKey("courierName"));
         assertTrue(result.containsKey("reportPeriod"));
+        assertEquals(Map.of(MetricType.ON_TIME_DELIVERY_RATE, 85.0), result.get("averages"));
+        assertEquals(Map.of(MetricType.ON_TIME_DELIVERY_RATE, false), result.get("targetAchievement"));
+        assertEquals(12.5, ((Map<?, ?>) result.get("trends")).get(MetricType.ON_TIME_DELIVERY_RATE));
     }
 
     private PerformanceMetric createMetricWithValue(double value, LocalDate date) {
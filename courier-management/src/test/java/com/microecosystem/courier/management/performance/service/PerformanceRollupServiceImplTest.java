@@ -0,0 +1,195 @@
+package com.gogidix.courier.management.performance.service;
+
+import com.gogidix.courier.management.courier.model.Courier;
+import com.gogidix.courier.management.performance.dto.MetricSummaryDTO;
+import com.gogidix.courier.management.performance.model.MetricType;
+import com.gogidix.courier.management.performance.model.PerformanceMetric;
+import com.gogidix.courier.management.performance.model.PerformanceMetricRollup;
+import com.gogidix.courier.management.performance.model.QuantileSketch;
+import com.gogidix.courier.management.performance.model.RollupGranularity;
+import com.gogidix.courier.management.performance.repository.PerformanceMetricRepository;
+import com.gogidix.courier.management.performance.repository.PerformanceMetricRollupRepository;
+import com.gogidix.courier.management.performance.service.impl.PerformanceRollupServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PerformanceRollupServiceImplTest {
+
+    @Mock
+    private PerformanceMetricRollupRepository rollupRepository;
+
+    @Mock
+    private PerformanceMetricRepository metricRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private PerformanceRollupServiceImpl rollupService;
+
+    private Courier courier;
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        courier = Courier.builder().firstName("Test").lastName("Courier").build();
+        courier.setId("courier-1");
+    }
+
+    @Test
+    void quantileSketch_ShouldStayWithinRelativeAccuracyAfterMergeAndSerialization() {
+        Random random = new Random(7);
+        double[] values = new double[20000];
+        QuantileSketch first = new QuantileSketch();
+        QuantileSketch second = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 5 + random.nextDouble() * 120;
+            (i % 2 == 0 ? first : second).add(values[i]);
+        }
+        first.merge(QuantileSketch.fromBytes(second.toBytes()));
+        QuantileSketch restored = QuantileSketch.fromBytes(first.toBytes());
+        Arrays.sort(values);
+
+        assertEquals(values.length, restored.getCount());
+        for (double q : new double[]{0.0, 0.5, 0.9, 0.99, 1.0}) {
+            double expected = values[(int) Math.floor(q * (values.length - 1))];
+            assertEquals(expected, restored.getQuantile(q), expected * QuantileSketch.RELATIVE_ACCURACY * 1.01);
+        }
+    }
+
+    @Test
+    void recordMetric_ShouldUpdateLockedHourlyBucket() {
+        PerformanceMetricRollup bucket = rollup(RollupGranularity.HOURLY, MetricType.CUSTOMER_RATING);
+        PerformanceMetricRollup daily = rollup(RollupGranularity.DAILY, MetricType.CUSTOMER_RATING);
+        when(rollupRepository.findBucketForUpdate(eq(RollupGranularity.HOURLY), eq(courier),
+                eq(MetricType.CUSTOMER_RATING), eq(today), any()))
+                .thenReturn(java.util.Optional.of(bucket));
+        when(rollupRepository.findBucketForUpdate(RollupGranularity.DAILY, courier,
+                MetricType.CUSTOMER_RATING, today, today.atStartOfDay()))
+                .thenReturn(java.util.Optional.of(daily));
+
+        rollupService.recordMetric(metric(1L, MetricType.CUSTOMER_RATING, 4.0, 4.5));
+        rollupService.recordMetric(metric(2L, MetricType.CUSTOMER_RATING, 5.0, 4.5));
+
+        verify(rollupRepository, times(2)).insertIfAbsent(eq("HOURLY"), eq("courier-1"),
+                eq("CUSTOMER_RATING"), eq(today), any());
+        // The day is locked first so that a rebuild of the same day cannot interleave
+        verify(rollupRepository, times(2)).findBucketForUpdate(RollupGranularity.DAILY, courier,
+                MetricType.CUSTOMER_RATING, today, today.atStartOfDay());
+        assertEquals(0L, daily.getSampleCount());
+        assertEquals(2L, bucket.getSampleCount());
+        assertEquals(9.0, bucket.getValueSum());
+        assertEquals(4.0, bucket.getMinValue());
+        assertEquals(5.0, bucket.getMaxValue());
+        assertEquals(2L, bucket.getTargetCount());
+        assertEquals(1L, bucket.getTargetMetCount());
+    }
+
+    @Test
+    void summarizeByMetricType_ShouldMergeDailyAndHourlyRollupsInOrder() {
+        PerformanceMetricRollup daily = rollup(RollupGranularity.DAILY, MetricType.AVERAGE_DELIVERY_TIME);
+        daily.record(metric(1L, MetricType.AVERAGE_DELIVERY_TIME, 30.0, null));
+        daily.record(metric(2L, MetricType.AVERAGE_DELIVERY_TIME, 20.0, null));
+        PerformanceMetricRollup hourly = rollup(RollupGranularity.HOURLY, MetricType.AVERAGE_DELIVERY_TIME);
+        hourly.record(metric(3L, MetricType.AVERAGE_DELIVERY_TIME, 25.0, null));
+        when(rollupRepository.findLiveByCourierAndDateBetween(courier, today.minusDays(90), today, RollupGranularity.DAILY))
+                .thenReturn(List.of(daily, hourly));
+
+        Map<MetricType, MetricSummaryDTO> summaries =
+                rollupService.summarizeByMetricType(courier, today.minusDays(90), today);
+
+        MetricSummaryDTO summary = summaries.get(MetricType.AVERAGE_DELIVERY_TIME);
+        assertEquals(3, summary.getCount());
+        assertEquals(25.0, summary.getAverage(), 1e-9);
+        assertEquals(20.0, summary.getMin());
+        assertEquals(30.0, summary.getMax());
+        assertEquals(30.0, summary.getFirstValue());
+        assertEquals(25.0, summary.getLastValue());
+        assertEquals(25.0, summary.getP50(), 25.0 * QuantileSketch.RELATIVE_ACCURACY);
+    }
+
+    @Test
+    void calculateAverages_ShouldDivideSumByCount() {
+        PerformanceMetricRollupRepository.MetricTotals totals = mock(PerformanceMetricRollupRepository.MetricTotals.class);
+        when(totals.getMetricType()).thenReturn(MetricType.DELIVERIES_PER_DAY);
+        when(totals.getSampleCount()).thenReturn(4L);
+        when(totals.getValueSum()).thenReturn(50.0);
+        when(rollupRepository.sumLiveByMetricType(today.minusDays(7), today, RollupGranularity.DAILY))
+                .thenReturn(List.of(totals));
+
+        Map<MetricType, Double> averages = rollupService.calculateAverages(today.minusDays(7), today);
+
+        assertEquals(Map.of(MetricType.DELIVERIES_PER_DAY, 12.5), averages);
+    }
+
+    @Test
+    void rebuildDay_ShouldReplaceRollupsWithDailyRollupFromRawMetrics() {
+        List<PerformanceMetric> metrics = new ArrayList<>(List.of(
+                metric(2L, MetricType.COMPLAINT_COUNT, 3.0, null),
+                metric(1L, MetricType.COMPLAINT_COUNT, 1.0, null)));
+        PerformanceMetricRollup stale = rollup(RollupGranularity.DAILY, MetricType.COMPLAINT_COUNT);
+        stale.record(metric(9L, MetricType.COMPLAINT_COUNT, 7.0, null));
+        when(rollupRepository.findBucketForUpdate(RollupGranularity.DAILY, courier,
+                MetricType.COMPLAINT_COUNT, today, today.atStartOfDay()))
+                .thenReturn(java.util.Optional.of(stale));
+        when(metricRepository.findByCourierAndMetricTypeAndDateBetween(courier, MetricType.COMPLAINT_COUNT, today, today))
+                .thenReturn(metrics);
+
+        rollupService.rebuildDay(courier, MetricType.COMPLAINT_COUNT, today);
+
+        // The locked daily rollup is rebuilt in place; concurrent recordMetric calls wait on it
+        InOrder order = inOrder(rollupRepository, metricRepository);
+        order.verify(rollupRepository).findBucketForUpdate(RollupGranularity.DAILY, courier,
+                MetricType.COMPLAINT_COUNT, today, today.atStartOfDay());
+        order.verify(rollupRepository).deleteByGranularityAndCourierAndMetricTypeAndMetricDate(
+                RollupGranularity.HOURLY, courier, MetricType.COMPLAINT_COUNT, today);
+        order.verify(metricRepository).findByCourierAndMetricTypeAndDateBetween(
+                courier, MetricType.COMPLAINT_COUNT, today, today);
+        verify(rollupRepository).save(argThat(rollup -> rollup == stale
+                && rollup.getSampleCount() == 2
+                && rollup.getMaxValue() == 3.0
+                && rollup.getFirstValue() == 1.0
+                && rollup.getLastValue() == 3.0));
+    }
+
+    private PerformanceMetricRollup rollup(RollupGranularity granularity, MetricType metricType) {
+        return PerformanceMetricRollup.builder()
+                .granularity(granularity)
+                .courier(courier)
+                .metricType(metricType)
+                .metricDate(today)
+                .bucketStart(today.atStartOfDay())
+                .build();
+    }
+
+    private PerformanceMetric metric(Long id, MetricType metricType, double value, Double targetValue) {
+        return PerformanceMetric.builder()
+                .id(id)
+                .courier(courier)
+                .metricType(metricType)
+                .date(today)
+                .value(value)
+                .targetValue(targetValue)
+                .isTargetMet(targetValue != null ? value >= targetValue : null)
+                .build();
+    }
+}
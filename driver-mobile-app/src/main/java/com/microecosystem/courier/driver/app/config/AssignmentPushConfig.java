@@ -0,0 +1,85 @@
+package com.microecosystem.courier.driver.app.config;
+
+import com.microecosystem.courier.driver.app.service.assignment.push.AssignmentPushHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+/**
+ * Configuration for the WebSocket endpoint pushing assignment changes to drivers.
+ * Devices only receive on it, so inbound buffers are kept small to hold down the memory of
+ * each of the many idle sessions.
+ */
+@Configuration
+@EnableWebSocket
+public class AssignmentPushConfig implements WebSocketConfigurer {
+
+    private final AssignmentPushHandler pushHandler;
+
+    @Value("${driver.push.max-inbound-message-bytes:1024}")
+    private int maxInboundMessageBytes = 1024;
+
+    @Value("${driver.push.session-idle-timeout-ms:120000}")
+    private long sessionIdleTimeoutMs = 120000;
+
+    @Value("${driver.push.send-time-limit-ms:10000}")
+    private long sendTimeLimitMs = 10000;
+
+    @Value("${driver.push.relay-queue-capacity:10000}")
+    private int relayQueueCapacity = 10000;
+
+    public AssignmentPushConfig(AssignmentPushHandler pushHandler) {
+        this.pushHandler = pushHandler;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(pushHandler, "/api/v1/assignments/push");
+    }
+
+    /**
+     * Configures the servlet container's WebSocket sessions.
+     *
+     * @return WebSocket container settings
+     */
+    @Bean
+    public ServletServerContainerFactoryBean webSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize(maxInboundMessageBytes);
+        container.setMaxBinaryMessageBufferSize(maxInboundMessageBytes);
+        container.setMaxSessionIdleTimeout(sessionIdleTimeoutMs);
+        container.setAsyncSendTimeout(sendTimeLimitMs);
+        return container;
+    }
+
+    /**
+     * Receives the assignment changes published by every node. Messages are handled on a
+     * single thread, so each driver's changes are sent in order.
+     *
+     * @param connectionFactory Redis connection factory
+     * @return Redis message listener container
+     */
+    @Bean
+    @ConditionalOnProperty(name = "driver.push.feed", havingValue = "redis", matchIfMissing = true)
+    public RedisMessageListenerContainer assignmentPushListenerContainer(RedisConnectionFactory connectionFactory) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(relayQueueCapacity);
+        executor.setThreadNamePrefix("AssignmentPushRelay-");
+        executor.initialize();
+
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(executor);
+        return container;
+    }
+}
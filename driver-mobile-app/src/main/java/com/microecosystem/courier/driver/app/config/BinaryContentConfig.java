@@ -0,0 +1,27 @@
+package com.microecosystem.courier.driver.app.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Configuration for the compact binary response format.
+ * Clients sending {@code Accept: application/cbor} receive CBOR instead of JSON from every
+ * endpoint, encoded with the same Jackson settings as JSON responses.
+ */
+@Configuration
+public class BinaryContentConfig {
+
+    /**
+     * Creates the CBOR message converter, picked up by Spring MVC's content negotiation.
+     *
+     * @param builder Jackson builder carrying the application's spring.jackson settings
+     * @return CBOR message converter
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
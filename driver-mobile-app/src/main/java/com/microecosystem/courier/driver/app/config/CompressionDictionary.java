@@ -0,0 +1,118 @@
+package com.microecosystem.courier.driver.app.config;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Shared dictionary for compressing API responses. The dictionary is a sample of typical
+ * assignment, task, navigation and sync payloads, so field names and common values already
+ * appear in it and cost a few bits each even in small responses, where plain gzip has
+ * nothing earlier in the payload to refer back to. Devices download it once and announce
+ * it by its SHA-256 hash.
+ */
+@Component
+public class CompressionDictionary {
+
+    private static final String RESOURCE = "compression/driver-api-dictionary.txt";
+
+    private final byte[] dictionary;
+    private final String hash;
+
+    public CompressionDictionary() {
+        try (InputStream in = new ClassPathResource(RESOURCE).getInputStream()) {
+            this.dictionary = in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot load compression dictionary " + RESOURCE, e);
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(dictionary);
+            // Structured field byte sequence, as in the Available-Dictionary request header
+            this.hash = ":" + Base64.getEncoder().encodeToString(digest) + ":";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Gets the dictionary bytes.
+     *
+     * @return a copy of the dictionary
+     */
+    public byte[] getBytes() {
+        return dictionary.clone();
+    }
+
+    /**
+     * Gets the dictionary's SHA-256 hash in structured field form, e.g. {@code :base64=:}.
+     *
+     * @return the hash
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * Deflates data with the dictionary preset.
+     *
+     * @param data the data
+     * @return the zlib stream
+     */
+    public byte[] compress(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setDictionary(dictionary);
+            deflater.setInput(data);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Inflates data compressed with {@link #compress(byte[])}.
+     *
+     * @param data the zlib stream
+     * @return the original data
+     */
+    public byte[] decompress(byte[] data) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(dictionary);
+                    } else if (inflater.needsInput()) {
+                        throw new IllegalArgumentException("Truncated compressed data");
+                    }
+                }
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Invalid compressed data", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.microecosystem.courier.driver.app.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Compresses JSON and CBOR responses with the {@link CompressionDictionary} for devices that
+ * hold it. A device opts in by sending {@code Accept-Encoding: x-deflate-dict} together with
+ * the dictionary's hash in {@code Available-Dictionary}; everyone else gets the response
+ * unchanged, or gzipped by the server's regular compression.
+ */
+@Component
+public class DictionaryCompressionFilter extends OncePerRequestFilter {
+
+    public static final String ENCODING = "x-deflate-dict";
+    public static final String AVAILABLE_DICTIONARY = "Available-Dictionary";
+
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+
+    private final CompressionDictionary dictionary;
+
+    @Value("${server.compression.min-response-size:1024}")
+    private int minResponseSize = 1024;
+
+    public DictionaryCompressionFilter(CompressionDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return acceptEncoding == null
+                || Arrays.stream(acceptEncoding.split(",")).map(String::trim).noneMatch(ENCODING::equalsIgnoreCase)
+                || !dictionary.getHash().equals(request.getHeader(AVAILABLE_DICTIONARY));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, wrapper);
+
+        byte[] body = wrapper.getContentAsByteArray();
+        if (body.length < minResponseSize || response.getHeader(HttpHeaders.CONTENT_ENCODING) != null
+                || !isCompressible(wrapper.getContentType())) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+        byte[] compressed = dictionary.compress(body);
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, ENCODING);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING + ", " + AVAILABLE_DICTIONARY);
+        response.setContentLength(compressed.length);
+        response.getOutputStream().write(compressed);
+        response.flushBuffer();
+    }
+
+    private static boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        MediaType mediaType = MediaType.parseMediaType(contentType);
+        return mediaType.isCompatibleWith(MediaType.APPLICATION_JSON) || mediaType.isCompatibleWith(CBOR);
+    }
+}
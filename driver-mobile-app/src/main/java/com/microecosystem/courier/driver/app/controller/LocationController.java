@@ -1,6 +1,7 @@
 package com.microecosystem.courier.driver.app.controller;
 
 import com.microecosystem.courier.driver.app.dto.LocationUpdateRequest;
+import com.microecosystem.courier.driver.app.dto.LocationUpdateResponse;
 import com.microecosystem.courier.driver.app.model.Driver;
 import com.microecosystem.courier.driver.app.security.SecurityService;
 import com.microecosystem.courier.driver.app.service.LocationTrackingService;
@@ -9,6 +10,7 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -32,18 +34,19 @@ public class LocationController {
     private final SecurityService securityService;
 
     @PatchMapping("/update")
-    @Operation(summary = "Update driver location", description = "Updates the current driver's location")
+    @Operation(summary = "Update driver location",
+            description = "Records the current driver's location; it is stored within the acknowledged staleness bound")
     @PreAuthorize("hasRole('DRIVER')")
-    public ResponseEntity<Driver> updateLocation(@Valid @RequestBody LocationUpdateRequest request) {
-        log.info("REST request to update driver location");
+    public ResponseEntity<LocationUpdateResponse> updateLocation(@Valid @RequestBody LocationUpdateRequest request) {
+        log.debug("REST request to update driver location");
         
         Long driverId = securityService.getCurrentDriverId();
         if (driverId == null) {
             return ResponseEntity.badRequest().build();
         }
         
-        Driver driver = locationTrackingService.updateDriverLocation(driverId, request);
-        return ResponseEntity.ok(driver);
+        LocationUpdateResponse response = locationTrackingService.recordDriverLocation(driverId, request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
     }
 
     @GetMapping("/nearby")
@@ -0,0 +1,112 @@
+package com.microecosystem.courier.driver.app.controller.api;
+
+import com.microecosystem.courier.driver.app.dto.bundle.AreaBundle;
+import com.microecosystem.courier.driver.app.exception.BundleNotReadyException;
+import com.microecosystem.courier.driver.app.security.SecurityService;
+import com.microecosystem.courier.driver.app.service.bundle.AreaBundleService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Arrays;
+
+/**
+ * REST API controller for downloading the current driver's offline area bundle at the start
+ * of a shift and the changes to it during the shift.
+ */
+@RestController
+@RequestMapping("/api/v1/bundles")
+@Tag(name = "Area Bundles", description = "APIs for downloading assignments, stops, routes and branches for offline use")
+public class AreaBundleController {
+
+    private static final String GZIP = "gzip";
+    // A first bundle is usually built within a few seconds
+    private static final String RETRY_AFTER_SECONDS = "5";
+
+    private final AreaBundleService bundleService;
+    private final SecurityService securityService;
+
+    public AreaBundleController(AreaBundleService bundleService, SecurityService securityService) {
+        this.bundleService = bundleService;
+        this.securityService = securityService;
+    }
+
+    /**
+     * Get the current driver's full bundle.
+     *
+     * @param ifNoneMatch the ETag of the bundle the device holds
+     * @param acceptEncoding the encodings the device accepts
+     * @return the bundle, gzip-compressed if accepted; not modified if the device holds it;
+     *         no content if the driver has no active assignments; accepted if it is still
+     *         being built
+     */
+    @GetMapping("/current")
+    @Operation(summary = "Get area bundle", description = "Returns the full offline bundle for the current shift")
+    @PreAuthorize("hasRole('DRIVER')")
+    public ResponseEntity<?> getCurrentBundle(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        AreaBundleService.Snapshot snapshot = bundleService.current(currentDriverId());
+        if (snapshot == null) {
+            return ResponseEntity.noContent().build();
+        }
+        String etag = "\"" + snapshot.getVersion() + "\"";
+        if (etag.equals(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        if (acceptEncoding == null || Arrays.stream(acceptEncoding.split(","))
+                .map(encoding -> encoding.split(";")[0].trim()).noneMatch(GZIP::equalsIgnoreCase)) {
+            return ResponseEntity.ok().eTag(etag).body(snapshot.getBundle());
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.CONTENT_ENCODING, GZIP)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .body(snapshot.getCompressed());
+    }
+
+    /**
+     * Get the changes to the current driver's bundle since a version.
+     *
+     * @param since the version the device holds
+     * @return the delta, the full bundle if the version is too old, no content if the
+     *         driver has no active assignments, or accepted if it is still being built
+     */
+    @GetMapping("/changes")
+    @Operation(summary = "Get area bundle changes",
+            description = "Returns the entries changed since the given version and the keys of those removed")
+    @PreAuthorize("hasRole('DRIVER')")
+    public ResponseEntity<AreaBundle> getChanges(
+            @Parameter(description = "Bundle version held by the device")
+            @RequestParam long since) {
+        AreaBundle changes = bundleService.changesSince(currentDriverId(), since);
+        return changes != null ? ResponseEntity.ok(changes) : ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Tells the device to retry once the bundle being built is ready.
+     *
+     * @param e the exception
+     * @return accepted, with when to retry
+     */
+    @ExceptionHandler(BundleNotReadyException.class)
+    public ResponseEntity<Void> handleBundleNotReady(BundleNotReadyException e) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS).build();
+    }
+
+    private Long currentDriverId() {
+        Long driverId = securityService.getCurrentDriverId();
+        if (driverId == null) {
+            throw new AccessDeniedException("Only drivers download area bundles");
+        }
+        return driverId;
+    }
+}
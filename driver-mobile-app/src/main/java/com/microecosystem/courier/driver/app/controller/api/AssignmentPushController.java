@@ -0,0 +1,57 @@
+package com.microecosystem.courier.driver.app.controller.api;
+
+import com.microecosystem.courier.driver.app.dto.assignment.AssignmentChanges;
+import com.microecosystem.courier.driver.app.security.SecurityService;
+import com.microecosystem.courier.driver.app.service.assignment.push.AssignmentPushHub;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+/**
+ * REST API controller for receiving assignment changes by long polling, for devices that
+ * cannot keep the WebSocket at /api/v1/assignments/push open.
+ */
+@RestController
+@RequestMapping("/api/v1/assignments")
+@Tag(name = "Assignment Changes", description = "APIs for receiving assignment changes as they happen")
+public class AssignmentPushController {
+
+    private final AssignmentPushHub pushHub;
+    private final SecurityService securityService;
+
+    @Value("${driver.push.max-poll-timeout-ms:60000}")
+    private long maxPollTimeoutMs = 60000;
+
+    public AssignmentPushController(AssignmentPushHub pushHub, SecurityService securityService) {
+        this.pushHub = pushHub;
+        this.securityService = securityService;
+    }
+
+    /**
+     * Wait for changes to the current driver's assignments.
+     *
+     * @param resumeToken the last token received, or none on the first request
+     * @param timeoutMs how long to wait for a change
+     * @return the changes after the token with the token to send next, or a reset
+     */
+    @GetMapping("/changes")
+    @Operation(summary = "Poll assignment changes",
+            description = "Returns changes after the resume token as soon as there are any, or none after the timeout")
+    @PreAuthorize("hasRole('DRIVER')")
+    public DeferredResult<AssignmentChanges> pollChanges(
+            @Parameter(description = "Last resume token received")
+            @RequestParam(required = false) String resumeToken,
+            @Parameter(description = "Maximum time to wait in milliseconds")
+            @RequestParam(defaultValue = "30000") long timeoutMs) {
+        Long driverId = securityService.getCurrentDriverId();
+        if (driverId == null) {
+            throw new AccessDeniedException("Only drivers receive assignment changes");
+        }
+        return pushHub.poll(driverId, resumeToken, Math.max(1, Math.min(timeoutMs, maxPollTimeoutMs)));
+    }
+}
@@ -0,0 +1,45 @@
+package com.microecosystem.courier.driver.app.controller.api;
+
+import com.microecosystem.courier.driver.app.config.CompressionDictionary;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * REST API controller serving the shared compression dictionary to devices.
+ */
+@RestController
+@RequestMapping("/api/v1/compression")
+@Tag(name = "Compression", description = "APIs for compact response encoding")
+public class CompressionController {
+
+    private final CompressionDictionary dictionary;
+
+    public CompressionController(CompressionDictionary dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Get the dictionary devices need for x-deflate-dict responses.
+     *
+     * @return The dictionary, identified by its hash
+     */
+    @GetMapping("/dictionary")
+    @Operation(summary = "Get compression dictionary",
+            description = "Returns the shared dictionary to send as Available-Dictionary with Accept-Encoding: x-deflate-dict")
+    public ResponseEntity<byte[]> getDictionary() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .cacheControl(CacheControl.maxAge(30, TimeUnit.DAYS))
+                .eTag(dictionary.getHash())
+                .header("Use-As-Dictionary", "match=\"/driver-app/api/*\"")
+                .body(dictionary.getBytes());
+    }
+}
@@ -0,0 +1,83 @@
+package com.microecosystem.courier.driver.app.controller.api;
+
+import com.microecosystem.courier.driver.app.dto.geofence.GeofenceRequest;
+import com.microecosystem.courier.driver.app.model.GeofenceDefinition;
+import com.microecosystem.courier.driver.app.service.geofence.GeofenceService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.validation.Valid;
+import java.util.List;
+
+/**
+ * REST API controller for branch and depot geofences.
+ * Arrival at delivery stops is detected from fences derived from tasks in progress.
+ */
+@RestController
+@RequestMapping("/api/v1/geofences")
+@Tag(name = "Geofences", description = "APIs for managing branch and depot geofences")
+public class GeofenceController {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeofenceController.class);
+
+    private final GeofenceService geofenceService;
+
+    public GeofenceController(GeofenceService geofenceService) {
+        this.geofenceService = geofenceService;
+    }
+
+    /**
+     * Create a branch or depot geofence.
+     *
+     * @param request the fence to create
+     * @return the created fence
+     */
+    @PostMapping
+    @Operation(summary = "Create geofence", description = "Creates a circular or polygonal geofence around a branch or depot")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('SUPER_ADMIN')")
+    public ResponseEntity<GeofenceDefinition> createGeofence(@Valid @RequestBody GeofenceRequest request) {
+        logger.info("Create geofence request: {}", request.getName());
+        try {
+            return ResponseEntity.status(HttpStatus.CREATED).body(geofenceService.createGeofence(request));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid geofence {}: {}", request.getName(), e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Get all branch and depot geofences.
+     *
+     * @return list of geofences
+     */
+    @GetMapping
+    @Operation(summary = "Get geofences", description = "Retrieves all branch and depot geofences")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('SUPER_ADMIN')")
+    public ResponseEntity<List<GeofenceDefinition>> getGeofences() {
+        return ResponseEntity.ok(geofenceService.getGeofences());
+    }
+
+    /**
+     * Delete a branch or depot geofence.
+     *
+     * @param id the geofence ID
+     * @return no content
+     */
+    @DeleteMapping("/{id}")
+    @Operation(summary = "Delete geofence", description = "Deletes a branch or depot geofence")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('SUPER_ADMIN')")
+    public ResponseEntity<Void> deleteGeofence(
+            @Parameter(description = "Geofence ID", required = true)
+            @PathVariable Long id) {
+        logger.info("Delete geofence request: {}", id);
+        geofenceService.deleteGeofence(id);
+        return ResponseEntity.noContent().build();
+    }
+}
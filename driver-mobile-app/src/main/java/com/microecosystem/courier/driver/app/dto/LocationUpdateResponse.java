@@ -0,0 +1,45 @@
+package com.microecosystem.courier.driver.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Acknowledgement of a driver location update.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationUpdateResponse {
+
+    private Long driverId;
+
+    /**
+     * Whether the location was accepted; inaccurate fixes and implausible jumps are ignored
+     */
+    private boolean accepted;
+
+    /**
+     * When the location was received
+     */
+    private LocalDateTime receivedAt;
+
+    /**
+     * Upper bound in milliseconds on how long an accepted location may take to be stored
+     */
+    private long maxStalenessMs;
+
+    /**
+     * Milliseconds after which the device should report again, even if it has not moved
+     */
+    private long nextReportIntervalMs;
+
+    /**
+     * Meters the device may move before it should report again, even within the interval
+     */
+    private double nextReportDistanceMeters;
+}
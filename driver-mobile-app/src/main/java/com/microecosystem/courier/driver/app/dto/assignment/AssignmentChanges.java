@@ -0,0 +1,33 @@
+package com.microecosystem.courier.driver.app.dto.assignment;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for assignment changes returned to a long-polling device.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssignmentChanges {
+
+    /**
+     * Token to resume from with the next request
+     */
+    private String resumeToken;
+
+    /**
+     * Whether changes were missed and the device must reload its assignments
+     */
+    private boolean reset;
+
+    /**
+     * Changes after the requested token, oldest first
+     */
+    private List<AssignmentDelta> changes;
+}
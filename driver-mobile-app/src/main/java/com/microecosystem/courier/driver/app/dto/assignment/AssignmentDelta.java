@@ -0,0 +1,80 @@
+package com.microecosystem.courier.driver.app.dto.assignment;
+
+import com.microecosystem.courier.driver.app.model.assignment.Assignment;
+import com.microecosystem.courier.driver.app.model.assignment.AssignmentStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object for the state of an assignment after a change, pushed to the driver's
+ * devices. Tasks are not included; devices fetch them when an assignment is new to them.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssignmentDelta {
+
+    /**
+     * Assignment ID
+     */
+    private Long assignmentId;
+
+    /**
+     * Status after the change
+     */
+    private AssignmentStatus status;
+
+    /**
+     * Whether the assignment was deleted
+     */
+    private boolean deleted;
+
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime assignedAt;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime completedAt;
+
+    private LocalDateTime cancelledAt;
+
+    private String cancellationReason;
+
+    private Double estimatedDurationMinutes;
+
+    private Double estimatedDistanceKm;
+
+    private String routeOptimizationStatus;
+
+    private String notes;
+
+    /**
+     * Creates a delta from an assignment's current state.
+     *
+     * @param assignment the assignment
+     * @return the delta
+     */
+    public static AssignmentDelta of(Assignment assignment) {
+        return AssignmentDelta.builder()
+                .assignmentId(assignment.getId())
+                .status(assignment.getStatus())
+                .deleted(Boolean.TRUE.equals(assignment.getIsDeleted()))
+                .updatedAt(assignment.getUpdatedAt())
+                .assignedAt(assignment.getAssignedAt())
+                .startedAt(assignment.getStartedAt())
+                .completedAt(assignment.getCompletedAt())
+                .cancelledAt(assignment.getCancelledAt())
+                .cancellationReason(assignment.getCancellationReason())
+                .estimatedDurationMinutes(assignment.getEstimatedDurationMinutes())
+                .estimatedDistanceKm(assignment.getEstimatedDistanceKm())
+                .routeOptimizationStatus(assignment.getRouteOptimizationStatus())
+                .notes(assignment.getNotes())
+                .build();
+    }
+}
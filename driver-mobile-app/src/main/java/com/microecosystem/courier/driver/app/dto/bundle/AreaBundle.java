@@ -0,0 +1,55 @@
+package com.microecosystem.courier.driver.app.dto.bundle;
+
+import com.microecosystem.courier.driver.app.dto.assignment.AssignmentDelta;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Data Transfer Object for everything a driver needs to work a shift without coverage: the
+ * active assignments, their stops, routes between consecutive stops and the branches near
+ * them. A delta bundle holds only the entries that changed since its base version and the
+ * keys of those removed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AreaBundle {
+
+    private Long driverId;
+
+    /**
+     * Version of the bundle; increases with every change
+     */
+    private long version;
+
+    /**
+     * Version a delta applies to, or none for a full bundle
+     */
+    private Long baseVersion;
+
+    /**
+     * Whether the bundle replaces everything the device holds
+     */
+    private boolean full;
+
+    private LocalDateTime generatedAt;
+
+    private List<AssignmentDelta> assignments;
+
+    private List<BundleStop> stops;
+
+    private List<BundleRoute> routes;
+
+    private List<BundleBranch> branches;
+
+    /**
+     * Keys of entries removed since the base version, e.g. {@code stop:42}
+     */
+    private List<String> removed;
+}
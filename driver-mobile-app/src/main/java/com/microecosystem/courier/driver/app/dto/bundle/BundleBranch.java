@@ -0,0 +1,55 @@
+package com.microecosystem.courier.driver.app.dto.bundle;
+
+import com.microecosystem.courier.driver.app.model.GeofenceDefinition;
+import com.microecosystem.courier.driver.app.model.GeofenceType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Data Transfer Object for a branch or depot near a driver's stops in an area bundle.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BundleBranch {
+
+    private Long id;
+
+    private String name;
+
+    private GeofenceType type;
+
+    private BigDecimal latitude;
+
+    private BigDecimal longitude;
+
+    private Double radiusMeters;
+
+    /**
+     * Vertices of a polygonal fence as "lat,lon" pairs separated by semicolons
+     */
+    private String vertices;
+
+    /**
+     * Creates a branch from its geofence.
+     *
+     * @param definition the geofence
+     * @return the branch
+     */
+    public static BundleBranch of(GeofenceDefinition definition) {
+        return BundleBranch.builder()
+                .id(definition.getId())
+                .name(definition.getName())
+                .type(definition.getType())
+                .latitude(definition.getLatitude())
+                .longitude(definition.getLongitude())
+                .radiusMeters(definition.getRadiusMeters())
+                .vertices(definition.getVertices())
+                .build();
+    }
+}
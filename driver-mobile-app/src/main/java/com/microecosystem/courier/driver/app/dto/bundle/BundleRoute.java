@@ -0,0 +1,27 @@
+package com.microecosystem.courier.driver.app.dto.bundle;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Data Transfer Object for the route between two consecutive stops in an area bundle.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BundleRoute {
+
+    private Long fromTaskId;
+
+    private Long toTaskId;
+
+    /**
+     * Directions as returned by the navigation API
+     */
+    private Map<String, Object> directions;
+}
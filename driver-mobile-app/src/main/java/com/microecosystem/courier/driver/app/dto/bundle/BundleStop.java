@@ -0,0 +1,81 @@
+package com.microecosystem.courier.driver.app.dto.bundle;
+
+import com.microecosystem.courier.driver.app.model.assignment.Task;
+import com.microecosystem.courier.driver.app.model.assignment.TaskStatus;
+import com.microecosystem.courier.driver.app.model.assignment.TaskType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object for a stop in an area bundle.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BundleStop {
+
+    private Long taskId;
+
+    private Long assignmentId;
+
+    private TaskType taskType;
+
+    private TaskStatus status;
+
+    private Integer sequenceNumber;
+
+    private String address;
+
+    private BigDecimal latitude;
+
+    private BigDecimal longitude;
+
+    private String contactName;
+
+    private String contactPhone;
+
+    private LocalDateTime timeWindowStart;
+
+    private LocalDateTime timeWindowEnd;
+
+    private LocalDateTime estimatedArrivalTime;
+
+    private String notes;
+
+    private String trackingNumber;
+
+    private String packageId;
+
+    /**
+     * Creates a stop from a task.
+     *
+     * @param task the task
+     * @return the stop
+     */
+    public static BundleStop of(Task task) {
+        return BundleStop.builder()
+                .taskId(task.getId())
+                .assignmentId(task.getAssignment() != null ? task.getAssignment().getId() : null)
+                .taskType(task.getTaskType())
+                .status(task.getStatus())
+                .sequenceNumber(task.getSequenceNumber())
+                .address(task.getAddress())
+                .latitude(task.getLatitude())
+                .longitude(task.getLongitude())
+                .contactName(task.getContactName())
+                .contactPhone(task.getContactPhone())
+                .timeWindowStart(task.getTimeWindowStart())
+                .timeWindowEnd(task.getTimeWindowEnd())
+                .estimatedArrivalTime(task.getEstimatedArrivalTime())
+                .notes(task.getNotes())
+                .trackingNumber(task.getTrackingNumber())
+                .packageId(task.getPackageId())
+                .build();
+    }
+}
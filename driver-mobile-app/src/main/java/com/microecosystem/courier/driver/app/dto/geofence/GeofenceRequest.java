@@ -0,0 +1,57 @@
+package com.microecosystem.courier.driver.app.dto.geofence;
+
+import com.microecosystem.courier.driver.app.model.GeofenceType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Data Transfer Object for creating a branch or depot geofence. Either a center and radius or
+ * at least three vertices must be given.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeofenceRequest {
+
+    /**
+     * Display name
+     */
+    @NotBlank(message = "Name is required")
+    private String name;
+
+    /**
+     * What the fence surrounds
+     */
+    @NotNull(message = "Type is required")
+    private GeofenceType type;
+
+    /**
+     * Center latitude of a circular fence
+     */
+    private BigDecimal latitude;
+
+    /**
+     * Center longitude of a circular fence
+     */
+    private BigDecimal longitude;
+
+    /**
+     * Radius of a circular fence in meters
+     */
+    @Positive(message = "Radius must be positive")
+    private Double radiusMeters;
+
+    /**
+     * Vertices of a polygonal fence as [latitude, longitude] pairs, in order
+     */
+    private List<List<Double>> vertices;
+}
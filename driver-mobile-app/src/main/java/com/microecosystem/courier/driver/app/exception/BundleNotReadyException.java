@@ -0,0 +1,17 @@
+package com.microecosystem.courier.driver.app.exception;
+
+/**
+ * Exception thrown when a driver's area bundle is still being built and the request should
+ * be retried shortly.
+ */
+public class BundleNotReadyException extends RuntimeException {
+
+    /**
+     * Constructs a new bundle not ready exception with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    public BundleNotReadyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,73 @@
+package com.microecosystem.courier.driver.app.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Geofence around a branch or depot. Delivery stop fences are derived from tasks and not stored.
+ */
+@Entity
+@Table(name = "geofences")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeofenceDefinition {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Display name
+     */
+    @Column(nullable = false)
+    private String name;
+
+    /**
+     * What the fence surrounds
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private GeofenceType type;
+
+    /**
+     * Center latitude of a circular fence
+     */
+    @Column(precision = 10, scale = 7)
+    private BigDecimal latitude;
+
+    /**
+     * Center longitude of a circular fence
+     */
+    @Column(precision = 10, scale = 7)
+    private BigDecimal longitude;
+
+    /**
+     * Radius of a circular fence in meters
+     */
+    @Column(name = "radius_meters")
+    private Double radiusMeters;
+
+    /**
+     * Vertices of a polygonal fence as "lat,lon" pairs separated by semicolons
+     */
+    @Column(columnDefinition = "TEXT")
+    private String vertices;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
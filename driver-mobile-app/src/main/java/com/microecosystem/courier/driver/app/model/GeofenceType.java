@@ -0,0 +1,21 @@
+package com.microecosystem.courier.driver.app.model;
+
+/**
+ * Enumeration of places surrounded by geofences.
+ */
+public enum GeofenceType {
+    /**
+     * Pickup or delivery stop of a task
+     */
+    DELIVERY_STOP,
+
+    /**
+     * Branch office
+     */
+    BRANCH,
+
+    /**
+     * Depot
+     */
+    DEPOT
+}
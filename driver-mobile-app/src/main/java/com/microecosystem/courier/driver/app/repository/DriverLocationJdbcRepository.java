@@ -0,0 +1,67 @@
+package com.microecosystem.courier.driver.app.repository;
+
+import com.microecosystem.courier.driver.app.service.location.LocationPing;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JDBC batch writes for driver locations, bypassing the persistence context so a flush of
+ * thousands of positions costs a few round trips instead of a load and save per ping.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DriverLocationJdbcRepository {
+
+    // Only moves a driver forward in time, so a late retry never overwrites a newer position
+    private static final String UPDATE_LATEST_SQL =
+            "UPDATE driver SET current_latitude = ?, current_longitude = ?, last_location_update = ?, updated_at = ? "
+                    + "WHERE id = ? AND (last_location_update IS NULL OR last_location_update <= ?)";
+
+    private static final String INSERT_HISTORY_SQL =
+            "INSERT INTO driver_location_history "
+                    + "(driver_id, latitude, longitude, accuracy_meters, speed_kmh, heading, recorded_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Stores the latest position of each driver in one batch.
+     *
+     * @param pings at most one fix per driver
+     */
+    public void updateLatestLocations(List<LocationPing> pings) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPDATE_LATEST_SQL, pings, pings.size(), (ps, ping) -> {
+            Timestamp recordedAt = Timestamp.valueOf(ping.getRecordedAt());
+            ps.setBigDecimal(1, ping.getLatitude());
+            ps.setBigDecimal(2, ping.getLongitude());
+            ps.setTimestamp(3, recordedAt);
+            ps.setTimestamp(4, now);
+            ps.setLong(5, ping.getDriverId());
+            ps.setTimestamp(6, recordedAt);
+        });
+    }
+
+    /**
+     * Appends raw fixes to the location history in one batch.
+     *
+     * @param pings the fixes in arrival order
+     */
+    public void appendHistory(List<LocationPing> pings) {
+        jdbcTemplate.batchUpdate(INSERT_HISTORY_SQL, pings, pings.size(), (ps, ping) -> {
+            ps.setLong(1, ping.getDriverId());
+            ps.setBigDecimal(2, ping.getLatitude());
+            ps.setBigDecimal(3, ping.getLongitude());
+            ps.setObject(4, ping.getAccuracyInMeters(), Types.INTEGER);
+            ps.setObject(5, ping.getSpeed(), Types.DOUBLE);
+            ps.setObject(6, ping.getHeading(), Types.DOUBLE);
+            ps.setTimestamp(7, Timestamp.valueOf(ping.getRecordedAt()));
+        });
+    }
+}
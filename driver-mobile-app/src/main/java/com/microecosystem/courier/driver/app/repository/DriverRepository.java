@@ -5,11 +5,14 @@ import com.microecosystem.courier.driver.app.model.DriverStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -119,4 +122,15 @@ public interface DriverRepository extends JpaRepository<Driver, Long> {
             @Param("firstName") String firstName,
             @Param("lastName") String lastName,
             Pageable pageable);
+
+    /**
+     * Remove device tokens that are no longer registered with the push provider.
+     *
+     * @param deviceTokens the unregistered tokens
+     * @return number of drivers updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Driver d SET d.deviceToken = NULL WHERE d.deviceToken IN :deviceTokens")
+    int clearDeviceTokens(@Param("deviceTokens") Collection<String> deviceTokens);
 } 
\ No newline at end of file
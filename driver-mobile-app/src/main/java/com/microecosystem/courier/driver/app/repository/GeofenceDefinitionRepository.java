@@ -0,0 +1,12 @@
+package com.microecosystem.courier.driver.app.repository;
+
+import com.microecosystem.courier.driver.app.model.GeofenceDefinition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for GeofenceDefinition entity operations.
+ */
+@Repository
+public interface GeofenceDefinitionRepository extends JpaRepository<GeofenceDefinition, Long> {
+}
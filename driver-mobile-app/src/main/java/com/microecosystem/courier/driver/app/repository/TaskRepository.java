@@ -6,11 +6,14 @@ import com.microecosystem.courier.driver.app.model.assignment.TaskType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -30,6 +33,16 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
            "ORDER BY t.sequenceNumber ASC NULLS LAST, t.id ASC")
     List<Task> findByAssignmentId(@Param("assignmentId") Long assignmentId);
 
+    /**
+     * Find tasks in the given statuses together with their assignments and drivers.
+     *
+     * @param statuses the task statuses
+     * @return list of tasks
+     */
+    @Query("SELECT t FROM Task t JOIN FETCH t.assignment a JOIN FETCH a.driver " +
+           "WHERE t.status IN :statuses AND t.isDeleted = false")
+    List<Task> findWithDriverByStatusIn(@Param("statuses") Collection<TaskStatus> statuses);
+
     /**
      * Find all tasks for a specific assignment with a specific status.
      *
@@ -128,4 +141,16 @@ public interface TaskRepository extends JpaRepository<Task, Long> {
     @Query("SELECT t FROM Task t WHERE t.assignment.id = :assignmentId AND t.status = 'PENDING' AND t.isDeleted = false " +
            "ORDER BY t.sequenceNumber ASC NULLS LAST, t.id ASC")
     Optional<Task> findNextPendingTaskForAssignment(@Param("assignmentId") Long assignmentId);
+
+    /**
+     * Set the estimated arrival time of a task without loading it.
+     *
+     * @param id the task ID
+     * @param estimatedArrivalTime the estimated arrival time
+     * @return number of tasks updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Task t SET t.estimatedArrivalTime = :estimatedArrivalTime WHERE t.id = :id")
+    int updateEstimatedArrivalTime(@Param("id") Long id, @Param("estimatedArrivalTime") LocalDateTime estimatedArrivalTime);
 }
@@ -0,0 +1,202 @@
+package com.microecosystem.courier.driver.app.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Bounded, short-lived cache of authenticated users, so a token presented on every request
+ * does not cost a database lookup each time.
+ * <p>
+ * Entries expire after the TTL; beyond the maximum size the least recently used are evicted
+ * in one pass down to nine tenths of it, so lookups never wait on a lock. Deactivating a user
+ * or changing their roles must call {@link #invalidate(String)}. Besides dropping the cached
+ * user, this records the moment in Redis for as long as a token can live, so every instance
+ * stops trusting tokens issued before it on their signed claims alone. Users cached by other
+ * instances are reloaded within one TTL.
+ */
+@Component
+@Slf4j
+public class PrincipalCache {
+
+    private static final String INVALIDATED_KEY_PREFIX = "auth:invalidated:";
+    private static final String ALL_INVALIDATED_KEY = "auth:invalidated-all";
+
+    @Value("${app.security.principal-cache-ttl-ms:60000}")
+    private long ttlMs = 60000;
+
+    @Value("${app.security.principal-cache-max-size:10000}")
+    private int maxSize = 10000;
+
+    // Invalidations are remembered as long as a token issued before them can still be valid
+    @Value("${spring.security.jwt.expiration:86400000}")
+    private long tokenLifetimeMs = 86400000;
+
+    private final StringRedisTemplate redisTemplate;
+    private final Clock clock;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Long> invalidatedAt = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private volatile long allInvalidatedAt;
+
+    @Autowired
+    public PrincipalCache(StringRedisTemplate redisTemplate) {
+        this(redisTemplate, Clock.systemUTC());
+    }
+
+    PrincipalCache(StringRedisTemplate redisTemplate, Clock clock) {
+        this.redisTemplate = redisTemplate;
+        this.clock = clock;
+    }
+
+    /**
+     * Gets a cached user, loading it on a miss or once the entry has expired.
+     *
+     * @param username the username
+     * @param loader loads the user
+     * @return the user
+     */
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        long now = clock.millis();
+        Entry entry = entries.get(username);
+        if (entry != null && entry.expiresAt > now) {
+            entry.lastUsed = now;
+            return entry.user;
+        }
+        UserDetails user = loader.apply(username);
+        Entry loaded = new Entry(user, now + ttlMs, now);
+        entries.put(username, loaded);
+        // Invalidations record their time before removing, so one racing the load is seen here
+        if (invalidatedSince(username, now)) {
+            entries.remove(username, loaded);
+        } else if (entries.size() > maxSize) {
+            evict();
+        }
+        return user;
+    }
+
+    /**
+     * Whether a token issued at the given time can still be trusted to reflect the user's
+     * current state.
+     *
+     * @param username the username
+     * @param issuedAtMillis when the token was issued
+     * @return false if the user was invalidated on any instance after the token was issued, or
+     *         if that cannot be checked
+     */
+    public boolean isCurrent(String username, long issuedAtMillis) {
+        if (invalidatedSince(username, issuedAtMillis)) {
+            return false;
+        }
+        try {
+            List<String> shared = redisTemplate.opsForValue()
+                    .multiGet(List.of(INVALIDATED_KEY_PREFIX + username, ALL_INVALIDATED_KEY));
+            if (shared == null) {
+                return false;
+            }
+            for (String at : shared) {
+                if (at != null && Long.parseLong(at) >= issuedAtMillis) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Cannot check shared invalidations of user: {}: {}", username, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Drops a user from the cache, for example after they are deactivated or their roles change.
+     *
+     * @param username the username
+     */
+    public void invalidate(String username) {
+        long now = clock.millis();
+        invalidatedAt.put(username, now);
+        entries.remove(username);
+        invalidatedAt.values().removeIf(at -> at < now - tokenLifetimeMs);
+        share(INVALIDATED_KEY_PREFIX + username, now);
+        log.debug("Invalidated cached principal: {}", username);
+    }
+
+    /**
+     * Drops every cached user.
+     */
+    public void invalidateAll() {
+        long now = clock.millis();
+        allInvalidatedAt = now;
+        entries.clear();
+        invalidatedAt.clear();
+        share(ALL_INVALIDATED_KEY, now);
+    }
+
+    /**
+     * Gets the number of cached users.
+     *
+     * @return the user count
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private boolean invalidatedSince(String username, long time) {
+        Long at = invalidatedAt.get(username);
+        return allInvalidatedAt >= time || (at != null && at >= time);
+    }
+
+    private void share(String key, long at) {
+        try {
+            redisTemplate.opsForValue().set(key, String.valueOf(at), Duration.ofMillis(tokenLifetimeMs));
+        } catch (RuntimeException e) {
+            // Other instances keep trusting older tokens' claims until they expire
+            log.error("Cannot share invalidation {}: {}", key, e.getMessage());
+        }
+    }
+
+    private void evict() {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long now = clock.millis();
+            entries.values().removeIf(entry -> entry.expiresAt <= now);
+            int excess = entries.size() - maxSize * 9 / 10;
+            if (excess > 0) {
+                List<Map.Entry<String, Entry>> oldest = new ArrayList<>(entries.entrySet());
+                oldest.sort(Comparator.comparingLong(e -> e.getValue().lastUsed));
+                for (int i = 0; i < excess && i < oldest.size(); i++) {
+                    entries.remove(oldest.get(i).getKey(), oldest.get(i).getValue());
+                }
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private static final class Entry {
+
+        private final UserDetails user;
+        private final long expiresAt;
+        private volatile long lastUsed;
+
+        private Entry(UserDetails user, long expiresAt, long lastUsed) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+            this.lastUsed = lastUsed;
+        }
+    }
+}
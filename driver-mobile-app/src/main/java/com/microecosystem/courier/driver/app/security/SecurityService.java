@@ -31,6 +31,9 @@ public class SecurityService {
         }
 
         UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        if (userDetails.getDriverId() != null) {
+            return userDetails.getDriverId().equals(driverId);
+        }
         Long userId = userDetails.getId();
 
         return driverRepository.findById(driverId)
@@ -75,6 +78,12 @@ public class SecurityService {
      * @return current driver ID or null if not authenticated or not a driver
      */
     public Long getCurrentDriverId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserDetailsImpl userDetails
+                && userDetails.getDriverId() != null) {
+            return userDetails.getDriverId();
+        }
+
         Long userId = getCurrentUserId();
         if (userId == null) {
             return null;
@@ -31,6 +31,12 @@ public class SecurityServiceImpl implements SecurityService {
 
     @Override
     public Long getCurrentDriverId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserDetailsImpl userDetails
+                && userDetails.getDriverId() != null) {
+            return userDetails.getDriverId();
+        }
+
         String username = getCurrentUsername();
         if (username == null) {
             return null;
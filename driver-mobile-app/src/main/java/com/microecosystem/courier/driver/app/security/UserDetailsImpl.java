@@ -38,6 +38,9 @@ public class UserDetailsImpl implements UserDetails {
     @Getter
     private final boolean accountNonLocked;
 
+    @Getter
+    private final Long driverId;
+
     /**
      * Creates a UserDetailsImpl instance from a User entity.
      *
@@ -45,6 +48,17 @@ public class UserDetailsImpl implements UserDetails {
      * @return UserDetailsImpl instance
      */
     public static UserDetailsImpl build(User user) {
+        return build(user, null);
+    }
+
+    /**
+     * Creates a UserDetailsImpl instance from a User entity and the user's driver profile.
+     *
+     * @param user the user entity
+     * @param driverId ID of the user's driver profile, or null if the user is not a driver
+     * @return UserDetailsImpl instance
+     */
+    public static UserDetailsImpl build(User user, Long driverId) {
         List<GrantedAuthority> authorities = user.getRoles().stream()
                 .map(role -> new SimpleGrantedAuthority(role.getName().name()))
                 .collect(Collectors.toList());
@@ -55,7 +69,8 @@ public class UserDetailsImpl implements UserDetails {
                 user.getEmail(),
                 user.getPassword(),
                 authorities,
-                user.getAccountLocked() == null || !user.getAccountLocked()
+                user.getAccountLocked() == null || !user.getAccountLocked(),
+                driverId
         );
     }
 
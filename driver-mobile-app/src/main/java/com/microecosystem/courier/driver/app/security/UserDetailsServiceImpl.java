@@ -1,6 +1,8 @@
 package com.microecosystem.courier.driver.app.security;
 
+import com.microecosystem.courier.driver.app.model.Driver;
 import com.microecosystem.courier.driver.app.model.User;
+import com.microecosystem.courier.driver.app.repository.DriverRepository;
 import com.microecosystem.courier.driver.app.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -19,6 +21,7 @@ import org.springframework.transaction.annotation.Transactional;
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     private final UserRepository userRepository;
+    private final DriverRepository driverRepository;
 
     @Override
     @Transactional
@@ -26,6 +29,9 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
 
-        return UserDetailsImpl.build(user);
+        Long driverId = driverRepository.findByUserId(user.getId())
+                .map(Driver::getId)
+                .orElse(null);
+        return UserDetailsImpl.build(user, driverId);
     }
 } 
\ No newline at end of file
@@ -5,9 +5,14 @@ import io.jsonwebtoken.*;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * Utility class for JWT token generation and validation.
@@ -16,6 +21,11 @@ import java.util.Date;
 @Slf4j
 public class JwtUtils {
 
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String DRIVER_ID_CLAIM = "did";
+    private static final String ROLES_CLAIM = "roles";
+    private static final String LOCKED_CLAIM = "lck";
+
     @Value("${spring.security.jwt.secret}")
     private String jwtSecret;
 
@@ -31,8 +41,17 @@ public class JwtUtils {
     public String generateJwtToken(Authentication authentication) {
         UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
 
+        List<String> roles = userPrincipal.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList());
+
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(userPrincipal.getUsername())
+                .claim(USER_ID_CLAIM, userPrincipal.getId())
+                .claim(DRIVER_ID_CLAIM, userPrincipal.getDriverId())
+                .claim(ROLES_CLAIM, roles)
+                .claim(LOCKED_CLAIM, !userPrincipal.isAccountNonLocked())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
                 .signWith(SignatureAlgorithm.HS512, jwtSecret)
@@ -56,9 +75,18 @@ public class JwtUtils {
      * @return true if valid
      */
     public boolean validateJwtToken(String authToken) {
+        return parseClaims(authToken) != null;
+    }
+
+    /**
+     * Validates JWT token and returns its claims, verifying the signature only once.
+     *
+     * @param authToken JWT token
+     * @return the claims, or null if the token is invalid
+     */
+    public Claims parseClaims(String authToken) {
         try {
-            Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
-            return true;
+            return Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken).getBody();
         } catch (SignatureException e) {
             log.error("Invalid JWT signature: {}", e.getMessage());
         } catch (MalformedJwtException e) {
@@ -71,6 +99,26 @@ public class JwtUtils {
             log.error("JWT claims string is empty: {}", e.getMessage());
         }
 
-        return false;
+        return null;
+    }
+
+    /**
+     * Builds the user from the signed claims alone, without loading it.
+     *
+     * @param claims claims of a validated token
+     * @return the user, or null if the token predates these claims
+     */
+    public UserDetailsImpl getUserDetailsFromClaims(Claims claims) {
+        Long userId = claims.get(USER_ID_CLAIM, Long.class);
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+        Boolean locked = claims.get(LOCKED_CLAIM, Boolean.class);
+        if (userId == null || roles == null || locked == null) {
+            return null;
+        }
+        List<GrantedAuthority> authorities = roles.stream()
+                .map(role -> new SimpleGrantedAuthority(String.valueOf(role)))
+                .collect(Collectors.toList());
+        return new UserDetailsImpl(userId, claims.getSubject(), null, null, authorities, !locked,
+                claims.get(DRIVER_ID_CLAIM, Long.class));
     }
 } 
\ No newline at end of file
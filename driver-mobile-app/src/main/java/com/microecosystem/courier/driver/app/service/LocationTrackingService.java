@@ -1,6 +1,7 @@
 package com.microecosystem.courier.driver.app.service;
 
 import com.microecosystem.courier.driver.app.dto.LocationUpdateRequest;
+import com.microecosystem.courier.driver.app.dto.LocationUpdateResponse;
 import com.microecosystem.courier.driver.app.model.Driver;
 
 import java.math.BigDecimal;
@@ -20,6 +21,17 @@ public interface LocationTrackingService {
      */
     Driver updateDriverLocation(Long driverId, LocationUpdateRequest request);
 
+    /**
+     * Record a driver's location without waiting for it to be stored. Fixes are noise filtered,
+     * the latest location per driver is written in periodic batches, and fixes that show
+     * movement are appended to the history.
+     *
+     * @param driverId driver ID
+     * @param request location update request
+     * @return acknowledgement of the update
+     */
+    LocationUpdateResponse recordDriverLocation(Long driverId, LocationUpdateRequest request);
+
     /**
      * Find nearby drivers within a radius.
      *
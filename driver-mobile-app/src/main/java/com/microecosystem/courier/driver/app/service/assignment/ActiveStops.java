@@ -0,0 +1,158 @@
+package com.microecosystem.courier.driver.app.service.assignment;
+
+import com.microecosystem.courier.driver.app.model.Driver;
+import com.microecosystem.courier.driver.app.model.assignment.Assignment;
+import com.microecosystem.courier.driver.app.model.assignment.AssignmentStatus;
+import com.microecosystem.courier.driver.app.model.assignment.Task;
+import com.microecosystem.courier.driver.app.model.assignment.TaskStatus;
+import com.microecosystem.courier.driver.app.repository.TaskRepository;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The remaining located stops of every driver on an active assignment, in visiting order.
+ * <p>
+ * Read in one query in the background and replaced wholesale, so the geofences, route
+ * prefetching, reporting intervals and arrival estimates that follow drivers along their
+ * stops share one scan and see the same stops in the same order.
+ */
+@Component
+@Slf4j
+public class ActiveStops {
+
+    private static final EnumSet<TaskStatus> UPCOMING_TASK_STATUSES =
+            EnumSet.of(TaskStatus.PENDING, TaskStatus.IN_PROGRESS, TaskStatus.ARRIVED);
+    private static final EnumSet<AssignmentStatus> ACTIVE_ASSIGNMENT_STATUSES =
+            EnumSet.of(AssignmentStatus.ACCEPTED, AssignmentStatus.STARTED, AssignmentStatus.IN_PROGRESS);
+    // Assignments in the order their bundle lists them
+    private static final Comparator<Assignment> ASSIGNMENT_ORDER = Comparator
+            .comparing(Assignment::getStartedAt, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Assignment::getAssignedAt, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Assignment::getId);
+    // The stop the driver is at or heading to, then assignment by assignment
+    private static final Comparator<Task> VISITING_ORDER = Comparator
+            .comparing((Task task) -> task.getStatus() != TaskStatus.ARRIVED)
+            .thenComparing(task -> task.getStatus() != TaskStatus.IN_PROGRESS)
+            .thenComparing(Task::getAssignment, ASSIGNMENT_ORDER)
+            .thenComparing(Task::getSequenceNumber, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Task::getId);
+
+    private final TaskRepository taskRepository;
+
+    // Replaced wholesale on each refresh
+    private volatile Map<Long, DriverStops> stopsByDriver = Map.of();
+
+    public ActiveStops(TaskRepository taskRepository) {
+        this.taskRepository = taskRepository;
+    }
+
+    /**
+     * A driver's last known position and remaining stops.
+     */
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class DriverStops {
+
+        private final Long driverId;
+        /** Null if the driver has not reported a position */
+        private final Double latitude;
+        private final Double longitude;
+        /** In visiting order, never empty */
+        private final List<Stop> stops;
+    }
+
+    /**
+     * A stop still ahead of a driver, or the one they are at.
+     */
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class Stop {
+
+        private final Long taskId;
+        private final Long assignmentId;
+        private final TaskStatus status;
+        private final double latitude;
+        private final double longitude;
+        private final LocalDateTime estimatedArrivalTime;
+        private final LocalDateTime actualArrivalTime;
+    }
+
+    /**
+     * Rereads the remaining stops of drivers on active assignments.
+     */
+    @Scheduled(fixedDelayString = "${driver.assignment.stops-refresh-interval-ms:15000}")
+    @Transactional(readOnly = true)
+    public void refresh() {
+        Map<Long, List<Task>> tasksByDriver = new HashMap<>();
+        for (Task task : taskRepository.findWithDriverByStatusIn(UPCOMING_TASK_STATUSES)) {
+            if (ACTIVE_ASSIGNMENT_STATUSES.contains(task.getAssignment().getStatus())
+                    && task.getLatitude() != null && task.getLongitude() != null) {
+                tasksByDriver.computeIfAbsent(task.getAssignment().getDriver().getId(), id -> new ArrayList<>())
+                        .add(task);
+            }
+        }
+
+        Map<Long, DriverStops> stops = new HashMap<>(tasksByDriver.size() * 2);
+        tasksByDriver.forEach((driverId, tasks) -> {
+            tasks.sort(VISITING_ORDER);
+            Driver driver = tasks.get(0).getAssignment().getDriver();
+            boolean located = driver.getCurrentLatitude() != null && driver.getCurrentLongitude() != null;
+            stops.put(driverId, new DriverStops(driverId,
+                    located ? driver.getCurrentLatitude().doubleValue() : null,
+                    located ? driver.getCurrentLongitude().doubleValue() : null,
+                    tasks.stream().map(ActiveStops::stop).toList()));
+        });
+        stopsByDriver = stops;
+        log.debug("Refreshed remaining stops of {} drivers", stops.size());
+    }
+
+    /**
+     * Gets a driver's remaining stops.
+     *
+     * @param driverId the driver ID
+     * @return the stops, or null if the driver has none on an active assignment
+     */
+    public DriverStops get(Long driverId) {
+        return stopsByDriver.get(driverId);
+    }
+
+    /**
+     * Gets the remaining stops of every driver on an active assignment.
+     *
+     * @return the drivers' stops
+     */
+    public Collection<DriverStops> all() {
+        return stopsByDriver.values();
+    }
+
+    /**
+     * Gets the number of drivers with remaining stops.
+     *
+     * @return the driver count
+     */
+    public int size() {
+        return stopsByDriver.size();
+    }
+
+    private static Stop stop(Task task) {
+        return new Stop(task.getId(), task.getAssignment().getId(), task.getStatus(),
+                task.getLatitude().doubleValue(), task.getLongitude().doubleValue(),
+                task.getEstimatedArrivalTime(), task.getActualArrivalTime());
+    }
+}
@@ -0,0 +1,18 @@
+package com.microecosystem.courier.driver.app.service.assignment;
+
+import com.microecosystem.courier.driver.app.dto.assignment.AssignmentDelta;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published when an assignment is created, changed or deleted.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class AssignmentChangedEvent {
+
+    private final Long driverId;
+    private final AssignmentDelta delta;
+}
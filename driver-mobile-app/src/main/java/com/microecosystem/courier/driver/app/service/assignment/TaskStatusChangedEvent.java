@@ -0,0 +1,20 @@
+package com.microecosystem.courier.driver.app.service.assignment;
+
+import com.microecosystem.courier.driver.app.model.assignment.TaskStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Published when a task is started, reaches its stop, is completed or otherwise changes status.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class TaskStatusChangedEvent {
+
+    private final Long driverId;
+    private final Long assignmentId;
+    private final Long taskId;
+    private final TaskStatus status;
+}
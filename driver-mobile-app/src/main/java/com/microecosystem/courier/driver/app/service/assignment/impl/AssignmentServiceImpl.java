@@ -1,14 +1,17 @@
 package com.microecosystem.courier.driver.app.service.assignment.impl;
 
+import com.microecosystem.courier.driver.app.dto.assignment.AssignmentDelta;
 import com.microecosystem.courier.driver.app.model.Driver;
 import com.microecosystem.courier.driver.app.model.assignment.Assignment;
 import com.microecosystem.courier.driver.app.model.assignment.AssignmentStatus;
 import com.microecosystem.courier.driver.app.repository.AssignmentRepository;
 import com.microecosystem.courier.driver.app.repository.DriverRepository;
+import com.microecosystem.courier.driver.app.service.assignment.AssignmentChangedEvent;
 import com.microecosystem.courier.driver.app.service.assignment.AssignmentService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -20,6 +23,7 @@ import java.util.Optional;
 
 /**
  * Implementation of the AssignmentService interface.
+ * Changes are published as {@link AssignmentChangedEvent}s so they can be pushed to the driver.
  */
 @Service
 public class AssignmentServiceImpl implements AssignmentService {
@@ -28,11 +32,14 @@ public class AssignmentServiceImpl implements AssignmentService {
 
     private final AssignmentRepository assignmentRepository;
     private final DriverRepository driverRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public AssignmentServiceImpl(AssignmentRepository assignmentRepository, DriverRepository driverRepository) {
+    public AssignmentServiceImpl(AssignmentRepository assignmentRepository, DriverRepository driverRepository,
+                                 ApplicationEventPublisher eventPublisher) {
         this.assignmentRepository = assignmentRepository;
         this.driverRepository = driverRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -85,7 +92,7 @@ public class AssignmentServiceImpl implements AssignmentService {
             assignment.setStatus(AssignmentStatus.PENDING);
         }
         
-        return assignmentRepository.save(assignment);
+        return saveAndPublish(assignment);
     }
 
     @Override
@@ -102,7 +109,7 @@ public class AssignmentServiceImpl implements AssignmentService {
         }
         
         assignment.setUpdatedAt(LocalDateTime.now());
-        return assignmentRepository.save(assignment);
+        return saveAndPublish(assignment);
     }
 
     @Override
@@ -134,7 +141,7 @@ public class AssignmentServiceImpl implements AssignmentService {
                 break;
         }
         
-        return assignmentRepository.save(assignment);
+        return saveAndPublish(assignment);
     }
 
     @Override
@@ -155,7 +162,7 @@ public class AssignmentServiceImpl implements AssignmentService {
         assignment.setAssignedAt(LocalDateTime.now());
         assignment.setUpdatedAt(LocalDateTime.now());
         
-        return assignmentRepository.save(assignment);
+        return saveAndPublish(assignment);
     }
 
     @Override
@@ -176,7 +183,7 @@ public class AssignmentServiceImpl implements AssignmentService {
         assignment.setStartedAt(LocalDateTime.now());
         assignment.setUpdatedAt(LocalDateTime.now());
         
-        return assignmentRepository.save(assignment);
+        return saveAndPublish(assignment);
     }
 
     @Override
@@ -197,7 +204,7 @@ public class AssignmentServiceImpl implements AssignmentService {
         assignment.setCompletedAt(LocalDateTime.now());
         assignment.setUpdatedAt(LocalDateTime.now());
         
-        return assignmentRepository.save(assignment);
+        return saveAndPublish(assignment);
     }
 
     @Override
@@ -219,7 +226,7 @@ public class AssignmentServiceImpl implements AssignmentService {
         assignment.setCancelledAt(LocalDateTime.now());
         assignment.setUpdatedAt(LocalDateTime.now());
         
-        return assignmentRepository.save(assignment);
+        return saveAndPublish(assignment);
     }
 
     @Override
@@ -272,8 +279,16 @@ public class AssignmentServiceImpl implements AssignmentService {
         Assignment assignment = optionalAssignment.get();
         assignment.setIsDeleted(true);
         assignment.setUpdatedAt(LocalDateTime.now());
-        assignmentRepository.save(assignment);
+        saveAndPublish(assignment);
         
         return true;
     }
+
+    private Assignment saveAndPublish(Assignment assignment) {
+        Assignment saved = assignmentRepository.save(assignment);
+        if (saved != null && saved.getDriver() != null) {
+            eventPublisher.publishEvent(new AssignmentChangedEvent(saved.getDriver().getId(), AssignmentDelta.of(saved)));
+        }
+        return saved;
+    }
 }
@@ -6,9 +6,11 @@ import com.microecosystem.courier.driver.app.model.assignment.TaskType;
 import com.microecosystem.courier.driver.app.repository.AssignmentRepository;
 import com.microecosystem.courier.driver.app.repository.TaskRepository;
 import com.microecosystem.courier.driver.app.service.assignment.TaskService;
+import com.microecosystem.courier.driver.app.service.assignment.TaskStatusChangedEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -29,11 +31,14 @@ public class TaskServiceImpl implements TaskService {
 
     private final TaskRepository taskRepository;
     private final AssignmentRepository assignmentRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public TaskServiceImpl(TaskRepository taskRepository, AssignmentRepository assignmentRepository) {
+    public TaskServiceImpl(TaskRepository taskRepository, AssignmentRepository assignmentRepository,
+                           ApplicationEventPublisher eventPublisher) {
         this.taskRepository = taskRepository;
         this.assignmentRepository = assignmentRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -129,7 +134,7 @@ public class TaskServiceImpl implements TaskService {
                 break;
         }
         
-        return taskRepository.save(task);
+        return saveAndPublish(task);
     }
 
     @Override
@@ -149,7 +154,7 @@ public class TaskServiceImpl implements TaskService {
         task.setStatus(TaskStatus.IN_PROGRESS);
         task.setUpdatedAt(LocalDateTime.now());
         
-        return taskRepository.save(task);
+        return saveAndPublish(task);
     }
 
     @Override
@@ -181,7 +186,7 @@ public class TaskServiceImpl implements TaskService {
             }
         }
         
-        return taskRepository.save(task);
+        return saveAndPublish(task);
     }
 
     @Override
@@ -202,7 +207,7 @@ public class TaskServiceImpl implements TaskService {
         task.setActualArrivalTime(LocalDateTime.now());
         task.setUpdatedAt(LocalDateTime.now());
         
-        return taskRepository.save(task);
+        return saveAndPublish(task);
     }
 
     @Override
@@ -295,4 +300,13 @@ public class TaskServiceImpl implements TaskService {
         
         return true;
     }
+
+    private Task saveAndPublish(Task task) {
+        Task saved = taskRepository.save(task);
+        if (saved != null && saved.getAssignment() != null && saved.getAssignment().getDriver() != null) {
+            eventPublisher.publishEvent(new TaskStatusChangedEvent(saved.getAssignment().getDriver().getId(),
+                    saved.getAssignment().getId(), saved.getId(), saved.getStatus()));
+        }
+        return saved;
+    }
 }
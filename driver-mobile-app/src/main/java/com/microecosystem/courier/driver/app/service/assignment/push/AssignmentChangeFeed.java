@@ -0,0 +1,65 @@
+package com.microecosystem.courier.driver.app.service.assignment.push;
+
+import java.util.List;
+
+/**
+ * Numbers each driver's assignment changes, keeps the latest few and delivers every change to
+ * all nodes, so a device can resume from its last change on whichever node it reaches.
+ * <p>
+ * A driver's changes are numbered from 1 within an epoch. A new epoch starts once the driver's
+ * changes are no longer retained, so a sequence from another epoch resumes nothing.
+ */
+public interface AssignmentChangeFeed {
+
+    /**
+     * A numbered change.
+     *
+     * @param epoch the driver's epoch
+     * @param sequence the change's number within the epoch, or the latest number for a head
+     * @param json the serialized change, or null for a head
+     */
+    record Change(String epoch, long sequence, String json) {
+    }
+
+    /**
+     * Receives the changes of every driver, in order for each driver.
+     */
+    @FunctionalInterface
+    interface Listener {
+
+        void onChange(Long driverId, Change change);
+    }
+
+    /**
+     * Numbers a change and delivers it to every subscriber.
+     *
+     * @param driverId the driver ID
+     * @param json the serialized change
+     */
+    void append(Long driverId, String json);
+
+    /**
+     * Gets the driver's epoch and latest sequence, starting an epoch if there is none.
+     *
+     * @param driverId the driver ID
+     * @return the head, without data
+     */
+    Change head(Long driverId);
+
+    /**
+     * Gets the retained changes after a sequence.
+     *
+     * @param driverId the driver ID
+     * @param epoch the epoch of the sequence
+     * @param afterSequence the last change already seen
+     * @return the changes in order, or null if the epoch is over or some are no longer retained
+     */
+    List<Change> since(Long driverId, String epoch, long afterSequence);
+
+    /**
+     * Registers a listener for the changes appended on any node.
+     *
+     * @param listener the listener
+     */
+    void subscribe(Listener listener);
+}
@@ -0,0 +1,66 @@
+package com.microecosystem.courier.driver.app.service.assignment.push;
+
+import com.microecosystem.courier.driver.app.security.UserDetailsImpl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * WebSocket endpoint over which drivers' devices receive assignment changes. The handshake is
+ * authenticated like any other request; devices pass the last resume token they received as
+ * the {@code resumeToken} query parameter when reconnecting. Messages from devices are ignored.
+ */
+@Component
+public class AssignmentPushHandler extends TextWebSocketHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssignmentPushHandler.class);
+
+    private static final String DRIVER_ID_ATTRIBUTE = "driverId";
+
+    private final AssignmentPushHub pushHub;
+
+    public AssignmentPushHandler(AssignmentPushHub pushHub) {
+        this.pushHub = pushHub;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+        Long driverId = driverId(session);
+        if (driverId == null) {
+            logger.debug("Rejecting assignment push session {} without a driver", session.getId());
+            session.close(CloseStatus.POLICY_VIOLATION);
+            return;
+        }
+        session.getAttributes().put(DRIVER_ID_ATTRIBUTE, driverId);
+        String resumeToken = session.getUri() != null
+                ? UriComponentsBuilder.fromUri(session.getUri()).build().getQueryParams().getFirst("resumeToken")
+                : null;
+        pushHub.connect(driverId, session, resumeToken);
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        if (session.getAttributes().get(DRIVER_ID_ATTRIBUTE) instanceof Long driverId) {
+            pushHub.disconnect(driverId, session);
+        }
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+        logger.debug("Assignment push session {} failed: {}", session.getId(), exception.getMessage());
+        session.close(CloseStatus.SERVER_ERROR);
+    }
+
+    private static Long driverId(WebSocketSession session) {
+        if (session.getPrincipal() instanceof Authentication authentication
+                && authentication.getPrincipal() instanceof UserDetailsImpl userDetails) {
+            return userDetails.getDriverId();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,440 @@
+package com.microecosystem.courier.driver.app.service.assignment.push;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microecosystem.courier.driver.app.dto.assignment.AssignmentChanges;
+import com.microecosystem.courier.driver.app.dto.assignment.AssignmentDelta;
+import com.microecosystem.courier.driver.app.service.assignment.AssignmentChangedEvent;
+import com.microecosystem.courier.driver.app.service.assignment.push.AssignmentChangeFeed.Change;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes assignment changes to drivers' devices over WebSocket sessions and long polls.
+ * <p>
+ * Changes go through the {@link AssignmentChangeFeed}, which numbers them per driver, keeps the
+ * last few and delivers them to every node. Each node holds a channel for the drivers connected
+ * to it, with their open sessions, waiting polls and the driver's latest sequence; changes of
+ * other drivers are ignored. Every message carries a resume token naming the feed's epoch and
+ * sequence, so a device that reconnects to any node with its last token receives the changes
+ * it missed, or a reset telling it to reload its assignments when they are no longer retained.
+ * Changes are serialized once per node and shared by all of a driver's sessions, and idle
+ * sessions hold no thread, so a node keeps tens of thousands of mostly idle drivers connected.
+ */
+@Component
+public class AssignmentPushHub {
+
+    private static final Logger logger = LoggerFactory.getLogger(AssignmentPushHub.class);
+
+    private static final WebSocketSession[] NO_SESSIONS = new WebSocketSession[0];
+    private static final PingMessage PING = new PingMessage();
+
+    private final ObjectMapper objectMapper;
+    private final AssignmentChangeFeed feed;
+    private final Clock clock;
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+
+    @Value("${driver.push.retention-ms:600000}")
+    private long retentionMs = 600000;
+
+    @Value("${driver.push.max-sessions-per-driver:4}")
+    private int maxSessionsPerDriver = 4;
+
+    @Value("${driver.push.send-time-limit-ms:10000}")
+    private int sendTimeLimitMs = 10000;
+
+    @Value("${driver.push.send-buffer-size-kb:64}")
+    private int sendBufferSizeKb = 64;
+
+    @Autowired
+    public AssignmentPushHub(ObjectMapper objectMapper, AssignmentChangeFeed feed) {
+        this(objectMapper, feed, Clock.systemUTC());
+    }
+
+    AssignmentPushHub(ObjectMapper objectMapper, AssignmentChangeFeed feed, Clock clock) {
+        this.objectMapper = objectMapper;
+        this.feed = feed;
+        this.clock = clock;
+    }
+
+    @PostConstruct
+    public void start() {
+        feed.subscribe(this::onChange);
+    }
+
+    /**
+     * Pushes a committed assignment change to the driver's devices.
+     *
+     * @param event the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAssignmentChanged(AssignmentChangedEvent event) {
+        if (event.getDriverId() != null) {
+            publish(event.getDriverId(), event.getDelta());
+        }
+    }
+
+    /**
+     * Records a change for a driver; every node then sends it to the driver's sessions and
+     * waiting polls it holds.
+     *
+     * @param driverId the driver ID
+     * @param delta the assignment's state after the change
+     */
+    public void publish(Long driverId, AssignmentDelta delta) {
+        try {
+            feed.append(driverId, json(delta));
+        } catch (RuntimeException e) {
+            logger.error("Cannot publish assignment change of driver ID: {}: {}", driverId, e.getMessage());
+            // Devices connected here reload rather than miss the change
+            Channel channel = channels.get(driverId);
+            if (channel != null) {
+                List<Completion> completions = new ArrayList<>();
+                synchronized (channel) {
+                    if (channel.epoch != null) {
+                        deliver(channel, null, completions);
+                    }
+                }
+                completions.forEach(completion -> completion.result.setResult(completion.changes));
+            }
+        }
+    }
+
+    private void onChange(Long driverId, Change change) {
+        Channel channel = channels.get(driverId);
+        if (channel == null) {
+            return;
+        }
+        AssignmentDelta delta = delta(change.json());
+        List<Completion> completions = new ArrayList<>();
+        synchronized (channel) {
+            // Not loaded yet, or already counted when it was
+            if (channel.closed || channel.epoch == null
+                    || (change.epoch().equals(channel.epoch) && change.sequence() <= channel.sequence)) {
+                return;
+            }
+            // A new epoch starting at 1 follows on from the old one, which had no changes since the
+            // channel's; a change lost in transit leaves devices to reload
+            boolean continuous = change.epoch().equals(channel.epoch)
+                    ? change.sequence() == channel.sequence + 1 : change.sequence() == 1;
+            channel.epoch = change.epoch();
+            channel.sequence = change.sequence();
+            channel.lastActive = clock.millis();
+            deliver(channel, continuous ? delta : null, completions);
+        }
+        completions.forEach(completion -> completion.result.setResult(completion.changes));
+    }
+
+    // Sends a change, or a reset if null, to the channel's sessions and answers its waiting polls
+    private void deliver(Channel channel, AssignmentDelta delta, List<Completion> completions) {
+        String token = channel.token(channel.sequence);
+        if (channel.sessions.length > 0) {
+            TextMessage message = new TextMessage(json(message(delta != null ? "change" : "reset", token, delta)));
+            for (WebSocketSession session : channel.sessions) {
+                send(channel, session, message);
+            }
+        }
+        AssignmentChanges changes = changes(channel, delta != null ? List.of(new Frame(channel.sequence, delta)) : null);
+        for (DeferredResult<AssignmentChanges> waiter : channel.waiters) {
+            completions.add(new Completion(waiter, changes));
+        }
+        channel.waiters.clear();
+    }
+
+    /**
+     * Registers a device's WebSocket session and sends it what it missed since its token, or
+     * a reset, followed by a ready message with the current token.
+     *
+     * @param driverId the driver ID
+     * @param session the session
+     * @param resumeToken the last token the device received, or null on first connect
+     */
+    public void connect(Long driverId, WebSocketSession session, String resumeToken) {
+        WebSocketSession decorated = new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs,
+                sendBufferSizeKb * 1024, ConcurrentWebSocketSessionDecorator.OverflowStrategy.TERMINATE);
+        while (true) {
+            Channel channel = channels.computeIfAbsent(driverId, id -> new Channel());
+            synchronized (channel) {
+                if (channel.closed) {
+                    continue;
+                }
+                load(driverId, channel);
+                if (channel.sessions.length >= maxSessionsPerDriver) {
+                    // The oldest session is most likely a connection the device has already given up on
+                    close(channel, channel.sessions[0], CloseStatus.POLICY_VIOLATION);
+                }
+                channel.sessions = Arrays.copyOf(channel.sessions, channel.sessions.length + 1);
+                channel.sessions[channel.sessions.length - 1] = decorated;
+                channel.lastActive = clock.millis();
+
+                List<Frame> missed = resumeToken != null ? missed(driverId, channel, resumeToken) : List.of();
+                if (missed == null) {
+                    send(channel, decorated, new TextMessage(json(message("reset", channel.token(channel.sequence), null))));
+                } else {
+                    for (Frame frame : missed) {
+                        send(channel, decorated,
+                                new TextMessage(json(message("change", channel.token(frame.sequence), frame.delta))));
+                    }
+                }
+                send(channel, decorated, new TextMessage(json(message("ready", channel.token(channel.sequence), null))));
+            }
+            logger.debug("Driver ID: {} connected for assignment changes", driverId);
+            return;
+        }
+    }
+
+    /**
+     * Removes a closed WebSocket session.
+     *
+     * @param driverId the driver ID
+     * @param session the session
+     */
+    public void disconnect(Long driverId, WebSocketSession session) {
+        Channel channel = channels.get(driverId);
+        if (channel == null) {
+            return;
+        }
+        synchronized (channel) {
+            for (WebSocketSession registered : channel.sessions) {
+                if (registered == session || delegate(registered) == session) {
+                    remove(channel, registered);
+                }
+            }
+            channel.lastActive = clock.millis();
+        }
+    }
+
+    /**
+     * Waits for changes after a token. Answers at once if there are any, if the device must
+     * reset or if no token is given, and with no changes when the timeout passes.
+     *
+     * @param driverId the driver ID
+     * @param resumeToken the last token the device received, or null on first poll
+     * @param timeoutMs how long to wait for a change
+     * @return the pending result
+     */
+    public DeferredResult<AssignmentChanges> poll(Long driverId, String resumeToken, long timeoutMs) {
+        DeferredResult<AssignmentChanges> result = new DeferredResult<>(timeoutMs);
+        while (true) {
+            Channel channel = channels.computeIfAbsent(driverId, id -> new Channel());
+            synchronized (channel) {
+                if (channel.closed) {
+                    continue;
+                }
+                load(driverId, channel);
+                channel.lastActive = clock.millis();
+                List<Frame> missed = resumeToken != null ? missed(driverId, channel, resumeToken) : List.of();
+                AssignmentChanges immediate = changes(channel, missed);
+                if (resumeToken != null && !immediate.isReset() && immediate.getChanges().isEmpty()) {
+                    channel.waiters.add(result);
+                    result.onTimeout(() -> result.setResult(immediate));
+                    result.onCompletion(() -> {
+                        synchronized (channel) {
+                            channel.waiters.remove(result);
+                            channel.lastActive = clock.millis();
+                        }
+                    });
+                    return result;
+                }
+                result.setResult(immediate);
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Pings open sessions so idle connections are not dropped by proxies and dead ones are
+     * noticed, and forgets drivers that have been gone for longer than the retention time.
+     */
+    @Scheduled(fixedDelayString = "${driver.push.ping-interval-ms:30000}")
+    public void maintain() {
+        long expiry = clock.millis() - retentionMs;
+        for (Map.Entry<Long, Channel> entry : channels.entrySet()) {
+            Channel channel = entry.getValue();
+            synchronized (channel) {
+                for (WebSocketSession session : channel.sessions) {
+                    send(channel, session, PING);
+                }
+                if (channel.sessions.length == 0 && channel.waiters.isEmpty() && channel.lastActive < expiry) {
+                    channel.closed = true;
+                    channels.remove(entry.getKey(), channel);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of open WebSocket sessions.
+     *
+     * @return the session count
+     */
+    public int sessionCount() {
+        int count = 0;
+        for (Channel channel : channels.values()) {
+            synchronized (channel) {
+                count += channel.sessions.length;
+            }
+        }
+        return count;
+    }
+
+    private void load(Long driverId, Channel channel) {
+        if (channel.epoch == null) {
+            Change head = feed.head(driverId);
+            channel.epoch = head.epoch();
+            channel.sequence = head.sequence();
+        }
+    }
+
+    private AssignmentChanges changes(Channel channel, List<Frame> missed) {
+        List<AssignmentDelta> deltas = new ArrayList<>();
+        if (missed != null) {
+            missed.forEach(frame -> deltas.add(frame.delta));
+        }
+        return AssignmentChanges.builder()
+                .resumeToken(channel.token(channel.sequence))
+                .reset(missed == null)
+                .changes(deltas)
+                .build();
+    }
+
+    // Changes after a token up to the channel's sequence, or null if the device must reset.
+    // Tokens are epoch:sequence; a token from another epoch resumes nothing
+    private List<Frame> missed(Long driverId, Channel channel, String token) {
+        String[] parts = token.split(":");
+        long afterSequence;
+        try {
+            afterSequence = parts.length == 2 && parts[0].equals(channel.epoch) ? Long.parseLong(parts[1], 36) : -1;
+        } catch (NumberFormatException e) {
+            afterSequence = -1;
+        }
+        if (afterSequence < 0 || afterSequence > channel.sequence) {
+            return null;
+        }
+        if (afterSequence == channel.sequence) {
+            return List.of();
+        }
+        List<Change> retained;
+        try {
+            retained = feed.since(driverId, channel.epoch, afterSequence);
+        } catch (RuntimeException e) {
+            logger.warn("Cannot read missed assignment changes of driver ID: {}: {}", driverId, e.getMessage());
+            return null;
+        }
+        if (retained == null) {
+            return null;
+        }
+        List<Frame> missed = new ArrayList<>();
+        for (Change change : retained) {
+            // Later changes are still on their way to this node and are sent when they arrive
+            if (change.sequence() <= channel.sequence) {
+                missed.add(new Frame(change.sequence(), delta(change.json())));
+            }
+        }
+        return missed.size() == channel.sequence - afterSequence ? missed : null;
+    }
+
+    private void send(Channel channel, WebSocketSession session, WebSocketMessage<?> message) {
+        try {
+            session.sendMessage(message);
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Dropping assignment push session {}: {}", session.getId(), e.getMessage());
+            close(channel, session, CloseStatus.SESSION_NOT_RELIABLE);
+        }
+    }
+
+    private void close(Channel channel, WebSocketSession session, CloseStatus status) {
+        remove(channel, session);
+        try {
+            session.close(status);
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Cannot close assignment push session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    private static void remove(Channel channel, WebSocketSession session) {
+        WebSocketSession[] sessions = channel.sessions;
+        for (int i = 0; i < sessions.length; i++) {
+            if (sessions[i] == session) {
+                WebSocketSession[] kept = sessions.length == 1 ? NO_SESSIONS : new WebSocketSession[sessions.length - 1];
+                System.arraycopy(sessions, 0, kept, 0, i);
+                System.arraycopy(sessions, i + 1, kept, i, sessions.length - i - 1);
+                channel.sessions = kept;
+                return;
+            }
+        }
+    }
+
+    private static WebSocketSession delegate(WebSocketSession session) {
+        return session instanceof ConcurrentWebSocketSessionDecorator decorator ? decorator.getDelegate() : session;
+    }
+
+    private static Map<String, Object> message(String type, String resumeToken, AssignmentDelta change) {
+        Map<String, Object> message = new LinkedHashMap<>(4);
+        message.put("type", type);
+        message.put("resumeToken", resumeToken);
+        if (change != null) {
+            message.put("change", change);
+        }
+        return message;
+    }
+
+    private AssignmentDelta delta(String json) {
+        try {
+            return objectMapper.readValue(json, AssignmentDelta.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read assignment change", e);
+        }
+    }
+
+    private String json(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize assignment push message", e);
+        }
+    }
+
+    private record Frame(long sequence, AssignmentDelta delta) {
+    }
+
+    private record Completion(DeferredResult<AssignmentChanges> result, AssignmentChanges changes) {
+    }
+
+    private static final class Channel {
+
+        private WebSocketSession[] sessions = NO_SESSIONS;
+        private final List<DeferredResult<AssignmentChanges>> waiters = new ArrayList<>(1);
+        // The feed's epoch and latest sequence of the driver, loaded when the channel is opened
+        private String epoch;
+        private long sequence;
+        private long lastActive;
+        private boolean closed;
+
+        private String token(long at) {
+            return epoch + ":" + Long.toString(at, 36);
+        }
+    }
+}
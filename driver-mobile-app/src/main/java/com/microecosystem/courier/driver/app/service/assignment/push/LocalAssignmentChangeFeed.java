@@ -0,0 +1,110 @@
+package com.microecosystem.courier.driver.app.service.assignment.push;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Assignment change feed held in memory, for running a single node and testing without Redis.
+ * Changes are delivered to listeners on the appending thread.
+ */
+@Component
+@ConditionalOnProperty(name = "driver.push.feed", havingValue = "local")
+public class LocalAssignmentChangeFeed implements AssignmentChangeFeed {
+
+    private final Clock clock;
+    private final Map<Long, DriverLog> logs = new HashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    @Value("${driver.push.buffer-size:32}")
+    private int bufferSize = 32;
+
+    @Value("${driver.push.retention-ms:600000}")
+    private long retentionMs = 600000;
+
+    @Autowired
+    public LocalAssignmentChangeFeed() {
+        this(Clock.systemUTC());
+    }
+
+    LocalAssignmentChangeFeed(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public synchronized void append(Long driverId, String json) {
+        DriverLog log = current(driverId);
+        Change change = new Change(log.epoch, ++log.sequence, json);
+        log.changes.addLast(change);
+        if (log.changes.size() > bufferSize) {
+            log.changes.removeFirst();
+        }
+        // Delivered while appending, so listeners see each driver's changes in order
+        listeners.forEach(listener -> listener.onChange(driverId, change));
+    }
+
+    @Override
+    public synchronized Change head(Long driverId) {
+        long now = clock.millis();
+        logs.values().removeIf(log -> now - log.touchedAt >= retentionMs);
+        DriverLog log = current(driverId);
+        return new Change(log.epoch, log.sequence, null);
+    }
+
+    @Override
+    public synchronized List<Change> since(Long driverId, String epoch, long afterSequence) {
+        DriverLog log = logs.get(driverId);
+        if (log == null || clock.millis() - log.touchedAt >= retentionMs || !log.epoch.equals(epoch)) {
+            return null;
+        }
+        List<Change> changes = new ArrayList<>();
+        for (Change change : log.changes) {
+            if (change.sequence() > afterSequence) {
+                changes.add(change);
+            }
+        }
+        if (!changes.isEmpty() && changes.get(0).sequence() != afterSequence + 1) {
+            return null;
+        }
+        return changes;
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    private DriverLog current(Long driverId) {
+        long now = clock.millis();
+        DriverLog log = logs.get(driverId);
+        if (log == null || now - log.touchedAt >= retentionMs) {
+            log = new DriverLog(Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36));
+            logs.put(driverId, log);
+        }
+        log.touchedAt = now;
+        return log;
+    }
+
+    private static final class DriverLog {
+
+        private final String epoch;
+        private final Deque<Change> changes = new ArrayDeque<>();
+        private long sequence;
+        private long touchedAt;
+
+        private DriverLog(String epoch) {
+            this.epoch = epoch;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.microecosystem.courier.driver.app.service.assignment.push;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps the assignment change feed in Redis and fans changes out to all nodes over pub/sub.
+ * <p>
+ * Each driver has a hash holding the epoch and latest sequence and a capped list of the latest
+ * changes, both expiring after the retention time without changes or connects. A change is
+ * numbered, stored and published in one script, so every node receives a driver's changes in
+ * sequence order.
+ */
+@Component
+@ConditionalOnProperty(name = "driver.push.feed", havingValue = "redis", matchIfMissing = true)
+public class RedisAssignmentChangeFeed implements AssignmentChangeFeed {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisAssignmentChangeFeed.class);
+
+    private static final String KEY_PREFIX = "assignment-push:";
+    private static final String CHANNEL = "assignment-push:changes";
+
+    // KEYS: head, changes; ARGV: epoch if none exists, change, buffer size, retention in millis,
+    //       channel, driver ID
+    private static final RedisScript<Long> APPEND_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('HSETNX', KEYS[1], 'epoch', ARGV[1])\n"
+                    + "local epoch = redis.call('HGET', KEYS[1], 'epoch')\n"
+                    + "local sequence = redis.call('HINCRBY', KEYS[1], 'sequence', 1)\n"
+                    + "redis.call('RPUSH', KEYS[2], sequence .. ':' .. ARGV[2])\n"
+                    + "redis.call('LTRIM', KEYS[2], -tonumber(ARGV[3]), -1)\n"
+                    + "redis.call('PEXPIRE', KEYS[1], ARGV[4])\n"
+                    + "redis.call('PEXPIRE', KEYS[2], ARGV[4])\n"
+                    + "redis.call('PUBLISH', ARGV[5], ARGV[6] .. ':' .. epoch .. ':' .. sequence .. ':' .. ARGV[2])\n"
+                    + "return sequence\n",
+            Long.class);
+
+    // KEYS: head, changes; ARGV: epoch if none exists, retention in millis
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final RedisScript<List> HEAD_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('HSETNX', KEYS[1], 'epoch', ARGV[1])\n"
+                    + "redis.call('PEXPIRE', KEYS[1], ARGV[2])\n"
+                    + "redis.call('PEXPIRE', KEYS[2], ARGV[2])\n"
+                    + "return redis.call('HMGET', KEYS[1], 'epoch', 'sequence')\n",
+            List.class);
+
+    // KEYS: head, changes; ARGV: epoch
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final RedisScript<List> SINCE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HGET', KEYS[1], 'epoch') ~= ARGV[1] then\n"
+                    + "  return nil\n"
+                    + "end\n"
+                    + "return redis.call('LRANGE', KEYS[2], 0, -1)\n",
+            List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+
+    @Value("${driver.push.buffer-size:32}")
+    private int bufferSize = 32;
+
+    @Value("${driver.push.retention-ms:600000}")
+    private long retentionMs = 600000;
+
+    public RedisAssignmentChangeFeed(StringRedisTemplate redisTemplate,
+                                     RedisMessageListenerContainer assignmentPushListenerContainer) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = assignmentPushListenerContainer;
+    }
+
+    @Override
+    public void append(Long driverId, String json) {
+        redisTemplate.execute(APPEND_SCRIPT, keys(driverId), newEpoch(), json, String.valueOf(bufferSize),
+                String.valueOf(retentionMs), CHANNEL, String.valueOf(driverId));
+    }
+
+    @Override
+    public Change head(Long driverId) {
+        List<?> head = redisTemplate.execute(HEAD_SCRIPT, keys(driverId), newEpoch(), String.valueOf(retentionMs));
+        Object sequence = head.get(1);
+        return new Change((String) head.get(0), sequence != null ? Long.parseLong((String) sequence) : 0, null);
+    }
+
+    @Override
+    public List<Change> since(Long driverId, String epoch, long afterSequence) {
+        List<?> stored = redisTemplate.execute(SINCE_SCRIPT, keys(driverId), epoch);
+        if (stored == null) {
+            return null;
+        }
+        List<Change> changes = new ArrayList<>();
+        for (Object entry : stored) {
+            String value = (String) entry;
+            int separator = value.indexOf(':');
+            long sequence = Long.parseLong(value.substring(0, separator));
+            if (sequence > afterSequence) {
+                changes.add(new Change(epoch, sequence, value.substring(separator + 1)));
+            }
+        }
+        // The change right after the sequence must still be there
+        if (!changes.isEmpty() && changes.get(0).sequence() != afterSequence + 1) {
+            return null;
+        }
+        return changes;
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listenerContainer.addMessageListener((message, pattern) -> {
+            // driver:epoch:sequence:change
+            String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split(":", 4);
+            try {
+                listener.onChange(Long.valueOf(parts[0]), new Change(parts[1], Long.parseLong(parts[2]), parts[3]));
+            } catch (RuntimeException e) {
+                logger.warn("Cannot deliver assignment change message: {}", e.getMessage());
+            }
+        }, new ChannelTopic(CHANNEL));
+    }
+
+    private static List<String> keys(Long driverId) {
+        // Hash tag keeps both keys in one cluster slot
+        String head = KEY_PREFIX + "{" + driverId + "}";
+        return List.of(head, head + ":changes");
+    }
+
+    private static String newEpoch() {
+        return Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    }
+}
@@ -0,0 +1,164 @@
+package com.microecosystem.courier.driver.app.service.bundle;
+
+import com.microecosystem.courier.driver.app.dto.assignment.AssignmentDelta;
+import com.microecosystem.courier.driver.app.dto.bundle.AreaBundle;
+import com.microecosystem.courier.driver.app.dto.bundle.BundleBranch;
+import com.microecosystem.courier.driver.app.dto.bundle.BundleRoute;
+import com.microecosystem.courier.driver.app.dto.bundle.BundleStop;
+import com.microecosystem.courier.driver.app.model.GeofenceDefinition;
+import com.microecosystem.courier.driver.app.model.GeofenceType;
+import com.microecosystem.courier.driver.app.model.assignment.Assignment;
+import com.microecosystem.courier.driver.app.model.assignment.Task;
+import com.microecosystem.courier.driver.app.model.assignment.TaskStatus;
+import com.microecosystem.courier.driver.app.repository.AssignmentRepository;
+import com.microecosystem.courier.driver.app.repository.GeofenceDefinitionRepository;
+import com.microecosystem.courier.driver.app.repository.TaskRepository;
+import com.microecosystem.courier.driver.app.service.location.GeoDistance;
+import com.microecosystem.courier.driver.app.service.navigation.NavigationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assembles the contents of a driver's area bundle: active assignments, all their stops,
+ * routes between consecutive upcoming stops and branches or depots near any stop. Routes come
+ * through the {@link NavigationService}, so those already prefetched are not computed again;
+ * they are added after the read-only transaction that loads the rest, so a slow directions
+ * call holds no database connection.
+ */
+@Component
+@Slf4j
+public class AreaBundleBuilder {
+
+    private static final EnumSet<TaskStatus> UPCOMING_TASK_STATUSES =
+            EnumSet.of(TaskStatus.PENDING, TaskStatus.IN_PROGRESS, TaskStatus.ARRIVED);
+    private static final EnumSet<GeofenceType> BRANCH_TYPES = EnumSet.of(GeofenceType.BRANCH, GeofenceType.DEPOT);
+    private static final Comparator<Task> VISITING_ORDER = Comparator
+            .comparing(Task::getSequenceNumber, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Task::getId);
+
+    private final AssignmentRepository assignmentRepository;
+    private final TaskRepository taskRepository;
+    private final GeofenceDefinitionRepository definitionRepository;
+    private final NavigationService navigationService;
+
+    @Value("${driver.bundle.branch-radius-km:5}")
+    private double branchRadiusKm = 5;
+
+    public AreaBundleBuilder(AssignmentRepository assignmentRepository, TaskRepository taskRepository,
+                             GeofenceDefinitionRepository definitionRepository, NavigationService navigationService) {
+        this.assignmentRepository = assignmentRepository;
+        this.taskRepository = taskRepository;
+        this.definitionRepository = definitionRepository;
+        this.navigationService = navigationService;
+    }
+
+    /**
+     * Builds the full contents of a driver's bundle, with routes still lacking directions.
+     * Version fields are left for the caller.
+     *
+     * @param driverId the driver ID
+     * @return the bundle, with no assignments if the driver has no active ones
+     * @see #addDirections(AreaBundle)
+     */
+    @Transactional(readOnly = true)
+    public AreaBundle build(Long driverId) {
+        List<AssignmentDelta> assignments = new ArrayList<>();
+        List<BundleStop> stops = new ArrayList<>();
+        List<BundleRoute> routes = new ArrayList<>();
+        List<Task> located = new ArrayList<>();
+        for (Assignment assignment : assignmentRepository.findActiveAssignmentsByDriverId(driverId)) {
+            assignments.add(AssignmentDelta.of(assignment));
+            List<Task> tasks = taskRepository.findByAssignmentId(assignment.getId());
+            List<Task> upcoming = new ArrayList<>();
+            for (Task task : tasks) {
+                stops.add(BundleStop.of(task));
+                if (task.getLatitude() != null && task.getLongitude() != null) {
+                    located.add(task);
+                    if (UPCOMING_TASK_STATUSES.contains(task.getStatus())) {
+                        upcoming.add(task);
+                    }
+                }
+            }
+            upcoming.sort(VISITING_ORDER);
+            for (int i = 1; i < upcoming.size(); i++) {
+                routes.add(BundleRoute.builder()
+                        .fromTaskId(upcoming.get(i - 1).getId())
+                        .toTaskId(upcoming.get(i).getId())
+                        .build());
+            }
+        }
+
+        return AreaBundle.builder()
+                .driverId(driverId)
+                .full(true)
+                .assignments(assignments)
+                .stops(stops)
+                .routes(routes)
+                .branches(located.isEmpty() ? new ArrayList<>() : branchesNear(located))
+                .removed(List.of())
+                .build();
+    }
+
+    /**
+     * Fills in the directions of a built bundle's routes. Runs outside any transaction.
+     *
+     * @param bundle the bundle from {@link #build(Long)}
+     */
+    public void addDirections(AreaBundle bundle) {
+        Map<Long, BundleStop> stops = new HashMap<>();
+        bundle.getStops().forEach(stop -> stops.put(stop.getTaskId(), stop));
+        for (BundleRoute route : bundle.getRoutes()) {
+            BundleStop from = stops.get(route.getFromTaskId());
+            BundleStop to = stops.get(route.getToTaskId());
+            route.setDirections(navigationService.getDirections(
+                    from.getLatitude().doubleValue(), from.getLongitude().doubleValue(),
+                    to.getLatitude().doubleValue(), to.getLongitude().doubleValue()));
+        }
+    }
+
+    private List<BundleBranch> branchesNear(List<Task> stops) {
+        double radiusMeters = branchRadiusKm * 1000;
+        List<BundleBranch> branches = new ArrayList<>();
+        for (GeofenceDefinition definition : definitionRepository.findAll()) {
+            double[] center = center(definition);
+            if (!BRANCH_TYPES.contains(definition.getType()) || center == null) {
+                continue;
+            }
+            for (Task stop : stops) {
+                if (GeoDistance.meters(center[0], center[1], stop.getLatitude().doubleValue(),
+                        stop.getLongitude().doubleValue()) <= radiusMeters) {
+                    branches.add(BundleBranch.of(definition));
+                    break;
+                }
+            }
+        }
+        return branches;
+    }
+
+    // The center of a circular fence, or the first vertex of a polygon
+    private static double[] center(GeofenceDefinition definition) {
+        if (definition.getLatitude() != null && definition.getLongitude() != null) {
+            return new double[]{definition.getLatitude().doubleValue(), definition.getLongitude().doubleValue()};
+        }
+        String vertices = definition.getVertices();
+        if (vertices == null || vertices.isBlank()) {
+            return null;
+        }
+        String[] first = vertices.split(";")[0].split(",");
+        try {
+            return new double[]{Double.parseDouble(first[0].trim()), Double.parseDouble(first[1].trim())};
+        } catch (RuntimeException e) {
+            log.warn("Skipping geofence ID: {} with malformed vertices", definition.getId());
+            return null;
+        }
+    }
+}
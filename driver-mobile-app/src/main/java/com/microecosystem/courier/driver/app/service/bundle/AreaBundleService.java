@@ -0,0 +1,425 @@
+package com.microecosystem.courier.driver.app.service.bundle;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microecosystem.courier.driver.app.dto.assignment.AssignmentDelta;
+import com.microecosystem.courier.driver.app.dto.bundle.AreaBundle;
+import com.microecosystem.courier.driver.app.dto.bundle.BundleBranch;
+import com.microecosystem.courier.driver.app.dto.bundle.BundleRoute;
+import com.microecosystem.courier.driver.app.dto.bundle.BundleStop;
+import com.microecosystem.courier.driver.app.exception.BundleNotReadyException;
+import com.microecosystem.courier.driver.app.model.assignment.AssignmentStatus;
+import com.microecosystem.courier.driver.app.service.assignment.AssignmentChangedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps a versioned offline bundle for every driver on shift, so the app can work through
+ * dead spots from what it downloaded instead of asking the backend at each stop.
+ * <p>
+ * A bundle is built on the service's own background threads when one of a driver's
+ * assignments becomes active, and is rebuilt shortly after any further assignment change,
+ * coalescing bursts, and periodically to pick up task, branch and traffic changes. A request
+ * never builds: one arriving before the first build finishes is told to retry. Versions are
+ * derived from the content, so every instance gives the same bundle the same version and a
+ * rebuild with the same content keeps it. The full bundle is stored gzip-compressed and
+ * served as is; devices holding an older version download a delta of the entries whose
+ * content digest changed, as long as that version is among the last few kept. Bundles are
+ * dropped once the driver has no active assignments, and an assignment moved to another
+ * driver is taken out of the previous driver's bundle.
+ */
+@Service
+@Slf4j
+public class AreaBundleService {
+
+    private static final EnumSet<AssignmentStatus> ACTIVE_ASSIGNMENT_STATUSES =
+            EnumSet.of(AssignmentStatus.ACCEPTED, AssignmentStatus.STARTED, AssignmentStatus.IN_PROGRESS);
+
+    private final AreaBundleBuilder builder;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+
+    private final Map<Long, DriverBundles> bundles = new ConcurrentHashMap<>();
+    // Drivers last found without active assignments, with when
+    private final Map<Long, Long> withoutBundle = new ConcurrentHashMap<>();
+    // The driver whose bundle holds each assignment, to notice reassignments
+    private final Map<Long, Long> bundledAssignments = new ConcurrentHashMap<>();
+    private final Set<Long> stale = ConcurrentHashMap.newKeySet();
+    private final Set<Long> building = ConcurrentHashMap.newKeySet();
+    private Executor executor;
+    private ExecutorService ownExecutor;
+
+    @Value("${driver.bundle.versions-kept:8}")
+    private int versionsKept = 8;
+
+    @Value("${driver.bundle.threads:2}")
+    private int threads = 2;
+
+    @Value("${driver.bundle.refresh-interval-ms:300000}")
+    private long refreshIntervalMs = 300000;
+
+    @Autowired
+    public AreaBundleService(AreaBundleBuilder builder, ObjectMapper objectMapper) {
+        this(builder, objectMapper, Clock.systemUTC(), null);
+    }
+
+    AreaBundleService(AreaBundleBuilder builder, ObjectMapper objectMapper, Clock clock, Executor executor) {
+        this.builder = builder;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        this.executor = executor;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (executor == null) {
+            ownExecutor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("AreaBundleBuilder-"));
+            executor = ownExecutor;
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ownExecutor != null) {
+            ownExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * A built bundle version.
+     */
+    public static final class Snapshot {
+
+        private final AreaBundle bundle;
+        private final Map<String, String> digests;
+        private final byte[] compressed;
+
+        private Snapshot(AreaBundle bundle, Map<String, String> digests, byte[] compressed) {
+            this.bundle = bundle;
+            this.digests = digests;
+            this.compressed = compressed;
+        }
+
+        public long getVersion() {
+            return bundle.getVersion();
+        }
+
+        public AreaBundle getBundle() {
+            return bundle;
+        }
+
+        /**
+         * Gets the full bundle as gzip-compressed JSON.
+         *
+         * @return the compressed bundle; not to be modified
+         */
+        public byte[] getCompressed() {
+            return compressed;
+        }
+    }
+
+    /**
+     * Schedules a rebuild of the driver's bundle when an assignment starts a shift or changes
+     * during one.
+     *
+     * @param event the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAssignmentChanged(AssignmentChangedEvent event) {
+        AssignmentDelta delta = event.getDelta();
+        Long holder = delta.getAssignmentId() != null ? bundledAssignments.get(delta.getAssignmentId()) : null;
+        if (holder != null && !holder.equals(event.getDriverId())) {
+            // Reassigned; the previous driver's bundle still holds it
+            stale.add(holder);
+        }
+        if (event.getDriverId() != null && (bundles.containsKey(event.getDriverId())
+                || (!delta.isDeleted() && ACTIVE_ASSIGNMENT_STATUSES.contains(delta.getStatus())))) {
+            withoutBundle.remove(event.getDriverId());
+            stale.add(event.getDriverId());
+        }
+    }
+
+    /**
+     * Hands the bundles of drivers whose assignments changed since the last run to the build
+     * threads.
+     */
+    @Scheduled(fixedDelayString = "${driver.bundle.rebuild-delay-ms:5000}")
+    public void rebuildStale() {
+        for (Long driverId : stale) {
+            stale.remove(driverId);
+            if (!submit(driverId)) {
+                // A build already under way may have read the data before the change
+                stale.add(driverId);
+            }
+        }
+    }
+
+    /**
+     * Marks every held bundle for a rebuild, picking up changes that publish no event.
+     */
+    @Scheduled(fixedDelayString = "${driver.bundle.refresh-interval-ms:300000}")
+    public void refresh() {
+        long now = clock.millis();
+        withoutBundle.values().removeIf(checkedAt -> now - checkedAt >= refreshIntervalMs);
+        stale.addAll(bundles.keySet());
+    }
+
+    /**
+     * Gets the driver's current bundle, starting a build in the background if there is none
+     * yet.
+     *
+     * @param driverId the driver ID
+     * @return the bundle, or null if the driver has no active assignments
+     * @throws BundleNotReadyException if the first bundle is still being built
+     */
+    public Snapshot current(Long driverId) {
+        Snapshot current = held(driverId);
+        if (current != null || hasNoAssignments(driverId)) {
+            return current;
+        }
+        submit(driverId);
+        // The executor may have run the build on this thread
+        current = held(driverId);
+        if (current != null || hasNoAssignments(driverId)) {
+            return current;
+        }
+        throw new BundleNotReadyException("Area bundle of driver ID: " + driverId + " is being built");
+    }
+
+    /**
+     * Gets what changed in the driver's bundle since a version the device holds.
+     *
+     * @param driverId the driver ID
+     * @param since the version the device holds
+     * @return a delta bundle, the full bundle if the version is no longer known, or null if
+     *         the driver has no active assignments
+     * @throws BundleNotReadyException if the first bundle is still being built
+     */
+    public AreaBundle changesSince(Long driverId, long since) {
+        Snapshot current = current(driverId);
+        if (current == null) {
+            return null;
+        }
+        DriverBundles held = bundles.get(driverId);
+        Map<String, String> base = null;
+        if (held != null) {
+            synchronized (held) {
+                base = held.history.get(since);
+            }
+        }
+        if (base == null) {
+            return current.bundle;
+        }
+
+        AreaBundle bundle = current.bundle;
+        List<String> removed = new ArrayList<>();
+        for (String key : base.keySet()) {
+            if (!current.digests.containsKey(key)) {
+                removed.add(key);
+            }
+        }
+        return AreaBundle.builder()
+                .driverId(driverId)
+                .version(bundle.getVersion())
+                .baseVersion(since)
+                .full(false)
+                .generatedAt(bundle.getGeneratedAt())
+                .assignments(changed(bundle.getAssignments(), AreaBundleService::key, base, current.digests))
+                .stops(changed(bundle.getStops(), AreaBundleService::key, base, current.digests))
+                .routes(changed(bundle.getRoutes(), AreaBundleService::key, base, current.digests))
+                .branches(changed(bundle.getBranches(), AreaBundleService::key, base, current.digests))
+                .removed(removed)
+                .build();
+    }
+
+    /**
+     * Gets the number of drivers holding a bundle.
+     *
+     * @return the driver count
+     */
+    public int size() {
+        return bundles.size();
+    }
+
+    private Snapshot held(Long driverId) {
+        DriverBundles held = bundles.get(driverId);
+        return held != null ? held.current : null;
+    }
+
+    private boolean hasNoAssignments(Long driverId) {
+        Long checkedAt = withoutBundle.get(driverId);
+        return checkedAt != null && clock.millis() - checkedAt < refreshIntervalMs;
+    }
+
+    // Runs at most one build per driver at a time
+    private boolean submit(Long driverId) {
+        if (!building.add(driverId)) {
+            return false;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    rebuild(driverId);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to build area bundle for driver ID: {}: {}", driverId, e.getMessage());
+                } finally {
+                    building.remove(driverId);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            building.remove(driverId);
+            return false;
+        }
+    }
+
+    private void rebuild(Long driverId) {
+        AreaBundle bundle = builder.build(driverId);
+        if (bundle.getAssignments().isEmpty()) {
+            DriverBundles dropped = bundles.remove(driverId);
+            if (dropped != null && dropped.current != null) {
+                reindex(driverId, dropped.current.bundle, null);
+            }
+            withoutBundle.put(driverId, clock.millis());
+            log.debug("Dropped area bundle of driver ID: {} without active assignments", driverId);
+            return;
+        }
+        builder.addDirections(bundle);
+
+        Map<String, String> digests = digests(bundle);
+        long version = version(digests);
+        DriverBundles held = bundles.computeIfAbsent(driverId, id -> new DriverBundles());
+        withoutBundle.remove(driverId);
+        Snapshot previous = held.current;
+        reindex(driverId, previous != null ? previous.bundle : null, bundle);
+        if (previous != null && previous.getVersion() == version) {
+            return;
+        }
+        bundle.setVersion(version);
+        bundle.setGeneratedAt(LocalDateTime.now(clock));
+        Snapshot snapshot = new Snapshot(bundle, digests, compress(bundle));
+        synchronized (held) {
+            // Content that returns to an earlier version becomes the newest again
+            held.history.remove(version);
+            held.history.put(version, digests);
+            while (held.history.size() > versionsKept) {
+                held.history.remove(held.history.keySet().iterator().next());
+            }
+            held.current = snapshot;
+        }
+        log.debug("Built area bundle version {} for driver ID: {} ({} stops, {} routes, {} branches, {} bytes)",
+                version, driverId, bundle.getStops().size(), bundle.getRoutes().size(),
+                bundle.getBranches().size(), snapshot.compressed.length);
+    }
+
+    private void reindex(Long driverId, AreaBundle previous, AreaBundle current) {
+        if (previous != null) {
+            previous.getAssignments().forEach(assignment ->
+                    bundledAssignments.remove(assignment.getAssignmentId(), driverId));
+        }
+        if (current != null) {
+            current.getAssignments().forEach(assignment ->
+                    bundledAssignments.put(assignment.getAssignmentId(), driverId));
+        }
+    }
+
+    // Derived from the entry digests alone, in key order, so any instance arrives at the same version
+    private static long version(Map<String, String> digests) {
+        StringBuilder content = new StringBuilder();
+        new TreeMap<>(digests).forEach((key, digest) -> content.append(key).append('=').append(digest).append('\n'));
+        byte[] hash = DigestUtils.md5Digest(content.toString().getBytes(StandardCharsets.UTF_8));
+        return ByteBuffer.wrap(hash).getLong() & Long.MAX_VALUE;
+    }
+
+    private Map<String, String> digests(AreaBundle bundle) {
+        Map<String, String> digests = new LinkedHashMap<>();
+        bundle.getAssignments().forEach(entry -> digests.put(key(entry), digest(entry)));
+        bundle.getStops().forEach(entry -> digests.put(key(entry), digest(entry)));
+        bundle.getRoutes().forEach(entry -> digests.put(key(entry), digest(entry)));
+        bundle.getBranches().forEach(entry -> digests.put(key(entry), digest(entry)));
+        return digests;
+    }
+
+    private String digest(Object entry) {
+        try {
+            return DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(entry));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize area bundle entry " + entry, e);
+        }
+    }
+
+    private byte[] compress(AreaBundle bundle) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            objectMapper.writeValue(gzip, bundle);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot compress area bundle of driver ID: " + bundle.getDriverId(), e);
+        }
+        return out.toByteArray();
+    }
+
+    private static <T> List<T> changed(List<T> entries, Function<T, String> key, Map<String, String> base,
+                                       Map<String, String> digests) {
+        List<T> changed = new ArrayList<>();
+        for (T entry : entries) {
+            String entryKey = key.apply(entry);
+            if (!digests.get(entryKey).equals(base.get(entryKey))) {
+                changed.add(entry);
+            }
+        }
+        return changed;
+    }
+
+    private static String key(AssignmentDelta assignment) {
+        return "assignment:" + assignment.getAssignmentId();
+    }
+
+    private static String key(BundleStop stop) {
+        return "stop:" + stop.getTaskId();
+    }
+
+    private static String key(BundleRoute route) {
+        return "route:" + route.getFromTaskId() + "-" + route.getToTaskId();
+    }
+
+    private static String key(BundleBranch branch) {
+        return "branch:" + branch.getId();
+    }
+
+    private static final class DriverBundles {
+
+        private volatile Snapshot current;
+        // Entry digests of recent versions, oldest first
+        private final LinkedHashMap<Long, Map<String, String>> history = new LinkedHashMap<>();
+    }
+}
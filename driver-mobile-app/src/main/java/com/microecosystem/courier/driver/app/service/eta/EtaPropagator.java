@@ -0,0 +1,404 @@
+package com.microecosystem.courier.driver.app.service.eta;
+
+import com.microecosystem.courier.driver.app.model.assignment.TaskStatus;
+import com.microecosystem.courier.driver.app.repository.TaskRepository;
+import com.microecosystem.courier.driver.app.service.assignment.ActiveStops;
+import com.microecosystem.courier.driver.app.service.assignment.TaskStatusChangedEvent;
+import com.microecosystem.courier.driver.app.service.location.GeoDistance;
+import com.microecosystem.courier.driver.app.service.navigation.NavigationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the estimated arrival times of every active driver's remaining stops current between
+ * route calculations.
+ * <p>
+ * Each driver's remaining stops are held in visiting order with the duration of the leg into
+ * each, taken once from the navigation service when the plan is rebuilt in the background from
+ * {@link ActiveStops}.
+ * A location update scales the leg the driver is on by the straight-line distance left and
+ * adds the cached legs and service times behind it, so it costs O(remaining stops) on the
+ * calling thread with no query or route request. Arrivals and completions move the plan on
+ * in the same way. An estimate is published in a {@link StopEtasChangedEvent}, and queued to
+ * be stored on its task, only once it has moved by more than the threshold since it was last
+ * published.
+ */
+@Component
+@Slf4j
+public class EtaPropagator {
+
+    private static final long NONE = Long.MIN_VALUE;
+
+    private static final EnumSet<TaskStatus> FINISHED_TASK_STATUSES = EnumSet.of(TaskStatus.COMPLETED,
+            TaskStatus.FAILED, TaskStatus.SKIPPED, TaskStatus.CANCELLED, TaskStatus.RESCHEDULED);
+
+    private final ActiveStops activeStops;
+    private final TaskRepository taskRepository;
+    private final NavigationService navigationService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Clock clock;
+
+    private final Map<Long, Plan> plans = new ConcurrentHashMap<>();
+    // Leg durations by the tasks at either end; the first leg of a plan starts at no task
+    private final Map<LegKey, Leg> legs = new ConcurrentHashMap<>();
+    private final Map<Long, LocalDateTime> unsaved = new ConcurrentHashMap<>();
+
+    @Value("${driver.eta.threshold-seconds:120}")
+    private long thresholdSeconds = 120;
+
+    @Value("${driver.eta.service-time-seconds:180}")
+    private long serviceTimeSeconds = 180;
+
+    @Value("${driver.location-policy.default-speed-mps:8.0}")
+    private double defaultSpeedMps = 8.0;
+
+    @Autowired
+    public EtaPropagator(ActiveStops activeStops, TaskRepository taskRepository, NavigationService navigationService,
+                         ApplicationEventPublisher eventPublisher) {
+        this(activeStops, taskRepository, navigationService, eventPublisher, Clock.systemDefaultZone());
+    }
+
+    EtaPropagator(ActiveStops activeStops, TaskRepository taskRepository, NavigationService navigationService,
+                  ApplicationEventPublisher eventPublisher, Clock clock) {
+        this.activeStops = activeStops;
+        this.taskRepository = taskRepository;
+        this.navigationService = navigationService;
+        this.eventPublisher = eventPublisher;
+        this.clock = clock;
+    }
+
+    /**
+     * Rebuilds each driver's plan from their remaining stops, keeping the estimates already
+     * published for stops that are still ahead and the progress along them from events the
+     * reloaded statuses may not reflect yet.
+     */
+    @Scheduled(fixedDelayString = "${driver.eta.refresh-interval-ms:30000}")
+    public void refresh() {
+        Set<Long> drivers = new HashSet<>();
+        Set<LegKey> used = new HashSet<>();
+        for (ActiveStops.DriverStops stops : activeStops.all()) {
+            Long driverId = stops.getDriverId();
+            drivers.add(driverId);
+            Plan plan = plan(stops, used);
+            Plan previous = plans.get(driverId);
+            if (previous == null) {
+                plans.put(driverId, plan);
+                continue;
+            }
+            // Swapped under the old plan's lock so no update made to it in between is lost
+            synchronized (previous) {
+                for (int i = 0; i < plan.taskIds.length; i++) {
+                    int index = previous.indexOf(plan.taskIds[i]);
+                    if (index >= 0) {
+                        plan.published[i] = previous.published[index];
+                    }
+                }
+                int next = previous.next < previous.taskIds.length ? plan.indexOf(previous.taskIds[previous.next]) : -1;
+                if (next >= 0) {
+                    plan.next = next;
+                    plan.arrivedAt = previous.arrivedAt;
+                }
+                previous.replaced = true;
+                plans.put(driverId, plan);
+            }
+        }
+        plans.keySet().retainAll(drivers);
+        legs.keySet().retainAll(used);
+        log.debug("Refreshed remaining stops of {} drivers", drivers.size());
+    }
+
+    /**
+     * Moves the estimates of a driver's remaining stops to their latest position.
+     *
+     * @param driverId the driver ID
+     * @param latitude the latitude
+     * @param longitude the longitude
+     * @param time when the driver was there
+     */
+    public void onLocation(Long driverId, double latitude, double longitude, LocalDateTime time) {
+        List<StopEta> changed;
+        while (true) {
+            Plan plan = plans.get(driverId);
+            if (plan == null) {
+                return;
+            }
+            synchronized (plan) {
+                if (plan.replaced) {
+                    // Refreshed meanwhile; the newer plan carries on from this one
+                    continue;
+                }
+                changed = move(plan, latitude, longitude, time);
+            }
+            break;
+        }
+        publish(driverId, changed);
+    }
+
+    private List<StopEta> move(Plan plan, double latitude, double longitude, LocalDateTime time) {
+        if (plan.next >= plan.taskIds.length) {
+            return List.of();
+        }
+        long now = millis(time);
+        long nextEta;
+        if (plan.arrivedAt != NONE) {
+            // At the stop; the ones after it slip once the service time runs over
+            nextEta = Math.max(plan.arrivedAt, now - serviceTimeSeconds * 1000);
+        } else {
+            double meters = GeoDistance.meters(latitude, longitude, plan.latitudes[plan.next],
+                    plan.longitudes[plan.next]);
+            nextEta = now + (long) (meters * secondsPerMeter(plan, plan.next) * 1000);
+        }
+        return propagate(plan, nextEta);
+    }
+
+    /**
+     * Moves a driver's plan on when they reach or finish a stop.
+     *
+     * @param event the change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskStatusChanged(TaskStatusChangedEvent event) {
+        if (event.getDriverId() == null) {
+            return;
+        }
+        List<StopEta> changed;
+        while (true) {
+            Plan plan = plans.get(event.getDriverId());
+            if (plan == null) {
+                return;
+            }
+            synchronized (plan) {
+                if (plan.replaced) {
+                    // Refreshed meanwhile; the newer plan carries on from this one
+                    continue;
+                }
+                changed = advance(plan, event);
+            }
+            break;
+        }
+        publish(event.getDriverId(), changed);
+    }
+
+    private List<StopEta> advance(Plan plan, TaskStatusChangedEvent event) {
+        int index = plan.indexOf(event.getTaskId());
+        if (index < 0 || index < plan.next) {
+            // Not tracked or already passed
+            return List.of();
+        }
+        long now = millis(LocalDateTime.now(clock));
+        if (event.getStatus() == TaskStatus.ARRIVED) {
+            plan.next = index;
+            plan.arrivedAt = now;
+            return propagate(plan, now);
+        }
+        if (FINISHED_TASK_STATUSES.contains(event.getStatus())) {
+            // The driver sets off from the finished stop along the cached leg to the next
+            plan.next = index + 1;
+            plan.arrivedAt = NONE;
+            if (plan.next >= plan.taskIds.length) {
+                return List.of();
+            }
+            return propagate(plan, now + (long) (plan.legSeconds[plan.next] * 1000));
+        }
+        return List.of();
+    }
+
+    /**
+     * Stores the estimates published since the last run on their tasks.
+     */
+    @Scheduled(fixedDelayString = "${driver.eta.flush-interval-ms:10000}")
+    public void flush() {
+        int saved = 0;
+        for (Map.Entry<Long, LocalDateTime> entry : new ArrayList<>(unsaved.entrySet())) {
+            if (!unsaved.remove(entry.getKey(), entry.getValue())) {
+                // Replaced by a newer estimate, which the next run stores
+                continue;
+            }
+            try {
+                saved += taskRepository.updateEstimatedArrivalTime(entry.getKey(), entry.getValue());
+            } catch (RuntimeException e) {
+                log.warn("Failed to store estimated arrival time of task ID: {}: {}", entry.getKey(), e.getMessage());
+            }
+        }
+        if (saved > 0) {
+            log.debug("Stored {} estimated arrival times", saved);
+        }
+    }
+
+    /**
+     * Gets the number of drivers whose stops are tracked.
+     *
+     * @return the driver count
+     */
+    public int size() {
+        return plans.size();
+    }
+
+    // Called with the plan's lock held
+    private List<StopEta> propagate(Plan plan, long nextEta) {
+        long thresholdMs = thresholdSeconds * 1000;
+        long serviceMs = serviceTimeSeconds * 1000;
+        List<StopEta> changed = List.of();
+        long eta = nextEta;
+        for (int i = plan.next; i < plan.taskIds.length; i++) {
+            if (i > plan.next) {
+                eta += serviceMs + (long) (plan.legSeconds[i] * 1000);
+            } else if (plan.arrivedAt != NONE) {
+                // Already there; the arrival is no longer an estimate
+                continue;
+            }
+            long published = plan.published[i];
+            if (published == NONE || Math.abs(eta - published) > thresholdMs) {
+                if (changed.isEmpty()) {
+                    changed = new ArrayList<>(plan.taskIds.length - i);
+                }
+                changed.add(new StopEta(plan.taskIds[i], plan.assignmentIds[i], time(eta),
+                        published == NONE ? null : time(published)));
+                plan.published[i] = eta;
+            }
+        }
+        return changed;
+    }
+
+    private void publish(Long driverId, List<StopEta> changed) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        for (StopEta eta : changed) {
+            unsaved.put(eta.getTaskId(), eta.getEstimatedArrivalTime());
+        }
+        log.debug("Driver ID: {} estimated arrival times moved at {} stops", driverId, changed.size());
+        eventPublisher.publishEvent(new StopEtasChangedEvent(driverId, changed));
+    }
+
+    private Plan plan(ActiveStops.DriverStops driver, Set<LegKey> used) {
+        List<ActiveStops.Stop> stops = driver.getStops();
+        Plan plan = new Plan(stops.size());
+        ActiveStops.Stop first = stops.get(0);
+        if (first.getStatus() == TaskStatus.ARRIVED) {
+            plan.arrivedAt = first.getActualArrivalTime() != null ? millis(first.getActualArrivalTime())
+                    : millis(LocalDateTime.now(clock));
+        }
+        for (int i = 0; i < stops.size(); i++) {
+            ActiveStops.Stop stop = stops.get(i);
+            plan.taskIds[i] = stop.getTaskId();
+            plan.assignmentIds[i] = stop.getAssignmentId();
+            plan.latitudes[i] = stop.getLatitude();
+            plan.longitudes[i] = stop.getLongitude();
+            plan.published[i] = stop.getEstimatedArrivalTime() != null ? millis(stop.getEstimatedArrivalTime()) : NONE;
+
+            Leg leg;
+            if (i > 0) {
+                LegKey key = new LegKey(stops.get(i - 1).getTaskId(), stop.getTaskId());
+                used.add(key);
+                leg = leg(key, plan.latitudes[i - 1], plan.longitudes[i - 1], plan.latitudes[i], plan.longitudes[i]);
+            } else if (driver.getLatitude() != null && driver.getLongitude() != null) {
+                LegKey key = new LegKey(null, stop.getTaskId());
+                used.add(key);
+                leg = leg(key, driver.getLatitude(), driver.getLongitude(), plan.latitudes[i], plan.longitudes[i]);
+            } else {
+                leg = new Leg(0, 0);
+            }
+            plan.legSeconds[i] = leg.seconds();
+            plan.legMeters[i] = leg.meters();
+        }
+        return plan;
+    }
+
+    private Leg leg(LegKey key, double fromLat, double fromLng, double toLat, double toLng) {
+        Leg cached = legs.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        double meters = GeoDistance.meters(fromLat, fromLng, toLat, toLng);
+        try {
+            Object duration = navigationService.getDirections(fromLat, fromLng, toLat, toLng).get("duration");
+            if (duration instanceof Number seconds) {
+                Leg leg = new Leg(seconds.doubleValue(), meters);
+                legs.put(key, leg);
+                return leg;
+            }
+        } catch (RuntimeException e) {
+            log.debug("Failed to get directions for leg {}: {}", key, e.getMessage());
+        }
+        // Not cached, so the next refresh asks again
+        return new Leg(meters * GeoDistance.ROAD_FACTOR / defaultSpeedMps, meters);
+    }
+
+    // The pace of the leg into a stop, used to scale the part of it still ahead
+    private double secondsPerMeter(Plan plan, int index) {
+        if (plan.legMeters[index] >= 1 && plan.legSeconds[index] > 0) {
+            return plan.legSeconds[index] / plan.legMeters[index];
+        }
+        return GeoDistance.ROAD_FACTOR / defaultSpeedMps;
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime time(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+
+    private record LegKey(Long fromTaskId, long toTaskId) {
+    }
+
+    private record Leg(double seconds, double meters) {
+    }
+
+    /**
+     * A driver's remaining stops in visiting order. Guarded by its own monitor.
+     */
+    private static final class Plan {
+
+        private final long[] taskIds;
+        private final long[] assignmentIds;
+        private final double[] latitudes;
+        private final double[] longitudes;
+        // The leg into each stop from the one before it, or from the driver for the first
+        private final double[] legSeconds;
+        private final double[] legMeters;
+        private final long[] published;
+        private int next;
+        private long arrivedAt = NONE;
+        // Set once a refresh has put a newer plan in its place
+        private boolean replaced;
+
+        private Plan(int size) {
+            this.taskIds = new long[size];
+            this.assignmentIds = new long[size];
+            this.latitudes = new double[size];
+            this.longitudes = new double[size];
+            this.legSeconds = new double[size];
+            this.legMeters = new double[size];
+            this.published = new long[size];
+        }
+
+        private int indexOf(long taskId) {
+            for (int i = 0; i < taskIds.length; i++) {
+                if (taskIds[i] == taskId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.microecosystem.courier.driver.app.service.eta;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * The estimated arrival time of a driver at one of their remaining stops.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class StopEta {
+
+    private final Long taskId;
+    private final Long assignmentId;
+    private final LocalDateTime estimatedArrivalTime;
+    /** The estimate published before, or null if there was none */
+    private final LocalDateTime previousEstimatedArrivalTime;
+}
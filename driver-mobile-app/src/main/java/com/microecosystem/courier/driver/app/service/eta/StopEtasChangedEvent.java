@@ -0,0 +1,22 @@
+package com.microecosystem.courier.driver.app.service.eta;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Published when the estimated arrival times of some of a driver's remaining stops moved by
+ * more than the threshold. It is published on the thread handling the location update, so
+ * listeners doing I/O should be asynchronous.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class StopEtasChangedEvent {
+
+    private final Long driverId;
+    /** The changed stops in visiting order */
+    private final List<StopEta> etas;
+}
@@ -0,0 +1,173 @@
+package com.microecosystem.courier.driver.app.service.geofence;
+
+import com.microecosystem.courier.driver.app.model.GeofenceType;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * A circular or polygonal area around a delivery stop, branch or depot. Shapes are kept in
+ * meters on a plane touching the earth at the fence, which is accurate to centimeters at the
+ * size of a fence and makes a containment check a handful of multiplications.
+ */
+@ToString(of = {"id", "type", "referenceId", "driverId"})
+public final class Geofence {
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    @Getter
+    private final String id;
+    @Getter
+    private final GeofenceType type;
+    @Getter
+    private final Long referenceId;
+    @Getter
+    private final Long driverId;
+    @Getter
+    private final double minLatitude;
+    @Getter
+    private final double maxLatitude;
+    @Getter
+    private final double minLongitude;
+    @Getter
+    private final double maxLongitude;
+
+    private final double originLatitude;
+    private final double originLongitude;
+    private final double metersPerLongitudeDegree;
+    private final double radiusMeters;
+    // Polygon vertices in meters east and north of the origin; null for circles
+    private final double[] xs;
+    private final double[] ys;
+
+    private Geofence(String id, GeofenceType type, Long referenceId, Long driverId, double originLatitude,
+                     double originLongitude, double radiusMeters, double[] xs, double[] ys, double extentMeters) {
+        this.id = id;
+        this.type = type;
+        this.referenceId = referenceId;
+        this.driverId = driverId;
+        this.originLatitude = originLatitude;
+        this.originLongitude = originLongitude;
+        this.radiusMeters = radiusMeters;
+        this.xs = xs;
+        this.ys = ys;
+        this.metersPerLongitudeDegree = METERS_PER_DEGREE * Math.cos(Math.toRadians(originLatitude));
+        double latitudeSpan = extentMeters / METERS_PER_DEGREE;
+        double longitudeSpan = extentMeters / metersPerLongitudeDegree;
+        this.minLatitude = originLatitude - latitudeSpan;
+        this.maxLatitude = originLatitude + latitudeSpan;
+        this.minLongitude = originLongitude - longitudeSpan;
+        this.maxLongitude = originLongitude + longitudeSpan;
+    }
+
+    /**
+     * Creates a circular fence.
+     *
+     * @param id unique fence ID
+     * @param type what the fence surrounds
+     * @param referenceId ID of the task, branch or depot
+     * @param driverId the only driver the fence applies to, or null for all drivers
+     * @param latitude center latitude
+     * @param longitude center longitude
+     * @param radiusMeters radius in meters
+     * @return the fence
+     */
+    public static Geofence circle(String id, GeofenceType type, Long referenceId, Long driverId,
+                                  double latitude, double longitude, double radiusMeters) {
+        if (radiusMeters <= 0) {
+            throw new IllegalArgumentException("Geofence radius must be positive");
+        }
+        return new Geofence(id, type, referenceId, driverId, latitude, longitude, radiusMeters, null, null,
+                radiusMeters);
+    }
+
+    /**
+     * Creates a polygonal fence.
+     *
+     * @param id unique fence ID
+     * @param type what the fence surrounds
+     * @param referenceId ID of the task, branch or depot
+     * @param driverId the only driver the fence applies to, or null for all drivers
+     * @param vertices latitude and longitude pairs of at least three vertices, in order
+     * @return the fence
+     */
+    public static Geofence polygon(String id, GeofenceType type, Long referenceId, Long driverId,
+                                   List<double[]> vertices) {
+        if (vertices.size() < 3) {
+            throw new IllegalArgumentException("A polygon geofence needs at least three vertices");
+        }
+        double originLatitude = 0;
+        double originLongitude = 0;
+        for (double[] vertex : vertices) {
+            originLatitude += vertex[0];
+            originLongitude += vertex[1];
+        }
+        originLatitude /= vertices.size();
+        originLongitude /= vertices.size();
+
+        double metersPerLongitudeDegree = METERS_PER_DEGREE * Math.cos(Math.toRadians(originLatitude));
+        double[] xs = new double[vertices.size()];
+        double[] ys = new double[vertices.size()];
+        double extent = 0;
+        for (int i = 0; i < vertices.size(); i++) {
+            xs[i] = (vertices.get(i)[1] - originLongitude) * metersPerLongitudeDegree;
+            ys[i] = (vertices.get(i)[0] - originLatitude) * METERS_PER_DEGREE;
+            extent = Math.max(extent, Math.max(Math.abs(xs[i]), Math.abs(ys[i])));
+        }
+        return new Geofence(id, type, referenceId, driverId, originLatitude, originLongitude, 0, xs, ys, extent);
+    }
+
+    /**
+     * Whether the fence applies to a driver.
+     *
+     * @param driverId the driver ID
+     * @return true if the fence is shared or belongs to the driver
+     */
+    public boolean appliesTo(Long driverId) {
+        return this.driverId == null || this.driverId.equals(driverId);
+    }
+
+    /**
+     * Gets how far a point lies outside the fence.
+     *
+     * @param latitude the latitude
+     * @param longitude the longitude
+     * @return the distance to the fence in meters, or 0 if the point is inside
+     */
+    public double distanceOutsideMeters(double latitude, double longitude) {
+        double x = (longitude - originLongitude) * metersPerLongitudeDegree;
+        double y = (latitude - originLatitude) * METERS_PER_DEGREE;
+        if (xs == null) {
+            return Math.max(0, Math.hypot(x, y) - radiusMeters);
+        }
+        if (containsPolygon(x, y)) {
+            return 0;
+        }
+        double nearest = Double.MAX_VALUE;
+        for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+            nearest = Math.min(nearest, distanceToSegment(x, y, xs[j], ys[j], xs[i], ys[i]));
+        }
+        return nearest;
+    }
+
+    // Even-odd ray casting
+    private boolean containsPolygon(double x, double y) {
+        boolean inside = false;
+        for (int i = 0, j = xs.length - 1; i < xs.length; j = i++) {
+            if ((ys[i] > y) != (ys[j] > y) && x < (xs[j] - xs[i]) * (y - ys[i]) / (ys[j] - ys[i]) + xs[i]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    private static double distanceToSegment(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        return Math.hypot(px - (ax + t * dx), py - (ay + t * dy));
+    }
+}
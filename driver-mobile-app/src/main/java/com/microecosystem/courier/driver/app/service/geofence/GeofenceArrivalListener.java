@@ -0,0 +1,91 @@
+package com.microecosystem.courier.driver.app.service.geofence;
+
+import com.microecosystem.courier.driver.app.model.assignment.TaskStatus;
+import com.microecosystem.courier.driver.app.repository.TaskRepository;
+import com.microecosystem.courier.driver.app.service.assignment.TaskService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Marks a task as arrived when its driver enters the fence around the stop, so drivers no
+ * longer have to do it by hand.
+ * <p>
+ * Only stop entries reach the listener; other transitions are filtered out before dispatch.
+ * Arrivals are recorded on a small bounded executor of the listener's own. When it is
+ * saturated the arrival is dropped and the driver marks it by hand, so geofence events never
+ * slow down or fail the location update that raised them.
+ */
+@Component
+@Slf4j
+public class GeofenceArrivalListener {
+
+    private final TaskRepository taskRepository;
+    private final TaskService taskService;
+
+    @Value("${driver.geofence.arrival-threads:2}")
+    private int threads = 2;
+
+    @Value("${driver.geofence.arrival-queue-capacity:1000}")
+    private int queueCapacity = 1000;
+
+    private ThreadPoolExecutor executor;
+
+    public GeofenceArrivalListener(TaskRepository taskRepository, TaskService taskService) {
+        this.taskRepository = taskRepository;
+        this.taskService = taskService;
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("GeofenceArrival-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+            log.warn("Geofence arrival listener stopped with {} arrivals unrecorded", executor.getQueue().size());
+        }
+    }
+
+    @EventListener(condition = "#event.stopEntry")
+    public void onGeofenceEvent(GeofenceEvent event) {
+        try {
+            executor.execute(() -> markArrived(event));
+        } catch (RejectedExecutionException e) {
+            log.warn("Arrival queue is full, not marking task ID: {} as arrived for driver ID: {}",
+                    event.getReferenceId(), event.getDriverId());
+        }
+    }
+
+    private void markArrived(GeofenceEvent event) {
+        try {
+            taskRepository.findById(event.getReferenceId())
+                    .filter(task -> task.getStatus() == TaskStatus.IN_PROGRESS)
+                    .ifPresent(task -> {
+                        try {
+                            taskService.markTaskAsArrived(task.getId(), task.getAssignment().getId());
+                            log.info("Driver ID: {} arrived at task ID: {}", event.getDriverId(), task.getId());
+                        } catch (IllegalStateException | IllegalArgumentException e) {
+                            // The driver or another request changed the task in the meantime
+                            log.debug("Could not mark task ID: {} as arrived: {}", task.getId(), e.getMessage());
+                        }
+                    });
+        } catch (RuntimeException e) {
+            log.warn("Failed to record arrival of driver ID: {} at task ID: {}: {}",
+                    event.getDriverId(), event.getReferenceId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.microecosystem.courier.driver.app.service.geofence;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongConsumer;
+
+/**
+ * In-memory geofence engine. Fences are indexed in a grid of fixed-size cells, so each ping is
+ * only checked against the few fences near it plus those the driver is currently inside.
+ * A driver enters a fence on the first ping inside it and leaves only once a ping lies more
+ * than the exit margin outside, so jitter along the boundary does not produce a stream of
+ * enter and exit events; staying inside for the dwell time produces one dwell event.
+ * Transitions are published as {@link GeofenceEvent}s.
+ */
+@Component
+@Slf4j
+public class GeofenceEngine {
+
+    private static final Geofence[] NO_FENCES = new Geofence[0];
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Readers see immutable cell arrays; writers replace them under the write lock
+    private final Object writeLock = new Object();
+    private final Map<String, Geofence> fences = new ConcurrentHashMap<>();
+    private final Map<Long, Geofence[]> cells = new ConcurrentHashMap<>();
+    private final Map<Long, DriverPresence> presence = new ConcurrentHashMap<>();
+
+    @Value("${driver.geofence.cell-size-degrees:0.005}")
+    private double cellSizeDegrees = 0.005;
+
+    @Value("${driver.geofence.exit-margin-meters:25}")
+    private double exitMarginMeters = 25;
+
+    @Value("${driver.geofence.dwell-ms:120000}")
+    private long dwellMs = 120000;
+
+    public GeofenceEngine(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Adds a fence, replacing any fence with the same ID.
+     *
+     * @param fence the fence
+     */
+    public void register(Geofence fence) {
+        synchronized (writeLock) {
+            Geofence previous = fences.put(fence.getId(), fence);
+            if (previous != null) {
+                removeFromCells(previous);
+            }
+            addToCells(fence);
+        }
+    }
+
+    /**
+     * Removes a fence. Drivers inside it are forgotten without an exit event.
+     *
+     * @param fenceId the fence ID
+     */
+    public void remove(String fenceId) {
+        synchronized (writeLock) {
+            Geofence previous = fences.remove(fenceId);
+            if (previous != null) {
+                removeFromCells(previous);
+            }
+        }
+    }
+
+    /**
+     * Replaces all fences with the given ones.
+     *
+     * @param current the fences that should exist
+     */
+    public void synchronize(Collection<Geofence> current) {
+        synchronized (writeLock) {
+            Set<String> ids = new HashSet<>();
+            for (Geofence fence : current) {
+                ids.add(fence.getId());
+                register(fence);
+            }
+            for (String id : new ArrayList<>(fences.keySet())) {
+                if (!ids.contains(id)) {
+                    remove(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets a fence.
+     *
+     * @param fenceId the fence ID
+     * @return the fence, or null if none
+     */
+    public Geofence get(String fenceId) {
+        return fences.get(fenceId);
+    }
+
+    /**
+     * Gets the number of fences.
+     *
+     * @return the fence count
+     */
+    public int size() {
+        return fences.size();
+    }
+
+    /**
+     * Evaluates a driver's position against nearby fences and publishes the resulting
+     * transitions.
+     *
+     * @param driverId the driver ID
+     * @param latitude the latitude
+     * @param longitude the longitude
+     * @param time when the driver was there
+     * @return the transitions, possibly empty
+     */
+    public List<GeofenceEvent> evaluate(Long driverId, double latitude, double longitude, LocalDateTime time) {
+        DriverPresence driver = presence.computeIfAbsent(driverId, id -> new DriverPresence());
+        List<GeofenceEvent> events = List.of();
+        synchronized (driver) {
+            Iterator<Map.Entry<String, Presence>> inside = driver.inside.entrySet().iterator();
+            while (inside.hasNext()) {
+                Map.Entry<String, Presence> entry = inside.next();
+                Geofence fence = fences.get(entry.getKey());
+                if (fence == null) {
+                    inside.remove();
+                    continue;
+                }
+                Presence stay = entry.getValue();
+                if (fence.distanceOutsideMeters(latitude, longitude) > exitMarginMeters) {
+                    inside.remove();
+                    events = add(events, event(driverId, fence, GeofenceTransition.EXIT, latitude, longitude, time));
+                } else if (!stay.dwellReported && Duration.between(stay.enteredAt, time).toMillis() >= dwellMs) {
+                    stay.dwellReported = true;
+                    events = add(events, event(driverId, fence, GeofenceTransition.DWELL, latitude, longitude, time));
+                }
+            }
+
+            for (Geofence fence : cells.getOrDefault(cellKey(latitude, longitude), NO_FENCES)) {
+                if (fence.appliesTo(driverId) && !driver.inside.containsKey(fence.getId())
+                        && fence.distanceOutsideMeters(latitude, longitude) == 0) {
+                    driver.inside.put(fence.getId(), new Presence(time));
+                    events = add(events, event(driverId, fence, GeofenceTransition.ENTER, latitude, longitude, time));
+                }
+            }
+        }
+
+        for (GeofenceEvent event : events) {
+            log.debug("Driver ID: {} {} geofence {}", driverId, event.getTransition(), event.getGeofenceId());
+            try {
+                eventPublisher.publishEvent(event);
+            } catch (RuntimeException e) {
+                // A failing listener must not fail the location update that crossed the fence
+                log.warn("Listener failed on geofence event {}: {}", event, e.getMessage());
+            }
+        }
+        return events;
+    }
+
+    private static List<GeofenceEvent> add(List<GeofenceEvent> events, GeofenceEvent event) {
+        List<GeofenceEvent> added = events.isEmpty() ? new ArrayList<>(2) : events;
+        added.add(event);
+        return added;
+    }
+
+    private static GeofenceEvent event(Long driverId, Geofence fence, GeofenceTransition transition,
+                                       double latitude, double longitude, LocalDateTime time) {
+        return new GeofenceEvent(driverId, fence.getId(), fence.getType(), fence.getReferenceId(), transition,
+                latitude, longitude, time);
+    }
+
+    private void addToCells(Geofence fence) {
+        forEachCell(fence, key -> cells.merge(key, new Geofence[]{fence}, (existing, added) -> {
+            Geofence[] merged = Arrays.copyOf(existing, existing.length + 1);
+            merged[existing.length] = fence;
+            return merged;
+        }));
+    }
+
+    private void removeFromCells(Geofence fence) {
+        forEachCell(fence, key -> cells.computeIfPresent(key, (k, existing) -> {
+            Geofence[] kept = Arrays.stream(existing).filter(other -> other != fence).toArray(Geofence[]::new);
+            return kept.length > 0 ? kept : null;
+        }));
+    }
+
+    private void forEachCell(Geofence fence, LongConsumer action) {
+        long minRow = (long) Math.floor(fence.getMinLatitude() / cellSizeDegrees);
+        long maxRow = (long) Math.floor(fence.getMaxLatitude() / cellSizeDegrees);
+        long minColumn = (long) Math.floor(fence.getMinLongitude() / cellSizeDegrees);
+        long maxColumn = (long) Math.floor(fence.getMaxLongitude() / cellSizeDegrees);
+        for (long row = minRow; row <= maxRow; row++) {
+            for (long column = minColumn; column <= maxColumn; column++) {
+                action.accept(key(row, column));
+            }
+        }
+    }
+
+    private long cellKey(double latitude, double longitude) {
+        return key((long) Math.floor(latitude / cellSizeDegrees), (long) Math.floor(longitude / cellSizeDegrees));
+    }
+
+    private static long key(long row, long column) {
+        return (row << 32) ^ (column & 0xffffffffL);
+    }
+
+    private static final class DriverPresence {
+
+        private final Map<String, Presence> inside = new HashMap<>(4);
+    }
+
+    private static final class Presence {
+
+        private final LocalDateTime enteredAt;
+        private boolean dwellReported;
+
+        private Presence(LocalDateTime enteredAt) {
+            this.enteredAt = enteredAt;
+        }
+    }
+}
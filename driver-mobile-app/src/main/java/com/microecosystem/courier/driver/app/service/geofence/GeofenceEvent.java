@@ -0,0 +1,35 @@
+package com.microecosystem.courier.driver.app.service.geofence;
+
+import com.microecosystem.courier.driver.app.model.GeofenceType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when a driver enters, leaves or dwells at a geofence.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class GeofenceEvent {
+
+    private final Long driverId;
+    private final String geofenceId;
+    private final GeofenceType geofenceType;
+    private final Long referenceId;
+    private final GeofenceTransition transition;
+    private final double latitude;
+    private final double longitude;
+    private final LocalDateTime occurredAt;
+
+    /**
+     * Checks whether the driver entered the fence around one of their stops.
+     *
+     * @return true for a stop entry
+     */
+    public boolean isStopEntry() {
+        return geofenceType == GeofenceType.DELIVERY_STOP && transition == GeofenceTransition.ENTER;
+    }
+}
@@ -0,0 +1,167 @@
+package com.microecosystem.courier.driver.app.service.geofence;
+
+import com.microecosystem.courier.driver.app.dto.geofence.GeofenceRequest;
+import com.microecosystem.courier.driver.app.exception.ResourceNotFoundException;
+import com.microecosystem.courier.driver.app.model.GeofenceDefinition;
+import com.microecosystem.courier.driver.app.model.GeofenceType;
+import com.microecosystem.courier.driver.app.model.assignment.TaskStatus;
+import com.microecosystem.courier.driver.app.repository.GeofenceDefinitionRepository;
+import com.microecosystem.courier.driver.app.service.assignment.ActiveStops;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Service for managing geofences and keeping the {@link GeofenceEngine} in step with stored
+ * branch and depot fences and with the stops drivers are currently heading to or at.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GeofenceService {
+
+    // Stops are fenced from when the driver sets off until the task is finished
+    private static final EnumSet<TaskStatus> FENCED_TASK_STATUSES = EnumSet.of(TaskStatus.IN_PROGRESS, TaskStatus.ARRIVED);
+
+    private final GeofenceDefinitionRepository definitionRepository;
+    private final ActiveStops activeStops;
+    private final GeofenceEngine geofenceEngine;
+
+    @Value("${driver.assignment.geofence-radius-meters:100}")
+    private double stopRadiusMeters = 100;
+
+    /**
+     * Create a branch or depot geofence.
+     *
+     * @param request the fence to create
+     * @return the stored fence
+     */
+    @Transactional
+    public GeofenceDefinition createGeofence(GeofenceRequest request) {
+        log.info("Creating {} geofence: {}", request.getType(), request.getName());
+        if (request.getType() == GeofenceType.DELIVERY_STOP) {
+            throw new IllegalArgumentException("Delivery stop geofences are derived from tasks");
+        }
+        GeofenceDefinition definition = GeofenceDefinition.builder()
+                .name(request.getName())
+                .type(request.getType())
+                .latitude(request.getLatitude())
+                .longitude(request.getLongitude())
+                .radiusMeters(request.getRadiusMeters())
+                .vertices(formatVertices(request.getVertices()))
+                .build();
+        // Fails on an incomplete shape before anything is stored
+        toGeofence(definition);
+
+        GeofenceDefinition saved = definitionRepository.save(definition);
+        geofenceEngine.register(toGeofence(saved));
+        return saved;
+    }
+
+    /**
+     * Delete a branch or depot geofence.
+     *
+     * @param id the geofence ID
+     */
+    @Transactional
+    public void deleteGeofence(Long id) {
+        log.info("Deleting geofence with ID: {}", id);
+        if (!definitionRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Geofence not found with id: " + id);
+        }
+        definitionRepository.deleteById(id);
+        geofenceEngine.remove(fenceId(id));
+    }
+
+    /**
+     * Get all branch and depot geofences.
+     *
+     * @return list of geofences
+     */
+    @Transactional(readOnly = true)
+    public List<GeofenceDefinition> getGeofences() {
+        return definitionRepository.findAll();
+    }
+
+    /**
+     * Reloads stored fences and the stops of tasks in progress on active assignments into the
+     * engine.
+     */
+    @Scheduled(fixedDelayString = "${driver.geofence.resync-interval-ms:15000}",
+            initialDelayString = "${driver.geofence.initial-delay-ms:0}")
+    @Transactional(readOnly = true)
+    public void resync() {
+        List<Geofence> fences = new ArrayList<>();
+        for (GeofenceDefinition definition : definitionRepository.findAll()) {
+            try {
+                fences.add(toGeofence(definition));
+            } catch (IllegalArgumentException e) {
+                log.warn("Skipping invalid geofence with ID: {}: {}", definition.getId(), e.getMessage());
+            }
+        }
+        for (ActiveStops.DriverStops driver : activeStops.all()) {
+            for (ActiveStops.Stop stop : driver.getStops()) {
+                if (FENCED_TASK_STATUSES.contains(stop.getStatus())) {
+                    fences.add(Geofence.circle("task-" + stop.getTaskId(), GeofenceType.DELIVERY_STOP,
+                            stop.getTaskId(), driver.getDriverId(), stop.getLatitude(), stop.getLongitude(),
+                            stopRadiusMeters));
+                }
+            }
+        }
+        geofenceEngine.synchronize(fences);
+        log.debug("Synchronised {} geofences", fences.size());
+    }
+
+    private static Geofence toGeofence(GeofenceDefinition definition) {
+        String id = fenceId(definition.getId());
+        if (definition.getVertices() != null && !definition.getVertices().isBlank()) {
+            return Geofence.polygon(id, definition.getType(), definition.getId(), null,
+                    parseVertices(definition.getVertices()));
+        }
+        if (definition.getLatitude() == null || definition.getLongitude() == null
+                || definition.getRadiusMeters() == null) {
+            throw new IllegalArgumentException("A geofence needs a center and radius or at least three vertices");
+        }
+        return Geofence.circle(id, definition.getType(), definition.getId(), null,
+                definition.getLatitude().doubleValue(), definition.getLongitude().doubleValue(),
+                definition.getRadiusMeters());
+    }
+
+    private static String fenceId(Long definitionId) {
+        return "geofence-" + definitionId;
+    }
+
+    private static String formatVertices(List<List<Double>> vertices) {
+        if (vertices == null || vertices.isEmpty()) {
+            return null;
+        }
+        return vertices.stream()
+                .map(vertex -> {
+                    if (vertex == null || vertex.size() != 2 || vertex.contains(null)) {
+                        throw new IllegalArgumentException("Each vertex must be a [latitude, longitude] pair");
+                    }
+                    return vertex.get(0) + "," + vertex.get(1);
+                })
+                .collect(Collectors.joining(";"));
+    }
+
+    private static List<double[]> parseVertices(String vertices) {
+        List<double[]> parsed = new ArrayList<>();
+        for (String vertex : vertices.split(";")) {
+            String[] parts = vertex.split(",");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Malformed vertex: " + vertex);
+            }
+            parsed.add(new double[]{Double.parseDouble(parts[0].trim()), Double.parseDouble(parts[1].trim())});
+        }
+        return parsed;
+    }
+}
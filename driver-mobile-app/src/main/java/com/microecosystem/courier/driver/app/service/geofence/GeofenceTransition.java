@@ -0,0 +1,13 @@
+package com.microecosystem.courier.driver.app.service.geofence;
+
+/**
+ * Change in a driver's presence at a geofence.
+ */
+public enum GeofenceTransition {
+    /** The driver came inside the fence */
+    ENTER,
+    /** The driver left the fence, beyond the exit margin */
+    EXIT,
+    /** The driver has stayed inside the fence for the dwell time */
+    DWELL
+}
@@ -6,6 +6,7 @@ import com.microecosystem.courier.driver.app.exception.ResourceNotFoundException
 import com.microecosystem.courier.driver.app.model.Driver;
 import com.microecosystem.courier.driver.app.model.DriverStatus;
 import com.microecosystem.courier.driver.app.repository.DriverRepository;
+import com.microecosystem.courier.driver.app.security.PrincipalCache;
 import com.microecosystem.courier.driver.app.service.DriverService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -29,6 +30,7 @@ import java.util.Optional;
 public class DriverServiceImpl implements DriverService {
 
     private final DriverRepository driverRepository;
+    private final PrincipalCache principalCache;
 
     @Override
     @Transactional
@@ -97,7 +99,9 @@ public class DriverServiceImpl implements DriverService {
         driver.setCanceledDeliveries(canceledDeliveries);
         driver.setAverageRating(averageRating);
         driver.setTotalRatings(totalRatings);
-        
+
+        // The driver may have been deactivated
+        invalidatePrincipal(driver);
         return driverRepository.save(driver);
     }
 
@@ -140,6 +144,7 @@ public class DriverServiceImpl implements DriverService {
                 .orElseThrow(() -> new ResourceNotFoundException("Driver not found with id: " + id));
         
         driver.setStatus(status);
+        invalidatePrincipal(driver);
         return driverRepository.save(driver);
     }
 
@@ -182,6 +187,7 @@ public class DriverServiceImpl implements DriverService {
                 .orElseThrow(() -> new ResourceNotFoundException("Driver not found with id: " + id));
         
         driverRepository.delete(driver);
+        invalidatePrincipal(driver);
     }
 
     @Override
@@ -195,4 +201,10 @@ public class DriverServiceImpl implements DriverService {
         driver.setDeviceToken(deviceToken);
         return driverRepository.save(driver);
     }
+
+    private void invalidatePrincipal(Driver driver) {
+        if (driver.getUser() != null) {
+            principalCache.invalidate(driver.getUser().getUsername());
+        }
+    }
 } 
\ No newline at end of file
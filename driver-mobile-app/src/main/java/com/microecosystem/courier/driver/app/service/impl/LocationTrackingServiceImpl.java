@@ -1,11 +1,18 @@
 package com.microecosystem.courier.driver.app.service.impl;
 
 import com.microecosystem.courier.driver.app.dto.LocationUpdateRequest;
+import com.microecosystem.courier.driver.app.dto.LocationUpdateResponse;
 import com.microecosystem.courier.driver.app.exception.ResourceNotFoundException;
 import com.microecosystem.courier.driver.app.model.Driver;
 import com.microecosystem.courier.driver.app.model.DriverStatus;
 import com.microecosystem.courier.driver.app.repository.DriverRepository;
 import com.microecosystem.courier.driver.app.service.LocationTrackingService;
+import com.microecosystem.courier.driver.app.service.eta.EtaPropagator;
+import com.microecosystem.courier.driver.app.service.geofence.GeofenceEngine;
+import com.microecosystem.courier.driver.app.service.location.LocationNoiseFilter;
+import com.microecosystem.courier.driver.app.service.location.LocationPing;
+import com.microecosystem.courier.driver.app.service.location.LocationReportingPolicy;
+import com.microecosystem.courier.driver.app.service.location.LocationWriteBehindBuffer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -15,6 +22,8 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Implementation of the LocationTrackingService interface.
@@ -25,9 +34,20 @@ import java.util.List;
 public class LocationTrackingServiceImpl implements LocationTrackingService {
 
     private final DriverRepository driverRepository;
+    private final LocationWriteBehindBuffer locationBuffer;
+    private final LocationNoiseFilter noiseFilter;
+    private final GeofenceEngine geofenceEngine;
+    private final LocationReportingPolicy reportingPolicy;
+    private final EtaPropagator etaPropagator;
+
+    // Drivers already confirmed to exist, so pings after the first skip the lookup
+    private final Set<Long> knownDrivers = ConcurrentHashMap.newKeySet();
     
     @Value("${app.location.accuracy-threshold:50}")
     private int accuracyThreshold;
+
+    @Value("${app.location.flush-interval-ms:1000}")
+    private long flushIntervalMs = 1000;
     
     private static final double EARTH_RADIUS_KM = 6371.0;
 
@@ -53,6 +73,49 @@ public class LocationTrackingServiceImpl implements LocationTrackingService {
         return driverRepository.save(driver);
     }
 
+    @Override
+    public LocationUpdateResponse recordDriverLocation(Long driverId, LocationUpdateRequest request) {
+        if (!knownDrivers.contains(driverId)) {
+            if (!driverRepository.existsById(driverId)) {
+                throw new ResourceNotFoundException("Driver not found with id: " + driverId);
+            }
+            knownDrivers.add(driverId);
+        }
+
+        LocalDateTime receivedAt = LocalDateTime.now();
+        boolean accepted = request.getAccuracyInMeters() == null || request.getAccuracyInMeters() <= accuracyThreshold;
+        if (accepted) {
+            LocationNoiseFilter.Result filtered = noiseFilter.filter(new LocationPing(driverId, request.getLatitude(),
+                    request.getLongitude(), request.getAccuracyInMeters(), request.getSpeed(), request.getHeading(),
+                    receivedAt));
+            accepted = filtered.getOutcome() != LocationNoiseFilter.Outcome.REJECTED;
+            if (accepted) {
+                LocationPing ping = filtered.getPing();
+                locationBuffer.accept(ping, filtered.getOutcome() == LocationNoiseFilter.Outcome.MOVED);
+                geofenceEngine.evaluate(driverId, ping.getLatitude().doubleValue(), ping.getLongitude().doubleValue(),
+                        ping.getRecordedAt());
+                etaPropagator.onLocation(driverId, ping.getLatitude().doubleValue(), ping.getLongitude().doubleValue(),
+                        ping.getRecordedAt());
+            }
+        } else {
+            log.debug("Ignoring location for driver ID: {} due to poor accuracy: {} meters",
+                    driverId, request.getAccuracyInMeters());
+        }
+
+        // Devices report km/h
+        Double speedMps = request.getSpeed() != null ? request.getSpeed() / 3.6 : null;
+        LocationReportingPolicy.Recommendation next = reportingPolicy.recommend(driverId,
+                request.getLatitude().doubleValue(), request.getLongitude().doubleValue(), speedMps);
+        return LocationUpdateResponse.builder()
+                .driverId(driverId)
+                .accepted(accepted)
+                .receivedAt(receivedAt)
+                .maxStalenessMs(flushIntervalMs)
+                .nextReportIntervalMs(next.getIntervalMs())
+                .nextReportDistanceMeters(next.getDistanceMeters())
+                .build();
+    }
+
     @Override
     public List<Driver> findNearbyDrivers(BigDecimal latitude, BigDecimal longitude, Double radiusInKm, String status) {
         log.info("Finding drivers near lat: {}, lon: {} within {}km with status: {}", 
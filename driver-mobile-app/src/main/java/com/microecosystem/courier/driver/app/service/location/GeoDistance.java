@@ -0,0 +1,34 @@
+package com.microecosystem.courier.driver.app.service.location;
+
+/**
+ * Straight-line distances between coordinates, shared by the location, ETA and bundle
+ * services.
+ */
+public final class GeoDistance {
+
+    /** How much longer roads are than the straight line between two points */
+    public static final double ROAD_FACTOR = 1.3;
+
+    private static final double EARTH_RADIUS_M = 6_371_000.0;
+
+    private GeoDistance() {
+    }
+
+    /**
+     * Great-circle distance between two points.
+     *
+     * @param lat1 first latitude in degrees
+     * @param lon1 first longitude in degrees
+     * @param lat2 second latitude in degrees
+     * @param lon2 second longitude in degrees
+     * @return the distance in meters
+     */
+    public static double meters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_M * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
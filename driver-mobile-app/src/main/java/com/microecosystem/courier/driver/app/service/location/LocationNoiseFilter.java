@@ -0,0 +1,268 @@
+package com.microecosystem.courier.driver.app.service.location;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streaming noise filter for driver GPS fixes, keeping a few numbers of state per driver.
+ * Each fix is checked against the driver's last position and rejected if reaching it would
+ * need an impossible speed (multipath jumps); accepted fixes are smoothed with a constant
+ * velocity Kalman filter weighted by the reported accuracy, and fixes that stay within a
+ * small radius of the last recorded point are marked stationary so they do not add to the
+ * history. A driver's state is dropped once they have sent nothing for
+ * {@code reset-after-ms}, after which it would be restarted anyway.
+ */
+@Component
+@Slf4j
+public class LocationNoiseFilter {
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+    // Spread of the initial velocity estimate, about 50 km/h either way
+    private static final double INITIAL_SPEED_SPREAD_MPS = 14.0;
+
+    private final Map<Long, Track> tracks = new ConcurrentHashMap<>();
+
+    @Value("${app.location.filter.max-speed-kmh:180}")
+    private double maxSpeedKmh = 180;
+
+    @Value("${app.location.filter.default-accuracy-meters:20}")
+    private double defaultAccuracyMeters = 20;
+
+    @Value("${app.location.filter.acceleration-noise-mps2:2}")
+    private double accelerationNoise = 2;
+
+    @Value("${app.location.filter.stationary-radius-meters:15}")
+    private double stationaryRadiusMeters = 15;
+
+    @Value("${app.location.filter.max-consecutive-rejections:3}")
+    private int maxConsecutiveRejections = 3;
+
+    @Value("${app.location.filter.reset-after-ms:120000}")
+    private long resetAfterMs = 120000;
+
+    /**
+     * Outcome of filtering one fix.
+     */
+    public enum Outcome {
+        /** The driver moved; the smoothed fix is stored and added to the history */
+        MOVED,
+        /** The driver is where they were; the smoothed fix is stored but not added to the history */
+        STATIONARY,
+        /** The fix is implausible and is dropped */
+        REJECTED
+    }
+
+    /**
+     * Result of filtering one fix.
+     */
+    @Getter
+    public static class Result {
+
+        private final Outcome outcome;
+        private final LocationPing ping;
+
+        private Result(Outcome outcome, LocationPing ping) {
+            this.outcome = outcome;
+            this.ping = ping;
+        }
+    }
+
+    /**
+     * Filters a raw fix.
+     *
+     * @param raw the raw fix
+     * @return the outcome, with the smoothed fix unless rejected
+     */
+    public Result filter(LocationPing raw) {
+        Result[] result = new Result[1];
+        long now = System.currentTimeMillis();
+        tracks.compute(raw.getDriverId(), (driverId, track) -> {
+            if (track == null || elapsedSeconds(track, raw) * 1000 > resetAfterMs) {
+                track = new Track(raw, accuracy(raw));
+                result[0] = new Result(Outcome.MOVED, raw);
+            } else {
+                result[0] = update(track, raw);
+            }
+            track.touchedAtMillis = now;
+            return track;
+        });
+        return result[0];
+    }
+
+    /**
+     * Drops the state of drivers who stopped sending fixes.
+     */
+    @Scheduled(fixedDelayString = "${app.location.filter.evict-interval-ms:60000}")
+    public void evictIdleTracks() {
+        evictIdleTracks(System.currentTimeMillis());
+    }
+
+    void evictIdleTracks(long nowMillis) {
+        int before = tracks.size();
+        // Arrival time rather than the device's clock, which may be off
+        tracks.values().removeIf(track -> nowMillis - track.touchedAtMillis > resetAfterMs);
+        log.debug("Evicted {} idle driver tracks", before - tracks.size());
+    }
+
+    /**
+     * Gets the number of drivers with filter state.
+     *
+     * @return the driver count
+     */
+    public int trackedDrivers() {
+        return tracks.size();
+    }
+
+    private Result update(Track track, LocationPing raw) {
+        double latitude = raw.getLatitude().doubleValue();
+        double longitude = raw.getLongitude().doubleValue();
+        // Fixes received in the same second still count as one second apart, to bound the speed
+        double seconds = Math.max(1.0, elapsedSeconds(track, raw));
+
+        double jumpMeters = GeoDistance.meters(track.latitude, track.longitude, latitude, longitude);
+        double speedKmh = jumpMeters / seconds * 3.6;
+        if (speedKmh > maxSpeedKmh) {
+            if (track.rejections < maxConsecutiveRejections) {
+                track.rejections++;
+                log.debug("Rejecting fix for driver ID: {} implying {} km/h", raw.getDriverId(), Math.round(speedKmh));
+                return new Result(Outcome.REJECTED, null);
+            }
+            // Several fixes in a row disagree with the track, so the driver really is elsewhere
+            track.restart(raw, accuracy(raw));
+            return new Result(Outcome.MOVED, raw);
+        }
+        track.rejections = 0;
+
+        double measurementVariance = accuracy(raw) * accuracy(raw);
+        double processNoise = accelerationNoise * accelerationNoise;
+        track.north.update(track.northMeters(latitude), seconds, processNoise, measurementVariance);
+        track.east.update(track.eastMeters(longitude), seconds, processNoise, measurementVariance);
+        track.latitude = track.latitudeOf(track.north.position);
+        track.longitude = track.longitudeOf(track.east.position);
+        track.lastFixAt = raw.getRecordedAt();
+
+        LocationPing smoothed = new LocationPing(raw.getDriverId(), toCoordinate(track.latitude),
+                toCoordinate(track.longitude), raw.getAccuracyInMeters(), raw.getSpeed(), raw.getHeading(),
+                raw.getRecordedAt());
+        if (GeoDistance.meters(track.anchorLatitude, track.anchorLongitude, track.latitude, track.longitude)
+                < stationaryRadiusMeters) {
+            return new Result(Outcome.STATIONARY, smoothed);
+        }
+        track.anchorLatitude = track.latitude;
+        track.anchorLongitude = track.longitude;
+        return new Result(Outcome.MOVED, smoothed);
+    }
+
+    private double accuracy(LocationPing ping) {
+        return ping.getAccuracyInMeters() != null ? Math.max(1, ping.getAccuracyInMeters()) : defaultAccuracyMeters;
+    }
+
+    private static double elapsedSeconds(Track track, LocationPing ping) {
+        return Duration.between(track.lastFixAt, ping.getRecordedAt()).toMillis() / 1000.0;
+    }
+
+    private static BigDecimal toCoordinate(double degrees) {
+        return BigDecimal.valueOf(degrees).setScale(7, RoundingMode.HALF_UP);
+    }
+
+    private static final class Track {
+
+        private double originLatitude;
+        private double originLongitude;
+        private double metersPerLongitudeDegree;
+        private final Axis north = new Axis();
+        private final Axis east = new Axis();
+        private double latitude;
+        private double longitude;
+        private double anchorLatitude;
+        private double anchorLongitude;
+        private LocalDateTime lastFixAt;
+        private int rejections;
+        private volatile long touchedAtMillis;
+
+        private Track(LocationPing fix, double accuracyMeters) {
+            restart(fix, accuracyMeters);
+        }
+
+        private void restart(LocationPing fix, double accuracyMeters) {
+            latitude = fix.getLatitude().doubleValue();
+            longitude = fix.getLongitude().doubleValue();
+            // Filter in meters on a plane touching the earth at the first fix
+            originLatitude = latitude;
+            originLongitude = longitude;
+            metersPerLongitudeDegree = METERS_PER_DEGREE * Math.cos(Math.toRadians(latitude));
+            north.reset(accuracyMeters * accuracyMeters);
+            east.reset(accuracyMeters * accuracyMeters);
+            anchorLatitude = latitude;
+            anchorLongitude = longitude;
+            lastFixAt = fix.getRecordedAt();
+            rejections = 0;
+        }
+
+        private double northMeters(double latitude) {
+            return (latitude - originLatitude) * METERS_PER_DEGREE;
+        }
+
+        private double eastMeters(double longitude) {
+            return (longitude - originLongitude) * metersPerLongitudeDegree;
+        }
+
+        private double latitudeOf(double northMeters) {
+            return originLatitude + northMeters / METERS_PER_DEGREE;
+        }
+
+        private double longitudeOf(double eastMeters) {
+            return originLongitude + eastMeters / metersPerLongitudeDegree;
+        }
+    }
+
+    /**
+     * Position and velocity along one axis with their covariance.
+     */
+    private static final class Axis {
+
+        private double position;
+        private double velocity;
+        private double positionVariance;
+        private double covariance;
+        private double velocityVariance;
+
+        private void reset(double measurementVariance) {
+            position = 0;
+            velocity = 0;
+            positionVariance = measurementVariance;
+            covariance = 0;
+            velocityVariance = INITIAL_SPEED_SPREAD_MPS * INITIAL_SPEED_SPREAD_MPS;
+        }
+
+        private void update(double measured, double seconds, double processNoise, double measurementVariance) {
+            // Predict: move at the current velocity, with uncertainty growing from random acceleration
+            position += velocity * seconds;
+            positionVariance += seconds * (2 * covariance + seconds * velocityVariance)
+                    + processNoise * seconds * seconds * seconds / 3;
+            covariance += seconds * velocityVariance + processNoise * seconds * seconds / 2;
+            velocityVariance += processNoise * seconds;
+
+            // Correct towards the measurement in proportion to how much each is trusted
+            double innovationVariance = positionVariance + measurementVariance;
+            double positionGain = positionVariance / innovationVariance;
+            double velocityGain = covariance / innovationVariance;
+            double innovation = measured - position;
+            position += positionGain * innovation;
+            velocity += velocityGain * innovation;
+            velocityVariance -= velocityGain * covariance;
+            covariance -= positionGain * covariance;
+            positionVariance -= positionGain * positionVariance;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.microecosystem.courier.driver.app.service.location;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A single accepted GPS fix from a driver's device.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class LocationPing {
+
+    private final Long driverId;
+    private final BigDecimal latitude;
+    private final BigDecimal longitude;
+    private final Integer accuracyInMeters;
+    private final Double speed;
+    private final Double heading;
+    private final LocalDateTime recordedAt;
+
+    /**
+     * Whether this fix was recorded after another one.
+     *
+     * @param other the other fix, may be null
+     * @return true if this fix is newer
+     */
+    public boolean isNewerThan(LocationPing other) {
+        return other == null || !recordedAt.isBefore(other.recordedAt);
+    }
+}
@@ -0,0 +1,115 @@
+package com.microecosystem.courier.driver.app.service.location;
+
+import com.microecosystem.courier.driver.app.model.assignment.TaskStatus;
+import com.microecosystem.courier.driver.app.service.assignment.ActiveStops;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides how often each driver's device should report its location, returned with every
+ * location acknowledgement.
+ * <p>
+ * ETAs are computed from the last reported position, so a report may be as old as the ETA's
+ * tolerated error: the larger of a fixed tolerance and a fraction of the time left to the next
+ * stop. A driver far from their stop therefore reports rarely and one approaching it often
+ * enough for arrival to be detected. A stopped driver reports rarely but again as soon as they
+ * move, through the distance threshold, and a driver without an active assignment only
+ * occasionally. Next stops are taken from {@link ActiveStops}, so recommending costs no query.
+ */
+@Component
+public class LocationReportingPolicy {
+
+    private final ActiveStops activeStops;
+
+    @Value("${driver.location-policy.eta-tolerance-seconds:45}")
+    private double etaToleranceSeconds = 45;
+
+    @Value("${driver.location-policy.eta-tolerance-fraction:0.15}")
+    private double etaToleranceFraction = 0.15;
+
+    @Value("${driver.location-policy.min-interval-ms:15000}")
+    private long minIntervalMs = 15000;
+
+    @Value("${driver.location-policy.max-moving-interval-ms:120000}")
+    private long maxMovingIntervalMs = 120000;
+
+    @Value("${driver.location-policy.stationary-interval-ms:300000}")
+    private long stationaryIntervalMs = 300000;
+
+    @Value("${driver.location-policy.idle-interval-ms:300000}")
+    private long idleIntervalMs = 300000;
+
+    @Value("${driver.location-policy.approach-distance-meters:500}")
+    private double approachDistanceMeters = 500;
+
+    @Value("${driver.assignment.geofence-radius-meters:100}")
+    private double stopRadiusMeters = 100;
+
+    @Value("${driver.location-policy.min-distance-meters:25}")
+    private double minDistanceMeters = 25;
+
+    @Value("${driver.location-policy.idle-distance-meters:500}")
+    private double idleDistanceMeters = 500;
+
+    @Value("${driver.location-policy.stationary-speed-mps:1.0}")
+    private double stationarySpeedMps = 1.0;
+
+    @Value("${driver.location-policy.default-speed-mps:8.0}")
+    private double defaultSpeedMps = 8.0;
+
+    public LocationReportingPolicy(ActiveStops activeStops) {
+        this.activeStops = activeStops;
+    }
+
+    /**
+     * When a device should next report its location.
+     */
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class Recommendation {
+
+        /** Report after at most this many milliseconds */
+        private final long intervalMs;
+        /** Report as soon as the device has moved this far, in meters */
+        private final double distanceMeters;
+    }
+
+    /**
+     * Recommends when a driver's device should next report.
+     *
+     * @param driverId the driver ID
+     * @param latitude the reported latitude
+     * @param longitude the reported longitude
+     * @param speedMps the reported speed in meters per second, or null if unknown
+     * @return the recommendation
+     */
+    public Recommendation recommend(Long driverId, double latitude, double longitude, Double speedMps) {
+        ActiveStops.DriverStops driverStops = activeStops.get(driverId);
+        boolean stationary = speedMps != null && speedMps < stationarySpeedMps;
+        if (driverStops == null) {
+            // No stop to estimate an arrival for
+            return new Recommendation(idleIntervalMs, stationary ? minDistanceMeters : idleDistanceMeters);
+        }
+        ActiveStops.Stop stop = driverStops.getStops().get(0);
+        if (stop.getStatus() == TaskStatus.ARRIVED || stationary) {
+            return new Recommendation(stationaryIntervalMs, minDistanceMeters);
+        }
+
+        double speed = speedMps != null ? speedMps : defaultSpeedMps;
+        double remainingMeters = GeoDistance.meters(latitude, longitude, stop.getLatitude(), stop.getLongitude())
+                * GeoDistance.ROAD_FACTOR;
+        if (remainingMeters <= approachDistanceMeters) {
+            // Entering the stop's geofence is seen within one fence radius
+            return new Recommendation(minIntervalMs, Math.max(minDistanceMeters, stopRadiusMeters));
+        }
+        double toleranceSeconds = Math.max(etaToleranceSeconds, etaToleranceFraction * remainingMeters / speed);
+        long intervalMs = Math.max(minIntervalMs, Math.min(maxMovingIntervalMs, (long) (toleranceSeconds * 1000)));
+        // Moving as expected, the distance and time thresholds are reached together
+        double distance = Math.max(minDistanceMeters, speed * intervalMs / 1000.0);
+        return new Recommendation(intervalMs, distance);
+    }
+}
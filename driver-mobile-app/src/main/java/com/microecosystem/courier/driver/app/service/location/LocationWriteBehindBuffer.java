@@ -0,0 +1,291 @@
+package com.microecosystem.courier.driver.app.service.location;
+
+import com.microecosystem.courier.driver.app.repository.DriverLocationJdbcRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind buffer for driver GPS pings. Pings are accepted in memory; only the newest
+ * position per driver is kept, and a periodic flush writes those in one JDBC batch while
+ * appending the pings that show movement to the location history. Stored positions therefore
+ * lag the devices by at most one flush interval.
+ *
+ * <p>History is simplified with {@link TrajectorySimplifier} over a per-driver window that spans
+ * flushes: only points the simplification can no longer drop are written, and the rest wait for
+ * the driver's next fixes. A window is closed, writing its last point, once it holds
+ * {@code history-window-max-points} fixes or has been open for {@code history-window-max-ms},
+ * and a driver's window is forgotten after as long without new fixes. History that fails to
+ * write is retried on the next flush before more is taken from the queue.</p>
+ *
+ * <p>Flushes run on a thread of the buffer's own rather than the shared scheduler, so slow
+ * scheduled jobs elsewhere cannot hold stored positions back.</p>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LocationWriteBehindBuffer {
+
+    private final DriverLocationJdbcRepository locationRepository;
+
+    private final Map<Long, LocationPing> latest = new ConcurrentHashMap<>();
+    private final AtomicLong droppedHistory = new AtomicLong();
+    private BlockingQueue<LocationPing> history;
+    // Only touched while flushing
+    private final Map<Long, HistoryWindow> windows = new HashMap<>();
+    private final Deque<LocationPing> unwritten = new ArrayDeque<>();
+
+    @Value("${app.location.history-queue-capacity:100000}")
+    private int historyQueueCapacity = 100000;
+
+    @Value("${app.location.flush-batch-size:1000}")
+    private int flushBatchSize = 1000;
+
+    @Value("${app.location.filter.simplify-tolerance-meters:5}")
+    private double simplifyToleranceMeters = 5;
+
+    @Value("${app.location.history-window-max-points:200}")
+    private int historyWindowMaxPoints = 200;
+
+    @Value("${app.location.history-window-max-ms:300000}")
+    private long historyWindowMaxMs = 300000;
+
+    @Value("${app.location.flush-interval-ms:1000}")
+    private long flushIntervalMs = 1000;
+
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void init() {
+        history = new ArrayBlockingQueue<>(historyQueueCapacity);
+        flusher = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("LocationFlush-"));
+        flusher.scheduleWithFixedDelay(() -> {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                // An exception would cancel every later flush
+                log.error("Location flush failed: {}", e.getMessage(), e);
+            }
+        }, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Accepts a ping, replacing any older pending position of the same driver.
+     *
+     * @param ping the ping
+     * @param recordHistory whether to add the ping to the location history
+     */
+    public void accept(LocationPing ping, boolean recordHistory) {
+        latest.merge(ping.getDriverId(), ping, (pending, incoming) -> incoming.isNewerThan(pending) ? incoming : pending);
+        // History is best effort; a full queue sheds pings rather than blocking the device
+        if (recordHistory && !history.offer(ping)) {
+            droppedHistory.incrementAndGet();
+        }
+    }
+
+    /**
+     * Gets the position of a driver that has not been flushed yet.
+     *
+     * @param driverId the driver ID
+     * @return the pending ping, or null if none
+     */
+    public LocationPing pending(Long driverId) {
+        return latest.get(driverId);
+    }
+
+    /**
+     * Gets the number of drivers with an unflushed position.
+     *
+     * @return the pending driver count
+     */
+    public int pendingDrivers() {
+        return latest.size();
+    }
+
+    /**
+     * Gets the number of drivers whose history is being simplified.
+     *
+     * @return the driver count
+     */
+    public synchronized int historyDrivers() {
+        return windows.size();
+    }
+
+    /**
+     * Writes pending positions and history to the database.
+     */
+    public synchronized void flush() {
+        flushLatest();
+        flushHistory(false);
+        long dropped = droppedHistory.getAndSet(0);
+        if (dropped > 0) {
+            log.warn("Dropped {} location history pings because the history queue was full", dropped);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        flusher.shutdown();
+        if (!flusher.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Location flush did not finish in time, flushing again");
+        }
+        synchronized (this) {
+            flushLatest();
+            flushHistory(true);
+        }
+    }
+
+    private void flushLatest() {
+        List<LocationPing> batch = new ArrayList<>(Math.min(latest.size(), flushBatchSize));
+        for (LocationPing ping : latest.values()) {
+            batch.add(ping);
+            if (batch.size() >= flushBatchSize) {
+                writeLatest(batch);
+                batch = new ArrayList<>(flushBatchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeLatest(batch);
+        }
+    }
+
+    private void writeLatest(List<LocationPing> batch) {
+        try {
+            locationRepository.updateLatestLocations(batch);
+        } catch (RuntimeException e) {
+            // Leave the pings pending; the next flush retries them unless newer ones arrive
+            log.error("Failed to flush {} driver locations: {}", batch.size(), e.getMessage());
+            return;
+        }
+        for (LocationPing ping : batch) {
+            // Keeps a ping that arrived while the batch was being written
+            latest.remove(ping.getDriverId(), ping);
+        }
+    }
+
+    private void flushHistory(boolean closeAll) {
+        // Retry what a failed write left behind before taking more from the queue
+        if (!writeHistory()) {
+            return;
+        }
+        long now = System.nanoTime();
+        List<LocationPing> chunk = new ArrayList<>(flushBatchSize);
+        int drained = 0;
+        // One queue's worth per flush, so a steady stream cannot keep the flush going
+        while (drained < historyQueueCapacity && history.drainTo(chunk, flushBatchSize) > 0) {
+            drained += chunk.size();
+            for (LocationPing ping : chunk) {
+                windows.computeIfAbsent(ping.getDriverId(), id -> new HistoryWindow()).add(ping, now);
+            }
+            chunk.clear();
+        }
+
+        long maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(historyWindowMaxMs);
+        Iterator<HistoryWindow> iterator = windows.values().iterator();
+        while (iterator.hasNext()) {
+            HistoryWindow window = iterator.next();
+            if (!window.pending.isEmpty()) {
+                boolean close = closeAll || window.pending.size() >= historyWindowMaxPoints
+                        || now - window.openedAtNanos >= maxAgeNanos;
+                window.advance(simplifyToleranceMeters, close, unwritten);
+            }
+            if (window.pending.isEmpty() && (closeAll || now - window.lastFixNanos >= maxAgeNanos)) {
+                iterator.remove();
+            }
+        }
+        writeHistory();
+    }
+
+    /**
+     * Appends the unwritten history in batches, stopping at the first failure.
+     *
+     * @return true if everything was written
+     */
+    private boolean writeHistory() {
+        while (!unwritten.isEmpty()) {
+            List<LocationPing> batch = new ArrayList<>(Math.min(unwritten.size(), flushBatchSize));
+            Iterator<LocationPing> pings = unwritten.iterator();
+            while (pings.hasNext() && batch.size() < flushBatchSize) {
+                batch.add(pings.next());
+            }
+            try {
+                locationRepository.appendHistory(batch);
+            } catch (RuntimeException e) {
+                log.error("Failed to append {} location history pings, retrying on the next flush: {}",
+                        unwritten.size(), e.getMessage());
+                return false;
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                unwritten.poll();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A driver's history since the last point written, which may still be simplified away.
+     */
+    private static final class HistoryWindow {
+
+        private LocationPing anchor;
+        private List<LocationPing> pending = new ArrayList<>();
+        private long openedAtNanos;
+        private long lastFixNanos;
+
+        private void add(LocationPing ping, long now) {
+            if (pending.isEmpty()) {
+                openedAtNanos = now;
+            }
+            pending.add(ping);
+            lastFixNanos = now;
+        }
+
+        /**
+         * Moves the points the simplification keeps to the output. The newest point stays pending
+         * unless the window is closed, as later fixes on the same line would make it redundant.
+         */
+        private void advance(double toleranceMeters, boolean close, Deque<LocationPing> out) {
+            List<LocationPing> track = new ArrayList<>(pending.size() + 1);
+            if (anchor != null) {
+                track.add(anchor);
+            }
+            track.addAll(pending);
+            List<LocationPing> kept = TrajectorySimplifier.simplifyTrack(track, toleranceMeters);
+
+            // The anchor is already stored; a new track's first point starts it
+            int from = anchor != null ? 1 : 0;
+            int to = close ? kept.size() : Math.max(kept.size() - 1, 1 - from);
+            if (to <= from) {
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                out.add(kept.get(i));
+            }
+            anchor = kept.get(to - 1);
+            int settled = 0;
+            while (pending.get(settled) != anchor) {
+                settled++;
+            }
+            pending = new ArrayList<>(pending.subList(settled + 1, pending.size()));
+        }
+    }
+}
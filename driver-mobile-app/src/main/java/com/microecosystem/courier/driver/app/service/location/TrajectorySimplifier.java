@@ -0,0 +1,84 @@
+package com.microecosystem.courier.driver.app.service.location;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Douglas-Peucker simplification of driver tracks before they are stored in the history.
+ * Points closer than a tolerance to the line between the points kept around them are dropped,
+ * which removes most fixes along straight roads while keeping every turn.
+ */
+public final class TrajectorySimplifier {
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    private TrajectorySimplifier() {
+    }
+
+    /**
+     * Simplifies one driver's track.
+     *
+     * @param track the fixes in time order
+     * @param toleranceMeters the largest deviation a dropped point may have from the kept track
+     * @return the kept fixes, always including the first and last
+     */
+    public static List<LocationPing> simplifyTrack(List<LocationPing> track, double toleranceMeters) {
+        int n = track.size();
+        if (n <= 2) {
+            return track;
+        }
+        // Project onto a local plane around the first point; accurate to well under a meter at city scale
+        double originLatitude = track.get(0).getLatitude().doubleValue();
+        double longitudeScale = METERS_PER_DEGREE * Math.cos(Math.toRadians(originLatitude));
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = track.get(i).getLongitude().doubleValue() * longitudeScale;
+            y[i] = track.get(i).getLatitude().doubleValue() * METERS_PER_DEGREE;
+        }
+
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+        Deque<int[]> segments = new ArrayDeque<>();
+        segments.push(new int[]{0, n - 1});
+        while (!segments.isEmpty()) {
+            int[] segment = segments.pop();
+            int first = segment[0];
+            int last = segment[1];
+            int farthest = -1;
+            double farthestDistance = toleranceMeters;
+            for (int i = first + 1; i < last; i++) {
+                double distance = distanceToSegment(x[i], y[i], x[first], y[first], x[last], y[last]);
+                if (distance > farthestDistance) {
+                    farthest = i;
+                    farthestDistance = distance;
+                }
+            }
+            if (farthest >= 0) {
+                keep[farthest] = true;
+                segments.push(new int[]{first, farthest});
+                segments.push(new int[]{farthest, last});
+            }
+        }
+
+        List<LocationPing> kept = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (keep[i]) {
+                kept.add(track.get(i));
+            }
+        }
+        return kept;
+    }
+
+    private static double distanceToSegment(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        return Math.hypot(px - (ax + t * dx), py - (ay + t * dy));
+    }
+}
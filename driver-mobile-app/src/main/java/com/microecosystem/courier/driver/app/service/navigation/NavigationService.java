@@ -13,6 +13,7 @@ import java.util.Map;
 /**
  * Service for integrating with navigation and mapping services.
  * This service provides routing and navigation capabilities for drivers.
+ * Point-to-point routes are served from the {@link RouteCache}.
  */
 @Service
 public class NavigationService {
@@ -32,9 +33,11 @@ public class NavigationService {
     private int prefetchRadiusKm;
     
     private final RestTemplate restTemplate;
+    private final RouteCache routeCache;
     
-    public NavigationService(RestTemplate restTemplate) {
+    public NavigationService(RestTemplate restTemplate, RouteCache routeCache) {
         this.restTemplate = restTemplate;
+        this.routeCache = routeCache;
     }
     
     /**
@@ -49,6 +52,44 @@ public class NavigationService {
     public Map<String, Object> getDirections(double startLat, double startLng, double endLat, double endLng) {
         logger.info("Getting directions from ({},{}) to ({},{})", startLat, startLng, endLat, endLng);
         
+        return cachedDirections(startLat, startLng, endLat, endLng);
+    }
+    
+    /**
+     * Compute and cache the routes a driver is about to need: from their position to the first
+     * stop and between consecutive stops, for stops within the prefetch radius.
+     * 
+     * @param driverLat Driver's latitude
+     * @param driverLng Driver's longitude
+     * @param stops Upcoming stops in visiting order, each a latitude and longitude pair
+     * @return Number of routes computed
+     */
+    public int prefetchRoutes(double driverLat, double driverLng, List<double[]> stops) {
+        int computed = 0;
+        double fromLat = driverLat;
+        double fromLng = driverLng;
+        for (double[] stop : stops) {
+            if (calculateDistance(driverLat, driverLng, stop[0], stop[1]) > prefetchRadiusKm) {
+                break;
+            }
+            double legStartLat = fromLat;
+            double legStartLng = fromLng;
+            if (routeCache.prefetch(legStartLat, legStartLng, stop[0], stop[1], useTraffic,
+                    () -> computeDirections(legStartLat, legStartLng, stop[0], stop[1]))) {
+                computed++;
+            }
+            fromLat = stop[0];
+            fromLng = stop[1];
+        }
+        return computed;
+    }
+    
+    private Map<String, Object> cachedDirections(double startLat, double startLng, double endLat, double endLng) {
+        return routeCache.get(startLat, startLng, endLat, endLng, useTraffic,
+                () -> computeDirections(startLat, startLng, endLat, endLng));
+    }
+    
+    private Map<String, Object> computeDirections(double startLat, double startLng, double endLat, double endLng) {
         // In a real implementation, this would call an external API
         // For simulation purposes, we're generating a mock response
         
@@ -120,8 +161,9 @@ public class NavigationService {
             
             // Create leg from current position to this waypoint
             Map<String, Object> leg = new HashMap<>();
-            double legDistance = calculateDistance(currentLat, currentLng, wpLat, wpLng);
-            int legDuration = estimateDuration(currentLat, currentLng, wpLat, wpLng);
+            Map<String, Object> directions = cachedDirections(currentLat, currentLng, wpLat, wpLng);
+            double legDistance = ((Number) directions.get("distance")).doubleValue();
+            int legDuration = ((Number) directions.get("duration")).intValue();
             
             leg.put("startLat", currentLat);
             leg.put("startLng", currentLng);
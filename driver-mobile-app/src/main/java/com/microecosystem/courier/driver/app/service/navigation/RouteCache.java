@@ -0,0 +1,308 @@
+package com.microecosystem.courier.driver.app.service.navigation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Memory-bounded cache of routes between map tiles.
+ * <p>
+ * Origins and destinations are snapped to square tiles and departure times to buckets, so
+ * requests from anywhere near a stop share a route instead of missing on exact coordinates.
+ * Entries are weighed by their estimated size and evicted least recently used first. A new
+ * route only displaces the eviction victim if it has been requested more often recently
+ * (TinyLFU admission, counted in a small frequency sketch), so one-off routes cannot flush
+ * routes that are in regular use. Prefetched routes are always admitted, and prefetching a
+ * traffic-aware route shortly before its bucket ends also fills the next bucket, so drivers do
+ * not all miss at once when the bucket turns over.
+ * <p>
+ * Cached routes are shared between callers and therefore stored as unmodifiable copies.
+ */
+@Component
+public class RouteCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(RouteCache.class);
+
+    // Rough per-entry overhead of the key, map node and list links
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    @Value("${driver.navigation.route-cache.tile-degrees:0.002}")
+    private double tileDegrees = 0.002;
+
+    @Value("${driver.navigation.route-cache.time-bucket-minutes:15}")
+    private int timeBucketMinutes = 15;
+
+    @Value("${driver.navigation.route-cache.max-size-mb:64}")
+    private int maxSizeMb = 64;
+
+    @Value("${driver.navigation.route-cache.next-bucket-lead-ms:120000}")
+    private long nextBucketLeadMs = 120000;
+
+    private final Clock clock;
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final FrequencySketch sketch = new FrequencySketch(1 << 14);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private long weightBytes;
+
+    public RouteCache() {
+        this(Clock.systemUTC());
+    }
+
+    RouteCache(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Gets the cached route between the tiles of two points, computing and caching it on a miss.
+     *
+     * @param startLat Starting latitude
+     * @param startLng Starting longitude
+     * @param endLat Ending latitude
+     * @param endLng Ending longitude
+     * @param timeDependent Whether the route depends on the time of day, as with live traffic
+     * @param loader Computes the route on a miss
+     * @return The route, which cannot be modified
+     */
+    public Map<String, Object> get(double startLat, double startLng, double endLat, double endLng,
+                                   boolean timeDependent, Supplier<Map<String, Object>> loader) {
+        Key key = key(startLat, startLng, endLat, endLng, timeDependent ? bucket(clock.millis()) : 0);
+        synchronized (this) {
+            sketch.increment(key.hashCode());
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits.incrementAndGet();
+                return entry.route;
+            }
+        }
+        misses.incrementAndGet();
+        Map<String, Object> route = freeze(loader.get());
+        put(key, route, false);
+        return route;
+    }
+
+    /**
+     * Computes and caches a route unless it is already cached. A traffic-aware route is also
+     * cached for the next time bucket once that bucket is less than the lead time away.
+     *
+     * @param startLat Starting latitude
+     * @param startLng Starting longitude
+     * @param endLat Ending latitude
+     * @param endLng Ending longitude
+     * @param timeDependent Whether the route depends on the time of day, as with live traffic
+     * @param loader Computes the route
+     * @return True if a route was computed
+     */
+    public boolean prefetch(double startLat, double startLng, double endLat, double endLng,
+                            boolean timeDependent, Supplier<Map<String, Object>> loader) {
+        if (!timeDependent) {
+            return prefetch(key(startLat, startLng, endLat, endLng, 0), loader);
+        }
+        long now = clock.millis();
+        long bucket = bucket(now);
+        boolean computed = prefetch(key(startLat, startLng, endLat, endLng, bucket), loader);
+        if (bucket(now + nextBucketLeadMs) > bucket) {
+            computed |= prefetch(key(startLat, startLng, endLat, endLng, bucket + 1), loader);
+        }
+        return computed;
+    }
+
+    private boolean prefetch(Key key, Supplier<Map<String, Object>> loader) {
+        synchronized (this) {
+            if (entries.containsKey(key)) {
+                return false;
+            }
+        }
+        put(key, freeze(loader.get()), true);
+        return true;
+    }
+
+    /**
+     * Gets the share of lookups answered from the cache.
+     *
+     * @return The hit rate between 0 and 1
+     */
+    public double getHitRate() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Gets the number of cached routes.
+     *
+     * @return The route count
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the estimated memory held by cached routes.
+     *
+     * @return The size in bytes
+     */
+    public synchronized long getWeightBytes() {
+        return weightBytes;
+    }
+
+    private synchronized void put(Key key, Map<String, Object> route, boolean admitAlways) {
+        long maxBytes = (long) maxSizeMb * 1024 * 1024;
+        int weight = ENTRY_OVERHEAD_BYTES + estimateBytes(route);
+        if (weight > maxBytes) {
+            return;
+        }
+        // A route being replaced was admitted already
+        Entry previous = entries.get(key);
+        long freed = previous != null ? previous.weight : 0;
+
+        // Decide on admission before evicting anything, so a rejected newcomer costs no entries
+        List<Key> victims = new ArrayList<>();
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (weightBytes - freed + weight > maxBytes && eldest.hasNext()) {
+            Map.Entry<Key, Entry> victim = eldest.next();
+            if (victim.getKey().equals(key)) {
+                continue;
+            }
+            if (!admitAlways && previous == null
+                    && sketch.frequency(key.hashCode()) <= sketch.frequency(victim.getKey().hashCode())) {
+                // The victim is used at least as often; keep it and drop the newcomer
+                return;
+            }
+            victims.add(victim.getKey());
+            freed += victim.getValue().weight;
+        }
+        for (Key victim : victims) {
+            weightBytes -= entries.remove(victim).weight;
+        }
+        if (previous != null) {
+            weightBytes -= entries.remove(key).weight;
+        }
+        entries.put(key, new Entry(route, weight));
+        weightBytes += weight;
+        if (logger.isTraceEnabled()) {
+            logger.trace("Cached route {} ({} bytes, {} routes, {} bytes total)", key, weight, entries.size(), weightBytes);
+        }
+    }
+
+    private Key key(double startLat, double startLng, double endLat, double endLng, long timeBucket) {
+        return new Key(tile(startLat), tile(startLng), tile(endLat), tile(endLng), timeBucket);
+    }
+
+    private long bucket(long epochMillis) {
+        return epochMillis / (timeBucketMinutes * 60_000L);
+    }
+
+    private long tile(double degrees) {
+        return (long) Math.floor(degrees / tileDegrees);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T freeze(T value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>(map.size() * 2);
+            map.forEach((name, element) -> copy.put(name, freeze(element)));
+            return (T) Collections.unmodifiableMap(copy);
+        }
+        if (value instanceof Collection<?> collection) {
+            List<Object> copy = new ArrayList<>(collection.size());
+            collection.forEach(element -> copy.add(freeze(element)));
+            return (T) Collections.unmodifiableList(copy);
+        }
+        return value;
+    }
+
+    private static int estimateBytes(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof CharSequence text) {
+            return 40 + 2 * text.length();
+        }
+        if (value instanceof Map<?, ?> map) {
+            int bytes = 48;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                bytes += 32 + estimateBytes(entry.getKey()) + estimateBytes(entry.getValue());
+            }
+            return bytes;
+        }
+        if (value instanceof Collection<?> collection) {
+            int bytes = 40;
+            for (Object element : collection) {
+                bytes += 8 + estimateBytes(element);
+            }
+            return bytes;
+        }
+        return 24;
+    }
+
+    private record Key(long startRow, long startColumn, long endRow, long endColumn, long timeBucket) {
+    }
+
+    private record Entry(Map<String, Object> route, int weight) {
+    }
+
+    /**
+     * Count-min sketch of recent request counts, with counters capped at 15 and halved
+     * periodically so old popularity fades.
+     */
+    private static final class FrequencySketch {
+
+        private static final int DEPTH = 4;
+        private static final int MAX_COUNT = 15;
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+        private final int[][] counters;
+        private final int mask;
+        private final int resetAfter;
+        private int additions;
+
+        private FrequencySketch(int width) {
+            this.counters = new int[DEPTH][width];
+            this.mask = width - 1;
+            this.resetAfter = 10 * width;
+        }
+
+        private void increment(int hash) {
+            for (int row = 0; row < DEPTH; row++) {
+                int index = index(hash, row);
+                if (counters[row][index] < MAX_COUNT) {
+                    counters[row][index]++;
+                }
+            }
+            if (++additions >= resetAfter) {
+                for (int[] row : counters) {
+                    for (int i = 0; i < row.length; i++) {
+                        row[i] >>>= 1;
+                    }
+                }
+                additions /= 2;
+            }
+        }
+
+        private int frequency(int hash) {
+            int frequency = MAX_COUNT;
+            for (int row = 0; row < DEPTH; row++) {
+                frequency = Math.min(frequency, counters[row][index(hash, row)]);
+            }
+            return frequency;
+        }
+
+        private int index(int hash, int row) {
+            int mixed = hash * SEEDS[row];
+            return (mixed ^ (mixed >>> 16)) & mask;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.microecosystem.courier.driver.app.service.navigation;
+
+import com.microecosystem.courier.driver.app.service.assignment.ActiveStops;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Periodically prefetches the routes drivers on active assignments will ask for next, so
+ * navigation requests for their stops are answered from the {@link RouteCache}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RoutePrefetcher {
+
+    private final ActiveStops activeStops;
+    private final NavigationService navigationService;
+    private final RouteCache routeCache;
+
+    /**
+     * Prefetches routes between each active driver's position and upcoming stops.
+     */
+    @Scheduled(fixedDelayString = "${driver.navigation.route-prefetch-interval-ms:30000}")
+    public void prefetch() {
+        int computed = 0;
+        int drivers = 0;
+        for (ActiveStops.DriverStops driver : activeStops.all()) {
+            if (driver.getLatitude() == null || driver.getLongitude() == null) {
+                continue;
+            }
+            drivers++;
+            List<double[]> stops = driver.getStops().stream()
+                    .map(stop -> new double[]{stop.getLatitude(), stop.getLongitude()})
+                    .toList();
+            try {
+                computed += navigationService.prefetchRoutes(driver.getLatitude(), driver.getLongitude(), stops);
+            } catch (RuntimeException e) {
+                log.warn("Failed to prefetch routes for driver ID: {}: {}", driver.getDriverId(), e.getMessage());
+            }
+        }
+        if (computed > 0) {
+            log.debug("Prefetched {} routes for {} drivers; route cache hit rate {}", computed,
+                    drivers, String.format("%.2f", routeCache.getHitRate()));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.microecosystem.courier.driver.app.service.notification;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Push provider that only records what it was asked to send, for running and testing without
+ * Firebase. Tokens starting with {@value #INVALID_TOKEN_PREFIX} are reported as unregistered,
+ * and {@link #failNextCalls(int)} makes whole calls fail as if the provider were unavailable.
+ */
+@Component
+@ConditionalOnProperty(name = "driver.notification.provider", havingValue = "fake")
+@Slf4j
+public class FakePushProvider implements PushProvider {
+
+    public static final String INVALID_TOKEN_PREFIX = "invalid-";
+
+    private final int maxBatchSize;
+    private final List<SentBatch> sent = new ArrayList<>();
+    private int failuresLeft;
+
+    public FakePushProvider() {
+        this(500);
+    }
+
+    public FakePushProvider(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * A call made to the provider.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class SentBatch {
+
+        private final PushMessage message;
+        private final List<String> tokens;
+        /** Null unless the call went to a topic */
+        private final String topic;
+        private final boolean failed;
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    @Override
+    public synchronized List<PushResult> send(PushMessage message, List<String> tokens) {
+        if (tokens.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch of " + tokens.size() + " exceeds " + maxBatchSize + " tokens");
+        }
+        boolean fail = failuresLeft > 0;
+        sent.add(new SentBatch(message, List.copyOf(tokens), null, fail));
+        if (fail) {
+            failuresLeft--;
+            return Collections.nCopies(tokens.size(), PushResult.retryable("Simulated provider outage"));
+        }
+        List<PushResult> results = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            results.add(token.startsWith(INVALID_TOKEN_PREFIX)
+                    ? PushResult.invalidToken("Token is not registered")
+                    : PushResult.delivered("fake-" + UUID.randomUUID()));
+        }
+        log.debug("Fake push of {} to {} tokens", message.getTitle(), tokens.size());
+        return results;
+    }
+
+    @Override
+    public synchronized PushResult sendToTopic(PushMessage message, String topic, boolean highPriority,
+                                               Long timeToLive) {
+        boolean fail = failuresLeft > 0;
+        sent.add(new SentBatch(message, List.of(), topic, fail));
+        if (fail) {
+            failuresLeft--;
+            return PushResult.retryable("Simulated provider outage");
+        }
+        log.debug("Fake push of {} to topic {}", message.getTitle(), topic);
+        return PushResult.delivered("fake-" + UUID.randomUUID());
+    }
+
+    /**
+     * Makes the next calls fail with a retryable error.
+     *
+     * @param calls the number of calls to fail
+     */
+    public synchronized void failNextCalls(int calls) {
+        failuresLeft = calls;
+    }
+
+    /**
+     * Gets the calls made so far.
+     *
+     * @return the calls, oldest first
+     */
+    public synchronized List<SentBatch> getSent() {
+        return new ArrayList<>(sent);
+    }
+}
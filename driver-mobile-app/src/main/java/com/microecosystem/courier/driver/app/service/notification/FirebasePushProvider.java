@@ -0,0 +1,146 @@
+package com.microecosystem.courier.driver.app.service.notification;
+
+import com.google.firebase.ErrorCode;
+import com.google.firebase.messaging.AndroidConfig;
+import com.google.firebase.messaging.AndroidNotification;
+import com.google.firebase.messaging.ApnsConfig;
+import com.google.firebase.messaging.Aps;
+import com.google.firebase.messaging.BatchResponse;
+import com.google.firebase.messaging.FirebaseMessaging;
+import com.google.firebase.messaging.FirebaseMessagingException;
+import com.google.firebase.messaging.Message;
+import com.google.firebase.messaging.MessagingErrorCode;
+import com.google.firebase.messaging.MulticastMessage;
+import com.google.firebase.messaging.Notification;
+import com.google.firebase.messaging.SendResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Push provider using Firebase Cloud Messaging multicast.
+ */
+@Component
+@ConditionalOnProperty(name = "driver.notification.provider", havingValue = "firebase", matchIfMissing = true)
+@Slf4j
+public class FirebasePushProvider implements PushProvider {
+
+    // FCM accepts up to 500 tokens per multicast
+    private static final int MAX_BATCH_SIZE = 500;
+
+    private static final Set<MessagingErrorCode> INVALID_TOKEN_CODES = EnumSet.of(
+            MessagingErrorCode.UNREGISTERED, MessagingErrorCode.INVALID_ARGUMENT, MessagingErrorCode.SENDER_ID_MISMATCH);
+    private static final Set<MessagingErrorCode> RETRYABLE_CODES = EnumSet.of(
+            MessagingErrorCode.UNAVAILABLE, MessagingErrorCode.INTERNAL, MessagingErrorCode.QUOTA_EXCEEDED);
+    private static final Set<ErrorCode> RETRYABLE_ERRORS = EnumSet.of(
+            ErrorCode.UNAVAILABLE, ErrorCode.INTERNAL, ErrorCode.DEADLINE_EXCEEDED, ErrorCode.RESOURCE_EXHAUSTED);
+
+    @Override
+    public int getMaxBatchSize() {
+        return MAX_BATCH_SIZE;
+    }
+
+    @Override
+    public List<PushResult> send(PushMessage message, List<String> tokens) {
+        try {
+            BatchResponse response = FirebaseMessaging.getInstance().sendMulticast(buildMulticastMessage(message, tokens));
+            List<PushResult> results = new ArrayList<>(tokens.size());
+            for (SendResponse sendResponse : response.getResponses()) {
+                results.add(sendResponse.isSuccessful()
+                        ? PushResult.delivered(sendResponse.getMessageId())
+                        : toResult(sendResponse.getException()));
+            }
+            return results;
+        } catch (FirebaseMessagingException e) {
+            log.warn("Multicast to {} tokens failed: {}", tokens.size(), e.getMessage());
+            return Collections.nCopies(tokens.size(), toResult(e));
+        }
+    }
+
+    @Override
+    public PushResult sendToTopic(PushMessage message, String topic, boolean highPriority, Long timeToLive) {
+        try {
+            return PushResult.delivered(FirebaseMessaging.getInstance()
+                    .send(buildTopicMessage(message, topic, highPriority, timeToLive)));
+        } catch (FirebaseMessagingException e) {
+            log.warn("Send to topic {} failed: {}", topic, e.getMessage());
+            return toResult(e);
+        }
+    }
+
+    private static PushResult toResult(FirebaseMessagingException e) {
+        MessagingErrorCode code = e.getMessagingErrorCode();
+        if (code != null && INVALID_TOKEN_CODES.contains(code)) {
+            return PushResult.invalidToken(e.getMessage());
+        }
+        if ((code != null && RETRYABLE_CODES.contains(code)) || RETRYABLE_ERRORS.contains(e.getErrorCode())) {
+            return PushResult.retryable(e.getMessage());
+        }
+        return PushResult.failed(e.getMessage());
+    }
+
+    /**
+     * Build a Firebase multicast message for multiple recipients.
+     *
+     * @param message notification content
+     * @param tokens list of device tokens
+     * @return Firebase multicast message
+     */
+    private MulticastMessage buildMulticastMessage(PushMessage message, List<String> tokens) {
+        return MulticastMessage.builder()
+                .addAllTokens(tokens)
+                .setNotification(Notification.builder()
+                        .setTitle(message.getTitle())
+                        .setBody(message.getBody())
+                        .build())
+                .putAllData(message.getData())
+                .setAndroidConfig(AndroidConfig.builder()
+                        .setPriority(AndroidConfig.Priority.HIGH)
+                        .setNotification(AndroidNotification.builder()
+                                .setSound("default")
+                                .setClickAction("FLUTTER_NOTIFICATION_CLICK")
+                                .build())
+                        .build())
+                .setApnsConfig(ApnsConfig.builder()
+                        .setAps(Aps.builder()
+                                .setSound("default")
+                                .build())
+                        .build())
+                .build();
+    }
+
+    /**
+     * Build a Firebase message for a topic.
+     *
+     * @param message notification content
+     * @param topic topic name
+     * @param highPriority whether to send as high priority
+     * @param timeToLive time to live in seconds, or null for four weeks
+     * @return Firebase message
+     */
+    private Message buildTopicMessage(PushMessage message, String topic, boolean highPriority, Long timeToLive) {
+        return Message.builder()
+                .setTopic(topic)
+                .setNotification(Notification.builder()
+                        .setTitle(message.getTitle())
+                        .setBody(message.getBody())
+                        .build())
+                .putAllData(message.getData())
+                .setAndroidConfig(AndroidConfig.builder()
+                        .setPriority(highPriority ? AndroidConfig.Priority.HIGH : AndroidConfig.Priority.NORMAL)
+                        .setTtl(timeToLive != null ? timeToLive * 1000 : 2419200000L) // Default 4 weeks
+                        .build())
+                .setApnsConfig(ApnsConfig.builder()
+                        .setAps(Aps.builder()
+                                .setSound("default")
+                                .build())
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,24 @@
+package com.microecosystem.courier.driver.app.service.notification;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Totals of one {@link PushDispatcher#dispatch} call once every token has a final outcome.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class PushDispatchResult {
+
+    private final int delivered;
+    private final int invalidTokens;
+    private final int failed;
+    // Provider message ID of the first delivered notification
+    private final String messageId;
+
+    public int getTotal() {
+        return delivered + invalidTokens + failed;
+    }
+}
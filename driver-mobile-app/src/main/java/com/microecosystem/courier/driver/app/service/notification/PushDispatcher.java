@@ -0,0 +1,345 @@
+package com.microecosystem.courier.driver.app.service.notification;
+
+import com.microecosystem.courier.driver.app.repository.DriverRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends push notifications in multicast batches on its own bounded executor.
+ * <p>
+ * Tokens dispatched with equal content within the linger time are grouped into one batch of
+ * up to the provider's limit, so a depot-wide broadcast or a burst of identical assignment
+ * updates costs a handful of provider calls instead of one per driver. Calls are spaced to
+ * stay under the configured rate. Tokens the provider reports as unregistered are removed
+ * from their drivers, and transient failures are retried with exponential backoff. When the
+ * executor's queue is full the batch is rejected and its tokens count as failed, so neither the
+ * dispatching thread nor the timer thread ever makes a provider call itself. Stopping fails
+ * retries that are still waiting. Topic notifications take the same executor and rate limit
+ * but are sent once each, without batching or retries.
+ */
+@Component
+@Slf4j
+public class PushDispatcher {
+
+    private final PushProvider provider;
+    private final DriverRepository driverRepository;
+
+    @Value("${driver.notification.linger-ms:50}")
+    private long lingerMs = 50;
+
+    @Value("${driver.notification.threads:4}")
+    private int threads = 4;
+
+    @Value("${driver.notification.queue-capacity:1000}")
+    private int queueCapacity = 1000;
+
+    @Value("${driver.notification.max-calls-per-second:50}")
+    private int maxCallsPerSecond = 50;
+
+    @Value("${driver.notification.max-retries:3}")
+    private int maxRetries = 3;
+
+    @Value("${driver.notification.retry-delay-ms:1000}")
+    private long retryDelayMs = 1000;
+
+    private final Map<PushMessage, Batch> pending = new HashMap<>();
+    private final Set<Batch> retrying = ConcurrentHashMap.newKeySet();
+    private final Object rateLock = new Object();
+    private long nextCallNanos = System.nanoTime();
+    private ThreadPoolExecutor executor;
+    private ScheduledExecutorService scheduler;
+
+    public PushDispatcher(PushProvider provider, DriverRepository driverRepository) {
+        this.provider = provider;
+        this.driverRepository = driverRepository;
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("PushDispatcher-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("PushDispatcherTimer-"));
+    }
+
+    /**
+     * Sends batches still lingering, fails retries still waiting and waits briefly for sends in
+     * progress.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        List<Batch> remaining;
+        synchronized (pending) {
+            remaining = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+        remaining.forEach(this::submit);
+        scheduler.shutdownNow();
+        for (Batch retry : retrying) {
+            abandon(retry);
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Push dispatcher stopped with {} batches unsent", executor.getQueue().size());
+        }
+    }
+
+    /**
+     * Queues a notification for devices.
+     *
+     * @param message the notification
+     * @param tokens device tokens; blank and duplicate tokens are skipped
+     * @return completes once every token has been delivered, rejected or given up on
+     */
+    public CompletableFuture<PushDispatchResult> dispatch(PushMessage message, Collection<String> tokens) {
+        Set<String> unique = new LinkedHashSet<>();
+        for (String token : tokens) {
+            if (token != null && !token.isBlank()) {
+                unique.add(token);
+            }
+        }
+        if (unique.isEmpty()) {
+            return CompletableFuture.completedFuture(new PushDispatchResult(0, 0, 0, null));
+        }
+
+        Submission submission = new Submission(unique.size());
+        List<Batch> full = new ArrayList<>();
+        synchronized (pending) {
+            for (String token : unique) {
+                Batch batch = pending.get(message);
+                if (batch == null) {
+                    batch = new Batch(message, 0);
+                    pending.put(message, batch);
+                    Batch lingering = batch;
+                    scheduler.schedule(() -> flush(lingering), lingerMs, TimeUnit.MILLISECONDS);
+                }
+                batch.add(token, submission);
+                if (batch.tokens.size() >= provider.getMaxBatchSize()) {
+                    pending.remove(message);
+                    full.add(batch);
+                }
+            }
+        }
+        full.forEach(this::submit);
+        return submission.future;
+    }
+
+    /**
+     * Queues a notification for every device subscribed to a topic.
+     *
+     * @param message the notification
+     * @param topic the topic name
+     * @param highPriority whether to send as high priority
+     * @param timeToLive time to live in seconds, or null for the provider's default
+     * @return completes with the provider's result, or a failure if the queue is full
+     */
+    public CompletableFuture<PushResult> dispatchToTopic(PushMessage message, String topic, boolean highPriority,
+                                                         Long timeToLive) {
+        CompletableFuture<PushResult> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                acquirePermit();
+                try {
+                    future.complete(provider.sendToTopic(message, topic, highPriority, timeToLive));
+                } catch (RuntimeException e) {
+                    log.warn("Push provider call for topic {} failed: {}", topic, e.getMessage());
+                    future.complete(PushResult.failed(e.getMessage()));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Push queue is full, dropping notification to topic {}", topic);
+            future.complete(PushResult.failed("Push queue is full"));
+        }
+        return future;
+    }
+
+    private void flush(Batch batch) {
+        synchronized (pending) {
+            // Already sent because it filled up
+            if (pending.get(batch.message) != batch) {
+                return;
+            }
+            pending.remove(batch.message);
+        }
+        submit(batch);
+    }
+
+    private void submit(Batch batch) {
+        try {
+            executor.execute(() -> send(batch));
+        } catch (RejectedExecutionException e) {
+            log.warn("Push queue is full, dropping {} tokens", batch.tokens.size());
+            batch.owners.values().forEach(owners -> owners.forEach(Submission::failed));
+        }
+    }
+
+    private void abandon(Batch retry) {
+        if (retrying.remove(retry)) {
+            RejectedExecutionException stopped = new RejectedExecutionException("Push dispatcher stopped");
+            retry.owners.values().forEach(owners -> owners.forEach(owner -> owner.abort(stopped)));
+        }
+    }
+
+    private void send(Batch batch) {
+        acquirePermit();
+        List<PushResult> results;
+        try {
+            results = provider.send(batch.message, batch.tokens);
+        } catch (RuntimeException e) {
+            log.warn("Push provider call for {} tokens failed: {}", batch.tokens.size(), e.getMessage());
+            results = null;
+        }
+
+        List<String> invalid = new ArrayList<>();
+        List<Submission> invalidOwners = new ArrayList<>();
+        Batch retry = new Batch(batch.message, batch.attempt + 1);
+        for (int i = 0; i < batch.tokens.size(); i++) {
+            PushResult result = results != null && i < results.size() ? results.get(i) : PushResult.retryable(null);
+            String token = batch.tokens.get(i);
+            for (Submission owner : batch.owners.get(token)) {
+                switch (result.getStatus()) {
+                    case DELIVERED -> owner.delivered(result.getMessageId());
+                    case INVALID_TOKEN -> invalidOwners.add(owner);
+                    case RETRYABLE -> {
+                        if (batch.attempt < maxRetries) {
+                            retry.add(token, owner);
+                        } else {
+                            owner.failed();
+                        }
+                    }
+                    default -> owner.failed();
+                }
+            }
+            if (result.getStatus() == PushResult.Status.INVALID_TOKEN) {
+                invalid.add(token);
+            }
+        }
+
+        if (!invalid.isEmpty()) {
+            // Prune before completing, so callers see the tokens gone
+            pruneTokens(invalid);
+            invalidOwners.forEach(Submission::invalid);
+        }
+        if (!retry.tokens.isEmpty()) {
+            long delay = retryDelayMs << batch.attempt;
+            log.debug("Retrying {} tokens in {} ms (attempt {})", retry.tokens.size(), delay, retry.attempt);
+            retrying.add(retry);
+            try {
+                scheduler.schedule(() -> {
+                    if (retrying.remove(retry)) {
+                        submit(retry);
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                abandon(retry);
+            }
+        }
+    }
+
+    private void pruneTokens(List<String> tokens) {
+        try {
+            int cleared = driverRepository.clearDeviceTokens(tokens);
+            log.info("Removed {} unregistered device tokens from {} drivers", tokens.size(), cleared);
+        } catch (RuntimeException e) {
+            log.warn("Cannot remove unregistered device tokens: {}", e.getMessage());
+        }
+    }
+
+    private void acquirePermit() {
+        long wait;
+        synchronized (rateLock) {
+            long now = System.nanoTime();
+            nextCallNanos = Math.max(nextCallNanos, now);
+            wait = nextCallNanos - now;
+            nextCallNanos += TimeUnit.SECONDS.toNanos(1) / maxCallsPerSecond;
+        }
+        if (wait > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+
+    private static final class Batch {
+
+        private final PushMessage message;
+        private final int attempt;
+        private final List<String> tokens = new ArrayList<>();
+        // Submissions waiting on each token; a token dispatched twice is sent once
+        private final Map<String, List<Submission>> owners = new LinkedHashMap<>();
+
+        private Batch(PushMessage message, int attempt) {
+            this.message = message;
+            this.attempt = attempt;
+        }
+
+        private void add(String token, Submission owner) {
+            owners.computeIfAbsent(token, t -> {
+                tokens.add(t);
+                return new ArrayList<>();
+            }).add(owner);
+        }
+    }
+
+    private static final class Submission {
+
+        private final CompletableFuture<PushDispatchResult> future = new CompletableFuture<>();
+        private int remaining;
+        private int delivered;
+        private int invalid;
+        private int failed;
+        private String messageId;
+
+        private Submission(int tokens) {
+            this.remaining = tokens;
+        }
+
+        private synchronized void delivered(String id) {
+            delivered++;
+            if (messageId == null) {
+                messageId = id;
+            }
+            done();
+        }
+
+        private synchronized void invalid() {
+            invalid++;
+            done();
+        }
+
+        private synchronized void failed() {
+            failed++;
+            done();
+        }
+
+        private void abort(Throwable cause) {
+            future.completeExceptionally(cause);
+        }
+
+        private void done() {
+            if (--remaining == 0) {
+                future.complete(new PushDispatchResult(delivered, invalid, failed, messageId));
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.microecosystem.courier.driver.app.service.notification;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Content of a push notification. Notifications with equal content are sent together.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class PushMessage {
+
+    private final String title;
+    private final String body;
+    private final Map<String, String> data;
+
+    public PushMessage(String title, String body, Map<String, String> data) {
+        this.title = title;
+        this.body = body;
+        this.data = data == null ? Collections.emptyMap() : Collections.unmodifiableMap(new LinkedHashMap<>(data));
+    }
+}
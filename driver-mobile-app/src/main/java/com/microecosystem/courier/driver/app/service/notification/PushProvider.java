@@ -0,0 +1,39 @@
+package com.microecosystem.courier.driver.app.service.notification;
+
+import java.util.List;
+
+/**
+ * Sends one notification to many devices in a single call.
+ */
+public interface PushProvider {
+
+    /**
+     * Gets the most tokens the provider accepts in one call.
+     *
+     * @return the batch size limit
+     */
+    int getMaxBatchSize();
+
+    /**
+     * Sends a notification to devices. Failures of the whole call are reported as a result per
+     * token rather than thrown.
+     *
+     * @param message the notification
+     * @param tokens device tokens, at most {@link #getMaxBatchSize()}
+     * @return one result per token, in token order
+     */
+    List<PushResult> send(PushMessage message, List<String> tokens);
+
+    /**
+     * Sends a notification to every device subscribed to a topic. Failures are reported as the
+     * result rather than thrown.
+     *
+     * @param message the notification
+     * @param topic the topic name
+     * @param highPriority whether to send as high priority
+     * @param timeToLive how long the provider keeps the notification for offline devices, in
+     *                   seconds, or null for the provider's default
+     * @return the result
+     */
+    PushResult sendToTopic(PushMessage message, String topic, boolean highPriority, Long timeToLive);
+}
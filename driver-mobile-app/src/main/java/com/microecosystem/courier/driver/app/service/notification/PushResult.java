@@ -0,0 +1,46 @@
+package com.microecosystem.courier.driver.app.service.notification;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Outcome of a push notification for one device token.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class PushResult {
+
+    /**
+     * What happened to the notification.
+     */
+    public enum Status {
+        DELIVERED,
+        /** The token is no longer registered and should not be used again. */
+        INVALID_TOKEN,
+        /** The provider could not take the notification now; it may be sent again. */
+        RETRYABLE,
+        FAILED
+    }
+
+    private final Status status;
+    private final String messageId;
+    private final String error;
+
+    public static PushResult delivered(String messageId) {
+        return new PushResult(Status.DELIVERED, messageId, null);
+    }
+
+    public static PushResult invalidToken(String error) {
+        return new PushResult(Status.INVALID_TOKEN, null, error);
+    }
+
+    public static PushResult retryable(String error) {
+        return new PushResult(Status.RETRYABLE, null, error);
+    }
+
+    public static PushResult failed(String error) {
+        return new PushResult(Status.FAILED, null, error);
+    }
+}
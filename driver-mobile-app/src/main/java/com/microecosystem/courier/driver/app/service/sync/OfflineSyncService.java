@@ -1,21 +1,37 @@
 package com.microecosystem.courier.driver.app.service.sync;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Service for handling offline data synchronization for driver mobile app.
  * This service manages data synchronization between the mobile app and backend
  * when network connectivity is intermittent.
+ * <p>
+ * Operations are written to the {@link OperationLog} and flushed to disk before they are
+ * applied, and acknowledged once their transaction commits, so operations interrupted by a
+ * restart are replayed on startup. Operations on the same entity are applied in the order they
+ * were logged, even when they arrive in concurrent batches; each is applied in a transaction of
+ * its own, as the thread that drains a stripe may apply operations of other devices.
  */
 @Service
 public class OfflineSyncService {
@@ -28,7 +44,51 @@ public class OfflineSyncService {
     @Value("${driver.sync.conflict-resolution-strategy:SERVER_WINS}")
     private String conflictResolutionStrategy;
     
-    private final Map<String, Object> pendingSyncOperations = new ConcurrentHashMap<>();
+    private static final int ORDERING_STRIPES = 64;
+    
+    private final OperationLog operationLog;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate operationTransaction;
+    
+    // Operations waiting to be applied, by entity key stripe, in log order
+    private final List<Queue<PendingOperation>> stripes = new ArrayList<>(ORDERING_STRIPES);
+    private final Object sequencer = new Object();
+    
+    public OfflineSyncService(OperationLog operationLog, ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager) {
+        this.operationLog = operationLog;
+        this.objectMapper = objectMapper;
+        this.operationTransaction = new TransactionTemplate(transactionManager);
+        this.operationTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int i = 0; i < ORDERING_STRIPES; i++) {
+            stripes.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+    
+    /**
+     * Applies operations that were logged but not acknowledged before the last shutdown.
+     */
+    @PostConstruct
+    public void replayPendingOperations() {
+        List<OperationLog.Record> records = operationLog.recover();
+        if (records.isEmpty()) {
+            return;
+        }
+        logger.info("Replaying {} unacknowledged sync operations", records.size());
+        
+        for (OperationLog.Record record : records) {
+            try {
+                LoggedOperation logged = objectMapper.readValue(record.getPayload(), LoggedOperation.class);
+                PendingOperation pending = new PendingOperation(record.getSequence(), logged.getDeviceId(),
+                        logged.getOperation());
+                stripeOf(pending.operation).add(pending);
+            } catch (IOException e) {
+                logger.error("Dropping unreadable sync operation {}: {}", record.getSequence(), e.getMessage());
+                operationLog.acknowledge(record.getSequence());
+            }
+        }
+        stripes.forEach(this::drain);
+    }
     
     /**
      * Process a batch of offline operations that were performed on the mobile device.
@@ -37,7 +97,6 @@ public class OfflineSyncService {
      * @param operations List of operations to sync
      * @return Result of the sync operation
      */
-    @Transactional
     public SyncResult processSyncBatch(String deviceId, List<SyncOperation> operations) {
         logger.info("Processing sync batch for device {}: {} operations", deviceId, operations.size());
         
@@ -46,10 +105,14 @@ public class OfflineSyncService {
         result.setTotalOperations(operations.size());
         
         try {
+            List<PendingOperation> logged = log(deviceId, operations);
+            // Group commit: one flush makes the whole batch durable before any of it is applied
+            operationLog.sync();
+            
             // Process operations in batches
-            for (int i = 0; i < operations.size(); i += batchSize) {
-                int endIndex = Math.min(i + batchSize, operations.size());
-                List<SyncOperation> batch = operations.subList(i, endIndex);
+            for (int i = 0; i < logged.size(); i += batchSize) {
+                int endIndex = Math.min(i + batchSize, logged.size());
+                List<PendingOperation> batch = logged.subList(i, endIndex);
                 
                 processBatch(deviceId, batch, result);
             }
@@ -64,6 +127,36 @@ public class OfflineSyncService {
         return result;
     }
     
+    /**
+     * Appends operations to the operation log and queues them for processing.
+     * 
+     * @param deviceId The ID of the mobile device
+     * @param operations Operations to log
+     * @return The logged operations, in order
+     */
+    private List<PendingOperation> log(String deviceId, List<SyncOperation> operations) {
+        List<byte[]> payloads = new ArrayList<>(operations.size());
+        for (SyncOperation operation : operations) {
+            try {
+                payloads.add(objectMapper.writeValueAsBytes(new LoggedOperation(deviceId, operation)));
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("Cannot serialize operation " + operation.getId(), e);
+            }
+        }
+        
+        List<PendingOperation> logged = new ArrayList<>(operations.size());
+        // Log order and queue order must agree, or two batches could apply an entity's operations out of order
+        synchronized (sequencer) {
+            for (int i = 0; i < operations.size(); i++) {
+                PendingOperation pending = new PendingOperation(operationLog.append(payloads.get(i)), deviceId,
+                        operations.get(i));
+                stripeOf(pending.operation).add(pending);
+                logged.add(pending);
+            }
+        }
+        return logged;
+    }
+    
     /**
      * Process a single batch of operations.
      * 
@@ -71,21 +164,67 @@ public class OfflineSyncService {
      * @param batch List of operations to process
      * @param result Result object to update
      */
-    private void processBatch(String deviceId, List<SyncOperation> batch, SyncResult result) {
+    private void processBatch(String deviceId, List<PendingOperation> batch, SyncResult result) {
         logger.debug("Processing batch of {} operations for device {}", batch.size(), deviceId);
         
-        for (SyncOperation operation : batch) {
-            boolean operationSuccess = processOperation(deviceId, operation);
+        for (PendingOperation pending : batch) {
+            // Applies any earlier operations on the same entity first, including other devices' ones
+            drain(stripeOf(pending.operation));
             
-            if (operationSuccess) {
+            if (pending.success) {
                 result.incrementSuccessCount();
             } else {
                 result.incrementFailureCount();
-                result.addFailedOperation(operation);
+                result.addFailedOperation(pending.operation);
             }
         }
     }
     
+    /**
+     * Applies and acknowledges the queued operations of a stripe in log order. A caller that
+     * finds another thread draining waits for it, after which its own operations are done.
+     * 
+     * @param stripe The stripe to drain
+     */
+    private void drain(Queue<PendingOperation> stripe) {
+        synchronized (stripe) {
+            PendingOperation pending;
+            while ((pending = stripe.poll()) != null) {
+                apply(pending);
+            }
+        }
+    }
+    
+    /**
+     * Applies one operation in its own transaction. The operation is acknowledged only after
+     * the commit, so a crash in between replays it rather than losing it. A failed operation is
+     * acknowledged too: nothing of it was committed and the failure is reported to the device.
+     * 
+     * @param pending The operation to apply
+     */
+    private void apply(PendingOperation pending) {
+        try {
+            pending.success = Boolean.TRUE.equals(operationTransaction.execute(status -> {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        operationLog.acknowledge(pending.sequence);
+                    }
+                });
+                return processOperation(pending.deviceId, pending.operation);
+            }));
+        } catch (RuntimeException e) {
+            logger.error("Error applying operation {}: {}", pending.operation.getId(), e.getMessage(), e);
+            pending.success = false;
+            operationLog.acknowledge(pending.sequence);
+        }
+    }
+    
+    private Queue<PendingOperation> stripeOf(SyncOperation operation) {
+        String key = operation.getEntityType() + ":" + operation.getEntityId();
+        return stripes.get(Math.floorMod(key.hashCode(), ORDERING_STRIPES));
+    }
+    
     /**
      * Process a single operation.
      * 
@@ -164,14 +303,73 @@ public class OfflineSyncService {
     public boolean clearPendingOperations(String deviceId) {
         logger.info("Clearing pending operations for device {}", deviceId);
         
-        // In a real implementation, this would clear pending operations from database
-        // For simulation purposes, we're just returning true
-        
-        pendingSyncOperations.remove(deviceId);
+        int cleared = 0;
+        for (Queue<PendingOperation> stripe : stripes) {
+            synchronized (stripe) {
+                Iterator<PendingOperation> iterator = stripe.iterator();
+                while (iterator.hasNext()) {
+                    PendingOperation pending = iterator.next();
+                    if (deviceId.equals(pending.deviceId)) {
+                        iterator.remove();
+                        operationLog.acknowledge(pending.sequence);
+                        cleared++;
+                    }
+                }
+            }
+        }
+        logger.debug("Cleared {} pending operations for device {}", cleared, deviceId);
         
         return true;
     }
     
+    /**
+     * An operation that has been logged but not yet applied.
+     */
+    private static class PendingOperation {
+        private final long sequence;
+        private final String deviceId;
+        private final SyncOperation operation;
+        private volatile boolean success;
+        
+        private PendingOperation(long sequence, String deviceId, SyncOperation operation) {
+            this.sequence = sequence;
+            this.deviceId = deviceId;
+            this.operation = operation;
+        }
+    }
+    
+    /**
+     * Form in which an operation is stored in the operation log.
+     */
+    public static class LoggedOperation {
+        private String deviceId;
+        private SyncOperation operation;
+        
+        public LoggedOperation() {
+        }
+        
+        public LoggedOperation(String deviceId, SyncOperation operation) {
+            this.deviceId = deviceId;
+            this.operation = operation;
+        }
+        
+        public String getDeviceId() {
+            return deviceId;
+        }
+        
+        public void setDeviceId(String deviceId) {
+            this.deviceId = deviceId;
+        }
+        
+        public SyncOperation getOperation() {
+            return operation;
+        }
+        
+        public void setOperation(SyncOperation operation) {
+            this.operation = operation;
+        }
+    }
+    
     /**
      * Represents a synchronization operation from a mobile device.
      */
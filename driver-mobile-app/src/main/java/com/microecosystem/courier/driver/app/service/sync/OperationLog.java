@@ -0,0 +1,377 @@
+package com.microecosystem.courier.driver.app.service.sync;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Durable, segmented, append-only log of offline operations received from devices.
+ * <p>
+ * Records are copied into memory-mapped segment files, so an append costs a memory copy and a
+ * checksum and survives the process being killed as soon as it returns. {@link #sync()} forces
+ * the segments to disk for power-loss safety; callers waiting on a sync while another is
+ * running are covered by the next one, so concurrent batches share a single disk flush.
+ * Acknowledgements are appended as records too; on startup the segments are scanned, a torn
+ * record at the tail is discarded, and operations without an acknowledgement are returned by
+ * {@link #recover()} in append order. The oldest segments are deleted once every operation in
+ * them has been acknowledged.
+ */
+@Component
+public class OperationLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(OperationLog.class);
+
+    private static final String SEGMENT_SUFFIX = ".log";
+    // Record layout: body length, CRC32C of the body, then the body: type, sequence, payload
+    private static final int HEADER_BYTES = 8;
+    private static final int BODY_PREFIX_BYTES = 9;
+    private static final byte TYPE_OPERATION = 1;
+    private static final byte TYPE_ACK = 2;
+
+    private final Path directory;
+    private final int segmentSize;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Object syncMonitor = new Object();
+    private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+    private final Set<Segment> unsynced = new LinkedHashSet<>();
+    // Segment holding each unacknowledged operation
+    private final Map<Long, Segment> owners = new HashMap<>();
+    private final Map<Long, Record> recovered = new LinkedHashMap<>();
+    private Segment active;
+    private long nextSequence = 1;
+    private long nextSegmentId = 1;
+    private volatile long written;
+    private volatile long synced;
+
+    public OperationLog(@Value("${driver.sync.oplog.directory:data/oplog}") String directory,
+                        @Value("${driver.sync.oplog.segment-size-kb:16384}") int segmentSizeKb) {
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSizeKb * 1024;
+    }
+
+    /**
+     * An operation read back from the log.
+     */
+    public static class Record {
+
+        private final long sequence;
+        private final byte[] payload;
+
+        Record(long sequence, byte[] payload) {
+            this.sequence = sequence;
+            this.payload = payload;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public byte[] getPayload() {
+            return payload;
+        }
+    }
+
+    /**
+     * Opens the log, scanning existing segments for unacknowledged operations.
+     */
+    @PostConstruct
+    public void open() {
+        appendLock.lock();
+        try {
+            Files.createDirectories(directory);
+            List<Path> files;
+            try (Stream<Path> listing = Files.list(directory)) {
+                files = listing.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                        .sorted()
+                        .toList();
+            }
+            for (int i = 0; i < files.size(); i++) {
+                Path file = files.get(i);
+                String name = file.getFileName().toString();
+                Segment segment = new Segment(file, Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+                segments.put(segment.id, segment);
+                nextSegmentId = segment.id + 1;
+                scan(segment, i == files.size() - 1);
+            }
+            if (segments.isEmpty()) {
+                roll();
+            } else {
+                active = segments.lastEntry().getValue();
+            }
+            unsynced.add(active);
+            compact();
+            logger.info("Opened operation log in {} with {} segments and {} unacknowledged operations",
+                    directory, segments.size(), recovered.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open operation log in " + directory, e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the operations that were not acknowledged before the last shutdown or crash, in
+     * append order. Later calls return only those still unacknowledged.
+     *
+     * @return the unacknowledged operations
+     */
+    public List<Record> recover() {
+        appendLock.lock();
+        try {
+            return new ArrayList<>(recovered.values());
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Appends an operation. It survives a process crash once this returns, and a power loss
+     * once a following {@link #sync()} returns.
+     *
+     * @param payload the serialized operation
+     * @return the operation's sequence number
+     */
+    public long append(byte[] payload) {
+        appendLock.lock();
+        try {
+            long sequence = nextSequence++;
+            write(TYPE_OPERATION, sequence, payload);
+            active.unacknowledged++;
+            owners.put(sequence, active);
+            return sequence;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Marks an operation as processed so it is not recovered again, and deletes segments that
+     * no longer hold unacknowledged operations.
+     *
+     * @param sequence the operation's sequence number
+     */
+    public void acknowledge(long sequence) {
+        appendLock.lock();
+        try {
+            Segment owner = owners.remove(sequence);
+            if (owner == null) {
+                return;
+            }
+            write(TYPE_ACK, sequence, new byte[0]);
+            recovered.remove(sequence);
+            owner.unacknowledged--;
+            compact();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Forces everything appended so far to disk.
+     */
+    public void sync() {
+        long target = written;
+        if (synced >= target) {
+            return;
+        }
+        synchronized (syncMonitor) {
+            // Another caller may have flushed past our records while we waited
+            if (synced >= target) {
+                return;
+            }
+            long upTo;
+            List<Segment> dirty;
+            appendLock.lock();
+            try {
+                upTo = written;
+                dirty = new ArrayList<>(unsynced);
+                unsynced.clear();
+                unsynced.add(active);
+            } finally {
+                appendLock.unlock();
+            }
+            for (Segment segment : dirty) {
+                segment.buffer.force();
+            }
+            synced = upTo;
+        }
+    }
+
+    /**
+     * Gets the number of segment files.
+     *
+     * @return the segment count
+     */
+    public int segmentCount() {
+        appendLock.lock();
+        try {
+            return segments.size();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        sync();
+        appendLock.lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void write(byte type, long sequence, byte[] payload) {
+        int bodyLength = BODY_PREFIX_BYTES + payload.length;
+        if (HEADER_BYTES + bodyLength > segmentSize) {
+            throw new IllegalArgumentException("Operation of " + payload.length + " bytes does not fit in a log segment");
+        }
+        if (active.position + HEADER_BYTES + bodyLength > segmentSize) {
+            roll();
+        }
+        MappedByteBuffer buffer = active.buffer;
+        int start = active.position;
+        buffer.position(start + HEADER_BYTES);
+        buffer.put(type).putLong(sequence).put(payload);
+
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(start + HEADER_BYTES, bodyLength));
+        buffer.putInt(start + 4, (int) crc.getValue());
+        // The length goes in last; a reader stops at a zero length
+        buffer.putInt(start, bodyLength);
+        active.position = start + HEADER_BYTES + bodyLength;
+        written++;
+    }
+
+    private void roll() {
+        try {
+            Path file = directory.resolve(String.format("%020d%s", nextSegmentId, SEGMENT_SUFFIX));
+            Segment segment = new Segment(file, nextSegmentId++);
+            segments.put(segment.id, segment);
+            active = segment;
+            unsynced.add(segment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create operation log segment", e);
+        }
+    }
+
+    private void compact() {
+        while (segments.size() > 1) {
+            Segment oldest = segments.firstEntry().getValue();
+            if (oldest == active || oldest.unacknowledged > 0) {
+                return;
+            }
+            segments.remove(oldest.id);
+            oldest.close();
+            try {
+                Files.deleteIfExists(oldest.file);
+            } catch (IOException e) {
+                logger.warn("Cannot delete operation log segment {}: {}", oldest.file, e.getMessage());
+            }
+        }
+    }
+
+    private void scan(Segment segment, boolean last) {
+        MappedByteBuffer buffer = segment.buffer;
+        int position = 0;
+        while (position + HEADER_BYTES <= segmentSize) {
+            int bodyLength = buffer.getInt(position);
+            if (bodyLength == 0) {
+                break;
+            }
+            if (bodyLength < BODY_PREFIX_BYTES || position + HEADER_BYTES + bodyLength > segmentSize
+                    || !checksumMatches(buffer, position, bodyLength)) {
+                if (last) {
+                    logger.warn("Discarding torn operation log record at {} in {}", position, segment.file);
+                    for (int i = position; i < segmentSize; i++) {
+                        buffer.put(i, (byte) 0);
+                    }
+                } else {
+                    logger.error("Corrupt operation log record at {} in {}; skipping the rest of the segment",
+                            position, segment.file);
+                }
+                break;
+            }
+            byte type = buffer.get(position + HEADER_BYTES);
+            long sequence = buffer.getLong(position + HEADER_BYTES + 1);
+            if (type == TYPE_OPERATION) {
+                byte[] payload = new byte[bodyLength - BODY_PREFIX_BYTES];
+                buffer.get(position + HEADER_BYTES + BODY_PREFIX_BYTES, payload);
+                recovered.put(sequence, new Record(sequence, payload));
+                owners.put(sequence, segment);
+                segment.unacknowledged++;
+                nextSequence = Math.max(nextSequence, sequence + 1);
+            } else if (type == TYPE_ACK) {
+                Segment owner = owners.remove(sequence);
+                if (owner != null) {
+                    recovered.remove(sequence);
+                    owner.unacknowledged--;
+                }
+                // Sequences of operations in deleted segments are still taken
+                nextSequence = Math.max(nextSequence, sequence + 1);
+            }
+            position += HEADER_BYTES + bodyLength;
+        }
+        segment.position = position;
+    }
+
+    private static boolean checksumMatches(MappedByteBuffer buffer, int position, int bodyLength) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(position + HEADER_BYTES, bodyLength));
+        return (int) crc.getValue() == buffer.getInt(position + 4);
+    }
+
+    private final class Segment {
+
+        private final Path file;
+        private final long id;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private int position;
+        private int unacknowledged;
+
+        private Segment(Path file, long id) throws IOException {
+            this.file = file;
+            this.id = id;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+
+        private void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("Cannot close operation log segment {}: {}", file, e.getMessage());
+            }
+        }
+    }
+}
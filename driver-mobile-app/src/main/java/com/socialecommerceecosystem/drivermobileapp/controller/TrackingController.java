@@ -1,9 +1,9 @@
 package com.gogidix.courier.drivermobileapp.controller;
 
-import com.socialecommerceecosystem.drivermobileapp.dto.tracking.DeliveryConfirmationDTO;
-import com.socialecommerceecosystem.drivermobileapp.dto.tracking.TrackingEventDTO;
-import com.socialecommerceecosystem.drivermobileapp.dto.tracking.TrackingInfoDTO;
-import com.socialecommerceecosystem.drivermobileapp.service.TrackingService;
+import com.gogidix.courier.drivermobileapp.dto.tracking.DeliveryConfirmationDTO;
+import com.gogidix.courier.drivermobileapp.dto.tracking.TrackingEventDTO;
+import com.gogidix.courier.drivermobileapp.dto.tracking.TrackingInfoDTO;
+import com.gogidix.courier.drivermobileapp.service.TrackingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
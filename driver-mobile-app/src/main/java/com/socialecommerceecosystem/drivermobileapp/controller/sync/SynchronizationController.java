@@ -1,10 +1,12 @@
 package com.gogidix.courier.drivermobileapp.controller.sync;
 
-import com.socialecommerceecosystem.drivermobileapp.dto.assignment.OfflineSyncRequestDTO;
-import com.socialecommerceecosystem.drivermobileapp.dto.assignment.OfflineSyncResponseDTO;
-import com.socialecommerceecosystem.drivermobileapp.dto.tracking.DeliveryConfirmationDTO;
-import com.socialecommerceecosystem.drivermobileapp.dto.tracking.TrackingEventDTO;
-import com.socialecommerceecosystem.drivermobileapp.service.sync.SynchronizationService;
+import com.gogidix.courier.drivermobileapp.dto.assignment.OfflineSyncRequestDTO;
+import com.gogidix.courier.drivermobileapp.dto.assignment.OfflineSyncResponseDTO;
+import com.gogidix.courier.drivermobileapp.dto.sync.DeltaSyncRequestDTO;
+import com.gogidix.courier.drivermobileapp.dto.sync.DeltaSyncResponseDTO;
+import com.gogidix.courier.drivermobileapp.dto.tracking.DeliveryConfirmationDTO;
+import com.gogidix.courier.drivermobileapp.dto.tracking.TrackingEventDTO;
+import com.gogidix.courier.drivermobileapp.service.sync.SynchronizationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -168,6 +170,36 @@ public class SynchronizationController {
         ));
     }
     
+    /**
+     * Fetch the changes a device has not seen yet.
+     *
+     * @param courierId the courier ID
+     * @param request the device's epoch, cursors and page size
+     * @return a page of changes and the cursors for the next request
+     */
+    @PostMapping("/changes/{courierId}")
+    @Operation(
+        summary = "Fetch changes",
+        description = "Retrieves compacted assignment and task changes after the device's change sequences, "
+                + "with tombstones for deleted entities",
+        responses = {
+            @ApiResponse(
+                responseCode = "200",
+                description = "Changes retrieved successfully",
+                content = @Content(schema = @Schema(implementation = DeltaSyncResponseDTO.class))
+            ),
+            @ApiResponse(responseCode = "403", description = "Courier belongs to another user")
+        }
+    )
+    @PreAuthorize("hasRole('DRIVER') and @courierSecurityService.isCurrentCourier(#courierId)")
+    public ResponseEntity<DeltaSyncResponseDTO> fetchChanges(
+            @PathVariable String courierId,
+            @Valid @RequestBody DeltaSyncRequestDTO request) {
+        
+        log.info("REST request to fetch changes for courier: {}", courierId);
+        return ResponseEntity.ok(synchronizationService.fetchChanges(courierId, request));
+    }
+    
     /**
      * Get synchronization status.
      *
@@ -0,0 +1,30 @@
+package com.gogidix.courier.drivermobileapp.dto.sync;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import java.util.Map;
+
+/**
+ * DTO for requesting the changes a device has not seen yet
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeltaSyncRequestDTO {
+
+    /** Epoch returned by the previous sync, or null on first sync */
+    private String epoch;
+
+    /** Highest sequence the device holds, per entity type */
+    private Map<String, Long> cursors;
+
+    @Min(value = 1, message = "Page size must be at least 1")
+    @Max(value = 500, message = "Page size must be at most 500")
+    private Integer pageSize;
+}
@@ -0,0 +1,35 @@
+package com.gogidix.courier.drivermobileapp.dto.sync;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO for one page of changes since the device's cursors
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeltaSyncResponseDTO {
+
+    private String courierId;
+
+    /** Identifies the change log; a different epoch means the device must drop its local copy */
+    private String epoch;
+
+    /** True if the device's cursors no longer apply and the changes are a full snapshot */
+    private boolean reset;
+
+    /** Cursors to send with the next request, per entity type */
+    private Map<String, Long> cursors;
+
+    /** True if more changes are waiting and the device should request the next page */
+    private boolean hasMore;
+
+    private List<SyncChangeDTO> changes;
+}
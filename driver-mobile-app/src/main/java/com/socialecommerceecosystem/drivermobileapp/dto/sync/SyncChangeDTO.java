@@ -0,0 +1,27 @@
+package com.gogidix.courier.drivermobileapp.dto.sync;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for the latest change to one entity; deleted entities carry no data
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncChangeDTO {
+
+    private String entityType;
+
+    private String entityId;
+
+    private long sequence;
+
+    private boolean deleted;
+
+    private JsonNode data;
+}
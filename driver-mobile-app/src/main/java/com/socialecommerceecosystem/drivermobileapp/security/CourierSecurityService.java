@@ -0,0 +1,40 @@
+package com.gogidix.courier.drivermobileapp.security;
+
+import com.gogidix.courier.drivermobileapp.repository.CourierProfileRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+/**
+ * Authorization checks on courier-scoped endpoints.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CourierSecurityService {
+
+    private final CourierProfileRepository courierProfileRepository;
+
+    /**
+     * Checks if the authenticated user is the courier with the given ID.
+     *
+     * @param courierId the courier ID to check
+     * @return true if the current user owns the courier profile
+     */
+    public boolean isCurrentCourier(String courierId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated() || courierId == null) {
+            return false;
+        }
+
+        boolean owner = courierProfileRepository.findByUsername(authentication.getName())
+                .map(profile -> courierId.equals(profile.getCourierId()))
+                .orElse(false);
+        if (!owner) {
+            log.warn("User {} denied access to data of courier: {}", authentication.getName(), courierId);
+        }
+        return owner;
+    }
+}
@@ -1,8 +1,8 @@
 package com.gogidix.courier.drivermobileapp.service;
 
-import com.socialecommerceecosystem.drivermobileapp.dto.tracking.DeliveryConfirmationDTO;
-import com.socialecommerceecosystem.drivermobileapp.dto.tracking.TrackingEventDTO;
-import com.socialecommerceecosystem.drivermobileapp.dto.tracking.TrackingInfoDTO;
+import com.gogidix.courier.drivermobileapp.dto.tracking.DeliveryConfirmationDTO;
+import com.gogidix.courier.drivermobileapp.dto.tracking.TrackingEventDTO;
+import com.gogidix.courier.drivermobileapp.dto.tracking.TrackingInfoDTO;
 
 import java.util.List;
 import java.util.Map;
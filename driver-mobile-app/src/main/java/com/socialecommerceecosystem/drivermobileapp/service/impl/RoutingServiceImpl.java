@@ -16,7 +16,6 @@ import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.time.Duration;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -31,8 +30,16 @@ public class RoutingServiceImpl implements RoutingService {
     private final ObjectMapper objectMapper;
     private final RedisTemplate<String, Object> redisTemplate;
     
-    // Local cache for brief storage of routes during service disruptions
-    private final Map<String, RouteDTO> routeCache = new ConcurrentHashMap<>();
+    private static final int MAX_CACHED_ROUTES = 500;
+    
+    // Local cache for brief storage of routes during service disruptions, evicting the least recently used
+    private final Map<String, RouteDTO> routeCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(64, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, RouteDTO> eldest) {
+                    return size() > MAX_CACHED_ROUTES;
+                }
+            });
     
     @Override
     @CircuitBreaker(name = "routingService", fallbackMethod = "getRouteFallback")
@@ -1,27 +1,31 @@
 package com.gogidix.courier.drivermobileapp.service.impl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.socialecommerceecosystem.drivermobileapp.client.tracking.TrackingServiceClient;
-import com.socialecommerceecosystem.drivermobileapp.dto.tracking.DeliveryConfirmationDTO;
-import com.socialecommerceecosystem.drivermobileapp.dto.tracking.TrackingEventDTO;
-import com.socialecommerceecosystem.drivermobileapp.dto.tracking.TrackingInfoDTO;
-import com.socialecommerceecosystem.drivermobileapp.exception.ResourceNotFoundException;
-import com.socialecommerceecosystem.drivermobileapp.service.TrackingService;
+import com.gogidix.courier.drivermobileapp.client.tracking.TrackingServiceClient;
+import com.gogidix.courier.drivermobileapp.dto.tracking.DeliveryConfirmationDTO;
+import com.gogidix.courier.drivermobileapp.dto.tracking.TrackingEventDTO;
+import com.gogidix.courier.drivermobileapp.dto.tracking.TrackingInfoDTO;
+import com.gogidix.courier.drivermobileapp.exception.ResourceNotFoundException;
+import com.gogidix.courier.drivermobileapp.service.TrackingService;
+import com.gogidix.courier.drivermobileapp.service.tracking.TrackingStore;
+import com.gogidix.courier.drivermobileapp.service.tracking.TrackingStore.PackageTrackingData;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
  * Implementation of the TrackingService interface.
+ * <p>
+ * Tracking info and the events and confirmations recorded offline are kept in the
+ * {@link TrackingStore}, so they survive restarts and are shared by all instances. Offline
+ * synchronization reads a courier's pending data in two round trips and writes the results
+ * back in one, however many items are pending.
  */
 @Service
 @RequiredArgsConstructor
@@ -30,12 +34,7 @@ public class TrackingServiceImpl implements TrackingService {
     
     private final TrackingServiceClient trackingServiceClient;
     private final ObjectMapper objectMapper;
-    private final RedisTemplate<String, Object> redisTemplate;
-    
-    // Local cache for offline operations
-    private final Map<String, TrackingInfoDTO> packageCache = new ConcurrentHashMap<>();
-    private final Map<String, List<TrackingEventDTO>> offlineEvents = new ConcurrentHashMap<>();
-    private final Map<String, DeliveryConfirmationDTO> offlineConfirmations = new ConcurrentHashMap<>();
+    private final TrackingStore trackingStore;
     
     @Override
     @CircuitBreaker(name = "trackingService", fallbackMethod = "getTrackingInfoFallback")
@@ -45,7 +44,7 @@ public class TrackingServiceImpl implements TrackingService {
         // Check if this is a package ID request (with "pkg:" prefix)
         if (trackingNumber.startsWith("pkg:")) {
             String packageId = trackingNumber.substring(4);
-            TrackingInfoDTO cachedInfo = packageCache.get(packageId);
+            TrackingInfoDTO cachedInfo = trackingStore.getPackage(packageId);
             if (cachedInfo != null) {
                 return cachedInfo;
             }
@@ -62,7 +61,6 @@ public class TrackingServiceImpl implements TrackingService {
         
         // Cache tracking info
         if (trackingInfo.getPackageId() != null) {
-            packageCache.put(trackingInfo.getPackageId(), trackingInfo);
             cachePackageInRedis(trackingInfo);
         }
         
@@ -89,7 +87,6 @@ public class TrackingServiceImpl implements TrackingService {
         TrackingInfoDTO trackingInfo = convertToTrackingInfoDTO(response.getBody());
         
         // Update cache
-        packageCache.put(packageId, trackingInfo);
         cachePackageInRedis(trackingInfo);
         
         return trackingInfo;
@@ -100,23 +97,11 @@ public class TrackingServiceImpl implements TrackingService {
     public TrackingInfoDTO confirmDelivery(DeliveryConfirmationDTO confirmation) {
         log.info("Confirming delivery for package ID: {}", confirmation.getPackageId());
         
-        Map<String, Object> confirmationData = objectMapper.convertValue(confirmation, Map.class);
-        
-        ResponseEntity<Map<String, Object>> response = trackingServiceClient.confirmDelivery(
-                confirmation.getPackageId(), confirmationData);
-        
-        if (response.getBody() == null) {
-            throw new ResourceNotFoundException("Package not found with id: " + confirmation.getPackageId());
-        }
-        
-        TrackingInfoDTO trackingInfo = convertToTrackingInfoDTO(response.getBody());
-        
-        // Update cache
-        packageCache.put(confirmation.getPackageId(), trackingInfo);
-        cachePackageInRedis(trackingInfo);
+        TrackingInfoDTO trackingInfo = sendDeliveryConfirmation(confirmation);
         
-        // Remove from offline confirmations if present
-        offlineConfirmations.remove(confirmation.getPackageId());
+        // Update cache and remove from offline confirmations if present
+        trackingStore.completeSync(List.of(trackingInfo), Map.of(), List.of(confirmation.getPackageId()),
+                confirmation.getDriverId());
         
         return trackingInfo;
     }
@@ -126,26 +111,13 @@ public class TrackingServiceImpl implements TrackingService {
     public TrackingInfoDTO addTrackingEvent(TrackingEventDTO event) {
         log.info("Adding tracking event for package ID: {}", event.getPackageId());
         
-        Map<String, Object> eventData = objectMapper.convertValue(event, Map.class);
+        TrackingInfoDTO trackingInfo = sendTrackingEvent(event);
         
-        ResponseEntity<Map<String, Object>> response = trackingServiceClient.addTrackingEvent(
-                event.getPackageId(), eventData);
-        
-        if (response.getBody() == null) {
-            throw new ResourceNotFoundException("Package not found with id: " + event.getPackageId());
-        }
-        
-        TrackingInfoDTO trackingInfo = convertToTrackingInfoDTO(response.getBody());
-        
-        // Update cache
-        packageCache.put(event.getPackageId(), trackingInfo);
-        cachePackageInRedis(trackingInfo);
-        
-        // Remove from offline events if present
-        offlineEvents.computeIfPresent(event.getPackageId(), (key, events) -> {
-            events.removeIf(e -> Objects.equals(e.getId(), event.getId()));
-            return events.isEmpty() ? null : events;
-        });
+        // Update cache and remove from offline events if present
+        Map<String, List<String>> syncedEventIds = event.getId() != null
+                ? Map.of(event.getPackageId(), List.of(event.getId()))
+                : Map.of();
+        trackingStore.completeSync(List.of(trackingInfo), syncedEventIds, List.of(), event.getDriverId());
         
         return trackingInfo;
     }
@@ -157,39 +129,39 @@ public class TrackingServiceImpl implements TrackingService {
             log.info("Getting all offline tracking events");
             List<TrackingEventDTO> allEvents = new ArrayList<>();
             
-            for (List<TrackingEventDTO> events : offlineEvents.values()) {
-                allEvents.addAll(events);
+            for (PackageTrackingData data : trackingStore.getOfflineData(null)) {
+                allEvents.addAll(data.getOfflineEvents());
             }
             
             return allEvents;
         }
         
-        TrackingInfoDTO trackingInfo = packageCache.get(packageId);
+        // Tracking info and offline events come from the same hash in one read
+        PackageTrackingData data = trackingStore.getPackageData(packageId);
+        TrackingInfoDTO trackingInfo = data.getInfo();
         
-        if (trackingInfo != null && trackingInfo.getEvents() != null) {
-            // Add any offline events
-            List<TrackingEventDTO> events = new ArrayList<>(trackingInfo.getEvents());
-            
-            if (offlineEvents.containsKey(packageId)) {
-                events.addAll(offlineEvents.get(packageId));
-                
-                // Sort by event time
-                events.sort(Comparator.comparing(TrackingEventDTO::getEventTime).reversed());
-            }
-            
-            return events;
+        if (trackingInfo == null || trackingInfo.getEvents() == null) {
+            // Return only offline events if available
+            return data.getOfflineEvents();
         }
         
-        // If not in cache, try to fetch from the server
-        try {
-            TrackingInfoDTO info = getTrackingInfo("pkg:" + packageId);
-            return info.getEvents() != null ? info.getEvents() : Collections.emptyList();
-        } catch (Exception e) {
-            log.warn("Could not fetch tracking events from server: {}", e.getMessage());
+        List<TrackingEventDTO> events = new ArrayList<>(trackingInfo.getEvents());
+        if (!data.getOfflineEvents().isEmpty()) {
+            // Offline events already added to the cached info are not repeated
+            Set<String> known = events.stream()
+                    .map(TrackingEventDTO::getId)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+            data.getOfflineEvents().stream()
+                    .filter(e -> !known.contains(e.getId()))
+                    .forEach(events::add);
             
-            // Return only offline events if available
-            return offlineEvents.getOrDefault(packageId, Collections.emptyList());
+            // Sort by event time
+            events.sort(Comparator.comparing(TrackingEventDTO::getEventTime,
+                    Comparator.nullsLast(Comparator.<LocalDateTime>naturalOrder())).reversed());
         }
+        
+        return events;
     }
     
     @Override
@@ -204,15 +176,8 @@ public class TrackingServiceImpl implements TrackingService {
         // Set as not synced
         event.setSyncStatus(false);
         
-        // Add to offline events
-        offlineEvents.computeIfAbsent(event.getPackageId(), k -> new ArrayList<>()).add(event);
-        
-        // Cache the event in Redis for persistence
-        String key = "offline:tracking_event:" + event.getPackageId() + ":" + event.getId();
-        redisTemplate.opsForValue().set(key, event, Duration.ofDays(30));
-        
         // Also update the package cache if available
-        TrackingInfoDTO trackingInfo = packageCache.get(event.getPackageId());
+        TrackingInfoDTO trackingInfo = trackingStore.getPackage(event.getPackageId());
         if (trackingInfo != null) {
             if (trackingInfo.getEvents() == null) {
                 trackingInfo.setEvents(new ArrayList<>());
@@ -223,11 +188,11 @@ public class TrackingServiceImpl implements TrackingService {
             if ("STATUS_UPDATE".equals(event.getEventType())) {
                 trackingInfo.setStatus(event.getStatus());
             }
-            
-            packageCache.put(event.getPackageId(), trackingInfo);
-            cachePackageInRedis(trackingInfo);
         }
         
+        // Store the event with the updated package in one write
+        trackingStore.storeOffline(event.getPackageId(), List.of(event), null, trackingInfo);
+        
         return true;
     }
     
@@ -235,15 +200,9 @@ public class TrackingServiceImpl implements TrackingService {
     public boolean storeOfflineDeliveryConfirmation(DeliveryConfirmationDTO confirmation) {
         log.info("Storing offline delivery confirmation for package ID: {}", confirmation.getPackageId());
         
-        // Store in offline confirmations
-        offlineConfirmations.put(confirmation.getPackageId(), confirmation);
-        
-        // Cache in Redis for persistence
-        String key = "offline:delivery_confirmation:" + confirmation.getPackageId();
-        redisTemplate.opsForValue().set(key, confirmation, Duration.ofDays(30));
-        
         // Update package cache if available
-        TrackingInfoDTO trackingInfo = packageCache.get(confirmation.getPackageId());
+        List<TrackingEventDTO> events = new ArrayList<>();
+        TrackingInfoDTO trackingInfo = trackingStore.getPackage(confirmation.getPackageId());
         if (trackingInfo != null) {
             trackingInfo.setDelivered(true);
             trackingInfo.setStatus("DELIVERED");
@@ -267,13 +226,16 @@ public class TrackingServiceImpl implements TrackingService {
                     .syncStatus(false)
                     .build();
             
-            // Store the delivery event
-            storeOfflineTrackingEvent(deliveryEvent);
-            
-            packageCache.put(confirmation.getPackageId(), trackingInfo);
-            cachePackageInRedis(trackingInfo);
+            if (trackingInfo.getEvents() == null) {
+                trackingInfo.setEvents(new ArrayList<>());
+            }
+            trackingInfo.getEvents().add(deliveryEvent);
+            events.add(deliveryEvent);
         }
         
+        // Store the confirmation, delivery event and updated package in one write
+        trackingStore.storeOffline(confirmation.getPackageId(), events, confirmation, trackingInfo);
+        
         return true;
     }
     
@@ -283,43 +245,40 @@ public class TrackingServiceImpl implements TrackingService {
         
         Map<String, String> results = new HashMap<>();
         
-        // Get all offline events for this courier
-        List<TrackingEventDTO> pendingEvents = getTrackingEvents("all").stream()
-                .filter(e -> courierId.equals(e.getDriverId()) && !e.isSyncStatus())
-                .collect(Collectors.toList());
+        // Get all offline data of this courier in one pipelined read
+        List<PackageTrackingData> pending = trackingStore.getOfflineData(courierId);
         
-        // Sync tracking events
-        for (TrackingEventDTO event : pendingEvents) {
-            try {
-                addTrackingEvent(event);
-                results.put("event:" + event.getId(), "SUCCESS");
-                
-                // Remove from offline storage
-                String key = "offline:tracking_event:" + event.getPackageId() + ":" + event.getId();
-                redisTemplate.delete(key);
-            } catch (Exception e) {
-                log.error("Error synchronizing tracking event {}: {}", event.getId(), e.getMessage());
-                results.put("event:" + event.getId(), "ERROR: " + e.getMessage());
-            }
-        }
+        Map<String, TrackingInfoDTO> updated = new LinkedHashMap<>();
+        Map<String, List<String>> syncedEventIds = new HashMap<>();
+        List<String> confirmedPackageIds = new ArrayList<>();
         
-        // Get all offline delivery confirmations for this courier
-        List<DeliveryConfirmationDTO> pendingConfirmations = new ArrayList<>();
-        for (DeliveryConfirmationDTO confirmation : offlineConfirmations.values()) {
-            if (courierId.equals(confirmation.getDriverId())) {
-                pendingConfirmations.add(confirmation);
+        // Sync tracking events
+        for (PackageTrackingData data : pending) {
+            for (TrackingEventDTO event : data.getOfflineEvents()) {
+                if (!courierId.equals(event.getDriverId()) || event.isSyncStatus()) {
+                    continue;
+                }
+                try {
+                    updated.put(data.getPackageId(), sendTrackingEvent(event));
+                    syncedEventIds.computeIfAbsent(data.getPackageId(), k -> new ArrayList<>()).add(event.getId());
+                    results.put("event:" + event.getId(), "SUCCESS");
+                } catch (Exception e) {
+                    log.error("Error synchronizing tracking event {}: {}", event.getId(), e.getMessage());
+                    results.put("event:" + event.getId(), "ERROR: " + e.getMessage());
+                }
             }
         }
         
         // Sync delivery confirmations
-        for (DeliveryConfirmationDTO confirmation : pendingConfirmations) {
+        for (PackageTrackingData data : pending) {
+            DeliveryConfirmationDTO confirmation = data.getOfflineConfirmation();
+            if (confirmation == null || !courierId.equals(confirmation.getDriverId())) {
+                continue;
+            }
             try {
-                confirmDelivery(confirmation);
+                updated.put(data.getPackageId(), sendDeliveryConfirmation(confirmation));
+                confirmedPackageIds.add(data.getPackageId());
                 results.put("confirmation:" + confirmation.getPackageId(), "SUCCESS");
-                
-                // Remove from offline storage
-                String key = "offline:delivery_confirmation:" + confirmation.getPackageId();
-                redisTemplate.delete(key);
             } catch (Exception e) {
                 log.error("Error synchronizing delivery confirmation for package {}: {}", 
                         confirmation.getPackageId(), e.getMessage());
@@ -327,6 +286,9 @@ public class TrackingServiceImpl implements TrackingService {
             }
         }
         
+        // Cache the updated packages and remove what was synchronized in one pipelined write
+        trackingStore.completeSync(updated.values(), syncedEventIds, confirmedPackageIds, courierId);
+        
         return results;
     }
     
@@ -336,9 +298,45 @@ public class TrackingServiceImpl implements TrackingService {
         
         // In a real implementation, we would fetch from the server
         // For now, return from cache
-        return packageCache.values().stream()
-                .filter(p -> courierId.equals(p.getCourierId()))
-                .collect(Collectors.toList());
+        return trackingStore.getPackagesByCourier(courierId);
+    }
+    
+    /**
+     * Sends a tracking event to the tracking service.
+     *
+     * @param event the event
+     * @return the package's updated tracking info
+     */
+    private TrackingInfoDTO sendTrackingEvent(TrackingEventDTO event) {
+        Map<String, Object> eventData = objectMapper.convertValue(event, Map.class);
+        
+        ResponseEntity<Map<String, Object>> response = trackingServiceClient.addTrackingEvent(
+                event.getPackageId(), eventData);
+        
+        if (response.getBody() == null) {
+            throw new ResourceNotFoundException("Package not found with id: " + event.getPackageId());
+        }
+        
+        return convertToTrackingInfoDTO(response.getBody());
+    }
+    
+    /**
+     * Sends a delivery confirmation to the tracking service.
+     *
+     * @param confirmation the confirmation
+     * @return the package's updated tracking info
+     */
+    private TrackingInfoDTO sendDeliveryConfirmation(DeliveryConfirmationDTO confirmation) {
+        Map<String, Object> confirmationData = objectMapper.convertValue(confirmation, Map.class);
+        
+        ResponseEntity<Map<String, Object>> response = trackingServiceClient.confirmDelivery(
+                confirmation.getPackageId(), confirmationData);
+        
+        if (response.getBody() == null) {
+            throw new ResourceNotFoundException("Package not found with id: " + confirmation.getPackageId());
+        }
+        
+        return convertToTrackingInfoDTO(response.getBody());
     }
     
     /**
@@ -348,8 +346,7 @@ public class TrackingServiceImpl implements TrackingService {
      */
     private void cachePackageInRedis(TrackingInfoDTO trackingInfo) {
         try {
-            String key = "package:" + trackingInfo.getPackageId();
-            redisTemplate.opsForValue().set(key, trackingInfo, Duration.ofHours(24));
+            trackingStore.savePackage(trackingInfo);
         } catch (Exception e) {
             log.error("Error caching package in Redis: {}", trackingInfo.getPackageId(), e);
         }
@@ -404,14 +401,12 @@ public class TrackingServiceImpl implements TrackingService {
         // If this is a packageId request
         if (trackingNumber.startsWith("pkg:")) {
             String packageId = trackingNumber.substring(4);
-            return packageCache.getOrDefault(packageId, new TrackingInfoDTO());
+            return cachedOrEmpty(packageId);
         }
         
         // Try to find in cache by tracking number
-        return packageCache.values().stream()
-                .filter(p -> trackingNumber.equals(p.getTrackingNumber()))
-                .findFirst()
-                .orElse(new TrackingInfoDTO());
+        TrackingInfoDTO cachedInfo = trackingStore.findCachedByTrackingNumber(trackingNumber);
+        return cachedInfo != null ? cachedInfo : new TrackingInfoDTO();
     }
     
     public TrackingInfoDTO updatePackageStatusFallback(String packageId, String status, String location, String description, Exception e) {
@@ -431,7 +426,7 @@ public class TrackingServiceImpl implements TrackingService {
         
         storeOfflineTrackingEvent(event);
         
-        return packageCache.getOrDefault(packageId, new TrackingInfoDTO());
+        return cachedOrEmpty(packageId);
     }
     
     public TrackingInfoDTO confirmDeliveryFallback(DeliveryConfirmationDTO confirmation, Exception e) {
@@ -440,7 +435,7 @@ public class TrackingServiceImpl implements TrackingService {
         // Store offline instead
         storeOfflineDeliveryConfirmation(confirmation);
         
-        return packageCache.getOrDefault(confirmation.getPackageId(), new TrackingInfoDTO());
+        return cachedOrEmpty(confirmation.getPackageId());
     }
     
     public TrackingInfoDTO addTrackingEventFallback(TrackingEventDTO event, Exception e) {
@@ -449,6 +444,11 @@ public class TrackingServiceImpl implements TrackingService {
         // Store offline instead
         storeOfflineTrackingEvent(event);
         
-        return packageCache.getOrDefault(event.getPackageId(), new TrackingInfoDTO());
+        return cachedOrEmpty(event.getPackageId());
+    }
+    
+    private TrackingInfoDTO cachedOrEmpty(String packageId) {
+        TrackingInfoDTO cachedInfo = trackingStore.getPackage(packageId);
+        return cachedInfo != null ? cachedInfo : new TrackingInfoDTO();
     }
 }
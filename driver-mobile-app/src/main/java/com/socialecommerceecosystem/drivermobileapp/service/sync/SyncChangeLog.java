@@ -0,0 +1,323 @@
+package com.gogidix.courier.drivermobileapp.service.sync;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gogidix.courier.drivermobileapp.dto.sync.DeltaSyncRequestDTO;
+import com.gogidix.courier.drivermobileapp.dto.sync.DeltaSyncResponseDTO;
+import com.gogidix.courier.drivermobileapp.dto.sync.SyncChangeDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Per-courier change log in Redis that the driver app syncs from instead of comparing
+ * timestamps. Every change to an entity takes the next value of a monotonic per-courier
+ * sequence and replaces the entity's previous entry, so the log stays compacted to one entry
+ * per entity; deletes leave a tombstone. Entities whose content is unchanged are skipped, and
+ * a courier's whole state is reconciled by a single script call.
+ * <p>
+ * All keys of a courier share a hash tag and expire together after the retention period.
+ * The log carries a random epoch; a device holding cursors from another epoch (for example
+ * after the log expired) is told to reset and receives a full snapshot.
+ * <p>
+ * Tombstones are pruned once they are older than the tombstone retention, so a courier whose
+ * log is kept alive by regular changes does not collect one per entity ever deleted. The
+ * highest pruned sequence of each type is kept as its floor; a device whose cursor is below
+ * the floor may have missed a deletion and is reset like a device from another epoch.
+ */
+@Component
+@Slf4j
+public class SyncChangeLog {
+
+    private static final String TOMBSTONE = "-";
+
+    // KEYS: epoch, sequence, floors, then index, data, digest and deletion times of each entity type
+    // ARGV: epoch if none exists, TTL in seconds, current time and tombstone cutoff in epoch
+    //       millis, then per entity type its name and the number of live entities followed by
+    //       the ID, content digest and data of each
+    private static final RedisScript<Long> RECONCILE_SCRIPT = new DefaultRedisScript<>(
+            "local changed = 0\n"
+                    + "local function change(k, id, digest, data)\n"
+                    + "  if changed == 0 then\n"
+                    + "    redis.call('SET', KEYS[1], ARGV[1], 'NX')\n"
+                    + "  end\n"
+                    + "  changed = changed + 1\n"
+                    + "  local sequence = redis.call('INCR', KEYS[2])\n"
+                    + "  redis.call('HSET', KEYS[k + 1], id, data)\n"
+                    + "  redis.call('HSET', KEYS[k + 2], id, digest)\n"
+                    + "  redis.call('ZADD', KEYS[k], sequence, id)\n"
+                    + "  if digest == '" + TOMBSTONE + "' then\n"
+                    + "    redis.call('HSET', KEYS[k + 3], id, ARGV[3])\n"
+                    + "  else\n"
+                    + "    redis.call('HDEL', KEYS[k + 3], id)\n"
+                    + "  end\n"
+                    + "end\n"
+                    + "local cutoff = tonumber(ARGV[4])\n"
+                    + "local arg = 5\n"
+                    + "for k = 4, #KEYS, 4 do\n"
+                    + "  local live = {}\n"
+                    + "  local name = ARGV[arg]\n"
+                    + "  local count = tonumber(ARGV[arg + 1])\n"
+                    + "  arg = arg + 2\n"
+                    + "  for i = 1, count do\n"
+                    + "    local id, digest = ARGV[arg], ARGV[arg + 1]\n"
+                    + "    live[id] = true\n"
+                    + "    if redis.call('HGET', KEYS[k + 2], id) ~= digest then\n"
+                    + "      change(k, id, digest, ARGV[arg + 2])\n"
+                    + "    end\n"
+                    + "    arg = arg + 3\n"
+                    + "  end\n"
+                    + "  local digests = redis.call('HGETALL', KEYS[k + 2])\n"
+                    + "  for i = 1, #digests, 2 do\n"
+                    + "    if not live[digests[i]] and digests[i + 1] ~= '" + TOMBSTONE + "' then\n"
+                    + "      change(k, digests[i], '" + TOMBSTONE + "', '')\n"
+                    + "    end\n"
+                    + "  end\n"
+                    + "  local floor = tonumber(redis.call('HGET', KEYS[3], name) or '0')\n"
+                    + "  local pruned = floor\n"
+                    + "  local deleted = redis.call('HGETALL', KEYS[k + 3])\n"
+                    + "  for i = 1, #deleted, 2 do\n"
+                    + "    if tonumber(deleted[i + 1]) < cutoff then\n"
+                    + "      local sequence = tonumber(redis.call('ZSCORE', KEYS[k], deleted[i]))\n"
+                    + "      if sequence and sequence > pruned then\n"
+                    + "        pruned = sequence\n"
+                    + "      end\n"
+                    + "      redis.call('ZREM', KEYS[k], deleted[i])\n"
+                    + "      redis.call('HDEL', KEYS[k + 1], deleted[i])\n"
+                    + "      redis.call('HDEL', KEYS[k + 2], deleted[i])\n"
+                    + "      redis.call('HDEL', KEYS[k + 3], deleted[i])\n"
+                    + "    end\n"
+                    + "  end\n"
+                    + "  if pruned > floor then\n"
+                    + "    redis.call('HSET', KEYS[3], name, pruned)\n"
+                    + "  end\n"
+                    + "end\n"
+                    + "if changed > 0 then\n"
+                    + "  for i = 1, #KEYS do\n"
+                    + "    redis.call('EXPIRE', KEYS[i], ARGV[2])\n"
+                    + "  end\n"
+                    + "end\n"
+                    + "return changed\n",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+
+    @Value("${driver.sync.data-retention-days:7}")
+    private int retentionDays = 7;
+
+    @Value("${driver.sync.tombstone-retention-days:3}")
+    private int tombstoneRetentionDays = 3;
+
+    @Autowired
+    public SyncChangeLog(StringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+        this(redisTemplate, objectMapper, Clock.systemUTC());
+    }
+
+    SyncChangeLog(StringRedisTemplate redisTemplate, ObjectMapper objectMapper, Clock clock) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+    }
+
+    /**
+     * Brings the log in line with the entities a courier currently has, in one round trip.
+     * Entities whose content changed get a new entry, unchanged ones are left alone, and
+     * entities of the courier that are missing from the given state get tombstones.
+     * Tombstones older than the tombstone retention are pruned.
+     *
+     * @param courierId the courier whose devices see the entities
+     * @param state the live entities of each type by ID, as JSON
+     * @return the number of changes recorded
+     */
+    public long reconcile(String courierId, Map<SyncEntityType, Map<String, JsonNode>> state) {
+        List<String> keys = new ArrayList<>();
+        keys.add(epochKey(courierId));
+        keys.add("sync:{" + courierId + "}:sequence");
+        keys.add(floorsKey(courierId));
+        long now = clock.millis();
+        List<Object> args = new ArrayList<>();
+        args.add(UUID.randomUUID().toString());
+        args.add(String.valueOf(Duration.ofDays(retentionDays).toSeconds()));
+        args.add(String.valueOf(now));
+        args.add(String.valueOf(now - Duration.ofDays(tombstoneRetentionDays).toMillis()));
+        for (SyncEntityType type : SyncEntityType.values()) {
+            keys.add(key(courierId, type, "index"));
+            keys.add(key(courierId, type, "data"));
+            keys.add(key(courierId, type, "digest"));
+            keys.add(key(courierId, type, "deleted"));
+            Map<String, JsonNode> entities = state.getOrDefault(type, Map.of());
+            args.add(type.name());
+            args.add(String.valueOf(entities.size()));
+            entities.forEach((id, data) -> {
+                String json = serialize(type, id, data);
+                args.add(id);
+                args.add(DigestUtils.md5DigestAsHex(json.getBytes(StandardCharsets.UTF_8)));
+                args.add(json);
+            });
+        }
+        Long changed = redisTemplate.execute(RECONCILE_SCRIPT, keys, args.toArray());
+        if (changed != null && changed > 0) {
+            log.debug("Recorded {} changes for courier: {}", changed, courierId);
+        }
+        return changed != null ? changed : 0;
+    }
+
+    /**
+     * Claims the next reconciliation of a courier's log, so concurrent and repeated fetches
+     * from any instance read the upstream state at most once per interval.
+     *
+     * @param courierId the courier ID
+     * @param interval how long the claim holds
+     * @return true if the caller should reconcile the log
+     */
+    public boolean claimRefresh(String courierId, Duration interval) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue()
+                .setIfAbsent("sync:{" + courierId + "}:refreshed", "1", interval));
+    }
+
+    /**
+     * Reads the changes after the device's cursors, oldest first, one type after another.
+     * Cursors from another epoch or below a pruned tombstone get a full snapshot instead.
+     *
+     * @param courierId the courier ID
+     * @param request the device's epoch and cursors
+     * @param pageSize the maximum number of changes to return
+     * @return the page of changes with the cursors for the next request
+     */
+    public DeltaSyncResponseDTO changesSince(String courierId, DeltaSyncRequestDTO request, int pageSize) {
+        String epoch = redisTemplate.opsForValue().get(epochKey(courierId));
+        boolean reset = request.getEpoch() != null && !request.getEpoch().equals(epoch);
+        Map<String, Long> requested = reset || request.getCursors() == null ? Map.of() : request.getCursors();
+
+        DeltaSyncResponseDTO response = readChanges(courierId, epoch, reset, requested, pageSize);
+        // Checked after reading, so tombstones pruned in the meantime cannot go unnoticed
+        if (!requested.isEmpty() && isBehindPrunedTombstones(courierId, requested)) {
+            log.debug("Cursors of courier: {} predate pruned tombstones, resetting", courierId);
+            response = readChanges(courierId, epoch, true, Map.of(), pageSize);
+        }
+        return response;
+    }
+
+    private DeltaSyncResponseDTO readChanges(String courierId, String epoch, boolean reset,
+                                             Map<String, Long> requested, int pageSize) {
+        Map<String, Long> cursors = new LinkedHashMap<>();
+        List<SyncChangeDTO> changes = new ArrayList<>();
+        boolean hasMore = false;
+        for (SyncEntityType type : SyncEntityType.values()) {
+            long since = requested.getOrDefault(type.name(), 0L);
+            String index = key(courierId, type, "index");
+            int remaining = pageSize - changes.size();
+            if (remaining <= 0) {
+                cursors.put(type.name(), since);
+                Long pending = redisTemplate.opsForZSet().count(index, since + 1, Double.POSITIVE_INFINITY);
+                hasMore |= pending != null && pending > 0;
+                continue;
+            }
+
+            Set<TypedTuple<String>> entries = redisTemplate.opsForZSet()
+                    .rangeByScoreWithScores(index, since + 1, Double.POSITIVE_INFINITY, 0, remaining + 1);
+            List<TypedTuple<String>> page = entries == null ? List.of() : new ArrayList<>(entries);
+            if (page.size() > remaining) {
+                page = page.subList(0, remaining);
+                hasMore = true;
+            }
+            cursors.put(type.name(), page.isEmpty() ? since : page.get(page.size() - 1).getScore().longValue());
+            addChanges(courierId, type, since, page, changes);
+        }
+
+        return DeltaSyncResponseDTO.builder()
+                .courierId(courierId)
+                .epoch(epoch)
+                .reset(reset)
+                .cursors(cursors)
+                .hasMore(hasMore)
+                .changes(changes)
+                .build();
+    }
+
+    private boolean isBehindPrunedTombstones(String courierId, Map<String, Long> requested) {
+        List<Object> types = new ArrayList<>();
+        for (SyncEntityType type : SyncEntityType.values()) {
+            types.add(type.name());
+        }
+        List<Object> floors = redisTemplate.opsForHash().multiGet(floorsKey(courierId), types);
+        for (int i = 0; i < types.size(); i++) {
+            long cursor = requested.getOrDefault((String) types.get(i), 0L);
+            Object floor = floors.get(i);
+            if (cursor > 0 && floor != null && cursor < Long.parseLong((String) floor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addChanges(String courierId, SyncEntityType type, long since, List<TypedTuple<String>> page,
+                            List<SyncChangeDTO> changes) {
+        if (page.isEmpty()) {
+            return;
+        }
+        List<Object> ids = new ArrayList<>(page.size());
+        page.forEach(entry -> ids.add(entry.getValue()));
+        List<Object> values = redisTemplate.opsForHash().multiGet(key(courierId, type, "data"), ids);
+        for (int i = 0; i < page.size(); i++) {
+            String json = (String) values.get(i);
+            if (json == null) {
+                continue;
+            }
+            boolean deleted = json.isEmpty();
+            // A device starting from nothing has nothing to delete
+            if (deleted && since == 0) {
+                continue;
+            }
+            changes.add(SyncChangeDTO.builder()
+                    .entityType(type.name())
+                    .entityId(page.get(i).getValue())
+                    .sequence(page.get(i).getScore().longValue())
+                    .deleted(deleted)
+                    .data(deleted ? null : parse(json))
+                    .build());
+        }
+    }
+
+    private JsonNode parse(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Corrupt sync change log entry", e);
+        }
+    }
+
+    private String serialize(SyncEntityType type, String entityId, JsonNode data) {
+        try {
+            return objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize " + type + " " + entityId, e);
+        }
+    }
+
+    private static String epochKey(String courierId) {
+        return "sync:{" + courierId + "}:epoch";
+    }
+
+    private static String floorsKey(String courierId) {
+        return "sync:{" + courierId + "}:floors";
+    }
+
+    private static String key(String courierId, SyncEntityType type, String part) {
+        return "sync:{" + courierId + "}:" + type.name().toLowerCase() + ":" + part;
+    }
+}
@@ -0,0 +1,9 @@
+package com.gogidix.courier.drivermobileapp.service.sync;
+
+/**
+ * Entity types tracked by the sync change log, in the order changes are delivered.
+ */
+public enum SyncEntityType {
+    ASSIGNMENT,
+    TASK
+}
@@ -1,11 +1,13 @@
 package com.gogidix.courier.drivermobileapp.service.sync;
 
-import com.socialecommerceecosystem.drivermobileapp.dto.assignment.AssignmentDTO;
-import com.socialecommerceecosystem.drivermobileapp.dto.assignment.OfflineSyncRequestDTO;
-import com.socialecommerceecosystem.drivermobileapp.dto.assignment.OfflineSyncResponseDTO;
-import com.socialecommerceecosystem.drivermobileapp.dto.assignment.SyncResultDTO;
-import com.socialecommerceecosystem.drivermobileapp.dto.tracking.DeliveryConfirmationDTO;
-import com.socialecommerceecosystem.drivermobileapp.dto.tracking.TrackingEventDTO;
+import com.gogidix.courier.drivermobileapp.dto.assignment.AssignmentDTO;
+import com.gogidix.courier.drivermobileapp.dto.assignment.OfflineSyncRequestDTO;
+import com.gogidix.courier.drivermobileapp.dto.assignment.OfflineSyncResponseDTO;
+import com.gogidix.courier.drivermobileapp.dto.assignment.SyncResultDTO;
+import com.gogidix.courier.drivermobileapp.dto.sync.DeltaSyncRequestDTO;
+import com.gogidix.courier.drivermobileapp.dto.sync.DeltaSyncResponseDTO;
+import com.gogidix.courier.drivermobileapp.dto.tracking.DeliveryConfirmationDTO;
+import com.gogidix.courier.drivermobileapp.dto.tracking.TrackingEventDTO;
 
 import java.util.List;
 import java.util.Map;
@@ -58,9 +60,21 @@ public interface SynchronizationService {
      * @param courierId the courier ID
      * @param lastSyncTimestamp timestamp of the last synchronization
      * @return list of new or updated assignments
+     * @deprecated timestamps are affected by clock skew; use {@link #fetchChanges} instead
      */
+    @Deprecated
     List<AssignmentDTO> fetchServerUpdates(String courierId, String lastSyncTimestamp);
     
+    /**
+     * Retrieves the assignment and task changes a device has not seen yet, based on the
+     * change sequences it already holds rather than timestamps.
+     *
+     * @param courierId the courier ID
+     * @param request the device's epoch, cursors per entity type and page size
+     * @return the compacted changes since the cursors, with tombstones for deletes
+     */
+    DeltaSyncResponseDTO fetchChanges(String courierId, DeltaSyncRequestDTO request);
+    
     /**
      * Resolves conflicts between local and server data.
      *
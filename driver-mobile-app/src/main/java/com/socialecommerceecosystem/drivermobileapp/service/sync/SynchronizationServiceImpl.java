@@ -1,16 +1,22 @@
 package com.gogidix.courier.drivermobileapp.service.sync;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.socialecommerceecosystem.drivermobileapp.dto.assignment.AssignmentDTO;
-import com.socialecommerceecosystem.drivermobileapp.dto.assignment.OfflineSyncRequestDTO;
-import com.socialecommerceecosystem.drivermobileapp.dto.assignment.OfflineSyncResponseDTO;
-import com.socialecommerceecosystem.drivermobileapp.dto.assignment.SyncResultDTO;
-import com.socialecommerceecosystem.drivermobileapp.dto.tracking.DeliveryConfirmationDTO;
-import com.socialecommerceecosystem.drivermobileapp.dto.tracking.TrackingEventDTO;
-import com.socialecommerceecosystem.drivermobileapp.service.AssignmentService;
-import com.socialecommerceecosystem.drivermobileapp.service.TrackingService;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.gogidix.courier.drivermobileapp.dto.assignment.AssignmentDTO;
+import com.gogidix.courier.drivermobileapp.dto.assignment.AssignmentTaskDTO;
+import com.gogidix.courier.drivermobileapp.dto.assignment.OfflineSyncRequestDTO;
+import com.gogidix.courier.drivermobileapp.dto.assignment.OfflineSyncResponseDTO;
+import com.gogidix.courier.drivermobileapp.dto.assignment.SyncResultDTO;
+import com.gogidix.courier.drivermobileapp.dto.sync.DeltaSyncRequestDTO;
+import com.gogidix.courier.drivermobileapp.dto.sync.DeltaSyncResponseDTO;
+import com.gogidix.courier.drivermobileapp.dto.tracking.DeliveryConfirmationDTO;
+import com.gogidix.courier.drivermobileapp.dto.tracking.TrackingEventDTO;
+import com.gogidix.courier.drivermobileapp.service.AssignmentService;
+import com.gogidix.courier.drivermobileapp.service.TrackingService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
@@ -34,6 +40,16 @@ public class SynchronizationServiceImpl implements SynchronizationService {
     private final TrackingService trackingService;
     private final RedisTemplate<String, Object> redisTemplate;
     private final ObjectMapper objectMapper;
+    private final SyncChangeLog changeLog;
+    
+    @Value("${driver.sync.batch-size:100}")
+    private int defaultPageSize = 100;
+    
+    @Value("${driver.sync.max-page-size:500}")
+    private int maxPageSize = 500;
+    
+    @Value("${driver.sync.refresh-interval-ms:30000}")
+    private long refreshIntervalMs = 30000;
     
     // In-memory cache of sync states for quick access
     private final Map<String, Map<String, String>> syncStateCache = new ConcurrentHashMap<>();
@@ -162,6 +178,7 @@ public class SynchronizationServiceImpl implements SynchronizationService {
     }
 
     @Override
+    @Deprecated
     public List<AssignmentDTO> fetchServerUpdates(String courierId, String lastSyncTimestamp) {
         log.info("Fetching updates from server for courier: {} since {}", courierId, lastSyncTimestamp);
         
@@ -175,6 +192,51 @@ public class SynchronizationServiceImpl implements SynchronizationService {
         }
     }
 
+    @Override
+    public DeltaSyncResponseDTO fetchChanges(String courierId, DeltaSyncRequestDTO request) {
+        log.info("Fetching changes for courier: {} since {}", courierId, request.getCursors());
+        
+        // Paging through a backlog reads the log only; the upstream state is folded in at most once per interval
+        if (changeLog.claimRefresh(courierId, Duration.ofMillis(refreshIntervalMs))) {
+            recordServerState(courierId);
+        }
+        int pageSize = request.getPageSize() != null ? Math.min(request.getPageSize(), maxPageSize) : defaultPageSize;
+        return changeLog.changesSince(courierId, request, pageSize);
+    }
+    
+    /**
+     * Records the courier's current assignments and tasks in the change log. Unchanged entities
+     * are ignored by the log, and entities that are no longer active get tombstones. Tasks are
+     * logged separately from their assignment so a task update only sends that task.
+     */
+    private void recordServerState(String courierId) {
+        List<AssignmentDTO> assignments;
+        try {
+            assignments = assignmentService.getActiveAssignmentsByCourier(courierId);
+        } catch (Exception e) {
+            // Serve what the log already holds rather than tombstoning everything
+            log.error("Error fetching assignments for change log: {}", e.getMessage());
+            return;
+        }
+        
+        Map<String, JsonNode> assignmentState = new HashMap<>();
+        Map<String, JsonNode> taskState = new HashMap<>();
+        for (AssignmentDTO assignment : assignments) {
+            ObjectNode data = objectMapper.valueToTree(assignment);
+            data.remove("tasks");
+            assignmentState.put(assignment.getId(), data);
+            
+            if (assignment.getTasks() != null) {
+                for (AssignmentTaskDTO task : assignment.getTasks()) {
+                    taskState.put(task.getId(), objectMapper.valueToTree(task));
+                }
+            }
+        }
+        changeLog.reconcile(courierId, Map.of(
+                SyncEntityType.ASSIGNMENT, assignmentState,
+                SyncEntityType.TASK, taskState));
+    }
+
     @Override
     public Map<String, Object> resolveConflicts(Map<String, Object> localData, Map<String, Object> serverData, 
                                               String entityType, String entityId) {
@@ -0,0 +1,552 @@
+package com.gogidix.courier.drivermobileapp.service.tracking;
+
+import com.gogidix.courier.drivermobileapp.dto.tracking.DeliveryConfirmationDTO;
+import com.gogidix.courier.drivermobileapp.dto.tracking.TrackingEventDTO;
+import com.gogidix.courier.drivermobileapp.dto.tracking.TrackingInfoDTO;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Redis store for package tracking data, with a bounded local near-cache of tracking info.
+ * <p>
+ * Each package is one hash holding its tracking info and the tracking events and delivery
+ * confirmation recorded for it offline, so everything about a package is read or written
+ * with one command. Writes run as a script that also maintains the courier and offline
+ * indexes and only ever extends expiries, so refreshing tracking info cannot shorten the
+ * retention of offline data. Reads and writes of several packages are pipelined; the scripts
+ * are loaded on startup so they can be called by SHA inside a pipeline, and are reloaded if
+ * Redis has lost them.
+ * <p>
+ * Redis keyspace notifications for package keys evict near-cache entries, so a change made
+ * by any instance, or an expiry, is not served stale. Like Spring Session, the store enables
+ * the notifications it needs on startup; entries also expire after a short TTL in case
+ * notifications are disabled or lost.
+ */
+@Component
+@Slf4j
+public class TrackingStore {
+
+    private static final String PACKAGE_PREFIX = "tracking:package:";
+    private static final String OFFLINE_KEY = "tracking:offline";
+    private static final String INFO_FIELD = "info";
+    private static final String CONFIRMATION_FIELD = "confirmation";
+    private static final String EVENT_FIELD_PREFIX = "event:";
+    private static final String NOTIFY_KEYSPACE_EVENTS = "notify-keyspace-events";
+
+    // KEYS: package hash, then index sets to add the package to
+    // ARGV: TTL in seconds, package ID, then field and value pairs
+    private static final RedisScript<Long> STORE_SCRIPT = new DefaultRedisScript<>(
+            "for i = 3, #ARGV, 2 do\n"
+                    + "  redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])\n"
+                    + "end\n"
+                    + "for i = 2, #KEYS do\n"
+                    + "  redis.call('SADD', KEYS[i], ARGV[2])\n"
+                    + "end\n"
+                    + "for i = 1, #KEYS do\n"
+                    + "  if redis.call('TTL', KEYS[i]) < tonumber(ARGV[1]) then\n"
+                    + "    redis.call('EXPIRE', KEYS[i], ARGV[1])\n"
+                    + "  end\n"
+                    + "end\n"
+                    + "return 1\n",
+            Long.class);
+
+    // KEYS: package hash, then offline index sets to leave once nothing is pending
+    // ARGV: package ID, then the offline fields that were synchronized
+    private static final RedisScript<Long> REMOVE_SCRIPT = new DefaultRedisScript<>(
+            "for i = 2, #ARGV do\n"
+                    + "  redis.call('HDEL', KEYS[1], ARGV[i])\n"
+                    + "end\n"
+                    + "for _, field in ipairs(redis.call('HKEYS', KEYS[1])) do\n"
+                    + "  if field ~= '" + INFO_FIELD + "' then\n"
+                    + "    return 0\n"
+                    + "  end\n"
+                    + "end\n"
+                    + "for i = 2, #KEYS do\n"
+                    + "  redis.call('SREM', KEYS[i], ARGV[1])\n"
+                    + "end\n"
+                    + "return 1\n",
+            Long.class);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final RedisSerializer<Object> valueSerializer;
+
+    @Value("${driver.tracking.package-ttl-hours:24}")
+    private int packageTtlHours = 24;
+
+    @Value("${driver.tracking.offline-retention-days:30}")
+    private int offlineRetentionDays = 30;
+
+    @Value("${driver.tracking.near-cache.max-size:10000}")
+    private int nearCacheMaxSize = 10000;
+
+    @Value("${driver.tracking.near-cache.ttl-seconds:300}")
+    private int nearCacheTtlSeconds = 300;
+
+    @Value("${driver.tracking.near-cache.configure-notifications:true}")
+    private boolean configureNotifications = true;
+
+    // Access-ordered for LRU eviction; entries without info are placeholders for reads in flight
+    private final Map<String, NearCacheEntry> nearCache = new LinkedHashMap<>(256, 0.75f, true);
+
+    @SuppressWarnings("unchecked")
+    public TrackingStore(RedisTemplate<String, Object> redisTemplate, RedisMessageListenerContainer listenerContainer) {
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.valueSerializer = (RedisSerializer<Object>) redisTemplate.getHashValueSerializer();
+    }
+
+    /**
+     * Everything stored for a package.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class PackageTrackingData {
+
+        private final String packageId;
+        private final TrackingInfoDTO info;
+        private final List<TrackingEventDTO> offlineEvents;
+        private final DeliveryConfirmationDTO offlineConfirmation;
+    }
+
+    /**
+     * Loads the write scripts and subscribes to keyspace notifications for package keys.
+     */
+    @PostConstruct
+    public void subscribe() {
+        loadScripts();
+        if (configureNotifications) {
+            enableKeyspaceNotifications();
+        }
+        listenerContainer.addMessageListener((message, pattern) -> onKeyspaceEvent(message),
+                new PatternTopic("__keyspace@*__:" + PACKAGE_PREFIX + "*"));
+    }
+
+    /**
+     * Gets the tracking info of a package.
+     *
+     * @param packageId the package ID
+     * @return the tracking info, or null if none is stored
+     */
+    public TrackingInfoDTO getPackage(String packageId) {
+        return getPackages(List.of(packageId)).get(packageId);
+    }
+
+    /**
+     * Gets the tracking info of several packages with at most one round trip.
+     *
+     * @param packageIds the package IDs
+     * @return tracking info by package ID, without packages that are not stored
+     */
+    public Map<String, TrackingInfoDTO> getPackages(Collection<String> packageIds) {
+        Map<String, TrackingInfoDTO> found = new LinkedHashMap<>();
+        Map<String, NearCacheEntry> placeholders = new LinkedHashMap<>();
+        long now = System.currentTimeMillis();
+        synchronized (nearCache) {
+            for (String packageId : packageIds) {
+                NearCacheEntry entry = nearCache.get(packageId);
+                if (entry != null && entry.info != null && entry.expiresAt > now) {
+                    found.put(packageId, entry.info);
+                } else {
+                    NearCacheEntry placeholder = new NearCacheEntry(null, 0);
+                    nearCache.put(packageId, placeholder);
+                    placeholders.put(packageId, placeholder);
+                }
+            }
+            trimNearCache();
+        }
+        if (placeholders.isEmpty()) {
+            return found;
+        }
+
+        List<String> missed = new ArrayList<>(placeholders.keySet());
+        List<Object> values = pipeline(operations ->
+                missed.forEach(packageId -> operations.opsForHash().get(packageKey(packageId), INFO_FIELD)));
+
+        long expiresAt = System.currentTimeMillis() + Duration.ofSeconds(nearCacheTtlSeconds).toMillis();
+        synchronized (nearCache) {
+            for (int i = 0; i < missed.size(); i++) {
+                String packageId = missed.get(i);
+                TrackingInfoDTO info = values.get(i) instanceof TrackingInfoDTO value ? value : null;
+                if (info != null) {
+                    found.put(packageId, info);
+                }
+                // Only cache if no notification evicted the package while it was read
+                if (nearCache.get(packageId) == placeholders.get(packageId)) {
+                    if (info != null) {
+                        nearCache.put(packageId, new NearCacheEntry(info, expiresAt));
+                    } else {
+                        nearCache.remove(packageId);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds a package in the near-cache by tracking number, for when the tracking service is
+     * unreachable.
+     *
+     * @param trackingNumber the tracking number
+     * @return the tracking info, or null if it is not cached
+     */
+    public TrackingInfoDTO findCachedByTrackingNumber(String trackingNumber) {
+        synchronized (nearCache) {
+            return nearCache.values().stream()
+                    .map(entry -> entry.info)
+                    .filter(info -> info != null && trackingNumber.equals(info.getTrackingNumber()))
+                    .findFirst()
+                    .orElse(null);
+        }
+    }
+
+    /**
+     * Gets the packages of a courier with at most two round trips.
+     *
+     * @param courierId the courier ID
+     * @return the courier's packages
+     */
+    public List<TrackingInfoDTO> getPackagesByCourier(String courierId) {
+        Set<String> packageIds = redisTemplate.execute((RedisCallback<Set<String>>) connection -> {
+            Set<byte[]> members = connection.setCommands().sMembers(raw(courierKey(courierId)));
+            Set<String> ids = new LinkedHashSet<>();
+            if (members != null) {
+                members.forEach(member -> ids.add(new String(member, StandardCharsets.UTF_8)));
+            }
+            return ids;
+        });
+        if (packageIds == null || packageIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return getPackages(packageIds).values().stream()
+                .filter(info -> courierId.equals(info.getCourierId()))
+                .toList();
+    }
+
+    /**
+     * Gets the tracking info and offline data of a package with one round trip.
+     *
+     * @param packageId the package ID
+     * @return the package's data
+     */
+    public PackageTrackingData getPackageData(String packageId) {
+        Map<Object, Object> fields = redisTemplate.opsForHash().entries(packageKey(packageId));
+        return toPackageData(packageId, fields);
+    }
+
+    /**
+     * Gets every package with offline data, with two round trips.
+     *
+     * @param courierId only packages with offline data of this courier, or null for all
+     * @return the packages' data
+     */
+    public List<PackageTrackingData> getOfflineData(String courierId) {
+        String indexKey = courierId != null ? offlineKey(courierId) : OFFLINE_KEY;
+        Set<Object> members = redisTemplate.execute((RedisCallback<Set<Object>>) connection -> {
+            Set<byte[]> raw = connection.setCommands().sMembers(raw(indexKey));
+            Set<Object> ids = new LinkedHashSet<>();
+            if (raw != null) {
+                raw.forEach(member -> ids.add(new String(member, StandardCharsets.UTF_8)));
+            }
+            return ids;
+        });
+        if (members == null || members.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<String> packageIds = members.stream().map(String::valueOf).toList();
+        List<Object> values = pipeline(operations ->
+                packageIds.forEach(packageId -> operations.opsForHash().entries(packageKey(packageId))));
+        List<PackageTrackingData> data = new ArrayList<>(packageIds.size());
+        for (int i = 0; i < packageIds.size(); i++) {
+            if (values.get(i) instanceof Map<?, ?> fields) {
+                data.add(toPackageData(packageIds.get(i), fields));
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Stores tracking info.
+     *
+     * @param info the tracking info
+     */
+    public void savePackage(TrackingInfoDTO info) {
+        completeSync(List.of(info), Map.of(), List.of(), null);
+    }
+
+    /**
+     * Stores a tracking event or delivery confirmation recorded offline, with the package's
+     * updated tracking info, in one round trip.
+     *
+     * @param packageId the package ID
+     * @param events the offline events, possibly empty
+     * @param confirmation the offline confirmation, or null
+     * @param info the updated tracking info, or null if the package is not known
+     */
+    public void storeOffline(String packageId, List<TrackingEventDTO> events, DeliveryConfirmationDTO confirmation,
+                             TrackingInfoDTO info) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        Set<String> couriers = new LinkedHashSet<>();
+        for (TrackingEventDTO event : events) {
+            fields.put(EVENT_FIELD_PREFIX + event.getId(), event);
+            couriers.add(event.getDriverId());
+        }
+        if (confirmation != null) {
+            fields.put(CONFIRMATION_FIELD, confirmation);
+            couriers.add(confirmation.getDriverId());
+        }
+        if (info != null) {
+            fields.put(INFO_FIELD, info);
+        }
+
+        List<String> keys = new ArrayList<>();
+        keys.add(packageKey(packageId));
+        keys.add(OFFLINE_KEY);
+        couriers.stream().filter(Objects::nonNull).forEach(courierId -> keys.add(offlineKey(courierId)));
+        if (info != null && info.getCourierId() != null) {
+            keys.add(courierKey(info.getCourierId()));
+        }
+        byte[][] args = storeArgs(Duration.ofDays(offlineRetentionDays), packageId, fields);
+        redisTemplate.execute(STORE_SCRIPT, RedisSerializer.byteArray(), null, keys, (Object[]) args);
+        evict(packageId);
+    }
+
+    /**
+     * Stores the tracking info returned by the tracking service and removes the offline data
+     * it now covers, in one round trip for any number of packages.
+     *
+     * @param updated the packages' latest tracking info
+     * @param syncedEventIds IDs of synchronized offline events by package ID
+     * @param confirmedPackageIds packages whose offline confirmation was synchronized
+     * @param courierId the courier whose offline index is cleaned up, or null
+     */
+    public void completeSync(Collection<TrackingInfoDTO> updated, Map<String, List<String>> syncedEventIds,
+                             Collection<String> confirmedPackageIds, String courierId) {
+        Map<String, List<String>> removedFields = new LinkedHashMap<>();
+        syncedEventIds.forEach((packageId, eventIds) -> eventIds.forEach(eventId ->
+                removedFields.computeIfAbsent(packageId, id -> new ArrayList<>()).add(EVENT_FIELD_PREFIX + eventId)));
+        confirmedPackageIds.forEach(packageId ->
+                removedFields.computeIfAbsent(packageId, id -> new ArrayList<>()).add(CONFIRMATION_FIELD));
+        List<TrackingInfoDTO> infos = updated.stream().filter(info -> info.getPackageId() != null).toList();
+        if (infos.isEmpty() && removedFields.isEmpty()) {
+            return;
+        }
+
+        RedisCallback<Object> scripts = connection -> {
+            for (TrackingInfoDTO info : infos) {
+                List<String> keys = new ArrayList<>();
+                keys.add(packageKey(info.getPackageId()));
+                if (info.getCourierId() != null) {
+                    keys.add(courierKey(info.getCourierId()));
+                }
+                evalSha(connection, STORE_SCRIPT, keys,
+                        storeArgs(Duration.ofHours(packageTtlHours), info.getPackageId(), Map.of(INFO_FIELD, info)));
+            }
+            removedFields.forEach((packageId, fields) -> {
+                List<String> keys = new ArrayList<>();
+                keys.add(packageKey(packageId));
+                keys.add(OFFLINE_KEY);
+                if (courierId != null) {
+                    keys.add(offlineKey(courierId));
+                }
+                byte[][] args = new byte[fields.size() + 1][];
+                args[0] = raw(packageId);
+                for (int i = 0; i < fields.size(); i++) {
+                    args[i + 1] = raw(fields.get(i));
+                }
+                evalSha(connection, REMOVE_SCRIPT, keys, args);
+            });
+            return null;
+        };
+        try {
+            redisTemplate.executePipelined(scripts);
+        } catch (DataAccessException e) {
+            if (!isMissingScript(e)) {
+                throw e;
+            }
+            // Redis restarted or its scripts were flushed; both scripts are idempotent
+            log.info("Reloading tracking scripts into Redis");
+            loadScripts();
+            redisTemplate.executePipelined(scripts);
+        }
+        infos.forEach(info -> evict(info.getPackageId()));
+        removedFields.keySet().forEach(this::evict);
+    }
+
+    /**
+     * Gets the number of packages in the near-cache.
+     *
+     * @return the entry count
+     */
+    public int nearCacheSize() {
+        synchronized (nearCache) {
+            return nearCache.size();
+        }
+    }
+
+    private void onKeyspaceEvent(Message message) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        int start = channel.indexOf(PACKAGE_PREFIX);
+        if (start >= 0) {
+            evict(channel.substring(start + PACKAGE_PREFIX.length()));
+        }
+    }
+
+    private void evict(String packageId) {
+        synchronized (nearCache) {
+            nearCache.remove(packageId);
+        }
+    }
+
+    private void trimNearCache() {
+        Iterator<NearCacheEntry> eldest = nearCache.values().iterator();
+        while (nearCache.size() > nearCacheMaxSize && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    private void enableKeyspaceNotifications() {
+        try {
+            redisTemplate.execute((RedisCallback<Void>) connection -> {
+                Properties config = connection.serverCommands().getConfig(NOTIFY_KEYSPACE_EVENTS);
+                String current = config != null ? config.getProperty(NOTIFY_KEYSPACE_EVENTS, "") : "";
+                // Keyspace events for hash and generic commands, expiry and eviction
+                StringBuilder wanted = new StringBuilder(current);
+                for (char flag : "Khgxe".toCharArray()) {
+                    boolean covered = current.indexOf(flag) >= 0 || (flag != 'K' && current.indexOf('A') >= 0);
+                    if (!covered) {
+                        wanted.append(flag);
+                    }
+                }
+                if (!wanted.toString().equals(current)) {
+                    connection.serverCommands().setConfig(NOTIFY_KEYSPACE_EVENTS, wanted.toString());
+                    log.info("Enabled Redis keyspace notifications: {}", wanted);
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Cannot enable Redis keyspace notifications; tracking near-cache entries rely on their TTL: {}",
+                    e.getMessage());
+        }
+    }
+
+    private PackageTrackingData toPackageData(String packageId, Map<?, ?> fields) {
+        TrackingInfoDTO info = null;
+        DeliveryConfirmationDTO confirmation = null;
+        List<TrackingEventDTO> events = new ArrayList<>();
+        for (Map.Entry<?, ?> field : fields.entrySet()) {
+            String name = String.valueOf(field.getKey());
+            if (INFO_FIELD.equals(name) && field.getValue() instanceof TrackingInfoDTO value) {
+                info = value;
+            } else if (CONFIRMATION_FIELD.equals(name) && field.getValue() instanceof DeliveryConfirmationDTO value) {
+                confirmation = value;
+            } else if (name.startsWith(EVENT_FIELD_PREFIX) && field.getValue() instanceof TrackingEventDTO value) {
+                events.add(value);
+            }
+        }
+        return new PackageTrackingData(packageId, info, events, confirmation);
+    }
+
+    private byte[][] storeArgs(Duration ttl, String packageId, Map<String, Object> fields) {
+        byte[][] args = new byte[2 + 2 * fields.size()][];
+        args[0] = raw(String.valueOf(ttl.toSeconds()));
+        args[1] = raw(packageId);
+        int i = 2;
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            args[i++] = raw(field.getKey());
+            // Serialized as the template would store a hash value, so hash reads can decode it
+            args[i++] = valueSerializer.serialize(field.getValue());
+        }
+        return args;
+    }
+
+    private void loadScripts() {
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            for (RedisScript<Long> script : List.of(STORE_SCRIPT, REMOVE_SCRIPT)) {
+                connection.scriptingCommands().scriptLoad(raw(script.getScriptAsString()));
+            }
+            return null;
+        });
+    }
+
+    private static void evalSha(RedisConnection connection, RedisScript<Long> script, List<String> keys, byte[][] args) {
+        byte[][] keysAndArgs = new byte[keys.size() + args.length][];
+        for (int i = 0; i < keys.size(); i++) {
+            keysAndArgs[i] = raw(keys.get(i));
+        }
+        System.arraycopy(args, 0, keysAndArgs, keys.size(), args.length);
+        connection.scriptingCommands().evalSha(script.getSha1(), ReturnType.INTEGER, keys.size(), keysAndArgs);
+    }
+
+    private static boolean isMissingScript(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private List<Object> pipeline(Consumer<RedisOperations<String, Object>> commands) {
+        return redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                commands.accept((RedisOperations<String, Object>) operations);
+                return null;
+            }
+        });
+    }
+
+    private static byte[] raw(String key) {
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String packageKey(String packageId) {
+        return PACKAGE_PREFIX + packageId;
+    }
+
+    private static String courierKey(String courierId) {
+        return "tracking:courier:" + courierId;
+    }
+
+    private static String offlineKey(String courierId) {
+        return OFFLINE_KEY + ":" + courierId;
+    }
+
+    private static final class NearCacheEntry {
+
+        private final TrackingInfoDTO info;
+        private final long expiresAt;
+
+        private NearCacheEntry(TrackingInfoDTO info, long expiresAt) {
+            this.info = info;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+-- Append-only history of raw driver GPS fixes, written in batches by the location buffer
+CREATE TABLE driver_location_history (
+    id BIGSERIAL PRIMARY KEY,
+    driver_id BIGINT NOT NULL,
+    latitude DECIMAL(10, 7) NOT NULL,
+    longitude DECIMAL(10, 7) NOT NULL,
+    accuracy_meters INTEGER,
+    speed_kmh DOUBLE PRECISION,
+    heading DOUBLE PRECISION,
+    recorded_at TIMESTAMP NOT NULL
+);
+
+-- Create index for per-driver track queries
+CREATE INDEX idx_driver_location_history_driver_time ON driver_location_history (driver_id, recorded_at);
@@ -0,0 +1,13 @@
+-- Geofences around branches and depots; delivery stop fences are derived from tasks
+CREATE TABLE geofences (
+    id BIGSERIAL PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    type VARCHAR(20) NOT NULL,
+    latitude DECIMAL(10, 7),
+    longitude DECIMAL(10, 7),
+    radius_meters DOUBLE PRECISION,
+    vertices TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT NOW(),
+    updated_at TIMESTAMP,
+    CHECK ((radius_meters IS NOT NULL AND latitude IS NOT NULL AND longitude IS NOT NULL) OR vertices IS NOT NULL)
+);
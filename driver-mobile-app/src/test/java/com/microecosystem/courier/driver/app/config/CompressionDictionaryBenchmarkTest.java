@@ -0,0 +1,57 @@
+package com.microecosystem.courier.driver.app.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+
+/**
+ * Prints payload sizes and serialization times of each response format. Timings depend on the
+ * machine, so this only runs when asked for, e.g.
+ * {@code mvn test -Dtest=CompressionDictionaryBenchmarkTest -Dbenchmark=true}.
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class CompressionDictionaryBenchmarkTest {
+
+    private static final int WARMUP_RUNS = 2000;
+    private static final int MEASURED_RUNS = 2000;
+
+    private final CompressionDictionary dictionary = new CompressionDictionary();
+    private final ObjectMapper json = new ObjectMapper();
+    private final ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+
+    @Test
+    void payloadFormats() throws IOException {
+        for (int assignments : new int[]{1, 20}) {
+            Object payload = CompressionDictionaryTest.assignments(assignments, 15);
+            byte[] plain = json.writeValueAsBytes(payload);
+            byte[] binary = cbor.writeValueAsBytes(payload);
+
+            System.out.printf("%d assignments: json %d B (%.1f us), cbor %d B (%.1f us), json+gzip %d B, "
+                            + "json+dict %d B, cbor+dict %d B%n",
+                    assignments, plain.length, micros(() -> json.writeValueAsBytes(payload)),
+                    binary.length, micros(() -> cbor.writeValueAsBytes(payload)),
+                    CompressionDictionaryTest.gzip(plain).length, dictionary.compress(plain).length,
+                    dictionary.compress(binary).length);
+        }
+    }
+
+    private static double micros(Serializer serializer) throws IOException {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            serializer.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            serializer.run();
+        }
+        return (System.nanoTime() - start) / 1000.0 / MEASURED_RUNS;
+    }
+
+    private interface Serializer {
+        void run() throws IOException;
+    }
+}
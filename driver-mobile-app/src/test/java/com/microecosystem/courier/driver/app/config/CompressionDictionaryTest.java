@@ -0,0 +1,107 @@
+package com.microecosystem.courier.driver.app.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressionDictionaryTest {
+
+    private final CompressionDictionary dictionary = new CompressionDictionary();
+    private final ObjectMapper json = new ObjectMapper();
+    private final ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+
+    @Test
+    void compress_ShouldRoundTrip() throws IOException {
+        byte[] body = json.writeValueAsBytes(assignments(3, 4));
+
+        byte[] compressed = dictionary.compress(body);
+
+        assertArrayEquals(body, dictionary.decompress(compressed));
+        assertTrue(dictionary.getHash().startsWith(":") && dictionary.getHash().endsWith(":"));
+    }
+
+    @Test
+    void payloadFormats_ShouldShrinkTypicalResponses() throws IOException {
+        // A single assignment is the common small response; a full day's list is the large one
+        for (int assignments : new int[]{1, 20}) {
+            Object payload = assignments(assignments, 15);
+            byte[] plain = json.writeValueAsBytes(payload);
+            byte[] binary = cbor.writeValueAsBytes(payload);
+            byte[] gzipped = gzip(plain);
+            byte[] jsonDict = dictionary.compress(plain);
+            byte[] cborDict = dictionary.compress(binary);
+
+            assertTrue(binary.length < plain.length);
+            assertTrue(jsonDict.length < gzipped.length);
+            assertArrayEquals(binary, dictionary.decompress(cborDict));
+        }
+    }
+
+    // Shaped like AssignmentDTO and AssignmentTaskDTO
+    static List<Map<String, Object>> assignments(int count, int tasksEach) {
+        List<Map<String, Object>> assignments = new ArrayList<>();
+        for (int a = 0; a < count; a++) {
+            String assignmentId = "ASG-" + (1000 + a);
+            List<Map<String, Object>> tasks = new ArrayList<>();
+            for (int t = 0; t < tasksEach; t++) {
+                Map<String, Object> task = new LinkedHashMap<>();
+                task.put("id", "TSK-" + (5000 + a * 100 + t));
+                task.put("assignmentId", assignmentId);
+                task.put("taskType", t % 2 == 0 ? "PICKUP" : "DELIVERY");
+                task.put("status", "PENDING");
+                task.put("sequenceNumber", t + 1);
+                task.put("address", (12 + t) + " Harbour Road, Westlands, Nairobi");
+                task.put("latitude", -1.2634 + t * 0.0017);
+                task.put("longitude", 36.8040 + a * 0.0023);
+                task.put("contactName", "Customer " + t);
+                task.put("contactPhone", "+2547000" + (10000 + t));
+                task.put("timeWindowStart", "2024-03-18T10:" + (10 + t) + ":00");
+                task.put("timeWindowEnd", "2024-03-18T11:" + (10 + t) + ":00");
+                task.put("estimatedArrivalTime", "2024-03-18T10:" + (20 + t) + ":00");
+                task.put("actualArrivalTime", null);
+                task.put("completedAt", null);
+                task.put("completionCode", null);
+                task.put("notes", t % 3 == 0 ? "Leave at reception" : null);
+                task.put("trackingNumber", "TRK" + (880000 + a * 100 + t));
+                task.put("packageId", "PKG-" + (70000 + a * 100 + t));
+                task.put("syncStatus", "SYNCED");
+                tasks.add(task);
+            }
+            Map<String, Object> assignment = new LinkedHashMap<>();
+            assignment.put("id", assignmentId);
+            assignment.put("courierId", "CR-42");
+            assignment.put("status", "ASSIGNED");
+            assignment.put("assignedAt", "2024-03-18T08:30:00");
+            assignment.put("startedAt", null);
+            assignment.put("completedAt", null);
+            assignment.put("cancelledAt", null);
+            assignment.put("cancellationReason", null);
+            assignment.put("estimatedDurationMinutes", 95.0);
+            assignment.put("estimatedDistanceKm", 18.4 + a);
+            assignment.put("tasks", tasks);
+            assignment.put("routeOptimizationStatus", "OPTIMIZED");
+            assignment.put("notes", null);
+            assignment.put("syncStatus", "SYNCED");
+            assignments.add(assignment);
+        }
+        return assignments;
+    }
+
+    static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+}
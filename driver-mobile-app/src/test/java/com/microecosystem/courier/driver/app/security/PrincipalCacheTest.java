@@ -0,0 +1,155 @@
+package com.microecosystem.courier.driver.app.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PrincipalCacheTest {
+
+    private final MutableClock clock = new MutableClock();
+    // Stands in for Redis, shared by every cache built on the template
+    private final Map<String, String> shared = new ConcurrentHashMap<>();
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Function<String, UserDetails> loader = username -> {
+        loads.incrementAndGet();
+        return new UserDetailsImpl(1L, username, null, null, List.of(), true, 7L);
+    };
+    private PrincipalCache cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(values.multiGet(anyList())).thenAnswer(invocation ->
+                ((List<String>) invocation.getArgument(0)).stream().map(shared::get).toList());
+        doAnswer(invocation -> shared.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(values).set(anyString(), anyString(), any(Duration.class));
+        cache = new PrincipalCache(redisTemplate, clock);
+    }
+
+    @Test
+    void get_ShouldLoadOnceUntilExpired() {
+        UserDetails first = cache.get("driver1", loader);
+        clock.advance(59_000);
+        assertSame(first, cache.get("driver1", loader));
+        assertEquals(1, loads.get());
+
+        clock.advance(2_000);
+        cache.get("driver1", loader);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidate_ShouldReloadAndMarkOlderTokensStale() {
+        long issuedAt = clock.millis();
+        cache.get("driver1", loader);
+        assertTrue(cache.isCurrent("driver1", issuedAt));
+
+        clock.advance(1_000);
+        cache.invalidate("driver1");
+
+        assertFalse(cache.isCurrent("driver1", issuedAt));
+        assertTrue(cache.isCurrent("driver2", issuedAt));
+        clock.advance(1_000);
+        assertTrue(cache.isCurrent("driver1", clock.millis()));
+        cache.get("driver1", loader);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void isCurrent_ShouldTrustClaimsUntilAnyInstanceInvalidatesTheUser() {
+        PrincipalCache other = new PrincipalCache(redisTemplate, clock);
+        long issuedAt = clock.millis();
+
+        clock.advance(Duration.ofHours(12).toMillis());
+        assertTrue(cache.isCurrent("driver1", issuedAt));
+
+        other.invalidate("driver1");
+
+        assertFalse(cache.isCurrent("driver1", issuedAt));
+        assertTrue(cache.isCurrent("driver2", issuedAt));
+        clock.advance(1_000);
+        assertTrue(cache.isCurrent("driver1", clock.millis()));
+    }
+
+    @Test
+    void isCurrent_WhenRedisIsUnavailable_ShouldNotTrustClaims() {
+        when(redisTemplate.opsForValue()).thenThrow(new RedisConnectionFailureException("down"));
+
+        assertFalse(cache.isCurrent("driver1", clock.millis()));
+    }
+
+    @Test
+    void get_BeyondTheMaximumSize_ShouldEvictTheLeastRecentlyUsed() {
+        ReflectionTestUtils.setField(cache, "maxSize", 10);
+        for (int i = 0; i < 10; i++) {
+            cache.get("driver" + i, loader);
+            clock.advance(10);
+        }
+        cache.get("driver0", loader);
+        clock.advance(10);
+
+        cache.get("driver10", loader);
+
+        assertEquals(9, cache.size());
+        loads.set(0);
+        cache.get("driver0", loader);
+        cache.get("driver10", loader);
+        assertEquals(0, loads.get());
+        cache.get("driver1", loader);
+        assertEquals(1, loads.get());
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private long millis = 1_700_000_000_000L;
+
+        private void advance(long delta) {
+            millis += delta;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+    }
+}
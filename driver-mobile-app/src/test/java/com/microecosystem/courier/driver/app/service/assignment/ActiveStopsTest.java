@@ -0,0 +1,66 @@
+package com.microecosystem.courier.driver.app.service.assignment;
+
+import com.microecosystem.courier.driver.app.model.Driver;
+import com.microecosystem.courier.driver.app.model.assignment.Assignment;
+import com.microecosystem.courier.driver.app.model.assignment.AssignmentStatus;
+import com.microecosystem.courier.driver.app.model.assignment.Task;
+import com.microecosystem.courier.driver.app.model.assignment.TaskStatus;
+import com.microecosystem.courier.driver.app.repository.TaskRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ActiveStopsTest {
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Test
+    void refresh_ShouldKeepLocatedStopsOfActiveAssignmentsInVisitingOrder() {
+        Driver driver = new Driver();
+        driver.setId(1L);
+        Driver waiting = new Driver();
+        waiting.setId(2L);
+        Assignment later = assignment(20L, driver, AssignmentStatus.ACCEPTED, null);
+        Assignment started = assignment(10L, driver, AssignmentStatus.IN_PROGRESS, LocalDateTime.of(2026, 3, 2, 9, 0));
+        Task unlocated = task(13L, started, TaskStatus.PENDING, 3);
+        unlocated.setLatitude(null);
+        when(taskRepository.findWithDriverByStatusIn(any())).thenReturn(List.of(
+                task(21L, later, TaskStatus.PENDING, 1),
+                task(12L, started, TaskStatus.PENDING, 2),
+                task(22L, later, TaskStatus.IN_PROGRESS, 2),
+                task(11L, started, TaskStatus.PENDING, 1),
+                unlocated,
+                task(31L, assignment(30L, waiting, AssignmentStatus.PENDING, null), TaskStatus.ARRIVED, 1)));
+        ActiveStops activeStops = new ActiveStops(taskRepository);
+
+        activeStops.refresh();
+
+        assertEquals(1, activeStops.size());
+        assertNull(activeStops.get(2L));
+        ActiveStops.DriverStops stops = activeStops.get(1L);
+        assertNull(stops.getLatitude());
+        // Heading to the stop in progress, then assignment by assignment
+        assertEquals(List.of(22L, 11L, 12L, 21L),
+                stops.getStops().stream().map(ActiveStops.Stop::getTaskId).toList());
+    }
+
+    private static Assignment assignment(Long id, Driver driver, AssignmentStatus status, LocalDateTime startedAt) {
+        return Assignment.builder().id(id).driver(driver).status(status).startedAt(startedAt).build();
+    }
+
+    private static Task task(Long id, Assignment assignment, TaskStatus status, int sequenceNumber) {
+        return Task.builder().id(id).assignment(assignment).status(status).sequenceNumber(sequenceNumber)
+                .latitude(BigDecimal.valueOf(51.5)).longitude(BigDecimal.valueOf(-0.1)).build();
+    }
+}
@@ -10,9 +10,11 @@ import com.microecosystem.courier.driver.app.service.assignment.impl.AssignmentS
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -37,6 +39,9 @@ public class AssignmentServiceImplTest {
     @Mock
     private DriverRepository driverRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private AssignmentServiceImpl assignmentService;
 
@@ -227,6 +232,11 @@ public class AssignmentServiceImplTest {
         verify(assignmentRepository, times(1))
                 .findByIdAndDriverId(pendingAssignment.getId(), testDriver.getId());
         verify(assignmentRepository, times(1)).save(pendingAssignment);
+
+        ArgumentCaptor<AssignmentChangedEvent> event = ArgumentCaptor.forClass(AssignmentChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(testDriver.getId(), event.getValue().getDriverId());
+        assertEquals(AssignmentStatus.ACCEPTED, event.getValue().getDelta().getStatus());
     }
 
     @Test
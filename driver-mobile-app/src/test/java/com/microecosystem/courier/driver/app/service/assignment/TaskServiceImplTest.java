@@ -12,9 +12,11 @@ import com.microecosystem.courier.driver.app.service.assignment.impl.TaskService
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -37,6 +39,9 @@ public class TaskServiceImplTest {
     @Mock
     private AssignmentRepository assignmentRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks
     private TaskServiceImpl taskService;
 
@@ -304,6 +309,12 @@ public class TaskServiceImplTest {
         verify(taskRepository, times(1))
                 .findByIdAndAssignmentId(inProgressTask.getId(), testAssignment.getId());
         verify(taskRepository, times(1)).save(inProgressTask);
+
+        ArgumentCaptor<TaskStatusChangedEvent> event = ArgumentCaptor.forClass(TaskStatusChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(testDriver.getId(), event.getValue().getDriverId());
+        assertEquals(inProgressTask.getId(), event.getValue().getTaskId());
+        assertEquals(TaskStatus.COMPLETED, event.getValue().getStatus());
     }
 
     @Test
@@ -0,0 +1,163 @@
+package com.microecosystem.courier.driver.app.service.assignment.push;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microecosystem.courier.driver.app.dto.assignment.AssignmentChanges;
+import com.microecosystem.courier.driver.app.dto.assignment.AssignmentDelta;
+import com.microecosystem.courier.driver.app.model.assignment.AssignmentStatus;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class AssignmentPushHubTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T12:00:00Z");
+    private static final Clock FIXED = Clock.fixed(NOW, ZoneOffset.UTC);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void poll_ShouldReturnChangesAfterTheTokenAndWaitForTheNext() {
+        AssignmentPushHub hub = hub(new LocalAssignmentChangeFeed(FIXED), FIXED);
+
+        AssignmentChanges first = result(hub.poll(1L, null, 30000));
+        assertFalse(first.isReset());
+        assertTrue(first.getChanges().isEmpty());
+
+        hub.publish(1L, delta(10L, AssignmentStatus.ACCEPTED));
+        hub.publish(2L, delta(20L, AssignmentStatus.ACCEPTED));
+        AssignmentChanges missed = result(hub.poll(1L, first.getResumeToken(), 30000));
+        assertEquals(List.of(10L), missed.getChanges().stream().map(AssignmentDelta::getAssignmentId).toList());
+        assertNotEquals(first.getResumeToken(), missed.getResumeToken());
+
+        DeferredResult<AssignmentChanges> waiting = hub.poll(1L, missed.getResumeToken(), 30000);
+        assertFalse(waiting.hasResult());
+        hub.publish(1L, delta(10L, AssignmentStatus.STARTED));
+        assertEquals(AssignmentStatus.STARTED, result(waiting).getChanges().get(0).getStatus());
+    }
+
+    @Test
+    void poll_ShouldResetWhenChangesAreNoLongerBuffered() {
+        LocalAssignmentChangeFeed feed = new LocalAssignmentChangeFeed(FIXED);
+        ReflectionTestUtils.setField(feed, "bufferSize", 2);
+        AssignmentPushHub hub = hub(feed, FIXED);
+        String token = result(hub.poll(1L, null, 30000)).getResumeToken();
+
+        hub.publish(1L, delta(10L, AssignmentStatus.ACCEPTED));
+        hub.publish(1L, delta(11L, AssignmentStatus.ACCEPTED));
+        hub.publish(1L, delta(12L, AssignmentStatus.ACCEPTED));
+
+        AssignmentChanges overflowed = result(hub.poll(1L, token, 30000));
+        assertTrue(overflowed.isReset());
+        assertTrue(overflowed.getChanges().isEmpty());
+        // The reset carries a token the device can wait on after reloading
+        assertFalse(hub.poll(1L, overflowed.getResumeToken(), 30000).hasResult());
+        assertTrue(result(hub.poll(1L, "other-node:1:0", 30000)).isReset());
+    }
+
+    @Test
+    void connect_ShouldSendMissedChangesThenLiveChangesUntilTheDriverIsForgotten() throws Exception {
+        Instant[] now = {NOW};
+        Clock clock = new Clock() {
+            @Override
+            public ZoneId getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now[0];
+            }
+        };
+        AssignmentPushHub hub = hub(new LocalAssignmentChangeFeed(clock), clock);
+        hub.publish(1L, delta(10L, AssignmentStatus.ACCEPTED));
+        String token = result(hub.poll(1L, null, 30000)).getResumeToken();
+        hub.publish(1L, delta(11L, AssignmentStatus.PENDING));
+
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("session-1");
+        hub.connect(1L, session, token);
+        hub.publish(1L, delta(10L, AssignmentStatus.STARTED));
+        assertEquals(1, hub.sessionCount());
+
+        List<JsonNode> messages = sent(session);
+        assertEquals(List.of("change", "ready", "change"), messages.stream().map(m -> m.get("type").asText()).toList());
+        assertEquals(11L, messages.get(0).get("change").get("assignmentId").asLong());
+        assertEquals("STARTED", messages.get(2).get("change").get("status").asText());
+        assertEquals(messages.get(1).get("resumeToken"), messages.get(0).get("resumeToken"));
+
+        hub.disconnect(1L, session);
+        assertEquals(0, hub.sessionCount());
+        String last = messages.get(2).get("resumeToken").asText();
+
+        now[0] = NOW.plus(Duration.ofHours(1));
+        hub.maintain();
+        assertTrue(result(hub.poll(1L, last, 30000)).isReset());
+    }
+
+    @Test
+    void poll_ShouldResumeOnAnyNodeAndReceiveChangesPublishedOnAnother() {
+        LocalAssignmentChangeFeed feed = new LocalAssignmentChangeFeed(FIXED);
+        AssignmentPushHub first = hub(feed, FIXED);
+        AssignmentPushHub second = hub(feed, FIXED);
+
+        String token = result(first.poll(1L, null, 30000)).getResumeToken();
+        DeferredResult<AssignmentChanges> waiting = first.poll(1L, token, 30000);
+        second.publish(1L, delta(10L, AssignmentStatus.ACCEPTED));
+        AssignmentChanges live = result(waiting);
+        assertEquals(List.of(10L), live.getChanges().stream().map(AssignmentDelta::getAssignmentId).toList());
+
+        first.publish(1L, delta(11L, AssignmentStatus.ACCEPTED));
+        // The second node holds no channel for the driver yet and reads what it missed from the feed
+        AssignmentChanges resumed = result(second.poll(1L, token, 30000));
+        assertFalse(resumed.isReset());
+        assertEquals(List.of(10L, 11L), resumed.getChanges().stream().map(AssignmentDelta::getAssignmentId).toList());
+        assertEquals(resumed.getResumeToken(), result(first.poll(1L, null, 30000)).getResumeToken());
+    }
+
+    private AssignmentPushHub hub(AssignmentChangeFeed feed, Clock clock) {
+        AssignmentPushHub hub = new AssignmentPushHub(objectMapper, feed, clock);
+        hub.start();
+        return hub;
+    }
+
+    private List<JsonNode> sent(WebSocketSession session) throws Exception {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<WebSocketMessage<?>> captor = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(session, atLeastOnce()).sendMessage(captor.capture());
+        List<JsonNode> messages = new ArrayList<>();
+        for (WebSocketMessage<?> message : captor.getAllValues()) {
+            messages.add(objectMapper.readTree(((TextMessage) message).getPayload()));
+        }
+        return messages;
+    }
+
+    private static AssignmentChanges result(DeferredResult<AssignmentChanges> result) {
+        assertTrue(result.hasResult());
+        return (AssignmentChanges) result.getResult();
+    }
+
+    private static AssignmentDelta delta(Long assignmentId, AssignmentStatus status) {
+        return AssignmentDelta.builder().assignmentId(assignmentId).status(status).build();
+    }
+}
@@ -0,0 +1,190 @@
+package com.microecosystem.courier.driver.app.service.bundle;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microecosystem.courier.driver.app.dto.assignment.AssignmentDelta;
+import com.microecosystem.courier.driver.app.dto.bundle.AreaBundle;
+import com.microecosystem.courier.driver.app.dto.bundle.BundleBranch;
+import com.microecosystem.courier.driver.app.dto.bundle.BundleRoute;
+import com.microecosystem.courier.driver.app.dto.bundle.BundleStop;
+import com.microecosystem.courier.driver.app.exception.BundleNotReadyException;
+import com.microecosystem.courier.driver.app.model.assignment.AssignmentStatus;
+import com.microecosystem.courier.driver.app.model.assignment.TaskStatus;
+import com.microecosystem.courier.driver.app.service.assignment.AssignmentChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AreaBundleServiceTest {
+
+    private static final Long DRIVER_ID = 7L;
+    private static final Long OTHER_DRIVER_ID = 8L;
+    private static final Clock CLOCK = Clock.fixed(Instant.ofEpochMilli(1_000), ZoneOffset.UTC);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Mock
+    private AreaBundleBuilder builder;
+
+    private AreaBundleService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new AreaBundleService(builder, objectMapper, CLOCK, Runnable::run);
+    }
+
+    @Test
+    void current_ShouldBuildACompressedBundleAndKeepTheVersionWhileNothingChanges() throws IOException {
+        when(builder.build(DRIVER_ID)).thenAnswer(invocation -> bundle(TaskStatus.PENDING, TaskStatus.PENDING));
+
+        AreaBundleService.Snapshot snapshot = service.current(DRIVER_ID);
+        AreaBundle stored;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(snapshot.getCompressed()))) {
+            stored = objectMapper.readValue(in, AreaBundle.class);
+        }
+        assertEquals(snapshot.getVersion(), stored.getVersion());
+        assertTrue(stored.isFull());
+        assertEquals(2, stored.getStops().size());
+        assertEquals(1, stored.getRoutes().size());
+        assertEquals(1, stored.getBranches().size());
+
+        // Served from memory until something marks it stale
+        assertSame(snapshot, service.current(DRIVER_ID));
+        service.refresh();
+        service.rebuildStale();
+        assertEquals(snapshot.getVersion(), service.current(DRIVER_ID).getVersion());
+        verify(builder, times(2)).build(DRIVER_ID);
+        verify(builder, times(2)).addDirections(any(AreaBundle.class));
+    }
+
+    @Test
+    void current_ShouldNotBuildOnTheRequestThread() {
+        List<Runnable> queued = new ArrayList<>();
+        service = new AreaBundleService(builder, objectMapper, CLOCK, queued::add);
+        when(builder.build(DRIVER_ID)).thenAnswer(invocation -> bundle(TaskStatus.PENDING));
+
+        assertThrows(BundleNotReadyException.class, () -> service.current(DRIVER_ID));
+        assertThrows(BundleNotReadyException.class, () -> service.current(DRIVER_ID));
+        verify(builder, never()).build(anyLong());
+        // Repeated requests share one build
+        assertEquals(1, queued.size());
+
+        queued.get(0).run();
+        assertNotNull(service.current(DRIVER_ID));
+    }
+
+    @Test
+    void current_ShouldGiveTheSameContentTheSameVersionOnEveryInstance() {
+        when(builder.build(DRIVER_ID)).thenAnswer(invocation -> bundle(TaskStatus.PENDING, TaskStatus.PENDING));
+        AreaBundleService other = new AreaBundleService(builder, objectMapper,
+                Clock.fixed(Instant.ofEpochMilli(9_000), ZoneOffset.UTC), Runnable::run);
+
+        assertEquals(service.current(DRIVER_ID).getVersion(), other.current(DRIVER_ID).getVersion());
+    }
+
+    @Test
+    void onAssignmentChanged_ShouldRebuildThePreviousDriversBundleOnReassignment() {
+        when(builder.build(DRIVER_ID))
+                .thenReturn(bundle(TaskStatus.PENDING))
+                .thenReturn(AreaBundle.builder().driverId(DRIVER_ID).full(true).assignments(List.of())
+                        .stops(List.of()).routes(List.of()).branches(List.of()).removed(List.of()).build());
+        service.current(DRIVER_ID);
+
+        service.onAssignmentChanged(new AssignmentChangedEvent(OTHER_DRIVER_ID, assignment(AssignmentStatus.PENDING)));
+        service.rebuildStale();
+
+        verify(builder, times(2)).build(DRIVER_ID);
+        verify(builder, never()).build(OTHER_DRIVER_ID);
+        assertNull(service.current(DRIVER_ID));
+    }
+
+    @Test
+    void changesSince_ShouldReturnOnlyChangedAndRemovedEntries() {
+        when(builder.build(DRIVER_ID))
+                .thenReturn(bundle(TaskStatus.PENDING, TaskStatus.PENDING))
+                .thenReturn(bundle(TaskStatus.COMPLETED));
+        long first = service.current(DRIVER_ID).getVersion();
+
+        service.onAssignmentChanged(new AssignmentChangedEvent(DRIVER_ID, assignment(AssignmentStatus.IN_PROGRESS)));
+        service.rebuildStale();
+
+        AreaBundle delta = service.changesSince(DRIVER_ID, first);
+        assertFalse(delta.isFull());
+        assertEquals(first, delta.getBaseVersion());
+        assertNotEquals(first, delta.getVersion());
+        assertTrue(delta.getAssignments().isEmpty());
+        assertEquals(1, delta.getStops().size());
+        assertEquals(TaskStatus.COMPLETED, delta.getStops().get(0).getStatus());
+        assertTrue(delta.getRoutes().isEmpty());
+        assertTrue(delta.getBranches().isEmpty());
+        assertEquals(List.of("stop:2", "route:1-2"), delta.getRemoved());
+
+        AreaBundle unknown = service.changesSince(DRIVER_ID, first - 1);
+        assertTrue(unknown.isFull());
+        assertEquals(1, unknown.getStops().size());
+    }
+
+    @Test
+    void onAssignmentChanged_ShouldBuildOnShiftStartAndDropTheBundleWhenTheShiftEnds() {
+        service.onAssignmentChanged(new AssignmentChangedEvent(DRIVER_ID, assignment(AssignmentStatus.PENDING)));
+        service.rebuildStale();
+        verify(builder, never()).build(anyLong());
+
+        when(builder.build(DRIVER_ID))
+                .thenReturn(bundle(TaskStatus.PENDING, TaskStatus.PENDING))
+                .thenReturn(AreaBundle.builder().driverId(DRIVER_ID).full(true).assignments(List.of())
+                        .stops(List.of()).routes(List.of()).branches(List.of()).removed(List.of()).build());
+        service.onAssignmentChanged(new AssignmentChangedEvent(DRIVER_ID, assignment(AssignmentStatus.ACCEPTED)));
+        service.rebuildStale();
+        assertEquals(1, service.size());
+
+        service.onAssignmentChanged(new AssignmentChangedEvent(DRIVER_ID, assignment(AssignmentStatus.COMPLETED)));
+        service.rebuildStale();
+        assertEquals(0, service.size());
+    }
+
+    private static AssignmentDelta assignment(AssignmentStatus status) {
+        return AssignmentDelta.builder().assignmentId(10L).status(status).build();
+    }
+
+    // One assignment whose stops have the given statuses, routed in order, near one branch
+    private static AreaBundle bundle(TaskStatus... statuses) {
+        List<BundleStop> stops = new ArrayList<>();
+        List<BundleRoute> routes = new ArrayList<>();
+        for (int i = 0; i < statuses.length; i++) {
+            long taskId = i + 1;
+            stops.add(BundleStop.builder().taskId(taskId).assignmentId(10L).status(statuses[i])
+                    .sequenceNumber(i + 1).address(taskId + " High Street").build());
+            if (i > 0) {
+                routes.add(BundleRoute.builder().fromTaskId(taskId - 1).toTaskId(taskId)
+                        .directions(Map.of("distance", 1.2, "duration", 4)).build());
+            }
+        }
+        return AreaBundle.builder()
+                .driverId(DRIVER_ID)
+                .full(true)
+                .assignments(List.of(assignment(AssignmentStatus.IN_PROGRESS)))
+                .stops(stops)
+                .routes(routes)
+                .branches(List.of(BundleBranch.builder().id(3L).name("Central").build()))
+                .removed(List.of())
+                .build();
+    }
+}
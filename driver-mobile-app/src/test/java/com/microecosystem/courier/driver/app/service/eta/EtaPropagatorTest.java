@@ -0,0 +1,218 @@
+package com.microecosystem.courier.driver.app.service.eta;
+
+import com.microecosystem.courier.driver.app.model.Driver;
+import com.microecosystem.courier.driver.app.model.assignment.Assignment;
+import com.microecosystem.courier.driver.app.model.assignment.AssignmentStatus;
+import com.microecosystem.courier.driver.app.model.assignment.Task;
+import com.microecosystem.courier.driver.app.model.assignment.TaskStatus;
+import com.microecosystem.courier.driver.app.repository.TaskRepository;
+import com.microecosystem.courier.driver.app.service.assignment.ActiveStops;
+import com.microecosystem.courier.driver.app.service.assignment.TaskStatusChangedEvent;
+import com.microecosystem.courier.driver.app.service.navigation.NavigationService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class EtaPropagatorTest {
+
+    private static final double START_LATITUDE = 51.5;
+    private static final double LONGITUDE = -0.1;
+    private static final double METERS_PER_DEGREE = 6_371_000.0 * Math.PI / 180;
+    private static final double SPEED_MPS = 10;
+    private static final Instant NOW = Instant.parse("2026-03-02T12:00:00Z");
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Mock
+    private NavigationService navigationService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Test
+    void onLocation_ShouldShiftDownstreamStopsOnlyOnceTheDelayPassesTheThreshold() {
+        EtaPropagator propagator = propagatorWithStops();
+        LocalDateTime start = LocalDateTime.ofInstant(NOW.minusSeconds(1000), ZoneOffset.UTC);
+
+        propagator.onLocation(1L, latitude(0), LONGITUDE, start);
+        StopEtasChangedEvent initial = captureLast(1);
+        assertEquals(3, initial.getEtas().size());
+        assertEtas(initial, start.plusSeconds(100), start.plusSeconds(380), start.plusSeconds(660));
+        assertNull(initial.getEtas().get(0).getPreviousEstimatedArrivalTime());
+
+        // Stuck in traffic: a one minute slip is not worth telling customers about
+        propagator.onLocation(1L, latitude(0), LONGITUDE, start.plusSeconds(60));
+        verify(eventPublisher, times(1)).publishEvent(any(Object.class));
+
+        propagator.onLocation(1L, latitude(0), LONGITUDE, start.plusSeconds(150));
+        StopEtasChangedEvent delayed = captureLast(2);
+        assertEtas(delayed, start.plusSeconds(250), start.plusSeconds(530), start.plusSeconds(810));
+        assertEquals(initial.getEtas().get(2).getEstimatedArrivalTime(),
+                delayed.getEtas().get(2).getPreviousEstimatedArrivalTime());
+
+        // Nobody else is tracked
+        propagator.onLocation(2L, latitude(0), LONGITUDE, start.plusSeconds(150));
+        verify(eventPublisher, times(2)).publishEvent(any(Object.class));
+    }
+
+    @Test
+    void onTaskStatusChanged_ShouldRestartFromTheFinishedStopAndStoreTheLatestEstimates() {
+        EtaPropagator propagator = propagatorWithStops();
+        LocalDateTime start = LocalDateTime.ofInstant(NOW.minusSeconds(1000), ZoneOffset.UTC);
+        LocalDateTime now = LocalDateTime.ofInstant(NOW, ZoneOffset.UTC);
+        propagator.onLocation(1L, latitude(0), LONGITUDE, start);
+
+        propagator.onTaskStatusChanged(new TaskStatusChangedEvent(1L, 10L, 1L, TaskStatus.COMPLETED));
+        StopEtasChangedEvent completed = captureLast(2);
+        assertEquals(List.of(2L, 3L), completed.getEtas().stream().map(StopEta::getTaskId).toList());
+        assertEtas(completed, now.plusSeconds(100), now.plusSeconds(380));
+
+        // At the next stop for longer than the service time pushes the last one back
+        propagator.onTaskStatusChanged(new TaskStatusChangedEvent(1L, 10L, 2L, TaskStatus.ARRIVED));
+        propagator.onLocation(1L, latitude(2000), LONGITUDE, now.plusSeconds(420));
+        StopEtasChangedEvent overran = captureLast(3);
+        assertEquals(List.of(3L), overran.getEtas().stream().map(StopEta::getTaskId).toList());
+        assertEtas(overran, now.plusSeconds(520));
+
+        propagator.flush();
+        ArgumentCaptor<LocalDateTime> stored = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(taskRepository).updateEstimatedArrivalTime(eq(1L), any());
+        verify(taskRepository).updateEstimatedArrivalTime(eq(2L), any());
+        verify(taskRepository).updateEstimatedArrivalTime(eq(3L), stored.capture());
+        assertClose(now.plusSeconds(520), stored.getValue());
+        propagator.flush();
+        verify(taskRepository, times(3)).updateEstimatedArrivalTime(anyLong(), any());
+    }
+
+    @Test
+    void refresh_ShouldKeepTheProgressFromEventsTheReloadedStatusesDoNotShowYet() {
+        EtaPropagator propagator = propagatorWithStops();
+        LocalDateTime start = LocalDateTime.ofInstant(NOW.minusSeconds(1000), ZoneOffset.UTC);
+        LocalDateTime now = LocalDateTime.ofInstant(NOW, ZoneOffset.UTC);
+        propagator.onLocation(1L, latitude(0), LONGITUDE, start);
+        propagator.onTaskStatusChanged(new TaskStatusChangedEvent(1L, 10L, 1L, TaskStatus.COMPLETED));
+        propagator.onTaskStatusChanged(new TaskStatusChangedEvent(1L, 10L, 2L, TaskStatus.ARRIVED));
+
+        // Still read as heading to the first stop
+        propagator.refresh();
+
+        propagator.onLocation(1L, latitude(2000), LONGITUDE, now.plusSeconds(420));
+        StopEtasChangedEvent overran = captureLast(3);
+        assertEquals(List.of(3L), overran.getEtas().stream().map(StopEta::getTaskId).toList());
+        assertEtas(overran, now.plusSeconds(520));
+    }
+
+    @Test
+    void refresh_ShouldVisitTheStopsOfOneAssignmentBeforeTheNext() {
+        Driver driver = driver();
+        Assignment first = assignment(10L, driver, LocalDateTime.ofInstant(NOW.minusSeconds(3600), ZoneOffset.UTC));
+        Assignment second = assignment(20L, driver, null);
+        EtaPropagator propagator = propagator(List.of(
+                task(21L, second, TaskStatus.PENDING, 1, 3000),
+                task(12L, first, TaskStatus.PENDING, 2, 2000),
+                task(22L, second, TaskStatus.PENDING, 2, 4000),
+                task(11L, first, TaskStatus.PENDING, 1, 1000)));
+
+        propagator.onLocation(1L, latitude(0), LONGITUDE, LocalDateTime.ofInstant(NOW, ZoneOffset.UTC));
+
+        assertEquals(List.of(11L, 12L, 21L, 22L),
+                captureLast(1).getEtas().stream().map(StopEta::getTaskId).toList());
+    }
+
+    // A driver at the start heading to three stops 1 km apart, driven at 10 m/s
+    private EtaPropagator propagatorWithStops() {
+        Assignment assignment = assignment(10L, driver(), null);
+        return propagator(List.of(
+                task(3L, assignment, TaskStatus.PENDING, 3000),
+                task(1L, assignment, TaskStatus.IN_PROGRESS, 1000),
+                task(2L, assignment, TaskStatus.PENDING, 2000)));
+    }
+
+    private EtaPropagator propagator(List<Task> tasks) {
+        when(taskRepository.findWithDriverByStatusIn(any())).thenReturn(tasks);
+        when(navigationService.getDirections(anyDouble(), anyDouble(), anyDouble(), anyDouble())).thenAnswer(invocation -> {
+            double meters = Math.abs((double) invocation.getArgument(2) - (double) invocation.getArgument(0)) * METERS_PER_DEGREE;
+            return Map.of("duration", (int) Math.round(meters / SPEED_MPS));
+        });
+
+        ActiveStops activeStops = new ActiveStops(taskRepository);
+        activeStops.refresh();
+        EtaPropagator propagator = new EtaPropagator(activeStops, taskRepository, navigationService, eventPublisher,
+                Clock.fixed(NOW, ZoneOffset.UTC));
+        propagator.refresh();
+        assertEquals(1, propagator.size());
+        return propagator;
+    }
+
+    private static Driver driver() {
+        Driver driver = new Driver();
+        driver.setId(1L);
+        driver.setCurrentLatitude(BigDecimal.valueOf(latitude(0)));
+        driver.setCurrentLongitude(BigDecimal.valueOf(LONGITUDE));
+        return driver;
+    }
+
+    private static Assignment assignment(Long id, Driver driver, LocalDateTime startedAt) {
+        Assignment assignment = new Assignment();
+        assignment.setId(id);
+        assignment.setDriver(driver);
+        assignment.setStatus(startedAt != null ? AssignmentStatus.IN_PROGRESS : AssignmentStatus.ACCEPTED);
+        assignment.setStartedAt(startedAt);
+        return assignment;
+    }
+
+    private static Task task(Long id, Assignment assignment, TaskStatus status, double meters) {
+        return task(id, assignment, status, id.intValue(), meters);
+    }
+
+    private static Task task(Long id, Assignment assignment, TaskStatus status, int sequenceNumber, double meters) {
+        Task task = new Task();
+        task.setId(id);
+        task.setAssignment(assignment);
+        task.setStatus(status);
+        task.setSequenceNumber(sequenceNumber);
+        task.setLatitude(BigDecimal.valueOf(latitude(meters)));
+        task.setLongitude(BigDecimal.valueOf(LONGITUDE));
+        return task;
+    }
+
+    private StopEtasChangedEvent captureLast(int published) {
+        ArgumentCaptor<StopEtasChangedEvent> event = ArgumentCaptor.forClass(StopEtasChangedEvent.class);
+        verify(eventPublisher, times(published)).publishEvent(event.capture());
+        return event.getValue();
+    }
+
+    private static void assertEtas(StopEtasChangedEvent event, LocalDateTime... expected) {
+        assertEquals(expected.length, event.getEtas().size());
+        for (int i = 0; i < expected.length; i++) {
+            assertClose(expected[i], event.getEtas().get(i).getEstimatedArrivalTime());
+        }
+    }
+
+    private static void assertClose(LocalDateTime expected, LocalDateTime actual) {
+        assertTrue(Math.abs(Duration.between(expected, actual).toMillis()) < 1000,
+                () -> "Expected about " + expected + " but was " + actual);
+    }
+
+    private static double latitude(double metersNorth) {
+        return START_LATITUDE + metersNorth / METERS_PER_DEGREE;
+    }
+}
@@ -0,0 +1,90 @@
+package com.microecosystem.courier.driver.app.service.geofence;
+
+import com.microecosystem.courier.driver.app.model.GeofenceType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class GeofenceEngineTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 12, 0);
+    // About 1.1 m of latitude
+    private static final double METER = 1.0 / 111_320.0;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private GeofenceEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new GeofenceEngine(eventPublisher);
+        engine.register(Geofence.circle("task-1", GeofenceType.DELIVERY_STOP, 1L, 7L, 51.5, -0.1, 100));
+    }
+
+    @Test
+    void evaluate_ShouldEnterDwellAndExitWithHysteresis() {
+        assertTrue(engine.evaluate(7L, 51.5 + 150 * METER, -0.1, START).isEmpty());
+
+        assertEquals(List.of(GeofenceTransition.ENTER), transitions(7L, 90, 10));
+        // Jitter just outside the boundary is not an exit
+        assertTrue(transitions(7L, 110, 20).isEmpty());
+        assertTrue(transitions(7L, 95, 30).isEmpty());
+        assertEquals(List.of(GeofenceTransition.DWELL), transitions(7L, 50, 150));
+        assertTrue(transitions(7L, 50, 200).isEmpty());
+        assertEquals(List.of(GeofenceTransition.EXIT), transitions(7L, 130, 210));
+
+        verify(eventPublisher, times(3)).publishEvent(any(GeofenceEvent.class));
+    }
+
+    @Test
+    void evaluate_WhenAListenerFails_ShouldStillReportTheTransition() {
+        doThrow(new TaskRejectedException("Executor is saturated")).when(eventPublisher).publishEvent(any(GeofenceEvent.class));
+
+        assertEquals(List.of(GeofenceTransition.ENTER), transitions(7L, 0, 0));
+    }
+
+    @Test
+    void evaluate_ShouldOnlyApplyStopFenceToItsDriver() {
+        assertTrue(transitions(8L, 0, 0).isEmpty());
+        assertEquals(List.of(GeofenceTransition.ENTER), transitions(7L, 0, 0));
+    }
+
+    @Test
+    void evaluate_ShouldDetectPolygonsAndForgetRemovedFences() {
+        // A depot about 220 m square, north-east of the stop
+        double north = 51.5 + 500 * METER;
+        engine.register(Geofence.polygon("geofence-1", GeofenceType.DEPOT, 1L, null, List.of(
+                new double[]{north, -0.1}, new double[]{north, -0.0968},
+                new double[]{north + 200 * METER, -0.0968}, new double[]{north + 200 * METER, -0.1})));
+
+        List<GeofenceEvent> events = engine.evaluate(9L, north + 100 * METER, -0.0984, START);
+        assertEquals(1, events.size());
+        assertEquals(GeofenceType.DEPOT, events.get(0).getGeofenceType());
+        assertEquals(GeofenceTransition.ENTER, events.get(0).getTransition());
+        // Outside, but within the exit margin of the edge
+        assertTrue(engine.evaluate(9L, north - 20 * METER, -0.0984, START.plusSeconds(5)).isEmpty());
+
+        engine.synchronize(List.of());
+        assertEquals(0, engine.size());
+        assertTrue(engine.evaluate(9L, north - 200 * METER, -0.0984, START.plusSeconds(10)).isEmpty());
+    }
+
+    private List<GeofenceTransition> transitions(Long driverId, double metersNorth, int seconds) {
+        return engine.evaluate(driverId, 51.5 + metersNorth * METER, -0.1, START.plusSeconds(seconds)).stream()
+                .map(GeofenceEvent::getTransition)
+                .toList();
+    }
+}
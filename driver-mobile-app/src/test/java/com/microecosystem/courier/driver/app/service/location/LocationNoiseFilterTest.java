@@ -0,0 +1,82 @@
+package com.microecosystem.courier.driver.app.service.location;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocationNoiseFilterTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 12, 0);
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    private final LocationNoiseFilter filter = new LocationNoiseFilter();
+
+    @Test
+    void filter_ShouldRejectImpossibleJumpsUntilConfirmed() {
+        assertEquals(LocationNoiseFilter.Outcome.MOVED, filter.filter(fix(0, 0)).getOutcome());
+        // 1 km in 5 seconds is 720 km/h
+        assertEquals(LocationNoiseFilter.Outcome.REJECTED, filter.filter(fix(5, 9_000)).getOutcome());
+        assertEquals(LocationNoiseFilter.Outcome.MOVED, filter.filter(fix(10, 900)).getOutcome());
+
+        // A driver who keeps reporting from the far place is eventually believed
+        filter.filter(fix(15, 20_000));
+        filter.filter(fix(16, 20_000));
+        filter.filter(fix(17, 20_000));
+        LocationNoiseFilter.Result confirmed = filter.filter(fix(18, 20_000));
+        assertEquals(LocationNoiseFilter.Outcome.MOVED, confirmed.getOutcome());
+        assertEquals(latitude(20_000), confirmed.getPing().getLatitude());
+    }
+
+    @Test
+    void filter_ShouldCollapseJitterWhileStationary() {
+        filter.filter(fix(0, 0));
+        int stationary = 0;
+        for (int i = 1; i <= 20; i++) {
+            // Jitter of up to about 8 m around the same spot
+            LocationNoiseFilter.Result result = filter.filter(fix(i * 5, i % 2 == 0 ? 70 : -70));
+            if (result.getOutcome() == LocationNoiseFilter.Outcome.STATIONARY) {
+                stationary++;
+            }
+            double offsetMeters = Math.abs(result.getPing().getLatitude().doubleValue()) * METERS_PER_DEGREE;
+            assertTrue(offsetMeters < 8, "smoothed fix should stay inside the jitter");
+        }
+        assertEquals(20, stationary);
+    }
+
+    @Test
+    void filter_ShouldFollowSteadyMovement() {
+        LocationNoiseFilter.Result result = filter.filter(fix(0, 0));
+        for (int i = 1; i <= 10; i++) {
+            // About 50 m every 5 seconds, 36 km/h
+            result = filter.filter(fix(i * 5, i * 450));
+            assertEquals(LocationNoiseFilter.Outcome.MOVED, result.getOutcome());
+        }
+        double lagMeters = (latitude(4_500).doubleValue() - result.getPing().getLatitude().doubleValue())
+                * METERS_PER_DEGREE;
+        assertTrue(Math.abs(lagMeters) < 10, "smoothing should not trail far behind a moving driver");
+    }
+
+    @Test
+    void evictIdleTracks_ShouldForgetDriversWhoStoppedReporting() {
+        filter.filter(fix(0, 0));
+        assertEquals(1, filter.trackedDrivers());
+
+        filter.evictIdleTracks(System.currentTimeMillis());
+        assertEquals(1, filter.trackedDrivers());
+
+        filter.evictIdleTracks(System.currentTimeMillis() + 120_001);
+        assertEquals(0, filter.trackedDrivers());
+    }
+
+    // Latitude in millionths of a degree, about 0.11 m
+    private static LocationPing fix(int seconds, int microdegrees) {
+        return new LocationPing(1L, latitude(microdegrees), BigDecimal.ZERO, 10, null, null, START.plusSeconds(seconds));
+    }
+
+    private static BigDecimal latitude(int microdegrees) {
+        return BigDecimal.valueOf(microdegrees, 6).setScale(7);
+    }
+}
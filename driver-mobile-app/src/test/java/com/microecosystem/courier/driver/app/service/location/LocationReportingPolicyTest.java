@@ -0,0 +1,112 @@
+package com.microecosystem.courier.driver.app.service.location;
+
+import com.microecosystem.courier.driver.app.model.Driver;
+import com.microecosystem.courier.driver.app.model.assignment.Assignment;
+import com.microecosystem.courier.driver.app.model.assignment.AssignmentStatus;
+import com.microecosystem.courier.driver.app.model.assignment.Task;
+import com.microecosystem.courier.driver.app.model.assignment.TaskStatus;
+import com.microecosystem.courier.driver.app.repository.TaskRepository;
+import com.microecosystem.courier.driver.app.service.assignment.ActiveStops;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class LocationReportingPolicyTest {
+
+    private static final double STOP_LATITUDE = 51.5;
+    private static final double STOP_LONGITUDE = -0.1;
+    private static final double METERS_PER_DEGREE = 111_320.0;
+    // The cadence drivers reported at before the policy
+    private static final long FIXED_INTERVAL_MS = 30_000;
+
+    @Mock
+    private TaskRepository taskRepository;
+
+    @Test
+    void recommend_ShouldReportRarelyFarFromTheStopAndOftenWhenApproachingIt() {
+        LocationReportingPolicy policy = policyWithStop(TaskStatus.IN_PROGRESS);
+
+        LocationReportingPolicy.Recommendation far = policy.recommend(1L, latitude(20_000), STOP_LONGITUDE, 20.0);
+        LocationReportingPolicy.Recommendation nearer = policy.recommend(1L, latitude(2_000), STOP_LONGITUDE, 10.0);
+        LocationReportingPolicy.Recommendation approaching = policy.recommend(1L, latitude(300), STOP_LONGITUDE, 10.0);
+        assertEquals(120_000, far.getIntervalMs());
+        assertEquals(45_000, nearer.getIntervalMs());
+        assertEquals(450, nearer.getDistanceMeters(), 1e-9);
+        assertEquals(15_000, approaching.getIntervalMs());
+        assertEquals(100, approaching.getDistanceMeters(), 1e-9);
+
+        LocationReportingPolicy.Recommendation parked = policy.recommend(1L, latitude(2_000), STOP_LONGITUDE, 0.2);
+        assertEquals(300_000, parked.getIntervalMs());
+        assertEquals(25, parked.getDistanceMeters(), 1e-9);
+
+        LocationReportingPolicy.Recommendation idle = policy.recommend(2L, latitude(2_000), STOP_LONGITUDE, 10.0);
+        assertEquals(300_000, idle.getIntervalMs());
+        assertEquals(500, idle.getDistanceMeters(), 1e-9);
+    }
+
+    @Test
+    void recommend_ShouldHalveReportsOnADeliveryRoundWithoutStalePositions() {
+        LocationReportingPolicy policy = policyWithStop(TaskStatus.IN_PROGRESS);
+        // A van in town at 30 km/h, in the m/s the policy takes
+        double speed = 30 / 3.6;
+        long reports = 0;
+        long seconds = 0;
+        for (int stop = 0; stop < 20; stop++) {
+            // Drive 3 km to the stop, then spend four minutes at the door
+            double remaining = 3_000;
+            long lastReport = Long.MIN_VALUE / 2;
+            double lastReported = Double.NaN;
+            LocationReportingPolicy.Recommendation next = null;
+            while (remaining > 30) {
+                if (next == null || (seconds - lastReport) * 1000 >= next.getIntervalMs()
+                        || lastReported - remaining >= next.getDistanceMeters()) {
+                    next = policy.recommend(1L, latitude(remaining), STOP_LONGITUDE, speed);
+                    double secondsToStop = remaining * 1.3 / speed;
+                    // The position an ETA is computed from is never older than the tolerated ETA error
+                    assertTrue(next.getIntervalMs() <= Math.max(45, 0.15 * secondsToStop) * 1000);
+                    reports++;
+                    lastReport = seconds;
+                    lastReported = remaining;
+                }
+                remaining -= speed;
+                seconds++;
+            }
+            for (long parkedUntil = seconds + 240; seconds < parkedUntil; seconds++) {
+                if ((seconds - lastReport) * 1000 >= next.getIntervalMs() || lastReported >= next.getDistanceMeters()) {
+                    next = policy.recommend(1L, latitude(0), STOP_LONGITUDE, 0.0);
+                    reports++;
+                    lastReport = seconds;
+                    lastReported = 0;
+                }
+            }
+        }
+        long fixedReports = seconds * 1000 / FIXED_INTERVAL_MS;
+        assertTrue(reports * 2 <= fixedReports, reports + " reports against " + fixedReports + " at a fixed interval");
+    }
+
+    private LocationReportingPolicy policyWithStop(TaskStatus status) {
+        Driver driver = new Driver();
+        driver.setId(1L);
+        Assignment assignment = Assignment.builder().id(10L).driver(driver).status(AssignmentStatus.STARTED).build();
+        Task task = Task.builder().id(100L).assignment(assignment).status(status).sequenceNumber(1)
+                .latitude(BigDecimal.valueOf(STOP_LATITUDE)).longitude(BigDecimal.valueOf(STOP_LONGITUDE)).build();
+        when(taskRepository.findWithDriverByStatusIn(any())).thenReturn(List.of(task));
+        ActiveStops activeStops = new ActiveStops(taskRepository);
+        activeStops.refresh();
+        assertEquals(1, activeStops.size());
+        return new LocationReportingPolicy(activeStops);
+    }
+
+    private static double latitude(double metersNorthOfStop) {
+        return STOP_LATITUDE + metersNorthOfStop / METERS_PER_DEGREE;
+    }
+}
@@ -0,0 +1,162 @@
+package com.microecosystem.courier.driver.app.service.location;
+
+import com.microecosystem.courier.driver.app.repository.DriverLocationJdbcRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class LocationWriteBehindBufferTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Mock
+    private DriverLocationJdbcRepository locationRepository;
+
+    @InjectMocks
+    private LocationWriteBehindBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        // Tests flush by hand
+        ReflectionTestUtils.setField(buffer, "flushIntervalMs", 3_600_000L);
+        buffer.init();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        buffer.shutdown();
+    }
+
+    @Test
+    void flush_ShouldWriteLatestPingPerDriverAndFullHistory() throws InterruptedException {
+        List<List<LocationPing>> latestBatches = new ArrayList<>();
+        List<List<LocationPing>> historyBatches = new ArrayList<>();
+        doAnswer(invocation -> latestBatches.add(new ArrayList<>(invocation.getArgument(0))))
+                .when(locationRepository).updateLatestLocations(anyList());
+        doAnswer(invocation -> historyBatches.add(new ArrayList<>(invocation.getArgument(0))))
+                .when(locationRepository).appendHistory(anyList());
+
+        buffer.accept(ping(1L, 0, "1.0"), true);
+        buffer.accept(ping(1L, 2, "1.2"), true);
+        // A fix that arrives late must not replace a newer one
+        buffer.accept(ping(1L, 1, "1.1"), true);
+        buffer.accept(ping(2L, 0, "2.0"), true);
+
+        buffer.flush();
+
+        assertEquals(1, latestBatches.size());
+        List<LocationPing> latest = latestBatches.get(0);
+        assertEquals(2, latest.size());
+        assertEquals(new BigDecimal("1.2"), latest.stream()
+                .filter(ping -> ping.getDriverId() == 1L).findFirst().orElseThrow().getLatitude());
+        // The newest fix of a moving driver waits for the next ones before it is simplified
+        assertEquals(3, historyBatches.stream().mapToInt(List::size).sum());
+        assertEquals(0, buffer.pendingDrivers());
+
+        buffer.flush();
+        verify(locationRepository, times(1)).updateLatestLocations(anyList());
+
+        buffer.shutdown();
+        assertEquals(4, historyBatches.stream().mapToInt(List::size).sum());
+        assertEquals(0, buffer.historyDrivers());
+    }
+
+    @Test
+    void flush_ShouldSimplifyHistoryAcrossFlushes() throws InterruptedException {
+        List<LocationPing> history = new ArrayList<>();
+        doAnswer(invocation -> history.addAll(invocation.getArgument(0)))
+                .when(locationRepository).appendHistory(anyList());
+
+        // A straight kilometre north reported over five flushes, then a turn east
+        int second = 0;
+        for (int flush = 0; flush < 5; flush++) {
+            for (int i = 0; i < 4; i++, second++) {
+                buffer.accept(ping(1L, second, BigDecimal.valueOf(second * 50, 6), BigDecimal.ZERO), true);
+            }
+            buffer.flush();
+        }
+        buffer.accept(ping(1L, second, BigDecimal.valueOf(second * 50, 6), new BigDecimal("0.001")), true);
+        buffer.shutdown();
+
+        assertEquals(List.of(NOW, NOW.plusSeconds(19), NOW.plusSeconds(20)),
+                history.stream().map(LocationPing::getRecordedAt).toList());
+    }
+
+    @Test
+    void flush_ShouldRetryHistoryThatFailedToWrite() throws InterruptedException {
+        List<LocationPing> history = new ArrayList<>();
+        doThrow(new DataAccessResourceFailureException("down"))
+                .doAnswer(invocation -> history.addAll(invocation.getArgument(0)))
+                .when(locationRepository).appendHistory(anyList());
+        ReflectionTestUtils.setField(buffer, "flushBatchSize", 2);
+
+        for (int i = 0; i < 5; i++) {
+            // Zigzagging, so none of them is simplified away
+            buffer.accept(ping(1L, i, BigDecimal.valueOf(i), BigDecimal.valueOf(i % 2)), true);
+        }
+        buffer.flush();
+        assertTrue(history.isEmpty());
+
+        buffer.flush();
+        buffer.shutdown();
+        assertEquals(5, history.size());
+        assertEquals(NOW.plusSeconds(4), history.get(4).getRecordedAt());
+    }
+
+    @Test
+    void flush_ShouldForgetDriversWhoStoppedMoving() {
+        ReflectionTestUtils.setField(buffer, "historyWindowMaxMs", 0L);
+
+        buffer.accept(ping(1L, 0, "1.0"), true);
+        buffer.accept(ping(1L, 1, "1.1"), true);
+        buffer.flush();
+
+        ArgumentCaptor<List<LocationPing>> history = ArgumentCaptor.forClass(List.class);
+        verify(locationRepository).appendHistory(history.capture());
+        assertEquals(2, history.getValue().size());
+        assertEquals(0, buffer.historyDrivers());
+    }
+
+    @Test
+    void flush_ShouldKeepPendingLocationsWhenWriteFails() {
+        doThrow(new DataAccessResourceFailureException("down")).doNothing()
+                .when(locationRepository).updateLatestLocations(anyList());
+
+        buffer.accept(ping(1L, 0, "1.0"), true);
+        buffer.flush();
+
+        assertEquals(1, buffer.pendingDrivers());
+
+        buffer.flush();
+
+        assertEquals(0, buffer.pendingDrivers());
+        ArgumentCaptor<List<LocationPing>> batch = ArgumentCaptor.forClass(List.class);
+        verify(locationRepository, times(2)).updateLatestLocations(batch.capture());
+        assertEquals(1L, batch.getValue().get(0).getDriverId());
+    }
+
+    private static LocationPing ping(Long driverId, int secondsLater, String latitude) {
+        return ping(driverId, secondsLater, new BigDecimal(latitude), BigDecimal.ONE);
+    }
+
+    private static LocationPing ping(Long driverId, int secondsLater, BigDecimal latitude, BigDecimal longitude) {
+        return new LocationPing(driverId, latitude, longitude, 10, 30.0, 90.0, NOW.plusSeconds(secondsLater));
+    }
+}
@@ -0,0 +1,52 @@
+package com.microecosystem.courier.driver.app.service.location;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrajectorySimplifierTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Test
+    void simplifyTrack_ShouldKeepCornersAndDropStraightRuns() {
+        List<LocationPing> track = new ArrayList<>();
+        // 1 km north then 1 km east, one fix every ~100 m
+        for (int i = 0; i <= 10; i++) {
+            track.add(ping(1L, i, i * 90, 0));
+        }
+        for (int i = 1; i <= 10; i++) {
+            track.add(ping(1L, 10 + i, 900, i * 90));
+        }
+
+        List<LocationPing> kept = TrajectorySimplifier.simplifyTrack(track, 5.0);
+
+        assertEquals(3, kept.size());
+        assertEquals(START, kept.get(0).getRecordedAt());
+        assertEquals(START.plusSeconds(10), kept.get(1).getRecordedAt());
+        assertEquals(START.plusSeconds(20), kept.get(2).getRecordedAt());
+    }
+
+    @Test
+    void simplifyTrack_ShouldKeepOnlyTheEndsOfAStationaryTrack() {
+        List<LocationPing> track = new ArrayList<>();
+        for (int i = 0; i <= 10; i++) {
+            track.add(ping(2L, i, 100_000, 100_000));
+        }
+
+        List<LocationPing> kept = TrajectorySimplifier.simplifyTrack(track, 5.0);
+
+        assertEquals(List.of(track.get(0), track.get(10)), kept);
+    }
+
+    // Coordinates in units of 0.00001 degrees, about 1.1 m
+    private static LocationPing ping(Long driverId, int seconds, int latitude, int longitude) {
+        return new LocationPing(driverId, BigDecimal.valueOf(latitude, 5), BigDecimal.valueOf(longitude, 5), 5,
+                null, null, START.plusSeconds(seconds));
+    }
+}
@@ -0,0 +1,163 @@
+package com.microecosystem.courier.driver.app.service.navigation;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RouteCacheTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T12:00:00Z");
+
+    @Test
+    void get_ShouldShareRoutesBetweenPointsInTheSameTiles() {
+        RouteCache cache = new RouteCache(Clock.fixed(NOW, ZoneOffset.UTC));
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<Map<String, Object>> loader = () -> Map.of("distance", 1.0 * loads.incrementAndGet());
+
+        Map<String, Object> first = cache.get(51.5001, -0.1001, 51.5101, -0.1201, true, loader);
+        // About 30 m away at both ends
+        Map<String, Object> second = cache.get(51.5003, -0.1003, 51.5103, -0.1203, true, loader);
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(0.5, cache.getHitRate());
+    }
+
+    @Test
+    void get_ShouldReturnRoutesThatCannotBeModified() {
+        RouteCache cache = new RouteCache(Clock.fixed(NOW, ZoneOffset.UTC));
+        Map<String, Object> loaded = new HashMap<>();
+        List<Object> segments = new ArrayList<>(List.of(new HashMap<>(Map.of("distance", 1.0))));
+        loaded.put("segments", segments);
+
+        Map<String, Object> route = cache.get(51.5, -0.1, 51.6, -0.2, false, () -> loaded);
+        segments.clear();
+
+        assertThrows(UnsupportedOperationException.class, () -> route.put("distance", 2.0));
+        List<?> cachedSegments = (List<?>) route.get("segments");
+        assertEquals(1, cachedSegments.size());
+        assertThrows(UnsupportedOperationException.class, () -> cachedSegments.remove(0));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> segment = (Map<String, Object>) cachedSegments.get(0);
+        assertThrows(UnsupportedOperationException.class, () -> segment.put("distance", 2.0));
+    }
+
+    @Test
+    void get_ShouldMissInANewTimeBucketOnlyForTimeDependentRoutes() {
+        Instant[] now = {NOW};
+        RouteCache cache = new RouteCache(clock(now));
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<Map<String, Object>> loader = () -> Map.of("load", loads.incrementAndGet());
+
+        cache.get(51.5, -0.1, 51.6, -0.2, true, loader);
+        cache.get(51.5, -0.1, 51.6, -0.2, false, loader);
+        now[0] = NOW.plus(Duration.ofMinutes(20));
+        cache.get(51.5, -0.1, 51.6, -0.2, true, loader);
+        cache.get(51.5, -0.1, 51.6, -0.2, false, loader);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void get_ShouldNotLetOneOffRoutesEvictFrequentOnesButAlwaysAdmitPrefetches() {
+        RouteCache cache = new RouteCache(Clock.fixed(NOW, ZoneOffset.UTC));
+        // About 200 KB each; fill the default 64 MB budget behind one frequently used route
+        Map<String, Object> large = Map.of("polyline", "x".repeat(100_000));
+        cache.get(51.5, -0.1, 51.6, -0.2, false, () -> large);
+        for (int i = 0; i < 5; i++) {
+            cache.get(51.5, -0.1, 51.6, -0.2, false, () -> large);
+        }
+        int fill = 1;
+        while (cache.getWeightBytes() + 200_500 <= 64L * 1024 * 1024) {
+            cache.get(40 + fill * 0.01, 0, 41, 0, false, () -> large);
+            fill++;
+        }
+        int size = cache.size();
+
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(10, 10, 11, 11, false, () -> {
+            loads.incrementAndGet();
+            return large;
+        });
+        assertEquals(size, cache.size());
+        cache.get(51.5, -0.1, 51.6, -0.2, false, () -> fail("Frequent route was evicted"));
+
+        assertTrue(cache.prefetch(12, 12, 13, 13, false, () -> large));
+        assertFalse(cache.prefetch(12, 12, 13, 13, false, () -> large));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_WhenANewcomerIsRejected_ShouldNotHaveEvictedAnything() {
+        RouteCache cache = new RouteCache(Clock.fixed(NOW, ZoneOffset.UTC));
+        ReflectionTestUtils.setField(cache, "maxSizeMb", 1);
+        // About 300 KB each, in eviction order: a rarely used route, then a popular one
+        Map<String, Object> route = Map.of("polyline", "x".repeat(150_000));
+        cache.get(1, 1, 2, 2, false, () -> route);
+        for (int i = 0; i < 6; i++) {
+            cache.get(3, 3, 4, 4, false, () -> route);
+        }
+        cache.get(5, 5, 6, 6, false, () -> route);
+
+        // Needs both to go, and is requested more often than the first but less than the second
+        Map<String, Object> larger = Map.of("polyline", "x".repeat(300_000));
+        cache.get(7, 7, 8, 8, false, () -> larger);
+        cache.get(7, 7, 8, 8, false, () -> larger);
+
+        assertEquals(3, cache.size());
+        cache.get(1, 1, 2, 2, false, () -> fail("Route was evicted for a newcomer that was not admitted"));
+    }
+
+    @Test
+    void prefetch_ShouldFillTheNextTimeBucketShortlyBeforeItStarts() {
+        Instant[] now = {NOW.plus(Duration.ofMinutes(10))};
+        RouteCache cache = new RouteCache(clock(now));
+        AtomicInteger loads = new AtomicInteger();
+        Supplier<Map<String, Object>> loader = () -> Map.of("load", loads.incrementAndGet());
+
+        assertTrue(cache.prefetch(51.5, -0.1, 51.6, -0.2, true, loader));
+        assertEquals(1, loads.get());
+
+        // Within two minutes of the 12:15 bucket
+        now[0] = NOW.plus(Duration.ofSeconds(13 * 60 + 30));
+        assertTrue(cache.prefetch(51.5, -0.1, 51.6, -0.2, true, loader));
+        assertFalse(cache.prefetch(51.5, -0.1, 51.6, -0.2, true, loader));
+        assertEquals(2, loads.get());
+
+        now[0] = NOW.plus(Duration.ofMinutes(16));
+        assertEquals(Map.of("load", 2), cache.get(51.5, -0.1, 51.6, -0.2, true,
+                () -> fail("Next bucket was not prefetched")));
+    }
+
+    private static Clock clock(Instant[] now) {
+        return new Clock() {
+            @Override
+            public ZoneOffset getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now[0];
+            }
+        };
+    }
+}
@@ -0,0 +1,196 @@
+package com.microecosystem.courier.driver.app.service.notification;
+
+import com.microecosystem.courier.driver.app.repository.DriverRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PushDispatcherTest {
+
+    @Mock
+    private DriverRepository driverRepository;
+
+    private FakePushProvider provider;
+    private PushDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        provider = new FakePushProvider(100);
+        dispatcher = new PushDispatcher(provider, driverRepository);
+        // Long enough that all dispatches of a test land in the same batches
+        ReflectionTestUtils.setField(dispatcher, "lingerMs", 500L);
+        ReflectionTestUtils.setField(dispatcher, "retryDelayMs", 10L);
+        ReflectionTestUtils.setField(dispatcher, "maxCallsPerSecond", 1000);
+        dispatcher.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatcher.stop();
+    }
+
+    @Test
+    void dispatch_ShouldGroupEqualMessagesIntoProviderSizedBatches() throws Exception {
+        PushMessage broadcast = new PushMessage("Depot closing", "Return by 18:00", Map.of("type", "BROADCAST"));
+        PushMessage other = new PushMessage("New assignment", "ASG-1", null);
+
+        List<CompletableFuture<PushDispatchResult>> results = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            results.add(dispatcher.dispatch(new PushMessage("Depot closing", "Return by 18:00", Map.of("type", "BROADCAST")),
+                    List.of("token-" + i)));
+        }
+        PushDispatchResult single = dispatcher.dispatch(other, List.of("token-0")).get(5, TimeUnit.SECONDS);
+
+        for (CompletableFuture<PushDispatchResult> result : results) {
+            assertEquals(1, result.get(5, TimeUnit.SECONDS).getDelivered());
+        }
+        assertEquals(1, single.getDelivered());
+        assertNotNull(single.getMessageId());
+        List<Integer> broadcastBatches = provider.getSent().stream()
+                .filter(batch -> batch.getMessage().equals(broadcast))
+                .map(batch -> batch.getTokens().size())
+                .collect(Collectors.toList());
+        assertEquals(List.of(100, 100, 50), broadcastBatches);
+        assertEquals(4, provider.getSent().size());
+    }
+
+    @Test
+    void dispatch_ShouldPruneInvalidTokens() throws Exception {
+        List<String> tokens = List.of("token-1", FakePushProvider.INVALID_TOKEN_PREFIX + "2", "token-3", "");
+
+        PushDispatchResult result = dispatcher.dispatch(new PushMessage("Hello", "World", null), tokens)
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, result.getDelivered());
+        assertEquals(1, result.getInvalidTokens());
+        verify(driverRepository).clearDeviceTokens(List.of(FakePushProvider.INVALID_TOKEN_PREFIX + "2"));
+    }
+
+    @Test
+    void dispatch_ShouldRetryTransientFailures() throws Exception {
+        provider.failNextCalls(2);
+        List<String> tokens = IntStream.range(0, 10).mapToObj(i -> "token-" + i).collect(Collectors.toList());
+
+        PushDispatchResult result = dispatcher.dispatch(new PushMessage("Hello", "World", null), tokens)
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(10, result.getDelivered());
+        assertEquals(3, provider.getSent().size());
+        verifyNoInteractions(driverRepository);
+
+        provider.failNextCalls(10);
+        PushDispatchResult exhausted = dispatcher.dispatch(new PushMessage("Hello", "Again", null), tokens)
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(10, exhausted.getFailed());
+    }
+
+    @Test
+    void dispatch_ShouldSendATokenOnceWhenSubmissionsOverlap() throws Exception {
+        CompletableFuture<PushDispatchResult> first = dispatcher.dispatch(new PushMessage("Hello", "World", null),
+                List.of("token-1", "token-2"));
+        CompletableFuture<PushDispatchResult> second = dispatcher.dispatch(new PushMessage("Hello", "World", null),
+                List.of("token-2", "token-3"));
+
+        assertEquals(2, first.get(5, TimeUnit.SECONDS).getDelivered());
+        assertEquals(2, second.get(5, TimeUnit.SECONDS).getDelivered());
+        assertEquals(1, provider.getSent().size());
+        assertEquals(List.of("token-1", "token-2", "token-3"), provider.getSent().get(0).getTokens());
+    }
+
+    @Test
+    void dispatchToTopic_ShouldSendOnTheDispatcherThreads() throws Exception {
+        PushResult result = dispatcher.dispatchToTopic(new PushMessage("Depot closing", "Return by 18:00", null),
+                "depot-1", true, 3600L).get(5, TimeUnit.SECONDS);
+
+        assertEquals(PushResult.Status.DELIVERED, result.getStatus());
+        assertEquals(1, provider.getSent().size());
+        assertEquals("depot-1", provider.getSent().get(0).getTopic());
+        assertTrue(provider.getSent().get(0).getTokens().isEmpty());
+    }
+
+    @Test
+    void stop_ShouldFailRetriesStillWaiting() throws Exception {
+        ReflectionTestUtils.setField(dispatcher, "lingerMs", 10L);
+        ReflectionTestUtils.setField(dispatcher, "retryDelayMs", 60_000L);
+        provider.failNextCalls(1);
+        CompletableFuture<PushDispatchResult> result = dispatcher.dispatch(new PushMessage("Hello", "World", null),
+                List.of("token-1"));
+        while (provider.getSent().isEmpty()) {
+            Thread.sleep(5);
+        }
+
+        dispatcher.stop();
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, failure.getCause());
+        assertEquals(1, provider.getSent().size());
+    }
+
+    @Test
+    void dispatch_WhenTheQueueIsFull_ShouldFailTheBatchWithoutSendingOnTheCaller() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> senders = new ArrayList<>();
+        PushProvider blocking = new PushProvider() {
+            @Override
+            public int getMaxBatchSize() {
+                return 1;
+            }
+
+            @Override
+            public List<PushResult> send(PushMessage message, List<String> tokens) {
+                synchronized (senders) {
+                    senders.add(Thread.currentThread().getName());
+                }
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return List.of(PushResult.delivered("id"));
+            }
+
+            @Override
+            public PushResult sendToTopic(PushMessage message, String topic, boolean highPriority, Long timeToLive) {
+                return PushResult.delivered("id");
+            }
+        };
+        dispatcher.stop();
+        dispatcher = new PushDispatcher(blocking, driverRepository);
+        ReflectionTestUtils.setField(dispatcher, "threads", 1);
+        ReflectionTestUtils.setField(dispatcher, "queueCapacity", 1);
+        ReflectionTestUtils.setField(dispatcher, "maxCallsPerSecond", 1000);
+        dispatcher.start();
+
+        CompletableFuture<PushDispatchResult> sending = dispatcher.dispatch(new PushMessage("A", "1", null), List.of("token-1"));
+        CompletableFuture<PushDispatchResult> queued = dispatcher.dispatch(new PushMessage("B", "2", null), List.of("token-2"));
+        CompletableFuture<PushDispatchResult> rejected = dispatcher.dispatch(new PushMessage("C", "3", null), List.of("token-3"));
+
+        assertEquals(1, rejected.get(1, TimeUnit.SECONDS).getFailed());
+        release.countDown();
+        assertEquals(1, sending.get(5, TimeUnit.SECONDS).getDelivered());
+        assertEquals(1, queued.get(5, TimeUnit.SECONDS).getDelivered());
+        synchronized (senders) {
+            assertEquals(2, senders.size());
+            assertTrue(senders.stream().allMatch(name -> name.startsWith("PushDispatcher-")), senders::toString);
+        }
+    }
+}
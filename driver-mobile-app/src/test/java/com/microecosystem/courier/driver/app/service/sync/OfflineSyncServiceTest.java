@@ -0,0 +1,112 @@
+package com.microecosystem.courier.driver.app.service.sync;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OfflineSyncServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<String> events = new ArrayList<>();
+    private OperationLog operationLog;
+    private OfflineSyncService syncService;
+
+    @BeforeEach
+    void setUp() {
+        operationLog = new OperationLog(directory.toString(), 16) {
+            @Override
+            public void acknowledge(long sequence) {
+                events.add("acknowledge " + sequence);
+                super.acknowledge(sequence);
+            }
+        };
+        operationLog.open();
+        syncService = new OfflineSyncService(operationLog, new ObjectMapper(), new RecordingTransactionManager());
+        ReflectionTestUtils.setField(syncService, "batchSize", 100);
+        ReflectionTestUtils.setField(syncService, "conflictResolutionStrategy", "SERVER_WINS");
+    }
+
+    @AfterEach
+    void tearDown() {
+        operationLog.close();
+    }
+
+    @Test
+    void processSyncBatch_ShouldAcknowledgeEachOperationOnlyAfterItsOwnTransactionCommits() {
+        OfflineSyncService.SyncResult result = syncService.processSyncBatch("device-1",
+                List.of(operation(1, "P1"), operation(2, "P2"), operation(10, "P1")));
+
+        assertTrue(result.isSuccess());
+        assertEquals(2, result.getSuccessCount());
+        assertEquals(1, result.getFailureCount());
+        // Draining P1 applies both of its operations before P2's
+        assertEquals(List.of(
+                "begin", "commit", "acknowledge 1",
+                "begin", "commit", "acknowledge 3",
+                "begin", "commit", "acknowledge 2"), events);
+    }
+
+    @Test
+    void processSyncBatch_WhenTheCommitFails_ShouldReportTheOperationAsFailed() {
+        syncService = new OfflineSyncService(operationLog, new ObjectMapper(), new RecordingTransactionManager() {
+            @Override
+            protected void doCommit(DefaultTransactionStatus status) {
+                throw new IllegalStateException("Connection lost");
+            }
+        });
+        ReflectionTestUtils.setField(syncService, "batchSize", 100);
+        ReflectionTestUtils.setField(syncService, "conflictResolutionStrategy", "SERVER_WINS");
+
+        OfflineSyncService.SyncResult result = syncService.processSyncBatch("device-1", List.of(operation(1, "P1")));
+
+        assertEquals(0, result.getSuccessCount());
+        assertEquals(1, result.getFailureCount());
+        assertEquals(List.of("begin", "rollback", "acknowledge 1"), events);
+    }
+
+    private static OfflineSyncService.SyncOperation operation(long id, String packageId) {
+        OfflineSyncService.SyncOperation operation = new OfflineSyncService.SyncOperation();
+        operation.setId(id);
+        operation.setType("UPDATE");
+        operation.setEntityType("PACKAGE");
+        operation.setEntityId(packageId);
+        return operation;
+    }
+
+    private class RecordingTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            events.add("begin");
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            events.add("commit");
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+            events.add("rollback");
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.microecosystem.courier.driver.app.service.sync;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OperationLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recover_ShouldReturnUnacknowledgedOperationsInOrderAfterCrash() {
+        OperationLog log = open(16);
+        long first = log.append(bytes("first"));
+        long second = log.append(bytes("second"));
+        long third = log.append(bytes("third"));
+        log.acknowledge(second);
+        log.sync();
+
+        // Reopen without closing, as after kill -9
+        OperationLog reopened = open(16);
+        List<OperationLog.Record> recovered = reopened.recover();
+        assertEquals(List.of(first, third), recovered.stream().map(OperationLog.Record::getSequence).toList());
+        assertEquals("third", new String(recovered.get(1).getPayload(), StandardCharsets.UTF_8));
+        assertEquals(third + 1, reopened.append(bytes("fourth")));
+    }
+
+    @Test
+    void open_ShouldDiscardTornRecordAtTail() throws Exception {
+        OperationLog log = open(16);
+        log.append(bytes("complete"));
+        log.append(bytes("torn"));
+        log.sync();
+
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        String content = new String(Files.readAllBytes(segment), StandardCharsets.ISO_8859_1);
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(content.indexOf("torn"));
+            file.write('T');
+        }
+
+        OperationLog reopened = open(16);
+        assertEquals(1, reopened.recover().size());
+        reopened.append(bytes("after"));
+        assertEquals(List.of("complete", "after"), open(16).recover().stream()
+                .map(record -> new String(record.getPayload(), StandardCharsets.UTF_8))
+                .toList());
+    }
+
+    @Test
+    void acknowledge_ShouldDeleteSegmentsOnceAllTheirOperationsAreAcknowledged() {
+        OperationLog log = open(1);
+        long[] sequences = new long[40];
+        for (int i = 0; i < sequences.length; i++) {
+            sequences[i] = log.append(new byte[100]);
+        }
+        assertTrue(log.segmentCount() > 3);
+
+        // An unacknowledged operation in the oldest segment keeps every later segment too
+        for (int i = 1; i < sequences.length; i++) {
+            log.acknowledge(sequences[i]);
+        }
+        assertTrue(log.segmentCount() > 3);
+
+        log.acknowledge(sequences[0]);
+        assertEquals(1, log.segmentCount());
+        assertTrue(open(1).recover().isEmpty());
+    }
+
+    private OperationLog open(int segmentSizeKb) {
+        OperationLog log = new OperationLog(directory.toString(), segmentSizeKb);
+        log.open();
+        return log;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,195 @@
+package com.gogidix.courier.drivermobileapp.service.sync;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gogidix.courier.drivermobileapp.dto.sync.DeltaSyncRequestDTO;
+import com.gogidix.courier.drivermobileapp.dto.sync.DeltaSyncResponseDTO;
+import com.gogidix.courier.drivermobileapp.dto.sync.SyncChangeDTO;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the change log's Lua scripts against a real Redis.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class SyncChangeLogTest {
+
+    private static final String COURIER = "courier-1";
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SyncChangeLog changeLog;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.getConnectionFactory().getConnection().serverCommands().flushAll();
+        changeLog = new SyncChangeLog(redisTemplate, objectMapper);
+    }
+
+    @Test
+    void reconcile_ShouldKeepOneEntryPerEntityAndSkipUnchangedContent() {
+        assertEquals(2, changeLog.reconcile(COURIER, state(versions("A1", "v1", "A2", "v1"), versions())));
+        assertEquals(1, changeLog.reconcile(COURIER, state(versions("A1", "v2", "A2", "v1"), versions())));
+        assertEquals(0, changeLog.reconcile(COURIER, state(versions("A1", "v2", "A2", "v1"), versions())));
+
+        DeltaSyncResponseDTO snapshot = changeLog.changesSince(COURIER, new DeltaSyncRequestDTO(), 10);
+        assertEquals(List.of("A2", "A1"), ids(snapshot));
+        assertEquals(3L, snapshot.getChanges().get(1).getSequence());
+        assertEquals("v2", snapshot.getChanges().get(1).getData().get("version").asText());
+        assertEquals(3L, snapshot.getCursors().get("ASSIGNMENT"));
+        assertFalse(snapshot.isHasMore());
+    }
+
+    @Test
+    void reconcile_ShouldTombstoneEntitiesThatAreGoneOnlyForDevicesThatHoldThem() {
+        changeLog.reconcile(COURIER, state(versions("A1", "v1"), versions("T1", "v1", "T2", "v1")));
+        DeltaSyncResponseDTO first = changeLog.changesSince(COURIER, new DeltaSyncRequestDTO(), 10);
+
+        changeLog.reconcile(COURIER, state(versions("A1", "v1"), versions("T1", "v1")));
+        // Already deleted, so no second tombstone
+        assertEquals(0, changeLog.reconcile(COURIER, state(versions("A1", "v1"), versions("T1", "v1"))));
+
+        DeltaSyncResponseDTO delta = changeLog.changesSince(COURIER, request(first), 10);
+        assertEquals(List.of("T2"), ids(delta));
+        assertTrue(delta.getChanges().get(0).isDeleted());
+        assertNull(delta.getChanges().get(0).getData());
+
+        // A device starting from nothing has nothing to delete
+        assertEquals(List.of("A1", "T1"), ids(changeLog.changesSince(COURIER, new DeltaSyncRequestDTO(), 10)));
+    }
+
+    @Test
+    void changesSince_ShouldPageAcrossEntityTypesWithoutLosingChanges() {
+        changeLog.reconcile(COURIER, state(versions("A1", "v1", "A2", "v1", "A3", "v1"), versions("T1", "v1", "T2", "v1")));
+
+        DeltaSyncResponseDTO page = changeLog.changesSince(COURIER, new DeltaSyncRequestDTO(), 2);
+        assertEquals(2, page.getChanges().size());
+        assertTrue(page.isHasMore());
+        assertEquals(0L, page.getCursors().get("TASK"));
+
+        // A change between pages is picked up after what the device has not read yet
+        changeLog.reconcile(COURIER, state(versions("A1", "v2", "A2", "v1", "A3", "v1"), versions("T1", "v1", "T2", "v1")));
+
+        List<String> seen = new ArrayList<>(ids(page));
+        while (page.isHasMore()) {
+            page = changeLog.changesSince(COURIER, request(page), 2);
+            assertTrue(page.getChanges().size() <= 2);
+            seen.addAll(ids(page));
+        }
+        assertEquals(6, seen.size());
+        assertTrue(seen.containsAll(List.of("A1", "A2", "A3", "T1", "T2")));
+        assertEquals("A1", seen.get(seen.size() - 3));
+        assertTrue(changeLog.changesSince(COURIER, request(page), 2).getChanges().isEmpty());
+    }
+
+    @Test
+    void changesSince_WithCursorsFromAnotherEpoch_ShouldResetToASnapshot() {
+        changeLog.reconcile(COURIER, state(versions("A1", "v1"), versions()));
+        DeltaSyncRequestDTO stale = DeltaSyncRequestDTO.builder()
+                .epoch("expired")
+                .cursors(Map.of("ASSIGNMENT", 50L))
+                .build();
+
+        DeltaSyncResponseDTO response = changeLog.changesSince(COURIER, stale, 10);
+
+        assertTrue(response.isReset());
+        assertNotEquals("expired", response.getEpoch());
+        assertEquals(List.of("A1"), ids(response));
+    }
+
+    @Test
+    void reconcile_ShouldPruneOldTombstonesAndResetDevicesThatMissedThem() {
+        Instant start = Instant.parse("2026-03-02T09:00:00Z");
+        changeLog = new SyncChangeLog(redisTemplate, objectMapper, Clock.fixed(start, ZoneOffset.UTC));
+        changeLog.reconcile(COURIER, state(versions("A1", "v1"), versions("T1", "v1", "T2", "v1")));
+        DeltaSyncResponseDTO behind = changeLog.changesSince(COURIER, new DeltaSyncRequestDTO(), 10);
+        changeLog.reconcile(COURIER, state(versions("A1", "v1"), versions("T1", "v1")));
+        DeltaSyncResponseDTO current = changeLog.changesSince(COURIER, request(behind), 10);
+
+        changeLog = new SyncChangeLog(redisTemplate, objectMapper,
+                Clock.fixed(start.plus(Duration.ofDays(4)), ZoneOffset.UTC));
+        assertEquals(0, changeLog.reconcile(COURIER, state(versions("A1", "v1"), versions("T1", "v1"))));
+
+        DeltaSyncResponseDTO snapshot = changeLog.changesSince(COURIER, new DeltaSyncRequestDTO(), 10);
+        assertFalse(snapshot.isReset());
+        assertEquals(List.of("A1", "T1"), ids(snapshot));
+
+        // The device that never saw the tombstone cannot tell T2 is gone without a reset
+        DeltaSyncResponseDTO reset = changeLog.changesSince(COURIER, request(behind), 10);
+        assertTrue(reset.isReset());
+        assertEquals(List.of("A1", "T1"), ids(reset));
+
+        DeltaSyncResponseDTO upToDate = changeLog.changesSince(COURIER, request(current), 10);
+        assertFalse(upToDate.isReset());
+        assertTrue(upToDate.getChanges().isEmpty());
+    }
+
+    @Test
+    void claimRefresh_ShouldGrantOneRefreshPerInterval() {
+        assertTrue(changeLog.claimRefresh(COURIER, Duration.ofMinutes(1)));
+        assertFalse(changeLog.claimRefresh(COURIER, Duration.ofMinutes(1)));
+        assertTrue(changeLog.claimRefresh("courier-2", Duration.ofMinutes(1)));
+    }
+
+    private static Map<SyncEntityType, Map<String, JsonNode>> state(Map<String, JsonNode> assignments,
+                                                                     Map<String, JsonNode> tasks) {
+        return Map.of(SyncEntityType.ASSIGNMENT, assignments, SyncEntityType.TASK, tasks);
+    }
+
+    // Entity IDs each followed by a version, kept in order so sequences are predictable
+    private Map<String, JsonNode> versions(String... idsAndVersions) {
+        Map<String, JsonNode> entities = new LinkedHashMap<>();
+        for (int i = 0; i < idsAndVersions.length; i += 2) {
+            entities.put(idsAndVersions[i], objectMapper.createObjectNode().put("version", idsAndVersions[i + 1]));
+        }
+        return entities;
+    }
+
+    private static DeltaSyncRequestDTO request(DeltaSyncResponseDTO previous) {
+        return DeltaSyncRequestDTO.builder()
+                .epoch(previous.getEpoch())
+                .cursors(previous.getCursors())
+                .build();
+    }
+
+    private static List<String> ids(DeltaSyncResponseDTO response) {
+        return response.getChanges().stream().map(SyncChangeDTO::getEntityId).toList();
+    }
+}
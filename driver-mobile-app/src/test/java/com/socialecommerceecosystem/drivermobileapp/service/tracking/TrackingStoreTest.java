@@ -0,0 +1,136 @@
+package com.gogidix.courier.drivermobileapp.service.tracking;
+
+import com.gogidix.courier.drivermobileapp.dto.tracking.TrackingEventDTO;
+import com.gogidix.courier.drivermobileapp.dto.tracking.TrackingInfoDTO;
+import com.gogidix.courier.drivermobileapp.service.tracking.TrackingStore.PackageTrackingData;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the tracking store's Lua scripts, directly and pipelined, against a real Redis that
+ * starts without them.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class TrackingStoreTest {
+
+    private static final String COURIER = "courier-1";
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static RedisTemplate<String, Object> redisTemplate;
+
+    private TrackingStore store;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new RedisTemplate<>();
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setValueSerializer(new GenericJackson2JsonRedisSerializer());
+        redisTemplate.setHashKeySerializer(new StringRedisSerializer());
+        redisTemplate.setHashValueSerializer(new GenericJackson2JsonRedisSerializer());
+        redisTemplate.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.serverCommands().flushAll();
+            connection.scriptingCommands().scriptFlush();
+        }
+        RedisMessageListenerContainer listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        store = new TrackingStore(redisTemplate, listenerContainer);
+        ReflectionTestUtils.setField(store, "configureNotifications", false);
+    }
+
+    @Test
+    void storeOffline_ShouldStoreTheEventAndIndexTheCourier() {
+        store.storeOffline("P1", List.of(event("E1", "\u00dcbergeben an Nachbarn")), null, info("P1", "IN_TRANSIT"));
+
+        PackageTrackingData data = store.getPackageData("P1");
+        assertEquals("IN_TRANSIT", data.getInfo().getStatus());
+        assertEquals("\u00dcbergeben an Nachbarn", data.getOfflineEvents().get(0).getDescription());
+        assertEquals(1, store.getOfflineData(COURIER).size());
+        assertEquals(1, store.getPackagesByCourier(COURIER).size());
+    }
+
+    @Test
+    void completeSync_ShouldStoreInfoAndRemoveSynchronizedDataInOnePipeline() {
+        store.subscribe();
+        store.storeOffline("P1", List.of(event("E1", "Delivered"), event("E2", "Signed")), null,
+                info("P1", "IN_TRANSIT"));
+
+        store.completeSync(List.of(info("P1", "DELIVERED"), info("P2", "IN_TRANSIT")),
+                Map.of("P1", List.of("E1")), List.of(), COURIER);
+
+        PackageTrackingData data = store.getPackageData("P1");
+        assertEquals("DELIVERED", data.getInfo().getStatus());
+        assertEquals(List.of("E2"), data.getOfflineEvents().stream().map(TrackingEventDTO::getId).toList());
+        assertEquals(1, store.getOfflineData(COURIER).size());
+        assertEquals(2, store.getPackagesByCourier(COURIER).size());
+
+        store.completeSync(List.of(), Map.of("P1", List.of("E2")), List.of(), COURIER);
+        assertTrue(store.getOfflineData(COURIER).isEmpty());
+    }
+
+    @Test
+    void completeSync_ShouldReloadScriptsThatRedisLost() {
+        store.subscribe();
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.scriptingCommands().scriptFlush();
+        }
+
+        store.completeSync(List.of(info("P1", "IN_TRANSIT")), Map.of(), List.of(), null);
+
+        assertEquals("IN_TRANSIT", store.getPackage("P1").getStatus());
+    }
+
+    private static TrackingInfoDTO info(String packageId, String status) {
+        return TrackingInfoDTO.builder()
+                .packageId(packageId)
+                .trackingNumber("TRK-" + packageId)
+                .status(status)
+                .courierId(COURIER)
+                .build();
+    }
+
+    private static TrackingEventDTO event(String id, String description) {
+        return TrackingEventDTO.builder()
+                .id(id)
+                .packageId("P1")
+                .eventType("STATUS_UPDATE")
+                .status("DELIVERED")
+                .description(description)
+                .driverId(COURIER)
+                .build();
+    }
+}